@@ -97,6 +97,14 @@ Messenger message = Messenger();
 // we use a flag separate from client.connected
 // so we can recognize when a new connection has been created
 boolean connectFlag = 0; 
+// When set, the client connection is kept open after each reply, so a client can send
+// many commands (e.g. a mechanism move and the subsequent position queries) over one connection.
+// Set/cleared by the 'session start'/'session end' commands.
+boolean sessionFlag = 0;
+// The time (millis) the last command was received in session mode.
+// A session idle for more than SESSION_IDLE_TIMEOUT is closed, so a dead client cannot lock out other clients.
+unsigned long sessionLastCommandTime = 0;
+#define SESSION_IDLE_TIMEOUT           (10000)
 // string used for command parsing
 char string[STRING_LENGTH];
 // error number
@@ -233,6 +241,18 @@ void loop()
       client = server.available();
       printTime(); Serial.println("loop:New client connected.");
   }
+  // check for a session client that has disconnected, or gone idle
+  if(connectFlag && sessionFlag)
+  {
+      if((!client.connected())||((millis()-sessionLastCommandTime) > SESSION_IDLE_TIMEOUT))
+      {
+          printTime(); Serial.println("loop:Session client disconnected or idle: closing session.");
+          client.stop();
+          connectFlag = 0;
+          sessionFlag = 0;
+          client = 0;
+      }
+  }
   // check for input from client
   if(client.connected() && client.available())
   {
@@ -384,6 +404,7 @@ void monitorSensors()
 // input <mirrorout|mirrorin|slitout|slitin|grismout|grismin|rotpos0|rotpos1>
 // mirror [in|out]
 // rotation [0|1]
+// session <start|end>
 // slit [in|out]
 // temperature <n>
 // wlamp [on|off]
@@ -427,6 +448,8 @@ void monitorSensors()
 // @see #ERROR_CODE_GRISM_NOT_IN
 // @see #ERROR_CODE_ILLEGAL_GRISM_ROT_TARGET_POS
 // @see #ERROR_CODE_NUMBER_OUT_OF_RANGE
+// @see #sessionFlag
+// @see #sessionLastCommandTime
 void messageReady()
 {
   float fvalue;
@@ -537,6 +560,7 @@ void messageReady()
       client.println("input <mirrorout|mirrorin|slitout|slitin|grismout|grismin|rotpos0|rotpos1>");
       client.println("mirror [in|out]");
       client.println("rotation [0|1]");
+      client.println("session <start|end>");
       client.println("slit [in|out]");
       client.println("temperature <n>");
       client.println("wlamp [on|off]");
@@ -726,6 +750,24 @@ void messageReady()
           break;
       }
     }   
+    else if(message.checkString("session"))
+    {
+      if(message.checkString("start"))
+      {
+        sessionFlag = 1;
+        sessionLastCommandTime = millis();
+        client.println("ok");
+      }
+      else if(message.checkString("end"))
+      {
+        sessionFlag = 0;
+        client.println("ok");
+      }
+      else
+      {
+        client.println("error Illegal session argument.");
+      }
+    }   
     else if(message.checkString("slit"))
     {
       if(message.checkString("in"))
@@ -804,10 +846,17 @@ void messageReady()
       client.println(string);
     }
   }
-  // close connection to client
-  client.stop();
-  connectFlag = 0;
-  client = 0;
+  // close connection to client, unless the client is in session mode
+  if(sessionFlag)
+  {
+    sessionLastCommandTime = millis();
+  }
+  else
+  {
+    client.stop();
+    connectFlag = 0;
+    client = 0;
+  }
 }
 
 // Try and turn the arclamp on.
@@ -19,9 +19,11 @@
 #include <errno.h>
 #include <stdarg.h>
 #include <stdio.h>
+#include <stdlib.h>
 #include <string.h>
 #include <time.h>
 #include <unistd.h>
+#include <arpa/inet.h>
 
 #include "log_udp.h"
 
@@ -55,8 +57,10 @@ static char rcsid[] = "$Id$";
 static char Command_Error_String[COMMAND_ERROR_STRING_LENGTH];
 static int Command_Status_Exposure(char *request_string,char **reply_string);
 static int Command_Status_Multrun(char *request_string,char **reply_string);
+static int Command_Status_All(char **reply_string);
 static int Command_Parse_Date(char *time_string,int *time_secs);
 static int Command_Exposure_Type_Parse(char *exposure_type_string,enum CCD_FITS_FILENAME_EXPOSURE_TYPE *exposure_type);
+static int Command_Fits_Header_Add_Batch(char *batch_string,struct Fits_Header_Struct *fits_header);
 
 /* ----------------------------------------------------------------------------
 ** 		external functions 
@@ -406,7 +410,8 @@ int Sprat_Command_Expose(char *command_string,char **reply_string)
 		return TRUE;
 	}
 	/* do exposure */
-	retval = Sprat_Multrun_Multrun(exposure_length,1,exposure_type,&multrun_number,&filename_list,&filename_count);
+	retval = Sprat_Multrun_Multrun(exposure_length,1,exposure_type,&multrun_number,&filename_list,&filename_count,
+				       NULL,NULL);
 	if(retval == FALSE)
 	{
 		Sprat_Global_Error_And_String("command","sprat_command.c","Sprat_Command_Expose",
@@ -438,7 +443,108 @@ int Sprat_Command_Expose(char *command_string,char **reply_string)
 }
 
 /**
- * Implementation of FITS Header commands.
+ * Handle a command of the form: fetch last frame [&lt;bin&gt;], which retrieves the most recently saved image
+ * (binned down by &lt;bin&gt;, if specified) for quick-look. On success, the reply string is of the form:
+ * "0 &lt;ncols&gt; &lt;nrows&gt; &lt;multrun number&gt; &lt;run number&gt; &lt;length&gt;", and buffer_ptr
+ * is set to &lt;length&gt; bytes of image data, to be sent after the reply string. The image data is
+ * a sequence of unsigned shorts in network (big endian) byte order, row by row. On failure, the reply string
+ * starts with "1", and buffer_ptr is left NULL.
+ * @param command_string The command. This is not changed during this routine.
+ * @param reply_string The address of a pointer to allocate and set the reply string.
+ * @param buffer_ptr The address of a pointer, set to a newly allocated buffer containing the image data on success.
+ *        The caller should free this buffer.
+ * @param buffer_length The address of a size_t, set to the length of the image data buffer in bytes, on success.
+ * @return The routine returns TRUE on success and FALSE on failure.
+ * @see #COMMAND_ERROR_STRING_LENGTH
+ * @see #Command_Error_String
+ * @see sprat_global.html#Sprat_Global_Add_String
+ * @see sprat_global.html#Sprat_Global_Error_And_String
+ * @see sprat_global.html#Sprat_Global_Error_Number
+ * @see sprat_global.html#Sprat_Global_Error_String
+ * @see sprat_global.html#Sprat_Global_Log
+ * @see ../ccd/cdocs/ccd_exposure.html#CCD_Exposure_Last_Frame_Get
+ */
+int Sprat_Command_Fetch(char *command_string,char **reply_string,void **buffer_ptr,size_t *buffer_length)
+{
+	unsigned short *frame_buffer = NULL;
+	char header_string[128];
+	size_t frame_buffer_length,i;
+	int retval,bin,ncols,nrows,multrun_number,run_number;
+
+#if SPRAT_DEBUG > 1
+	Sprat_Global_Log("command","sprat_command.c","Sprat_Command_Fetch",LOG_VERBOSITY_TERSE,"COMMAND","started.");
+#endif
+	if((buffer_ptr == NULL)||(buffer_length == NULL))
+	{
+		Sprat_Global_Error_Number = 670;
+		sprintf(Sprat_Global_Error_String,"Sprat_Command_Fetch:buffer_ptr or buffer_length was NULL.");
+		return FALSE;
+	}
+	(*buffer_ptr) = NULL;
+	(*buffer_length) = 0;
+	/* parse command */
+	bin = 1;
+	retval = 1;
+	if(strncmp(command_string,"fetch last frame",16) != 0)
+		retval = 0;
+	else if(strlen(command_string) > 16)
+		retval = sscanf(command_string+16,"%d",&bin);
+	if(retval != 1)
+	{
+		Sprat_Global_Error_Number = 671;
+		sprintf(Sprat_Global_Error_String,"Sprat_Command_Fetch:Failed to parse command %s (%d).",
+			command_string,retval);
+		Sprat_Global_Error_And_String("command","sprat_command.c","Sprat_Command_Fetch",LOG_VERBOSITY_TERSE,
+					      "COMMAND",Command_Error_String,COMMAND_ERROR_STRING_LENGTH);
+		if(!Sprat_Global_Add_String(reply_string,"1 Parsing fetch command failed:"))
+			return FALSE;
+		if(!Sprat_Global_Add_String(reply_string,Command_Error_String))
+			return FALSE;
+		return TRUE;
+	}
+#if SPRAT_DEBUG > 5
+	Sprat_Global_Log_Format("command","sprat_command.c","Sprat_Command_Fetch",LOG_VERBOSITY_VERBOSE,"COMMAND",
+				"Fetching last frame with bin %d.",bin);
+#endif
+	if(!CCD_Exposure_Last_Frame_Get(bin,&frame_buffer,&frame_buffer_length,&ncols,&nrows,&multrun_number,
+					&run_number))
+	{
+		Sprat_Global_Error_And_String("command","sprat_command.c","Sprat_Command_Fetch",LOG_VERBOSITY_TERSE,
+					      "COMMAND",Command_Error_String,COMMAND_ERROR_STRING_LENGTH);
+		if(!Sprat_Global_Add_String(reply_string,"1 Fetch last frame failed:"))
+			return FALSE;
+		if(!Sprat_Global_Add_String(reply_string,Command_Error_String))
+			return FALSE;
+		return TRUE;
+	}
+	/* convert to network byte order, so the client does not need to know the server's byte order */
+	for(i = 0; i < (frame_buffer_length/sizeof(unsigned short)); i++)
+		frame_buffer[i] = htons(frame_buffer[i]);
+	sprintf(header_string,"0 %d %d %d %d %lu",ncols,nrows,multrun_number,run_number,
+		(unsigned long)frame_buffer_length);
+	if(!Sprat_Global_Add_String(reply_string,header_string))
+	{
+		free(frame_buffer);
+		return FALSE;
+	}
+	(*buffer_ptr) = frame_buffer;
+	(*buffer_length) = frame_buffer_length;
+#if SPRAT_DEBUG > 1
+	Sprat_Global_Log_Format("command","sprat_command.c","Sprat_Command_Fetch",LOG_VERBOSITY_TERSE,"COMMAND",
+				"finished (%d x %d, %lu bytes).",ncols,nrows,(unsigned long)frame_buffer_length);
+#endif
+	return TRUE;
+}
+
+/**
+ * Implementation of FITS Header commands. The following commands are supported:
+ * <ul>
+ * <li>fitsheader add &lt;keyword&gt; &lt;boolean|float|integer|string|comment|units&gt; &lt;value&gt;
+ * <li>fitsheader add_batch &lt;keyword&gt; &lt;type&gt; &lt;length&gt; &lt;value&gt; [...]
+ *     (see Command_Fits_Header_Add_Batch)
+ * <li>fitsheader delete &lt;keyword&gt;
+ * <li>fitsheader clear
+ * </ul>
  * @param command_string The command. This is not changed during this routine.
  * @param reply_string The address of a pointer to allocate and set the reply string.
  * @return The routine returns TRUE on success and FALSE on failure.
@@ -458,11 +564,12 @@ int Sprat_Command_Expose(char *command_string,char **reply_string)
  * @see ../ccd/cdocs/ccd_fits_header.html#CCD_Fits_Header_Add_Units
  * @see ../ccd/cdocs/ccd_fits_header.html#CCD_Fits_Header_Clear
  * @see ../ccd/cdocs/ccd_fits_header.html#CCD_Fits_Header_Delete
+ * @see #Command_Fits_Header_Add_Batch
  */
 int Sprat_Command_Fits_Header(char *command_string,char **reply_string)
 {
 	struct Fits_Header_Struct *fits_header = NULL;
-	char operation_string[8];
+	char operation_string[16];
 	char keyword_string[13];
 	char type_string[8];
 	char value_string[80];
@@ -470,7 +577,7 @@ int Sprat_Command_Fits_Header(char *command_string,char **reply_string)
 	double dvalue;
 
 	/* parse command to retrieve operation*/
-	retval = sscanf(command_string,"fitsheader %6s %n",operation_string,&command_string_index);
+	retval = sscanf(command_string,"fitsheader %15s %n",operation_string,&command_string_index);
 	if((retval != 1)&&(retval != 2)) /* sscanf ism't sure whether %n increments returned value! */
 	{
 #if SPRAT_DEBUG > 1
@@ -502,7 +609,21 @@ int Sprat_Command_Fits_Header(char *command_string,char **reply_string)
 		return TRUE;
 	}
 	/* do operation */
-	if(strncmp(operation_string,"add",3) == 0)
+	if(strcmp(operation_string,"add_batch") == 0)
+	{
+		if(!Command_Fits_Header_Add_Batch(command_string+command_string_index,fits_header))
+		{
+			Sprat_Global_Error_And_String("command","sprat_command.c","Sprat_Command_Fits_Header",
+						      LOG_VERBOSITY_TERSE,"COMMAND",Command_Error_String,
+						      COMMAND_ERROR_STRING_LENGTH);
+			if(!Sprat_Global_Add_String(reply_string,"1 Failed to add batch of fits headers:"))
+				return FALSE;
+			if(!Sprat_Global_Add_String(reply_string,Command_Error_String))
+				return FALSE;
+			return TRUE;
+		}
+	}
+	else if(strncmp(operation_string,"add",3) == 0)
 	{
 		retval = sscanf(command_string+command_string_index,"%12s %7s %n",keyword_string,type_string,
 				&value_index);
@@ -1014,8 +1135,13 @@ int Sprat_Command_MultDark(char *command_string,char **reply_string)
 }
 
 /**
- * Handle a CCD exposure command of the form: multrun &lt;length ms&gt; &lt;count&gt; &lt;exposure type&gt;.
+ * Handle a CCD exposure command of the form: multrun &lt;length ms&gt; &lt;count&gt; &lt;exposure type&gt; [stream].
+ * If the optional "stream" parameter is present, frame_callback is called as each frame is saved, which
+ * allows the caller to send a "frame &lt;index&gt; &lt;filename&gt;" line back to the client for each frame,
+ * before the final reply.
  * @param command_string The command. This is not changed during this routine.
+ * @param frame_callback A function to call as each frame is saved, if the command is a streaming multrun.
+ * @param frame_callback_data A pointer passed to the frame_callback function.
  * @param reply_string The address of a pointer to allocate and set the reply string.
  * @return The routine returns TRUE on success and FALSE on failure.
  * @see #COMMAND_ERROR_STRING_LENGTH
@@ -1029,11 +1155,13 @@ int Sprat_Command_MultDark(char *command_string,char **reply_string)
  * @see sprat_global.html#Sprat_Global_Log
  * @see sprat_global.html#Sprat_Global_String_List_Free
  */
-int Sprat_Command_Multrun(char *command_string,char **reply_string)
+int Sprat_Command_Multrun(char *command_string,Sprat_Multrun_Frame_Callback_T frame_callback,
+			  void *frame_callback_data,char **reply_string)
 {
 	enum CCD_FITS_FILENAME_EXPOSURE_TYPE exposure_type;
 	char **filename_list = NULL;
 	char exposure_type_string[16];
+	char stream_string[16];
 	char multrun_number_string[16];
 	int retval,exposure_length,exposure_count,multrun_number,filename_count=0,i;
 
@@ -1041,8 +1169,9 @@ int Sprat_Command_Multrun(char *command_string,char **reply_string)
 	Sprat_Global_Log("command","sprat_command.c","Sprat_Command_Multrun",LOG_VERBOSITY_TERSE,"COMMAND","started.");
 #endif
 	/* parse command */
-	retval = sscanf(command_string,"multrun %d %d %16s",&exposure_length,&exposure_count,exposure_type_string);
-	if(retval != 3)
+	retval = sscanf(command_string,"multrun %d %d %15s %15s",&exposure_length,&exposure_count,
+			exposure_type_string,stream_string);
+	if((retval != 3)&&((retval != 4)||(strcmp(stream_string,"stream") != 0)))
 	{
 #if SPRAT_DEBUG > 1
 		Sprat_Global_Log("command","sprat_command.c","Sprat_Command_Multrun",
@@ -1075,8 +1204,14 @@ int Sprat_Command_Multrun(char *command_string,char **reply_string)
 		return TRUE;
 	}
 	/* do exposure */
+	/* only stream frames back to the client if requested */
+	if(retval != 4)
+	{
+		frame_callback = NULL;
+		frame_callback_data = NULL;
+	}
 	retval = Sprat_Multrun_Multrun(exposure_length,exposure_count,exposure_type,&multrun_number,
-				       &filename_list,&filename_count);
+				       &filename_list,&filename_count,frame_callback,frame_callback_data);
 	if(retval == FALSE)
 	{
 		Sprat_Global_Error_And_String("command","sprat_command.c","Sprat_Command_Multrun",
@@ -1114,8 +1249,9 @@ int Sprat_Command_Multrun(char *command_string,char **reply_string)
  * Handle a command of the forms: 
  * <ul>
  * <li>status &lt;exposure&gt [status]
- * <li>status &lt;multrun&gt [index|count]
+ * <li>status &lt;multrun&gt [index|count|binx|biny|filename &lt;index&gt;]
  * <li>status &lt;temperature&gt [get|status]
+ * <li>status all
  * </ul>
  * <ul>
  * <li>The status command is parsed to retrieve the subsystem (1st parameter).
@@ -1127,6 +1263,7 @@ int Sprat_Command_Multrun(char *command_string,char **reply_string)
  * @return The routine returns TRUE on success and FALSE on failure.
  * @see #Command_Status_Exposure
  * @see #Command_Status_Multrun
+ * @see #Command_Status_All
  * @see #COMMAND_ERROR_STRING_LENGTH
  * @see #Command_Error_String
  * @see sprat_global.html#SPRAT_GLOBAL_ONE_MICROSECOND_NS
@@ -1226,6 +1363,11 @@ int Sprat_Command_Status(char *command_string,char **reply_string)
 			return TRUE;
 		}
 	}
+	else if(strcmp(subsystem_string,"all") == 0)
+	{
+		if(!Command_Status_All(reply_string))
+			return FALSE;
+	}
 	else if(strcmp(subsystem_string,"temperature") == 0)
 	{
 		/* get exposure status */
@@ -1639,10 +1781,12 @@ static int Command_Status_Exposure(char *request_string,char **reply_string)
  * @see sprat_multrun.html#Sprat_Multrun_Exposure_Count_Get
  * @see sprat_multrun.html#Sprat_Multrun_Bin_X_Get
  * @see sprat_multrun.html#Sprat_Multrun_Bin_Y_Get
+ * @see sprat_multrun.html#Sprat_Multrun_Filename_Get
  */
 static int Command_Status_Multrun(char *request_string,char **reply_string)
 {
 	char value_string[32];
+	char filename[256];
 	int ivalue,retval;
 
 	if(strncmp(request_string,"binx",4)==0)
@@ -1681,6 +1825,38 @@ static int Command_Status_Multrun(char *request_string,char **reply_string)
 		if(!Sprat_Global_Add_String(reply_string,value_string))
 			return FALSE;
 	}
+	else if(strncmp(request_string,"filename",8)==0)
+	{
+		retval = sscanf(request_string,"filename %d",&ivalue);
+		if(retval != 1)
+		{
+			Sprat_Global_Error_Number = 669;
+			sprintf(Sprat_Global_Error_String,"Command_Status_Multrun:"
+				"Failed to parse multrun filename index %s.",request_string);
+			Sprat_Global_Error("command","sprat_command.c","Command_Status_Multrun",
+					   LOG_VERBOSITY_TERSE,"COMMAND");
+			sprintf(value_string,"%d ",Sprat_Global_Error_Number);
+			if(!Sprat_Global_Add_String(reply_string,value_string))
+				return FALSE;
+			if(!Sprat_Global_Add_String(reply_string,Sprat_Global_Error_String))
+				return FALSE;
+			return TRUE;
+		}
+		if(!Sprat_Multrun_Filename_Get(ivalue,filename,256))
+		{
+			/* not an error as such, the image has probably not been saved yet */
+			sprintf(value_string,"%d ",Sprat_Global_Error_Number);
+			if(!Sprat_Global_Add_String(reply_string,value_string))
+				return FALSE;
+			if(!Sprat_Global_Add_String(reply_string,Sprat_Global_Error_String))
+				return FALSE;
+			return TRUE;
+		}
+		if(!Sprat_Global_Add_String(reply_string,"0 "))
+			return FALSE;
+		if(!Sprat_Global_Add_String(reply_string,filename))
+			return FALSE;
+	}
 	else
 	{
 #if SPRAT_DEBUG > 1
@@ -1703,6 +1879,96 @@ static int Command_Status_Multrun(char *request_string,char **reply_string)
 	return TRUE;
 }
 
+/**
+ * Internal function dealing with the "status all" command. This returns all the exposure, multrun and
+ * temperature status in one reply, of the form:
+ * "0 exposure.status=&lt;status&gt; exposure.length=&lt;ms&gt; exposure.start_time=&lt;time&gt; 
+ * exposure.multrun=&lt;n&gt; exposure.run=&lt;n&gt; multrun.index=&lt;n&gt; multrun.count=&lt;n&gt; 
+ * multrun.binx=&lt;n&gt; multrun.biny=&lt;n&gt; temperature.time=&lt;time&gt; temperature=&lt;C&gt; 
+ * temperature.status=&lt;status&gt;". Times are of the form %Y-%m-%dT%H:%M:%S.sss, so no value contains a space.
+ * As in the "status temperature" command, if an exposure is ongoing the cached temperature is returned.
+ * If the temperature cannot be retrieved, the error is logged, and the temperature.time and temperature fields
+ * are left out of the reply (with temperature.status=UNKNOWN), so the rest of the status is still returned.
+ * @param reply_string The address of a reallocatable string to store the reply.
+ * @return The routine returns TRUE on success, and FALSE on failure (to allocate the reply).
+ * @see sprat_global.html#SPRAT_GLOBAL_ONE_MICROSECOND_NS
+ * @see sprat_global.html#Sprat_Global_Get_Time_String
+ * @see sprat_global.html#Sprat_Global_Add_String
+ * @see sprat_global.html#Sprat_Global_Error
+ * @see sprat_multrun.html#Sprat_Multrun_Exposure_Index_Get
+ * @see sprat_multrun.html#Sprat_Multrun_Exposure_Count_Get
+ * @see sprat_multrun.html#Sprat_Multrun_Bin_X_Get
+ * @see sprat_multrun.html#Sprat_Multrun_Bin_Y_Get
+ * @see ../ccd/cdocs/ccd_exposure.html#CCD_Exposure_Status_Get
+ * @see ../ccd/cdocs/ccd_exposure.html#CCD_Exposure_Status_To_String
+ * @see ../ccd/cdocs/ccd_exposure.html#CCD_Exposure_Length_Get
+ * @see ../ccd/cdocs/ccd_exposure.html#CCD_Exposure_Start_Time_Get
+ * @see ../ccd/cdocs/ccd_fits_filename.html#CCD_Fits_Filename_Multrun_Get
+ * @see ../ccd/cdocs/ccd_fits_filename.html#CCD_Fits_Filename_Run_Get
+ * @see ../ccd/cdocs/ccd_temperature.html#CCD_Temperature_Get
+ * @see ../ccd/cdocs/ccd_temperature.html#CCD_Temperature_Get_Cached_Temperature
+ * @see ../ccd/cdocs/ccd_temperature.html#CCD_Temperature_Status_To_String
+ */
+static int Command_Status_All(char **reply_string)
+{
+	struct timespec status_time;
+#ifndef _POSIX_TIMERS
+	struct timeval gtod_status_time;
+#endif
+	enum CCD_EXPOSURE_STATUS exposure_status;
+	enum CCD_TEMPERATURE_STATUS temperature_status;
+	char time_string[32];
+	char buff[256];
+	double temperature;
+	int retval;
+
+	/* exposure status */
+	exposure_status = CCD_Exposure_Status_Get();
+	Sprat_Global_Get_Time_String(CCD_Exposure_Start_Time_Get(),time_string,31);
+	sprintf(buff,"0 exposure.status=%s exposure.length=%d exposure.start_time=%s exposure.multrun=%d "
+		"exposure.run=%d",CCD_Exposure_Status_To_String(exposure_status),CCD_Exposure_Length_Get(),
+		time_string,CCD_Fits_Filename_Multrun_Get(),CCD_Fits_Filename_Run_Get());
+	if(!Sprat_Global_Add_String(reply_string,buff))
+		return FALSE;
+	/* multrun status */
+	sprintf(buff," multrun.index=%d multrun.count=%d multrun.binx=%d multrun.biny=%d",
+		Sprat_Multrun_Exposure_Index_Get(),Sprat_Multrun_Exposure_Count_Get(),Sprat_Multrun_Bin_X_Get(),
+		Sprat_Multrun_Bin_Y_Get());
+	if(!Sprat_Global_Add_String(reply_string,buff))
+		return FALSE;
+	/* temperature status. If no exposure is ongoing, get actual status, otherwise get cached status */
+	if(exposure_status == CCD_EXPOSURE_STATUS_NONE)
+	{
+		retval = CCD_Temperature_Get(&temperature,&temperature_status);
+		/* set status_time to now */
+#ifdef _POSIX_TIMERS
+		clock_gettime(CLOCK_REALTIME,&status_time);
+#else
+		gettimeofday(&gtod_status_time,NULL);
+		status_time.tv_sec = gtod_status_time.tv_sec;
+		status_time.tv_nsec = gtod_status_time.tv_usec*SPRAT_GLOBAL_ONE_MICROSECOND_NS;
+#endif
+	}
+	else
+		retval = CCD_Temperature_Get_Cached_Temperature(&temperature,&temperature_status,&status_time);
+	if(retval == FALSE)
+	{
+		/* log the error, but still return the rest of the status */
+		Sprat_Global_Error_Number = 672;
+		sprintf(Sprat_Global_Error_String,"Command_Status_All:Failed to get temperature.");
+		Sprat_Global_Error("command","sprat_command.c","Command_Status_All",LOG_VERBOSITY_TERSE,"COMMAND");
+		if(!Sprat_Global_Add_String(reply_string," temperature.status=UNKNOWN"))
+			return FALSE;
+		return TRUE;
+	}
+	Sprat_Global_Get_Time_String(status_time,time_string,31);
+	sprintf(buff," temperature.time=%s temperature=%.2f temperature.status=%s",time_string,temperature,
+		CCD_Temperature_Status_To_String(temperature_status));
+	if(!Sprat_Global_Add_String(reply_string,buff))
+		return FALSE;
+	return TRUE;
+}
+
 /**
  * Parse a date of the form "2007-05-03T07:38:48.099 UTC" into number of seconds since 1970 (unix time).
  * @param time_string The string.
@@ -1847,3 +2113,170 @@ static int Command_Exposure_Type_Parse(char *exposure_type_string,enum CCD_FITS_
 	}
 	return TRUE;
 }
+
+/**
+ * Parse and apply a batch of FITS header cards, sent as part of a 
+ * "fitsheader add_batch &lt;keyword&gt; &lt;type&gt; &lt;length&gt; &lt;value&gt; [...]" command.
+ * Each card is specified by a keyword, a type (one of boolean|float|integer|string|comment|units), the length
+ * of the value string in characters, a single space, and then exactly length characters of value. Length prefixing
+ * the values allows string/comment values to contain spaces. Comment and units cards must follow the 
+ * keyword/value card they apply to in the batch.
+ * The cards are first added to a temporary FITS header list, and only if all the cards are parsed and 
+ * added successfully are they merged into fits_header, so the batch is applied atomically.
+ * @param batch_string The part of the command string after "fitsheader add_batch ".
+ * @param fits_header The address of the FITS header structure to add the cards to.
+ * @return The routine returns TRUE on success and FALSE on failure. On failure Sprat_Global_Error_Number and 
+ *         Sprat_Global_Error_String are set, and fits_header is unchanged.
+ * @see sprat_global.html#Sprat_Global_Error_Number
+ * @see sprat_global.html#Sprat_Global_Error_String
+ * @see ../ccd/cdocs/ccd_fits_header.html#Fits_Header_Struct
+ * @see ../ccd/cdocs/ccd_fits_header.html#CCD_Fits_Header_Initialise
+ * @see ../ccd/cdocs/ccd_fits_header.html#CCD_Fits_Header_Add_Logical
+ * @see ../ccd/cdocs/ccd_fits_header.html#CCD_Fits_Header_Add_Float
+ * @see ../ccd/cdocs/ccd_fits_header.html#CCD_Fits_Header_Add_Int
+ * @see ../ccd/cdocs/ccd_fits_header.html#CCD_Fits_Header_Add_String
+ * @see ../ccd/cdocs/ccd_fits_header.html#CCD_Fits_Header_Add_Comment
+ * @see ../ccd/cdocs/ccd_fits_header.html#CCD_Fits_Header_Add_Units
+ * @see ../ccd/cdocs/ccd_fits_header.html#CCD_Fits_Header_Merge
+ * @see ../ccd/cdocs/ccd_fits_header.html#CCD_Fits_Header_Free
+ */
+static int Command_Fits_Header_Add_Batch(char *batch_string,struct Fits_Header_Struct *fits_header)
+{
+	struct Fits_Header_Struct batch_header;
+	char keyword_string[13];
+	char type_string[8];
+	char value_string[80];
+	char *current_ptr = NULL;
+	int retval,value_index,value_length,ivalue,card_count,card_ok;
+	double dvalue;
+
+	if(!CCD_Fits_Header_Initialise(&batch_header))
+	{
+		Sprat_Global_Error_Number = 660;
+		sprintf(Sprat_Global_Error_String,"Command_Fits_Header_Add_Batch:Failed to initialise batch header.");
+		return FALSE;
+	}
+	card_count = 0;
+	current_ptr = batch_string;
+	/* skip leading whitespace, and stop when we reach the end of the string */
+	while((*current_ptr) == ' ')
+		current_ptr++;
+	while((*current_ptr) != '\0')
+	{
+		retval = sscanf(current_ptr,"%12s %7s %d%n",keyword_string,type_string,&value_length,&value_index);
+		if((retval != 3)&&(retval != 4)) /* %n may or may not increment retval */
+		{
+			CCD_Fits_Header_Free(&batch_header);
+			Sprat_Global_Error_Number = 661;
+			sprintf(Sprat_Global_Error_String,"Command_Fits_Header_Add_Batch:"
+				"Failed to parse card %d at '%.40s' (%d).",card_count,current_ptr,retval);
+			return FALSE;
+		}
+		/* skip the single space separating the length from the value */
+		current_ptr += value_index;
+		if((*current_ptr) == ' ')
+			current_ptr++;
+		if((value_length < 0)||(value_length > 79)||(strlen(current_ptr) < value_length))
+		{
+			CCD_Fits_Header_Free(&batch_header);
+			Sprat_Global_Error_Number = 662;
+			sprintf(Sprat_Global_Error_String,"Command_Fits_Header_Add_Batch:"
+				"Card %d (%s) has illegal value length %d.",card_count,keyword_string,value_length);
+			return FALSE;
+		}
+		strncpy(value_string,current_ptr,value_length);
+		value_string[value_length] = '\0';
+		current_ptr += value_length;
+#if SPRAT_DEBUG > 9
+		Sprat_Global_Log_Format("command","sprat_command.c","Command_Fits_Header_Add_Batch",
+					LOG_VERBOSITY_VERY_VERBOSE,"COMMAND","Card %d: keyword %s type %s value '%s'.",
+					card_count,keyword_string,type_string,value_string);
+#endif
+		if(strcmp(type_string,"boolean") == 0)
+		{
+			if(strcmp(value_string,"true") == 0)
+				ivalue = TRUE;
+			else if(strcmp(value_string,"false") == 0)
+				ivalue = FALSE;
+			else
+			{
+				CCD_Fits_Header_Free(&batch_header);
+				Sprat_Global_Error_Number = 663;
+				sprintf(Sprat_Global_Error_String,"Command_Fits_Header_Add_Batch:"
+					"Card %s had unknown boolean value %s.",keyword_string,value_string);
+				return FALSE;
+			}
+			card_ok = CCD_Fits_Header_Add_Logical(&batch_header,keyword_string,ivalue,NULL);
+		}
+		else if(strcmp(type_string,"comment") == 0)
+		{
+			card_ok = CCD_Fits_Header_Add_Comment(&batch_header,keyword_string,value_string);
+		}
+		else if(strcmp(type_string,"float") == 0)
+		{
+			if(sscanf(value_string,"%lf",&dvalue) != 1)
+			{
+				CCD_Fits_Header_Free(&batch_header);
+				Sprat_Global_Error_Number = 664;
+				sprintf(Sprat_Global_Error_String,"Command_Fits_Header_Add_Batch:"
+					"Card %s had unknown float value %s.",keyword_string,value_string);
+				return FALSE;
+			}
+			card_ok = CCD_Fits_Header_Add_Float(&batch_header,keyword_string,dvalue,NULL);
+		}
+		else if(strcmp(type_string,"integer") == 0)
+		{
+			if(sscanf(value_string,"%d",&ivalue) != 1)
+			{
+				CCD_Fits_Header_Free(&batch_header);
+				Sprat_Global_Error_Number = 665;
+				sprintf(Sprat_Global_Error_String,"Command_Fits_Header_Add_Batch:"
+					"Card %s had unknown integer value %s.",keyword_string,value_string);
+				return FALSE;
+			}
+			card_ok = CCD_Fits_Header_Add_Int(&batch_header,keyword_string,ivalue,NULL);
+		}
+		else if(strcmp(type_string,"string") == 0)
+		{
+			card_ok = CCD_Fits_Header_Add_String(&batch_header,keyword_string,value_string,NULL);
+		}
+		else if(strcmp(type_string,"units") == 0)
+		{
+			card_ok = CCD_Fits_Header_Add_Units(&batch_header,keyword_string,value_string);
+		}
+		else
+		{
+			CCD_Fits_Header_Free(&batch_header);
+			Sprat_Global_Error_Number = 666;
+			sprintf(Sprat_Global_Error_String,"Command_Fits_Header_Add_Batch:"
+				"Card %s had unknown type %s.",keyword_string,type_string);
+			return FALSE;
+		}
+		if(card_ok == FALSE)
+		{
+			CCD_Fits_Header_Free(&batch_header);
+			Sprat_Global_Error_Number = 667;
+			sprintf(Sprat_Global_Error_String,"Command_Fits_Header_Add_Batch:"
+				"Failed to add %s card %s to batch header.",type_string,keyword_string);
+			return FALSE;
+		}
+		card_count++;
+		while((*current_ptr) == ' ')
+			current_ptr++;
+	}
+	/* all cards parsed successfully, merge them into the real FITS header list */
+	if(!CCD_Fits_Header_Merge(fits_header,&batch_header))
+	{
+		CCD_Fits_Header_Free(&batch_header);
+		Sprat_Global_Error_Number = 668;
+		sprintf(Sprat_Global_Error_String,"Command_Fits_Header_Add_Batch:"
+			"Failed to merge %d cards into the FITS header.",card_count);
+		return FALSE;
+	}
+	CCD_Fits_Header_Free(&batch_header);
+#if SPRAT_DEBUG > 1
+	Sprat_Global_Log_Format("command","sprat_command.c","Command_Fits_Header_Add_Batch",
+				LOG_VERBOSITY_TERSE,"COMMAND","Added %d cards.",card_count);
+#endif
+	return TRUE;
+}
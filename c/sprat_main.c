@@ -309,6 +309,9 @@ static int Sprat_Initialise_Logging(void)
  * <li>We call CCD_Setup_Get_Camera_Identification to retrieve Model and Serial number data to log.
  * <li>We retrieve the shutter output configuration from the "ccd.andor.exposure.shutter.output" config property.
  * <li>We call CCD_Exposure_Set_Shutter_Type to configure the shutter output to TTL low or TTL high.
+ * <li>We retrieve whether to save images in a writer thread, whilst the next exposure is taken, from the
+ *     "ccd.exposure.background_save" config property.
+ * <li>We call CCD_Exposure_Background_Save_Set to configure background saving.
  * <li>We retrieve the target temperature from the "ccd.temperature.target" config property.
  * <li>We call CCD_Temperature_Set to set the CCD temperature.
  * <li>We retrieve whether to turn the cooler on from the "ccd.temperature.cooler.on" config property.
@@ -323,6 +326,7 @@ static int Sprat_Initialise_Logging(void)
  * @see sprat_config.html#Sprat_Config_Get_String
  * @see sprat_config.html#Sprat_Config_Get_Character
  * @see ../ccd/cdocs/ccd_exposure.html#CCD_Exposure_Set_Shutter_Type
+ * @see ../ccd/cdocs/ccd_exposure.html#CCD_Exposure_Background_Save_Set
  * @see ../ccd/cdocs/ccd_setup.html#CCD_Setup_Startup
  * @see ../ccd/cdocs/ccd_setup.html#CCD_Setup_Config_Directory_Set
  * @see ../ccd/cdocs/ccd_setup.html#CCD_Setup_Get_Camera_Identification
@@ -340,7 +344,7 @@ static int Sprat_Startup_CCD(void)
 	char head_model_name[256];
 	char instrument_code;
 	double target_temperature;
-	int index,done,serial_number,cooler_on,hs_speed_index,baseline_clamp,preamp_gain_index;
+	int index,done,serial_number,cooler_on,hs_speed_index,baseline_clamp,preamp_gain_index,background_save;
 
 	/* get config */
 	if(!Sprat_Config_Get_String("ccd.andor.setup.config_directory",&andor_dir))
@@ -434,6 +438,20 @@ static int Sprat_Startup_CCD(void)
 			"Sprat_Startup_CCD:Failed to set exposure shutter output type to '%d'.",set_shutter_type);
 		return FALSE;
 	}
+	/* save images in a writer thread, whilst the next exposure is taken */
+	if(!Sprat_Config_Get_Boolean("ccd.exposure.background_save",&background_save))
+	{
+		Sprat_Global_Error_Number = 27;
+		sprintf(Sprat_Global_Error_String,"Sprat_Startup_CCD:Failed to get exposure background save.");
+		return FALSE;
+	}
+	if(!CCD_Exposure_Background_Save_Set(background_save))
+	{
+		Sprat_Global_Error_Number = 28;
+		sprintf(Sprat_Global_Error_String,
+			"Sprat_Startup_CCD:Failed to set exposure background save to '%d'.",background_save);
+		return FALSE;
+	}
 	/* set CCD target temperature */
 	if(!Sprat_Config_Get_Double("ccd.temperature.target",&target_temperature))
 	{
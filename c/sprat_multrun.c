@@ -17,6 +17,7 @@
 #define _POSIX_C_SOURCE 199309L
 
 #include <errno.h>
+#include <pthread.h>
 #include <stdarg.h>
 #include <stdio.h>
 #include <string.h>
@@ -25,6 +26,7 @@
 
 #include "log_udp.h"
 
+#include "ccd_exposure.h"
 #include "ccd_fits_filename.h"
 #include "ccd_fits_header.h"
 
@@ -65,6 +67,12 @@ enum MULTRUN_OBSTYPE
  * <dt>Exposure_Count</dt> <dd>The number of images to do in the current Multrun.</dd>
  * <dt>Is_Active</dt> <dd>Boolean determining whether a multrun is ongoing is running.</dd>
  * <dt>Fits_Header</dt> <dd>Fits_Header_Struct structure containing FITS header data to write into FITS images.</dd>
+ * <dt>Filename_List</dt> <dd>A copy of the list of FITS images saved so far by the current (or last) multrun.
+ *     Protected by Multrun_Filename_Mutex, as it is read by the status command thread.</dd>
+ * <dt>Filename_Count</dt> <dd>The number of filenames in Filename_List.</dd>
+ * <dt>Pending_Frame_Index</dt> <dd>The index in the multrun of a frame that has been exposed, but may still be
+ *     being saved by the CCD library's writer thread, or -1 if there is no such frame.</dd>
+ * <dt>Pending_Frame_Filename</dt> <dd>The FITS filename of the pending frame.</dd>
  * </dl>
  * @see ../ccd/cdocs/ccd_fits_header.html#Fits_Header_Struct
  */
@@ -81,6 +89,10 @@ struct Multrun_Struct
 	int Exposure_Count;
 	int Is_Active;
 	struct Fits_Header_Struct Fits_Header;
+	char **Filename_List;
+	int Filename_Count;
+	int Pending_Frame_Index;
+	char Pending_Frame_Filename[256];
 };
 
 /* internal data */
@@ -98,11 +110,28 @@ static struct Multrun_Struct Multrun_Data =
 	0,0,1,1,0,0,
 	-1,-1,-1,
 	FALSE,
-	{NULL,0,0}
+	{NULL,0,0},
+	NULL,0,
+	-1,""
 };
+/**
+ * Mutex protecting Multrun_Data.Filename_List and Multrun_Data.Filename_Count, which are updated by the
+ * thread doing the multrun and read by threads handling "status multrun filename" commands.
+ * @see #Multrun_Data
+ */
+static pthread_mutex_t Multrun_Filename_Mutex = PTHREAD_MUTEX_INITIALIZER;
 
 /* internal functions */
 static void Multrun_Fits_Headers_Set(enum MULTRUN_OBSTYPE exp_type);
+static void Multrun_Filename_List_Clear(void);
+static int Multrun_Filename_List_Add(char *filename);
+static int Multrun_Frame_Exposed(int index,char *filename,char **filename_list[],int *filename_count,
+				 Sprat_Multrun_Frame_Callback_T frame_callback,void *frame_callback_data);
+static int Multrun_Frame_Flush(char **filename_list[],int *filename_count,
+			       Sprat_Multrun_Frame_Callback_T frame_callback,void *frame_callback_data);
+static void Multrun_Frame_Discard(void);
+static int Multrun_Frame_Saved(int index,char *filename,char **filename_list[],int *filename_count,
+			       Sprat_Multrun_Frame_Callback_T frame_callback,void *frame_callback_data);
 
 /* ----------------------------------------------------------------------------
 ** 		external functions 
@@ -174,7 +203,9 @@ int Sprat_Multrun_Dimensions_Set(int ncols,int nrows,int xbin,int ybin,
  * @see sprat_global.html#Sprat_Global_Log_Format
  * @see sprat_global.html#Sprat_Global_Error_Number
  * @see sprat_global.html#Sprat_Global_Error_String
- * @see sprat_global.html#Sprat_Global_String_List_Add
+ * @see #Multrun_Frame_Exposed
+ * @see #Multrun_Frame_Flush
+ * @see #Multrun_Frame_Discard
  * @see sprat_config.html#Sprat_Config_Get_Integer
  * @see sprat_config.html#Sprat_Config_Get_Double
  * @see ../ccd/cdocs/ccd_setup.html#CCD_Setup_Dimensions
@@ -234,6 +265,7 @@ int Sprat_Multrun_Bias(int exposure_count,int *multrun_number,char **filename_li
 	Multrun_Data.Is_Active = TRUE;
 	Multrun_Data.Exposure_Index = 0;
 	Multrun_Data.Exposure_Count = exposure_count;
+	Multrun_Filename_List_Clear();
 	/* CCD is setup in CCD_Multrun_Dimensions_Set. */
 	/* exposure length */
 	Multrun_Data.Exposure_Length = 0;
@@ -253,6 +285,8 @@ int Sprat_Multrun_Bias(int exposure_count,int *multrun_number,char **filename_li
 	{
 		if(!CCD_Fits_Filename_Next_Run())
 		{
+			/* wait for any frame still being saved */
+			Multrun_Frame_Discard();
 			/* reset active flag */
 			Multrun_Data.Is_Active = FALSE;
 			Sprat_Global_Error_Number = 404;
@@ -264,6 +298,8 @@ int Sprat_Multrun_Bias(int exposure_count,int *multrun_number,char **filename_li
 						   CCD_FITS_FILENAME_PIPELINE_FLAG_UNREDUCED,
 						   filename,256))
 		{
+			/* wait for any frame still being saved */
+			Multrun_Frame_Discard();
 			/* reset active flag */
 			Multrun_Data.Is_Active = FALSE;
 			Sprat_Global_Error_Number = 405;
@@ -282,6 +318,8 @@ int Sprat_Multrun_Bias(int exposure_count,int *multrun_number,char **filename_li
 		retval = CCD_Exposure_Bias(Multrun_Data.Fits_Header,filename);
 		if(retval == FALSE)
 		{
+			/* wait for any frame still being saved */
+			Multrun_Frame_Discard();
 			/* reset active flag */
 			Multrun_Data.Is_Active = FALSE;
 			Sprat_Global_Error_Number = 406;
@@ -292,18 +330,24 @@ int Sprat_Multrun_Bias(int exposure_count,int *multrun_number,char **filename_li
 		Sprat_Global_Log("multrun","sprat_multrun.c","Sprat_Multrun_Bias",LOG_VERBOSITY_VERBOSE,"MULTRUN",
 				 "Exposure completed.");
 #endif
-		retval = Sprat_Global_String_List_Add(filename_list,filename_count,filename);
-		if(retval == FALSE)
+		/* with background saving, the previous frame has now been saved, but this one may still be being written */
+		if(!Multrun_Frame_Exposed(i,filename,filename_list,filename_count,NULL,NULL))
 		{
+			/* wait for any frame still being saved */
+			Multrun_Frame_Discard();
 			/* reset active flag */
 			Multrun_Data.Is_Active = FALSE;
-			Sprat_Global_Error_Number = 426;
-			sprintf(Sprat_Global_Error_String,"Sprat_Multrun_Bias:Failed to add filename to list(%d).",
-				(*filename_count));
 			return FALSE;
 		}
 		Multrun_Data.Exposure_Index++;
 	}/* end for on count */
+	/* wait for the last frame to be saved */
+	if(!Multrun_Frame_Flush(filename_list,filename_count,NULL,NULL))
+	{
+		/* reset active flag */
+		Multrun_Data.Is_Active = FALSE;
+		return FALSE;
+	}
 	/* reset active flag */
 	Multrun_Data.Is_Active = FALSE;
 #if SPRAT_DEBUG > 1
@@ -327,7 +371,9 @@ int Sprat_Multrun_Bias(int exposure_count,int *multrun_number,char **filename_li
  * @see sprat_global.html#Sprat_Global_Log_Format
  * @see sprat_global.html#Sprat_Global_Error_Number
  * @see sprat_global.html#Sprat_Global_Error_String
- * @see sprat_global.html#Sprat_Global_String_List_Add
+ * @see #Multrun_Frame_Exposed
+ * @see #Multrun_Frame_Flush
+ * @see #Multrun_Frame_Discard
  * @see sprat_config.html#Sprat_Config_Get_Integer
  * @see sprat_config.html#Sprat_Config_Get_Double
  * @see ../ccd/cdocs/ccd_exposure.html#CCD_Exposure_Expose
@@ -385,6 +431,7 @@ int Sprat_Multrun_Dark(int exposure_length,int exposure_count,int *multrun_numbe
 	Multrun_Data.Is_Active = TRUE;
 	Multrun_Data.Exposure_Count = exposure_count;
 	Multrun_Data.Exposure_Index = 0;
+	Multrun_Filename_List_Clear();
 	/* CCD is setup in Sprat_Multrun_Dimensions_Set. */
 	/* exposure length */
 	Multrun_Data.Exposure_Length = exposure_length;
@@ -416,6 +463,8 @@ int Sprat_Multrun_Dark(int exposure_length,int exposure_count,int *multrun_numbe
 	{
 		if(!CCD_Fits_Filename_Next_Run())
 		{
+			/* wait for any frame still being saved */
+			Multrun_Frame_Discard();
 			/* reset active flag */
 			Multrun_Data.Is_Active = FALSE;
 			return FALSE;
@@ -424,6 +473,8 @@ int Sprat_Multrun_Dark(int exposure_length,int exposure_count,int *multrun_numbe
 		if(!CCD_Fits_Filename_Get_Filename(CCD_FITS_FILENAME_EXPOSURE_TYPE_DARK,
 						   CCD_FITS_FILENAME_PIPELINE_FLAG_UNREDUCED,filename,256))
 		{
+			/* wait for any frame still being saved */
+			Multrun_Frame_Discard();
 			/* reset active flag */
 			Multrun_Data.Is_Active = FALSE;
 			return FALSE;
@@ -441,6 +492,8 @@ int Sprat_Multrun_Dark(int exposure_length,int exposure_count,int *multrun_numbe
 					     filename);
 		if(retval == FALSE)
 		{
+			/* wait for any frame still being saved */
+			Multrun_Frame_Discard();
 			/* reset active flag */
 			Multrun_Data.Is_Active = FALSE;
 			Sprat_Global_Error_Number = 409;
@@ -451,19 +504,25 @@ int Sprat_Multrun_Dark(int exposure_length,int exposure_count,int *multrun_numbe
 		Sprat_Global_Log("multrun","sprat_multrun.c","Sprat_Multrun_Dark",LOG_VERBOSITY_VERBOSE,"MULTRUN",
 				 "Exposure completed.");
 #endif
-		retval = Sprat_Global_String_List_Add(filename_list,filename_count,filename);
-		if(retval == FALSE)
+		/* with background saving, the previous frame has now been saved, but this one may still be being written */
+		if(!Multrun_Frame_Exposed(i,filename,filename_list,filename_count,NULL,NULL))
 		{
+			/* wait for any frame still being saved */
+			Multrun_Frame_Discard();
 			/* reset active flag */
 			Multrun_Data.Is_Active = FALSE;
-			Sprat_Global_Error_Number = 428;
-			sprintf(Sprat_Global_Error_String,"Sprat_Multrun_Dark:Failed to add filename to list(%d).",
-				(*filename_count));
 			return FALSE;
 		}
 		/* increment exposure index */
 		Multrun_Data.Exposure_Index++;
 	}/* exposure count */
+	/* wait for the last frame to be saved */
+	if(!Multrun_Frame_Flush(filename_list,filename_count,NULL,NULL))
+	{
+		/* reset active flag */
+		Multrun_Data.Is_Active = FALSE;
+		return FALSE;
+	}
 	/* reset active flag */
 	Multrun_Data.Is_Active = FALSE;
 #if SPRAT_DEBUG > 1
@@ -482,16 +541,23 @@ int Sprat_Multrun_Dark(int exposure_length,int exposure_count,int *multrun_numbe
  * @param filename_list The address of an array of strings to hold a created filenames. These are the FITS images
  *        created as part of this process.
  * @param filename_count The address of an integer to fill in with the number of filenames in the list.
+ * @param frame_callback A function to call each time a frame has been saved, or NULL. This allows a client
+ *        to be told about each frame as it is saved, rather than when the multrun has finished.
+ *        A failure returned by the callback is logged, but does not stop the multrun.
+ * @param frame_callback_data A pointer passed to the frame_callback function.
  * @return The routine returns TRUE on success, and FALSE on failure.
  * @see #Multrun_Data
  * @see #Multrun_Fits_Headers_Set
+ * @see #Sprat_Multrun_Frame_Callback_T
  * @see sprat_config.html#Sprat_Config_Get_Integer
  * @see sprat_config.html#Sprat_Config_Get_Double
  * @see sprat_global.html#Sprat_Global_Log
  * @see sprat_global.html#Sprat_Global_Log_Format
  * @see sprat_global.html#Sprat_Global_Error_Number
  * @see sprat_global.html#Sprat_Global_Error_String
- * @see sprat_global.html#Sprat_Global_String_List_Add
+ * @see #Multrun_Frame_Exposed
+ * @see #Multrun_Frame_Flush
+ * @see #Multrun_Frame_Discard
  * @see ../ccd/cdocs/ccd_fits_filename.html#CCD_FITS_FILENAME_EXPOSURE_TYPE
  * @see ../ccd/cdocs/ccd_fits_filename.html#CCD_Fits_Filename_Next_Multrun
  * @see ../ccd/cdocs/ccd_fits_filename.html#CCD_Fits_Filename_Next_Run
@@ -503,7 +569,8 @@ int Sprat_Multrun_Dark(int exposure_length,int exposure_count,int *multrun_numbe
  * @see ../ccd/cdocs/ccd_temperature.html#CCD_TEMPERATURE_STATUS
  */
 int Sprat_Multrun_Multrun(int exposure_length,int exposure_count,enum CCD_FITS_FILENAME_EXPOSURE_TYPE exposure_type,
-			  int *multrun_number,char **filename_list[],int *filename_count)
+			  int *multrun_number,char **filename_list[],int *filename_count,
+			  Sprat_Multrun_Frame_Callback_T frame_callback,void *frame_callback_data)
 {
 	struct CCD_Setup_Window_Struct window;
 	struct timespec start_time;
@@ -551,6 +618,7 @@ int Sprat_Multrun_Multrun(int exposure_length,int exposure_count,enum CCD_FITS_F
 	Multrun_Data.Is_Active = TRUE;
 	Multrun_Data.Exposure_Count = exposure_count;
 	Multrun_Data.Exposure_Index = 0;
+	Multrun_Filename_List_Clear();
 	(*filename_list) = NULL;
 	(*filename_count) = 0;
 	/* CCD is setup in Sprat_Multrun_Dimensions_Set. */
@@ -624,6 +692,8 @@ int Sprat_Multrun_Multrun(int exposure_length,int exposure_count,enum CCD_FITS_F
 #endif
 		if(!CCD_Fits_Filename_Next_Run())
 		{
+			/* wait for any frame still being saved */
+			Multrun_Frame_Discard();
 			/* reset active flag */
 			Multrun_Data.Is_Active = FALSE;
 			return FALSE;
@@ -632,6 +702,8 @@ int Sprat_Multrun_Multrun(int exposure_length,int exposure_count,enum CCD_FITS_F
 		if(!CCD_Fits_Filename_Get_Filename(exposure_type,CCD_FITS_FILENAME_PIPELINE_FLAG_UNREDUCED,
 						   filename,256))
 		{
+			/* wait for any frame still being saved */
+			Multrun_Frame_Discard();
 			/* reset active flag */
 			Multrun_Data.Is_Active = FALSE;
 			return FALSE;
@@ -650,20 +722,21 @@ int Sprat_Multrun_Multrun(int exposure_length,int exposure_count,enum CCD_FITS_F
 					     filename);
 		if(retval == FALSE)
 		{
+			/* wait for any frame still being saved */
+			Multrun_Frame_Discard();
 			/* reset active flag */
 			Multrun_Data.Is_Active = FALSE;
 			Sprat_Global_Error_Number = 414;
 			sprintf(Sprat_Global_Error_String,"Sprat_Multrun_Multrun:CCD_Exposure_Expose failed.");
 			return FALSE;
 		}
-		retval = Sprat_Global_String_List_Add(filename_list,filename_count,filename);
-		if(retval == FALSE)
+		/* with background saving, the previous frame has now been saved, but this one may still be being written */
+		if(!Multrun_Frame_Exposed(i,filename,filename_list,filename_count,frame_callback,frame_callback_data))
 		{
+			/* wait for any frame still being saved */
+			Multrun_Frame_Discard();
 			/* reset active flag */
 			Multrun_Data.Is_Active = FALSE;
-			Sprat_Global_Error_Number = 424;
-			sprintf(Sprat_Global_Error_String,"Sprat_Multrun_Multrun:Failed to add filename to list(%d).",
-				(*filename_count));
 			return FALSE;
 		}
 #if SPRAT_DEBUG > 7
@@ -672,6 +745,13 @@ int Sprat_Multrun_Multrun(int exposure_length,int exposure_count,enum CCD_FITS_F
 #endif
 		Multrun_Data.Exposure_Index++;
 	}/* end for on exposure count */
+	/* wait for the last frame to be saved */
+	if(!Multrun_Frame_Flush(filename_list,filename_count,frame_callback,frame_callback_data))
+	{
+		/* reset active flag */
+		Multrun_Data.Is_Active = FALSE;
+		return FALSE;
+	}
 	/* reset active flag */
 	Multrun_Data.Is_Active = FALSE;
 #if SPRAT_DEBUG > 1
@@ -738,6 +818,47 @@ int Sprat_Multrun_Exposure_Count_Get(void)
 	return Multrun_Data.Exposure_Count;
 }
 
+/**
+ * Retrieve the filename of a FITS image saved by the current (or last) multrun. This allows a client to
+ * start processing each image as soon as it has been saved, rather than waiting for the multrun to finish.
+ * @param index Which image in the multrun to retrieve the filename of, from 0 to the number of images saved
+ *        so far minus one (i.e. less than Sprat_Multrun_Exposure_Index_Get).
+ * @param filename A string to copy the filename into.
+ * @param filename_length The length of the filename string.
+ * @return The routine returns TRUE on success and FALSE on failure (i.e. the image has not been saved yet).
+ * @see #Multrun_Data
+ * @see #Multrun_Filename_Mutex
+ */
+int Sprat_Multrun_Filename_Get(int index,char *filename,int filename_length)
+{
+	if(filename == NULL)
+	{
+		Sprat_Global_Error_Number = 429;
+		sprintf(Sprat_Global_Error_String,"Sprat_Multrun_Filename_Get:filename was NULL.");
+		return FALSE;
+	}
+	pthread_mutex_lock(&Multrun_Filename_Mutex);
+	if((index < 0)||(index >= Multrun_Data.Filename_Count))
+	{
+		pthread_mutex_unlock(&Multrun_Filename_Mutex);
+		Sprat_Global_Error_Number = 430;
+		sprintf(Sprat_Global_Error_String,"Sprat_Multrun_Filename_Get:index %d out of range (0..%d).",
+			index,Multrun_Data.Filename_Count);
+		return FALSE;
+	}
+	if(strlen(Multrun_Data.Filename_List[index]) >= filename_length)
+	{
+		pthread_mutex_unlock(&Multrun_Filename_Mutex);
+		Sprat_Global_Error_Number = 431;
+		sprintf(Sprat_Global_Error_String,"Sprat_Multrun_Filename_Get:filename %d too long (%d vs %d).",
+			index,(int)strlen(Multrun_Data.Filename_List[index]),filename_length);
+		return FALSE;
+	}
+	strcpy(filename,Multrun_Data.Filename_List[index]);
+	pthread_mutex_unlock(&Multrun_Filename_Mutex);
+	return TRUE;
+}
+
 /* ----------------------------------------------------------------------------
 ** 		internal functions 
 ** ---------------------------------------------------------------------------- */
@@ -822,3 +943,159 @@ static void Multrun_Fits_Headers_Set(enum MULTRUN_OBSTYPE exp_type)
 	}
 }
 
+/**
+ * Free the copy of the filenames saved by the last multrun, before starting a new multrun.
+ * @see #Multrun_Data
+ * @see #Multrun_Filename_Mutex
+ * @see sprat_global.html#Sprat_Global_String_List_Free
+ */
+static void Multrun_Filename_List_Clear(void)
+{
+	pthread_mutex_lock(&Multrun_Filename_Mutex);
+	Sprat_Global_String_List_Free(&(Multrun_Data.Filename_List),&(Multrun_Data.Filename_Count));
+	pthread_mutex_unlock(&Multrun_Filename_Mutex);
+}
+
+/**
+ * Add a saved FITS image filename to the copy of the filenames saved by the current multrun.
+ * @param filename The filename to add.
+ * @return The routine returns TRUE on success and FALSE on failure.
+ * @see #Multrun_Data
+ * @see #Multrun_Filename_Mutex
+ * @see sprat_global.html#Sprat_Global_String_List_Add
+ */
+static int Multrun_Filename_List_Add(char *filename)
+{
+	int retval;
+
+	pthread_mutex_lock(&Multrun_Filename_Mutex);
+	retval = Sprat_Global_String_List_Add(&(Multrun_Data.Filename_List),&(Multrun_Data.Filename_Count),filename);
+	pthread_mutex_unlock(&Multrun_Filename_Mutex);
+	return retval;
+}
+
+/**
+ * Called after each frame in a multrun has been exposed and read out. If the CCD library saves frames in the
+ * background, the previous frame (if any) has now been saved (CCD_Exposure_Expose waits for it), but this frame may
+ * still be being saved. Frames that have been saved are passed to Multrun_Frame_Saved, a frame that is still being 
+ * saved is remembered in Multrun_Data, and passed to Multrun_Frame_Saved after the next exposure
+ * (or by Multrun_Frame_Flush).
+ * @param index The index of the frame in the multrun.
+ * @param filename The FITS filename of the frame.
+ * @param filename_list The address of the list of filenames to add saved frames to.
+ * @param filename_count The address of the number of filenames in the list.
+ * @param frame_callback A function to call for each saved frame, or NULL.
+ * @param frame_callback_data Data passed to frame_callback.
+ * @return The routine returns TRUE on success and FALSE on failure.
+ * @see #Multrun_Data
+ * @see #Multrun_Frame_Saved
+ * @see ../ccd/cdocs/ccd_exposure.html#CCD_Exposure_Save_Is_Pending
+ */
+static int Multrun_Frame_Exposed(int index,char *filename,char **filename_list[],int *filename_count,
+				 Sprat_Multrun_Frame_Callback_T frame_callback,void *frame_callback_data)
+{
+	if(Multrun_Data.Pending_Frame_Index > -1)
+	{
+		if(!Multrun_Frame_Saved(Multrun_Data.Pending_Frame_Index,Multrun_Data.Pending_Frame_Filename,
+					filename_list,filename_count,frame_callback,frame_callback_data))
+			return FALSE;
+		Multrun_Data.Pending_Frame_Index = -1;
+	}
+	if(CCD_Exposure_Save_Is_Pending())
+	{
+		if(strlen(filename) >= sizeof(Multrun_Data.Pending_Frame_Filename))
+		{
+			Sprat_Global_Error_Number = 432;
+			sprintf(Sprat_Global_Error_String,"Multrun_Frame_Exposed:Filename too long(%ld).",
+				(long)strlen(filename));
+			return FALSE;
+		}
+		Multrun_Data.Pending_Frame_Index = index;
+		strcpy(Multrun_Data.Pending_Frame_Filename,filename);
+		return TRUE;
+	}
+	return Multrun_Frame_Saved(index,filename,filename_list,filename_count,frame_callback,frame_callback_data);
+}
+
+/**
+ * Called at the end of a multrun. If the last frame is still being saved, we wait for the CCD library's writer thread
+ * to finish, and then pass the frame to Multrun_Frame_Saved.
+ * @param filename_list The address of the list of filenames to add saved frames to.
+ * @param filename_count The address of the number of filenames in the list.
+ * @param frame_callback A function to call for each saved frame, or NULL.
+ * @param frame_callback_data Data passed to frame_callback.
+ * @return The routine returns TRUE on success and FALSE on failure (including the frame failing to save).
+ * @see #Multrun_Data
+ * @see #Multrun_Frame_Saved
+ * @see ../ccd/cdocs/ccd_exposure.html#CCD_Exposure_Save_Wait
+ */
+static int Multrun_Frame_Flush(char **filename_list[],int *filename_count,
+			       Sprat_Multrun_Frame_Callback_T frame_callback,void *frame_callback_data)
+{
+	int index;
+
+	if(Multrun_Data.Pending_Frame_Index < 0)
+		return TRUE;
+	index = Multrun_Data.Pending_Frame_Index;
+	Multrun_Data.Pending_Frame_Index = -1;
+	if(!CCD_Exposure_Save_Wait())
+	{
+		Sprat_Global_Error_Number = 433;
+		sprintf(Sprat_Global_Error_String,"Multrun_Frame_Flush:Failed to save frame %d '%s'.",index,
+			Multrun_Data.Pending_Frame_Filename);
+		return FALSE;
+	}
+	return Multrun_Frame_Saved(index,Multrun_Data.Pending_Frame_Filename,filename_list,filename_count,
+				   frame_callback,frame_callback_data);
+}
+
+/**
+ * Called when a multrun fails. We wait for any frame still being saved by the CCD library's writer thread, so the 
+ * next multrun does not pick up it's result. The frame is not added to the filename list, as the multrun has failed.
+ * @see #Multrun_Data
+ * @see ../ccd/cdocs/ccd_exposure.html#CCD_Exposure_Save_Wait
+ */
+static void Multrun_Frame_Discard(void)
+{
+	Multrun_Data.Pending_Frame_Index = -1;
+	if(CCD_Exposure_Save_Is_Pending())
+		CCD_Exposure_Save_Wait();
+}
+
+/**
+ * Called when a frame in a multrun has been saved to disk. The filename is added to the returned filename list, and
+ * the status filename list, and the frame callback (if any) is called.
+ * @param index The index of the frame in the multrun.
+ * @param filename The FITS filename of the frame.
+ * @param filename_list The address of the list of filenames to add the filename to.
+ * @param filename_count The address of the number of filenames in the list.
+ * @param frame_callback A function to call for the saved frame, or NULL. A failure is logged, but is not fatal,
+ *        the frame is still in the lists.
+ * @param frame_callback_data Data passed to frame_callback.
+ * @return The routine returns TRUE on success and FALSE on failure.
+ * @see #Multrun_Filename_List_Add
+ * @see sprat_global.html#Sprat_Global_String_List_Add
+ * @see sprat_global.html#Sprat_Global_Error
+ */
+static int Multrun_Frame_Saved(int index,char *filename,char **filename_list[],int *filename_count,
+			       Sprat_Multrun_Frame_Callback_T frame_callback,void *frame_callback_data)
+{
+	if(!Sprat_Global_String_List_Add(filename_list,filename_count,filename))
+	{
+		Sprat_Global_Error_Number = 434;
+		sprintf(Sprat_Global_Error_String,"Multrun_Frame_Saved:Failed to add filename to list(%d).",
+			(*filename_count));
+		return FALSE;
+	}
+	if(!Multrun_Filename_List_Add(filename))
+		return FALSE;
+	if(frame_callback != NULL)
+	{
+		if(!(*frame_callback)(frame_callback_data,index,filename))
+		{
+			Sprat_Global_Error("multrun","sprat_multrun.c","Multrun_Frame_Saved",LOG_VERBOSITY_TERSE,
+					   "MULTRUN");
+		}
+	}
+	return TRUE;
+}
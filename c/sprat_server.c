@@ -47,7 +47,9 @@ static unsigned short Command_Server_Port_Number = 1234;
 
 /* internal functions */
 static void Server_Connection_Callback(Command_Server_Handle_T connection_handle);
+static int Server_Command(Command_Server_Handle_T connection_handle,char *client_message,int session_mode);
 static int Send_Reply(Command_Server_Handle_T connection_handle,char *reply_message);
+static int Send_Multrun_Frame(void *callback_data,int index,char *filename);
 static int Send_Binary_Reply(Command_Server_Handle_T connection_handle,void *buffer_ptr,size_t buffer_length);
 static int Send_Binary_Reply_Error(Command_Server_Handle_T connection_handle);
 
@@ -162,7 +164,59 @@ int Sprat_Server_Stop(void)
 ** ---------------------------------------------------------------------------- */
 /**
  * Server connection thread, invoked whenever a new command comes in.
+ * Normally one command is read and replied to, and the connection is then closed. If the client sends
+ * "session start", the connection is put into session mode, and commands are read and replied to
+ * (with single line replies) on the same connection until the client sends "session end" or closes the
+ * connection. This allows the Java layer to keep a pool of persistent connections to the C layer.
+ * Each command is processed by Server_Command.
  * @param connection_handle Connection handle for this thread.
+ * @see #Server_Command
+ * @see sprat_global.html#Sprat_Global_Error_Number
+ * @see sprat_global.html#Sprat_Global_Error_String
+ * @see sprat_global.html#Sprat_Global_Log_Format
+ * @see ../command_server/cdocs/command_server.html#Command_Server_Read_Message
+ */
+static void Server_Connection_Callback(Command_Server_Handle_T connection_handle)
+{
+	char *client_message = NULL;
+	int retval;
+	int session_mode = FALSE;
+
+	do
+	{
+		/* get message from client */
+		retval = Command_Server_Read_Message(connection_handle, &client_message);
+		if(retval == FALSE)
+		{
+			/* in session mode, the client closing the connection ends the session */
+			if(session_mode)
+			{
+#if SPRAT_DEBUG > 1
+				Sprat_Global_Log("server","sprat_server.c","Server_Connection_Callback",
+						 LOG_VERBOSITY_VERY_TERSE,"SERVER","session closed by client.");
+#endif
+				return;
+			}
+			Sprat_Global_Error_Number = 203;
+			sprintf(Sprat_Global_Error_String,"Server_Connection_Callback:"
+				"Failed to read message.");
+			Sprat_Global_Error("server","sprat_server.c","Server_Connection_Callback",
+					   LOG_VERBOSITY_VERY_TERSE,"SERVER");
+			return;
+		}
+		session_mode = Server_Command(connection_handle,client_message,session_mode);
+	}
+	while(session_mode);
+}
+
+/**
+ * Process one command read from a client, and send back the reply.
+ * @param connection_handle Connection handle for this thread.
+ * @param client_message The command read from the client. This is freed before the routine returns.
+ * @param session_mode Whether the connection was in session mode before this command.
+ * @return Whether the connection is in session mode after this command, i.e. whether
+ *         Server_Connection_Callback should read another command from the connection.
+ * @see #Server_Connection_Callback
  * @see #Send_Reply
  * @see #Send_Binary_Reply
  * @see #Send_Binary_Reply_Error
@@ -172,34 +226,20 @@ int Sprat_Server_Stop(void)
  * @see sprat_command.html#Sprat_Command_Config
  * @see sprat_command.html#Sprat_Command_Dark
  * @see sprat_command.html#Sprat_Command_Expose
+ * @see sprat_command.html#Sprat_Command_Fetch
  * @see sprat_command.html#Sprat_Command_Fits_Header
  * @see sprat_command.html#Sprat_Command_Status
  * @see sprat_command.html#Sprat_Command_Temperature
- * @see sprat_global.html#Sprat_Global_Error_Number
- * @see sprat_global.html#Sprat_Global_Error_String
  * @see sprat_global.html#Sprat_Global_Log_Format
- * @see ../command_server/cdocs/command_server.html#Command_Server_Read_Message
  */
-static void Server_Connection_Callback(Command_Server_Handle_T connection_handle)
+static int Server_Command(Command_Server_Handle_T connection_handle,char *client_message,int session_mode)
 {
 	void *buffer_ptr = NULL;
 	size_t buffer_length = 0;
 	char *reply_string = NULL;
-	char *client_message = NULL;
 	int retval;
 	int seconds,i;
 
-	/* get message from client */
-	retval = Command_Server_Read_Message(connection_handle, &client_message);
-	if(retval == FALSE)
-	{
-		Sprat_Global_Error_Number = 203;
-		sprintf(Sprat_Global_Error_String,"Server_Connection_Callback:"
-			"Failed to read message.");
-		Sprat_Global_Error("server","sprat_server.c","Server_Connection_Callback",
-					 LOG_VERBOSITY_VERY_TERSE,"SERVER");
-		return;
-	}
 #if SPRAT_DEBUG > 1
 	Sprat_Global_Log_Format("server","sprat_server.c","Server_Connection_Callback",
 				      LOG_VERBOSITY_VERY_TERSE,"SERVER","received '%s'",client_message);
@@ -367,6 +407,43 @@ static void Server_Connection_Callback(Command_Server_Handle_T connection_handle
 			}
 		}
 	}
+	else if(strncmp(client_message,"fetch",5) == 0)
+	{
+#if SPRAT_DEBUG > 1
+		Sprat_Global_Log("server","sprat_server.c","Server_Connection_Callback",
+				 LOG_VERBOSITY_VERY_TERSE,"SERVER","fetch detected.");
+#endif
+		buffer_ptr = NULL;
+		buffer_length = 0;
+		retval = Sprat_Command_Fetch(client_message,&reply_string,&buffer_ptr,&buffer_length);
+		if(retval == TRUE)
+		{
+			/* the reply line contains the length of the image data that follows it */
+			retval = Send_Reply(connection_handle,reply_string);
+			if(reply_string != NULL)
+				free(reply_string);
+			if((retval == TRUE)&&(buffer_ptr != NULL))
+				retval = Send_Binary_Reply(connection_handle,buffer_ptr,buffer_length);
+			if(buffer_ptr != NULL)
+				free(buffer_ptr);
+			if(retval == FALSE)
+			{
+				Sprat_Global_Error("server","sprat_server.c","Server_Connection_Callback",
+						   LOG_VERBOSITY_VERY_TERSE,"SERVER");
+			}
+		}
+		else
+		{
+			Sprat_Global_Error("server","sprat_server.c","Server_Connection_Callback",
+					   LOG_VERBOSITY_VERY_TERSE,"SERVER");
+			retval = Send_Reply(connection_handle, "1 Sprat_Command_Fetch failed.");
+			if(retval == FALSE)
+			{
+				Sprat_Global_Error("server","sprat_server.c","Server_Connection_Callback",
+						   LOG_VERBOSITY_VERY_TERSE,"SERVER");
+			}
+		}
+	}
 	else if(strncmp(client_message,"fitsheader",10) == 0)
 	{
 #if SPRAT_DEBUG > 1
@@ -406,25 +483,44 @@ static void Server_Connection_Callback(Command_Server_Handle_T connection_handle
 		Sprat_Global_Log("server","sprat_server.c","Sprat_Server_Connection_Callback",
 				   LOG_VERBOSITY_VERY_TERSE,"SERVER","help detected.");
 #endif
-		Send_Reply(connection_handle, "help:\n"
-			   "\tabort\n"
-			   "\tbias\n"
-			   "\tconfig <xbin> <ybin> [<startx> <endx> <starty> <endy>]\n"
-			   "\tdark <ms>\n"
-			   "\texpose <exposure type> <ms>\n"
-			   "\tfitsheader add <keyword> <boolean|float|integer|string|comment|units> <value>\n"
-			   "\tfitsheader delete <keyword>\n"
-			   "\tfitsheader clear\n"
-			   "\thelp\n"
-			   "\tmultbias <count>\n"
-			   "\tmultdark <exposurelength> <count>\n"
-			   "\tmultrun <length> <count> <exposure type>\n"
-			   "\tstatus exposure [status|length|start_time|multrun|run]\n"
-			   "\tstatus multrun [binx|biny|count|index]\n"
-			   "\tstatus temperature [get|status]\n"
-			   "\tshutdown\n"
-			   "\ttemperature [set <C>|cooler [on|off]]\n"
-			   );
+		/* a pooled (session) client reads exactly one reply line per command */
+		if(session_mode)
+		{
+			retval = Send_Reply(connection_handle,"0 help: abort bias config dark expose fetch "
+					    "fitsheader help multbias multdark multrun session status shutdown "
+					    "temperature");
+			if(retval == FALSE)
+			{
+				Sprat_Global_Error("server","sprat_server.c","Server_Connection_Callback",
+						   LOG_VERBOSITY_VERY_TERSE,"SERVER");
+			}
+		}
+		else
+		{
+			Send_Reply(connection_handle, "help:\n"
+				   "\tabort\n"
+				   "\tbias\n"
+				   "\tconfig <xbin> <ybin> [<startx> <endx> <starty> <endy>]\n"
+				   "\tdark <ms>\n"
+				   "\texpose <exposure type> <ms>\n"
+				   "\tfetch last frame [<bin>]\n"
+				   "\tfitsheader add <keyword> <boolean|float|integer|string|comment|units> <value>\n"
+				   "\tfitsheader add_batch <keyword> <type> <length> <value> [...]\n"
+				   "\tfitsheader delete <keyword>\n"
+				   "\tfitsheader clear\n"
+				   "\thelp\n"
+				   "\tmultbias <count>\n"
+				   "\tmultdark <exposurelength> <count>\n"
+				   "\tmultrun <length> <count> <exposure type> [stream]\n"
+				   "\tsession [start|end]\n"
+				   "\tstatus exposure [status|length|start_time|multrun|run]\n"
+				   "\tstatus multrun [binx|biny|count|index|filename <index>]\n"
+				   "\tstatus temperature [get|status]\n"
+				   "\tstatus all\n"
+				   "\tshutdown\n"
+				   "\ttemperature [set <C>|cooler [on|off]]\n"
+				   );
+		}
 	}
 	else if(strncmp(client_message,"multbias",8) == 0)
 	{
@@ -494,7 +590,8 @@ static void Server_Connection_Callback(Command_Server_Handle_T connection_handle
 		Sprat_Global_Log("server","sprat_server.c","Server_Connection_Callback",
 				       LOG_VERBOSITY_VERY_TERSE,"SERVER","multrun command detected.");
 #endif
-		retval = Sprat_Command_Multrun(client_message,&reply_string);
+		retval = Sprat_Command_Multrun(client_message,Send_Multrun_Frame,connection_handle,
+					       &reply_string);
 		if(retval == TRUE)
 		{
 			retval = Send_Reply(connection_handle,reply_string);
@@ -518,6 +615,35 @@ static void Server_Connection_Callback(Command_Server_Handle_T connection_handle
 			}
 		}
 	}
+	else if(strcmp(client_message,"session start") == 0)
+	{
+#if SPRAT_DEBUG > 1
+		Sprat_Global_Log("server","sprat_server.c","Server_Connection_Callback",
+				 LOG_VERBOSITY_VERY_TERSE,"SERVER","session start detected.");
+#endif
+		session_mode = TRUE;
+		retval = Send_Reply(connection_handle, "0 Session started.");
+		if(retval == FALSE)
+		{
+			Sprat_Global_Error("server","sprat_server.c","Server_Connection_Callback",
+					   LOG_VERBOSITY_VERY_TERSE,"SERVER");
+			session_mode = FALSE;
+		}
+	}
+	else if(strcmp(client_message,"session end") == 0)
+	{
+#if SPRAT_DEBUG > 1
+		Sprat_Global_Log("server","sprat_server.c","Server_Connection_Callback",
+				 LOG_VERBOSITY_VERY_TERSE,"SERVER","session end detected.");
+#endif
+		session_mode = FALSE;
+		retval = Send_Reply(connection_handle, "0 Session ended.");
+		if(retval == FALSE)
+		{
+			Sprat_Global_Error("server","sprat_server.c","Server_Connection_Callback",
+					   LOG_VERBOSITY_VERY_TERSE,"SERVER");
+		}
+	}
 	else if(strncmp(client_message,"status",6) == 0)
 	{
 #if SPRAT_DEBUG > 1
@@ -561,6 +687,7 @@ static void Server_Connection_Callback(Command_Server_Handle_T connection_handle
 		if(retval == FALSE)
 			Sprat_Global_Error("server","sprat_server.c","Sprat_Server_Connection_Callback",
 					   LOG_VERBOSITY_VERY_TERSE,"SERVER");
+		session_mode = FALSE;
 		retval = Sprat_Server_Stop();
 		if(retval == FALSE)
 		{
@@ -613,6 +740,7 @@ static void Server_Connection_Callback(Command_Server_Handle_T connection_handle
 	}
 	/* free message */
 	free(client_message);
+	return session_mode;
 }
 
 /**
@@ -648,6 +776,39 @@ static int Send_Reply(Command_Server_Handle_T connection_handle,char *reply_mess
 	return TRUE;
 }
 
+/**
+ * Send a "frame &lt;index&gt; &lt;filename&gt;" line back to the client, to tell it a streaming multrun
+ * has saved a frame. This is passed to Sprat_Command_Multrun as the frame callback, and is called from within
+ * the multrun once each frame has been saved. The client then receives a line per frame, followed by
+ * the normal multrun reply, which terminates the stream.
+ * @param callback_data The Command_Server_Handle_T connection handle the multrun command was received on.
+ * @param index The index of the frame in the multrun.
+ * @param filename The FITS filename the frame was saved to.
+ * @return The routine returns TRUE on success and FALSE on failure.
+ * @see #Send_Reply
+ * @see sprat_command.html#Sprat_Command_Multrun
+ * @see sprat_multrun.html#Sprat_Multrun_Frame_Callback_T
+ */
+static int Send_Multrun_Frame(void *callback_data,int index,char *filename)
+{
+	char frame_string[320];
+
+	if(filename == NULL)
+	{
+		Sprat_Global_Error_Number = 207;
+		sprintf(Sprat_Global_Error_String,"Send_Multrun_Frame:filename was NULL.");
+		return FALSE;
+	}
+	if(strlen(filename) > 256)
+	{
+		Sprat_Global_Error_Number = 208;
+		sprintf(Sprat_Global_Error_String,"Send_Multrun_Frame:filename too long (%d).",(int)strlen(filename));
+		return FALSE;
+	}
+	sprintf(frame_string,"frame %d %s",index,filename);
+	return Send_Reply((Command_Server_Handle_T)callback_data,frame_string);
+}
+
 /**
  * Send a binary message back to the client.
  * @param connection_handle Globus_io connection handle for this thread.
@@ -30,6 +30,7 @@
 #include <sys/time.h>
 #endif
 #include <time.h>
+#include <pthread.h>
 #include "atmcdLXd.h"
 #include "fitsio.h"
 #include "log_udp.h"
@@ -52,6 +53,15 @@
  * Convertion factor - degrees to Kelvin.
  */
 #define CENTIGRADE_TO_KELVIN      (273.15)
+/**
+ * The maximum length of a FITS filename passed to the writer thread, including the NULL terminator.
+ */
+#define EXPOSURE_SAVE_FILENAME_LENGTH (256)
+/**
+ * The number of pixels swapped at a time when flipping a pair of rows in the Y direction.
+ * @see #CCD_Exposure_Flip
+ */
+#define EXPOSURE_FLIP_BLOCK_LENGTH    (512)
 
 /* data types */
 /**
@@ -67,9 +77,16 @@
  * <dt>Series</dt> <dd>The current Andor series.</dd>
  * <dt>Exposure_Loop_Pause_Length</dt> <dd>An amount of time to pause/sleep, in milliseconds, each time
  *     round the loop whilst waiting for an exposure to be done (DRV_ACQUIRING -> DRV_IDLE).
+ * <dt>Background_Save</dt> <dd>A boolean, if TRUE read out image data is saved to disk by a writer thread,
+ *     whilst the next exposure is taken. If FALSE, image data is saved before CCD_Exposure_Expose returns.</dd>
+ * <dt>Save_Pending</dt> <dd>A boolean, TRUE if a writer thread has been started that has not been
+ *     waited for (by CCD_Exposure_Save_Wait) yet.</dd>
+ * <dt>Save_Data</dt> <dd>The data being saved by the pending writer thread.</dd>
+ * <dt>Save_Thread</dt> <dd>The pending writer thread.</dd>
  * </dl>
  * @see #CCD_EXPOSURE_SHUTTER_OUTPUT
  * @see #CCD_EXPOSURE_STATUS
+ * @see #Exposure_Save_Struct
  */
 struct Exposure_Struct
 {
@@ -82,6 +99,77 @@ struct Exposure_Struct
 	volatile long Accumulation;
 	volatile long Series;
 	int Exposure_Loop_Pause_Length;
+	int Background_Save;
+	int Save_Pending;
+	struct Exposure_Save_Struct *Save_Data;
+	pthread_t Save_Thread;
+};
+
+/**
+ * Structure holding everything needed to save one read out image to disk. A copy of the exposure data
+ * that goes into the FITS headers is taken when the image is read out, so the image can be saved by a writer thread
+ * whilst the next exposure is being taken (and the exposure data and FITS filename run numbers are updated).
+ * <dl>
+ * <dt>Buffer</dt> <dd>The image data.</dd>
+ * <dt>Buffer_Length</dt> <dd>The length of the image data, in bytes.</dd>
+ * <dt>NCols</dt> <dd>The number of binned columns in the image data.</dd>
+ * <dt>NRows</dt> <dd>The number of binned rows in the image data.</dd>
+ * <dt>Header</dt> <dd>The FITS headers to write into the image.</dd>
+ * <dt>Filename</dt> <dd>The FITS filename to save the image into.</dd>
+ * <dt>Start_Time</dt> <dd>The time stamp when the exposure was started.</dd>
+ * <dt>Exposure_Length</dt> <dd>The exposure length (ms).</dd>
+ * <dt>Accumulation</dt> <dd>The Andor accumulation of the image.</dd>
+ * <dt>Series</dt> <dd>The Andor series of the image.</dd>
+ * <dt>Multrun_Number</dt> <dd>The multrun number, written into the RUNNUM keyword.</dd>
+ * <dt>Run_Number</dt> <dd>The run number, written into the EXPNUM keyword.</dd>
+ * <dt>Retval</dt> <dd>The value returned by Exposure_Save, TRUE if the image was saved successfully.</dd>
+ * <dt>Error_Number</dt> <dd>The error number, if the save failed.</dd>
+ * <dt>Error_String</dt> <dd>A description of the error, if the save failed.</dd>
+ * </dl>
+ * @see #Exposure_Save
+ * @see #EXPOSURE_SAVE_FILENAME_LENGTH
+ */
+struct Exposure_Save_Struct
+{
+	unsigned short *Buffer;
+	size_t Buffer_Length;
+	int NCols;
+	int NRows;
+	struct Fits_Header_Struct Header;
+	char Filename[EXPOSURE_SAVE_FILENAME_LENGTH];
+	struct timespec Start_Time;
+	int Exposure_Length;
+	long Accumulation;
+	long Series;
+	int Multrun_Number;
+	int Run_Number;
+	int Retval;
+	int Error_Number;
+	char Error_String[CCD_GLOBAL_ERROR_STRING_LENGTH];
+};
+
+/**
+ * Structure holding the most recently saved image, so it can be retrieved (e.g. for quick-look) without
+ * re-reading the FITS image from disk.
+ * <dl>
+ * <dt>Mutex</dt> <dd>A mutex protecting the other fields, as the image is set by the writer thread or
+ *     exposure thread, and retrieved by a server thread.</dd>
+ * <dt>Buffer</dt> <dd>The image data, or NULL if no image has been saved yet.</dd>
+ * <dt>NCols</dt> <dd>The number of binned columns in the image data.</dd>
+ * <dt>NRows</dt> <dd>The number of binned rows in the image data.</dd>
+ * <dt>Multrun_Number</dt> <dd>The multrun number of the image.</dd>
+ * <dt>Run_Number</dt> <dd>The run number of the image.</dd>
+ * </dl>
+ * @see #CCD_Exposure_Last_Frame_Get
+ */
+struct Exposure_Last_Frame_Struct
+{
+	pthread_mutex_t Mutex;
+	unsigned short *Buffer;
+	int NCols;
+	int NRows;
+	int Multrun_Number;
+	int Run_Number;
 };
 
 /* external variables */
@@ -104,7 +192,20 @@ static struct Exposure_Struct Exposure_Data =
 	{0L,0L},
 	0,0,FALSE,
 	-1L,-1L,
-	1
+	1,
+	FALSE,FALSE,NULL
+};
+
+/**
+ * The most recently saved image.
+ * @see #Exposure_Last_Frame_Struct
+ */
+static struct Exposure_Last_Frame_Struct Last_Frame_Data = 
+{
+	PTHREAD_MUTEX_INITIALIZER,
+	NULL,
+	0,0,
+	-1,-1
 };
 
 /**
@@ -120,7 +221,14 @@ static char Exposure_Error_String[CCD_GLOBAL_ERROR_STRING_LENGTH] = "";
 /* internal functions */
 static int Exposure_Wait_For_Start_Time(struct timespec start_time);
 static void Exposure_Debug_Buffer(char *description,unsigned short *buffer,size_t buffer_length);
-static int Exposure_Save(void *buffer,size_t buffer_length,struct Fits_Header_Struct header,char *filename);
+static int Exposure_Save_Data_Set(struct Exposure_Save_Struct *save_data,unsigned short *image_data,
+				  size_t image_data_length,char *filename);
+static int Exposure_Save_Start(unsigned short *image_data,size_t image_data_length,struct Fits_Header_Struct header,
+			       char *filename);
+static void *Exposure_Save_Thread(void *user_arg);
+static int Exposure_Save(struct Exposure_Save_Struct *save_data);
+static void Exposure_Flip_Row_Reverse(int ncols,unsigned short *row);
+static void Exposure_Last_Frame_Set(struct Exposure_Save_Struct *save_data);
 static int fexist(char *filename);
 
 /* ----------------------------------------------------------------------------
@@ -174,11 +282,17 @@ int CCD_Exposure_Set_Shutter_Type(enum CCD_EXPOSURE_SHUTTER_OUTPUT set_shutter_t
  *        image data.
  * @param filename A NULL terminated string containing the filename to put the FITS image into.
  * @return Returns TRUE if the exposure succeeds and the data read out into the FITS image, returns FALSE if an error
- *	occurs or the exposure is aborted.
+ *	occurs or the exposure is aborted. If background saving is enabled, TRUE means the data has been read out and
+ *      handed to a writer thread to save, and CCD_Exposure_Save_Wait must be called to find out whether the
+ *      FITS image was saved successfully.
  * @see #Exposure_Error_Number
  * @see #Exposure_Error_String
  * @see #Exposure_Wait_For_Start_Time
+ * @see #Exposure_Save_Data_Set
+ * @see #Exposure_Save_Start
  * @see #Exposure_Save
+ * @see #CCD_Exposure_Background_Save_Set
+ * @see #CCD_Exposure_Save_Wait
  * @see ccd_global.html#CCD_Global_Log
  * @see ccd_global.html#CCD_Global_Andor_ErrorCode_To_String
  * @see ccd_setup.html#CCD_Setup_Allocate_Image_Buffer
@@ -190,6 +304,7 @@ int CCD_Exposure_Expose(int open_shutter,struct timespec start_time,int exposure
 			struct Fits_Header_Struct header,char *filename)
 {
 	enum CCD_TEMPERATURE_STATUS temperature_status;
+	struct Exposure_Save_Struct save_data;
 	struct timespec sleep_time,current_time;
 #ifndef _POSIX_TIMERS
 	struct timeval gtod_current_time;
@@ -457,15 +572,37 @@ int CCD_Exposure_Expose(int open_shutter,struct timespec start_time,int exposure
 		Exposure_Data.Accumulation = accumulation;
 		Exposure_Data.Series = series;
 	}
-	if(!Exposure_Save(image_data,image_data_length,header,filename))
+	if(Exposure_Data.Background_Save)
 	{
-		if(image_data != NULL)
-			free(image_data);
-		return FALSE;
+		/* hand the image data to a writer thread, which saves it whilst the next exposure is taken.
+		** On success, the writer thread owns image_data, and CCD_Exposure_Save_Wait frees it. */
+		if(!Exposure_Save_Start(image_data,image_data_length,header,filename))
+		{
+			if(image_data != NULL)
+				free(image_data);
+			return FALSE;
+		}
+	}
+	else
+	{
+		if(!Exposure_Save_Data_Set(&save_data,image_data,image_data_length,filename))
+		{
+			if(image_data != NULL)
+				free(image_data);
+			return FALSE;
+		}
+		save_data.Header = header;
+		if(!Exposure_Save(&save_data))
+		{
+			Exposure_Error_Number = save_data.Error_Number;
+			strcpy(Exposure_Error_String,save_data.Error_String);
+			if(image_data != NULL)
+				free(image_data);
+			return FALSE;
+		}
+		/* keep the image data for quick-look, this frees the previous last frame */
+		Exposure_Last_Frame_Set(&save_data);
 	}
-	/* free image data */
-	if(image_data != NULL)
-		free(image_data);
 #if LOGGING > 1
 	CCD_Global_Log("ccd","ccd_exposure.c","CCD_Exposure_Expose",LOG_VERBOSITY_INTERMEDIATE,"CCD",
 			"CCD_Exposure_Expose finished.");
@@ -504,6 +641,204 @@ int CCD_Exposure_Abort(void)
 	return TRUE;
 }
 
+/**
+ * Routine to set whether read out images are saved by a writer thread (double buffering).
+ * If background saving is enabled, CCD_Exposure_Expose returns as soon as the image has been read out, and the
+ * image is written to disk (as it is, no flipping is done) whilst the next exposure is taken. At most one image
+ * is being saved at once, the next CCD_Exposure_Expose waits for the previous save to finish after it has read out
+ * it's own image.
+ * The caller must call CCD_Exposure_Save_Wait after the last exposure, to wait for the last image to be saved.
+ * @param background_save A boolean, TRUE to save images in the background, FALSE to save them before
+ *        CCD_Exposure_Expose returns.
+ * @return Returns TRUE if the value is set, returns FALSE if background_save is not a boolean.
+ * @see #Exposure_Data
+ * @see #CCD_Exposure_Save_Wait
+ */
+int CCD_Exposure_Background_Save_Set(int background_save)
+{
+	Exposure_Error_Number = 0;
+	if(!CCD_GLOBAL_IS_BOOLEAN(background_save))
+	{
+		Exposure_Error_Number = 48;
+		sprintf(Exposure_Error_String,"CCD_Exposure_Background_Save_Set:Illegal background_save value %d.",
+			background_save);
+		return FALSE;
+	}
+	Exposure_Data.Background_Save = background_save;
+	return TRUE;
+}
+
+/**
+ * Get whether read out images are saved by a writer thread.
+ * @return A boolean, TRUE if images are saved in the background.
+ * @see #Exposure_Data
+ */
+int CCD_Exposure_Background_Save_Get(void)
+{
+	return Exposure_Data.Background_Save;
+}
+
+/**
+ * Return whether an image handed to a writer thread has not been waited for yet. If this returns FALSE after
+ * a successful CCD_Exposure_Expose, the image has already been saved.
+ * @return A boolean, TRUE if a save is pending.
+ * @see #Exposure_Data
+ * @see #CCD_Exposure_Save_Wait
+ */
+int CCD_Exposure_Save_Is_Pending(void)
+{
+	return Exposure_Data.Save_Pending;
+}
+
+/**
+ * Wait for the pending writer thread (if any) to finish saving it's image. The image data then becomes the
+ * last frame returned by CCD_Exposure_Last_Frame_Get.
+ * This must be called from the same thread that calls CCD_Exposure_Expose.
+ * @return Returns TRUE if there was no pending save, or the image was saved successfully. Returns FALSE if the
+ *         save failed, in which case the writer thread's error is copied into Exposure_Error_Number and 
+ *         Exposure_Error_String.
+ * @see #Exposure_Data
+ * @see #Exposure_Save_Struct
+ * @see #Exposure_Save_Thread
+ * @see #Exposure_Last_Frame_Set
+ * @see ccd_fits_header.html#CCD_Fits_Header_Free
+ */
+int CCD_Exposure_Save_Wait(void)
+{
+	struct Exposure_Save_Struct *save_data = NULL;
+	int retval;
+
+	if(!Exposure_Data.Save_Pending)
+		return TRUE;
+#if LOGGING > 5
+	CCD_Global_Log_Format("ccd","ccd_exposure.c","CCD_Exposure_Save_Wait",LOG_VERBOSITY_VERBOSE,"CCD",
+			      "Waiting for writer thread saving '%s'.",Exposure_Data.Save_Data->Filename);
+#endif
+	retval = pthread_join(Exposure_Data.Save_Thread,NULL);
+	save_data = Exposure_Data.Save_Data;
+	Exposure_Data.Save_Pending = FALSE;
+	Exposure_Data.Save_Data = NULL;
+	if(retval != 0)
+	{
+		Exposure_Error_Number = 49;
+		sprintf(Exposure_Error_String,"CCD_Exposure_Save_Wait:pthread_join failed(%d).",retval);
+		return FALSE;
+	}
+	retval = save_data->Retval;
+	if(retval == FALSE)
+	{
+		Exposure_Error_Number = save_data->Error_Number;
+		strcpy(Exposure_Error_String,save_data->Error_String);
+	}
+	/* keep the image data for quick-look, this frees the previous last frame */
+	Exposure_Last_Frame_Set(save_data);
+	CCD_Fits_Header_Free(&(save_data->Header));
+	free(save_data);
+#if LOGGING > 5
+	CCD_Global_Log_Format("ccd","ccd_exposure.c","CCD_Exposure_Save_Wait",LOG_VERBOSITY_VERBOSE,"CCD",
+			      "Writer thread finished with return value %d.",retval);
+#endif
+	return retval;
+}
+
+/**
+ * Get a copy of the most recently saved image, optionally binned down, for quick-look.
+ * When saving in the background, an image becomes the last frame once it's writer thread has been waited for
+ * (by CCD_Exposure_Save_Wait), so during a multrun the last frame may be one image behind the exposure in progress.
+ * Each output pixel is the mean of a bin x bin block of image pixels, any partial blocks at the right and
+ * bottom edges of the image are discarded.
+ * @param bin The binning factor to apply to the image, 1 returns the image as saved.
+ * @param buffer The address of a pointer, on success set to a newly allocated buffer containing the (binned)
+ *        image data. The caller should free this buffer.
+ * @param buffer_length The address of a size_t, on success set to the length of the buffer, in bytes.
+ * @param ncols The address of an integer, on success set to the number of columns in the returned image.
+ * @param nrows The address of an integer, on success set to the number of rows in the returned image.
+ * @param multrun_number The address of an integer, on success set to the multrun number of the image.
+ * @param run_number The address of an integer, on success set to the run number of the image.
+ * @return Returns TRUE on success, and FALSE if an error occurs (including no image having been saved yet).
+ * @see #Last_Frame_Data
+ * @see #CCD_Exposure_Save_Wait
+ */
+int CCD_Exposure_Last_Frame_Get(int bin,unsigned short **buffer,size_t *buffer_length,int *ncols,int *nrows,
+				int *multrun_number,int *run_number)
+{
+	unsigned short *frame_row = NULL;
+	unsigned short *output_pixel = NULL;
+	unsigned long sum;
+	int x,y,bx,by,frame_ncols,out_ncols,out_nrows;
+
+	Exposure_Error_Number = 0;
+	if(bin < 1)
+	{
+		Exposure_Error_Number = 58;
+		sprintf(Exposure_Error_String,"CCD_Exposure_Last_Frame_Get:Illegal bin %d.",bin);
+		return FALSE;
+	}
+	if((buffer == NULL)||(buffer_length == NULL)||(ncols == NULL)||(nrows == NULL)||
+	   (multrun_number == NULL)||(run_number == NULL))
+	{
+		Exposure_Error_Number = 59;
+		sprintf(Exposure_Error_String,"CCD_Exposure_Last_Frame_Get:NULL argument.");
+		return FALSE;
+	}
+	pthread_mutex_lock(&(Last_Frame_Data.Mutex));
+	if(Last_Frame_Data.Buffer == NULL)
+	{
+		pthread_mutex_unlock(&(Last_Frame_Data.Mutex));
+		Exposure_Error_Number = 60;
+		sprintf(Exposure_Error_String,"CCD_Exposure_Last_Frame_Get:No frame has been saved yet.");
+		return FALSE;
+	}
+	frame_ncols = Last_Frame_Data.NCols;
+	out_ncols = Last_Frame_Data.NCols/bin;
+	out_nrows = Last_Frame_Data.NRows/bin;
+	if((out_ncols < 1)||(out_nrows < 1))
+	{
+		pthread_mutex_unlock(&(Last_Frame_Data.Mutex));
+		Exposure_Error_Number = 61;
+		sprintf(Exposure_Error_String,"CCD_Exposure_Last_Frame_Get:Bin %d too large for frame (%d x %d).",
+			bin,Last_Frame_Data.NCols,Last_Frame_Data.NRows);
+		return FALSE;
+	}
+	(*buffer_length) = out_ncols*out_nrows*sizeof(unsigned short);
+	(*buffer) = (unsigned short *)malloc((*buffer_length));
+	if((*buffer) == NULL)
+	{
+		pthread_mutex_unlock(&(Last_Frame_Data.Mutex));
+		Exposure_Error_Number = 62;
+		sprintf(Exposure_Error_String,"CCD_Exposure_Last_Frame_Get:Failed to allocate buffer of length %ld.",
+			(long)(*buffer_length));
+		return FALSE;
+	}
+	if(bin == 1)
+		memcpy((*buffer),Last_Frame_Data.Buffer,(*buffer_length));
+	else
+	{
+		output_pixel = (*buffer);
+		for(y=0;y<out_nrows;y++)
+		{
+			for(x=0;x<out_ncols;x++)
+			{
+				sum = 0;
+				for(by=0;by<bin;by++)
+				{
+					frame_row = Last_Frame_Data.Buffer+(((y*bin)+by)*frame_ncols)+(x*bin);
+					for(bx=0;bx<bin;bx++)
+						sum += frame_row[bx];
+				}
+				(*output_pixel) = (unsigned short)(sum/(bin*bin));
+				output_pixel++;
+			}
+		}
+	}
+	(*ncols) = out_ncols;
+	(*nrows) = out_nrows;
+	(*multrun_number) = Last_Frame_Data.Multrun_Number;
+	(*run_number) = Last_Frame_Data.Run_Number;
+	pthread_mutex_unlock(&(Last_Frame_Data.Mutex));
+	return TRUE;
+}
+
 /**
  * Get the current exposure status.
  * @return The current exposure status.
@@ -603,29 +938,11 @@ char* CCD_Exposure_Status_To_String(enum CCD_EXPOSURE_STATUS status)
  * @param nrows The number of rows on the CCD.
  * @param exposure_data The image data received from the CCD. The data in this array is flipped in the X direction.
  * @return If everything was successful TRUE is returned, otherwise FALSE is returned.
+ * @see #CCD_Exposure_Flip
  */
 int CCD_Exposure_Flip_X(int ncols,int nrows,unsigned short *exposure_data)
 {
-	int x,y;
-	unsigned short int tempval;
-
-	/* for each row */
-	for(y=0;y<nrows;y++)
-	{
-		/* for the first half of the columns.
-		** Note the middle column will be missed, this is OK as it
-		** does not need to be flipped if it is in the middle */
-		for(x=0;x<(ncols/2);x++)
-		{
-			/* Copy exposure_data[x,y] to tempval */
-			tempval = *(exposure_data+(y*ncols)+x);
-			/* Copy exposure_data[ncols-(x+1),y] to exposure_data[x,y] */
-			*(exposure_data+(y*ncols)+x) = *(exposure_data+(y*ncols)+(ncols-(x+1)));
-			/* Copy tempval = exposure_data[ncols-(x+1),y] */
-			*(exposure_data+(y*ncols)+(ncols-(x+1))) = tempval;
-		}
-	}
-	return TRUE;
+	return CCD_Exposure_Flip(ncols,nrows,TRUE,FALSE,exposure_data);
 }
 
 /**
@@ -634,28 +951,99 @@ int CCD_Exposure_Flip_X(int ncols,int nrows,unsigned short *exposure_data)
  * @param nrows The number of rows on the CCD.
  * @param exposure_data The image data received from the CCD. The data in this array is flipped in the Y direction.
  * @return If everything was successful TRUE is returned, otherwise FALSE is returned.
+ * @see #CCD_Exposure_Flip
  */
 int CCD_Exposure_Flip_Y(int ncols,int nrows,unsigned short *exposure_data)
 {
-	int x,y;
-	unsigned short int tempval;
+	return CCD_Exposure_Flip(ncols,nrows,FALSE,TRUE,exposure_data);
+}
+
+/**
+ * Flip the image data in the X direction, the Y direction, or both, in one pass over the image.
+ * The rows are processed in pairs, working inwards from the top and bottom of the image, so each pixel is
+ * read and written once, whichever flips are requested:
+ * <ul>
+ * <li>A Y flip swaps the pair of rows in blocks of EXPOSURE_FLIP_BLOCK_LENGTH pixels, using memcpy.
+ * <li>An X and Y flip swaps each pixel in the top row with the mirrored pixel in the bottom row.
+ * <li>An X flip reverses each row of the pair in place.
+ * </ul>
+ * The middle row of an image with an odd number of rows only needs reversing, and then only for an X flip.
+ * The inner loops work on plain row pointers with no index arithmetic, so the compiler can vectorise them.
+ * @param ncols The number of columns on the CCD.
+ * @param nrows The number of rows on the CCD.
+ * @param flip_x A boolean, if TRUE the image is flipped in the X direction.
+ * @param flip_y A boolean, if TRUE the image is flipped in the Y direction.
+ * @param exposure_data The image data received from the CCD. The data in this array is flipped in place.
+ * @return If everything was successful TRUE is returned, otherwise FALSE is returned.
+ * @see #EXPOSURE_FLIP_BLOCK_LENGTH
+ * @see #Exposure_Flip_Row_Reverse
+ */
+int CCD_Exposure_Flip(int ncols,int nrows,int flip_x,int flip_y,unsigned short *exposure_data)
+{
+	unsigned short block[EXPOSURE_FLIP_BLOCK_LENGTH];
+	unsigned short *top_row = NULL;
+	unsigned short *bottom_row = NULL;
+	unsigned short tempval;
+	int x,y,block_length;
 
-	/* for the first half of the rows.
-	** Note the middle row will be missed, this is OK as it
-	** does not need to be flipped if it is in the middle */
+	Exposure_Error_Number = 0;
+	if(!CCD_GLOBAL_IS_BOOLEAN(flip_x))
+	{
+		Exposure_Error_Number = 55;
+		sprintf(Exposure_Error_String,"CCD_Exposure_Flip:Illegal flip_x value %d.",flip_x);
+		return FALSE;
+	}
+	if(!CCD_GLOBAL_IS_BOOLEAN(flip_y))
+	{
+		Exposure_Error_Number = 56;
+		sprintf(Exposure_Error_String,"CCD_Exposure_Flip:Illegal flip_y value %d.",flip_y);
+		return FALSE;
+	}
+	if(exposure_data == NULL)
+	{
+		Exposure_Error_Number = 57;
+		sprintf(Exposure_Error_String,"CCD_Exposure_Flip:exposure_data was NULL.");
+		return FALSE;
+	}
+	if((flip_x == FALSE)&&(flip_y == FALSE))
+		return TRUE;
+	/* for each pair of rows, working inwards from the top and bottom of the image */
 	for(y=0;y<(nrows/2);y++)
 	{
-		/* for each column */
-		for(x=0;x<ncols;x++)
+		top_row = exposure_data+(y*ncols);
+		bottom_row = exposure_data+((nrows-(y+1))*ncols);
+		if(flip_x && flip_y)
 		{
-			/* Copy exposure_data[x,y] to tempval */
-			tempval = *(exposure_data+(y*ncols)+x);
-			/* Copy exposure_data[x,nrows-(y+1)] to exposure_data[x,y] */
-			*(exposure_data+(y*ncols)+x) = *(exposure_data+(((nrows-(y+1))*ncols)+x));
-			/* Copy tempval = exposure_data[x,nrows-(y+1)] */
-			*(exposure_data+(((nrows-(y+1))*ncols)+x)) = tempval;
+			/* swap exposure_data[x,y] with exposure_data[ncols-(x+1),nrows-(y+1)] */
+			for(x=0;x<ncols;x++)
+			{
+				tempval = top_row[x];
+				top_row[x] = bottom_row[ncols-(x+1)];
+				bottom_row[ncols-(x+1)] = tempval;
+			}
+		}
+		else if(flip_y)
+		{
+			/* swap the rows a block at a time */
+			for(x=0;x<ncols;x+=EXPOSURE_FLIP_BLOCK_LENGTH)
+			{
+				block_length = ncols-x;
+				if(block_length > EXPOSURE_FLIP_BLOCK_LENGTH)
+					block_length = EXPOSURE_FLIP_BLOCK_LENGTH;
+				memcpy(block,top_row+x,block_length*sizeof(unsigned short));
+				memcpy(top_row+x,bottom_row+x,block_length*sizeof(unsigned short));
+				memcpy(bottom_row+x,block,block_length*sizeof(unsigned short));
+			}
+		}
+		else
+		{
+			Exposure_Flip_Row_Reverse(ncols,top_row);
+			Exposure_Flip_Row_Reverse(ncols,bottom_row);
 		}
 	}
+	/* The middle row of an odd number of rows does not move in Y, but still needs flipping in X */
+	if(((nrows%2) == 1)&&flip_x)
+		Exposure_Flip_Row_Reverse(ncols,exposure_data+((nrows/2)*ncols));
 	return TRUE;
 }
 
@@ -803,6 +1191,73 @@ void CCD_Exposure_Error_String(char *error_string)
 /* ----------------------------------------------------------------------------
 ** 		internal functions 
 ** ---------------------------------------------------------------------------- */
+/**
+ * Make a saved image the last frame returned by CCD_Exposure_Last_Frame_Get. The previous last frame is freed.
+ * If the image's dimensions are unknown, or do not match the length of the image data, the image data is freed
+ * instead and the skipped store is logged. Either way, the save structure no longer owns the image data when 
+ * this routine returns.
+ * @param save_data The address of the save structure containing the image data (Buffer, Buffer_Length, NCols,
+ *        NRows) and the multrun and run numbers of the image. The Buffer field is set to NULL.
+ * @see #Last_Frame_Data
+ * @see #Exposure_Save_Struct
+ * @see #CCD_Exposure_Last_Frame_Get
+ * @see ccd_global.html#CCD_GLOBAL_BYTES_PER_PIXEL
+ * @see ccd_global.html#CCD_Global_Log_Format
+ */
+static void Exposure_Last_Frame_Set(struct Exposure_Save_Struct *save_data)
+{
+	if(save_data->Buffer == NULL)
+		return;
+	if((save_data->NCols < 1)||(save_data->NRows < 1)||
+	   ((save_data->NCols*save_data->NRows*CCD_GLOBAL_BYTES_PER_PIXEL) != save_data->Buffer_Length))
+	{
+#if LOGGING > 5
+		CCD_Global_Log_Format("ccd","ccd_exposure.c","Exposure_Last_Frame_Set",LOG_VERBOSITY_VERBOSE,"CCD",
+				      "Not storing '%s' as the last frame:dimensions (%dx%d) do not match "
+				      "buffer length %ld.",save_data->Filename,save_data->NCols,save_data->NRows,
+				      (long)(save_data->Buffer_Length));
+#endif
+		free(save_data->Buffer);
+		save_data->Buffer = NULL;
+		return;
+	}
+	pthread_mutex_lock(&(Last_Frame_Data.Mutex));
+	if(Last_Frame_Data.Buffer != NULL)
+		free(Last_Frame_Data.Buffer);
+	Last_Frame_Data.Buffer = save_data->Buffer;
+	Last_Frame_Data.NCols = save_data->NCols;
+	Last_Frame_Data.NRows = save_data->NRows;
+	Last_Frame_Data.Multrun_Number = save_data->Multrun_Number;
+	Last_Frame_Data.Run_Number = save_data->Run_Number;
+	pthread_mutex_unlock(&(Last_Frame_Data.Mutex));
+	save_data->Buffer = NULL;
+}
+
+/**
+ * Reverse the order of the pixels in one row of image data, in place.
+ * @param ncols The number of pixels in the row.
+ * @param row The row of image data to reverse.
+ * @see #CCD_Exposure_Flip
+ */
+static void Exposure_Flip_Row_Reverse(int ncols,unsigned short *row)
+{
+	unsigned short *left = NULL;
+	unsigned short *right = NULL;
+	unsigned short tempval;
+
+	left = row;
+	right = row+ncols-1;
+	/* Note the middle pixel of an odd length row is not moved */
+	while(left < right)
+	{
+		tempval = (*left);
+		(*left) = (*right);
+		(*right) = tempval;
+		left++;
+		right--;
+	}
+}
+
 /**
  * Routine to wait until the specified start time.
  * @param start_time The start time.
@@ -916,6 +1371,149 @@ static void Exposure_Debug_Buffer(char *description,unsigned short *buffer,size_
 #endif	
 }
 
+/**
+ * Fill in a save structure with the image data and filename, and the exposure data that is written into the
+ * FITS headers. The Header field is not filled in.
+ * @param save_data The address of the structure to fill in.
+ * @param image_data The read out image data.
+ * @param image_data_length The length of the image data, in bytes.
+ * @param filename The FITS filename to save the image into.
+ * @return Returns TRUE on success, and FALSE if the filename is too long.
+ * @see #Exposure_Save_Struct
+ * @see #Exposure_Data
+ * @see #EXPOSURE_SAVE_FILENAME_LENGTH
+ * @see ccd_fits_filename.html#CCD_Fits_Filename_Multrun_Get
+ * @see ccd_fits_filename.html#CCD_Fits_Filename_Run_Get
+ * @see ccd_setup.html#CCD_Setup_Get_Bin_X
+ * @see ccd_setup.html#CCD_Setup_Get_Bin_Y
+ * @see ccd_setup.html#CCD_Setup_Get_Horizontal_Start
+ * @see ccd_setup.html#CCD_Setup_Get_Horizontal_End
+ * @see ccd_setup.html#CCD_Setup_Get_Vertical_Start
+ * @see ccd_setup.html#CCD_Setup_Get_Vertical_End
+ */
+static int Exposure_Save_Data_Set(struct Exposure_Save_Struct *save_data,unsigned short *image_data,
+				  size_t image_data_length,char *filename)
+{
+	if(strlen(filename) >= EXPOSURE_SAVE_FILENAME_LENGTH)
+	{
+		Exposure_Error_Number = 50;
+		sprintf(Exposure_Error_String,"Exposure_Save_Data_Set:Filename too long(%ld).",
+			(long)strlen(filename));
+		return FALSE;
+	}
+	save_data->Buffer = image_data;
+	save_data->Buffer_Length = image_data_length;
+	save_data->NCols = 0;
+	save_data->NRows = 0;
+	if((CCD_Setup_Get_Bin_X() > 0)&&(CCD_Setup_Get_Bin_Y() > 0))
+	{
+		/* the read out area is the active window, which is the whole chip when not windowing */
+		save_data->NCols = ((CCD_Setup_Get_Horizontal_End()-CCD_Setup_Get_Horizontal_Start())+1)/
+			CCD_Setup_Get_Bin_X();
+		save_data->NRows = ((CCD_Setup_Get_Vertical_End()-CCD_Setup_Get_Vertical_Start())+1)/
+			CCD_Setup_Get_Bin_Y();
+	}
+	strcpy(save_data->Filename,filename);
+	save_data->Start_Time = Exposure_Data.Start_Time;
+	save_data->Exposure_Length = Exposure_Data.Exposure_Length;
+	save_data->Accumulation = Exposure_Data.Accumulation;
+	save_data->Series = Exposure_Data.Series;
+	save_data->Multrun_Number = CCD_Fits_Filename_Multrun_Get();
+	save_data->Run_Number = CCD_Fits_Filename_Run_Get();
+	save_data->Retval = FALSE;
+	save_data->Error_Number = 0;
+	strcpy(save_data->Error_String,"");
+	return TRUE;
+}
+
+/**
+ * Start a writer thread to save a read out image. We take a copy of the FITS headers, as the caller may
+ * change them for the next exposure whilst this image is being saved. We then wait for any previous writer thread
+ * to finish (so at most one image is being saved whilst another is being exposed/read out), before starting
+ * the writer thread.
+ * @param image_data The read out image data. On success, this is owned by the writer thread and freed by 
+ *        CCD_Exposure_Save_Wait. On failure, the caller must free it.
+ * @param image_data_length The length of the image data, in bytes.
+ * @param header The FITS headers to write into the image.
+ * @param filename The FITS filename to save the image into.
+ * @return Returns TRUE if the writer thread was started, and FALSE if an error occurs (including the previous
+ *         image failing to save).
+ * @see #Exposure_Data
+ * @see #Exposure_Save_Data_Set
+ * @see #Exposure_Save_Thread
+ * @see #CCD_Exposure_Save_Wait
+ * @see ccd_fits_header.html#CCD_Fits_Header_Initialise
+ * @see ccd_fits_header.html#CCD_Fits_Header_Merge
+ * @see ccd_fits_header.html#CCD_Fits_Header_Free
+ */
+static int Exposure_Save_Start(unsigned short *image_data,size_t image_data_length,struct Fits_Header_Struct header,
+			       char *filename)
+{
+	struct Exposure_Save_Struct *save_data = NULL;
+	int retval;
+
+	save_data = (struct Exposure_Save_Struct *)malloc(sizeof(struct Exposure_Save_Struct));
+	if(save_data == NULL)
+	{
+		Exposure_Error_Number = 51;
+		sprintf(Exposure_Error_String,"Exposure_Save_Start:Failed to allocate save data.");
+		return FALSE;
+	}
+	if(!Exposure_Save_Data_Set(save_data,image_data,image_data_length,filename))
+	{
+		free(save_data);
+		return FALSE;
+	}
+	CCD_Fits_Header_Initialise(&(save_data->Header));
+	if(!CCD_Fits_Header_Merge(&(save_data->Header),&header))
+	{
+		CCD_Fits_Header_Free(&(save_data->Header));
+		free(save_data);
+		Exposure_Error_Number = 52;
+		sprintf(Exposure_Error_String,"Exposure_Save_Start:Failed to copy FITS headers.");
+		return FALSE;
+	}
+	/* wait for the previous image to be saved. This also frees it's image data. */
+	if(!CCD_Exposure_Save_Wait())
+	{
+		CCD_Fits_Header_Free(&(save_data->Header));
+		free(save_data);
+		return FALSE;
+	}
+#if LOGGING > 5
+	CCD_Global_Log_Format("ccd","ccd_exposure.c","Exposure_Save_Start",LOG_VERBOSITY_VERBOSE,"CCD",
+			      "Starting writer thread to save '%s'.",filename);
+#endif
+	retval = pthread_create(&(Exposure_Data.Save_Thread),NULL,Exposure_Save_Thread,(void *)save_data);
+	if(retval != 0)
+	{
+		CCD_Fits_Header_Free(&(save_data->Header));
+		free(save_data);
+		Exposure_Error_Number = 53;
+		sprintf(Exposure_Error_String,"Exposure_Save_Start:Failed to create writer thread(%d).",retval);
+		return FALSE;
+	}
+	Exposure_Data.Save_Data = save_data;
+	Exposure_Data.Save_Pending = TRUE;
+	return TRUE;
+}
+
+/**
+ * Writer thread entry point. Calls Exposure_Save to save the image, and stores the result in the save data.
+ * @param user_arg A pointer to the Exposure_Save_Struct to save.
+ * @return The routine returns NULL. The result of the save is in the Retval field of the save data.
+ * @see #Exposure_Save_Struct
+ * @see #Exposure_Save
+ */
+static void *Exposure_Save_Thread(void *user_arg)
+{
+	struct Exposure_Save_Struct *save_data = NULL;
+
+	save_data = (struct Exposure_Save_Struct *)user_arg;
+	save_data->Retval = Exposure_Save(save_data);
+	return NULL;
+}
+
 /**
  * Save the exposure to disk.
  * <ul>
@@ -927,13 +1525,13 @@ static void Exposure_Debug_Buffer(char *description,unsigned short *buffer,size_
  * <li>We print out a subset of the data using Exposure_Debug_Buffer.
  * <li>We call fits_write_img to write the data into the FITS image.
  * <li>We call CCD_Fits_Header_Write_To_Fits to write FITS headers stored in the list to the FITS image.
- * <li>Exposure_Data.Start_Time is passed into CCD_Exposure_TimeSpec_To_Date_String, and the results written into a 
+ * <li>save_data->Start_Time is passed into CCD_Exposure_TimeSpec_To_Date_String, and the results written into a 
  *     DATE FITS header entry.
- * <li>Exposure_Data.Start_Time is passed into CCD_Exposure_TimeSpec_To_Date_Obs_String, and the results written into a
+ * <li>save_data->Start_Time is passed into CCD_Exposure_TimeSpec_To_Date_Obs_String, and the results written into a
  *     DATE-OBS FITS header entry.
- * <li>Exposure_Data.Start_Time is passed into CCD_Exposure_TimeSpec_To_UtStart_String, and the results written into a
+ * <li>save_data->Start_Time is passed into CCD_Exposure_TimeSpec_To_UtStart_String, and the results written into a
  *     UTSTART FITS header entry.
- * <li>Exposure_Data.Start_Time is passed into CCD_Exposure_TimeSpec_To_Mjd, and the results written into a
+ * <li>save_data->Start_Time is passed into CCD_Exposure_TimeSpec_To_Mjd, and the results written into a
  *     MJD FITS header entry.
  * <li>We use CCD_Setup_Get_Bin_X and CCD_Setup_Get_Bin_Y to retrieve binning values to write into CCDXBIN and CCDYBIN
  *     FITS header entry.
@@ -942,32 +1540,30 @@ static void Exposure_Debug_Buffer(char *description,unsigned short *buffer,size_
  *     CCD_Setup_Get_Vertical_End to write the CCDWXOFF,CCDWYOFF,CCDWXSIZ,CCDWYSIZ FITS header entries.
  * <li>We use CCD_Setup_Get_Detector_Pixel_Count_X and CCD_Setup_Get_Detector_Pixel_Count_Y to write the 
  *     CCDXIMSI and CCDYIMSI FITS header entries.
- * <li>We use Exposure_Data.Exposure_Length to write the EXPTIME FITS header entry.
- * <li>We use Exposure_Data.Accumulation and Exposure_Data.Series to write the ACCUM and SERIES FITS header entries.
- * <li>We use CCD_Fits_Filename_Multrun_Get to write the RUNNUM FITS header entry.
- * <li>We use CCD_Fits_Filename_Run_Get to write the EXPNUM FITS header entry.
+ * <li>We use save_data->Exposure_Length to write the EXPTIME FITS header entry.
+ * <li>We use save_data->Accumulation and save_data->Series to write the ACCUM and SERIES FITS header entries.
+ * <li>We use save_data->Multrun_Number to write the RUNNUM FITS header entry.
+ * <li>We use save_data->Run_Number to write the EXPNUM FITS header entry.
  * <li>We use CCD_Temperature_Get_Cached_Temperature to write the CCDATEMP TEMPSTAT and TEMPDATE FITS header entries.
  * <li>We use CCD_Temperature_Target_Temperature_Get to write the CCDSTEMP FITS header entry.
  * <li>We call fits_close_file to finish writing the FITS image.
  * <li>We call CCD_Fits_Filename_UnLock to delete the lock file associated with the FITS image.
  * </ul>
- * @param buffer Pointer to a previously allocated array of unsigned shorts containing the image pixel values.
- * @param buffer_length The length of the buffer in bytes.
- * @param header A list of FITS headers to wrire into the FITS image.
- * @param filename The name of the file to save the image into. If it does not exist, it is created.
+ * This routine may be called from a writer thread, so it only uses the exposure data stored in save_data, and 
+ * reports errors in save_data rather than Exposure_Error_Number and Exposure_Error_String.
+ * @param save_data The address of a structure containing the image data (Buffer, Buffer_Length), the FITS headers
+ *        to write into the FITS image (Header), the name of the file to save the image into (Filename, if it does
+ *        not exist, it is created), and the exposure data to write into the FITS headers. On failure, the Error_Number
+ *        and Error_String fields are filled in.
  * @return Returns TRUE on success, and FALSE if an error occurs.
- * @see #Exposure_Error_Number
- * @see #Exposure_Error_String
+ * @see #Exposure_Save_Struct
  * @see #Exposure_Debug_Buffer
- * @see #Exposure_Data
  * @see #CCD_Exposure_TimeSpec_To_Date_String
  * @see #CCD_Exposure_TimeSpec_To_Date_Obs_String
  * @see #CCD_Exposure_TimeSpec_To_UtStart_String
  * @see #CCD_Exposure_TimeSpec_To_Mjd
  * @see ccd_fits_filename.html#CCD_Fits_Filename_Lock
  * @see ccd_fits_filename.html#CCD_Fits_Filename_UnLock
- * @see ccd_fits_filename.html#CCD_Fits_Filename_Multrun_Get
- * @see ccd_fits_filename.html#CCD_Fits_Filename_Run_Get
  * @see ccd_fits_header.html#CCD_Fits_Header_Write_To_Fits
  * @see ccd_global.html#CCD_GLOBAL_BYTES_PER_PIXEL
  * @see ccd_global.html#CCD_Global_Log
@@ -987,8 +1583,9 @@ static void Exposure_Debug_Buffer(char *description,unsigned short *buffer,size_
  * @see ccd_temperature.html#CCD_Temperature_Target_Temperature_Get
  * @see #fexist
  */
-static int Exposure_Save(void *buffer,size_t buffer_length,struct Fits_Header_Struct header,char *filename)
+static int Exposure_Save(struct Exposure_Save_Struct *save_data)
 {
+	struct Fits_Header_Struct header;
 	enum CCD_TEMPERATURE_STATUS temperature_status;
 	struct timespec temperature_time_stamp;
 	fitsfile *fits_fp = NULL;
@@ -998,6 +1595,14 @@ static int Exposure_Save(void *buffer,size_t buffer_length,struct Fits_Header_St
 	int status = 0,retval,ivalue,ncols,nrows,bin_x,bin_y,xstart,xend,ystart,yend;
 	int ccdxbin,is_window,detector_x_pixel_count,detector_y_pixel_count;
 	double exposure_length,mjd,current_temperature,target_temperature;
+	size_t buffer_length;
+	void *buffer = NULL;
+	char *filename = NULL;
+
+	buffer = save_data->Buffer;
+	buffer_length = save_data->Buffer_Length;
+	header = save_data->Header;
+	filename = save_data->Filename;
 
 #if LOGGING > 5
 	CCD_Global_Log("ccd","ccd_exposure.c","CCD_Exposure_Save",LOG_VERBOSITY_INTERMEDIATE,"CCD","started.");
@@ -1011,8 +1616,8 @@ static int Exposure_Save(void *buffer,size_t buffer_length,struct Fits_Header_St
 	bin_y = CCD_Setup_Get_Bin_Y();
 	if((bin_x < 1)||(bin_y < 1))
 	{
-		Exposure_Error_Number = 12;
-		sprintf(Exposure_Error_String,"CCD_Exposure_Save: Binning out of range (x=%d,y=%d).",bin_x,bin_y);
+		save_data->Error_Number = 12;
+		sprintf(save_data->Error_String,"CCD_Exposure_Save: Binning out of range (x=%d,y=%d).",bin_x,bin_y);
 		return FALSE;
 	}
 	ncols = CCD_Setup_Get_NCols()/bin_x;
@@ -1023,8 +1628,8 @@ static int Exposure_Save(void *buffer,size_t buffer_length,struct Fits_Header_St
 #endif
 	if((ncols*nrows*CCD_GLOBAL_BYTES_PER_PIXEL) != buffer_length)
 	{
-		Exposure_Error_Number = 13;
-		sprintf(Exposure_Error_String,"CCD_Exposure_Save: Dimension mismatch: "
+		save_data->Error_Number = 13;
+		sprintf(save_data->Error_String,"CCD_Exposure_Save: Dimension mismatch: "
 			"Binned dimensions (x=%d,y=%d) = %d do not equal buffer length %ld.",
 			ncols,nrows,(ncols*nrows),(long int)buffer_length);
 		return FALSE;
@@ -1035,8 +1640,8 @@ static int Exposure_Save(void *buffer,size_t buffer_length,struct Fits_Header_St
 #endif
 	if(!CCD_Fits_Filename_Lock(filename))
 	{
-		Exposure_Error_Number = 14;
-		sprintf(Exposure_Error_String,"Exposure_Save:Failed to lock '%s'.",filename);
+		save_data->Error_Number = 14;
+		sprintf(save_data->Error_String,"Exposure_Save:Failed to lock '%s'.",filename);
 		return FALSE;				
 	}
 	/* check existence of FITS image and create or append as appropriate? */
@@ -1048,8 +1653,8 @@ static int Exposure_Save(void *buffer,size_t buffer_length,struct Fits_Header_St
 			fits_get_errstatus(status,buff);
 			fits_report_error(stderr,status);
 			CCD_Fits_Filename_UnLock(filename);
-			Exposure_Error_Number = 15;
-			sprintf(Exposure_Error_String,"CCD_Exposure_Save: File open failed(%s,%d,%s).",
+			save_data->Error_Number = 15;
+			sprintf(save_data->Error_String,"CCD_Exposure_Save: File open failed(%s,%d,%s).",
 				filename,status,buff);
 			return FALSE;
 		}
@@ -1062,8 +1667,8 @@ static int Exposure_Save(void *buffer,size_t buffer_length,struct Fits_Header_St
 			fits_get_errstatus(status,buff);
 			fits_report_error(stderr,status);
 			CCD_Fits_Filename_UnLock(filename);
-			Exposure_Error_Number = 16;
-			sprintf(Exposure_Error_String,"CCD_Exposure_Save: File create failed(%s,%d,%s).",
+			save_data->Error_Number = 16;
+			sprintf(save_data->Error_String,"CCD_Exposure_Save: File create failed(%s,%d,%s).",
 				filename,status,buff);
 			return FALSE;
 		}
@@ -1077,8 +1682,8 @@ static int Exposure_Save(void *buffer,size_t buffer_length,struct Fits_Header_St
 			fits_report_error(stderr,status);
 			fits_close_file(fits_fp,&status);
 			CCD_Fits_Filename_UnLock(filename);
-			Exposure_Error_Number = 17;
-			sprintf(Exposure_Error_String,"CCD_Exposure_Save: Create image failed(%s,%d,%s).",
+			save_data->Error_Number = 17;
+			sprintf(save_data->Error_String,"CCD_Exposure_Save: Create image failed(%s,%d,%s).",
 				filename,status,buff);
 			return FALSE;
 		}
@@ -1095,8 +1700,8 @@ static int Exposure_Save(void *buffer,size_t buffer_length,struct Fits_Header_St
 		fits_report_error(stderr,status);
 		fits_close_file(fits_fp,&status);
 		CCD_Fits_Filename_UnLock(filename);
-		Exposure_Error_Number = 18;
-		sprintf(Exposure_Error_String,"CCD_Exposure_Save: File write image failed(%s,%d,%s).",
+		save_data->Error_Number = 18;
+		sprintf(save_data->Error_String,"CCD_Exposure_Save: File write image failed(%s,%d,%s).",
 			filename,status,buff);
 		return FALSE;
 	}
@@ -1105,12 +1710,12 @@ static int Exposure_Save(void *buffer,size_t buffer_length,struct Fits_Header_St
 	{
 		fits_close_file(fits_fp,&status);
 		CCD_Fits_Filename_UnLock(filename);
-		Exposure_Error_Number = 19;
-		sprintf(Exposure_Error_String,"Exposure_Save:CCD_Fits_Header_Write_To_Fits failed.");
+		save_data->Error_Number = 19;
+		sprintf(save_data->Error_String,"Exposure_Save:CCD_Fits_Header_Write_To_Fits failed.");
 		return FALSE;
 	}
 /* update DATE keyword */
-	CCD_Exposure_TimeSpec_To_Date_String(Exposure_Data.Start_Time,exposure_start_time_string);
+	CCD_Exposure_TimeSpec_To_Date_String(save_data->Start_Time,exposure_start_time_string);
 	retval = fits_update_key(fits_fp,TSTRING,"DATE",exposure_start_time_string,NULL,&status);
 	if(retval)
 	{
@@ -1118,12 +1723,12 @@ static int Exposure_Save(void *buffer,size_t buffer_length,struct Fits_Header_St
 		fits_report_error(stderr,status);
 		fits_close_file(fits_fp,&status);
 		CCD_Fits_Filename_UnLock(filename);
-		Exposure_Error_Number = 20;
-		sprintf(Exposure_Error_String,"Exposure_Save: Updating DATE failed(%s,%d,%s).",filename,status,buff);
+		save_data->Error_Number = 20;
+		sprintf(save_data->Error_String,"Exposure_Save: Updating DATE failed(%s,%d,%s).",filename,status,buff);
 		return FALSE;
 	}
 /* update DATE-OBS keyword */
-	CCD_Exposure_TimeSpec_To_Date_Obs_String(Exposure_Data.Start_Time,exposure_start_time_string);
+	CCD_Exposure_TimeSpec_To_Date_Obs_String(save_data->Start_Time,exposure_start_time_string);
 	retval = fits_update_key(fits_fp,TSTRING,"DATE-OBS",exposure_start_time_string,NULL,&status);
 	if(retval)
 	{
@@ -1131,13 +1736,13 @@ static int Exposure_Save(void *buffer,size_t buffer_length,struct Fits_Header_St
 		fits_report_error(stderr,status);
 		fits_close_file(fits_fp,&status);
 		CCD_Fits_Filename_UnLock(filename);
-		Exposure_Error_Number = 21;
-		sprintf(Exposure_Error_String,"Exposure_Save: Updating DATE-OBS failed(%s,%d,%s).",filename,
+		save_data->Error_Number = 21;
+		sprintf(save_data->Error_String,"Exposure_Save: Updating DATE-OBS failed(%s,%d,%s).",filename,
 			status,buff);
 		return FALSE;
 	}
 /* update UTSTART keyword */
-	CCD_Exposure_TimeSpec_To_UtStart_String(Exposure_Data.Start_Time,exposure_start_time_string);
+	CCD_Exposure_TimeSpec_To_UtStart_String(save_data->Start_Time,exposure_start_time_string);
 	retval = fits_update_key(fits_fp,TSTRING,"UTSTART",exposure_start_time_string,NULL,&status);
 	if(retval)
 	{
@@ -1145,16 +1750,19 @@ static int Exposure_Save(void *buffer,size_t buffer_length,struct Fits_Header_St
 		fits_report_error(stderr,status);
 		fits_close_file(fits_fp,&status);
 		CCD_Fits_Filename_UnLock(filename);
-		Exposure_Error_Number = 22;
-		sprintf(Exposure_Error_String,"Exposure_Save: Updating UTSTART failed(%s,%d,%s).",filename,
+		save_data->Error_Number = 22;
+		sprintf(save_data->Error_String,"Exposure_Save: Updating UTSTART failed(%s,%d,%s).",filename,
 			status,buff);
 		return FALSE;
 	}
 /* update MJD keyword */
 /* note leap second correction not implemented yet (always FALSE). */
-	if(!CCD_Exposure_TimeSpec_To_Mjd(Exposure_Data.Start_Time,FALSE,&mjd))
+	if(!CCD_Exposure_TimeSpec_To_Mjd(save_data->Start_Time,FALSE,&mjd))
 	{
+		fits_close_file(fits_fp,&status);
 		CCD_Fits_Filename_UnLock(filename);
+		save_data->Error_Number = 54;
+		sprintf(save_data->Error_String,"Exposure_Save:CCD_Exposure_TimeSpec_To_Mjd failed(%s).",filename);
 		return FALSE;
 	}
 	retval = fits_update_key_fixdbl(fits_fp,"MJD",mjd,6,NULL,&status);
@@ -1164,8 +1772,8 @@ static int Exposure_Save(void *buffer,size_t buffer_length,struct Fits_Header_St
 		fits_report_error(stderr,status);
 		fits_close_file(fits_fp,&status);
 		CCD_Fits_Filename_UnLock(filename);
-		Exposure_Error_Number = 23;
-		sprintf(Exposure_Error_String,"Exposure_Save: Updating MJD failed(%.2f,%s,%d,%s).",mjd,filename,
+		save_data->Error_Number = 23;
+		sprintf(save_data->Error_String,"Exposure_Save: Updating MJD failed(%.2f,%s,%d,%s).",mjd,filename,
 			status,buff);
 		return FALSE;
 	}
@@ -1178,8 +1786,8 @@ static int Exposure_Save(void *buffer,size_t buffer_length,struct Fits_Header_St
 		fits_report_error(stderr,status);
 		fits_close_file(fits_fp,&status);
 		CCD_Fits_Filename_UnLock(filename);
-		Exposure_Error_Number = 24;
-		sprintf(Exposure_Error_String,"Exposure_Save: Updating CCDXBIN failed(%s,%d,%d,%s).",filename,ccdxbin,
+		save_data->Error_Number = 24;
+		sprintf(save_data->Error_String,"Exposure_Save: Updating CCDXBIN failed(%s,%d,%d,%s).",filename,ccdxbin,
 			status,buff);
 		return FALSE;
 	}
@@ -1192,8 +1800,8 @@ static int Exposure_Save(void *buffer,size_t buffer_length,struct Fits_Header_St
 		fits_report_error(stderr,status);
 		fits_close_file(fits_fp,&status);
 		CCD_Fits_Filename_UnLock(filename);
-		Exposure_Error_Number = 25;
-		sprintf(Exposure_Error_String,"Exposure_Save: Updating CCDYBIN failed(%s,%d,%d,%s).",filename,ivalue,
+		save_data->Error_Number = 25;
+		sprintf(save_data->Error_String,"Exposure_Save: Updating CCDYBIN failed(%s,%d,%d,%s).",filename,ivalue,
 			status,buff);
 		return FALSE;
 	}
@@ -1213,8 +1821,8 @@ static int Exposure_Save(void *buffer,size_t buffer_length,struct Fits_Header_St
 		fits_report_error(stderr,status);
 		fits_close_file(fits_fp,&status);
 		CCD_Fits_Filename_UnLock(filename);
-		Exposure_Error_Number = 26;
-		sprintf(Exposure_Error_String,"Exposure_Save: Updating CCDWMODE failed(%s,%d,%d,%s).",filename,
+		save_data->Error_Number = 26;
+		sprintf(save_data->Error_String,"Exposure_Save: Updating CCDWMODE failed(%s,%d,%d,%s).",filename,
 			is_window,status,buff);
 		return FALSE;
 	}
@@ -1226,8 +1834,8 @@ static int Exposure_Save(void *buffer,size_t buffer_length,struct Fits_Header_St
 		fits_report_error(stderr,status);
 		fits_close_file(fits_fp,&status);
 		CCD_Fits_Filename_UnLock(filename);
-		Exposure_Error_Number = 27;
-		sprintf(Exposure_Error_String,"Exposure_Save: Updating CCDWXOFF failed(%s,%d,%d,%s).",filename,xstart,
+		save_data->Error_Number = 27;
+		sprintf(save_data->Error_String,"Exposure_Save: Updating CCDWXOFF failed(%s,%d,%d,%s).",filename,xstart,
 			status,buff);
 		return FALSE;
 	}
@@ -1239,8 +1847,8 @@ static int Exposure_Save(void *buffer,size_t buffer_length,struct Fits_Header_St
 		fits_report_error(stderr,status);
 		fits_close_file(fits_fp,&status);
 		CCD_Fits_Filename_UnLock(filename);
-		Exposure_Error_Number = 28;
-		sprintf(Exposure_Error_String,"Exposure_Save: Updating CCDWYOFF failed(%s,%d,%d,%s).",filename,ystart,
+		save_data->Error_Number = 28;
+		sprintf(save_data->Error_String,"Exposure_Save: Updating CCDWYOFF failed(%s,%d,%d,%s).",filename,ystart,
 			status,buff);
 		return FALSE;
 	}
@@ -1253,8 +1861,8 @@ static int Exposure_Save(void *buffer,size_t buffer_length,struct Fits_Header_St
 		fits_report_error(stderr,status);
 		fits_close_file(fits_fp,&status);
 		CCD_Fits_Filename_UnLock(filename);
-		Exposure_Error_Number = 29;
-		sprintf(Exposure_Error_String,"Exposure_Save: Updating CCDWXSIZ failed(%s,%d,%d,%s).",filename,ivalue,
+		save_data->Error_Number = 29;
+		sprintf(save_data->Error_String,"Exposure_Save: Updating CCDWXSIZ failed(%s,%d,%d,%s).",filename,ivalue,
 			status,buff);
 		return FALSE;
 	}
@@ -1267,8 +1875,8 @@ static int Exposure_Save(void *buffer,size_t buffer_length,struct Fits_Header_St
 		fits_report_error(stderr,status);
 		fits_close_file(fits_fp,&status);
 		CCD_Fits_Filename_UnLock(filename);
-		Exposure_Error_Number = 30;
-		sprintf(Exposure_Error_String,"Exposure_Save: Updating CCDWYSIZ failed(%s,%d,%d,%s).",filename,ivalue,
+		save_data->Error_Number = 30;
+		sprintf(save_data->Error_String,"Exposure_Save: Updating CCDWYSIZ failed(%s,%d,%d,%s).",filename,ivalue,
 			status,buff);
 		return FALSE;
 	}
@@ -1280,8 +1888,8 @@ static int Exposure_Save(void *buffer,size_t buffer_length,struct Fits_Header_St
 		fits_report_error(stderr,status);
 		fits_close_file(fits_fp,&status);
 		CCD_Fits_Filename_UnLock(filename);
-		Exposure_Error_Number = 31;
-		sprintf(Exposure_Error_String,"Exposure_Save: Updating CCDXIMSI failed(%s,%d,%d,%s).",filename,
+		save_data->Error_Number = 31;
+		sprintf(save_data->Error_String,"Exposure_Save: Updating CCDXIMSI failed(%s,%d,%d,%s).",filename,
 			detector_x_pixel_count,status,buff);
 		return FALSE;
 	}
@@ -1293,12 +1901,12 @@ static int Exposure_Save(void *buffer,size_t buffer_length,struct Fits_Header_St
 		fits_report_error(stderr,status);
 		fits_close_file(fits_fp,&status);
 		CCD_Fits_Filename_UnLock(filename);
-		Exposure_Error_Number = 32;
-		sprintf(Exposure_Error_String,"Exposure_Save: Updating CCDYIMSI failed(%s,%d,%d,%s).",filename,
+		save_data->Error_Number = 32;
+		sprintf(save_data->Error_String,"Exposure_Save: Updating CCDYIMSI failed(%s,%d,%d,%s).",filename,
 			detector_y_pixel_count,status,buff);
 		return FALSE;
 	}
-       	exposure_length = ((double)(Exposure_Data.Exposure_Length))/1000.0;
+       	exposure_length = ((double)(save_data->Exposure_Length))/1000.0;
 	retval = fits_update_key_fixdbl(fits_fp,"EXPTIME",exposure_length,6,NULL,&status);
 	if(retval)
 	{
@@ -1306,13 +1914,13 @@ static int Exposure_Save(void *buffer,size_t buffer_length,struct Fits_Header_St
 		fits_report_error(stderr,status);
 		fits_close_file(fits_fp,&status);
 		CCD_Fits_Filename_UnLock(filename);
-		Exposure_Error_Number = 33;
-		sprintf(Exposure_Error_String,"Exposure_Save: Updating exposure length failed(%.2f,%s,%d,%s).",
+		save_data->Error_Number = 33;
+		sprintf(save_data->Error_String,"Exposure_Save: Updating exposure length failed(%.2f,%s,%d,%s).",
 			exposure_length,filename,status,buff);
 		return FALSE;
 	}
 	/* Andor Accumulation */
-	ivalue = Exposure_Data.Accumulation;
+	ivalue = save_data->Accumulation;
 	retval = fits_update_key(fits_fp,TINT,"ACCUM",&ivalue,NULL,&status);
 	if(retval)
 	{
@@ -1320,13 +1928,13 @@ static int Exposure_Save(void *buffer,size_t buffer_length,struct Fits_Header_St
 		fits_report_error(stderr,status);
 		fits_close_file(fits_fp,&status);
 		CCD_Fits_Filename_UnLock(filename);
-		Exposure_Error_Number = 34;
-		sprintf(Exposure_Error_String,"Exposure_Save: Updating ACCUM failed(%s,%d,%s).",filename,
+		save_data->Error_Number = 34;
+		sprintf(save_data->Error_String,"Exposure_Save: Updating ACCUM failed(%s,%d,%s).",filename,
 			status,buff);
 		return FALSE;
 	}
 	/* Andor Series */
-	ivalue = Exposure_Data.Series;
+	ivalue = save_data->Series;
 	retval = fits_update_key(fits_fp,TINT,"SERIES",&ivalue,NULL,&status);
 	if(retval)
 	{
@@ -1334,13 +1942,13 @@ static int Exposure_Save(void *buffer,size_t buffer_length,struct Fits_Header_St
 		fits_report_error(stderr,status);
 		fits_close_file(fits_fp,&status);
 		CCD_Fits_Filename_UnLock(filename);
-		Exposure_Error_Number = 35;
-		sprintf(Exposure_Error_String,"Exposure_Save: Updating SERIES failed(%s,%d,%s).",filename,
+		save_data->Error_Number = 35;
+		sprintf(save_data->Error_String,"Exposure_Save: Updating SERIES failed(%s,%d,%s).",filename,
 			status,buff);
 		return FALSE;
 	}
 	/* RUNNUM */
-	ivalue = CCD_Fits_Filename_Multrun_Get();
+	ivalue = save_data->Multrun_Number;
 	retval = fits_update_key(fits_fp,TINT,"RUNNUM",&ivalue,NULL,&status);
 	if(retval)
 	{
@@ -1348,13 +1956,13 @@ static int Exposure_Save(void *buffer,size_t buffer_length,struct Fits_Header_St
 		fits_report_error(stderr,status);
 		fits_close_file(fits_fp,&status);
 		CCD_Fits_Filename_UnLock(filename);
-		Exposure_Error_Number = 45;
-		sprintf(Exposure_Error_String,"Exposure_Save: Updating RUNNUM failed(%s,%d,%s).",filename,
+		save_data->Error_Number = 45;
+		sprintf(save_data->Error_String,"Exposure_Save: Updating RUNNUM failed(%s,%d,%s).",filename,
 			status,buff);
 		return FALSE;
 	}
 	/* EXPNUM */
-	ivalue = CCD_Fits_Filename_Run_Get();
+	ivalue = save_data->Run_Number;
 	retval = fits_update_key(fits_fp,TINT,"EXPNUM",&ivalue,NULL,&status);
 	if(retval)
 	{
@@ -1362,8 +1970,8 @@ static int Exposure_Save(void *buffer,size_t buffer_length,struct Fits_Header_St
 		fits_report_error(stderr,status);
 		fits_close_file(fits_fp,&status);
 		CCD_Fits_Filename_UnLock(filename);
-		Exposure_Error_Number = 46;
-		sprintf(Exposure_Error_String,"Exposure_Save: Updating EXPNUM failed(%s,%d,%s).",filename,
+		save_data->Error_Number = 46;
+		sprintf(save_data->Error_String,"Exposure_Save: Updating EXPNUM failed(%s,%d,%s).",filename,
 			status,buff);
 		return FALSE;
 	}
@@ -1373,8 +1981,8 @@ static int Exposure_Save(void *buffer,size_t buffer_length,struct Fits_Header_St
 	{
 		fits_close_file(fits_fp,&status);
 		CCD_Fits_Filename_UnLock(filename);
-		Exposure_Error_Number = 36;
-		sprintf(Exposure_Error_String,"Exposure_Save: CCD_Temperature_Get_Cached_Temperature failed.");
+		save_data->Error_Number = 36;
+		sprintf(save_data->Error_String,"Exposure_Save: CCD_Temperature_Get_Cached_Temperature failed.");
 		return FALSE;
 	}
 	/* CCDATEMP */
@@ -1386,8 +1994,8 @@ static int Exposure_Save(void *buffer,size_t buffer_length,struct Fits_Header_St
 		fits_report_error(stderr,status);
 		fits_close_file(fits_fp,&status);
 		CCD_Fits_Filename_UnLock(filename);
-		Exposure_Error_Number = 37;
-		sprintf(Exposure_Error_String,"Exposure_Save: Updating actual temperature failed(%s,%d,%s).",
+		save_data->Error_Number = 37;
+		sprintf(save_data->Error_String,"Exposure_Save: Updating actual temperature failed(%s,%d,%s).",
 			filename,status,buff);
 		return FALSE;
 	}
@@ -1400,8 +2008,8 @@ static int Exposure_Save(void *buffer,size_t buffer_length,struct Fits_Header_St
 		fits_report_error(stderr,status);
 		fits_close_file(fits_fp,&status);
 		CCD_Fits_Filename_UnLock(filename);
-		Exposure_Error_Number = 38;
-		sprintf(Exposure_Error_String,"Exposure_Save: Updating temperature status failed(%s,%d,%s).",
+		save_data->Error_Number = 38;
+		sprintf(save_data->Error_String,"Exposure_Save: Updating temperature status failed(%s,%d,%s).",
 			filename,status,buff);
 		return FALSE;
 	}
@@ -1414,8 +2022,8 @@ static int Exposure_Save(void *buffer,size_t buffer_length,struct Fits_Header_St
 		fits_report_error(stderr,status);
 		fits_close_file(fits_fp,&status);
 		CCD_Fits_Filename_UnLock(filename);
-		Exposure_Error_Number = 39;
-		sprintf(Exposure_Error_String,"Exposure_Save: Updating TEMPDATE failed(%s,%d,%s).",filename,
+		save_data->Error_Number = 39;
+		sprintf(save_data->Error_String,"Exposure_Save: Updating TEMPDATE failed(%s,%d,%s).",filename,
 			status,buff);
 		return FALSE;
 	}
@@ -1424,8 +2032,8 @@ static int Exposure_Save(void *buffer,size_t buffer_length,struct Fits_Header_St
 	{
 		fits_close_file(fits_fp,&status);
 		CCD_Fits_Filename_UnLock(filename);
-		Exposure_Error_Number = 40;
-		sprintf(Exposure_Error_String,"Exposure_Save: CCD_Temperature_Target_Temperature_Get failed.");
+		save_data->Error_Number = 40;
+		sprintf(save_data->Error_String,"Exposure_Save: CCD_Temperature_Target_Temperature_Get failed.");
 		return FALSE;
 	}
 	/* CCDSTEMP */
@@ -1437,8 +2045,8 @@ static int Exposure_Save(void *buffer,size_t buffer_length,struct Fits_Header_St
 		fits_report_error(stderr,status);
 		fits_close_file(fits_fp,&status);
 		CCD_Fits_Filename_UnLock(filename);
-		Exposure_Error_Number = 41;
-		sprintf(Exposure_Error_String,"Exposure_Save: Updating target temperature CCDSTEMP failed(%s,%d,%s).",
+		save_data->Error_Number = 41;
+		sprintf(save_data->Error_String,"Exposure_Save: Updating target temperature CCDSTEMP failed(%s,%d,%s).",
 			filename,status,buff);
 		return FALSE;
 	}
@@ -1451,16 +2059,16 @@ static int Exposure_Save(void *buffer,size_t buffer_length,struct Fits_Header_St
 		fits_report_error(stderr,status);
 		fits_close_file(fits_fp,&status);
 		CCD_Fits_Filename_UnLock(filename);
-		Exposure_Error_Number = 42;
-		sprintf(Exposure_Error_String,"CCD_Exposure_Save: File close file failed(%s,%d,%s).",
+		save_data->Error_Number = 42;
+		sprintf(save_data->Error_String,"CCD_Exposure_Save: File close file failed(%s,%d,%s).",
 			filename,status,buff);
 		return FALSE;
 	}
 	/* remove lock file */
 	if(!CCD_Fits_Filename_UnLock(filename))
 	{
-		Exposure_Error_Number = 44;
-		sprintf(Exposure_Error_String,"Exposure_Save:Failed to lock '%s'.",filename);
+		save_data->Error_Number = 44;
+		sprintf(save_data->Error_String,"Exposure_Save:Failed to lock '%s'.",filename);
 		return FALSE;				
 	}
 #if LOGGING > 5
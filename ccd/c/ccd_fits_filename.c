@@ -39,6 +39,11 @@
 #include "ccd_global.h"
 
 /* hash defines */
+/**
+ * The filename of the multrun counter file, in the data directory. The '%c' is replaced by the instrument code.
+ * The file contains the date number and multrun number of the last multrun started.
+ */
+#define FITS_FILENAME_COUNTER_FILENAME	".%c_multrun_counter"
 
 /* structure declarations */
 /**
@@ -51,6 +56,10 @@
  * <dt>Current_Multrun_Number</dt> <dd>Current MULTRUN number.</dd>
  * <dt>Current_Run_Number</dt> <dd>Current Run number.</dd>
  * <dt>Current_Window_Number</dt> <dd>Current Window number.</dd>
+ * <dt>Counter_Filename</dt> <dd>The filename of the counter file, holding the date number and multrun number of the
+ *     last multrun.</dd>
+ * <dt>Counter_Date_Number</dt> <dd>The date number last written to (or read from) the counter file.</dd>
+ * <dt>Counter_Multrun_Number</dt> <dd>The multrun number last written to (or read from) the counter file.</dd>
  * </dl>
  * @see #CCD_GLOBAL_ERROR_STRING_LENGTH
  */
@@ -62,6 +71,9 @@ struct Fits_Filename_Struct
 	int Current_Multrun_Number;
 	int Current_Run_Number;
 	int Current_Window_Number;
+	char Counter_Filename[CCD_GLOBAL_ERROR_STRING_LENGTH];
+	int Counter_Date_Number;
+	int Counter_Multrun_Number;
 };
 
 /* internal data */
@@ -84,12 +96,16 @@ static char Fits_Filename_Error_String[CCD_GLOBAL_ERROR_STRING_LENGTH] = "";
  */
 static struct Fits_Filename_Struct Fits_Filename_Data = 
 {
-	"",CCD_FITS_FILENAME_DEFAULT_INSTRUMENT_CODE,0,0,0,0
+	"",CCD_FITS_FILENAME_DEFAULT_INSTRUMENT_CODE,0,0,0,0,
+	"",0,0
 };
 
 /* internal functions */
 static int Fits_Filename_Get_Date_Number(int *date_number);
+static int Fits_Filename_Directory_Scan(int current_date_number,int *current_multrun_number);
 static int Fits_Filename_File_Select(const struct dirent *entry);
+static int Fits_Filename_Counter_Load(int *date_number,int *multrun_number);
+static int Fits_Filename_Counter_Save(void);
 static int Fits_Filename_Lock_Filename_Get(char *filename,char *lock_filename);
 static int fexist(char *filename);
 
@@ -98,27 +114,22 @@ static int fexist(char *filename);
 ** ---------------------------------------------------------------------------- */
 /**
  * Initialise FITS filename data, using the given data directory and the current (astronomical) day of year.
- * Retrieves current FITS images in directory, find the one with the highest multrun number, and sets
- * the current multrun number to it.
+ * The last multrun number used is retrieved from the counter file in the data directory. If the counter file
+ * does not exist (or cannot be parsed), we retrieve the current FITS images in the directory, find the one with the
+ * highest multrun number, set the current multrun number to it, and create the counter file.
  * @param instrument_code A character describing which instrument code to associate with this camera, which appears in
  *        the resulting FITS filenames..
  * @param data_dir A string containing the directory name containing FITS images.
  * @return Returns TRUE if the routine succeeds and returns FALSE if an error occurs.
  * @see #Fits_Filename_Data
- * @see #Fits_Filename_File_Select
+ * @see #Fits_Filename_Counter_Load
+ * @see #Fits_Filename_Counter_Save
+ * @see #Fits_Filename_Directory_Scan
+ * @see #FITS_FILENAME_COUNTER_FILENAME
  */
 int CCD_Fits_Filename_Initialise(char instrument_code,char *data_dir)
 {
-	struct dirent **name_list = NULL;
-	int name_list_count,i,retval,date_number,multrun_number,fully_parsed;
-	char *chptr = NULL;
-	char inst_code[5] = "";
-	char exposure_type[5] = "";
-	char date_string[17] = "";
-	char multrun_string[9] = "";
-	char run_string[9] = "";
-	char window_string[5] = "";
-	char pipeline_string[5] = "";
+	int date_number,multrun_number;
 
 #if LOGGING > 1
 	CCD_Global_Log("ccd","ccd_fits_filename.c","CCD_Fits_Filename_Initialise",
@@ -130,7 +141,7 @@ int CCD_Fits_Filename_Initialise(char instrument_code,char *data_dir)
 		sprintf(Fits_Filename_Error_String,"CCD_Fits_Filename_Initialise:data_dir was NULL.");
 		return FALSE;
 	}
-	if(strlen(data_dir) > (CCD_GLOBAL_ERROR_STRING_LENGTH-1))
+	if(strlen(data_dir) > (CCD_GLOBAL_ERROR_STRING_LENGTH-(strlen(FITS_FILENAME_COUNTER_FILENAME)+2)))
 	{
 		Fits_Filename_Error_Number = 2;
 		sprintf(Fits_Filename_Error_String,"CCD_Fits_Filename_Initialise:data_dir was too long(%d).",
@@ -142,6 +153,8 @@ int CCD_Fits_Filename_Initialise(char instrument_code,char *data_dir)
 	Fits_Filename_Data.Instrument_Code = instrument_code;
 	/* setup data_dir */
 	strcpy(Fits_Filename_Data.Data_Dir,data_dir);
+	/* setup counter filename */
+	sprintf(Fits_Filename_Data.Counter_Filename,"%s/"FITS_FILENAME_COUNTER_FILENAME,data_dir,instrument_code);
 #if LOGGING > 5
 	CCD_Global_Log_Format("ccd","ccd_fits_filename.c","CCD_Fits_Filename_Initialise",
 			      LOG_VERBOSITY_VERY_VERBOSE,"FITS","Data Dir set to %s.",
@@ -156,119 +169,29 @@ int CCD_Fits_Filename_Initialise(char instrument_code,char *data_dir)
 #endif
 	Fits_Filename_Data.Current_Multrun_Number = 0;
 	Fits_Filename_Data.Current_Run_Number = 0;
-	name_list_count = scandir(Fits_Filename_Data.Data_Dir,&name_list,
-				  Fits_Filename_File_Select,alphasort);
-	for(i=0; i< name_list_count;i++)
+	/* retrieve the last multrun number from the counter file. Only scan the data directory if
+	** the counter file is missing or corrupt. */
+	if(Fits_Filename_Counter_Load(&date_number,&multrun_number))
 	{
-#if LOGGING > 9
+		Fits_Filename_Data.Counter_Date_Number = date_number;
+		Fits_Filename_Data.Counter_Multrun_Number = multrun_number;
+		if(date_number == Fits_Filename_Data.Current_Date_Number)
+			Fits_Filename_Data.Current_Multrun_Number = multrun_number;
+#if LOGGING > 5
 		CCD_Global_Log_Format("ccd","ccd_fits_filename.c","CCD_Fits_Filename_Initialise",
-				      LOG_VERBOSITY_VERY_VERBOSE,"FITS","Filename %d is %s.",i,name_list[i]->d_name);
-#endif
-		fully_parsed = FALSE;
-		chptr = strtok(name_list[i]->d_name,"_");
-		if(chptr != NULL)
-		{
-			strncpy(inst_code,chptr,4);
-			inst_code[4] = '\0';
-			chptr = strtok(NULL,"_");
-			if(chptr != NULL)
-			{
-				strncpy(exposure_type,chptr,4);
-				exposure_type[4] = '\0';
-				chptr = strtok(NULL,"_");
-				if(chptr != NULL)
-				{
-					strncpy(date_string,chptr,16);
-					date_string[16] = '\0';
-					chptr = strtok(NULL,"_");
-					if(chptr != NULL)
-					{
-						strncpy(multrun_string,chptr,8);
-						multrun_string[8] = '\0';
-						chptr = strtok(NULL,"_");
-						if(chptr != NULL)
-						{
-							strncpy(run_string,chptr,8);
-							run_string[8] = '\0';
-							chptr = strtok(NULL,"_");
-							if(chptr != NULL)
-							{
-								strncpy(window_string,chptr,4);
-								window_string[4] = '\0';
-								chptr = strtok(NULL,".");
-								if(chptr != NULL)
-								{
-									strncpy(pipeline_string,chptr,4);
-									pipeline_string[4] = '\0';
-									fully_parsed = TRUE;
-								}
-							}
-						}
-					}
-				}
-			}
-		}
-		if(fully_parsed)
-		{
-#if LOGGING > 9
-			CCD_Global_Log_Format("ccd","ccd_fits_filename.c","CCD_Fits_Filename_Initialise",
-					      LOG_VERBOSITY_VERY_VERBOSE,"FITS","Filename %s parsed OK.",
-					      name_list[i]->d_name);
-#endif
-			/* check filename is for the right instrument (camera_index) */
-			if(inst_code[0] == Fits_Filename_Data.Instrument_Code)
-			{
-				retval = sscanf(date_string,"%d",&date_number);
-#if LOGGING > 9
-				CCD_Global_Log_Format("ccd","ccd_fits_filename.c","CCD_Fits_Filename_Initialise",
-						      LOG_VERBOSITY_VERY_VERBOSE,"FITS",
-						      "Filename %s has date number %d.",
-						      name_list[i]->d_name,date_number);
-#endif
-				/* check filename has right date number */
-				if((retval == 1)&&
-				   (date_number == Fits_Filename_Data.Current_Date_Number))
-				{
-					retval = sscanf(multrun_string,"%d",&multrun_number);
-#if LOGGING > 9
-					CCD_Global_Log_Format("ccd","ccd_fits_filename.c",
-							      "CCD_Fits_Filename_Initialise",
-							      LOG_VERBOSITY_VERY_VERBOSE,"FITS",
-							      "Filename %s has multrun number %d.",
-							      name_list[i]->d_name,multrun_number);
-#endif
-					/* check if multrun number is highest yet found */
-					if((retval == 1)&&
-				       (multrun_number > Fits_Filename_Data.Current_Multrun_Number))
-					{
-						Fits_Filename_Data.Current_Multrun_Number = multrun_number;
-#if LOGGING > 9
-						CCD_Global_Log_Format("ccd","ccd_fits_filename.c",
-								      "CCD_Fits_Filename_Initialise",
-								      LOG_VERBOSITY_VERY_VERBOSE,"FITS",
-								      "Current multrun number now %d.",
-								      Fits_Filename_Data.Current_Multrun_Number);
+				      LOG_VERBOSITY_VERY_VERBOSE,"FITS","Counter file contains date number %d, "
+				      "multrun number %d: current multrun number now %d.",date_number,multrun_number,
+				      Fits_Filename_Data.Current_Multrun_Number);
 #endif
-					}/* end if multrun_number > Current_Multrun_Number */
-				}/* end if filename has right date number */
-			}/* end if instrument has right instrument code */
-		}/* end if fully_parsed */
-		else
-		{
-#if LOGGING > 9
-			CCD_Global_Log_Format("ccd","ccd_fits_filename.c","CCD_Fits_Filename_Initialise",
-					      LOG_VERBOSITY_VERY_VERBOSE,"FITS","Failed to parse filename %s: "
-					      "inst_code = %s,exposure_type = %s,date_string = %s,"
-					      "multrun_string = %s, run_string = %s, window_string = %s,"
-					      "pipeline_string = %s.",name_list[i]->d_name,inst_code,
-					      exposure_type,date_string,multrun_string,run_string,window_string,
-					      pipeline_string);
-#endif
-
-		}
-		free(name_list[i]);
 	}
-	free(name_list);
+	else
+	{
+		if(!Fits_Filename_Directory_Scan(Fits_Filename_Data.Current_Date_Number,
+						 &(Fits_Filename_Data.Current_Multrun_Number)))
+			return FALSE;
+		if(!Fits_Filename_Counter_Save())
+			return FALSE;
+	}
 	Fits_Filename_Data.Current_Run_Number = 1;
 	Fits_Filename_Data.Current_Window_Number = 1;
 #if LOGGING > 1
@@ -281,13 +204,20 @@ int CCD_Fits_Filename_Initialise(char instrument_code,char *data_dir)
 /**
  * Start a new Multrun. Increments Current Multrun number, unless date has changed since last multrun,
  * when the date is changed and multrun number set to 1. Current run and Window number reset to 1.
+ * The counter file is read first. If it does not contain what we last wrote to it (i.e. another process has
+ * started a multrun, or it has been edited or deleted), the data directory is re-scanned, and the highest
+ * multrun number found is used. The new multrun number is then written to the counter file, before any
+ * FITS images are created with it.
  * @return Returns TRUE if the routine succeeds and returns FALSE if an error occurs.
  * @see #Fits_Filename_Get_Date_Number
  * @see #Fits_Filename_Data
+ * @see #Fits_Filename_Counter_Load
+ * @see #Fits_Filename_Counter_Save
+ * @see #Fits_Filename_Directory_Scan
  */
 int CCD_Fits_Filename_Next_Multrun(void)
 {
-	int date_number;
+	int date_number,counter_date_number,counter_multrun_number,scan_multrun_number;
 
 	if(!Fits_Filename_Get_Date_Number(&date_number))
 		return FALSE;
@@ -297,10 +227,30 @@ int CCD_Fits_Filename_Next_Multrun(void)
 			return FALSE;
 		Fits_Filename_Data.Current_Multrun_Number = 0;/* incremented to 1 at end of routine */		
 	}
+	/* check the counter file agrees with the in-memory multrun number */
+	if((!Fits_Filename_Counter_Load(&counter_date_number,&counter_multrun_number))||
+	   (counter_date_number != Fits_Filename_Data.Counter_Date_Number)||
+	   (counter_multrun_number != Fits_Filename_Data.Counter_Multrun_Number))
+	{
+#if LOGGING > 1
+		CCD_Global_Log_Format("ccd","ccd_fits_filename.c","CCD_Fits_Filename_Next_Multrun",
+				      LOG_VERBOSITY_INTERMEDIATE,"FITS","Counter file %s does not match "
+				      "date number %d, multrun number %d: scanning data directory.",
+				      Fits_Filename_Data.Counter_Filename,Fits_Filename_Data.Counter_Date_Number,
+				      Fits_Filename_Data.Counter_Multrun_Number);
+#endif
+		scan_multrun_number = 0;
+		if(!Fits_Filename_Directory_Scan(Fits_Filename_Data.Current_Date_Number,&scan_multrun_number))
+			return FALSE;
+		if(scan_multrun_number > Fits_Filename_Data.Current_Multrun_Number)
+			Fits_Filename_Data.Current_Multrun_Number = scan_multrun_number;
+	}
 	Fits_Filename_Data.Current_Multrun_Number++;
 	/* this should get incremented to 1 before the filename is generated */
 	Fits_Filename_Data.Current_Run_Number = 0; 
 	Fits_Filename_Data.Current_Window_Number = 0;
+	if(!Fits_Filename_Counter_Save())
+		return FALSE;
 	return TRUE;
 }
 
@@ -637,6 +587,149 @@ static int Fits_Filename_Get_Date_Number(int *date_number)
 	return TRUE;
 }
 
+/**
+ * Scan the data directory for FITS images with the specified date number, and find the highest multrun number.
+ * @param current_date_number The date number of FITS images to look at.
+ * @param current_multrun_number The address of an integer. On entry, this should contain the lowest multrun
+ *        number to return. On return, it contains the highest multrun number found (if higher).
+ * @return Returns TRUE if the routine succeeds and returns FALSE if an error occurs.
+ * @see #Fits_Filename_Data
+ * @see #Fits_Filename_File_Select
+ */
+static int Fits_Filename_Directory_Scan(int current_date_number,int *current_multrun_number)
+{
+	struct dirent **name_list = NULL;
+	int name_list_count,i,retval,date_number,multrun_number,fully_parsed;
+	char *chptr = NULL;
+	char inst_code[5] = "";
+	char exposure_type[5] = "";
+	char date_string[17] = "";
+	char multrun_string[9] = "";
+	char run_string[9] = "";
+	char window_string[5] = "";
+	char pipeline_string[5] = "";
+
+#if LOGGING > 1
+	CCD_Global_Log_Format("ccd","ccd_fits_filename.c","Fits_Filename_Directory_Scan",
+			      LOG_VERBOSITY_INTERMEDIATE,"FITS","Scanning %s for date number %d.",
+			      Fits_Filename_Data.Data_Dir,current_date_number);
+#endif
+	name_list_count = scandir(Fits_Filename_Data.Data_Dir,&name_list,
+				  Fits_Filename_File_Select,alphasort);
+	for(i=0; i< name_list_count;i++)
+	{
+#if LOGGING > 9
+		CCD_Global_Log_Format("ccd","ccd_fits_filename.c","Fits_Filename_Directory_Scan",
+				      LOG_VERBOSITY_VERY_VERBOSE,"FITS","Filename %d is %s.",i,name_list[i]->d_name);
+#endif
+		fully_parsed = FALSE;
+		chptr = strtok(name_list[i]->d_name,"_");
+		if(chptr != NULL)
+		{
+			strncpy(inst_code,chptr,4);
+			inst_code[4] = '\0';
+			chptr = strtok(NULL,"_");
+			if(chptr != NULL)
+			{
+				strncpy(exposure_type,chptr,4);
+				exposure_type[4] = '\0';
+				chptr = strtok(NULL,"_");
+				if(chptr != NULL)
+				{
+					strncpy(date_string,chptr,16);
+					date_string[16] = '\0';
+					chptr = strtok(NULL,"_");
+					if(chptr != NULL)
+					{
+						strncpy(multrun_string,chptr,8);
+						multrun_string[8] = '\0';
+						chptr = strtok(NULL,"_");
+						if(chptr != NULL)
+						{
+							strncpy(run_string,chptr,8);
+							run_string[8] = '\0';
+							chptr = strtok(NULL,"_");
+							if(chptr != NULL)
+							{
+								strncpy(window_string,chptr,4);
+								window_string[4] = '\0';
+								chptr = strtok(NULL,".");
+								if(chptr != NULL)
+								{
+									strncpy(pipeline_string,chptr,4);
+									pipeline_string[4] = '\0';
+									fully_parsed = TRUE;
+								}
+							}
+						}
+					}
+				}
+			}
+		}
+		if(fully_parsed)
+		{
+#if LOGGING > 9
+			CCD_Global_Log_Format("ccd","ccd_fits_filename.c","Fits_Filename_Directory_Scan",
+					      LOG_VERBOSITY_VERY_VERBOSE,"FITS","Filename %s parsed OK.",
+					      name_list[i]->d_name);
+#endif
+			/* check filename is for the right instrument (camera_index) */
+			if(inst_code[0] == Fits_Filename_Data.Instrument_Code)
+			{
+				retval = sscanf(date_string,"%d",&date_number);
+#if LOGGING > 9
+				CCD_Global_Log_Format("ccd","ccd_fits_filename.c","Fits_Filename_Directory_Scan",
+						      LOG_VERBOSITY_VERY_VERBOSE,"FITS",
+						      "Filename %s has date number %d.",
+						      name_list[i]->d_name,date_number);
+#endif
+				/* check filename has right date number */
+				if((retval == 1)&&
+				   (date_number == current_date_number))
+				{
+					retval = sscanf(multrun_string,"%d",&multrun_number);
+#if LOGGING > 9
+					CCD_Global_Log_Format("ccd","ccd_fits_filename.c",
+							      "Fits_Filename_Directory_Scan",
+							      LOG_VERBOSITY_VERY_VERBOSE,"FITS",
+							      "Filename %s has multrun number %d.",
+							      name_list[i]->d_name,multrun_number);
+#endif
+					/* check if multrun number is highest yet found */
+					if((retval == 1)&&
+				       (multrun_number > (*current_multrun_number)))
+					{
+						(*current_multrun_number) = multrun_number;
+#if LOGGING > 9
+						CCD_Global_Log_Format("ccd","ccd_fits_filename.c",
+								      "Fits_Filename_Directory_Scan",
+								      LOG_VERBOSITY_VERY_VERBOSE,"FITS",
+								      "Current multrun number now %d.",
+								      (*current_multrun_number));
+#endif
+					}/* end if multrun_number > Current_Multrun_Number */
+				}/* end if filename has right date number */
+			}/* end if instrument has right instrument code */
+		}/* end if fully_parsed */
+		else
+		{
+#if LOGGING > 9
+			CCD_Global_Log_Format("ccd","ccd_fits_filename.c","Fits_Filename_Directory_Scan",
+					      LOG_VERBOSITY_VERY_VERBOSE,"FITS","Failed to parse filename %s: "
+					      "inst_code = %s,exposure_type = %s,date_string = %s,"
+					      "multrun_string = %s, run_string = %s, window_string = %s,"
+					      "pipeline_string = %s.",name_list[i]->d_name,inst_code,
+					      exposure_type,date_string,multrun_string,run_string,window_string,
+					      pipeline_string);
+#endif
+
+		}
+		free(name_list[i]);
+	}
+	free(name_list);
+	return TRUE;
+}
+
 /**
  * Select routine for scandir. Selects files ending in 0.fits.
  * @param entry The directory entry.
@@ -694,6 +787,89 @@ static int Fits_Filename_Lock_Filename_Get(char *filename,char *lock_filename)
 	return TRUE;
 }
 
+/**
+ * Read the date number and multrun number of the last multrun from the counter file.
+ * @param date_number The address of an integer, on success filled in with the date number.
+ * @param multrun_number The address of an integer, on success filled in with the multrun number.
+ * @return Returns TRUE if the counter file was read, and FALSE if it does not exist or could not be parsed.
+ *         Fits_Filename_Error_Number is not set on failure, as the caller falls back to scanning the data directory.
+ * @see #Fits_Filename_Data
+ */
+static int Fits_Filename_Counter_Load(int *date_number,int *multrun_number)
+{
+	FILE *fp = NULL;
+	int retval;
+
+	fp = fopen(Fits_Filename_Data.Counter_Filename,"r");
+	if(fp == NULL)
+		return FALSE;
+	retval = fscanf(fp,"%d %d",date_number,multrun_number);
+	fclose(fp);
+	if(retval != 2)
+	{
+#if LOGGING > 1
+		CCD_Global_Log_Format("ccd","ccd_fits_filename.c","Fits_Filename_Counter_Load",
+				      LOG_VERBOSITY_INTERMEDIATE,"FITS","Failed to parse counter file %s.",
+				      Fits_Filename_Data.Counter_Filename);
+#endif
+		return FALSE;
+	}
+	return TRUE;
+}
+
+/**
+ * Write the current date number and multrun number to the counter file. To make this crash safe, the numbers are
+ * written to a temporary file, which is flushed to disk and then renamed over the counter file. The counter file
+ * therefore always contains either the old or the new numbers.
+ * @return Returns TRUE if the routine succeeds and returns FALSE if an error occurs.
+ * @see #Fits_Filename_Data
+ */
+static int Fits_Filename_Counter_Save(void)
+{
+	char tmp_filename[CCD_GLOBAL_ERROR_STRING_LENGTH+5];
+	FILE *fp = NULL;
+	int retval;
+
+	sprintf(tmp_filename,"%s.tmp",Fits_Filename_Data.Counter_Filename);
+	fp = fopen(tmp_filename,"w");
+	if(fp == NULL)
+	{
+		Fits_Filename_Error_Number = 25;
+		sprintf(Fits_Filename_Error_String,"Fits_Filename_Counter_Save:Failed to open '%s'(%d).",
+			tmp_filename,errno);
+		return FALSE;
+	}
+	fprintf(fp,"%d %d\n",Fits_Filename_Data.Current_Date_Number,Fits_Filename_Data.Current_Multrun_Number);
+	retval = fflush(fp);
+	if(retval == 0)
+		retval = fsync(fileno(fp));
+	if(retval != 0)
+	{
+		fclose(fp);
+		Fits_Filename_Error_Number = 26;
+		sprintf(Fits_Filename_Error_String,"Fits_Filename_Counter_Save:Failed to write '%s'(%d).",
+			tmp_filename,errno);
+		return FALSE;
+	}
+	if(fclose(fp) != 0)
+	{
+		Fits_Filename_Error_Number = 27;
+		sprintf(Fits_Filename_Error_String,"Fits_Filename_Counter_Save:Failed to close '%s'(%d).",
+			tmp_filename,errno);
+		return FALSE;
+	}
+	if(rename(tmp_filename,Fits_Filename_Data.Counter_Filename) != 0)
+	{
+		Fits_Filename_Error_Number = 28;
+		sprintf(Fits_Filename_Error_String,"Fits_Filename_Counter_Save:Failed to rename '%s' to '%s'(%d).",
+			tmp_filename,Fits_Filename_Data.Counter_Filename,errno);
+		return FALSE;
+	}
+	Fits_Filename_Data.Counter_Date_Number = Fits_Filename_Data.Current_Date_Number;
+	Fits_Filename_Data.Counter_Multrun_Number = Fits_Filename_Data.Current_Multrun_Number;
+	return TRUE;
+}
+
 /**
  * Return whether the specified filename exists or not.
  * @param filename A string representing the filename to test.
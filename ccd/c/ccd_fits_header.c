@@ -631,6 +631,73 @@ int CCD_Fits_Header_Add_Units(struct Fits_Header_Struct *header,char *keyword,ch
 	return TRUE;
 }
 
+/**
+ * Routine to merge all the cards in one FITS header list into another. Cards in source_header whose keyword
+ * already exists in header replace the existing card (value, comment and units), otherwise they are
+ * appended. Enough memory for all the source cards is allocated before any cards are merged, so either
+ * all of the source cards are merged, or (on failure) header is left unchanged.
+ * @param header The address of a Fits_Header_Struct structure to merge the cards into.
+ * @param source_header The address of a Fits_Header_Struct structure containing the cards to merge.
+ * @return The routine returns TRUE on success, and FALSE on failure. On failure, Fits_Header_Error_Number
+ *         and Fits_Header_Error_String should be filled in with suitable values.
+ * @see #Fits_Header_Add_Card
+ * @see ccd_global.html#CCD_Global_Log
+ * @see #Fits_Header_Error_Number
+ * @see #Fits_Header_Error_String
+ */
+int CCD_Fits_Header_Merge(struct Fits_Header_Struct *header,struct Fits_Header_Struct *source_header)
+{
+	struct Fits_Header_Card_Struct *new_card_list = NULL;
+	int required_card_count,i;
+
+#if LOGGING > 1
+	CCD_Global_Log("ccd","ccd_fits_header.c","CCD_Fits_Header_Merge",
+			       LOG_VERBOSITY_INTERMEDIATE,"FITS","started.");
+#endif
+	if((header == NULL)||(source_header == NULL))
+	{
+		Fits_Header_Error_Number = 29;
+		sprintf(Fits_Header_Error_String,"CCD_Fits_Header_Merge:Header was NULL.");
+		return FALSE;
+	}
+	/* allocate enough memory for the worst case (no keywords in common) up front,
+	** so Fits_Header_Add_Card never needs to reallocate whilst we are merging */
+	required_card_count = header->Card_Count+source_header->Card_Count+1;
+	if(required_card_count > header->Allocated_Card_Count)
+	{
+		if(header->Card_List == NULL)
+		{
+			new_card_list = (struct Fits_Header_Card_Struct *)malloc(required_card_count*
+									  sizeof(struct Fits_Header_Card_Struct));
+		}
+		else
+		{
+			new_card_list = (struct Fits_Header_Card_Struct *)realloc(header->Card_List,
+						   required_card_count*sizeof(struct Fits_Header_Card_Struct));
+		}
+		if(new_card_list == NULL)
+		{
+			Fits_Header_Error_Number = 30;
+			sprintf(Fits_Header_Error_String,"CCD_Fits_Header_Merge:"
+				"Failed to reallocate card list (%d,%d).",required_card_count,
+				header->Allocated_Card_Count);
+			return FALSE;
+		}
+		header->Card_List = new_card_list;
+		header->Allocated_Card_Count = required_card_count;
+	}
+	for(i = 0; i < source_header->Card_Count; i++)
+	{
+		if(!Fits_Header_Add_Card(header,source_header->Card_List[i]))
+			return FALSE;
+	}
+#if LOGGING > 1
+	CCD_Global_Log("ccd","ccd_fits_header.c","CCD_Fits_Header_Merge",
+			       LOG_VERBOSITY_INTERMEDIATE,"FITS","finished.");
+#endif
+	return TRUE;
+}
+
 /**
  * Routine to free an allocated FITS header list.
  * @param header The address of a Fits_Header_Struct structure to modify.
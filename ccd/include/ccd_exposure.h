@@ -83,6 +83,12 @@ extern int CCD_Exposure_Expose(int open_shutter,struct timespec start_time,int e
 			       struct Fits_Header_Struct header,char *filename);
 extern int CCD_Exposure_Bias(struct Fits_Header_Struct header,char *filename);
 extern int CCD_Exposure_Abort(void);
+extern int CCD_Exposure_Background_Save_Set(int background_save);
+extern int CCD_Exposure_Background_Save_Get(void);
+extern int CCD_Exposure_Save_Is_Pending(void);
+extern int CCD_Exposure_Save_Wait(void);
+extern int CCD_Exposure_Last_Frame_Get(int bin,unsigned short **buffer,size_t *buffer_length,int *ncols,int *nrows,
+				       int *multrun_number,int *run_number);
 extern enum CCD_EXPOSURE_STATUS CCD_Exposure_Status_Get(void);
 extern int CCD_Exposure_Accumulation_Get(void);
 extern int CCD_Exposure_Series_Get(void);
@@ -93,6 +99,7 @@ extern char* CCD_Exposure_Status_To_String(enum CCD_EXPOSURE_STATUS status);
 /* utility routines now used by ccd_exposure and ccd_multi_exposure */
 extern int CCD_Exposure_Flip_X(int ncols,int nrows,unsigned short *exposure_data);
 extern int CCD_Exposure_Flip_Y(int ncols,int nrows,unsigned short *exposure_data);
+extern int CCD_Exposure_Flip(int ncols,int nrows,int flip_x,int flip_y,unsigned short *exposure_data);
 extern void CCD_Exposure_TimeSpec_To_Date_String(struct timespec time,char *time_string);
 extern void CCD_Exposure_TimeSpec_To_Date_Obs_String(struct timespec time,char *time_string);
 extern void CCD_Exposure_TimeSpec_To_UtStart_String(struct timespec time,char *time_string);
@@ -36,6 +36,7 @@ extern int CCD_Fits_Header_Add_Float(struct Fits_Header_Struct *header,char *key
 extern int CCD_Fits_Header_Add_Logical(struct Fits_Header_Struct *header,char *keyword,int value,char *comment);
 extern int CCD_Fits_Header_Add_Comment(struct Fits_Header_Struct *header,char *keyword,char *comment);
 extern int CCD_Fits_Header_Add_Units(struct Fits_Header_Struct *header,char *keyword,char *units);
+extern int CCD_Fits_Header_Merge(struct Fits_Header_Struct *header,struct Fits_Header_Struct *source_header);
 extern int CCD_Fits_Header_Free(struct Fits_Header_Struct *header);
 
 extern int CCD_Fits_Header_Write_To_Fits(struct Fits_Header_Struct header,fitsfile *fits_fp);
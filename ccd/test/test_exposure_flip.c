@@ -0,0 +1,349 @@
+/* test_exposure_flip.c
+** $HeadURL$
+** Test and benchmark the image flip code.
+*/
+/**
+ * This program tests CCD_Exposure_Flip against the original per-pixel flip loops (one full image pass per
+ * flipped axis), checking both give the same image, and reports how long each takes to flip an image
+ * of the specified size. It does not talk to the camera.
+ * @author $Author$
+ * @version $Revision$
+ */
+#include <stdio.h>
+#include <string.h>
+#include <stdlib.h>
+#include <time.h>
+#include <sys/time.h>
+#include "ccd_global.h"
+#include "ccd_exposure.h"
+
+/* hash definitions */
+/**
+ * Default number of columns in the test image.
+ */
+#define DEFAULT_NCOLS		(1024)
+/**
+ * Default number of rows in the test image.
+ */
+#define DEFAULT_NROWS		(255)
+/**
+ * Default number of times each flip is timed.
+ */
+#define DEFAULT_LOOP_COUNT	(100)
+
+/* internal variables */
+/**
+ * Revision control system identifier.
+ */
+static char rcsid[] = "$Id$";
+/**
+ * The number of columns in the test image.
+ * @see #DEFAULT_NCOLS
+ */
+static int NCols = DEFAULT_NCOLS;
+/**
+ * The number of rows in the test image.
+ * @see #DEFAULT_NROWS
+ */
+static int NRows = DEFAULT_NROWS;
+/**
+ * The number of times each flip is timed.
+ * @see #DEFAULT_LOOP_COUNT
+ */
+static int Loop_Count = DEFAULT_LOOP_COUNT;
+
+/* internal routines */
+static int Test_Flip(int flip_x,int flip_y,unsigned short *original_data,unsigned short *reference_data,
+		     unsigned short *test_data);
+static void Reference_Flip_X(int ncols,int nrows,unsigned short *exposure_data);
+static void Reference_Flip_Y(int ncols,int nrows,unsigned short *exposure_data);
+static double Time_Difference(struct timeval start_time,struct timeval end_time);
+static int Parse_Arguments(int argc, char *argv[]);
+static void Help(void);
+
+/**
+ * Main program.
+ * @param argc The number of arguments to the program.
+ * @param argv An array of argument strings.
+ * @return This function returns 0 if the program succeeds, and a positive integer if it fails.
+ * @see #NCols
+ * @see #NRows
+ * @see #Test_Flip
+ */
+int main(int argc, char *argv[])
+{
+	unsigned short *original_data = NULL;
+	unsigned short *reference_data = NULL;
+	unsigned short *test_data = NULL;
+	int i,retval;
+
+/* parse arguments */
+	fprintf(stdout,"Parsing Arguments.\n");
+	if(!Parse_Arguments(argc,argv))
+		return 1;
+	CCD_Global_Set_Log_Handler_Function(CCD_Global_Log_Handler_Stdout);
+	fprintf(stdout,"Image size %d x %d, %d loops.\n",NCols,NRows,Loop_Count);
+	original_data = (unsigned short *)malloc(NCols*NRows*sizeof(unsigned short));
+	reference_data = (unsigned short *)malloc(NCols*NRows*sizeof(unsigned short));
+	test_data = (unsigned short *)malloc(NCols*NRows*sizeof(unsigned short));
+	if((original_data == NULL)||(reference_data == NULL)||(test_data == NULL))
+	{
+		fprintf(stderr,"test_exposure_flip:Failed to allocate image data.\n");
+		return 2;
+	}
+	/* every pixel gets a different value, so any misplaced pixel is detected */
+	for(i=0;i<(NCols*NRows);i++)
+		original_data[i] = (unsigned short)(i%65536);
+	retval = Test_Flip(TRUE,FALSE,original_data,reference_data,test_data);
+	if(retval == TRUE)
+		retval = Test_Flip(FALSE,TRUE,original_data,reference_data,test_data);
+	if(retval == TRUE)
+		retval = Test_Flip(TRUE,TRUE,original_data,reference_data,test_data);
+	free(original_data);
+	free(reference_data);
+	free(test_data);
+	if(retval == FALSE)
+		return 3;
+	fprintf(stdout,"test_exposure_flip completed.\n");
+	return 0;
+}
+
+/* -----------------------------------------------------------------------------
+**      Internal routines
+** ----------------------------------------------------------------------------- */
+/**
+ * Flip a copy of the original image with the reference flip routines and with CCD_Exposure_Flip,
+ * timing each, and check the flipped images are the same. The average time per flip is printed for each.
+ * @param flip_x A boolean, whether to flip in the X direction.
+ * @param flip_y A boolean, whether to flip in the Y direction.
+ * @param original_data The unflipped image.
+ * @param reference_data Space for the image flipped by the reference routines.
+ * @param test_data Space for the image flipped by CCD_Exposure_Flip.
+ * @return TRUE if the flipped images are the same, FALSE if they differ or CCD_Exposure_Flip failed.
+ * @see #NCols
+ * @see #NRows
+ * @see #Loop_Count
+ * @see #Reference_Flip_X
+ * @see #Reference_Flip_Y
+ * @see #Time_Difference
+ * @see ../cdocs/ccd_exposure.html#CCD_Exposure_Flip
+ */
+static int Test_Flip(int flip_x,int flip_y,unsigned short *original_data,unsigned short *reference_data,
+		     unsigned short *test_data)
+{
+	struct timeval start_time,end_time;
+	double reference_time,test_time;
+	size_t image_length;
+	int i;
+
+	image_length = NCols*NRows*sizeof(unsigned short);
+	memcpy(reference_data,original_data,image_length);
+	gettimeofday(&start_time,NULL);
+	/* both flips are done Loop_Count times, so the two images should end up the same */
+	for(i=0;i<Loop_Count;i++)
+	{
+		if(flip_x)
+			Reference_Flip_X(NCols,NRows,reference_data);
+		if(flip_y)
+			Reference_Flip_Y(NCols,NRows,reference_data);
+	}
+	gettimeofday(&end_time,NULL);
+	reference_time = Time_Difference(start_time,end_time);
+	memcpy(test_data,original_data,image_length);
+	gettimeofday(&start_time,NULL);
+	for(i=0;i<Loop_Count;i++)
+	{
+		if(!CCD_Exposure_Flip(NCols,NRows,flip_x,flip_y,test_data))
+		{
+			CCD_Global_Error();
+			return FALSE;
+		}
+	}
+	gettimeofday(&end_time,NULL);
+	test_time = Time_Difference(start_time,end_time);
+	if(memcmp(reference_data,test_data,image_length) != 0)
+	{
+		fprintf(stderr,"Test_Flip:flip_x = %d,flip_y = %d:Flipped images differ.\n",flip_x,flip_y);
+		return FALSE;
+	}
+	fprintf(stdout,"flip_x = %d,flip_y = %d:reference %.3f ms/flip, CCD_Exposure_Flip %.3f ms/flip.\n",
+		flip_x,flip_y,(reference_time*1000.0)/((double)Loop_Count),(test_time*1000.0)/((double)Loop_Count));
+	return TRUE;
+}
+
+/**
+ * The original per-pixel X flip, used as the reference to test CCD_Exposure_Flip against.
+ * @param ncols The number of columns in the image.
+ * @param nrows The number of rows in the image.
+ * @param exposure_data The image data, flipped in place.
+ */
+static void Reference_Flip_X(int ncols,int nrows,unsigned short *exposure_data)
+{
+	int x,y;
+	unsigned short int tempval;
+
+	for(y=0;y<nrows;y++)
+	{
+		for(x=0;x<(ncols/2);x++)
+		{
+			tempval = *(exposure_data+(y*ncols)+x);
+			*(exposure_data+(y*ncols)+x) = *(exposure_data+(y*ncols)+(ncols-(x+1)));
+			*(exposure_data+(y*ncols)+(ncols-(x+1))) = tempval;
+		}
+	}
+}
+
+/**
+ * The original per-pixel Y flip, used as the reference to test CCD_Exposure_Flip against.
+ * @param ncols The number of columns in the image.
+ * @param nrows The number of rows in the image.
+ * @param exposure_data The image data, flipped in place.
+ */
+static void Reference_Flip_Y(int ncols,int nrows,unsigned short *exposure_data)
+{
+	int x,y;
+	unsigned short int tempval;
+
+	for(y=0;y<(nrows/2);y++)
+	{
+		for(x=0;x<ncols;x++)
+		{
+			tempval = *(exposure_data+(y*ncols)+x);
+			*(exposure_data+(y*ncols)+x) = *(exposure_data+(((nrows-(y+1))*ncols)+x));
+			*(exposure_data+(((nrows-(y+1))*ncols)+x)) = tempval;
+		}
+	}
+}
+
+/**
+ * Return the difference between two times.
+ * @param start_time The start time.
+ * @param end_time The end time.
+ * @return The difference, in seconds.
+ */
+static double Time_Difference(struct timeval start_time,struct timeval end_time)
+{
+	return ((double)(end_time.tv_sec-start_time.tv_sec))+
+		(((double)(end_time.tv_usec-start_time.tv_usec))/1000000.0);
+}
+
+/**
+ * Help routine.
+ */
+static void Help(void)
+{
+	fprintf(stdout,"Test Exposure Flip:Help.\n");
+	fprintf(stdout,"This program checks CCD_Exposure_Flip against the original flip code, and times both.\n");
+	fprintf(stdout,"test_exposure_flip \n");
+	fprintf(stdout,"\t[-c[olumns] <n>][-r[ows] <n>][-lo[ops] <n>]\n");
+	fprintf(stdout,"\t[-l[og_level] <verbosity>][-h[elp]]\n");
+	fprintf(stdout,"\n");
+	fprintf(stdout,"\t-help prints out this message and stops the program.\n");
+	fprintf(stdout,"\n");
+	fprintf(stdout,"\t<n> should be a positive integer.\n");
+}
+
+/**
+ * Routine to parse command line arguments.
+ * @param argc The number of arguments sent to the program.
+ * @param argv An array of argument strings.
+ * @see #Help
+ * @see #NCols
+ * @see #NRows
+ * @see #Loop_Count
+ * @see ../cdocs/ccd_global.html#CCD_Global_Set_Log_Filter_Function
+ * @see ../cdocs/ccd_global.html#CCD_Global_Set_Log_Filter_Level
+ */
+static int Parse_Arguments(int argc, char *argv[])
+{
+	int i,retval,log_level;
+
+	for(i=1;i<argc;i++)
+	{
+		if((strcmp(argv[i],"-columns")==0)||(strcmp(argv[i],"-c")==0))
+		{
+			if((i+1)<argc)
+			{
+				retval = sscanf(argv[i+1],"%d",&NCols);
+				if((retval != 1)||(NCols < 1))
+				{
+					fprintf(stderr,"Parse_Arguments:Parsing columns %s failed.\n",argv[i+1]);
+					return FALSE;
+				}
+				i++;
+			}
+			else
+			{
+				fprintf(stderr,"Parse_Arguments:columns requires a number.\n");
+				return FALSE;
+			}
+		}
+		else if((strcmp(argv[i],"-help")==0)||(strcmp(argv[i],"-h")==0))
+		{
+			Help();
+			exit(0);
+		}
+		else if((strcmp(argv[i],"-log_level")==0)||(strcmp(argv[i],"-l")==0))
+		{
+			if((i+1)<argc)
+			{
+				retval = sscanf(argv[i+1],"%d",&log_level);
+				if(retval != 1)
+				{
+					fprintf(stderr,"Parse_Arguments:Parsing log level %s failed.\n",argv[i+1]);
+					return FALSE;
+				}
+				CCD_Global_Set_Log_Filter_Function(CCD_Global_Log_Filter_Level_Absolute);
+				CCD_Global_Set_Log_Filter_Level(log_level);
+				i++;
+			}
+			else
+			{
+				fprintf(stderr,"Parse_Arguments:Log Level requires a level.\n");
+				return FALSE;
+			}
+		}
+		else if((strcmp(argv[i],"-loops")==0)||(strcmp(argv[i],"-lo")==0))
+		{
+			if((i+1)<argc)
+			{
+				retval = sscanf(argv[i+1],"%d",&Loop_Count);
+				if((retval != 1)||(Loop_Count < 1))
+				{
+					fprintf(stderr,"Parse_Arguments:Parsing loops %s failed.\n",argv[i+1]);
+					return FALSE;
+				}
+				i++;
+			}
+			else
+			{
+				fprintf(stderr,"Parse_Arguments:loops requires a number.\n");
+				return FALSE;
+			}
+		}
+		else if((strcmp(argv[i],"-rows")==0)||(strcmp(argv[i],"-r")==0))
+		{
+			if((i+1)<argc)
+			{
+				retval = sscanf(argv[i+1],"%d",&NRows);
+				if((retval != 1)||(NRows < 1))
+				{
+					fprintf(stderr,"Parse_Arguments:Parsing rows %s failed.\n",argv[i+1]);
+					return FALSE;
+				}
+				i++;
+			}
+			else
+			{
+				fprintf(stderr,"Parse_Arguments:rows requires a number.\n");
+				return FALSE;
+			}
+		}
+		else
+		{
+			fprintf(stderr,"Parse_Arguments:argument '%s' not recognized.\n",argv[i]);
+			return FALSE;
+		}
+	}
+	return TRUE;
+}
@@ -4,14 +4,19 @@
 #ifndef SPRAT_COMMAND_H
 #define SPRAT_COMMAND_H
 
+#include <stddef.h> /* size_t */
+#include "sprat_multrun.h" /* Sprat_Multrun_Frame_Callback_T */
+
 extern int Sprat_Command_Abort(char *command_string,char **reply_string);
 extern int Sprat_Command_Bias(char *command_string,char **reply_string);
 extern int Sprat_Command_Config(char *command_string,char **reply_string);
 extern int Sprat_Command_Dark(char *command_string,char **reply_string);
 extern int Sprat_Command_Expose(char *command_string,char **reply_string);
+extern int Sprat_Command_Fetch(char *command_string,char **reply_string,void **buffer_ptr,size_t *buffer_length);
 extern int Sprat_Command_MultBias(char *command_string,char **reply_string);
 extern int Sprat_Command_MultDark(char *command_string,char **reply_string);
-extern int Sprat_Command_Multrun(char *command_string,char **reply_string);
+extern int Sprat_Command_Multrun(char *command_string,Sprat_Multrun_Frame_Callback_T frame_callback,
+				 void *frame_callback_data,char **reply_string);
 extern int Sprat_Command_Fits_Header(char *command_string,char **reply_string);
 extern int Sprat_Command_Status(char *command_string,char **reply_string);
 extern int Sprat_Command_Temperature(char *command_string,char **reply_string);
@@ -9,6 +9,13 @@
 #include "ccd_fits_header.h" /* Fits_Header_Struct */
 #include "ccd_fits_filename.h" /* CCD_FITS_FILENAME_EXPOSURE_TYPE */
 
+/**
+ * Type of a function called by Sprat_Multrun_Multrun each time a frame has been saved.
+ * The parameters are the callback data passed to Sprat_Multrun_Multrun, the index of the frame in the multrun,
+ * and the FITS filename the frame was saved to. The function should return TRUE on success and FALSE on failure.
+ */
+typedef int (*Sprat_Multrun_Frame_Callback_T)(void *callback_data,int index,char *filename);
+
 extern int Sprat_Multrun_Dimensions_Set(int ncols,int nrows,int xbin,int ybin,
 					int use_window,struct CCD_Setup_Window_Struct window);
 extern int Sprat_Multrun_Bias(int exposure_count,int *multrun_number,char **filename_list[],int *filename_count);
@@ -16,7 +23,8 @@ extern int Sprat_Multrun_Dark(int exposure_length,int exposure_count,int *multru
 			      char **filename_list[],int *filename_count);
 extern int Sprat_Multrun_Multrun(int exposure_length,int exposure_count,
 				 enum CCD_FITS_FILENAME_EXPOSURE_TYPE exposure_type,int *multrun_number,
-				 char **filename_list[],int *filename_count);
+				 char **filename_list[],int *filename_count,
+				 Sprat_Multrun_Frame_Callback_T frame_callback,void *frame_callback_data);
 extern int Sprat_Multrun_Fits_Header_Get(struct Fits_Header_Struct **fits_header);
 extern int Sprat_Multrun_Is_Active(void);
 extern int Sprat_Multrun_Get_Unbinned_NCols(void);
@@ -27,4 +35,5 @@ extern int Sprat_Multrun_Bin_X_Get(void);
 extern int Sprat_Multrun_Bin_Y_Get(void);
 extern int Sprat_Multrun_Exposure_Index_Get(void);
 extern int Sprat_Multrun_Exposure_Count_Get(void);
+extern int Sprat_Multrun_Filename_Get(int index,char *filename,int filename_length);
 #endif
@@ -64,11 +64,14 @@ public class ABORTImplementation extends HardwareImplementation implements JMSCo
 	 * <li>We send a C layer abort command.
 	 * <li>We get the current command thread using status.getCurrentThread.
 	 * <li>If the current thread is non-null, we call setAbortProcessCommand to tell the thread it is 
-	 *     being aborted. When the command implemented in the running thread next calls 'testAbort' this will
+	 *     being aborted. This fires the thread's abort token immediately: any CCD command the thread is waiting
+	 *     for has it's connection closed, any mechanism move it is waiting for is cancelled (the move loop is woken
+	 *     and stops re-querying the mechanism), and any ISS/DpRt sub-command wait is cancelled.
+	 *     When the command implemented in the running thread next calls 'testAbort' this will
 	 *     inform the command it has been aborted.
 	 * <li>We send the DpRt an abort command.
 	 * </ul>
-	 * There is no mechanism to abort a mechanism move.
+	 * Note a cancelled mechanism move stops waiting for the mechanism, but the Arduino does not stop the move.
 	 * @param command The abort command.
 	 * @return An object of class ABORT_DONE is returned.
 	 * @see #sendAbortCommand
@@ -76,6 +79,7 @@ public class ABORTImplementation extends HardwareImplementation implements JMSCo
 	 * @see Sprat#sendDpRtCommand
 	 * @see SpratStatus#getCurrentThread
 	 * @see SpratTCPServerConnectionThread#setAbortProcessCommand
+	 * @see SpratTCPServerConnectionThread#getAbortToken
 	 */
 	public COMMAND_DONE processCommand(COMMAND command)
 	{
@@ -125,6 +125,27 @@ public class ACQUIREImplementation extends FITSImplementation implements JMSComm
 	 * Record time of start of exposure.
 	 */
 	protected long timeStartExposure = 0L;
+	/**
+	 * If true, and the target is moving, offsets are computed to put the target where it is predicted to be
+	 * at the mid-point of the <b>next</b> acquisition exposure, rather than where it was at the mid-point of the
+	 * frame just analysed. Loaded from the <b>sprat.acquire.moving.predictive</b> property.
+	 * @see #predictNextMidExposureTime
+	 */
+	protected boolean movingPredictive = false;
+	/**
+	 * The time (System.currentTimeMillis) the last telescope offset was started, or 0 if no offset has been
+	 * started since the last exposure.
+	 * @see #offsetToExposureStartTime
+	 */
+	protected long timeOffsetStart = 0L;
+	/**
+	 * The measured time, in milliseconds, between starting the last telescope offset and the following
+	 * acquisition exposure starting (offset, settle, FITS header gathering). Used to predict the mid-point
+	 * of the next exposure. This is kept between commands, as this implementation instance is reused.
+	 * @see #timeOffsetStart
+	 * @see #predictNextMidExposureTime
+	 */
+	protected long offsetToExposureStartTime = 0L;
 	/** 
 	 * Record time of end of exposure.
 	 */
@@ -147,6 +168,17 @@ public class ACQUIREImplementation extends FITSImplementation implements JMSComm
 	 * and exit with an error.
 	 */
 	protected int maximumOffsetCount = 10;
+	/**
+	 * The properties version the configuration was last loaded at, or -1 if it has not been loaded.
+	 * @see #loadConfig
+	 * @see SpratStatus#getPropertiesVersion
+	 */
+	protected int loadedConfigPropertiesVersion = -1;
+	/**
+	 * The acquisition mode the configuration was last loaded for.
+	 * @see #loadConfig
+	 */
+	protected int loadedConfigAcquisitionMode = TelescopeConfig.ACQUIRE_MODE_NONE;
 	/**
 	 * The list of FITS filenames returned by the multbias command.
 	 */
@@ -155,6 +187,54 @@ public class ACQUIREImplementation extends FITSImplementation implements JMSComm
 	 * The multrun number used for FITS filenames for this command.
 	 */
 	protected int multrunNumber;
+	/**
+	 * Whether "brightest" mode acquisitions find the brightest object in the frame in process, rather than
+	 * sending the frame to the DpRt to reduce.
+	 * @see #centroidFrame
+	 */
+	protected boolean localCentroid = false;
+	/**
+	 * The object used to find the brightest object in "brightest" mode acquisition frames, when
+	 * localCentroid is true. This is kept between frames so it's work arrays are re-used.
+	 * @see #localCentroid
+	 */
+	protected SpratCentroider centroider = null;
+	/**
+	 * The command used to fetch the pixels of each acquisition frame from the C layer, when localCentroid
+	 * is true. This is kept between frames so it's image buffer is re-used.
+	 * @see #localCentroid
+	 */
+	protected FetchLastFrameCommand fetchLastFrameCommand = null;
+	/**
+	 * The World Coordinate System of the current reduced acquisition frame, used by "WCS" mode acquisitions.
+	 * This is kept for the duration of the acquisition, and closed when it finishes.
+	 * @see #computeRADecOffset
+	 * @see #doAcquisitionWCS
+	 */
+	protected SpratWCSContext wcsContext = new SpratWCSContext();
+	/**
+	 * Work array of RAs (in decimal degrees) passed to/from wcsContext batch transforms.
+	 * These arrays hold two points, as computeRADecOffset can transform a moving target's position
+	 * and it's led position in one call.
+	 * @see #wcsContext
+	 * @see #computeRADecOffset
+	 */
+	protected double wcsRADegs[] = new double[2];
+	/**
+	 * Work array of declinations (in decimal degrees) passed to/from wcsContext batch transforms.
+	 * @see #wcsContext
+	 */
+	protected double wcsDecDegs[] = new double[2];
+	/**
+	 * Work array of X (binned) pixel positions passed to/from wcsContext batch transforms.
+	 * @see #wcsContext
+	 */
+	protected double wcsXPixel[] = new double[2];
+	/**
+	 * Work array of Y (binned) pixel positions passed to/from wcsContext batch transforms.
+	 * @see #wcsContext
+	 */
+	protected double wcsYPixel[] = new double[2];
 
 	/**
 	 * Constructor.
@@ -220,6 +300,7 @@ public class ACQUIREImplementation extends FITSImplementation implements JMSComm
 	 * @see #doConfig
 	 * @see #doAcquisitionWCS
 	 * @see #doAcquisitionBrightest
+	 * @see #closeWCSContext
 	 * @see #sendBasicAck
 	 */
 	public COMMAND_DONE processCommand(COMMAND command)
@@ -336,6 +417,11 @@ public class ACQUIREImplementation extends FITSImplementation implements JMSComm
 			acquireDone.setSuccessful(false);
 			return acquireDone;
 		}
+		finally
+		{
+			// free the last frame's WCS
+			closeWCSContext();
+		}
 		acquireDone.setErrorNum(SpratConstants.SPRAT_ERROR_CODE_NO_ERROR);
 		acquireDone.setErrorString("");
 		acquireDone.setSuccessful(true);
@@ -350,18 +436,42 @@ public class ACQUIREImplementation extends FITSImplementation implements JMSComm
 	 *     <b>sprat.acquire.exposure_length.wcs</b> depending on <i>acquisitionMode</i></dd>
 	 * <dt>frameOverhead</dt><dd>Loaded from the <b>sprat.acquire.frame_overhead</b></dd>
 	 * <dt>maximumOffsetCount</dt><dd>Loaded from the <b>sprat.acquire.offset.count.maximum</b></dd>
+	 * <dt>localCentroid</dt><dd>Loaded from the <b>sprat.acquire.brightest.centroid.local</b>, for
+	 *     "brightest" mode only</dd>
+	 * <dt>centroider</dt><dd>Created if localCentroid is true, and configured from 
+	 *     <b>sprat.acquire.brightest.centroid.threshold_sigma</b> and 
+	 *     <b>sprat.acquire.brightest.centroid.pixel_count.minimum</b></dd>
+	 * <dt>movingPredictive</dt><dd>Loaded from the <b>sprat.acquire.moving.predictive</b> property.</dd>
 	 * </dl>
+	 * The configuration is only re-loaded if the properties have been reloaded, or the acquisition mode has
+	 * changed, since it was last loaded.
 	 * @exception NumberFormatException Thrown if the specified property is not a valid number.
 	 * @see #bin
 	 * @see #exposureLength
 	 * @see #status
 	 * @see #frameOverhead
 	 * @see #maximumOffsetCount
+	 * @see #localCentroid
+	 * @see #centroider
 	 * @see #acquisitionMode
+	 * @see #loadedConfigPropertiesVersion
+	 * @see #loadedConfigAcquisitionMode
+	 * @see #movingPredictive
 	 * @see SpratStatus#getPropertyInteger
+	 * @see SpratStatus#getPropertyDouble
+	 * @see SpratStatus#getPropertyBoolean
+	 * @see SpratStatus#getPropertiesVersion
+	 * @see SpratCentroider#setThresholdSigma
+	 * @see SpratCentroider#setMinimumPixelCount
 	 */
 	protected void loadConfig() throws NumberFormatException
 	{
+		// this implementation instance is reused between commands, so if the properties have not been
+		// reloaded since the configuration was last loaded, and it was loaded for the same
+		// acquisition mode, it is still valid
+		if((loadedConfigPropertiesVersion == status.getPropertiesVersion())&&
+		   (loadedConfigAcquisitionMode == acquisitionMode))
+			return;
 		bin = status.getPropertyInteger("sprat.acquire.bin");
 		if(acquisitionMode == TelescopeConfig.ACQUIRE_MODE_WCS)
 			exposureLength = status.getPropertyInteger("sprat.acquire.exposure_length.wcs");
@@ -369,6 +479,21 @@ public class ACQUIREImplementation extends FITSImplementation implements JMSComm
 			exposureLength = status.getPropertyInteger("sprat.acquire.exposure_length.brightest");
 		frameOverhead = status.getPropertyInteger("sprat.acquire.frame_overhead");
 		maximumOffsetCount = status.getPropertyInteger("sprat.acquire.offset.count.maximum");
+		movingPredictive = status.getPropertyBoolean("sprat.acquire.moving.predictive");
+		localCentroid = false;
+		if(acquisitionMode == TelescopeConfig.ACQUIRE_MODE_BRIGHTEST)
+			localCentroid = status.getPropertyBoolean("sprat.acquire.brightest.centroid.local");
+		if(localCentroid)
+		{
+			if(centroider == null)
+				centroider = new SpratCentroider();
+			centroider.setThresholdSigma(status.getPropertyDouble(
+						     "sprat.acquire.brightest.centroid.threshold_sigma"));
+			centroider.setMinimumPixelCount(status.getPropertyInteger(
+						     "sprat.acquire.brightest.centroid.pixel_count.minimum"));
+		}
+		loadedConfigPropertiesVersion = status.getPropertiesVersion();
+		loadedConfigAcquisitionMode = acquisitionMode;
 	}
 
 	/**
@@ -459,12 +584,14 @@ public class ACQUIREImplementation extends FITSImplementation implements JMSComm
 	 * @see #serverConnectionThread
 	 * @see Sprat#sendISSCommand
 	 * @see ngat.message.ISS_INST.OFFSET_RA_DEC
+	 * @see #timeOffsetStart
 	 */
 	protected void doRADecOffset(String id,int raOffset,int decOffset) throws Exception
 	{
 		OFFSET_RA_DEC offsetRaDecCommand = null;
 		INST_TO_ISS_DONE instToISSDone = null;
 
+		timeOffsetStart = System.currentTimeMillis();
 		// log telescope offset
 		sprat.log(Logging.VERBOSITY_VERBOSE,"Attempting telescope position offset RA:"+raOffset+
 			  ":DEC:"+decOffset+".");
@@ -497,6 +624,7 @@ public class ACQUIREImplementation extends FITSImplementation implements JMSComm
 	 * @see SpratStatus#getPropertyDouble
 	 * @see Sprat#sendISSCommand
 	 * @see ngat.message.ISS_INST.OFFSET_X_Y
+	 * @see #timeOffsetStart
 	 */
 	protected void doXYPixelOffset(String id,double xPixelOffset,double yPixelOffset) throws Exception
 	{
@@ -505,6 +633,7 @@ public class ACQUIREImplementation extends FITSImplementation implements JMSComm
 		double plateScale;
 		float xArcsecOffset,yArcsecOffset;
 		
+		timeOffsetStart = System.currentTimeMillis();
 		// log telescope offset
 		sprat.log(Logging.VERBOSITY_VERBOSE,"Attempting telescope position XY Pixel offset x(binned pixels):"+
 			  xPixelOffset+":y(binned pixels):"+yPixelOffset+".");
@@ -577,6 +706,8 @@ public class ACQUIREImplementation extends FITSImplementation implements JMSComm
 		decOffset = 0.0;
 		// keep track of how many times we attempt to offset
 		offsetCount = 0;
+		timeOffsetStart = 0L;
+		offsetToExposureStartTime = 0L;
 		// start loop
 		done = false;
 		while(done == false)
@@ -633,8 +764,9 @@ public class ACQUIREImplementation extends FITSImplementation implements JMSComm
 	 * <li><b>sendBasicAck</b> is called to ensure the command does not time out during an exposure being taken.
 	 * <li><b>doFrame</b> is called to take an acquisition frame.
 	 * <li>An instance of ACQUIRE_ACK is sent back to the client using <b>sendAcquireAck</b>.
-	 * <li><b>reduceExpose</b> is called to pass the frame to the Real Time Data Pipeline for processing.
-	 *     WCS fitting is <b>NOT</b> attempted here.
+	 * <li>If <b>localCentroid</b> is true, <b>centroidFrame</b> is called to find the brightest object in
+	 *     the frame in process. Otherwise <b>reduceExpose</b> is called to pass the frame to the Real Time
+	 *     Data Pipeline for processing. WCS fitting is <b>NOT</b> attempted here.
 	 * <li><b>testAbort</b> is called to see if this command implementation has been aborted.
 	 * <li>We call <b>computeXYPixelOffset</b> to check whether we are in the correct position, 
 	 *     and calculate a new offset to apply if necessary.
@@ -660,6 +792,8 @@ public class ACQUIREImplementation extends FITSImplementation implements JMSComm
 	 * @see #sendBasicAck
 	 * @see #sendAcquireAck
 	 * @see #reduceExpose
+	 * @see #localCentroid
+	 * @see #centroidFrame
 	 */
 	protected void doAcquisitionBrightest(ACQUIRE acquireCommand,ACQUIRE_DONE acquireDone) throws 
 		Exception
@@ -674,6 +808,8 @@ public class ACQUIREImplementation extends FITSImplementation implements JMSComm
 		yPixelOffset = 0.0;
 		// keep track of how many times we attempt to offset
 		offsetCount = 0;
+		timeOffsetStart = 0L;
+		offsetToExposureStartTime = 0L;
 		// start loop
 		done = false;
 		while(done == false)
@@ -689,8 +825,12 @@ public class ACQUIREImplementation extends FITSImplementation implements JMSComm
 			// send Acquire ACK with filename back to client
 			// time to complete is reduction time, we will send another ACK after reduceCalibrate
 			sendAcquireAck(acquireCommand.getId(),frameOverhead,filename);
-			// Call pipeline to reduce data. Do NOT WCS fit.
-			reduceExpose(acquireCommand.getId(),filename,false);
+			// Find the brightest object, either in process or by calling the pipeline to reduce data.
+			// Do NOT WCS fit.
+			if(localCentroid)
+				centroidFrame(acquireCommand.getId(),filename);
+			else
+				reduceExpose(acquireCommand.getId(),filename,false);
 			// Test abort status.
 			if(testAbort(acquireCommand,acquireDone) == true)
 			{
@@ -777,6 +917,13 @@ public class ACQUIREImplementation extends FITSImplementation implements JMSComm
 		
 		// do exposure, record actual start and end times
 		timeStartExposure = System.currentTimeMillis();
+		// measure how long it took from starting the last offset to starting this exposure,
+		// this is used to predict where a moving target will be in the next frame
+		if(timeOffsetStart > 0L)
+		{
+			offsetToExposureStartTime = timeStartExposure-timeOffsetStart;
+			timeOffsetStart = 0L;
+		}
 		filename = sendMultrunCommand(exposureLength);
 		timeEndExposure = System.currentTimeMillis();
 		// Test abort status.
@@ -823,8 +970,8 @@ public class ACQUIREImplementation extends FITSImplementation implements JMSComm
 		sprat.log(Logging.VERBOSITY_INTERMEDIATE,"sendMultrunCommand:hostname = "+ccdCLayerHostname+
 			   " :port number = "+ccdCLayerPortNumber+".");
 		command.setCommand(exposureLength,1,MultrunCommand.EXPOSURE_TYPE_ACQUIRE);
-		// actually send the command to the C layer
-		command.sendCommand();
+		// actually send the command to the C layer, cancelling it if this command is aborted
+		sendCCDCommand(command);
 		// check the parsed reply
 		if(command.getParsedReplyOK() == false)
 		{
@@ -988,29 +1135,154 @@ public class ACQUIREImplementation extends FITSImplementation implements JMSComm
 		}
 	}
 
+	/**
+	 * Find the brightest object in the acquisition frame just taken, without sending it to the DpRt.
+	 * The frame's pixels are fetched from the C layer's memory using the "fetch last frame" command,
+	 * and the centroider finds the brightest object in them. brightestObjectXPixel and brightestObjectYPixel
+	 * are set to it's centroid, and reducedFITSFilename is set to the (unreduced) frame filename.
+	 * An ACQUIRE_DP_ACK is sent to the client with the object's details, as the DpRt reduction would. The seeing
+	 * is estimated from the object's FWHM, the photometricity and sky brightness are not measured and are sent as 0.
+	 * @param id The identifier of the ACQUIRE command.
+	 * @param filename The FITS filename of the frame just taken.
+	 * @exception Exception Thrown if fetching the frame fails, the fetched frame is not from the multrun just taken,
+	 *            or no object is found in the frame.
+	 * @see #localCentroid
+	 * @see #centroider
+	 * @see #fetchLastFrameCommand
+	 * @see #multrunNumber
+	 * @see #bin
+	 * @see #reducedFITSFilename
+	 * @see #brightestObjectXPixel
+	 * @see #brightestObjectYPixel
+	 * @see #frameOverhead
+	 * @see #sendAcquireDpAck
+	 * @see HardwareImplementation#ccdCLayerHostname
+	 * @see HardwareImplementation#ccdCLayerPortNumber
+	 * @see SpratCentroider#findBrightest
+	 * @see ngat.sprat.ccd.command.FetchLastFrameCommand
+	 */
+	protected void centroidFrame(String id,String filename) throws Exception
+	{
+		double plateScale;
+		int returnCode;
+		String errorString = null;
+
+		if(fetchLastFrameCommand == null)
+			fetchLastFrameCommand = new FetchLastFrameCommand();
+		fetchLastFrameCommand.setAddress(ccdCLayerHostname);
+		fetchLastFrameCommand.setPortNumber(ccdCLayerPortNumber);
+		fetchLastFrameCommand.setCommand();
+		fetchLastFrameCommand.sendCommand();
+		if(fetchLastFrameCommand.getParsedReplyOK() == false)
+		{
+			returnCode = fetchLastFrameCommand.getReturnCode();
+			errorString = fetchLastFrameCommand.getParsedReply();
+			throw new Exception(this.getClass().getName()+":ACQUIRE:"+id+
+					    ":centroidFrame:Fetch last frame failed with return code "+returnCode+
+					    " and error string:"+errorString);
+		}
+		if(fetchLastFrameCommand.getMultrunNumber() != multrunNumber)
+		{
+			throw new Exception(this.getClass().getName()+":ACQUIRE:"+id+
+					    ":centroidFrame:Fetched frame is from multrun "+
+					    fetchLastFrameCommand.getMultrunNumber()+" rather than "+multrunNumber+".");
+		}
+		if(centroider.findBrightest(fetchLastFrameCommand.getShortBuffer(),fetchLastFrameCommand.getNCols(),
+					    fetchLastFrameCommand.getNRows()) == false)
+		{
+			throw new Exception(this.getClass().getName()+":ACQUIRE:"+id+
+					    ":centroidFrame:No object found in "+filename+" (background "+
+					    centroider.getBackground()+", noise "+centroider.getNoise()+").");
+		}
+		reducedFITSFilename = filename;
+		brightestObjectXPixel = centroider.getXCentroid();
+		brightestObjectYPixel = centroider.getYCentroid();
+		sprat.log(Logging.VERBOSITY_VERBOSE,"Command:"+id+":centroidFrame:Brightest of "+
+			  centroider.getObjectCount()+" objects at ("+brightestObjectXPixel+","+
+			  brightestObjectYPixel+") with counts "+centroider.getCounts()+", peak "+
+			  centroider.getPeak()+", FWHM "+centroider.getFWHM()+" pixels.");
+		plateScale = status.getPropertyDouble("sprat.fits.value.CCDSCALE."+bin);
+		sendAcquireDpAck(id,frameOverhead,filename,(float)(centroider.getFWHM()*plateScale),
+				 (float)(centroider.getCounts()),(float)brightestObjectXPixel,(float)brightestObjectYPixel,
+				 0.0f,0.0f,centroider.getSaturated());
+	}
+
+	/**
+	 * Free the WCS of the last reduced frame held in wcsContext. A failure to free it is logged and
+	 * otherwise ignored, so it cannot hide the result (or the error) of the acquisition.
+	 * @see #wcsContext
+	 * @see SpratWCSContext#close
+	 */
+	protected void closeWCSContext()
+	{
+		try
+		{
+			wcsContext.close();
+		}
+		catch(Exception e)
+		{
+			sprat.error(this.getClass().getName()+":closeWCSContext:Failed to free WCS:",e);
+		}
+	}
+
+	/**
+	 * Predict when the mid-point of the next acquisition exposure will be, if an offset is started now.
+	 * This uses the measured offsetToExposureStartTime from the last offset, so it accounts for the
+	 * telescope offset/settle time and the overheads of starting the next frame.
+	 * @return The predicted time, in milliseconds since the epoch.
+	 * @see #offsetToExposureStartTime
+	 * @see #exposureLength
+	 */
+	protected long predictNextMidExposureTime()
+	{
+		return System.currentTimeMillis()+offsetToExposureStartTime+(((long)exposureLength)/2L);
+	}
+
+	/**
+	 * Get how far ahead of the frame just analysed a moving target's offset should lead it. This is the time
+	 * from the mid-point of that frame to the predicted mid-point of the next frame (taken after the
+	 * offset we are about to send), if the target is moving and movingPredictive is set, and zero otherwise.
+	 * @return The lead time, in milliseconds.
+	 * @see #moving
+	 * @see #movingPredictive
+	 * @see #timeStartExposure
+	 * @see #exposureLength
+	 * @see #predictNextMidExposureTime
+	 */
+	protected long getMovingTargetLeadTime()
+	{
+		if(moving && movingPredictive)
+			return predictNextMidExposureTime()-(timeStartExposure+(((long)exposureLength)/2L));
+		return 0L;
+	}
+
 	/**
 	 * Compute the offset needed to get the specified RA and Dec on the specified pixel.
 	 * <ul>
-	 * <li>We call getWCSFITS to get a WCSTools handle for the reduced filename.
-	 * <li>We call wcsToPixel to find the X,Y binned pixel position of the target RA/Dec (for debugging
-	 *     purposes only). If the target is moving there is more debugging printed.
-	 * <li>We call pixelToWCS with the <b>binned</b> acquisition pixel position to find what RA/Dec
+	 * <li>We open the reduced filename in wcsContext, which reads it's WCS (once per frame).
+	 * <li>We call worldToPixel to find the X,Y binned pixel position of the target RA/Dec (for debugging
+	 *     purposes only). If the target is moving there is more debugging printed, and if the offset should
+	 *     lead it, it's led position is transformed in the same call.
+	 * <li>We call pixelToWorld with the <b>binned</b> acquisition pixel position to find what RA/Dec
 	 *     is at the target pixel location.
 	 * <li>We convert this RA/Dec to radians from the returned degrees.
-	 * <li>We free the WCSTools handle.
 	 * <li>We calculate the difference between the acuisition RA/Dec and the current target pixel RA/Dec
-	 *     to find the offset needed (in radians).
+	 *     to find the offset needed (in radians). If the target is moving, the acquisition RA/Dec is moved
+	 *     on to the mid-point of the frame just analysed.
 	 * <li>The offset is converted into arcseconds.
 	 * <li>We check whether the hypoteneuse of the offset is less than acquireThreshold 
 	 *     i.e. are we close enough.
 	 * <li>If we are close enough we return true.
 	 * <li>If we are <b>not</b> close enough we add the new offset to offsetRA and offsetDec, ready to
 	 *     send in the next OFFSET_RA_DEC command (assuming consecutive OFFSET_RA_DEC are not cumulative).
+	 *     If the target is moving, the distance it will move in the time returned by getMovingTargetLeadTime
+	 *     is added as well, so the offset leads the target. This is not used for the threshold test above.
 	 * </ul>
 	 * @return The method returns true if acquisition has been successful, i.e. the difference between the
 	 *         RA/Dec at the target pixel position, and the acquisition RA/Dec is less than  acquireThreshold
 	 *         arcseconds. Otherwise false is returned.
-	 * @exception Exception Thrown if the WCSTools methods fail (getWCSFITS,wcsfree), or binning was zero.
+	 * @exception Exception Thrown if the WCS of the reduced file cannot be read or transformed,
+	 *            or binning was zero.
 	 * @see #reducedFITSFilename
 	 * @see #raOffset
 	 * @see #decOffset
@@ -1022,23 +1294,25 @@ public class ACQUIREImplementation extends FITSImplementation implements JMSComm
 	 * @see #acquireDecString
 	 * @see #acquireThreshold
 	 * @see #moving
+	 * @see #movingPredictive
+	 * @see #getMovingTargetLeadTime
 	 * @see #rateTime
 	 * @see #raRateRadPerSec
 	 * @see #acquireDecString
 	 * @see #timeStartExposure
-	 * @see ngat.astrometry.WCSTools#getWCSFITS
-	 * @see ngat.astrometry.WCSTools#wcsToPixel
-	 * @see ngat.astrometry.WCSTools#pixelToWCS
-	 * @see ngat.astrometry.WCSTools#wcsfree
+	 * @see #wcsContext
+	 * @see SpratWCSContext#open
+	 * @see SpratWCSContext#worldToPixel
+	 * @see SpratWCSContext#pixelToWorld
 	 */
 	protected boolean computeRADecOffset() throws Exception
 	{
-		WCSToolsWorldCoorHandle handle = null;
-		WCSToolsCoordinate coordinate = null;
 		double raRads,decRads,offsetRARads,offsetDecRads,offsetRADegs,
-			offsetRAArcSecs,offsetDecArcSecs,distance;
+			offsetRAArcSecs,offsetDecArcSecs,distance,leadRAArcSecs,leadDecArcSecs;
 		String raString = null;
 		String decString = null;
+		long timeElapsed,leadTime;
+		int count;
 		boolean done;
 
 		// check binning is non-zero (division by zero
@@ -1046,64 +1320,74 @@ public class ACQUIREImplementation extends FITSImplementation implements JMSComm
 			throw new Exception(this.getClass().getName()+":computeRADecOffset:bin was zero.");
 		// are we close enough yet?
 		done = false;
-		handle = WCSTools.getWCSFITS(reducedFITSFilename,3);
+		// time from when the rates were valid to the mid-exposure of the frame just taken
+		timeElapsed = timeStartExposure+(((long)exposureLength)/2L)-rateTime;
+		// how far ahead of that the offset should lead a moving target
+		leadTime = getMovingTargetLeadTime();
+		// read the reduced frame's WCS, this is kept in wcsContext until the acquisition finishes
+		wcsContext.open(reducedFITSFilename);
 		try
 		{
-			try
+			// debug only - get pixel of Target
+			acquireRAString = Position.formatHMSString(acquireRARads,":");
+			acquireDecString = Position.formatDMSString(acquireDecRads,":");
+			sprat.log(Logging.VERBOSITY_VERBOSE,
+				  ":computeRADecOffset: Target original position: at T=0.0s: "+
+				  acquireRAString+", "+acquireDecString);
+			double checkRARads = acquireRARads;
+			double checkDecRads = acquireDecRads;
+			if (moving) 
 			{
-				// debug only - get pixel of Target
-				acquireRAString = Position.formatHMSString(acquireRARads,":");
-				acquireDecString = Position.formatDMSString(acquireDecRads,":");
-				sprat.log(Logging.VERBOSITY_VERBOSE,
-					  ":computeRADecOffset: Target original position: at T=0.0s: "+
-					  acquireRAString+", "+acquireDecString);
-				double checkRARads = acquireRARads;
-				double checkDecRads = acquireDecRads;
-				long timeElapsed = timeStartExposure - rateTime;
-				if (moving) 
-				{
-					// Add offset = rate(rad/sec) * timediff to mid-exposure from start (sec)
-					checkRARads =  acquireRARads + raRateRadPerSec*((double)timeStartExposure + 
-						       (double)exposureLength/2.0 - (double)rateTime)/1000.0;
-					checkDecRads = acquireDecRads + decRateRadPerSec*((double)timeStartExposure + 
-						       (double)exposureLength/2.0 - (double)rateTime)/1000.0;
-					acquireRAString = Position.formatHMSString(checkRARads,":");
-					acquireDecString = Position.formatDMSString(checkDecRads,":");
-					sprat.log(Logging.VERBOSITY_VERBOSE,
-					      ":computeRADecOffset: Moving target position mid-exposure at T="+
-					      ((double)timeElapsed/1000.0)+"s: "+acquireRAString+", "+
-						  acquireDecString);
-				}
-				coordinate = WCSTools.wcsToPixel(handle,checkRARads*180.0/Math.PI,
-								 checkDecRads*180.0/Math.PI);
+				// Add offset = rate(rad/sec) * timediff to mid-exposure from start (sec)
+				checkRARads =  acquireRARads + raRateRadPerSec*((double)timeElapsed)/1000.0;
+				checkDecRads = acquireDecRads + decRateRadPerSec*((double)timeElapsed)/1000.0;
+				acquireRAString = Position.formatHMSString(checkRARads,":");
+				acquireDecString = Position.formatDMSString(checkDecRads,":");
 				sprat.log(Logging.VERBOSITY_VERBOSE,
-					  ":computeRADecOffset:Target Position at mid-exposure at T=:"+
-					  ((double)timeElapsed/1000.0)+"s: "+acquireRAString+","+acquireDecString+
-					  ") currently at binned pixel position : X:"+
-					  coordinate.getXCoordinate()+":Y:"+coordinate.getYCoordinate()+".");
+				      ":computeRADecOffset: Moving target position mid-exposure at T="+
+				      ((double)timeElapsed/1000.0)+"s: "+acquireRAString+", "+
+					  acquireDecString);
 			}
-			catch(Exception e)
+			wcsRADegs[0] = checkRARads*180.0/Math.PI;
+			wcsDecDegs[0] = checkDecRads*180.0/Math.PI;
+			count = 1;
+			// if leading a moving target, also transform where it will be at the mid-point of the next frame
+			if(leadTime != 0L)
+			{
+				wcsRADegs[1] = (checkRARads + raRateRadPerSec*((double)leadTime)/1000.0)*180.0/Math.PI;
+				wcsDecDegs[1] = (checkDecRads + decRateRadPerSec*((double)leadTime)/1000.0)*180.0/Math.PI;
+				count = 2;
+			}
+			wcsContext.worldToPixel(wcsRADegs,wcsDecDegs,wcsXPixel,wcsYPixel,count);
+			sprat.log(Logging.VERBOSITY_VERBOSE,
+				  ":computeRADecOffset:Target Position at mid-exposure at T=:"+
+				  ((double)timeElapsed/1000.0)+"s: "+acquireRAString+","+acquireDecString+
+				  ") currently at binned pixel position : X:"+
+				  wcsXPixel[0]+":Y:"+wcsYPixel[0]+".");
+			if(count > 1)
 			{
 				sprat.log(Logging.VERBOSITY_VERBOSE,
-					  ":computeRADecOffset:Could not compute pixel of Target Position:"+
-					  acquireRAString+","+acquireDecString+", this is a non fatal error:"+e);
-				sprat.error(this.getClass().getName()+
-					    ":computeRADecOffset:Could not compute pixel of Target Position"+
-					    acquireRAString+","+acquireDecString+":Non fatal error:",e);
+					  ":computeRADecOffset:Moving target predicted mid-exposure of next frame at T=:"+
+					  ((double)(timeElapsed+leadTime)/1000.0)+"s: binned pixel position : X:"+
+					  wcsXPixel[1]+":Y:"+wcsYPixel[1]+".");
 			}
-			// get RA/Dec at target pixel.
-			coordinate = WCSTools.pixelToWCS(handle,acquireXPixel/bin,acquireYPixel/bin);
-			// convert results from decimal degrees to radians
-			raRads = coordinate.getXCoordinate()*Math.PI/180.0;
-			decRads = coordinate.getYCoordinate()*Math.PI/180.0;
 		}
 		catch(Exception e)
 		{
-			WCSTools.wcsFree(handle);
-			throw e;
+			sprat.log(Logging.VERBOSITY_VERBOSE,
+				  ":computeRADecOffset:Could not compute pixel of Target Position:"+
+				  acquireRAString+","+acquireDecString+", this is a non fatal error:"+e);
+			sprat.error(this.getClass().getName()+
+				    ":computeRADecOffset:Could not compute pixel of Target Position"+
+				    acquireRAString+","+acquireDecString+":Non fatal error:",e);
 		}
-		// free wcstools handle
-		WCSTools.wcsFree(handle);
+		// get RA/Dec at target pixel.
+		wcsXPixel[0] = acquireXPixel/bin;
+		wcsYPixel[0] = acquireYPixel/bin;
+		wcsContext.pixelToWorld(wcsXPixel,wcsYPixel,wcsRADegs,wcsDecDegs,1);
+		// convert results from decimal degrees to radians
+		raRads = wcsRADegs[0]*Math.PI/180.0;
+		decRads = wcsDecDegs[0]*Math.PI/180.0;
 		// string for debug
 		raString = Position.formatHMSString(raRads,":");
 		decString = Position.formatDMSString(decRads,":");
@@ -1115,8 +1399,7 @@ public class ACQUIREImplementation extends FITSImplementation implements JMSComm
 		// try to allow for RA wrap
 		if (moving) 
 		{
-			offsetRARads = acquireRARads + raRateRadPerSec*((double)timeStartExposure + 
-				       (double)exposureLength/2.0 - (double)rateTime)/1000.0 - raRads;
+			offsetRARads = acquireRARads + raRateRadPerSec*((double)timeElapsed)/1000.0 - raRads;
 		}
 		else
 			offsetRARads = acquireRARads-raRads;     
@@ -1128,8 +1411,7 @@ public class ACQUIREImplementation extends FITSImplementation implements JMSComm
 		offsetRARads = offsetRARads*Math.cos(decRads);
 		if(moving)
 		{
-			offsetDecRads = acquireDecRads + decRateRadPerSec*((double)timeStartExposure + 
-					(double)exposureLength/2.0 - (double)rateTime)/1000.0 - decRads;
+			offsetDecRads = acquireDecRads + decRateRadPerSec*((double)timeElapsed)/1000.0 - decRads;
 		}
 		else
 			offsetDecRads = acquireDecRads-decRads;
@@ -1161,6 +1443,17 @@ public class ACQUIREImplementation extends FITSImplementation implements JMSComm
 			// OFFSET_RA_DEC is non cumulative, therefore add new offset onto the current offset.
 			raOffset += offsetRAArcSecs;
 			decOffset += offsetDecArcSecs;
+			// lead a moving target to where it will be at the mid-point of the next frame
+			if(leadTime != 0L)
+			{
+				leadRAArcSecs = raRateRadPerSec*(((double)leadTime)/1000.0)*Math.cos(decRads)*
+					(180.0/Math.PI)*3600.0;
+				leadDecArcSecs = decRateRadPerSec*(((double)leadTime)/1000.0)*(180.0/Math.PI)*3600.0;
+				raOffset += leadRAArcSecs;
+				decOffset += leadDecArcSecs;
+				sprat.log(Logging.VERBOSITY_VERBOSE,"computeRADecOffset:Leading moving target by "+
+					  ((double)leadTime/1000.0)+"s: ("+leadRAArcSecs+","+leadDecArcSecs+") arcseconds.");
+			}
 			sprat.log(Logging.VERBOSITY_VERBOSE,
 				  "computeRADecOffset:new RA/Dec offset: ("+raOffset+","+decOffset+") arcseconds.");
 		}
@@ -115,6 +115,27 @@ public class ACQUIREImplementationTweak extends FITSImplementation implements JM
 	 * Record time of start of exposure.
 	 */
 	protected long timeStartExposure = 0L;
+	/**
+	 * If true, and the target is moving, offsets are computed to put the target where it is predicted to be
+	 * at the mid-point of the <b>next</b> acquisition exposure, rather than where it was at the mid-point of the
+	 * frame just analysed. Loaded from the <b>sprat.acquire.moving.predictive</b> property.
+	 * @see #predictNextMidExposureTime
+	 */
+	protected boolean movingPredictive = false;
+	/**
+	 * The time (System.currentTimeMillis) the last telescope offset was started, or 0 if no offset has been
+	 * started since the last exposure.
+	 * @see #offsetToExposureStartTime
+	 */
+	protected long timeOffsetStart = 0L;
+	/**
+	 * The measured time, in milliseconds, between starting the last telescope offset and the following
+	 * acquisition exposure starting (offset, settle, FITS header gathering). Used to predict the mid-point
+	 * of the next exposure. This is kept between commands, as this implementation instance is reused.
+	 * @see #timeOffsetStart
+	 * @see #predictNextMidExposureTime
+	 */
+	protected long offsetToExposureStartTime = 0L;
 	/** 
 	 * Record time of end of exposure.
 	 */
@@ -137,6 +158,17 @@ public class ACQUIREImplementationTweak extends FITSImplementation implements JM
 	 * and exit with an error.
 	 */
 	protected int maximumOffsetCount = 10;
+	/**
+	 * The properties version the configuration was last loaded at, or -1 if it has not been loaded.
+	 * @see #loadConfig
+	 * @see SpratStatus#getPropertiesVersion
+	 */
+	protected int loadedConfigPropertiesVersion = -1;
+	/**
+	 * The acquisition mode the configuration was last loaded for.
+	 * @see #loadConfig
+	 */
+	protected int loadedConfigAcquisitionMode = TelescopeConfig.ACQUIRE_MODE_NONE;
 	/**
 	 * The number of times to retry taking a frame and WCS fitting it when a single WCS fit reduction fails.
 	 * This has been added to stop long acquisitions failing on a single WCS fit failure (due to a tracking glitch for example).
@@ -151,6 +183,36 @@ public class ACQUIREImplementationTweak extends FITSImplementation implements JM
 	 * The multrun number used for FITS filenames for this command.
 	 */
 	protected int multrunNumber;
+	/**
+	 * The World Coordinate System of the current reduced acquisition frame, used by "WCS" mode acquisitions.
+	 * This is kept for the duration of the acquisition, and closed when it finishes.
+	 * @see #computeRADecOffset
+	 * @see #doAcquisitionWCS
+	 */
+	protected SpratWCSContext wcsContext = new SpratWCSContext();
+	/**
+	 * Work array of RAs (in decimal degrees) passed to/from wcsContext batch transforms.
+	 * These arrays hold two points, as computeRADecOffset can transform a moving target's position
+	 * and it's led position in one call.
+	 * @see #wcsContext
+	 * @see #computeRADecOffset
+	 */
+	protected double wcsRADegs[] = new double[2];
+	/**
+	 * Work array of declinations (in decimal degrees) passed to/from wcsContext batch transforms.
+	 * @see #wcsContext
+	 */
+	protected double wcsDecDegs[] = new double[2];
+	/**
+	 * Work array of X (binned) pixel positions passed to/from wcsContext batch transforms.
+	 * @see #wcsContext
+	 */
+	protected double wcsXPixel[] = new double[2];
+	/**
+	 * Work array of Y (binned) pixel positions passed to/from wcsContext batch transforms.
+	 * @see #wcsContext
+	 */
+	protected double wcsYPixel[] = new double[2];
 
 	/**
 	 * Constructor.
@@ -216,6 +278,7 @@ public class ACQUIREImplementationTweak extends FITSImplementation implements JM
 	 * @see #doConfig
 	 * @see #doAcquisitionWCS
 	 * @see #doAcquisitionBrightest
+	 * @see #closeWCSContext
 	 * @see #sendBasicAck
 	 */
 	public COMMAND_DONE processCommand(COMMAND command)
@@ -332,6 +395,11 @@ public class ACQUIREImplementationTweak extends FITSImplementation implements JM
 			acquireDone.setSuccessful(false);
 			return acquireDone;
 		}
+		finally
+		{
+			// free the last frame's WCS
+			closeWCSContext();
+		}
 		acquireDone.setErrorNum(SpratConstants.SPRAT_ERROR_CODE_NO_ERROR);
 		acquireDone.setErrorString("");
 		acquireDone.setSuccessful(true);
@@ -347,7 +415,10 @@ public class ACQUIREImplementationTweak extends FITSImplementation implements JM
 	 * <dt>frameOverhead</dt><dd>Loaded from the <b>sprat.acquire.frame_overhead</b> property.</dd>
 	 * <dt>maximumOffsetCount</dt><dd>Loaded from the <b>sprat.acquire.offset.count.maximum</b> property.</dd>
 	 * <dt>maxFrameReductionRetryCount</dt><dd>Loaded from the <b>sprat.acquire.frame.reduction.wcs.count.maximum</b> property.</dd>
+	 * <dt>movingPredictive</dt><dd>Loaded from the <b>sprat.acquire.moving.predictive</b> property.</dd>
 	 * </dl>
+	 * The configuration is only re-loaded if the properties have been reloaded, or the acquisition mode has
+	 * changed, since it was last loaded.
 	 * @exception NumberFormatException Thrown if the specified property is not a valid number.
 	 * @see #bin
 	 * @see #exposureLength
@@ -356,10 +427,20 @@ public class ACQUIREImplementationTweak extends FITSImplementation implements JM
 	 * @see #maximumOffsetCount
 	 * @see #maxFrameReductionRetryCount
 	 * @see #acquisitionMode
+	 * @see #loadedConfigPropertiesVersion
+	 * @see #loadedConfigAcquisitionMode
+	 * @see #movingPredictive
 	 * @see SpratStatus#getPropertyInteger
+	 * @see SpratStatus#getPropertiesVersion
 	 */
 	protected void loadConfig() throws NumberFormatException
 	{
+		// this implementation instance is reused between commands, so if the properties have not been
+		// reloaded since the configuration was last loaded, and it was loaded for the same
+		// acquisition mode, it is still valid
+		if((loadedConfigPropertiesVersion == status.getPropertiesVersion())&&
+		   (loadedConfigAcquisitionMode == acquisitionMode))
+			return;
 		bin = status.getPropertyInteger("sprat.acquire.bin");
 		if(acquisitionMode == TelescopeConfig.ACQUIRE_MODE_WCS)
 			exposureLength = status.getPropertyInteger("sprat.acquire.exposure_length.wcs");
@@ -367,10 +448,13 @@ public class ACQUIREImplementationTweak extends FITSImplementation implements JM
 			exposureLength = status.getPropertyInteger("sprat.acquire.exposure_length.brightest");
 		frameOverhead = status.getPropertyInteger("sprat.acquire.frame_overhead");
 		maximumOffsetCount = status.getPropertyInteger("sprat.acquire.offset.count.maximum");
+		movingPredictive = status.getPropertyBoolean("sprat.acquire.moving.predictive");
 		// Maximum number of times to retry taking a frame and reducing it (WCS fitting it)
 		// when the first reduction fails (presumed to be a WCS fitting failure).
 		// Only used for WCS reductions. 
 		maxFrameReductionRetryCount = status.getPropertyInteger("sprat.acquire.frame.reduction.wcs.count.maximum");
+		loadedConfigPropertiesVersion = status.getPropertiesVersion();
+		loadedConfigAcquisitionMode = acquisitionMode;
 	}
 
 	/**
@@ -468,6 +552,7 @@ public class ACQUIREImplementationTweak extends FITSImplementation implements JM
 	 * @see SpratStatus#getPropertyDouble
 	 * @see Sprat#sendISSCommand
 	 * @see ngat.message.ISS_INST.OFFSET_X_Y
+	 * @see #timeOffsetStart
 	 */
 	protected void doXYPixelOffset(String id,double xPixelOffset,double yPixelOffset) throws Exception
 	{
@@ -476,6 +561,7 @@ public class ACQUIREImplementationTweak extends FITSImplementation implements JM
 		double plateScale;
 		float xArcsecOffset,yArcsecOffset;
 		
+		timeOffsetStart = System.currentTimeMillis();
 		// log telescope offset
 		sprat.log(Logging.VERBOSITY_VERBOSE,"Attempting telescope position XY Pixel offset x(binned pixels):"+
 			  xPixelOffset+":y(binned pixels):"+yPixelOffset+".");
@@ -565,6 +651,8 @@ public class ACQUIREImplementationTweak extends FITSImplementation implements JM
 		yPixelOffset = 0.0;
 		// keep track of how many times we attempt to offset
 		offsetCount = 0;
+		timeOffsetStart = 0L;
+		offsetToExposureStartTime = 0L;
 		// start main loop,
 		// take an acquisition frame and successfully reduce it,
 		// compute an offset and
@@ -696,6 +784,8 @@ public class ACQUIREImplementationTweak extends FITSImplementation implements JM
 		yPixelOffset = 0.0;
 		// keep track of how many times we attempt to offset
 		offsetCount = 0;
+		timeOffsetStart = 0L;
+		offsetToExposureStartTime = 0L;
 		// start loop
 		done = false;
 		while(done == false)
@@ -805,6 +895,13 @@ public class ACQUIREImplementationTweak extends FITSImplementation implements JM
 		
 		// do exposure, record actual start and end times
 		timeStartExposure = System.currentTimeMillis();
+		// measure how long it took from starting the last offset to starting this exposure,
+		// this is used to predict where a moving target will be in the next frame
+		if(timeOffsetStart > 0L)
+		{
+			offsetToExposureStartTime = timeStartExposure-timeOffsetStart;
+			timeOffsetStart = 0L;
+		}
 		filename = sendMultrunCommand(exposureLength);
 		timeEndExposure = System.currentTimeMillis();
 		// Test abort status.
@@ -851,8 +948,8 @@ public class ACQUIREImplementationTweak extends FITSImplementation implements JM
 		sprat.log(Logging.VERBOSITY_INTERMEDIATE,"sendMultrunCommand:hostname = "+ccdCLayerHostname+
 			   " :port number = "+ccdCLayerPortNumber+".");
 		command.setCommand(exposureLength,1,MultrunCommand.EXPOSURE_TYPE_ACQUIRE);
-		// actually send the command to the C layer
-		command.sendCommand();
+		// actually send the command to the C layer, cancelling it if this command is aborted
+		sendCCDCommand(command);
 		// check the parsed reply
 		if(command.getParsedReplyOK() == false)
 		{
@@ -1015,21 +1112,76 @@ public class ACQUIREImplementationTweak extends FITSImplementation implements JM
 		return instToDPDone;
 	}
 
+	/**
+	 * Free the WCS of the last reduced frame held in wcsContext. A failure to free it is logged and
+	 * otherwise ignored, so it cannot hide the result (or the error) of the acquisition.
+	 * @see #wcsContext
+	 * @see SpratWCSContext#close
+	 */
+	protected void closeWCSContext()
+	{
+		try
+		{
+			wcsContext.close();
+		}
+		catch(Exception e)
+		{
+			sprat.error(this.getClass().getName()+":closeWCSContext:Failed to free WCS:",e);
+		}
+	}
+
+	/**
+	 * Predict when the mid-point of the next acquisition exposure will be, if an offset is started now.
+	 * This uses the measured offsetToExposureStartTime from the last offset, so it accounts for the
+	 * telescope offset/settle time and the overheads of starting the next frame.
+	 * @return The predicted time, in milliseconds since the epoch.
+	 * @see #offsetToExposureStartTime
+	 * @see #exposureLength
+	 */
+	protected long predictNextMidExposureTime()
+	{
+		return System.currentTimeMillis()+offsetToExposureStartTime+(((long)exposureLength)/2L);
+	}
+
+	/**
+	 * Get how far ahead of the frame just analysed a moving target's offset should lead it. This is the time
+	 * from the mid-point of that frame to the predicted mid-point of the next frame (taken after the
+	 * offset we are about to send), if the target is moving and movingPredictive is set, and zero otherwise.
+	 * @return The lead time, in milliseconds.
+	 * @see #moving
+	 * @see #movingPredictive
+	 * @see #timeStartExposure
+	 * @see #exposureLength
+	 * @see #predictNextMidExposureTime
+	 */
+	protected long getMovingTargetLeadTime()
+	{
+		if(moving && movingPredictive)
+			return predictNextMidExposureTime()-(timeStartExposure+(((long)exposureLength)/2L));
+		return 0L;
+	}
+
 	/**
 	 * Compute the offset needed to get the specified RA and Dec on the specified pixel.
 	 * <ul>
-	 * <li>We call getWCSFITS to get a WCSTools handle for the reduced filename.
-	 * <li>We call wcsToPixel to find the X,Y binned pixel position of the target RA/Dec 
-	 * <li>We free the WCSTools handle.
+	 * <li>We open the reduced filename in wcsContext, which reads it's WCS (once per frame).
+	 * <li>We call worldToPixel to find the X,Y binned pixel position of the target RA/Dec. If the target
+	 *     is moving, this is it's position at the mid-point of the frame just analysed. If the offset should
+	 *     lead the target (getMovingTargetLeadTime is non-zero), it's position at the predicted mid-point of
+	 *     the next frame is transformed in the same call.
 	 * <li>We call computeXYPixelOffset with the binned pixel coordinates of the target RA/Dec as the target
 	 *     pixel position.
+	 * <li>If we are <b>not</b> close enough and the offset should lead the target, the pixel distance the
+	 *     target will move before the next frame is added to xPixelOffset and yPixelOffset. This is not
+	 *     used to decide whether we are close enough.
 	 * </ul>
 	 * @param offsetCount The number of offsets we have currently done whilst trying to acquire.
 	 *        Used by computeXYPixelOffset as part of the algorithm to determine whether we are close enough yet.
 	 * @return The method returns true if acquisition has been successful, i.e. the difference between the
 	 *         target pixel position, and the pixel position containing ther acquisition RA/Dec 
 	 *         is less than acquireThreshold arcseconds. Otherwise false is returned.
-	 * @exception Exception Thrown if the WCSTools methods fail (getWCSFITS,wcsfree), or binning was zero.
+	 * @exception Exception Thrown if the WCS of the reduced file cannot be read or transformed,
+	 *            or binning was zero.
 	 * @see #reducedFITSFilename
 	 * @see #acquireXPixel
 	 * @see #acquireYPixel
@@ -1039,23 +1191,25 @@ public class ACQUIREImplementationTweak extends FITSImplementation implements JM
 	 * @see #acquireDecString
 	 * @see #computeXYPixelOffset
 	 * @see #moving
+	 * @see #getMovingTargetLeadTime
+	 * @see #xPixelOffset
+	 * @see #yPixelOffset
 	 * @see #rateTime
 	 * @see #raRateRadPerSec
 	 * @see #acquireDecString
 	 * @see #timeStartExposure
-	 * @see ngat.astrometry.WCSTools#getWCSFITS
-	 * @see ngat.astrometry.WCSTools#wcsToPixel
-	 * @see ngat.astrometry.WCSTools#pixelToWCS
-	 * @see ngat.astrometry.WCSTools#wcsfree
+	 * @see #wcsContext
+	 * @see SpratWCSContext#open
+	 * @see SpratWCSContext#worldToPixel
 	 */
 	protected boolean computeRADecOffset(int offsetCount) throws Exception
 	{
-		WCSToolsWorldCoorHandle handle = null;
-		WCSToolsCoordinate coordinate = null;
 		double raRads,decRads,offsetRARads,offsetDecRads,offsetRADegs,
 			offsetRAArcSecs,offsetDecArcSecs,distance;
 		String raString = null;
 		String decString = null;
+		long leadTime;
+		int count;
 		boolean done;
 
 		// check binning is non-zero (division by zero
@@ -1063,46 +1217,56 @@ public class ACQUIREImplementationTweak extends FITSImplementation implements JM
 			throw new Exception(this.getClass().getName()+":computeRADecOffset:bin was zero.");
 		// are we close enough yet?
 		done = false;
-		handle = WCSTools.getWCSFITS(reducedFITSFilename,3);
-		try
+		// read the reduced frame's WCS, this is kept in wcsContext until the acquisition finishes
+		wcsContext.open(reducedFITSFilename);
+		// get pixel of Target
+		acquireRAString = Position.formatHMSString(acquireRARads,":");
+		acquireDecString = Position.formatDMSString(acquireDecRads,":");
+		sprat.log(Logging.VERBOSITY_VERBOSE,
+			  ":computeRADecOffset: Target original position: at T=0.0s: "+
+			  acquireRAString+", "+acquireDecString);
+		double checkRARads = acquireRARads;
+		double checkDecRads = acquireDecRads;
+		long timeElapsed = timeStartExposure + (((long)exposureLength)/2L) - rateTime;
+		if(moving) 
 		{
-			// get pixel of Target
-			acquireRAString = Position.formatHMSString(acquireRARads,":");
-			acquireDecString = Position.formatDMSString(acquireDecRads,":");
+			// Add offset = rate(rad/sec) * timediff to mid-exposure from start (sec)
+			checkRARads =  acquireRARads + raRateRadPerSec*((double)timeElapsed)/1000.0;
+			checkDecRads = acquireDecRads + decRateRadPerSec*((double)timeElapsed)/1000.0;
+			acquireRAString = Position.formatHMSString(checkRARads,":");
+			acquireDecString = Position.formatDMSString(checkDecRads,":");
 			sprat.log(Logging.VERBOSITY_VERBOSE,
-				  ":computeRADecOffset: Target original position: at T=0.0s: "+
-				  acquireRAString+", "+acquireDecString);
-			double checkRARads = acquireRARads;
-			double checkDecRads = acquireDecRads;
-			long timeElapsed = timeStartExposure - rateTime;
-			if(moving) 
-			{
-				// Add offset = rate(rad/sec) * timediff to mid-exposure from start (sec)
-				checkRARads =  acquireRARads + raRateRadPerSec*((double)timeStartExposure + 
-					       (double)exposureLength/2.0 - (double)rateTime)/1000.0;
-				checkDecRads = acquireDecRads + decRateRadPerSec*((double)timeStartExposure + 
-					       (double)exposureLength/2.0 - (double)rateTime)/1000.0;
-				acquireRAString = Position.formatHMSString(checkRARads,":");
-				acquireDecString = Position.formatDMSString(checkDecRads,":");
-				sprat.log(Logging.VERBOSITY_VERBOSE,
-					  ":computeRADecOffset: Moving target position mid-exposure at T="+
-					  ((double)timeElapsed/1000.0)+"s: "+acquireRAString+", "+
-					  acquireDecString);
-			}
-			coordinate = WCSTools.wcsToPixel(handle,checkRARads*180.0/Math.PI,
-							 checkDecRads*180.0/Math.PI);
-			sprat.log(Logging.VERBOSITY_VERBOSE,
-				  ":computeRADecOffset:Target Position at mid-exposure at T=:"+
-				  ((double)timeElapsed/1000.0)+"s: "+acquireRAString+","+acquireDecString+
-				  ") currently at binned pixel position : X:"+
-				  coordinate.getXCoordinate()+":Y:"+coordinate.getYCoordinate()+".");
+				  ":computeRADecOffset: Moving target position mid-exposure at T="+
+				  ((double)timeElapsed/1000.0)+"s: "+acquireRAString+", "+
+				  acquireDecString);
 		}
-		finally
+		wcsRADegs[0] = checkRARads*180.0/Math.PI;
+		wcsDecDegs[0] = checkDecRads*180.0/Math.PI;
+		count = 1;
+		// if leading a moving target, also transform where it will be at the mid-point of the next frame
+		leadTime = getMovingTargetLeadTime();
+		if(leadTime != 0L)
 		{
-			WCSTools.wcsFree(handle);
+			wcsRADegs[1] = (checkRARads + raRateRadPerSec*((double)leadTime)/1000.0)*180.0/Math.PI;
+			wcsDecDegs[1] = (checkDecRads + decRateRadPerSec*((double)leadTime)/1000.0)*180.0/Math.PI;
+			count = 2;
 		}
+		wcsContext.worldToPixel(wcsRADegs,wcsDecDegs,wcsXPixel,wcsYPixel,count);
+		sprat.log(Logging.VERBOSITY_VERBOSE,
+			  ":computeRADecOffset:Target Position at mid-exposure at T=:"+
+			  ((double)timeElapsed/1000.0)+"s: "+acquireRAString+","+acquireDecString+
+			  ") currently at binned pixel position : X:"+wcsXPixel[0]+":Y:"+wcsYPixel[0]+".");
 		// compute offset in pixels with object pixel position target RA/Dec
-		return computeXYPixelOffset(coordinate.getXCoordinate(),coordinate.getYCoordinate(),offsetCount);
+		done = computeXYPixelOffset(wcsXPixel[0],wcsYPixel[0],offsetCount);
+		if((done == false)&&(leadTime != 0L))
+		{
+			xPixelOffset += wcsXPixel[1]-wcsXPixel[0];
+			yPixelOffset += wcsYPixel[1]-wcsYPixel[0];
+			sprat.log(Logging.VERBOSITY_VERBOSE,"computeRADecOffset:Leading moving target by "+
+				  ((double)leadTime/1000.0)+"s: new XY pixel offset: ("+xPixelOffset+","+
+				  yPixelOffset+") binned pixels.");
+		}
+		return done;
 	}
 
 	/**
@@ -381,6 +381,7 @@ public class ARCImplementation extends CALIBRATEImplementation implements JMSCom
 	 * @see ngat.sprat.mechanism.command.ArcLampCommand#getRunException
 	 * @see ngat.sprat.mechanism.command.ArcLampCommand#getIsError
 	 * @see ngat.sprat.mechanism.command.ArcLampCommand#getErrorString
+	 * @see HardwareImplementation#invalidateStatusCache
 	 */
 	protected void setArcLamp(boolean on) throws Exception
 	{
@@ -394,6 +395,7 @@ public class ARCImplementation extends CALIBRATEImplementation implements JMSCom
 			lampState = ArcLampCommand.STATE_OFF;
 		command = new ArcLampCommand(mechanismHostname,mechanismPortNumber,lampState);
 		command.run();
+		invalidateStatusCache();
 		if(command.getRunException() != null)
 		{
 			throw new Exception(this.getClass().getName()+
@@ -444,8 +446,8 @@ public class ARCImplementation extends CALIBRATEImplementation implements JMSCom
 		sprat.log(Logging.VERBOSITY_INTERMEDIATE,"sendMultrunCommand:hostname = "+ccdCLayerHostname+
 			   " :port number = "+ccdCLayerPortNumber+".");
 		command.setCommand(exposureLength,1,MultrunCommand.EXPOSURE_TYPE_ARC);
-		// actually send the command to the C layer
-		command.sendCommand();
+		// actually send the command to the C layer, cancelling it if this command is aborted
+		sendCCDCommand(command);
 		// check the parsed reply
 		if(command.getParsedReplyOK() == false)
 		{
@@ -199,8 +199,8 @@ public class BIASImplementation extends CALIBRATEImplementation implements JMSCo
 		command.setPortNumber(ccdCLayerPortNumber);
 		sprat.log(Logging.VERBOSITY_INTERMEDIATE,"sendBiasCommand:hostname = "+ccdCLayerHostname+
 			   " :port number = "+ccdCLayerPortNumber+".");
-		// actually send the command to the C layer
-		command.sendCommand();
+		// actually send the command to the C layer, cancelling it if this command is aborted
+		sendCCDCommand(command);
 		// check the parsed reply
 		if(command.getParsedReplyOK() == false)
 		{
@@ -99,8 +99,8 @@ public class CALIBRATEImplementation extends FITSImplementation implements JMSCo
 		sprat.log(Logging.VERBOSITY_INTERMEDIATE,"sendBiasCommand:hostname = "+ccdCLayerHostname+
 			   " :port number = "+ccdCLayerPortNumber+".");
 		command.setCommand(exposureCount);
-		// actually send the command to the C layer
-		command.sendCommand();
+		// actually send the command to the C layer, cancelling it if this command is aborted
+		sendCCDCommand(command);
 		// check the parsed reply
 		if(command.getParsedReplyOK() == false)
 		{
@@ -153,8 +153,8 @@ public class CALIBRATEImplementation extends FITSImplementation implements JMSCo
 		sprat.log(Logging.VERBOSITY_INTERMEDIATE,"sendDarkCommand:hostname = "+ccdCLayerHostname+
 			   " :port number = "+ccdCLayerPortNumber+".");
 		command.setCommand(exposureLength,exposureCount);
-		// actually send the command to the C layer
-		command.sendCommand();
+		// actually send the command to the C layer, cancelling it if this command is aborted
+		sendCCDCommand(command);
 		// check the parsed reply
 		if(command.getParsedReplyOK() == false)
 		{
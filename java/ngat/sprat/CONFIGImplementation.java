@@ -87,11 +87,12 @@ public class CONFIGImplementation extends HardwareImplementation implements JMSC
 	 * <li>The window is extracted.
 	 * <li>sendConfigCommand is called with the extracted data to send a C layer Config command.
 	 * <li>We test for command abort.
-	 * <li>We move the grism by calling moveGrism.
-	 * <li>We test for command abort.
-	 * <li>We rotate the grism by calling rotateGrism.
-	 * <li>We test for command abort.
-	 * <li>We move the slit by calling moveSlit.
+	 * <li>We create a MechanismMovePlan, to stow the grism rotation, move the grism, rotate the grism 
+	 *     (if the grism is IN the beam) in that order, and at the same time move the slit.
+	 *     Mechanisms that isMechanismInPosition reports are already in position are left out of the plan.
+	 * <li>We execute the plan by calling executeMechanismMovePlan, and update the mechanism position cache
+	 *     with the results.
+	 * <li>We check for grism (rotation) and slit move failures.
 	 * <li>We test for command abort.
 	 * <li>We call setFocusOffset to tell the RCS/TCS the focus offset required.
 	 * <li>We increment the config Id.
@@ -101,9 +102,14 @@ public class CONFIGImplementation extends HardwareImplementation implements JMSC
 	 * @see #testAbort
 	 * @see #sprat
 	 * @see #status
-	 * @see #moveSlit
-	 * @see #rotateGrism
-	 * @see #moveGrism
+	 * @see #createSlitMover
+	 * @see #createGrismRotationMover
+	 * @see #createGrismMover
+	 * @see #executeMechanismMovePlan
+	 * @see #isMechanismInPosition
+	 * @see #updateMechanismPosition
+	 * @see #slitFailureToString
+	 * @see ngat.sprat.mechanism.MechanismMovePlan
 	 * @see HardwareImplementation#setFocusOffset
 	 * @see HardwareImplementation#sendConfigCommand
 	 * @see ngat.sprat.Sprat#getStatus
@@ -119,6 +125,12 @@ public class CONFIGImplementation extends HardwareImplementation implements JMSC
 		SpratConfig config = null;
 		Window window = null;
 		CONFIG_DONE configDone = null;
+		MechanismMovePlan movePlan = null;
+		MechanismMovePlan.Step rotationStowStep = null;
+		MechanismMovePlan.Step grismStep = null;
+		MechanismMovePlan.Step rotationStep = null;
+		MechanismMovePlan.Step slitStep = null;
+		Exception grismException = null;
 		String configName = null;
 		boolean useWindow = false;
 
@@ -215,46 +227,84 @@ public class CONFIGImplementation extends HardwareImplementation implements JMSC
 		if(testAbort(configCommand,configDone) == true)
 			return configDone;
 		// configure sprat mechanisms
-		// move and rotate grism.
+		// We can only move the grism in and out if the rotation cylinder is stowed, and due to the
+		// construction of the rotation mechanism we can only rotate the grism to the configured position
+		// if the grism is IN the beam. The slit has no interlock with the grism, so is moved at the same time.
+		// Mechanisms already in the right position (according to the mechanism position cache) are not moved:
+		// if the grism is already in position the rotation does not need stowing, and if the rotation
+		// has to be stowed it always has to be rotated back afterwards.
+		movePlan = new MechanismMovePlan();
 		try
 		{
-			// we can only move the grism in and out, if the rotation cylinder is stowed
-			rotateGrism(0);
-			// move the grism to the configured position
-			moveGrism(config.getGrismPosition());
-			// rotate the grism to the configured position
-			// Due to the construction of the rotation mechanism, this will only work if the
-			// grism is IN the beam
-			if(config.getGrismPosition() == SpratConfig.POSITION_IN)
-				rotateGrism(config.getGrismRotation());
+			if(isMechanismInPosition(SpratMechanismPositionCache.MECHANISM_GRISM,
+						 config.getGrismPosition()) == false)
+			{
+				if(isMechanismInPosition(SpratMechanismPositionCache.MECHANISM_ROTATION,0) == false)
+				{
+					rotationStowStep = movePlan.addMove("grism rotation stow",
+									    createGrismRotationMover(0));
+				}
+				grismStep = movePlan.addMove("grism",createGrismMover(config.getGrismPosition()),
+							     rotationStowStep);
+			}
+			if((config.getGrismPosition() == SpratConfig.POSITION_IN)&&
+			   ((rotationStowStep != null)||
+			    (isMechanismInPosition(SpratMechanismPositionCache.MECHANISM_ROTATION,
+						   config.getGrismRotation()) == false)))
+			{
+				rotationStep = movePlan.addMove("grism rotation",
+								createGrismRotationMover(config.getGrismRotation()),
+								grismStep);
+			}
+			if(isMechanismInPosition(SpratMechanismPositionCache.MECHANISM_SLIT,
+						 config.getSlitPosition()) == false)
+			{
+				slitStep = movePlan.addMove("slit",createSlitMover(config.getSlitPosition()));
+			}
+			executeMechanismMovePlan(movePlan);
 		}
 		catch(Exception e)
+		{
+			sprat.error(this.getClass().getName()+":processCommand:Moving mechanisms failed:"+command,e);
+			configDone.setErrorNum(SpratConstants.SPRAT_ERROR_CODE_BASE+808);
+			configDone.setErrorString("Moving mechanisms failed:"+e.toString());
+			configDone.setSuccessful(false);
+			return configDone;
+		}
+		// update the mechanism position cache with the results of the moves
+		updateMechanismPosition(rotationStowStep,SpratMechanismPositionCache.MECHANISM_ROTATION,0);
+		updateMechanismPosition(grismStep,SpratMechanismPositionCache.MECHANISM_GRISM,config.getGrismPosition());
+		updateMechanismPosition(rotationStep,SpratMechanismPositionCache.MECHANISM_ROTATION,
+					config.getGrismRotation());
+		updateMechanismPosition(slitStep,SpratMechanismPositionCache.MECHANISM_SLIT,config.getSlitPosition());
+		// check for grism (rotation) failure
+		if(rotationStowStep != null)
+			grismException = rotationStowStep.getException();
+		if((grismException == null)&&(grismStep != null))
+			grismException = grismStep.getException();
+		if((grismException == null)&&(rotationStep != null))
+			grismException = rotationStep.getException();
+		if(grismException != null)
 		{
 			sprat.error(this.getClass().getName()+":processCommand:Moving Grism (Rotation) to position "+
 				    config.grismPositionToString()+"("+config.getGrismRotation()+") failed:"+
-				    command,e);
+				    command,grismException);
 			configDone.setErrorNum(SpratConstants.SPRAT_ERROR_CODE_BASE+805);
 			configDone.setErrorString("Moving Grism (Rotation) to position "+
 						  config.grismPositionToString()+
-						  "("+config.getGrismRotation()+") failed:"+e.toString());
+						  "("+config.getGrismRotation()+") failed:"+grismException.toString()+
+						  slitFailureToString(slitStep));
 			configDone.setSuccessful(false);
 			return configDone;
 		}
-	// test abort
-		if(testAbort(configCommand,configDone) == true)
-			return configDone;
-		// move slit
-		try
-		{
-			moveSlit(config.getSlitPosition());
-		}
-		catch(Exception e)
+		// check for slit failure
+		if((slitStep != null)&&(slitStep.getException() != null))
 		{
 			sprat.error(this.getClass().getName()+":processCommand:Moving Slit to position "+
-				    config.slitPositionToString()+" failed:"+command,e);
+				    config.slitPositionToString()+" failed:"+command,slitStep.getException());
 			configDone.setErrorNum(SpratConstants.SPRAT_ERROR_CODE_BASE+809);
 			configDone.setErrorString("Moving Slit to position "+config.slitPositionToString()+
-						  " failed:"+e.toString());
+						  " failed:"+slitStep.getException().toString());
 			configDone.setSuccessful(false);
 			return configDone;
 		}
@@ -299,4 +349,19 @@ public class CONFIGImplementation extends HardwareImplementation implements JMSC
 	// return done object.
 		return configDone;
 	}
+
+	/**
+	 * Return a string describing a slit move failure, to append to the grism move failure error string
+	 * (so the error reports all the mechanisms that failed).
+	 * @param slitStep The step that moved the slit, or null if the slit was already in position.
+	 * @return A string describing the slit failure, or a blank string if the slit move succeeded (or was
+	 *         not needed).
+	 * @see ngat.sprat.mechanism.MechanismMovePlan.Step#getException
+	 */
+	protected String slitFailureToString(MechanismMovePlan.Step slitStep)
+	{
+		if((slitStep == null)||(slitStep.getException() == null))
+			return "";
+		return ":Moving Slit also failed:"+slitStep.getException().toString();
+	}
 }
@@ -144,4 +144,34 @@ public class CommandImplementation implements JMSCommandImplementation
 		}
 		return abortProcessCommand;
 	}
+
+	/**
+	 * Add a listener to the abort token of the server connection thread running this command's implementation.
+	 * The listener is run as soon as the command is aborted (or immediately, if it already has been),
+	 * and should stop whatever the implementation is currently waiting for. 
+	 * It should be removed with removeAbortListener once the wait is over.
+	 * @param listener The listener to add.
+	 * @see #serverConnectionThread
+	 * @see #removeAbortListener
+	 * @see SpratTCPServerConnectionThread#getAbortToken
+	 * @see SpratAbortToken#addListener
+	 */
+	public void addAbortListener(Runnable listener)
+	{
+		if(serverConnectionThread != null)
+			serverConnectionThread.getAbortToken().addListener(listener);
+	}
+
+	/**
+	 * Remove a listener previously added with addAbortListener.
+	 * @param listener The listener to remove.
+	 * @see #serverConnectionThread
+	 * @see #addAbortListener
+	 * @see SpratAbortToken#removeListener
+	 */
+	public void removeAbortListener(Runnable listener)
+	{
+		if(serverConnectionThread != null)
+			serverConnectionThread.getAbortToken().removeListener(listener);
+	}
 }
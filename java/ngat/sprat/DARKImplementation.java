@@ -226,8 +226,8 @@ public class DARKImplementation extends CALIBRATEImplementation implements JMSCo
 		sprat.log(Logging.VERBOSITY_INTERMEDIATE,"sendDarkCommand:hostname = "+ccdCLayerHostname+
 			  " :port number = "+ccdCLayerPortNumber+".");
 		command.setCommand(exposureLength);
-		// actually send the command to the C layer
-		command.sendCommand();
+		// actually send the command to the C layer, cancelling it if this command is aborted
+		sendCCDCommand(command);
 		// check the parsed reply
 		if(command.getParsedReplyOK() == false)
 		{
@@ -69,17 +69,54 @@ public class EXPOSEImplementation extends FITSImplementation implements JMSComma
 	 * @return The routine returns a boolean to indicate whether the operation was completed
 	 *  	successfully.
 	 * @see Sprat#sendDpRtCommand
+	 * @see #createReduceCommand
+	 * @see #processReduceDone
 	 */
 	public boolean reduceExpose(COMMAND command,COMMAND_DONE done,String filename)
 	{
-		EXPOSE_REDUCE reduce = new EXPOSE_REDUCE(command.getId());
+		EXPOSE_REDUCE reduce = null;
 		INST_TO_DP_DONE instToDPDone = null;
-		EXPOSE_REDUCE_DONE reduceDone = null;
-		EXPOSE_DONE exposeDone = null;
+
+		reduce = createReduceCommand(command,filename);
+		instToDPDone = sprat.sendDpRtCommand(reduce,serverConnectionThread);
+		return processReduceDone(command,done,instToDPDone);
+	}
+
+	/**
+	 * Create the Real Time Data Pipeline command used to process an expose FITS image.
+	 * @param command The command being implemented. It's id is used as the reduction command's id.
+	 * @param filename The filename of the FITS image filename to reduce.
+	 * @return An EXPOSE_REDUCE command, with the filename set and WCS fitting disabled.
+	 * @see #reduceExpose
+	 */
+	protected EXPOSE_REDUCE createReduceCommand(COMMAND command,String filename)
+	{
+		EXPOSE_REDUCE reduce = new EXPOSE_REDUCE(command.getId());
 
 		reduce.setFilename(filename);
 		reduce.setWcsFit(false);
-		instToDPDone = sprat.sendDpRtCommand(reduce,serverConnectionThread);
+		return reduce;
+	}
+
+	/**
+	 * Process the done message returned by the Real Time Data Pipeline from a reduction command.
+	 * If the reduction failed the done objects field's are set accordingly. If the reduction succeeded, and the
+	 * done object is of class EXPOSE_DONE, the done object is filled with data returned from the 
+	 * reduction command.
+	 * @param command The command being implemented that made the reduction. This is used
+	 * 	for error logging.
+	 * @param done A COMMAND_DONE subclass specific to the command being implemented. If an
+	 * 	error occurs the relevant fields are filled in with the error.
+	 * @param instToDPDone The done message returned by the Real Time Data Pipeline.
+	 * @return The routine returns a boolean to indicate whether the reduction was completed
+	 *  	successfully.
+	 * @see #reduceExpose
+	 */
+	protected boolean processReduceDone(COMMAND command,COMMAND_DONE done,INST_TO_DP_DONE instToDPDone)
+	{
+		EXPOSE_REDUCE_DONE reduceDone = null;
+		EXPOSE_DONE exposeDone = null;
+
 		if(instToDPDone.getSuccessful() == false)
 		{
 			sprat.error(this.getClass().getName()+":reduce:"+
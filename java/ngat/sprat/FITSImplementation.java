@@ -31,6 +31,14 @@ public class FITSImplementation extends HardwareImplementation implements JMSCom
 	 * @see #getFitsHeadersFromISS
 	 */
 	protected String objectName = null;
+	/**
+	 * If non-null, a batch of FITS headers is being built up, and addFitsHeader, addFitsHeaderComment
+	 * and addFitsHeaderUnits add their cards to this batch rather than sending a command per card.
+	 * The batch is sent to the C layer in one command by sendFitsHeaderBatch.
+	 * @see #startFitsHeaderBatch
+	 * @see #sendFitsHeaderBatch
+	 */
+	protected FitsHeaderBatchCommand fitsHeaderBatch = null;
 
 	/**
 	 * This method calls the super-classes method. 
@@ -103,13 +111,84 @@ public class FITSImplementation extends HardwareImplementation implements JMSCom
 		}
 	}
 
+	/**
+	 * Start a batch of FITS headers. Subsequent calls to addFitsHeader, addFitsHeaderComment and 
+	 * addFitsHeaderUnits add cards to the batch, rather than sending them to the C layer one at a time.
+	 * sendFitsHeaderBatch should be called to send the batch to the C layer.
+	 * @exception UnknownHostException Thrown if the C layer hostname address it not known.
+	 * @see #fitsHeaderBatch
+	 * @see #sendFitsHeaderBatch
+	 * @see HardwareImplementation#ccdCLayerHostname
+	 * @see HardwareImplementation#ccdCLayerPortNumber
+	 * @see ngat.sprat.ccd.command.FitsHeaderBatchCommand
+	 */
+	protected void startFitsHeaderBatch() throws UnknownHostException
+	{
+		fitsHeaderBatch = new FitsHeaderBatchCommand();
+		// configure C comms
+		fitsHeaderBatch.setAddress(ccdCLayerHostname);
+		fitsHeaderBatch.setPortNumber(ccdCLayerPortNumber);
+	}
+
+	/**
+	 * Send the batch of FITS headers started by startFitsHeaderBatch to the C layer, in one command.
+	 * The C layer applies the batch atomically. The batch is finished (fitsHeaderBatch reset to null) 
+	 * whether the send succeeds or not.
+	 * @exception Exception Thrown if no batch was started, sending the command fails, or the
+	 *            return code indicates a failure.
+	 * @see #fitsHeaderBatch
+	 * @see #startFitsHeaderBatch
+	 * @see ngat.sprat.ccd.command.FitsHeaderBatchCommand#getCardCount
+	 * @see ngat.sprat.ccd.command.FitsHeaderBatchCommand#sendCommand
+	 * @see ngat.sprat.ccd.command.FitsHeaderBatchCommand#getParsedReplyOK
+	 * @see ngat.sprat.ccd.command.FitsHeaderBatchCommand#getReturnCode
+	 * @see ngat.sprat.ccd.command.FitsHeaderBatchCommand#getParsedReply
+	 */
+	protected void sendFitsHeaderBatch() throws Exception
+	{
+		FitsHeaderBatchCommand batchCommand = null;
+		int returnCode;
+		String errorString = null;
+
+		if(fitsHeaderBatch == null)
+		{
+			throw new Exception(this.getClass().getName()+":sendFitsHeaderBatch:No batch started.");
+		}
+		batchCommand = fitsHeaderBatch;
+		fitsHeaderBatch = null;
+		if(batchCommand.getCardCount() == 0)
+		{
+			sprat.log(Logging.VERBOSITY_VERBOSE,this.getClass().getName()+
+				  ":sendFitsHeaderBatch:Batch was empty, not sending.");
+			return;
+		}
+		sprat.log(Logging.VERBOSITY_INTERMEDIATE,this.getClass().getName()+
+			  ":sendFitsHeaderBatch:Sending batch of "+batchCommand.getCardCount()+" cards.");
+		// actually send the command to the C layer
+		batchCommand.sendCommand();
+		// check the parsed reply
+		if(batchCommand.getParsedReplyOK() == false)
+		{
+			returnCode = batchCommand.getReturnCode();
+			errorString = batchCommand.getParsedReply();
+			sprat.log(Logging.VERBOSITY_TERSE,"sendFitsHeaderBatch:Command failed with return code "+
+				  returnCode+" and error string:"+errorString);
+			throw new Exception(this.getClass().getName()+
+					    ":sendFitsHeaderBatch:Command failed with return code "+returnCode+
+					    " and error string:"+errorString);
+		}
+	}
+
 	/**
 	 * This routine gets a set of FITS header from a config file. The retrieved FITS headers are added to the 
 	 * C layer. The "sprat.fits.keyword.&lt;n&gt;" properties is queried in ascending order of &lt;n&gt; to find keywords.
 	 * The "sprat.fits.value.&lt;keyword&gt;" property contains the value of the keyword.
 	 * The value's type is retrieved from the property "sprat.fits.value.type.&lt;keyword&gt;", 
 	 * which should comtain one of the following values: boolean|float|integer|string.
-	 * The addFitsHeader method is then called to actually add the FITS header to the C layer.
+	 * The keywords are retrieved pre-compiled (with their values already converted to the right type)
+	 * from the current config snapshot, so no properties are looked up or parsed per frame.
+	 * The addFitsHeader method is then called to add the FITS header to a batch, which is sent to the C layer
+	 * in one command once all the keywords have been processed.
 	 * @param command The command being implemented that made this call to the ISS. This is used
 	 * 	for error logging.
 	 * @param commandDone A COMMAND_DONE subclass specific to the command being implemented. If an
@@ -117,6 +196,10 @@ public class FITSImplementation extends HardwareImplementation implements JMSCom
 	 * @return The routine returns a boolean to indicate whether the operation was completed
 	 *  	successfully.
 	 * @see #setFitsHeader
+	 * @see SpratStatus#getConfigSnapshot
+	 * @see SpratConfigSnapshot#getFitsKeywordList
+	 * @see #startFitsHeaderBatch
+	 * @see #sendFitsHeaderBatch
 	 * @see HardwareImplementation#getMirrorPosition
 	 * @see HardwareImplementation#getSlitPosition
 	 * @see HardwareImplementation#getGrismPosition
@@ -128,9 +211,9 @@ public class FITSImplementation extends HardwareImplementation implements JMSCom
 	 */
 	public boolean setFitsHeaders(COMMAND command,COMMAND_DONE commandDone)
 	{
-		String keyword = null;
-		boolean done;
-		int index,mirrorPosition,slitPosition,grismPosition,rotationPosition,binx,biny;
+		List<SpratFitsKeyword> fitsKeywordList = null;
+		SpratFitsKeyword fitsKeyword = null;
+		int mirrorPosition,slitPosition,grismPosition,rotationPosition,binx,biny;
 		boolean isSpectralFitsHeader;
 
 		sprat.log(Logging.VERBOSITY_INTERMEDIATE,this.getClass().getName()+":setFitsHeaders:Started.");
@@ -184,52 +267,69 @@ public class FITSImplementation extends HardwareImplementation implements JMSCom
 			commandDone.setSuccessful(false);
 			return false;
 		}
-		index = 0;
-		done = false;
-		while(done == false)
+		try
 		{
-			sprat.log(Logging.VERBOSITY_VERBOSE,this.getClass().getName()+
-				   ":setFitsHeaders:Looking for keyword index "+index+" in list.");
-			keyword = status.getProperty("sprat.fits.keyword."+index);
-			if(keyword != null)
+			startFitsHeaderBatch();
+		}
+		catch(Exception e)
+		{
+			sprat.error(this.getClass().getName()+":setFitsHeaders:Failed to start FITS header batch.",e);
+			commandDone.setErrorNum(SpratConstants.SPRAT_ERROR_CODE_BASE+305);
+			commandDone.setErrorString("setFitsHeaders:Failed to start FITS header batch:"+e.toString());
+			commandDone.setSuccessful(false);
+			return false;
+		}
+		fitsKeywordList = status.getConfigSnapshot().getFitsKeywordList();
+		for(int index = 0; index < fitsKeywordList.size(); index++)
+		{
+			fitsKeyword = fitsKeywordList.get(index);
+			try
 			{
-				try
-				{
-					setFitsHeader(keyword,isSpectralFitsHeader,
-						      mirrorPosition,slitPosition,grismPosition,
-						      rotationPosition,binx,biny);
-				}
-				catch(Exception e)
-				{
-					sprat.error(this.getClass().getName()+
-						    ":setFitsHeaders:setFitsHeader failed for keyword:"+keyword,e);
-					commandDone.setErrorNum(SpratConstants.SPRAT_ERROR_CODE_BASE+302);
-					commandDone.setErrorString(this.getClass().getName()+
-						     ":setFitsHeaders:setFitsHeader failed for keyword:"+keyword+
-								   ":"+e);
-					commandDone.setSuccessful(false);
-					return false;
-				}
-				// increment index
-				index++;
+				setFitsHeader(fitsKeyword,isSpectralFitsHeader,
+					      mirrorPosition,slitPosition,grismPosition,
+					      rotationPosition,binx,biny);
 			}
-			else
-				done = true;
-		}// end while
+			catch(Exception e)
+			{
+				sprat.error(this.getClass().getName()+
+					    ":setFitsHeaders:setFitsHeader failed for keyword:"+fitsKeyword.getKeyword(),e);
+				fitsHeaderBatch = null;
+				commandDone.setErrorNum(SpratConstants.SPRAT_ERROR_CODE_BASE+302);
+				commandDone.setErrorString(this.getClass().getName()+
+					     ":setFitsHeaders:setFitsHeader failed for keyword:"+fitsKeyword.getKeyword()+
+							   ":"+e);
+				commandDone.setSuccessful(false);
+				return false;
+			}
+		}// end for
+		try
+		{
+			sendFitsHeaderBatch();
+		}
+		catch(Exception e)
+		{
+			sprat.error(this.getClass().getName()+":setFitsHeaders:Failed to send FITS header batch.",e);
+			commandDone.setErrorNum(SpratConstants.SPRAT_ERROR_CODE_BASE+306);
+			commandDone.setErrorString("setFitsHeaders:Failed to send FITS header batch:"+e.toString());
+			commandDone.setSuccessful(false);
+			return false;
+		}
 		sprat.log(Logging.VERBOSITY_INTERMEDIATE,this.getClass().getName()+":setFitsHeaders:Finished.");
 		return true;
 	}
 
 	/**
-	 * Method to retrieve the value of the FITS header from the config file, taking into account
+	 * Method to retrieve the value of the FITS header from the pre-compiled FITS keyword, taking into account
 	 * the current mechanism and CCD configuration, and pass the data to the C layer.
+	 * If a value could not be converted to the keyword's type when the keyword was compiled, it is
+	 * retrieved using the SpratStatus getProperty methods, which throw a suitable exception.
 	 * getFITSValueKeywordString is called to generate the Java property keyword string the FITS keyword value
 	 * is stored under. If getFITSValueKeywordString returns "internal", getFitsKeywordInternalValue is called
 	 * to generate the value from some internal data/mechanism/CCD status.
 	 * addFitsHeader is then called to add the keyword/value to the list.
 	 * If a comment is found for the keyword addFitsHeaderComment is used to add it to the keyword.
 	 * If a units string is found for the keyword addFitsHeaderUnits is used to add it to the keyword.
-	 * @param keyword The FITS header keyword to set.
+	 * @param fitsKeyword The pre-compiled FITS header keyword to set.
 	 * @param isSpectralFitsHeader Whether we are writing FITS headers for Spectral data (true) or imaging data
 	 *        (false).
 	 * @param mirrorPosition The current mirror position. 
@@ -252,29 +352,29 @@ public class FITSImplementation extends HardwareImplementation implements JMSCom
 	 * @see #addFitsHeaderComment
 	 * @see #addFitsHeaderUnits
 	 * @see #status
-	 * @see SpratStatus#getProperty
+	 * @see SpratFitsKeyword
 	 * @see SpratStatus#getPropertyBoolean
 	 * @see SpratStatus#getPropertyInteger
 	 * @see SpratStatus#getPropertyDouble
 	 */
-	protected void setFitsHeader(String keyword,boolean isSpectralFitsHeader,
+	protected void setFitsHeader(SpratFitsKeyword fitsKeyword,boolean isSpectralFitsHeader,
 				     int mirrorPosition,int slitPosition,int grismPosition,
 				     int rotationPosition,int binx,int biny) throws Exception
 	{
+		String keyword = null;
 		String typeString = null;
 		String varyByString  = null;
 		String valueKeywordString = null;
 		String valueString = null;
 		String commentString = null;
 		String unitsString = null;
-		boolean done;
-		double dvalue;
-		int ivalue;
-		boolean isFitsKeywordSpectral,bvalue;
+		Object value = null;
+		boolean isFitsKeywordSpectral;
 
-		sprat.log(Logging.VERBOSITY_VERBOSE,this.getClass().getName()+":setFitsHeader:Adding "+keyword+".");
+		keyword = fitsKeyword.getKeyword();
+		sprat.log(Logging.VERBOSITY_VERBOSE,"{}:setFitsHeader:Adding {}.",this.getClass().getName(),keyword);
 		// get type of FITS keyword (string | integer | float | boolean)
-		typeString = status.getProperty("sprat.fits.value.type."+keyword);
+		typeString = fitsKeyword.getTypeString();
 		if(typeString == null)
 		{
 			sprat.error(this.getClass().getName()+
@@ -283,22 +383,27 @@ public class FITSImplementation extends HardwareImplementation implements JMSCom
 					    ":setFitsHeader:Failed to get value type for keyword:"+keyword);
 		}
 		// get whether the FITS keyword is Spectral only or not.
-		isFitsKeywordSpectral = status.getPropertyBoolean("sprat.fits.value.isspectral."+keyword);
+		if(fitsKeyword.getIsSpectral() == null)
+		{
+			throw new NullPointerException(this.getClass().getName()+
+				    ":setFitsHeader:Failed to get isspectral for keyword:"+keyword);
+		}
+		isFitsKeywordSpectral = fitsKeyword.getIsSpectral().booleanValue();
 		// get what the value of the keyword might vary by. This value can be null!
-		varyByString = status.getProperty("sprat.fits.value.varyby."+keyword);
+		varyByString = fitsKeyword.getVaryByString();
 		// compute what the keyword containing the FITS keyword's value will be from the varyby string
 		valueKeywordString = getFITSValueKeywordString(keyword,varyByString,mirrorPosition,slitPosition,
 							       grismPosition,rotationPosition,binx,biny);
 		// add FITS header if it is not spectral, or it is spectral and the header is for spectral data
 		if((isFitsKeywordSpectral == false)||(isSpectralFitsHeader&&isFitsKeywordSpectral))
 		{
-			sprat.log(Logging.VERBOSITY_VERBOSE,this.getClass().getName()+":setFitsHeader:Keyword "+
-				  keyword+":type: "+typeString+":retrieve value from:"+valueKeywordString+".");
+			sprat.log(Logging.VERBOSITY_VERBOSE,"{}:setFitsHeader:Keyword {}:type: {}:retrieve value from:{}.",
+				  this.getClass().getName(),keyword,typeString,valueKeywordString);
 			if(typeString.equals("string"))
 			{
 				if(valueKeywordString.equals("internal") == false)
 				{
-					valueString = status.getProperty(valueKeywordString);
+					valueString = (String)(fitsKeyword.getValue(valueKeywordString));
 				}
 				else
 					valueString = (String)(getFitsKeywordInternalValue(keyword));
@@ -310,8 +415,11 @@ public class FITSImplementation extends HardwareImplementation implements JMSCom
 				
 				if(valueKeywordString.equals("internal") == false)
 				{
-					ivalue = status.getPropertyInteger(valueKeywordString);
-					iov = new Integer(ivalue);
+					value = fitsKeyword.getValue(valueKeywordString);
+					if(value instanceof Integer)
+						iov = (Integer)value;
+					else
+						iov = new Integer(status.getPropertyInteger(valueKeywordString));
 				}
 				else
 					iov = (Integer)(getFitsKeywordInternalValue(keyword));
@@ -323,8 +431,11 @@ public class FITSImplementation extends HardwareImplementation implements JMSCom
 				
 				if(valueKeywordString.equals("internal") == false)
 				{
-					dvalue = status.getPropertyDouble(valueKeywordString);
-					fov = new Float(dvalue);
+					value = fitsKeyword.getValue(valueKeywordString);
+					if(value instanceof Float)
+						fov = (Float)value;
+					else
+						fov = new Float(status.getPropertyDouble(valueKeywordString));
 				}
 				else
 					fov = (Float)(getFitsKeywordInternalValue(keyword));
@@ -336,8 +447,11 @@ public class FITSImplementation extends HardwareImplementation implements JMSCom
 
 				if(valueKeywordString.equals("internal") == false)
 				{
-					dvalue = status.getPropertyDouble(valueKeywordString);
-					dov = new Double(dvalue);
+					value = fitsKeyword.getValue(valueKeywordString);
+					if(value instanceof Double)
+						dov = (Double)value;
+					else
+						dov = new Double(status.getPropertyDouble(valueKeywordString));
 				}
 				else
 					dov = (Double)(getFitsKeywordInternalValue(keyword));
@@ -349,8 +463,11 @@ public class FITSImplementation extends HardwareImplementation implements JMSCom
 				
 				if(valueKeywordString.equals("internal") == false)
 				{
-					bvalue = status.getPropertyBoolean(valueKeywordString);
-					bov = new Boolean(bvalue);
+					value = fitsKeyword.getValue(valueKeywordString);
+					if(value instanceof Boolean)
+						bov = (Boolean)value;
+					else
+						bov = new Boolean(status.getPropertyBoolean(valueKeywordString));
 				}
 				else
 					bov = (Boolean)(getFitsKeywordInternalValue(keyword));
@@ -365,13 +482,13 @@ public class FITSImplementation extends HardwareImplementation implements JMSCom
 						    typeString+" for keyword:"+keyword);
 			}
 			// comment
-			commentString = status.getProperty("sprat.fits.comment."+keyword);
+			commentString = fitsKeyword.getCommentString();
 			if((commentString != null)&&(commentString.length() > 0))
 			{
 				addFitsHeaderComment(keyword,commentString);
 			}
 			// units
-			unitsString = status.getProperty("sprat.fits.units."+keyword);
+			unitsString = fitsKeyword.getUnitsString();
 			if((unitsString != null)&&(unitsString.length() > 0))
 			{
 				addFitsHeaderUnits(keyword,unitsString);
@@ -747,9 +864,11 @@ public class FITSImplementation extends HardwareImplementation implements JMSCom
 	}
 
 	/**
-	 * Pass the GET_FITS headers returned from the ISS to the C layer.
+	 * Pass the GET_FITS headers returned from the ISS to the C layer. The headers are sent as one batch.
 	 * @param list A Vector of FitsHeaderCardImage instances to pass into the C layer.
-	 * @exception Exception Thrown if addFitsHeader fails.
+	 * @exception Exception Thrown if addFitsHeader or sendFitsHeaderBatch fails.
+	 * @see #startFitsHeaderBatch
+	 * @see #sendFitsHeaderBatch
 	 * @see #addFitsHeader
 	 * @see #addFitsHeaderComment
 	 * @see #addFitsHeaderUnits
@@ -763,26 +882,36 @@ public class FITSImplementation extends HardwareImplementation implements JMSCom
 		String unitsString = null;
 
 		sprat.log(Logging.VERBOSITY_INTERMEDIATE,this.getClass().getName()+":addISSFitsHeaderList:started.");
-		// iterate over keywords to copy
-		for(int index = 0; index < list.size(); index ++)
+		startFitsHeaderBatch();
+		try
 		{
-			cardImage = (FitsHeaderCardImage)(list.get(index));
-			sprat.log(Logging.VERBOSITY_VERBOSE,this.getClass().getName()+
-				  ":addISSFitsHeaderList:Adding "+cardImage.getKeyword()+" to C layer.");
-			addFitsHeader(cardImage.getKeyword(),cardImage.getValue());
-			// comment
-			commentString = cardImage.getComment();
-			if((commentString != null)&&(commentString.length() > 0))
+			// iterate over keywords to copy
+			for(int index = 0; index < list.size(); index ++)
 			{
-				addFitsHeaderComment(cardImage.getKeyword(),commentString);
-			}
-			// units
-			unitsString = cardImage.getUnits();
-			if((unitsString != null)&&(unitsString.length() > 0))
-			{
-				addFitsHeaderUnits(cardImage.getKeyword(),unitsString);
-			}
-		}// end for
+				cardImage = (FitsHeaderCardImage)(list.get(index));
+				sprat.log(Logging.VERBOSITY_VERBOSE,"{}:addISSFitsHeaderList:Adding {} to C layer.",
+					  this.getClass().getName(),cardImage.getKeyword());
+				addFitsHeader(cardImage.getKeyword(),cardImage.getValue());
+				// comment
+				commentString = cardImage.getComment();
+				if((commentString != null)&&(commentString.length() > 0))
+				{
+					addFitsHeaderComment(cardImage.getKeyword(),commentString);
+				}
+				// units
+				unitsString = cardImage.getUnits();
+				if((unitsString != null)&&(unitsString.length() > 0))
+				{
+					addFitsHeaderUnits(cardImage.getKeyword(),unitsString);
+				}
+			}// end for
+		}
+		catch(Exception e)
+		{
+			fitsHeaderBatch = null;
+			throw e;
+		}
+		sendFitsHeaderBatch();
 		sprat.log(Logging.VERBOSITY_INTERMEDIATE,this.getClass().getName()+":addISSFitsHeaderList:finished.");
 	}
 
@@ -790,12 +919,16 @@ public class FITSImplementation extends HardwareImplementation implements JMSCom
 	 * Method to add the specified FITS header to the C layers list of
 	 * FITS headers. The C layer machine/port specification is retrieved from the "sprat.ccd.c.hostname"
 	 * and "sprat.ccd.c.port_number" properties. An instance of FitsHeaderAddCommand is used to transmit the data.
+	 * If a batch has been started (fitsHeaderBatch is non-null), addFitsHeaderToBatch is called to add the
+	 * header to the batch instead.
 	 * @param keyword The FITS headers keyword.
 	 * @param value The FITS headers value - an object of class String,Integer,Float,Double,Boolean,Date.
 	 * @exception Exception Thrown if the FitsHeaderAddCommand internally errors, or the return code indicates a
 	 *            failure.
 	 * @see #status
 	 * @see #dateFitsFieldToString
+	 * @see #fitsHeaderBatch
+	 * @see #addFitsHeaderToBatch
 	 * @see ngat.sprat.SpratStatus#getProperty
 	 * @see ngat.sprat.SpratStatus#getPropertyInteger
 	 * @see ngat.sprat.ccd.command.FitsHeaderAddCommand
@@ -821,6 +954,11 @@ public class FITSImplementation extends HardwareImplementation implements JMSCom
 			throw new NullPointerException(this.getClass().getName()+
 						       ":addFitsHeader:value was null for keyword:"+keyword);
 		}
+		if(fitsHeaderBatch != null)
+		{
+			addFitsHeaderToBatch(keyword,value);
+			return;
+		}
 		addCommand = new FitsHeaderAddCommand();
 		// configure C comms
 		addCommand.setAddress(ccdCLayerHostname);
@@ -828,43 +966,38 @@ public class FITSImplementation extends HardwareImplementation implements JMSCom
 		// set command parameters
 		if(value instanceof String)
 		{
-			sprat.log(Logging.VERBOSITY_INTERMEDIATE,this.getClass().getName()+
-				  ":addFitsHeader:Adding keyword "+keyword+" with String value "+value+".");
+			sprat.log(Logging.VERBOSITY_INTERMEDIATE,"{}:addFitsHeader:Adding keyword {} with String value {}.",
+				  this.getClass().getName(),keyword,value);
 			addCommand.setCommand(keyword,(String)value);
 		}
 		else if(value instanceof Integer)
 		{
-			sprat.log(Logging.VERBOSITY_INTERMEDIATE,this.getClass().getName()+
-				  ":addFitsHeader:Adding keyword "+keyword+" with integer value "+
-				  ((Integer)value).intValue()+".");
+			sprat.log(Logging.VERBOSITY_INTERMEDIATE,"{}:addFitsHeader:Adding keyword {} with integer value {}.",
+				  this.getClass().getName(),keyword,value);
 			addCommand.setCommand(keyword,((Integer)value).intValue());
 		}
 		else if(value instanceof Float)
 		{
-			sprat.log(Logging.VERBOSITY_INTERMEDIATE,this.getClass().getName()+
-				  ":addFitsHeader:Adding keyword "+keyword+" with float value "+
-				  ((Float)value).doubleValue()+".");
+			sprat.log(Logging.VERBOSITY_INTERMEDIATE,"{}:addFitsHeader:Adding keyword {} with float value {}.",
+				  this.getClass().getName(),keyword,value);
 			addCommand.setCommand(keyword,((Float)value).doubleValue());
 		}
 		else if(value instanceof Double)
 		{
-			sprat.log(Logging.VERBOSITY_INTERMEDIATE,this.getClass().getName()+
-				  ":addFitsHeader:Adding keyword "+keyword+" with double value "+
-				  ((Double)value).doubleValue()+".");
+			sprat.log(Logging.VERBOSITY_INTERMEDIATE,"{}:addFitsHeader:Adding keyword {} with double value {}.",
+				  this.getClass().getName(),keyword,value);
 		        addCommand.setCommand(keyword,((Double)value).doubleValue());
 		}
 		else if(value instanceof Boolean)
 		{
-			sprat.log(Logging.VERBOSITY_INTERMEDIATE,this.getClass().getName()+
-				  ":addFitsHeader:Adding keyword "+keyword+" with boolean value "+
-				  ((Boolean)value).booleanValue()+".");
+			sprat.log(Logging.VERBOSITY_INTERMEDIATE,"{}:addFitsHeader:Adding keyword {} with boolean value {}.",
+				  this.getClass().getName(),keyword,value);
 			addCommand.setCommand(keyword,((Boolean)value).booleanValue());
 		}
 		else if(value instanceof Date)
 		{
-			sprat.log(Logging.VERBOSITY_INTERMEDIATE,this.getClass().getName()+
-				  ":addFitsHeader:Adding keyword "+keyword+" with date value "+
-				  dateFitsFieldToString((Date)value)+".");
+			sprat.log(Logging.VERBOSITY_INTERMEDIATE,"{}:addFitsHeader:Adding keyword {} with date value {}.",
+				  this.getClass().getName(),keyword,value);
 			addCommand.setCommand(keyword,dateFitsFieldToString((Date)value));
 		}
 		else
@@ -888,6 +1021,39 @@ public class FITSImplementation extends HardwareImplementation implements JMSCom
 		}
 	}
 
+	/**
+	 * Method to add the specified FITS header to the current batch of FITS headers.
+	 * @param keyword The FITS headers keyword.
+	 * @param value The FITS headers value - an object of class String,Integer,Float,Double,Boolean,Date.
+	 * @exception IllegalArgumentException Thrown if the value has an illegal class.
+	 * @see #fitsHeaderBatch
+	 * @see #dateFitsFieldToString
+	 * @see ngat.sprat.ccd.command.FitsHeaderBatchCommand#add
+	 */
+	protected void addFitsHeaderToBatch(String keyword,Object value) throws IllegalArgumentException
+	{
+		sprat.log(Logging.VERBOSITY_VERBOSE,"{}:addFitsHeaderToBatch:Adding keyword {} with value {} to batch.",
+			  this.getClass().getName(),keyword,value);
+		if(value instanceof String)
+			fitsHeaderBatch.add(keyword,(String)value);
+		else if(value instanceof Integer)
+			fitsHeaderBatch.add(keyword,((Integer)value).intValue());
+		else if(value instanceof Float)
+			fitsHeaderBatch.add(keyword,((Float)value).doubleValue());
+		else if(value instanceof Double)
+			fitsHeaderBatch.add(keyword,((Double)value).doubleValue());
+		else if(value instanceof Boolean)
+			fitsHeaderBatch.add(keyword,((Boolean)value).booleanValue());
+		else if(value instanceof Date)
+			fitsHeaderBatch.add(keyword,dateFitsFieldToString((Date)value));
+		else
+		{
+			throw new IllegalArgumentException(this.getClass().getName()+
+							   ":addFitsHeaderToBatch:value had illegal class:"+
+							   value.getClass().getName());
+		}
+	}
+
 	/**
 	 * Method to add a comment to a specified FITS header keyword in the C layers list of
 	 * FITS headers. The C layer machine/port specification is retrieved from the "sprat.ccd.c.hostname"
@@ -895,11 +1061,14 @@ public class FITSImplementation extends HardwareImplementation implements JMSCom
 	 * @param keyword The FITS headers keyword. This should have previously been added to the C layers list of
 	 *        FITS headers.
 	 * @param comment The comment to associate with the FITS keyword.
+	 * If a batch has been started, the comment is added to the batch instead.
 	 * @exception Exception Thrown if the FitsHeaderAddCommand internally errors, or the return code indicates a
 	 *            failure.
 	 * @see #status
+	 * @see #fitsHeaderBatch
 	 * @see ngat.sprat.SpratStatus#getProperty
 	 * @see ngat.sprat.SpratStatus#getPropertyInteger
+	 * @see ngat.sprat.ccd.command.FitsHeaderBatchCommand#addComment
 	 * @see ngat.sprat.ccd.command.FitsHeaderAddCommand
 	 * @see ngat.sprat.ccd.command.FitsHeaderAddCommand#setAddress
 	 * @see ngat.sprat.ccd.command.FitsHeaderAddCommand#setPortNumber
@@ -924,6 +1093,11 @@ public class FITSImplementation extends HardwareImplementation implements JMSCom
 			throw new NullPointerException(this.getClass().getName()+
 						       ":addFitsHeaderComment:comment was null for keyword:"+keyword);
 		}
+		if(fitsHeaderBatch != null)
+		{
+			fitsHeaderBatch.addComment(keyword,comment);
+			return;
+		}
 		addCommand = new FitsHeaderAddCommand();
 		// configure C comms
 		addCommand.setAddress(ccdCLayerHostname);
@@ -954,11 +1128,14 @@ public class FITSImplementation extends HardwareImplementation implements JMSCom
 	 * @param keyword The FITS headers keyword. This should have previously been added to the C layers list of
 	 *        FITS headers.
 	 * @param units The units string to associate with the FITS keyword.
+	 * If a batch has been started, the units is added to the batch instead.
 	 * @exception Exception Thrown if the FitsHeaderAddCommand internally errors, or the return code indicates a
 	 *            failure.
 	 * @see #status
+	 * @see #fitsHeaderBatch
 	 * @see ngat.sprat.SpratStatus#getProperty
 	 * @see ngat.sprat.SpratStatus#getPropertyInteger
+	 * @see ngat.sprat.ccd.command.FitsHeaderBatchCommand#addUnits
 	 * @see ngat.sprat.ccd.command.FitsHeaderAddCommand
 	 * @see ngat.sprat.ccd.command.FitsHeaderAddCommand#setAddress
 	 * @see ngat.sprat.ccd.command.FitsHeaderAddCommand#setPortNumber
@@ -983,6 +1160,11 @@ public class FITSImplementation extends HardwareImplementation implements JMSCom
 			throw new NullPointerException(this.getClass().getName()+
 						       ":addFitsHeaderUnits:units was null for keyword:"+keyword);
 		}
+		if(fitsHeaderBatch != null)
+		{
+			fitsHeaderBatch.addUnits(keyword,units);
+			return;
+		}
 		addCommand = new FitsHeaderAddCommand();
 		// configure C comms
 		addCommand.setAddress(ccdCLayerHostname);
@@ -1018,6 +1200,7 @@ public class FITSImplementation extends HardwareImplementation implements JMSCom
 		boolean found;
 		int index;
 
+		objectName = null;
 		index = 0;
 		found = false;
 		while((index < list.size())&&(found == false))
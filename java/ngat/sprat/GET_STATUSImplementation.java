@@ -4,6 +4,7 @@ package ngat.sprat;
 
 import java.lang.*;
 import java.util.*;
+import java.util.concurrent.*;
 
 import ngat.message.base.*;
 import ngat.message.ISS_INST.ISS_TO_INST;
@@ -42,6 +43,29 @@ public class GET_STATUSImplementation extends HardwareImplementation implements
 	 * @see #commsInstrumentStatus
 	 */
 	public final static int COMMS_INSTRUMENT_STATUS_COUNT = 2;
+	/**
+	 * The default timeout for an individual intermediate status query, in milliseconds.
+	 * Used if the "sprat.get_status.query.timeout" property is not set.
+	 * @see #getIntermediateStatus
+	 */
+	public final static long DEFAULT_QUERY_TIMEOUT = 2000;
+	/**
+	 * The default timeout for all the intermediate status queries, in milliseconds.
+	 * Used if the "sprat.get_status.timeout" property is not set.
+	 * @see #getIntermediateStatus
+	 */
+	public final static long DEFAULT_TIMEOUT = 5000;
+	/**
+	 * The name of the group of basic status keywords (retrieved from the CCD C layer) in the status cache.
+	 * @see SpratStatusCache
+	 */
+	public final static String STATUS_CACHE_GROUP_BASIC = new String("basic");
+	/**
+	 * The name of the group of intermediate status keywords (retrieved from the CCD C layer and 
+	 * mechanism Arduino) in the status cache.
+	 * @see SpratStatusCache
+	 */
+	public final static String STATUS_CACHE_GROUP_INTERMEDIATE = new String("intermediate");
 	/**
 	 * This hashtable is created in processCommand, and filled with status data,
 	 * and is returned in the GET_STATUS_DONE object.
@@ -79,6 +103,14 @@ public class GET_STATUSImplementation extends HardwareImplementation implements
 	 * Usually one of: NONE,WAIT_START,CLEAR,EXPOSE,PRE_READOUT,READOUT,POST_READOUT
 	 */
 	protected String exposureStatusString = null;
+	/**
+	 * The "status all" command sent by getBasicStatus during this status request, or null if the basic status
+	 * came from the status cache, or the C layer did not support the command. If this contains the CCD
+	 * temperature, getCCDTemperature uses it rather than sending another command to the C layer.
+	 * @see #getBasicStatus
+	 * @see #getCCDTemperature
+	 */
+	protected StatusAllCommand statusAllCommand = null;
 
 	/**
 	 * Constructor.
@@ -121,25 +153,25 @@ public class GET_STATUSImplementation extends HardwareImplementation implements
 	 * <ul>
 	 * <li>getCCDCLayerConfig is called to get the CCD  C layer address/port number.
 	 * <li>getMechanismConfig is called to get the mechanism Arduino address/port number.
-	 * <li>getExposureStatus is called to get the exposure status into the 
-	 *     exposureStatus and exposureStatusString variables.
-	 * <li>"Exposure Status" and "Exposure Status String" status properties are added to the hashtable.
+	 * <li>If the status cache is enabled and the basic status in it is fresh, the basic status
+	 *     is copied from the cache, otherwise getBasicStatus is called to retrieve it (and the cache updated).
+	 * <li>The current mode is derived from the exposure status.
 	 * <li>The "Instrument" status property is set to the "sprat.get_status.instrument_name" 
 	 *     property value.
 	 * <li>The detectorTemperatureInstrumentStatus is initialised.
 	 * <li>The "currentCommand" status hashtable value is set to the currently executing command.
-	 * <li>getStatusExposureIndex / getStatusExposureMultrun / getStatusExposureRun / 
-	 *     getStatusExposureWindow are called to add some basic status to the hashtable.
-	 * <li>"Exposure Count" status hashtable value is set to 0, 
-	 *     and "Exposure Length" status hashtable value is set to the exposure length using 
-	 *     getStatusExposureLength.
-	 * <li>getIntermediateStatus is called if the GET_STATUS command level is at least intermediate.
+	 * <li>If the GET_STATUS command level is at least intermediate, the intermediate status is copied from
+	 *     the status cache if it is fresh. Whilst a mechanism move is in progress the last cached values
+	 *     are copied even if they are stale, as the move holds the Arduino. Otherwise
+	 *     getIntermediateStatusTable is called (and the cache updated).
 	 * <li>getFullStatusis called if the GET_STATUS command level is at least full.
 	 * </ul>
 	 * An object of class GET_STATUS_DONE is returned, with the information retrieved.
 	 * @param command The GET_STATUS command.
 	 * @return An object of class GET_STATUS_DONE is returned.
 	 * @see #COMMS_INSTRUMENT_STATUS_COUNT
+	 * @see #STATUS_CACHE_GROUP_BASIC
+	 * @see #STATUS_CACHE_GROUP_INTERMEDIATE
 	 * @see #sprat
 	 * @see #status
 	 * @see #hashTable
@@ -147,17 +179,16 @@ public class GET_STATUSImplementation extends HardwareImplementation implements
 	 * @see #commsInstrumentStatus
 	 * @see #getCCDCLayerConfig
 	 * @see #getMechanismConfig
-	 * @see #getExposureStatus
-	 * @see #getStatusExposureIndex
-	 * @see #getStatusExposureCount
-	 * @see #getStatusExposureMultrun
-	 * @see #getStatusExposureRun
-	 * @see #getStatusExposureLength
-	 * @see #getStatusExposureStartTime
-	 * @see #getIntermediateStatus
+	 * @see #getBasicStatus
+	 * @see #getIntermediateStatusTable
 	 * @see #getFullStatus
 	 * @see #exposureStatus
 	 * @see #exposureStatusString
+	 * @see Sprat#getStatusCache
+	 * @see SpratStatusCache#isFresh
+	 * @see SpratStatusCache#isMechanismActive
+	 * @see SpratStatusCache#copy
+	 * @see SpratStatusCache#update
 	 * @see SpratStatus#getProperty
 	 * @see SpratStatus#getCurrentCommand
 	 * @see GET_STATUS#getLevel
@@ -169,8 +200,12 @@ public class GET_STATUSImplementation extends HardwareImplementation implements
 		GET_STATUS getStatusCommand = (GET_STATUS)command;
 		GET_STATUS_DONE getStatusDone = new GET_STATUS_DONE(command.getId());
 		ISS_TO_INST currentCommand = null;
+		SpratStatusCache statusCache = null;
+		Hashtable intermediateTable = null;
 		int currentMode;
 
+		statusCache = sprat.getStatusCache();
+		statusAllCommand = null;
 		try
 		{
 			// Create new hashtable to be returned
@@ -180,10 +215,21 @@ public class GET_STATUSImplementation extends HardwareImplementation implements
 			// get CCD C layer and Arduino mechanism comms configuration
 			getCCDCLayerConfig();
 			getMechanismConfig();
-			// exposure status
-			getExposureStatus();
-			hashTable.put("Exposure Status",new Integer(exposureStatus));
-			hashTable.put("Exposure Status String",new String(exposureStatusString));
+			// basic exposure status, from the cache if it is fresh enough
+			if((statusCache != null)&&statusCache.isFresh(STATUS_CACHE_GROUP_BASIC))
+			{
+				sprat.log(Logging.VERBOSITY_VERBOSE,
+					  "processCommand:Retrieving basic status from status cache.");
+				statusCache.copy(STATUS_CACHE_GROUP_BASIC,hashTable);
+				exposureStatus = ((Integer)(hashTable.get("Exposure Status"))).intValue();
+				exposureStatusString = (String)(hashTable.get("Exposure Status String"));
+			}
+			else
+			{
+				getBasicStatus();
+				if(statusCache != null)
+					statusCache.update(STATUS_CACHE_GROUP_BASIC,hashTable);
+			}
 			// current mode, derived from exposure status
 			currentMode = getCurrentMode();
 			getStatusDone.setCurrentMode(currentMode);
@@ -206,17 +252,6 @@ public class GET_STATUSImplementation extends HardwareImplementation implements
 				hashTable.put("currentCommand","");
 			else
 				hashTable.put("currentCommand",currentCommand.getClass().getName());
-			// basic information
-			getStatusExposureIndex();
-			// "Exposure Count" is searched for by the IcsGUI
-			getStatusExposureCount(); 
-			getStatusExposureMultrun();
-			getStatusExposureRun();
-			// "Exposure Number" is added in getStatusExposureIndex
-			// "Exposure Length" is needed for IcsGUI
-			getStatusExposureLength(); 
-			// "Exposure Start Time" is needed for IcsGUI
-			getStatusExposureStartTime();
 		}
 		catch(Exception e)
 		{
@@ -231,7 +266,26 @@ public class GET_STATUSImplementation extends HardwareImplementation implements
 	// intermediate level information - basic plus controller calls.
 		if(getStatusCommand.getLevel() >= GET_STATUS.LEVEL_INTERMEDIATE)
 		{
-			getIntermediateStatus();
+			if((statusCache != null)&&statusCache.isFresh(STATUS_CACHE_GROUP_INTERMEDIATE))
+			{
+				sprat.log(Logging.VERBOSITY_VERBOSE,
+					  "processCommand:Retrieving intermediate status from status cache.");
+				statusCache.copy(STATUS_CACHE_GROUP_INTERMEDIATE,hashTable);
+			}
+			else if((statusCache != null)&&statusCache.isMechanismActive()&&
+				statusCache.copy(STATUS_CACHE_GROUP_INTERMEDIATE,hashTable))
+			{
+				// don't query the Arduino whilst a move holds it, report the last values instead
+				sprat.log(Logging.VERBOSITY_VERBOSE,"processCommand:Mechanism move in progress:"+
+					  "Retrieving last intermediate status from status cache.");
+			}
+			else
+			{
+				intermediateTable = getIntermediateStatusTable();
+				hashTable.putAll(intermediateTable);
+				if(statusCache != null)
+					statusCache.update(STATUS_CACHE_GROUP_INTERMEDIATE,intermediateTable);
+			}
 		}// end if intermediate level status
 	// Get full status information.
 		if(getStatusCommand.getLevel() >= GET_STATUS.LEVEL_FULL)
@@ -247,6 +301,190 @@ public class GET_STATUSImplementation extends HardwareImplementation implements
 		return getStatusDone;
 	}
 
+	/**
+	 * Sample the basic and intermediate status live, and store it in the specified status cache.
+	 * This is called periodically by the SpratStatusSampler thread. The intermediate status is not sampled
+	 * whilst a mechanism move is in progress, as the Arduino only serves one client at a time, and
+	 * the move's own position queries would be held up (the intermediate group is invalidated by the move anyway).
+	 * @param statusCache The cache to store the status in.
+	 * @exception Exception Thrown if retrieving the basic status fails.
+	 * @see #STATUS_CACHE_GROUP_BASIC
+	 * @see #STATUS_CACHE_GROUP_INTERMEDIATE
+	 * @see #hashTable
+	 * @see #getCCDCLayerConfig
+	 * @see #getMechanismConfig
+	 * @see #getBasicStatus
+	 * @see #getIntermediateStatusTable
+	 * @see SpratStatusCache#update
+	 * @see SpratStatusCache#isMechanismActive
+	 * @see SpratStatusSampler
+	 */
+	public void sampleStatus(SpratStatusCache statusCache) throws Exception
+	{
+		statusAllCommand = null;
+		hashTable = new Hashtable();
+		getCCDCLayerConfig();
+		getMechanismConfig();
+		getBasicStatus();
+		statusCache.update(STATUS_CACHE_GROUP_BASIC,hashTable);
+		for(int i = 0; i < COMMS_INSTRUMENT_STATUS_COUNT; i++)
+		{
+			commsInstrumentStatus[i] = GET_STATUS_DONE.VALUE_STATUS_UNKNOWN;
+		}
+		detectorTemperatureInstrumentStatus = GET_STATUS_DONE.VALUE_STATUS_UNKNOWN;
+		if(statusCache.isMechanismActive())
+		{
+			sprat.log(Logging.VERBOSITY_VERY_VERBOSE,
+				  "sampleStatus:Mechanism move in progress, not sampling intermediate status.");
+			return;
+		}
+		statusCache.update(STATUS_CACHE_GROUP_INTERMEDIATE,getIntermediateStatusTable());
+	}
+
+	/**
+	 * Get the basic exposure status from the CCD C layer, and put it in the hashTable.
+	 * A single "status all" command is sent to retrieve all the basic status in one round trip (see
+	 * getStatusAll). If the C layer does not support this command (or it fails), each item is retrieved
+	 * using a separate status command instead:
+	 * <ul>
+	 * <li>getExposureStatus is called to get the exposure status into the 
+	 *     exposureStatus and exposureStatusString variables.
+	 * <li>"Exposure Status" and "Exposure Status String" status properties are added to the hashtable.
+	 * <li>getStatusExposureIndex / getStatusExposureMultrun / getStatusExposureRun / 
+	 *     getStatusExposureWindow are called to add some basic status to the hashtable.
+	 * <li>"Exposure Count" status hashtable value is set to 0, 
+	 *     and "Exposure Length" status hashtable value is set to the exposure length using 
+	 *     getStatusExposureLength.
+	 * </ul>
+	 * @exception Exception Thrown if an error occurs.
+	 * @see #hashTable
+	 * @see #getStatusAll
+	 * @see #getExposureStatus
+	 * @see #getStatusExposureIndex
+	 * @see #getStatusExposureCount
+	 * @see #getStatusExposureMultrun
+	 * @see #getStatusExposureRun
+	 * @see #getStatusExposureLength
+	 * @see #getStatusExposureStartTime
+	 * @see #exposureStatus
+	 * @see #exposureStatusString
+	 */
+	protected void getBasicStatus() throws Exception
+	{
+		try
+		{
+			getStatusAll();
+			return;
+		}
+		catch(Exception e)
+		{
+			sprat.log(Logging.VERBOSITY_VERBOSE,"getBasicStatus:status all command failed, "+
+				  "retrieving status using seperate commands:"+e);
+			statusAllCommand = null;
+		}
+		// exposure status
+		getExposureStatus();
+		hashTable.put("Exposure Status",new Integer(exposureStatus));
+		hashTable.put("Exposure Status String",new String(exposureStatusString));
+		// basic information
+		getStatusExposureIndex();
+		// "Exposure Count" is searched for by the IcsGUI
+		getStatusExposureCount(); 
+		getStatusExposureMultrun();
+		getStatusExposureRun();
+		// "Exposure Number" is added in getStatusExposureIndex
+		// "Exposure Length" is needed for IcsGUI
+		getStatusExposureLength(); 
+		// "Exposure Start Time" is needed for IcsGUI
+		getStatusExposureStartTime();
+	}
+
+	/**
+	 * Get all the basic status using a single StatusAllCommand, sent to the CCD C layer using
+	 * ccdCLayerHostname and ccdCLayerPortNumber. The exposure status is stored in exposureStatus and 
+	 * exposureStatusString, and the same hashTable keys as the seperate status commands are filled in.
+	 * The command is kept in statusAllCommand, so the CCD temperature it returned can be used by getCCDTemperature.
+	 * @exception Exception Thrown if the command fails, or the C layer does not support it.
+	 * @see #hashTable
+	 * @see #statusAllCommand
+	 * @see #exposureStatus
+	 * @see #exposureStatusString
+	 * @see HardwareImplementation#ccdCLayerHostname
+	 * @see HardwareImplementation#ccdCLayerPortNumber
+	 * @see ngat.sprat.ccd.command.StatusAllCommand
+	 */
+	protected void getStatusAll() throws Exception
+	{
+		StatusAllCommand statusCommand = null;
+		Date exposureStartTime = null;
+		int returnCode,exposureIndex;
+		String errorString = null;
+
+		sprat.log(Logging.VERBOSITY_INTERMEDIATE,"getStatusAll:started.");
+		statusCommand = new StatusAllCommand();
+		statusCommand.setAddress(ccdCLayerHostname);
+		statusCommand.setPortNumber(ccdCLayerPortNumber);
+		// actually send the command to the CCD C layer
+		statusCommand.sendCommand();
+		// check the parsed reply
+		if(statusCommand.getParsedReplyOK() == false)
+		{
+			returnCode = statusCommand.getReturnCode();
+			errorString = statusCommand.getParsedReply();
+			sprat.log(Logging.VERBOSITY_TERSE,"getStatusAll:status all command failed with return code "+
+				  returnCode+" and error string:"+errorString);
+			throw new Exception(this.getClass().getName()+
+					    ":getStatusAll:status all command failed with return code "+
+					    returnCode+" and error string:"+errorString);
+		}
+		exposureStatus = statusCommand.getExposureStatus();
+		exposureStatusString = statusCommand.getExposureStatusString();
+		hashTable.put("Exposure Status",new Integer(exposureStatus));
+		hashTable.put("Exposure Status String",new String(exposureStatusString));
+		exposureIndex = statusCommand.getExposureIndex();
+		hashTable.put("Exposure Index",new Integer(exposureIndex));
+		// exposure number is really the same thing, but is used by the IcsGUI.
+		hashTable.put("Exposure Number",new Integer(exposureIndex));
+		hashTable.put("Exposure Count",new Integer(statusCommand.getExposureCount()));
+		hashTable.put("Exposure Multrun",new Integer(statusCommand.getExposureMultrun()));
+		hashTable.put("Exposure Run",new Integer(statusCommand.getExposureRun()));
+		hashTable.put("Exposure Length",new Integer(statusCommand.getExposureLength()));
+		exposureStartTime = statusCommand.getExposureStartTime();
+		hashTable.put("Exposure Start Time",new Long(exposureStartTime.getTime()));
+		hashTable.put("Exposure Start Time Date",exposureStartTime);
+		statusAllCommand = statusCommand;
+		sprat.log(Logging.VERBOSITY_INTERMEDIATE,"getStatusAll:finished with exposure status:"+
+			  exposureStatusString);
+	}
+
+	/**
+	 * Get the intermediate level status into a new table, rather than the hashTable. 
+	 * getIntermediateStatus (and the methods it calls) put status into the hashTable, so the hashTable
+	 * is temporarily replaced by a new table whilst it is called. This allows the intermediate status
+	 * to be cached seperately from the basic status.
+	 * @return A new table containing the intermediate level status.
+	 * @see #hashTable
+	 * @see #getIntermediateStatus
+	 */
+	protected Hashtable getIntermediateStatusTable()
+	{
+		Hashtable basicTable = null;
+		Hashtable intermediateTable = null;
+
+		basicTable = hashTable;
+		try
+		{
+			hashTable = new Hashtable();
+			getIntermediateStatus();
+			intermediateTable = hashTable;
+		}
+		finally
+		{
+			hashTable = basicTable;
+		}
+		return intermediateTable;
+	}
+
 	/**
 	 * Get the exposure status. An instance of StatusExposureStatusCommand is used to send the command
 	 * to the CCD C layer, using ccdCLayerHostname and ccdCLayerPortNumber. 
@@ -595,10 +833,25 @@ public class GET_STATUSImplementation extends HardwareImplementation implements
 	}
 
 	/**
-	 * Get intermediate level status. This is temperature information from the CCD.
+	 * Get intermediate level status. This is temperature information from the CCD, mechanism positions,
+	 * lamp states, and enviromental (temperature, humidity, gyro) data from the Arduino.
+	 * Each item is retrieved by a separate StatusQuery. The CCD query is run on the Sprat status thread pool,
+	 * in parallel with the Arduino queries. As the Arduino only serves one client at a time, the Arduino queries
+	 * are run one after another in a single pool thread, over one Arduino session. Each query has to complete 
+	 * within the "sprat.get_status.query.timeout" of starting, and all the queries have to complete within 
+	 * "sprat.get_status.timeout" of the first being submitted. Queries that have not completed in time are
+	 * cancelled, and reported as WARN in the relevant comms status (they do not stall the whole reply). 
+	 * Queries that fail report FAIL as before (except the enviromental ones, which are non-critical and only
+	 * cause a WARN).
 	 * The overall health and well-being statii are then computed using setInstrumentStatus.
 	 * @see #COMMS_INSTRUMENT_STATUS_CCD
 	 * @see #COMMS_INSTRUMENT_STATUS_MECHANISM
+	 * @see #DEFAULT_QUERY_TIMEOUT
+	 * @see #DEFAULT_TIMEOUT
+	 * @see StatusQuery
+	 * @see #submitStatusQuery
+	 * @see #submitSequentialStatusQueries
+	 * @see #getStatusQueryResults
 	 * @see #getCCDTemperature
 	 * @see HardwareImplementation#getSlitPosition
 	 * @see HardwareImplementation#getGrismPosition
@@ -609,86 +862,177 @@ public class GET_STATUSImplementation extends HardwareImplementation implements
 	 * @see HardwareImplementation#getMechanismTemperature
 	 * @see HardwareImplementation#getHumidity
 	 * @see #getGyroPosition
+	 * @see #setDetectorTemperatureInstrumentStatus
 	 * @see #setInstrumentStatus
 	 * @see #commsInstrumentStatus
+	 * @see Sprat#getStatusExecutor
 	 * @see ngat.message.ISS_INST.GET_STATUS_DONE#VALUE_STATUS_OK
 	 * @see ngat.message.ISS_INST.GET_STATUS_DONE#VALUE_STATUS_WARN
 	 * @see ngat.message.ISS_INST.GET_STATUS_DONE#VALUE_STATUS_FAIL
 	 */
 	private void getIntermediateStatus()
 	{
-		double temperature,humidity;
-		int currentPosition;
+		ExecutorService executor = null;
+		Vector<StatusQuery> ccdQueryList = new Vector<StatusQuery>();
+		Vector<StatusQuery> mechanismQueryList = new Vector<StatusQuery>();
+		Vector<StatusQuery> enviromentalQueryList = new Vector<StatusQuery>();
+		Vector<StatusQuery> arduinoQueryList = new Vector<StatusQuery>();
+		String enviromentalStatus = null;
+		Double temperature = null;
+		long queryTimeout,timeout,deadline;
 		int temperatureSensorCount,humiditySensorCount;
 
+		// get timeouts
+		queryTimeout = DEFAULT_QUERY_TIMEOUT;
+		timeout = DEFAULT_TIMEOUT;
 		try
 		{
-			getCCDTemperature();
-			commsInstrumentStatus[COMMS_INSTRUMENT_STATUS_CCD] = GET_STATUS_DONE.
-				VALUE_STATUS_OK;
-		}
-		catch(Exception e)
-		{
-			sprat.error(this.getClass().getName()+
-				      ":getIntermediateStatus:Retrieving temperature status failed.",e);
-			commsInstrumentStatus[COMMS_INSTRUMENT_STATUS_CCD] = GET_STATUS_DONE.
-				VALUE_STATUS_FAIL;
-		}
-		try
-		{
-			// slit position
-			currentPosition = getSlitPosition();
-			hashTable.put("Slit.Position",new Integer(currentPosition));
-			hashTable.put("Slit.Position.String",SlitCommand.positionToString(currentPosition));
-			// grism position
-			currentPosition = getGrismPosition();
-			hashTable.put("Grism.Position",new Integer(currentPosition));
-			hashTable.put("Grism.Position.String",GrismCommand.positionToString(currentPosition));
-			// rotation position
-			currentPosition = getRotationPosition();
-			hashTable.put("Rotation.Position",new Integer(currentPosition));
-			// mirror position
-			currentPosition = getMirrorPosition();
-			hashTable.put("Mirror.Position",new Integer(currentPosition));
-			hashTable.put("Mirror.Position.String",
-				      MirrorCommand.positionToString(currentPosition));
-			getArcLampState();
-			getWLampState();
-			commsInstrumentStatus[COMMS_INSTRUMENT_STATUS_MECHANISM] = GET_STATUS_DONE.
-				VALUE_STATUS_OK;
+			if(status.propertyContainsKey("sprat.get_status.query.timeout"))
+				queryTimeout = status.getPropertyInteger("sprat.get_status.query.timeout");
+			if(status.propertyContainsKey("sprat.get_status.timeout"))
+				timeout = status.getPropertyInteger("sprat.get_status.timeout");
 		}
-		catch(Exception e)
+		catch(NumberFormatException e)
 		{
 			sprat.error(this.getClass().getName()+
-				    ":getIntermediateStatus:Retrieving arduino mechanism status failed.",e);
-			commsInstrumentStatus[COMMS_INSTRUMENT_STATUS_MECHANISM] = GET_STATUS_DONE.
-				VALUE_STATUS_FAIL;
+				    ":getIntermediateStatus:Retrieving status query timeouts failed.",e);
 		}
+		executor = sprat.getStatusExecutor();
+		deadline = System.currentTimeMillis()+timeout;
+		// CCD temperature
+		submitStatusQuery(executor,ccdQueryList,new StatusQuery("CCD temperature")
+			{
+				protected void query(Hashtable statusTable) throws Exception
+				{
+					getCCDTemperature(statusTable);
+				}
+			});
+		// slit position
+		mechanismQueryList.add(new StatusQuery("slit position")
+			{
+				protected void query(Hashtable statusTable) throws Exception
+				{
+					int currentPosition;
+
+					currentPosition = getSlitPosition();
+					statusTable.put("Slit.Position",new Integer(currentPosition));
+					statusTable.put("Slit.Position.String",SlitCommand.positionToString(currentPosition));
+				}
+			});
+		// grism position
+		mechanismQueryList.add(new StatusQuery("grism position")
+			{
+				protected void query(Hashtable statusTable) throws Exception
+				{
+					int currentPosition;
+
+					currentPosition = getGrismPosition();
+					statusTable.put("Grism.Position",new Integer(currentPosition));
+					statusTable.put("Grism.Position.String",GrismCommand.positionToString(currentPosition));
+				}
+			});
+		// rotation position
+		mechanismQueryList.add(new StatusQuery("rotation position")
+			{
+				protected void query(Hashtable statusTable) throws Exception
+				{
+					statusTable.put("Rotation.Position",new Integer(getRotationPosition()));
+				}
+			});
+		// mirror position
+		mechanismQueryList.add(new StatusQuery("mirror position")
+			{
+				protected void query(Hashtable statusTable) throws Exception
+				{
+					int currentPosition;
+
+					currentPosition = getMirrorPosition();
+					statusTable.put("Mirror.Position",new Integer(currentPosition));
+					statusTable.put("Mirror.Position.String",
+							MirrorCommand.positionToString(currentPosition));
+				}
+			});
+		// lamps
+		mechanismQueryList.add(new StatusQuery("arc lamp state")
+			{
+				protected void query(Hashtable statusTable) throws Exception
+				{
+					getArcLampState(statusTable);
+				}
+			});
+		mechanismQueryList.add(new StatusQuery("tungsten lamp state")
+			{
+				protected void query(Hashtable statusTable) throws Exception
+				{
+					getWLampState(statusTable);
+				}
+			});
 		// get temperature and humidity values
 		// These are non-critical, so don't fail the instrument if the sensor is broken
+		enviromentalStatus = GET_STATUS_DONE.VALUE_STATUS_OK;
 		try
 		{
 			temperatureSensorCount = status.getPropertyInteger(
 							 "sprat.mechanism.temperature.sensor.count");
 			for(int i = 0; i < temperatureSensorCount; i++)
 			{
-				temperature = getMechanismTemperature(i);
-				hashTable.put("Mechanism.Temperature."+i,new Double(temperature));
+				final int sensorNumber = i;
 
+				enviromentalQueryList.add(new StatusQuery("mechanism temperature "+sensorNumber)
+					{
+						protected void query(Hashtable statusTable) throws Exception
+						{
+							statusTable.put("Mechanism.Temperature."+sensorNumber,
+									new Double(getMechanismTemperature(sensorNumber)));
+						}
+					});
 			}
 			humiditySensorCount = status.getPropertyInteger(
 							"sprat.mechanism.humidity.sensor.count");
 			for(int i = 0; i < humiditySensorCount; i++)
 			{
-				humidity = getHumidity(i);
-				hashTable.put("Mechanism.Humidity."+i,new Double(humidity));
+				final int sensorNumber = i;
+
+				enviromentalQueryList.add(new StatusQuery("mechanism humidity "+sensorNumber)
+					{
+						protected void query(Hashtable statusTable) throws Exception
+						{
+							statusTable.put("Mechanism.Humidity."+sensorNumber,
+									new Double(getHumidity(sensorNumber)));
+						}
+					});
 			}
-			getGyroPosition();
 		}
 		catch(Exception e)
 		{
 			sprat.error(this.getClass().getName()+
-				    ":getIntermediateStatus:Retrieving arduino enviromental status failed.",e);
+				    ":getIntermediateStatus:Retrieving arduino enviromental sensor counts failed.",e);
+			enviromentalStatus = GET_STATUS_DONE.VALUE_STATUS_WARN;
+		}
+		enviromentalQueryList.add(new StatusQuery("gyro position")
+			{
+				protected void query(Hashtable statusTable) throws Exception
+				{
+					getGyroPosition(statusTable);
+				}
+			});
+		// The Arduino only serves one client at a time, so run the Arduino queries one after another
+		// over one session, in parallel with the CCD query
+		arduinoQueryList.addAll(mechanismQueryList);
+		arduinoQueryList.addAll(enviromentalQueryList);
+		submitSequentialStatusQueries(executor,arduinoQueryList);
+		// wait for the results
+		commsInstrumentStatus[COMMS_INSTRUMENT_STATUS_CCD] = getStatusQueryResults(ccdQueryList,
+							 GET_STATUS_DONE.VALUE_STATUS_FAIL,queryTimeout,deadline);
+		commsInstrumentStatus[COMMS_INSTRUMENT_STATUS_MECHANISM] = getStatusQueryResults(mechanismQueryList,
+							 GET_STATUS_DONE.VALUE_STATUS_FAIL,queryTimeout,deadline);
+		if(getStatusQueryResults(enviromentalQueryList,GET_STATUS_DONE.VALUE_STATUS_WARN,queryTimeout,
+					 deadline).equals(GET_STATUS_DONE.VALUE_STATUS_OK) == false)
+		{
+			enviromentalStatus = GET_STATUS_DONE.VALUE_STATUS_WARN;
+		}
+		if(enviromentalStatus.equals(GET_STATUS_DONE.VALUE_STATUS_OK) == false)
+		{
 			if(commsInstrumentStatus[COMMS_INSTRUMENT_STATUS_MECHANISM] == GET_STATUS_DONE.
 			   VALUE_STATUS_OK)
 			{
@@ -696,6 +1040,22 @@ public class GET_STATUSImplementation extends HardwareImplementation implements
 					VALUE_STATUS_WARN;
 			}
 		}
+		// detector temperature status
+		temperature = (Double)(hashTable.get("Temperature"));
+		if(temperature != null)
+		{
+			try
+			{
+				setDetectorTemperatureInstrumentStatus(temperature.doubleValue());
+			}
+			catch(Exception e)
+			{
+				sprat.error(this.getClass().getName()+
+					    ":getIntermediateStatus:Setting detector temperature status failed.",e);
+				commsInstrumentStatus[COMMS_INSTRUMENT_STATUS_CCD] = GET_STATUS_DONE.
+					VALUE_STATUS_FAIL;
+			}
+		}
 		hashTable.put("CCD.Comms.Status",commsInstrumentStatus[COMMS_INSTRUMENT_STATUS_CCD]);
 		hashTable.put("Mechanism.Comms.Status",
 			      commsInstrumentStatus[COMMS_INSTRUMENT_STATUS_MECHANISM]);
@@ -703,19 +1063,195 @@ public class GET_STATUSImplementation extends HardwareImplementation implements
 		setInstrumentStatus();
 	}
 
+	/**
+	 * Submit a status query to be run on the specified executor, and add it to the specified list.
+	 * If the executor is null, the query is run in the current thread instead.
+	 * @param executor The executor to run the query on.
+	 * @param queryList The list to add the query to.
+	 * @param query The query to submit.
+	 * @see StatusQuery
+	 */
+	protected void submitStatusQuery(ExecutorService executor,Vector<StatusQuery> queryList,StatusQuery query)
+	{
+		queryList.add(query);
+		if(executor != null)
+		{
+			try
+			{
+				executor.execute(query.getFuture());
+				return;
+			}
+			catch(RejectedExecutionException e)
+			{
+				sprat.error(this.getClass().getName()+":submitStatusQuery:Status query "+
+					    query.getName()+" rejected by executor, running in this thread.",e);
+			}
+		}
+		query.getFuture().run();
+	}
+
+	/**
+	 * Submit a list of status queries to be run one after another, in a single thread from the specified executor.
+	 * This is used for the Arduino queries, which are sent over one session opened using 
+	 * openMechanismQuerySession. If the executor is null, the queries are run in the current thread instead.
+	 * @param executor The executor to run the queries on.
+	 * @param queryList The list of queries to run, in order.
+	 * @see StatusQuery
+	 * @see #runSequentialStatusQueries
+	 */
+	protected void submitSequentialStatusQueries(ExecutorService executor,final Vector<StatusQuery> queryList)
+	{
+		Runnable runnable = null;
+
+		runnable = new Runnable()
+		{
+			public void run()
+			{
+				runSequentialStatusQueries(queryList);
+			}
+		};
+		if(executor != null)
+		{
+			try
+			{
+				executor.execute(runnable);
+				return;
+			}
+			catch(RejectedExecutionException e)
+			{
+				sprat.error(this.getClass().getName()+":submitSequentialStatusQueries:Status queries "+
+					    "rejected by executor, running in this thread.",e);
+			}
+		}
+		runnable.run();
+	}
+
+	/**
+	 * Run a list of status queries one after another, over an Arduino session opened by
+	 * openMechanismQuerySession. A query that has already been cancelled (because it timed out whilst
+	 * waiting for the previous queries) is not run.
+	 * @param queryList The list of queries to run, in order.
+	 * @see StatusQuery
+	 * @see HardwareImplementation#openMechanismQuerySession
+	 * @see HardwareImplementation#closeMechanismQuerySession
+	 */
+	protected void runSequentialStatusQueries(Vector<StatusQuery> queryList)
+	{
+		MechanismSession session = null;
+
+		session = openMechanismQuerySession();
+		try
+		{
+			for(int i = 0; i < queryList.size(); i++)
+			{
+				queryList.get(i).getFuture().run();
+				// clear the interrupt from a timed out query being cancelled, so the next query can run
+				Thread.interrupted();
+			}
+		}
+		finally
+		{
+			closeMechanismQuerySession(session);
+		}
+	}
+
+	/**
+	 * Wait for the results of a list of status queries, and copy the status data they retrieved into
+	 * the hashTable. Each query is given until queryTimeout milliseconds after it started running, 
+	 * or the overall deadline (whichever is sooner), to complete. Queries that have not completed by then
+	 * are cancelled.
+	 * @param queryList The list of queries to get the results of.
+	 * @param failStatus The status to return if one of the queries fails.
+	 * @param queryTimeout The timeout for each query, in milliseconds.
+	 * @param deadline The time (in milliseconds since the epoch) by which all the queries must be complete.
+	 * @return GET_STATUS_DONE.VALUE_STATUS_OK if all the queries completed successfully,
+	 *         failStatus if any of the queries failed, otherwise GET_STATUS_DONE.VALUE_STATUS_WARN if any of 
+	 *         the queries did not complete in time.
+	 * @see #hashTable
+	 * @see StatusQuery
+	 * @see ngat.message.ISS_INST.GET_STATUS_DONE#VALUE_STATUS_OK
+	 * @see ngat.message.ISS_INST.GET_STATUS_DONE#VALUE_STATUS_WARN
+	 */
+	protected String getStatusQueryResults(Vector<StatusQuery> queryList,String failStatus,
+					       long queryTimeout,long deadline)
+	{
+		StatusQuery query = null;
+		FutureTask<Hashtable> future = null;
+		String resultStatus = null;
+		long now,startTime,waitTime;
+		boolean failed,late;
+
+		failed = false;
+		late = false;
+		for(int i = 0; i < queryList.size(); i++)
+		{
+			query = queryList.get(i);
+			future = query.getFuture();
+			try
+			{
+				// wait for the query to complete, or it's deadline to expire
+				while(future.isDone() == false)
+				{
+					now = System.currentTimeMillis();
+					waitTime = deadline-now;
+					startTime = query.getStartTime();
+					if(startTime > 0)
+						waitTime = Math.min(waitTime,(startTime+queryTimeout)-now);
+					else
+						waitTime = Math.min(waitTime,queryTimeout);
+					if(waitTime <= 0)
+					{
+						throw new TimeoutException(this.getClass().getName()+
+									   ":getStatusQueryResults:Status query "+
+									   query.getName()+" timed out.");
+					}
+					try
+					{
+						future.get(waitTime,TimeUnit.MILLISECONDS);
+					}
+					catch(TimeoutException e)
+					{
+						// loop round and re-check the deadlines
+					}
+				}
+				hashTable.putAll(future.get());
+			}
+			catch(TimeoutException e)
+			{
+				sprat.log(Logging.VERBOSITY_TERSE,this.getClass().getName()+
+					  ":getStatusQueryResults:Status query "+query.getName()+" timed out.");
+				future.cancel(true);
+				late = true;
+			}
+			catch(Exception e)
+			{
+				sprat.error(this.getClass().getName()+":getStatusQueryResults:Status query "+
+					    query.getName()+" failed.",e);
+				failed = true;
+			}
+		}
+		if(failed)
+			resultStatus = failStatus;
+		else if(late)
+			resultStatus = GET_STATUS_DONE.VALUE_STATUS_WARN;
+		else
+			resultStatus = GET_STATUS_DONE.VALUE_STATUS_OK;
+		return resultStatus;
+	}
+
 	/**
 	 * Get the current, or C layer cached, CCD temperature.
-	 * An instance of StatusTemperatureGetCommand is used to send the command
+	 * If the "status all" command sent by getBasicStatus during this status request returned the temperature,
+	 * that is used. Otherwise an instance of StatusTemperatureGetCommand is used to send the command
 	 * to the C layer, using ccdCLayerHostname and ccdCLayerPortNumber. The returned value is stored in
-	 * the hashTable, under the "Temperature" key (converted to Kelvin). A timestamp is also
+	 * the statusTable, under the "Temperature" key (converted to Kelvin). A timestamp is also
 	 * retrieved (when the temperature was actually measured, it may be a cached value), and this
 	 * is stored in the "Temperature Timestamp" key.
+	 * @param statusTable The table to store the retrieved status in.
 	 * @return A double representing the CCD temperature in Kelvin.
 	 * @exception Exception Thrown if an error occurs.
 	 * @see HardwareImplementation#ccdCLayerHostname
 	 * @see HardwareImplementation#ccdCLayerPortNumber
-	 * @see #hashTable
-	 * @see #setDetectorTemperatureInstrumentStatus
 	 * @see ngat.sprat.Sprat#CENTIGRADE_TO_KELVIN
 	 * @see ngat.sprat.ccd.command.StatusTemperatureGetCommand
 	 * @see ngat.sprat.ccd.command.StatusTemperatureGetCommand#setAddress
@@ -725,16 +1261,30 @@ public class GET_STATUSImplementation extends HardwareImplementation implements
 	 * @see ngat.sprat.ccd.command.StatusTemperatureGetCommand#getParsedReply
 	 * @see ngat.sprat.ccd.command.StatusTemperatureGetCommand#getTemperature
 	 * @see ngat.sprat.ccd.command.StatusTemperatureGetCommand#getTimestamp
+	 * @see #statusAllCommand
+	 * @see ngat.sprat.ccd.command.StatusAllCommand#hasTemperature
 	 */
-	protected double getCCDTemperature() throws Exception
+	protected double getCCDTemperature(Hashtable statusTable) throws Exception
 	{
 		StatusTemperatureGetCommand statusCommand = null;
+		StatusAllCommand allCommand = null;
 		int returnCode;
 		String errorString = null;
 		double temperature;
 		Date timestamp;
 
 		sprat.log(Logging.VERBOSITY_INTERMEDIATE,"getCCDTemperature:started.");
+		allCommand = statusAllCommand;
+		if((allCommand != null)&&allCommand.hasTemperature())
+		{
+			temperature = allCommand.getTemperature();
+			timestamp = allCommand.getTemperatureTimestamp();
+			statusTable.put("Temperature",new Double(temperature+Sprat.CENTIGRADE_TO_KELVIN));
+			statusTable.put("Temperature Timestamp",timestamp);
+			sprat.log(Logging.VERBOSITY_INTERMEDIATE,"getCCDTemperature:finished with status all temperature:"+
+				  temperature+" measured at "+timestamp);
+			return temperature+Sprat.CENTIGRADE_TO_KELVIN;
+		}
 		statusCommand = new StatusTemperatureGetCommand();
 		statusCommand.setAddress(ccdCLayerHostname);
 		statusCommand.setPortNumber(ccdCLayerPortNumber);
@@ -754,9 +1304,8 @@ public class GET_STATUSImplementation extends HardwareImplementation implements
 		}
 		temperature = statusCommand.getTemperature();
 		timestamp = statusCommand.getTimestamp();
-		hashTable.put("Temperature",new Double(temperature+Sprat.CENTIGRADE_TO_KELVIN));
-		hashTable.put("Temperature Timestamp",timestamp);
-		setDetectorTemperatureInstrumentStatus(temperature+Sprat.CENTIGRADE_TO_KELVIN);
+		statusTable.put("Temperature",new Double(temperature+Sprat.CENTIGRADE_TO_KELVIN));
+		statusTable.put("Temperature Timestamp",timestamp);
 		sprat.log(Logging.VERBOSITY_INTERMEDIATE,"getCCDTemperature:finished with temperature:"+
 			   temperature+" measured at "+timestamp);
 		return temperature+Sprat.CENTIGRADE_TO_KELVIN;
@@ -766,11 +1315,11 @@ public class GET_STATUSImplementation extends HardwareImplementation implements
 	 * Get the current state of the arc lamp.
 	 * An instance of ArcLampCommand is "run". If a run exception occurs this is thrown.
 	 * If an error is returned this is thrown as an exception.
-	 * The current state is stored in the GET_STATUS hashtable as an integer and a string.
+	 * The current state is stored in the statusTable as an integer and a string.
+	 * @param statusTable The table to store the retrieved status in.
 	 * @exception Exception Thrown if an error occurs.
 	 * @see HardwareImplementation#mechanismHostname
 	 * @see HardwareImplementation#mechanismPortNumber
-	 * @see #hashTable
 	 * @see ngat.sprat.mechanism.command.ArcLampCommand
 	 * @see ngat.sprat.mechanism.command.ArcLampCommand#run
 	 * @see ngat.sprat.mechanism.command.ArcLampCommand#getRunException
@@ -778,13 +1327,15 @@ public class GET_STATUSImplementation extends HardwareImplementation implements
 	 * @see ngat.sprat.mechanism.command.ArcLampCommand#getErrorString
 	 * @see ngat.sprat.mechanism.command.ArcLampCommand#getCurrentState
 	 * @see ngat.sprat.mechanism.command.ArcLampCommand#stateToString
+	 * @see HardwareImplementation#mechanismQuerySession
 	 */
-	protected void getArcLampState() throws Exception
+	protected void getArcLampState(Hashtable statusTable) throws Exception
  	{
 		ArcLampCommand command = null;
 
 		sprat.log(Logging.VERBOSITY_INTERMEDIATE,"getArcLampPosition:started.");
 		command = new ArcLampCommand(mechanismHostname,mechanismPortNumber);
+		command.setSession(mechanismQuerySession);
 		command.run();
 		if(command.getRunException() != null)
 		{
@@ -798,8 +1349,8 @@ public class GET_STATUSImplementation extends HardwareImplementation implements
 					    ":getArcLamPosition:MirrorCommand command returned an error:"+
 					    command.getErrorString());
 		}
-		hashTable.put("ArcLamp.Status",new Integer(command.getCurrentState()));
-		hashTable.put("ArcLamp.Status.String",
+		statusTable.put("ArcLamp.Status",new Integer(command.getCurrentState()));
+		statusTable.put("ArcLamp.Status.String",
 			      ArcLampCommand.stateToString(command.getCurrentState()));
 		sprat.log(Logging.VERBOSITY_INTERMEDIATE,"getArcLampPosition:finished with state:"+
 			  ArcLampCommand.stateToString(command.getCurrentState()));
@@ -809,11 +1360,11 @@ public class GET_STATUSImplementation extends HardwareImplementation implements
 	 * Get the current state of the tungsten lamp.
 	 * An instance of WLampCommand is "run". If a run exception occurs this is thrown.
 	 * If an error is returned this is thrown as an exception.
-	 * The current state is stored in the GET_STATUS hashtable as an integer and a string.
+	 * The current state is stored in the statusTable as an integer and a string.
+	 * @param statusTable The table to store the retrieved status in.
 	 * @exception Exception Thrown if an error occurs.
 	 * @see HardwareImplementation#mechanismHostname
 	 * @see HardwareImplementation#mechanismPortNumber
-	 * @see #hashTable
 	 * @see ngat.sprat.mechanism.command.WLampCommand
 	 * @see ngat.sprat.mechanism.command.WLampCommand#run
 	 * @see ngat.sprat.mechanism.command.WLampCommand#getRunException
@@ -821,13 +1372,15 @@ public class GET_STATUSImplementation extends HardwareImplementation implements
 	 * @see ngat.sprat.mechanism.command.WLampCommand#getErrorString
 	 * @see ngat.sprat.mechanism.command.WLampCommand#getCurrentState
 	 * @see ngat.sprat.mechanism.command.WLampCommand#stateToString
+	 * @see HardwareImplementation#mechanismQuerySession
 	 */
-	protected void getWLampState() throws Exception
+	protected void getWLampState(Hashtable statusTable) throws Exception
  	{
 		WLampCommand command = null;
 
 		sprat.log(Logging.VERBOSITY_INTERMEDIATE,"getWLampPosition:started.");
 		command = new WLampCommand(mechanismHostname,mechanismPortNumber);
+		command.setSession(mechanismQuerySession);
 		command.run();
 		if(command.getRunException() != null)
 		{
@@ -841,8 +1394,8 @@ public class GET_STATUSImplementation extends HardwareImplementation implements
 					    ":getWLamPosition:MirrorCommand command returned an error:"+
 					    command.getErrorString());
 		}
-		hashTable.put("WLamp.Status",new Integer(command.getCurrentState()));
-		hashTable.put("WLamp.Status.String",
+		statusTable.put("WLamp.Status",new Integer(command.getCurrentState()));
+		statusTable.put("WLamp.Status.String",
 			      WLampCommand.stateToString(command.getCurrentState()));
 		sprat.log(Logging.VERBOSITY_INTERMEDIATE,"getWLampPosition:finished with state:"+
 			  WLampCommand.stateToString(command.getCurrentState()));
@@ -852,12 +1405,12 @@ public class GET_STATUSImplementation extends HardwareImplementation implements
 	 * Get the mechanism gyro position.
 	 * An instance of GyroCommand is "run". If a run exception occurs this is thrown.
 	 * If an error is returned this is thrown as an exception.
-	 * The current gyro orientation position is stored in the GET_STATUS hashtable as a series of 
+	 * The current gyro orientation position is stored in the statusTable as a series of 
 	 * doubles, each axis represented by an ADU number.
+	 * @param statusTable The table to store the retrieved status in.
 	 * @exception Exception Thrown if an error occurs.
 	 * @see HardwareImplementation#mechanismHostname
 	 * @see HardwareImplementation#mechanismPortNumber
-	 * @see #hashTable
 	 * @see ngat.sprat.mechanism.command.GyroCommand
 	 * @see ngat.sprat.mechanism.command.GyroCommand#run
 	 * @see ngat.sprat.mechanism.command.GyroCommand#getRunException
@@ -866,13 +1419,15 @@ public class GET_STATUSImplementation extends HardwareImplementation implements
 	 * @see ngat.sprat.mechanism.command.GyroCommand#getPositionX
 	 * @see ngat.sprat.mechanism.command.GyroCommand#getPositionY
 	 * @see ngat.sprat.mechanism.command.GyroCommand#getPositionZ
+	 * @see HardwareImplementation#mechanismQuerySession
 	 */
- 	protected void getGyroPosition() throws Exception
+ 	protected void getGyroPosition(Hashtable statusTable) throws Exception
 	{
 		GyroCommand command = null;
 
 		sprat.log(Logging.VERBOSITY_INTERMEDIATE,"getGyroPosition:started.");
 		command = new GyroCommand(mechanismHostname,mechanismPortNumber);
+		command.setSession(mechanismQuerySession);
 		command.run();
 		if(command.getRunException() != null)
 		{
@@ -886,9 +1441,9 @@ public class GET_STATUSImplementation extends HardwareImplementation implements
 					    ":getGyroPosition:command returned an error:"+
 					    command.getErrorString());
 		}
-		hashTable.put("Mechanism.Gyro.X",new Double(command.getPositionX()));
-		hashTable.put("Mechanism.Gyro.Y",new Double(command.getPositionY()));
-		hashTable.put("Mechanism.Gyro.Z",new Double(command.getPositionZ()));
+		statusTable.put("Mechanism.Gyro.X",new Double(command.getPositionX()));
+		statusTable.put("Mechanism.Gyro.Y",new Double(command.getPositionY()));
+		statusTable.put("Mechanism.Gyro.Z",new Double(command.getPositionZ()));
 		sprat.log(Logging.VERBOSITY_INTERMEDIATE,"getGyroPosition:finished with position:( X = "+
 			  command.getPositionX()+", Y = "+command.getPositionY()+
 			  ", Z = "+command.getPositionZ()+" ).");
@@ -1068,5 +1623,99 @@ public class GET_STATUSImplementation extends HardwareImplementation implements
 		hashTable.put("user.home",new String(System.getProperty("user.home")));
 		hashTable.put("user.dir",new String(System.getProperty("user.dir")));
 	}
+
+	/**
+	 * A status query, run as part of the intermediate level status retrieval. Sub-classes implement
+	 * the query method to retrieve some status, and store it in the supplied table. The query is run 
+	 * inside a FutureTask, so it can be waited on with a timeout, and cancelled. The status is stored in
+	 * a per-query table, rather than directly into the GET_STATUS hashTable, so a query that completes after
+	 * it has timed out cannot change the reply.
+	 * @see #getIntermediateStatus
+	 * @see #submitStatusQuery
+	 * @see #getStatusQueryResults
+	 */
+	protected abstract class StatusQuery implements Callable<Hashtable>
+	{
+		/**
+		 * A name for the query, used in log messages.
+		 */
+		protected String name = null;
+		/**
+		 * The time the query started running, in milliseconds since the epoch, or 0 if it
+		 * has not started yet.
+		 */
+		protected volatile long startTime = 0;
+		/**
+		 * The FutureTask used to run the query.
+		 */
+		protected FutureTask<Hashtable> future = null;
+
+		/**
+		 * Constructor.
+		 * @param name A name for the query, used in log messages.
+		 * @see #name
+		 * @see #future
+		 */
+		public StatusQuery(String name)
+		{
+			super();
+			this.name = name;
+			future = new FutureTask<Hashtable>(this);
+		}
+
+		/**
+		 * Run the query, and return a table of the status it retrieved.
+		 * @return A table of status keywords and values.
+		 * @exception Exception Thrown if the query fails.
+		 * @see #startTime
+		 * @see #query
+		 */
+		public Hashtable call() throws Exception
+		{
+			Hashtable statusTable = null;
+
+			startTime = System.currentTimeMillis();
+			statusTable = new Hashtable();
+			query(statusTable);
+			return statusTable;
+		}
+
+		/**
+		 * Retrieve some status, and store it in the specified table.
+		 * @param statusTable The table to store the status in.
+		 * @exception Exception Thrown if the query fails.
+		 */
+		protected abstract void query(Hashtable statusTable) throws Exception;
+
+		/**
+		 * Get the name of the query.
+		 * @return The name.
+		 * @see #name
+		 */
+		public String getName()
+		{
+			return name;
+		}
+
+		/**
+		 * Get the time the query started running.
+		 * @return The start time, in milliseconds since the epoch, or 0 if the query has not started.
+		 * @see #startTime
+		 */
+		public long getStartTime()
+		{
+			return startTime;
+		}
+
+		/**
+		 * Get the FutureTask used to run the query.
+		 * @return The FutureTask.
+		 * @see #future
+		 */
+		public FutureTask<Hashtable> getFuture()
+		{
+			return future;
+		}
+	}
 }
 
@@ -45,6 +45,14 @@ public class HardwareImplementation extends CommandImplementation implements JMS
 	 * The port number to send CCD C layer commands to.
 	 */
 	protected int ccdCLayerPortNumber;
+	/**
+	 * An optional open session to the Arduino, that the mechanism position, temperature and humidity
+	 * query methods send their commands over (rather than opening a new connection for each command).
+	 * This is set by the thread running the GET_STATUS mechanism queries, and is null otherwise.
+	 * @see #openMechanismQuerySession
+	 * @see #closeMechanismQuerySession
+	 */
+	protected volatile MechanismSession mechanismQuerySession = null;
 
 	/**
 	 * <ul>
@@ -244,7 +252,408 @@ public class HardwareImplementation extends CommandImplementation implements JMS
 	}
 
 	/**
-	 * Move the Sprat calibration mirror to the desired position.
+	 * Configure the options common to all mechanism moves. The following properties are used:
+	 * <ul>
+	 * <li><b>sprat.config.move.initial_sleep_time</b> The length of the first pause between position queries,
+	 *     in milliseconds. Subsequent pauses get longer, up to the mechanism's sleep_time. 
+	 *     If not present, every pause is the mechanism's sleep_time.
+	 * <li><b>sprat.mechanism.session.enable</b> Whether to send all the commands for the move over one
+	 *     Arduino session. If not present, a new telnet connection is used for each command.
+	 * </ul>
+	 * @param mover The mover to configure.
+	 * @exception Exception Thrown if a property has an illegal value.
+	 * @see #status
+	 * @see ngat.sprat.mechanism.MechanismMover#setInitialSleepTime
+	 * @see ngat.sprat.mechanism.MechanismMover#setUseSession
+	 */
+	protected void configureMechanismMover(MechanismMover mover) throws Exception
+	{
+		if(status.propertyContainsKey("sprat.config.move.initial_sleep_time"))
+			mover.setInitialSleepTime(status.getPropertyInteger("sprat.config.move.initial_sleep_time"));
+		if(status.propertyContainsKey("sprat.mechanism.session.enable"))
+			mover.setUseSession(status.getPropertyBoolean("sprat.mechanism.session.enable"));
+	}
+
+	/**
+	 * Execute a plan of mechanism moves, running moves with no interlock between them concurrently.
+	 * If <b>sprat.mechanism.session.enable</b> is true, one Arduino session is opened and shared by all the moves
+	 * (the Arduino only serves one client at a time). The status cache is invalidated before and after the moves,
+	 * and the status sampler is stopped from querying the Arduino whilst the moves (and session) are in progress.
+	 * The caller should check the plan's steps for per-mechanism failures.
+	 * @param plan The plan to execute.
+	 * @exception Exception Thrown if waiting for the moves is interrupted, or a property has an illegal value.
+	 * @see #mechanismHostname
+	 * @see #mechanismPortNumber
+	 * @see #invalidateStatusCache
+	 * @see #startMechanismActivity
+	 * @see #endMechanismActivity
+	 * @see ngat.sprat.mechanism.MechanismMovePlan#setSession
+	 * @see ngat.sprat.mechanism.MechanismMovePlan#execute
+	 * @see ngat.sprat.mechanism.command.MechanismSession
+	 * @see #createAbortListener(ngat.sprat.mechanism.MechanismMovePlan)
+	 * @see #addAbortListener
+	 * @see #removeAbortListener
+	 */
+	protected void executeMechanismMovePlan(MechanismMovePlan plan) throws Exception
+	{
+		MechanismSession session = null;
+		Runnable abortListener = null;
+
+		startMechanismActivity();
+		if(status.propertyContainsKey("sprat.mechanism.session.enable")&&
+		   status.getPropertyBoolean("sprat.mechanism.session.enable"))
+		{
+			try
+			{
+				session = new MechanismSession(mechanismHostname,mechanismPortNumber);
+				session.open();
+				plan.setSession(session);
+			}
+			catch(Exception e)
+			{
+				sprat.log(Logging.VERBOSITY_VERBOSE,this.getClass().getName()+
+					  ":executeMechanismMovePlan:Failed to open shared session:"+e);
+				session = null;
+			}
+		}
+		sprat.log(Logging.VERBOSITY_TERSE,this.getClass().getName()+":executeMechanismMovePlan:Starting moves.");
+		invalidateStatusCache();
+		abortListener = createAbortListener(plan);
+		addAbortListener(abortListener);
+		try
+		{
+			plan.execute();
+		}
+		finally
+		{
+			removeAbortListener(abortListener);
+			invalidateStatusCache();
+			if(session != null)
+				session.close();
+			endMechanismActivity();
+		}
+		sprat.log(Logging.VERBOSITY_TERSE,this.getClass().getName()+":executeMechanismMovePlan:Finished moves.");
+	}
+
+	/**
+	 * Invalidate the intermediate status (mechanism positions, lamp states etc) held in the status cache
+	 * (if it is enabled), so the next GET_STATUS retrieves it live. This should be called when
+	 * a mechanism is moved or a lamp switched.
+	 * @see #sprat
+	 * @see Sprat#getStatusCache
+	 * @see SpratStatusCache#invalidate
+	 * @see GET_STATUSImplementation#STATUS_CACHE_GROUP_INTERMEDIATE
+	 */
+	protected void invalidateStatusCache()
+	{
+		SpratStatusCache statusCache = null;
+
+		statusCache = sprat.getStatusCache();
+		if(statusCache != null)
+			statusCache.invalidate(GET_STATUSImplementation.STATUS_CACHE_GROUP_INTERMEDIATE);
+	}
+
+	/**
+	 * Tell the status cache (if it is enabled) that a mechanism move has started, so the status sampler
+	 * does not query the Arduino whilst the move is using it. This must be matched by a call to
+	 * endMechanismActivity.
+	 * @see #endMechanismActivity
+	 * @see Sprat#getStatusCache
+	 * @see SpratStatusCache#startMechanismActivity
+	 */
+	protected void startMechanismActivity()
+	{
+		SpratStatusCache statusCache = null;
+
+		statusCache = sprat.getStatusCache();
+		if(statusCache != null)
+			statusCache.startMechanismActivity();
+	}
+
+	/**
+	 * Tell the status cache (if it is enabled) that a mechanism move started with startMechanismActivity
+	 * has finished.
+	 * @see #startMechanismActivity
+	 * @see Sprat#getStatusCache
+	 * @see SpratStatusCache#endMechanismActivity
+	 */
+	protected void endMechanismActivity()
+	{
+		SpratStatusCache statusCache = null;
+
+		statusCache = sprat.getStatusCache();
+		if(statusCache != null)
+			statusCache.endMechanismActivity();
+	}
+
+	/**
+	 * Open a session to the Arduino for the mechanism status queries, and set mechanismQuerySession
+	 * so the query methods send their commands over it. The Arduino only serves one client at a time,
+	 * so the queries using the session must be run one after another, in the calling thread.
+	 * A session is only opened if <b>sprat.mechanism.session.enable</b> is true. If the session fails to open
+	 * (i.e. the Arduino is running an older sketch), the queries open a new connection per command as before.
+	 * @return The opened session, or null if one was not opened. This should be passed to
+	 *         closeMechanismQuerySession when the queries are complete.
+	 * @see #mechanismQuerySession
+	 * @see #mechanismHostname
+	 * @see #mechanismPortNumber
+	 * @see #closeMechanismQuerySession
+	 * @see ngat.sprat.mechanism.command.MechanismSession
+	 */
+	protected MechanismSession openMechanismQuerySession()
+	{
+		MechanismSession session = null;
+
+		try
+		{
+			if(status.propertyContainsKey("sprat.mechanism.session.enable")&&
+			   status.getPropertyBoolean("sprat.mechanism.session.enable"))
+			{
+				session = new MechanismSession(mechanismHostname,mechanismPortNumber);
+				session.open();
+				mechanismQuerySession = session;
+			}
+		}
+		catch(Exception e)
+		{
+			sprat.log(Logging.VERBOSITY_VERBOSE,this.getClass().getName()+
+				  ":openMechanismQuerySession:Failed to open session:"+e);
+			session = null;
+		}
+		return session;
+	}
+
+	/**
+	 * Close a session opened by openMechanismQuerySession, and stop the query methods using it.
+	 * @param session The session returned by openMechanismQuerySession, which can be null.
+	 * @see #mechanismQuerySession
+	 * @see #openMechanismQuerySession
+	 */
+	protected void closeMechanismQuerySession(MechanismSession session)
+	{
+		if(session == null)
+			return;
+		if(mechanismQuerySession == session)
+			mechanismQuerySession = null;
+		session.close();
+	}
+
+	/**
+	 * Create a listener that cancels a mechanism move when the command is aborted.
+	 * @param mover The mover moving the mechanism.
+	 * @return A Runnable that calls the mover's cancel method, suitable for passing to addAbortListener.
+	 * @see #addAbortListener
+	 * @see ngat.sprat.mechanism.MechanismMover#cancel
+	 */
+	protected Runnable createAbortListener(final MechanismMover mover)
+	{
+		return new Runnable()
+		{
+			public void run()
+			{
+				mover.cancel();
+			}
+		};
+	}
+
+	/**
+	 * Create a listener that cancels all the moves in a plan when the command is aborted.
+	 * @param plan The plan being executed.
+	 * @return A Runnable that calls the plan's cancel method, suitable for passing to addAbortListener.
+	 * @see #addAbortListener
+	 * @see ngat.sprat.mechanism.MechanismMovePlan#cancel
+	 */
+	protected Runnable createAbortListener(final MechanismMovePlan plan)
+	{
+		return new Runnable()
+		{
+			public void run()
+			{
+				plan.cancel();
+			}
+		};
+	}
+
+	/**
+	 * Create a listener that cancels a CCD C layer command when the command is aborted.
+	 * @param command The CCD command being sent.
+	 * @return A Runnable that calls the command's cancel method, suitable for passing to addAbortListener.
+	 * @see #addAbortListener
+	 * @see ngat.sprat.ccd.command.Command#cancel
+	 */
+	protected Runnable createAbortListener(final ngat.sprat.ccd.command.Command command)
+	{
+		return new Runnable()
+		{
+			public void run()
+			{
+				command.cancel();
+			}
+		};
+	}
+
+	/**
+	 * Send a (potentially long running, e.g. an exposure) command to the CCD C layer. The command is cancelled
+	 * (it's connection is closed, so this method returns immediately) if the command being implemented is aborted
+	 * whilst waiting for the reply. The caller should still send the C layer an "abort" command to stop the 
+	 * exposure, ABORTImplementation does this.
+	 * @param command The CCD command to send.
+	 * @exception Exception Thrown if sending the command fails, or it is cancelled.
+	 * @see #createAbortListener(ngat.sprat.ccd.command.Command)
+	 * @see #addAbortListener
+	 * @see #removeAbortListener
+	 * @see ngat.sprat.ccd.command.Command#sendCommand
+	 */
+	protected void sendCCDCommand(ngat.sprat.ccd.command.Command command) throws Exception
+	{
+		Runnable abortListener = null;
+
+		abortListener = createAbortListener(command);
+		addAbortListener(abortListener);
+		try
+		{
+			command.sendCommand();
+		}
+		finally
+		{
+			removeAbortListener(abortListener);
+		}
+	}
+
+	/**
+	 * Return whether a mechanism is already in the specified position, so a move to that position can be skipped.
+	 * The mechanism position cache is checked first. If the cached position does not match (or is stale),
+	 * false is returned without querying the mechanism. If it does match, and the
+	 * <b>sprat.mechanism.position_cache.verify</b> property is true, one position query is made to verify
+	 * the mechanism is still in position. Any error verifying the position is logged, and false
+	 * returned, so the mechanism is moved as normal.
+	 * @param mechanismName The name of the mechanism, one of MECHANISM_MIRROR, MECHANISM_SLIT, MECHANISM_GRISM,
+	 *        MECHANISM_ROTATION.
+	 * @param position The position the mechanism is to be moved to.
+	 * @return true if the mechanism is known to be in the position, false otherwise.
+	 * @see #sprat
+	 * @see #status
+	 * @see #getMechanismPosition
+	 * @see Sprat#getMechanismPositionCache
+	 * @see SpratMechanismPositionCache#isInPosition
+	 */
+	protected boolean isMechanismInPosition(String mechanismName,int position)
+	{
+		SpratMechanismPositionCache positionCache = null;
+		int currentPosition;
+
+		positionCache = sprat.getMechanismPositionCache();
+		if(positionCache == null)
+			return false;
+		if(positionCache.isInPosition(mechanismName,position) == false)
+			return false;
+		try
+		{
+			if(status.propertyContainsKey("sprat.mechanism.position_cache.verify")&&
+			   status.getPropertyBoolean("sprat.mechanism.position_cache.verify"))
+			{
+				currentPosition = getMechanismPosition(mechanismName);
+				if(currentPosition != position)
+				{
+					sprat.log(Logging.VERBOSITY_VERBOSE,this.getClass().getName()+
+						  ":isMechanismInPosition:Mechanism "+mechanismName+
+						  " cached position "+position+" not verified, current position:"+
+						  currentPosition+".");
+					return false;
+				}
+			}
+		}
+		catch(Exception e)
+		{
+			sprat.error(this.getClass().getName()+":isMechanismInPosition:Verifying mechanism "+
+				    mechanismName+" position failed:",e);
+			return false;
+		}
+		sprat.log(Logging.VERBOSITY_TERSE,this.getClass().getName()+":isMechanismInPosition:Mechanism "+
+			  mechanismName+" already in position "+position+", move skipped.");
+		return true;
+	}
+
+	/**
+	 * Get the current position of a mechanism, by name.
+	 * @param mechanismName The name of the mechanism, one of MECHANISM_MIRROR, MECHANISM_SLIT, MECHANISM_GRISM,
+	 *        MECHANISM_ROTATION.
+	 * @return The current position of the mechanism.
+	 * @exception Exception Thrown if the mechanism name is not known, or the position query fails.
+	 * @see #getMirrorPosition
+	 * @see #getSlitPosition
+	 * @see #getGrismPosition
+	 * @see #getRotationPosition
+	 */
+	protected int getMechanismPosition(String mechanismName) throws Exception
+	{
+		if(mechanismName.equals(SpratMechanismPositionCache.MECHANISM_MIRROR))
+			return getMirrorPosition();
+		else if(mechanismName.equals(SpratMechanismPositionCache.MECHANISM_SLIT))
+			return getSlitPosition();
+		else if(mechanismName.equals(SpratMechanismPositionCache.MECHANISM_GRISM))
+			return getGrismPosition();
+		else if(mechanismName.equals(SpratMechanismPositionCache.MECHANISM_ROTATION))
+			return getRotationPosition();
+		throw new Exception(this.getClass().getName()+":getMechanismPosition:Unknown mechanism:"+
+				    mechanismName);
+	}
+
+	/**
+	 * Update the position of a mechanism in the mechanism position cache (if it is enabled).
+	 * @param mechanismName The name of the mechanism.
+	 * @param position The position the mechanism is now in.
+	 * @see Sprat#getMechanismPositionCache
+	 * @see SpratMechanismPositionCache#update
+	 */
+	protected void updateMechanismPosition(String mechanismName,int position)
+	{
+		SpratMechanismPositionCache positionCache = null;
+
+		positionCache = sprat.getMechanismPositionCache();
+		if(positionCache != null)
+			positionCache.update(mechanismName,position);
+	}
+
+	/**
+	 * Update the mechanism position cache with the result of a step in a mechanism move plan.
+	 * If the step succeeded the mechanism's position is updated, otherwise it is invalidated.
+	 * @param step The step that moved the mechanism, or null if no move was made (in which case
+	 *        nothing is done).
+	 * @param mechanismName The name of the mechanism.
+	 * @param position The position the step moved the mechanism to.
+	 * @see #updateMechanismPosition
+	 * @see #invalidateMechanismPosition
+	 * @see ngat.sprat.mechanism.MechanismMovePlan.Step#getException
+	 */
+	protected void updateMechanismPosition(MechanismMovePlan.Step step,String mechanismName,int position)
+	{
+		if(step == null)
+			return;
+		if(step.getException() == null)
+			updateMechanismPosition(mechanismName,position);
+		else
+			invalidateMechanismPosition(mechanismName);
+	}
+
+	/**
+	 * Invalidate the position of a mechanism in the mechanism position cache (if it is enabled).
+	 * This should be called before a mechanism is moved.
+	 * @param mechanismName The name of the mechanism.
+	 * @see Sprat#getMechanismPositionCache
+	 * @see SpratMechanismPositionCache#invalidate
+	 */
+	protected void invalidateMechanismPosition(String mechanismName)
+	{
+		SpratMechanismPositionCache positionCache = null;
+
+		positionCache = sprat.getMechanismPositionCache();
+		if(positionCache != null)
+			positionCache.invalidate(mechanismName);
+	}
+
+	/**
+	 * Create a mover, to move the Sprat calibration mirror to the desired position.
 	 * The following status is used to configure the move parameters:
 	 * <ul>
 	 * <li><b>sprat.config.mirror.move.sleep_time</b>
@@ -253,6 +662,7 @@ public class HardwareImplementation extends CommandImplementation implements JMS
 	 * getMechanismConfig must have been called before this method to set the mechanismHostname/mechanismPortNumber
 	 * up correctly.
 	 * @param position The position to attain, one of POSITION_IN, POSITION_OUT.
+	 * @return The configured mover, ready to run.
 	 * @exception Exception Thrown if an error occurs.
 	 * @see #sprat
 	 * @see #status
@@ -269,17 +679,14 @@ public class HardwareImplementation extends CommandImplementation implements JMS
 	 * @see ngat.sprat.mechanism.MoveInOutMechanism#setCommand
 	 * @see ngat.sprat.mechanism.MoveInOutMechanism#setSleepTime
 	 * @see ngat.sprat.mechanism.MoveInOutMechanism#setTimeoutTime
-	 * @see ngat.sprat.mechanism.MoveInOutMechanism#moveInOutMechanism
+	 * @see #configureMechanismMover
 	 */
-	protected void moveMirror(int position) throws Exception
+	protected MoveInOutMechanism createMirrorMover(int position) throws Exception
 	{
 		MoveInOutMechanism mechanismMover = null;
 		MirrorCommand command = null;
 		int sleepTime,timeoutTime;
-		String errorString = null;
 
-		sprat.log(Logging.VERBOSITY_INTERMEDIATE,this.getClass().getName()+":moveMirror:"+
-			  "Position = "+SpratConfig.positionToString(position)+" ("+position+").");
 		// retrieve config
 		sleepTime = status.getPropertyInteger("sprat.config.mirror.move.sleep_time");
 		timeoutTime = status.getPropertyInteger("sprat.config.mirror.move.timeout_time");
@@ -295,13 +702,58 @@ public class HardwareImplementation extends CommandImplementation implements JMS
 			  " and timeout time to "+timeoutTime+".");
 		mechanismMover.setSleepTime(sleepTime);
 		mechanismMover.setTimeoutTime(timeoutTime);
+		configureMechanismMover(mechanismMover);
+		return mechanismMover;
+	}
+
+	/**
+	 * Move the Sprat calibration mirror to the desired position. The mirror is put IN the beam to feed the
+	 * calibration lamps into the spectrograph, and taken OUT to observe the sky. It has no interlock with the
+	 * other mechanisms, so can be moved at any time.
+	 * If the mechanism is already in position (according to the mechanism position cache), the move is skipped.
+	 * The mechanism position cache is updated after a successful move.
+	 * @param position The position to attain.
+	 * @exception Exception Thrown if an error occurs.
+	 * @see #createMirrorMover
+	 * @see #invalidateStatusCache
+	 * @see #isMechanismInPosition
+	 * @see #invalidateMechanismPosition
+	 * @see #updateMechanismPosition
+	 * @see ngat.sprat.mechanism.MoveInOutMechanism#moveInOutMechanism
+	 * @see #createAbortListener(ngat.sprat.mechanism.MechanismMover)
+	 */
+	protected void moveMirror(int position) throws Exception
+	{
+		MoveInOutMechanism mechanismMover = null;
+		Runnable abortListener = null;
+
+		sprat.log(Logging.VERBOSITY_INTERMEDIATE,this.getClass().getName()+":moveMirror:"+
+			  "Position = "+SpratConfig.positionToString(position)+" ("+position+").");
+		if(isMechanismInPosition(SpratMechanismPositionCache.MECHANISM_MIRROR,position))
+			return;
+		mechanismMover = createMirrorMover(position);
 		sprat.log(Logging.VERBOSITY_TERSE,this.getClass().getName()+":moveMirror:Starting move.");
-		mechanismMover.moveInOutMechanism();
+		invalidateStatusCache();
+		invalidateMechanismPosition(SpratMechanismPositionCache.MECHANISM_MIRROR);
+		abortListener = createAbortListener(mechanismMover);
+		addAbortListener(abortListener);
+		startMechanismActivity();
+		try
+		{
+			mechanismMover.moveInOutMechanism();
+		}
+		finally
+		{
+			removeAbortListener(abortListener);
+			invalidateStatusCache();
+			endMechanismActivity();
+		}
+		updateMechanismPosition(SpratMechanismPositionCache.MECHANISM_MIRROR,position);
 		sprat.log(Logging.VERBOSITY_TERSE,this.getClass().getName()+":moveMirror:Finished move.");
 	}
 
 	/**
-	 * Move the grism to the desired position.
+	 * Create a mover, to move the grism to the desired position.
 	 * The following status is used to configure the move parameters:
 	 * <ul>
 	 * <li><b>sprat.mechanism.hostname</b>
@@ -310,6 +762,7 @@ public class HardwareImplementation extends CommandImplementation implements JMS
 	 * <li><b>sprat.config.grism.move.timeout_time</b>
 	 * </ul>
 	 * @param position The position to attain, one of POSITION_IN, POSITION_OUT.
+	 * @return The configured mover, ready to run.
 	 * @exception Exception Thrown if an error occurs.
 	 * @see #sprat
 	 * @see #status
@@ -326,22 +779,19 @@ public class HardwareImplementation extends CommandImplementation implements JMS
 	 * @see ngat.sprat.mechanism.MoveInOutMechanism#setCommand
 	 * @see ngat.sprat.mechanism.MoveInOutMechanism#setSleepTime
 	 * @see ngat.sprat.mechanism.MoveInOutMechanism#setTimeoutTime
-	 * @see ngat.sprat.mechanism.MoveInOutMechanism#moveInOutMechanism
+	 * @see #configureMechanismMover
 	 * @see ngat.sprat.mechanism.MoveBrokenGrismMechanism
 	 * @see ngat.sprat.mechanism.MoveBrokenGrismMechanism#setCommand
 	 * @see ngat.sprat.mechanism.MoveBrokenGrismMechanism#setSleepTime
 	 * @see ngat.sprat.mechanism.MoveBrokenGrismMechanism#setTimeoutTime
 	 * @see ngat.sprat.mechanism.MoveBrokenGrismMechanism#moveBrokenGrismMechanism
 	 */
-	protected void moveGrism(int position) throws Exception
+	protected MoveInOutMechanism createGrismMover(int position) throws Exception
 	{
 		MoveInOutMechanism mechanismMover = null;
 		GrismCommand command = null;
 		int sleepTime,timeoutTime,returnCode;
-		String errorString = null;
 
-		sprat.log(Logging.VERBOSITY_INTERMEDIATE,"moveGrism:"+
-			  "Position = "+SpratConfig.positionToString(position)+" ("+position+").");
 		// retrieve config
 		sleepTime = status.getPropertyInteger("sprat.config.grism.move.sleep_time");
 		timeoutTime = status.getPropertyInteger("sprat.config.grism.move.timeout_time");
@@ -355,13 +805,58 @@ public class HardwareImplementation extends CommandImplementation implements JMS
 			  " and timeout time to "+timeoutTime+".");
 		mechanismMover.setSleepTime(sleepTime);
 		mechanismMover.setTimeoutTime(timeoutTime);
+		configureMechanismMover(mechanismMover);
+		return mechanismMover;
+	}
+
+	/**
+	 * Move the grism IN or OUT of the beam. The Arduino only allows this whilst the grism rotation cylinder is
+	 * stowed (rotation position 0), and replies with an error otherwise. No check is made here, the caller
+	 * must stow the rotation first (see CONFIGImplementation, which plans the stow before the grism move).
+	 * If the mechanism is already in position (according to the mechanism position cache), the move is skipped.
+	 * The mechanism position cache is updated after a successful move.
+	 * @param position The position to attain.
+	 * @exception Exception Thrown if an error occurs.
+	 * @see #createGrismMover
+	 * @see #invalidateStatusCache
+	 * @see #isMechanismInPosition
+	 * @see #invalidateMechanismPosition
+	 * @see #updateMechanismPosition
+	 * @see ngat.sprat.mechanism.MoveInOutMechanism#moveInOutMechanism
+	 * @see #createAbortListener(ngat.sprat.mechanism.MechanismMover)
+	 */
+	protected void moveGrism(int position) throws Exception
+	{
+		MoveInOutMechanism mechanismMover = null;
+		Runnable abortListener = null;
+
+		sprat.log(Logging.VERBOSITY_INTERMEDIATE,"moveGrism:"+
+			  "Position = "+SpratConfig.positionToString(position)+" ("+position+").");
+		if(isMechanismInPosition(SpratMechanismPositionCache.MECHANISM_GRISM,position))
+			return;
+		mechanismMover = createGrismMover(position);
 		sprat.log(Logging.VERBOSITY_TERSE,"moveGrism:Starting move.");
-		mechanismMover.moveInOutMechanism();
+		invalidateStatusCache();
+		invalidateMechanismPosition(SpratMechanismPositionCache.MECHANISM_GRISM);
+		abortListener = createAbortListener(mechanismMover);
+		addAbortListener(abortListener);
+		startMechanismActivity();
+		try
+		{
+			mechanismMover.moveInOutMechanism();
+		}
+		finally
+		{
+			removeAbortListener(abortListener);
+			invalidateStatusCache();
+			endMechanismActivity();
+		}
+		updateMechanismPosition(SpratMechanismPositionCache.MECHANISM_GRISM,position);
 		sprat.log(Logging.VERBOSITY_TERSE,"moveGrism:Finished move.");
 	}
 
 	/**
-	 * Rotate the grism to the desired position.
+	 * Create a mover, to rotate the grism to the desired position.
 	 * The following status is used to configure the rotation parameters:
 	 * <ul>
 	 * <li><b>sprat.mechanism.hostname</b>
@@ -370,6 +865,7 @@ public class HardwareImplementation extends CommandImplementation implements JMS
 	 * <li><b>sprat.config.grism.rotate.timeout_time</b>
 	 * </ul>
 	 * @param position The position to attain, one of POSITION_IN, POSITION_OUT.
+	 * @return The configured mover, ready to run.
 	 * @exception Exception Thrown if an error occurs.
 	 * @see #sprat
 	 * @see #status
@@ -385,16 +881,14 @@ public class HardwareImplementation extends CommandImplementation implements JMS
 	 * @see ngat.sprat.mechanism.MoveRotationMechanism#setCommand
 	 * @see ngat.sprat.mechanism.MoveRotationMechanism#setSleepTime
 	 * @see ngat.sprat.mechanism.MoveRotationMechanism#setTimeoutTime
-	 * @see ngat.sprat.mechanism.MoveRotationMechanism#moveRotationMechanism
+	 * @see #configureMechanismMover
 	 */
-	protected void rotateGrism(int position) throws Exception
+	protected MoveRotationMechanism createGrismRotationMover(int position) throws Exception
 	{
 		MoveRotationMechanism mechanismMover = null;
 		RotationCommand command = null;
 		int sleepTime,timeoutTime;
-		String errorString = null;
 
-		sprat.log(Logging.VERBOSITY_INTERMEDIATE,"rotateGrism:Position = "+position+".");
 		// retrieve config
 		sleepTime = status.getPropertyInteger("sprat.config.grism.rotate.sleep_time");
 		timeoutTime = status.getPropertyInteger("sprat.config.grism.rotate.timeout_time");
@@ -408,13 +902,57 @@ public class HardwareImplementation extends CommandImplementation implements JMS
 			  " and timeout time to "+timeoutTime+".");
 		mechanismMover.setSleepTime(sleepTime);
 		mechanismMover.setTimeoutTime(timeoutTime);
+		configureMechanismMover(mechanismMover);
+		return mechanismMover;
+	}
+
+	/**
+	 * Rotate the grism cylinder to the desired rotation position (0 is stowed). Due to the construction of the 
+	 * rotation mechanism, the Arduino only allows rotating to position 1 whilst the grism is IN the beam. 
+	 * This is not checked here, the caller is expected to have moved the grism in first.
+	 * If the mechanism is already in position (according to the mechanism position cache), the move is skipped.
+	 * The mechanism position cache is updated after a successful move.
+	 * @param position The position to attain.
+	 * @exception Exception Thrown if an error occurs.
+	 * @see #createGrismRotationMover
+	 * @see #invalidateStatusCache
+	 * @see #isMechanismInPosition
+	 * @see #invalidateMechanismPosition
+	 * @see #updateMechanismPosition
+	 * @see ngat.sprat.mechanism.MoveRotationMechanism#moveRotationMechanism
+	 * @see #createAbortListener(ngat.sprat.mechanism.MechanismMover)
+	 */
+	protected void rotateGrism(int position) throws Exception
+	{
+		MoveRotationMechanism mechanismMover = null;
+		Runnable abortListener = null;
+
+		sprat.log(Logging.VERBOSITY_INTERMEDIATE,"rotateGrism:Position = "+position+".");
+		if(isMechanismInPosition(SpratMechanismPositionCache.MECHANISM_ROTATION,position))
+			return;
+		mechanismMover = createGrismRotationMover(position);
 		sprat.log(Logging.VERBOSITY_TERSE,"rotateGrism:Starting move.");
-		mechanismMover.moveRotationMechanism();
+		invalidateStatusCache();
+		invalidateMechanismPosition(SpratMechanismPositionCache.MECHANISM_ROTATION);
+		abortListener = createAbortListener(mechanismMover);
+		addAbortListener(abortListener);
+		startMechanismActivity();
+		try
+		{
+			mechanismMover.moveRotationMechanism();
+		}
+		finally
+		{
+			removeAbortListener(abortListener);
+			invalidateStatusCache();
+			endMechanismActivity();
+		}
+		updateMechanismPosition(SpratMechanismPositionCache.MECHANISM_ROTATION,position);
 		sprat.log(Logging.VERBOSITY_TERSE,"rotateGrism:Finished move.");
 	}
 
 	/**
-	 * Move the slit to the desired position.
+	 * Create a mover, to move the slit to the desired position.
 	 * The following status is used to configure the move parameters:
 	 * <ul>
 	 * <li><b>sprat.mechanism.hostname</b>
@@ -423,6 +961,7 @@ public class HardwareImplementation extends CommandImplementation implements JMS
 	 * <li><b>sprat.config.slit.move.timeout_time</b>
 	 * </ul>
 	 * @param position The position to attain, one of POSITION_IN, POSITION_OUT.
+	 * @return The configured mover, ready to run.
 	 * @exception Exception Thrown if an error occurs.
 	 * @see #sprat
 	 * @see #status
@@ -439,22 +978,19 @@ public class HardwareImplementation extends CommandImplementation implements JMS
 	 * @see ngat.sprat.mechanism.MoveInOutMechanism#setCommand
 	 * @see ngat.sprat.mechanism.MoveInOutMechanism#setSleepTime
 	 * @see ngat.sprat.mechanism.MoveInOutMechanism#setTimeoutTime
-	 * @see ngat.sprat.mechanism.MoveInOutMechanism#moveInOutMechanism
+	 * @see #configureMechanismMover
 	 * @see ngat.sprat.mechanism.MoveBrokenSlitMechanism
 	 * @see ngat.sprat.mechanism.MoveBrokenSlitMechanism#setCommand
 	 * @see ngat.sprat.mechanism.MoveBrokenSlitMechanism#setSleepTime
 	 * @see ngat.sprat.mechanism.MoveBrokenSlitMechanism#setTimeoutTime
 	 * @see ngat.sprat.mechanism.MoveBrokenSlitMechanism#moveBrokenSlitMechanism
 	 */
-	protected void moveSlit(int position) throws Exception
+	protected MoveInOutMechanism createSlitMover(int position) throws Exception
 	{
 		MoveInOutMechanism mechanismMover = null;
 		SlitCommand command = null;
 		int sleepTime,timeoutTime;
-		String errorString = null;
 
-		sprat.log(Logging.VERBOSITY_INTERMEDIATE,"moveSlit:"+
-			  "Position = "+SpratConfig.positionToString(position)+" ("+position+").");
 		// retrieve config
 		sleepTime = status.getPropertyInteger("sprat.config.slit.move.sleep_time");
 		timeoutTime = status.getPropertyInteger("sprat.config.slit.move.timeout_time");
@@ -468,15 +1004,60 @@ public class HardwareImplementation extends CommandImplementation implements JMS
 			  " and timeout time to "+timeoutTime+".");
 		mechanismMover.setSleepTime(sleepTime);
 		mechanismMover.setTimeoutTime(timeoutTime);
+		configureMechanismMover(mechanismMover);
+		return mechanismMover;
+	}
+
+	/**
+	 * Move the slit IN or OUT of the beam (OUT for acquisition imaging, IN for spectroscopy). The slit has no 
+	 * interlock with the grism or rotation, so can be moved at any time.
+	 * If the mechanism is already in position (according to the mechanism position cache), the move is skipped.
+	 * The mechanism position cache is updated after a successful move.
+	 * @param position The position to attain.
+	 * @exception Exception Thrown if an error occurs.
+	 * @see #createSlitMover
+	 * @see #invalidateStatusCache
+	 * @see #isMechanismInPosition
+	 * @see #invalidateMechanismPosition
+	 * @see #updateMechanismPosition
+	 * @see ngat.sprat.mechanism.MoveInOutMechanism#moveInOutMechanism
+	 * @see #createAbortListener(ngat.sprat.mechanism.MechanismMover)
+	 */
+	protected void moveSlit(int position) throws Exception
+	{
+		MoveInOutMechanism mechanismMover = null;
+		Runnable abortListener = null;
+
+		sprat.log(Logging.VERBOSITY_INTERMEDIATE,"moveSlit:"+
+			  "Position = "+SpratConfig.positionToString(position)+" ("+position+").");
+		if(isMechanismInPosition(SpratMechanismPositionCache.MECHANISM_SLIT,position))
+			return;
+		mechanismMover = createSlitMover(position);
 		sprat.log(Logging.VERBOSITY_TERSE,"moveSlit:Starting move.");
-		mechanismMover.moveInOutMechanism();
+		invalidateStatusCache();
+		invalidateMechanismPosition(SpratMechanismPositionCache.MECHANISM_SLIT);
+		abortListener = createAbortListener(mechanismMover);
+		addAbortListener(abortListener);
+		startMechanismActivity();
+		try
+		{
+			mechanismMover.moveInOutMechanism();
+		}
+		finally
+		{
+			removeAbortListener(abortListener);
+			invalidateStatusCache();
+			endMechanismActivity();
+		}
+		updateMechanismPosition(SpratMechanismPositionCache.MECHANISM_SLIT,position);
 		sprat.log(Logging.VERBOSITY_TERSE,"moveSlit:Finished move.");
 	}
 
 	/**
 	 * Get the current mirror position.
 	 * An instance of MirrorCommand is "run". If a run exception occurs this is thrown.
-	 * If an error is returned this is thrown as an exception.
+	 * If an error is returned this is thrown as an exception. The returned position is used to update the
+	 * mechanism position cache.
 	 * @return The current position is returned as an integer, one of:POSITION_ERROR, POSITION_UNKNOWN, 
 	 *         POSITION_IN, POSITION_OUT.
 	 * @exception Exception Thrown if the command fails in some way, or returns an error.
@@ -493,6 +1074,8 @@ public class HardwareImplementation extends CommandImplementation implements JMS
 	 * @see ngat.sprat.mechanism.command.InOutReplyCommand#POSITION_UNKNOWN
 	 * @see ngat.sprat.mechanism.command.InOutReplyCommand#POSITION_IN
 	 * @see ngat.sprat.mechanism.command.InOutReplyCommand#POSITION_OUT
+	 * @see #updateMechanismPosition
+	 * @see #mechanismQuerySession
 	 */
 	protected int getMirrorPosition() throws Exception
 	{
@@ -500,6 +1083,7 @@ public class HardwareImplementation extends CommandImplementation implements JMS
 
 		sprat.log(Logging.VERBOSITY_INTERMEDIATE,"getMirrorPosition:started.");
 		command = new MirrorCommand(mechanismHostname,mechanismPortNumber);
+		command.setSession(mechanismQuerySession);
 		command.run();
 		if(command.getRunException() != null)
 		{
@@ -515,6 +1099,7 @@ public class HardwareImplementation extends CommandImplementation implements JMS
 		}
 		sprat.log(Logging.VERBOSITY_INTERMEDIATE,"getMirrorPosition:finished with position:"+
 			  MirrorCommand.positionToString(command.getCurrentPosition()));
+		updateMechanismPosition(SpratMechanismPositionCache.MECHANISM_MIRROR,command.getCurrentPosition());
 		return command.getCurrentPosition();
 	}
 
@@ -523,7 +1108,8 @@ public class HardwareImplementation extends CommandImplementation implements JMS
 	 * An instance of SlitCommand is "run". If a run exception occurs this is thrown.
 	 * getMechanismConfig must have been called before this method to set the mechanismHostname/mechanismPortNumber
 	 * up correctly.
-	 * If an error is returned this is thrown as an exception.
+	 * If an error is returned this is thrown as an exception. The returned position is used to update the
+	 * mechanism position cache.
 	 * @return The current position is returned as an integer, one of:POSITION_ERROR, POSITION_UNKNOWN, 
 	 *         POSITION_IN, POSITION_OUT.
 	 * @exception Exception Thrown if an error occurs.
@@ -541,6 +1127,8 @@ public class HardwareImplementation extends CommandImplementation implements JMS
 	 * @see ngat.sprat.mechanism.command.InOutReplyCommand#POSITION_UNKNOWN
 	 * @see ngat.sprat.mechanism.command.InOutReplyCommand#POSITION_IN
 	 * @see ngat.sprat.mechanism.command.InOutReplyCommand#POSITION_OUT
+	 * @see #updateMechanismPosition
+	 * @see #mechanismQuerySession
 	 */
 	protected int getSlitPosition() throws Exception
 	{
@@ -548,6 +1136,7 @@ public class HardwareImplementation extends CommandImplementation implements JMS
 
 		sprat.log(Logging.VERBOSITY_INTERMEDIATE,this.getClass().getName()+":getSlitPosition:started.");
 		command = new SlitCommand(mechanismHostname,mechanismPortNumber);
+		command.setSession(mechanismQuerySession);
 		command.run();
 		if(command.getRunException() != null)
 		{
@@ -564,6 +1153,7 @@ public class HardwareImplementation extends CommandImplementation implements JMS
 		sprat.log(Logging.VERBOSITY_INTERMEDIATE,this.getClass().getName()+
 			  ":getSlitPosition:finished with position:"+
 			  SlitCommand.positionToString(command.getCurrentPosition()));
+		updateMechanismPosition(SpratMechanismPositionCache.MECHANISM_SLIT,command.getCurrentPosition());
 		return command.getCurrentPosition();
 	}
 
@@ -572,7 +1162,8 @@ public class HardwareImplementation extends CommandImplementation implements JMS
 	 * An instance of GrismCommand is "run". If a run exception occurs this is thrown.
 	 * getMechanismConfig must have been called before this method to set the mechanismHostname/mechanismPortNumber
 	 * up correctly.
-	 * If an error is returned this is thrown as an exception.
+	 * If an error is returned this is thrown as an exception. The returned position is used to update the
+	 * mechanism position cache.
 	 * @return The current position is returned as an integer, one of:POSITION_ERROR, POSITION_UNKNOWN, 
 	 *         POSITION_IN, POSITION_OUT.
 	 * @exception Exception Thrown if an error occurs.
@@ -589,6 +1180,8 @@ public class HardwareImplementation extends CommandImplementation implements JMS
 	 * @see ngat.sprat.mechanism.command.InOutReplyCommand#POSITION_UNKNOWN
 	 * @see ngat.sprat.mechanism.command.InOutReplyCommand#POSITION_IN
 	 * @see ngat.sprat.mechanism.command.InOutReplyCommand#POSITION_OUT
+	 * @see #updateMechanismPosition
+	 * @see #mechanismQuerySession
 	 */
 	protected int getGrismPosition() throws Exception
 	{
@@ -596,6 +1189,7 @@ public class HardwareImplementation extends CommandImplementation implements JMS
 
 		sprat.log(Logging.VERBOSITY_INTERMEDIATE,this.getClass().getName()+":getGrismPosition:started.");
 		command = new GrismCommand(mechanismHostname,mechanismPortNumber);
+		command.setSession(mechanismQuerySession);
 		command.run();
 		if(command.getRunException() != null)
 		{
@@ -612,6 +1206,7 @@ public class HardwareImplementation extends CommandImplementation implements JMS
 		sprat.log(Logging.VERBOSITY_INTERMEDIATE,this.getClass().getName()+
 			  ":getGrismPosition:finished with position:"+
 			  GrismCommand.positionToString(command.getCurrentPosition()));
+		updateMechanismPosition(SpratMechanismPositionCache.MECHANISM_GRISM,command.getCurrentPosition());
 		return command.getCurrentPosition();
 	}
 
@@ -620,7 +1215,8 @@ public class HardwareImplementation extends CommandImplementation implements JMS
 	 * An instance of RotationCommand is "run". If a run exception occurs this is thrown.
 	 * getMechanismConfig must have been called before this method to set the mechanismHostname/mechanismPortNumber
 	 * up correctly.
-	 * If an error is returned this is thrown as an exception.
+	 * If an error is returned this is thrown as an exception. The returned position is used to update the
+	 * mechanism position cache.
 	 * @return The current position is returned as an integer, one of:POSITION_ERROR, POSITION_UNKNOWN, 
 	 *         0 or 1.
 	 * @exception Exception Thrown if an error occurs.
@@ -634,6 +1230,8 @@ public class HardwareImplementation extends CommandImplementation implements JMS
 	 * @see ngat.sprat.mechanism.command.RotationCommand#getCurrentPosition
 	 * @see ngat.sprat.mechanism.command.RotationCommand#POSITION_ERROR
 	 * @see ngat.sprat.mechanism.command.RotationCommand#POSITION_UNKNOWN
+	 * @see #updateMechanismPosition
+	 * @see #mechanismQuerySession
 	 */
 	protected int getRotationPosition() throws Exception
 	{
@@ -641,6 +1239,7 @@ public class HardwareImplementation extends CommandImplementation implements JMS
 
 		sprat.log(Logging.VERBOSITY_INTERMEDIATE,this.getClass().getName()+":getRotationPosition:started.");
 		command = new RotationCommand(mechanismHostname,mechanismPortNumber);
+		command.setSession(mechanismQuerySession);
 		command.run();
 		if(command.getRunException() != null)
 		{
@@ -657,6 +1256,7 @@ public class HardwareImplementation extends CommandImplementation implements JMS
 		sprat.log(Logging.VERBOSITY_INTERMEDIATE,this.getClass().getName()+
 			  ":getRotationPosition:finished with position:"+
 			  command.getCurrentPosition());
+		updateMechanismPosition(SpratMechanismPositionCache.MECHANISM_ROTATION,command.getCurrentPosition());
 		return command.getCurrentPosition();
 	}
 
@@ -676,6 +1276,7 @@ public class HardwareImplementation extends CommandImplementation implements JMS
 	 * @see ngat.sprat.mechanism.command.TemperatureCommand#getIsError
 	 * @see ngat.sprat.mechanism.command.TemperatureCommand#getErrorString
 	 * @see ngat.sprat.mechanism.command.TemperatureCommand#getTemperature
+	 * @see #mechanismQuerySession
 	 */
  	protected double getMechanismTemperature(int sensorNumber) throws Exception
 	{
@@ -684,6 +1285,7 @@ public class HardwareImplementation extends CommandImplementation implements JMS
 		sprat.log(Logging.VERBOSITY_INTERMEDIATE,this.getClass().getName()+
 			  ":getMechanismTemperature(sensorNumber="+sensorNumber+"):started.");
 		command = new TemperatureCommand(mechanismHostname,mechanismPortNumber,sensorNumber);
+		command.setSession(mechanismQuerySession);
 		command.run();
 		if(command.getRunException() != null)
 		{
@@ -719,6 +1321,7 @@ public class HardwareImplementation extends CommandImplementation implements JMS
 	 * @see ngat.sprat.mechanism.command.HumidityCommand#getIsError
 	 * @see ngat.sprat.mechanism.command.HumidityCommand#getErrorString
 	 * @see ngat.sprat.mechanism.command.HumidityCommand#getHumidity
+	 * @see #mechanismQuerySession
 	 */
  	protected double getHumidity(int sensorNumber) throws Exception
 	{
@@ -727,6 +1330,7 @@ public class HardwareImplementation extends CommandImplementation implements JMS
 		sprat.log(Logging.VERBOSITY_INTERMEDIATE,this.getClass().getName()+
 			  ":getHumidity(sensorNumber="+sensorNumber+"):started.");
 		command = new HumidityCommand(mechanismHostname,mechanismPortNumber,sensorNumber);
+		command.setSession(mechanismQuerySession);
 		command.run();
 		if(command.getRunException() != null)
 		{
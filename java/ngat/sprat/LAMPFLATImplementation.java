@@ -385,6 +385,7 @@ public class LAMPFLATImplementation extends CALIBRATEImplementation implements J
 	 * @see ngat.sprat.mechanism.command.WLampCommand#getRunException
 	 * @see ngat.sprat.mechanism.command.WLampCommand#getIsError
 	 * @see ngat.sprat.mechanism.command.WLampCommand#getErrorString
+	 * @see HardwareImplementation#invalidateStatusCache
 	 */
 	protected void setWLamp(boolean on) throws Exception
 	{
@@ -398,6 +399,7 @@ public class LAMPFLATImplementation extends CALIBRATEImplementation implements J
 			lampState = WLampCommand.STATE_OFF;
 		command = new WLampCommand(mechanismHostname,mechanismPortNumber,lampState);
 		command.run();
+		invalidateStatusCache();
 		if(command.getRunException() != null)
 		{
 			throw new Exception(this.getClass().getName()+
@@ -449,8 +451,8 @@ public class LAMPFLATImplementation extends CALIBRATEImplementation implements J
 		sprat.log(Logging.VERBOSITY_INTERMEDIATE,"sendMultrunCommand:hostname = "+hostname+
 			   " :port number = "+portNumber+".");
 		command.setCommand(exposureLength,1,MultrunCommand.EXPOSURE_TYPE_LAMPFLAT);
-		// actually send the command to the C layer
-		command.sendCommand();
+		// actually send the command to the C layer, cancelling it if this command is aborted
+		sendCCDCommand(command);
 		// check the parsed reply
 		if(command.getParsedReplyOK() == false)
 		{
@@ -4,10 +4,12 @@ package ngat.sprat;
 
 import java.io.*;
 import java.lang.*;
-import java.util.List;
+import java.util.*;
+import java.util.concurrent.*;
 
 import ngat.message.base.*;
 import ngat.message.ISS_INST.*;
+import ngat.message.INST_DP.*;
 import ngat.phase2.SpratConfig;
 import ngat.sprat.ccd.command.*;
 import ngat.sprat.mechanism.command.*;
@@ -19,20 +21,43 @@ import ngat.util.logging.*;
  * @author Chris Motram
  * @version $Revision$
  */
-public class MULTRUNImplementation extends EXPOSEImplementation implements JMSCommandImplementation
+public class MULTRUNImplementation extends EXPOSEImplementation implements JMSCommandImplementation,
+	MultrunFrameListener
 {
 	/**
 	 * Revision Control System id string, showing the version of the Class.
 	 */
 	public final static String RCSID = new String("$Id$");
 	/**
-	 * The list of FITS filenames returned by the multrun command.
+	 * The default maximum number of frames reduced by the DpRt at once, used if the
+	 * <b>sprat.multrun.data_pipeline.thread_count</b> property is not defined.
+	 */
+	public final static int DEFAULT_DATA_PIPELINE_THREAD_COUNT = 2;
+	/**
+	 * The default length of time to wait for a newly saved frame before checking for completed reductions,
+	 * in milliseconds. Used if the <b>sprat.multrun.data_pipeline.poll_interval</b> property is not defined.
+	 */
+	public final static long DEFAULT_DATA_PIPELINE_POLL_INTERVAL = 500;
+	/**
+	 * The list of FITS filenames saved by the multrun so far, in frame order.
 	 */
 	protected List<String> filenameList = null;
 	/**
 	 * The multrun number used for FITS filenames for this command.
 	 */
 	protected int multrunNumber = 0;
+	/**
+	 * The pipeline the frames are submitted to for reduction as they are saved, or null if the frames
+	 * are not being pipeline processed.
+	 */
+	protected SpratReductionPipeline reductionPipeline = null;
+	/**
+	 * A queue of the FITS filenames of frames streamed back by the C layer as the multrun saves them,
+	 * waiting to be processed by the thread running the MULTRUN command.
+	 * @see #frameSaved
+	 * @see #processQueuedFrames
+	 */
+	protected BlockingQueue<String> savedFrameQueue = null;
 
 	/**
 	 * Constructor.
@@ -109,28 +134,50 @@ public class MULTRUNImplementation extends EXPOSEImplementation implements JMSCo
 	 * <li>setFitsHeaders is called to get some FITS headers from the properties files and add them to the C layer.
 	 * <li>getFitsHeadersFromISS is called to gets some FITS headers from the ISS (RCS). A filtered subset
 	 *     is sent on to the C layer.
-	 * <li>sendMultrunCommand is called to actually send the multrun command to the C layer.
-	 * <li>For each filename returned we call reduceExpose to reduce the exposure. A MULTRUN_DP_ACK is sent back
-	 *     to the client after each reduction.
+	 * <li>createMultrunCommand is called to create a streaming multrun command, which is run in a separate thread.
+	 * <li>Whilst the multrun is in progress, the C layer streams back each frame as it is saved, which
+	 *     is queued by frameSaved and processed by processQueuedFrames.
+	 *     A MULTRUN_ACK is sent back to the client for each saved frame, and if the data is to be pipeline
+	 *     processed a reduction of the frame is submitted to a SpratReductionPipeline, which reduces
+	 *     up to <b>sprat.multrun.data_pipeline.thread_count</b> frames at once.
+	 *     A MULTRUN_DP_ACK is sent back to the client for each completed reduction, in frame order
+	 *     (completed reductions are checked for at least every
+	 *     <b>sprat.multrun.data_pipeline.poll_interval</b> milliseconds).
+	 * <li>When the multrun has finished, processMultrunReply checks it was successful, any frames not yet
+	 *     processed are processed, and we wait for the remaining reductions.
 	 * <li>The done object is setup.
 	 * </ul>
+	 * If the command is aborted whilst the multrun is in progress, the multrun command is cancelled
+	 * (via the server connection thread's abort token), so the multrun thread finishes immediately.
 	 * @see #testAbort
-	 * @see #sendMultrunCommand
+	 * @see #createAbortListener(ngat.sprat.ccd.command.Command)
+	 * @see #createMultrunCommand
+	 * @see #processMultrunReply
+	 * @see #frameSaved
+	 * @see #processQueuedFrames
+	 * @see #processSavedFrame
+	 * @see #sendReductionAcks
+	 * @see #getDataPipelineThreadCount
+	 * @see #getDataPipelinePollInterval
+	 * @see SpratReductionPipeline
+	 * @see SpratTCPServerConnectionThread#setMinimumCompletionTime
 	 * @see HardwareImplementation#moveFold
 	 * @see HardwareImplementation#moveMirror
 	 * @see FITSImplementation#clearFitsHeaders
 	 * @see FITSImplementation#setFitsHeaders
 	 * @see FITSImplementation#getFitsHeadersFromISS
-	 * @see EXPOSEImplementation#reduceExpose
 	 * @see ngat.phase2.SpratConfig#POSITION_OUT
 	 */
 	public COMMAND_DONE processCommand(COMMAND command)
 	{
 		MULTRUN multRunCommand = (MULTRUN)command;
-		MULTRUN_ACK multRunAck = null;
-		MULTRUN_DP_ACK multRunDpAck = null;
 		MULTRUN_DONE multRunDone = new MULTRUN_DONE(command.getId());
+		MultrunCommand multrunCommand = null;
+		Thread multrunThread = null;
+		Runnable abortListener = null;
+		List<String> multrunFilenameList = null;
 		String filename = null;
+		long pollInterval;
 		int exposureLength,exposureCount,index;
 		boolean standard,retval;
 
@@ -193,75 +240,115 @@ public class MULTRUNImplementation extends EXPOSEImplementation implements JMSCo
 			return multRunDone;
 		if(testAbort(multRunCommand,multRunDone) == true)
 			return multRunDone;
-		// call multrun command
+		// start the multrun command in a separate thread, so frames can be acknowledged and
+		// reduced as they are saved, rather than after the last frame has been saved.
 		try
 		{
-			sendMultrunCommand(exposureLength,exposureCount,standard);
+			multrunCommand = createMultrunCommand(exposureLength,exposureCount,standard);
 		}
 		catch(Exception e )
 		{
-			sprat.error(this.getClass().getName()+":processCommand:sendMultrunCommand failed:",e);
-			multRunDone.setErrorNum(SpratConstants.SPRAT_ERROR_CODE_BASE+1200);
+			sprat.error(this.getClass().getName()+":processCommand:createMultrunCommand failed:",e);
+			multRunDone.setErrorNum(SpratConstants.SPRAT_ERROR_CODE_BASE+1206);
 			multRunDone.setErrorString(this.getClass().getName()+
-						   ":processCommand:sendMultrunCommand failed:"+e);
+						   ":processCommand:createMultrunCommand failed:"+e);
 			multRunDone.setSuccessful(false);
 			return multRunDone;
 		}
-		// send filename ACKs
-		for(int i = 0; i < filenameList.size(); i++ )
+		filenameList = new Vector<String>();
+		savedFrameQueue = new LinkedBlockingQueue<String>();
+		multrunCommand.setFrameListener(this);
+		if(multRunCommand.getPipelineProcess())
 		{
-			filename = (String)filenameList.get(i);
-			if(!sendMultrunAck(multRunCommand,multRunDone,filename))
-				return multRunDone;
+			reductionPipeline = new SpratReductionPipeline(sprat,serverConnectionThread,
+								       getDataPipelineThreadCount());
 		}
-	// call pipeline to process data and get results
+		else
+			reductionPipeline = null;
+		pollInterval = getDataPipelinePollInterval();
+		// ACKs sent to the client whilst the multrun is in progress (including those forwarded from the DpRt)
+		// must not bring the client's timeout forward of the end of the multrun.
+		serverConnectionThread.setMinimumCompletionTime(System.currentTimeMillis()+
+								serverConnectionThread.getAcknowledgeTime());
+		// if this command is aborted, cancel the multrun command so the multrun thread finishes immediately
+		abortListener = createAbortListener(multrunCommand);
+		addAbortListener(abortListener);
+		multrunThread = new Thread(multrunCommand,"MULTRUN:"+command.getId());
+		multrunThread.start();
 		retval = true;
-		if(multRunCommand.getPipelineProcess())
+		try
 		{
-			index = 0;
-			while(retval&&(index < filenameList.size()))
+			while(multrunThread.isAlive())
 			{
-				filename = (String)filenameList.get(index);
-			// do reduction.
-				if(reduceExpose(multRunCommand,multRunDone,filename) == false)
-					retval = false;
-			// send acknowledge to say frame has been reduced.
-				multRunDpAck = new MULTRUN_DP_ACK(command.getId());
-				multRunDpAck.setTimeToComplete(serverConnectionThread.getDefaultAcknowledgeTime());
-			// copy Data Pipeline results from DONE to ACK
-				multRunDpAck.setFilename(multRunDone.getFilename());
-				multRunDpAck.setCounts(multRunDone.getCounts());
-				multRunDpAck.setSeeing(multRunDone.getSeeing());
-				multRunDpAck.setXpix(multRunDone.getXpix());
-				multRunDpAck.setYpix(multRunDone.getYpix());
-				multRunDpAck.setPhotometricity(multRunDone.getPhotometricity());
-				multRunDpAck.setSkyBrightness(multRunDone.getSkyBrightness());
-				multRunDpAck.setSaturation(multRunDone.getSaturation());
-				try
+				// once something has failed, we just wait for the C layer multrun to finish
+				if(retval)
+					retval = processQueuedFrames(multRunCommand,multRunDone,pollInterval);
+				else
 				{
-					serverConnectionThread.sendAcknowledge(multRunDpAck);
+					try
+					{
+						multrunThread.join(pollInterval);
+					}
+					catch(InterruptedException e)
+					{
+						sprat.error(this.getClass().getName()+
+							    ":processCommand:join interrupted:",e);
+					}
 				}
-				catch(IOException e)
+				if(retval&&(reductionPipeline != null))
+					retval = sendReductionAcks(multRunCommand,multRunDone,reductionPipeline,false);
+			}
+			// process any frames streamed back after the last check
+			if(retval)
+				retval = processQueuedFrames(multRunCommand,multRunDone,0);
+			// check the multrun command was successful
+			if(retval)
+			{
+				try
 				{
-					retval = false;
-					sprat.error(this.getClass().getName()+
-						":processCommand:sendAcknowledge(DP):"+command+":"+e.toString());
-					multRunDone.setErrorNum(SpratConstants.SPRAT_ERROR_CODE_BASE+1203);
-					multRunDone.setErrorString("sendAcknowledge(DP) failed:"+e.toString());
-					multRunDone.setSuccessful(false);
-					return multRunDone;
+					multrunFilenameList = processMultrunReply(multrunCommand);
 				}
-				if(testAbort(multRunCommand,multRunDone) == true)
+				catch(Exception e )
 				{
+					sprat.error(this.getClass().getName()+":processCommand:multrun command failed:",e);
+					multRunDone.setErrorNum(SpratConstants.SPRAT_ERROR_CODE_BASE+1200);
+					multRunDone.setErrorString(this.getClass().getName()+
+								   ":processCommand:multrun command failed:"+e);
+					multRunDone.setSuccessful(false);
 					retval = false;
 				}
+			}
+			// send filename ACKs, and start reductions, for any frames in the reply that were not streamed back
+			index = 0;
+			while(retval&&(index < multrunFilenameList.size()))
+			{
+				filename = (String)multrunFilenameList.get(index);
+				if(filenameList.contains(filename) == false)
+					retval = processSavedFrame(multRunCommand,multRunDone,filename);
 				index++;
-			}// end while on MULTRUN exposures
-		}// end if Data Pipeline is to be called
-		else
+			}
+			// wait for the remaining reductions, and send MULTRUN_DP_ACKs in frame order
+			if(retval&&(reductionPipeline != null))
+				retval = sendReductionAcks(multRunCommand,multRunDone,reductionPipeline,true);
+		}
+		finally
+		{
+			removeAbortListener(abortListener);
+			serverConnectionThread.setMinimumCompletionTime(0);
+			savedFrameQueue = null;
+			if(reductionPipeline != null)
+				reductionPipeline.shutdown();
+			reductionPipeline = null;
+		}
+	// if a failure occurs, return now
+		if(!retval)
+			return multRunDone;
+		if(multRunCommand.getPipelineProcess() == false)
 		{
 		// no pipeline processing occured, set return value to something bland.
 		// set filename to last filename exposed.
+			if(filenameList.size() > 0)
+				filename = (String)filenameList.get(filenameList.size()-1);
 			multRunDone.setFilename(filename);
 			multRunDone.setCounts(0.0f);
 			multRunDone.setSeeing(0.0f);
@@ -271,12 +358,9 @@ public class MULTRUNImplementation extends EXPOSEImplementation implements JMSCo
 			multRunDone.setSkyBrightness(0.0f);
 			multRunDone.setSaturation(false);
 		}
-	// if a failure occurs, return now
-		if(!retval)
-			return multRunDone;
 	// setup return values.
 	// setCounts,setFilename,setSeeing,setXpix,setYpix 
-	// setPhotometricity, setSkyBrightness, setSaturation set by reduceExpose for last image reduced.
+	// setPhotometricity, setSkyBrightness, setSaturation set by processReduceDone for last image reduced.
 		// standard success values
 		multRunDone.setErrorNum(SpratConstants.SPRAT_ERROR_CODE_NO_ERROR);
 		multRunDone.setErrorString("");
@@ -287,34 +371,27 @@ public class MULTRUNImplementation extends EXPOSEImplementation implements JMSCo
 	}
 
 	/**
-	 * Send the multrun command to the C layer.
+	 * Create the multrun command to send to the C layer. The command is a streaming multrun, so the C layer
+	 * streams back each frame as it is saved.
 	 * @param exposureLength The exposure length in milliseconds.
 	 * @param exposureCount The number of frames to take.
 	 * @param standard If true this is a standard frame.
+	 * @return The multrun command, ready to be run.
 	 * @exception Exception Thrown if an error occurs.
-	 * @see #multrunNumber
-	 * @see #filenameList
 	 * @see HardwareImplementation#ccdCLayerHostname
 	 * @see HardwareImplementation#ccdCLayerPortNumber
 	 * @see ngat.sprat.ccd.command.MultrunCommand
 	 * @see ngat.sprat.ccd.command.MultrunCommand#setAddress
 	 * @see ngat.sprat.ccd.command.MultrunCommand#setPortNumber
-	 * @see ngat.sprat.ccd.command.MultrunCommand#setCommand
-	 * @see ngat.sprat.ccd.command.MultrunCommand#sendCommand
-	 * @see ngat.sprat.ccd.command.MultrunCommand#getParsedReplyOK
-	 * @see ngat.sprat.ccd.command.MultrunCommand#getReturnCode
-	 * @see ngat.sprat.ccd.command.MultrunCommand#getParsedReply
-	 * @see ngat.sprat.ccd.command.MultrunCommand#getMultrunNumber
-	 * @see ngat.sprat.ccd.command.MultrunCommand#getFilenameList
+	 * @see ngat.sprat.ccd.command.MultrunCommand#setCommand(int,int,java.lang.String,boolean)
 	 */
-	protected void sendMultrunCommand(int exposureLength, int exposureCount,boolean standard) throws Exception
+	protected MultrunCommand createMultrunCommand(int exposureLength, int exposureCount,boolean standard)
+		throws Exception
 	{
 		MultrunCommand command = null;
-		int returnCode;
 		String exposureTypeString = null;
-		String errorString = null;
 
-		sprat.log(Logging.VERBOSITY_INTERMEDIATE,"sendMultrunCommand:"+
+		sprat.log(Logging.VERBOSITY_INTERMEDIATE,"createMultrunCommand:"+
 			 "\n\t:exposureLength = "+exposureLength+
 			 "\n\t:exposureCount = "+exposureCount+
 			 "\n\t:standard = "+standard+".");
@@ -326,30 +403,247 @@ public class MULTRUNImplementation extends EXPOSEImplementation implements JMSCo
 		// configure C comms
 		command.setAddress(ccdCLayerHostname);
 		command.setPortNumber(ccdCLayerPortNumber);
-		sprat.log(Logging.VERBOSITY_INTERMEDIATE,"sendMultrunCommand:hostname = "+ccdCLayerHostname+
+		sprat.log(Logging.VERBOSITY_INTERMEDIATE,"createMultrunCommand:hostname = "+ccdCLayerHostname+
 			   " :port number = "+ccdCLayerPortNumber+".");
-		command.setCommand(exposureLength,exposureCount,exposureTypeString);
-		// actually send the command to the C layer
-		command.sendCommand();
+		command.setCommand(exposureLength,exposureCount,exposureTypeString,true);
+		return command;
+	}
+
+	/**
+	 * Check the reply of a multrun command that has been run.
+	 * @param command The multrun command, which has finished running.
+	 * @return The list of FITS filenames returned by the multrun command.
+	 * @exception Exception Thrown if the command failed to run, or the C layer returned an error.
+	 * @see #multrunNumber
+	 * @see ngat.sprat.ccd.command.MultrunCommand#getRunException
+	 * @see ngat.sprat.ccd.command.MultrunCommand#getParsedReplyOK
+	 * @see ngat.sprat.ccd.command.MultrunCommand#getReturnCode
+	 * @see ngat.sprat.ccd.command.MultrunCommand#getParsedReply
+	 * @see ngat.sprat.ccd.command.MultrunCommand#getMultrunNumber
+	 * @see ngat.sprat.ccd.command.MultrunCommand#getFilenameList
+	 */
+	protected List<String> processMultrunReply(MultrunCommand command) throws Exception
+	{
+		List<String> multrunFilenameList = null;
+		int returnCode;
+		String errorString = null;
+
+		if(command.getRunException() != null)
+		{
+			throw new Exception(this.getClass().getName()+
+					    ":processMultrunReply:Command failed:",command.getRunException());
+		}
 		// check the parsed reply
 		if(command.getParsedReplyOK() == false)
 		{
 			returnCode = command.getReturnCode();
 			errorString = command.getParsedReply();
 			sprat.log(Logging.VERBOSITY_TERSE,
-				   "sendMultrunCommand:multrun command failed with return code "+
+				   "processMultrunReply:multrun command failed with return code "+
 				   returnCode+" and error string:"+errorString);
 			throw new Exception(this.getClass().getName()+
-					    ":sendMultrunCommand:Command failed with return code "+returnCode+
+					    ":processMultrunReply:Command failed with return code "+returnCode+
 					    " and error string:"+errorString);
 		}
 		// extract data from successful reply.
 		multrunNumber = command.getMultrunNumber();
-		filenameList = command.getFilenameList();
-		sprat.log(Logging.VERBOSITY_INTERMEDIATE,"sendMultrunCommand:finished with multrun number "+
-			  multrunNumber+" and "+filenameList.size()+" filnames.");
+		multrunFilenameList = command.getFilenameList();
+		sprat.log(Logging.VERBOSITY_INTERMEDIATE,"processMultrunReply:finished with multrun number "+
+			  multrunNumber+" and "+multrunFilenameList.size()+" filnames.");
+		return multrunFilenameList;
+	}
+
+	/**
+	 * MultrunFrameListener interface implementation. Called by the thread running the multrun command, as the
+	 * C layer streams back each saved frame. The filename is queued, to be processed by the thread running the
+	 * MULTRUN command.
+	 * @param index The index of the frame in the multrun.
+	 * @param filename The FITS filename the frame was saved to.
+	 * @see #savedFrameQueue
+	 * @see #processQueuedFrames
+	 */
+	public void frameSaved(int index,String filename)
+	{
+		BlockingQueue<String> queue = savedFrameQueue;
+
+		sprat.log(Logging.VERBOSITY_VERBOSE,this.getClass().getName()+
+			  ":frameSaved:Frame "+index+" saved to "+filename+".");
+		if(queue != null)
+			queue.offer(filename);
 	}
 
+	/**
+	 * Process the frames streamed back by the C layer, that have been queued by frameSaved.
+	 * processSavedFrame is called for each queued frame.
+	 * @param multRunCommand The MULTRUN command.
+	 * @param multRunDone The MULTRUN_DONE, the error fields are filled in if an error occurs.
+	 * @param waitTime How long to wait for a frame to be queued, in milliseconds, if none are queued.
+	 *        If zero, only frames already queued are processed.
+	 * @return The routine returns true on success and false on failure.
+	 * @see #savedFrameQueue
+	 * @see #processSavedFrame
+	 */
+	protected boolean processQueuedFrames(MULTRUN multRunCommand,MULTRUN_DONE multRunDone,long waitTime)
+	{
+		String filename = null;
+
+		try
+		{
+			if(waitTime > 0)
+				filename = savedFrameQueue.poll(waitTime,TimeUnit.MILLISECONDS);
+			else
+				filename = savedFrameQueue.poll();
+		}
+		catch(InterruptedException e)
+		{
+			sprat.error(this.getClass().getName()+":processQueuedFrames:wait interrupted:",e);
+		}
+		while(filename != null)
+		{
+			if(processSavedFrame(multRunCommand,multRunDone,filename) == false)
+				return false;
+			filename = savedFrameQueue.poll();
+		}
+		return true;
+	}
+
+	/**
+	 * Process a frame saved by the multrun. The filename is added to the filename list,
+	 * a MULTRUN_ACK is sent to the client with the filename, and if the data is to be pipeline processed
+	 * (and the command has not been aborted) a reduction of the frame is submitted to the reduction pipeline.
+	 * @param multRunCommand The MULTRUN command.
+	 * @param multRunDone The MULTRUN_DONE, the error fields are filled in if an error occurs.
+	 * @param filename The FITS filename of the saved frame.
+	 * @return The routine returns true on success and false on failure.
+	 * @see #filenameList
+	 * @see #reductionPipeline
+	 * @see #sendMultrunAck
+	 * @see EXPOSEImplementation#createReduceCommand
+	 * @see SpratReductionPipeline#submit
+	 */
+	protected boolean processSavedFrame(MULTRUN multRunCommand,MULTRUN_DONE multRunDone,String filename)
+	{
+		sprat.log(Logging.VERBOSITY_INTERMEDIATE,this.getClass().getName()+
+			  ":processSavedFrame:Frame "+filenameList.size()+" saved to "+filename+".");
+		filenameList.add(filename);
+		if(!sendMultrunAck(multRunCommand,multRunDone,filename))
+			return false;
+		if((reductionPipeline != null)&&(serverConnectionThread.getAbortProcessCommand() == false))
+			reductionPipeline.submit(filename,createReduceCommand(multRunCommand,filename));
+		return true;
+	}
+
+	/**
+	 * Send MULTRUN_DP_ACKs for completed reductions back to the client, in frame order. The reduction results
+	 * are copied into the MULTRUN_DONE, and then into the MULTRUN_DP_ACK.
+	 * @param multRunCommand The MULTRUN command.
+	 * @param multRunDone The MULTRUN_DONE, the error fields are filled in if an error occurs.
+	 * @param pipeline The reduction pipeline the reductions were submitted to.
+	 * @param wait If true, wait for all the submitted reductions to complete. If false, only send ACKs for the
+	 *        reductions that have completed (and have no earlier frames still being reduced).
+	 * @return The routine returns true on success and false on failure.
+	 * @see #testAbort
+	 * @see EXPOSEImplementation#processReduceDone
+	 * @see SpratReductionPipeline#hasNextResult
+	 * @see SpratReductionPipeline#isNextResultAvailable
+	 * @see SpratReductionPipeline#nextResult
+	 */
+	protected boolean sendReductionAcks(MULTRUN multRunCommand,MULTRUN_DONE multRunDone,
+					    SpratReductionPipeline pipeline,boolean wait)
+	{
+		MULTRUN_DP_ACK multRunDpAck = null;
+		INST_TO_DP_DONE instToDPDone = null;
+		boolean retval;
+
+		while(pipeline.hasNextResult()&&(wait||pipeline.isNextResultAvailable()))
+		{
+			try
+			{
+				instToDPDone = pipeline.nextResult();
+			}
+			catch(Exception e)
+			{
+				sprat.error(this.getClass().getName()+":sendReductionAcks:"+multRunCommand+":",e);
+				multRunDone.setErrorNum(SpratConstants.SPRAT_ERROR_CODE_BASE+1205);
+				multRunDone.setErrorString("sendReductionAcks:"+e.toString());
+				multRunDone.setSuccessful(false);
+				return false;
+			}
+			retval = processReduceDone(multRunCommand,multRunDone,instToDPDone);
+		// send acknowledge to say frame has been reduced.
+			multRunDpAck = new MULTRUN_DP_ACK(multRunCommand.getId());
+			multRunDpAck.setTimeToComplete(serverConnectionThread.getDefaultAcknowledgeTime());
+		// copy Data Pipeline results from DONE to ACK
+			multRunDpAck.setFilename(multRunDone.getFilename());
+			multRunDpAck.setCounts(multRunDone.getCounts());
+			multRunDpAck.setSeeing(multRunDone.getSeeing());
+			multRunDpAck.setXpix(multRunDone.getXpix());
+			multRunDpAck.setYpix(multRunDone.getYpix());
+			multRunDpAck.setPhotometricity(multRunDone.getPhotometricity());
+			multRunDpAck.setSkyBrightness(multRunDone.getSkyBrightness());
+			multRunDpAck.setSaturation(multRunDone.getSaturation());
+			try
+			{
+				serverConnectionThread.sendAcknowledge(multRunDpAck);
+			}
+			catch(IOException e)
+			{
+				sprat.error(this.getClass().getName()+
+					":sendReductionAcks:sendAcknowledge(DP):"+multRunCommand+":"+e.toString());
+				multRunDone.setErrorNum(SpratConstants.SPRAT_ERROR_CODE_BASE+1203);
+				multRunDone.setErrorString("sendAcknowledge(DP) failed:"+e.toString());
+				multRunDone.setSuccessful(false);
+				return false;
+			}
+			if(retval == false)
+				return false;
+			if(testAbort(multRunCommand,multRunDone) == true)
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Get the maximum number of frames that are reduced by the DpRt at once, from the
+	 * <b>sprat.multrun.data_pipeline.thread_count</b> property.
+	 * @return The number of reduction threads. DEFAULT_DATA_PIPELINE_THREAD_COUNT is returned if the
+	 *         property does not exist or is not a valid number.
+	 * @see #DEFAULT_DATA_PIPELINE_THREAD_COUNT
+	 */
+	protected int getDataPipelineThreadCount()
+	{
+		try
+		{
+			if(status.propertyContainsKey("sprat.multrun.data_pipeline.thread_count"))
+				return status.getPropertyInteger("sprat.multrun.data_pipeline.thread_count");
+		}
+		catch(NumberFormatException e)
+		{
+			sprat.error(this.getClass().getName()+":getDataPipelineThreadCount:",e);
+		}
+		return DEFAULT_DATA_PIPELINE_THREAD_COUNT;
+	}
+
+	/**
+	 * Get how long to wait for a newly saved frame during a multrun, before checking for completed reductions,
+	 * from the <b>sprat.multrun.data_pipeline.poll_interval</b> property.
+	 * @return The poll interval in milliseconds. DEFAULT_DATA_PIPELINE_POLL_INTERVAL is returned if the
+	 *         property does not exist or is not a valid number.
+	 * @see #DEFAULT_DATA_PIPELINE_POLL_INTERVAL
+	 */
+	protected long getDataPipelinePollInterval()
+	{
+		try
+		{
+			if(status.propertyContainsKey("sprat.multrun.data_pipeline.poll_interval"))
+				return status.getPropertyLong("sprat.multrun.data_pipeline.poll_interval");
+		}
+		catch(NumberFormatException e)
+		{
+			sprat.error(this.getClass().getName()+":getDataPipelinePollInterval:",e);
+		}
+		return DEFAULT_DATA_PIPELINE_POLL_INTERVAL;
+	}
 
 	/**
 	 * Send a MULTRUN_ACK back to the client with the specified filename.
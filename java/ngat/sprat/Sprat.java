@@ -8,6 +8,7 @@ import java.io.*;
 import java.net.*;
 import java.text.*;
 import java.util.*;
+import java.util.concurrent.*;
 
 import ngat.fits.*;
 import ngat.net.*;
@@ -38,6 +39,21 @@ public class Sprat
 	 * Internal constant used when converting temperatures in centigrade to Kelvin.
 	 */
 	public final static double CENTIGRADE_TO_KELVIN = 273.15;
+	/**
+	 * The default number of threads in the status query thread pool.
+	 * @see #initStatusExecutor
+	 */
+	public final static int DEFAULT_STATUS_THREAD_COUNT = 8;
+	/**
+	 * The default number of threads kept in the outbound I/O thread pool.
+	 * @see #initIOExecutor
+	 */
+	public final static int DEFAULT_IO_THREAD_COUNT = 8;
+	/**
+	 * The default maximum number of threads in the outbound I/O thread pool.
+	 * @see #initIOExecutor
+	 */
+	public final static int DEFAULT_IO_THREAD_COUNT_MAXIMUM = 64;
 	/**
 	 * The minimum port number to listen for connections on.
 	 */
@@ -60,10 +76,11 @@ public class Sprat
 	private SpratStatus status = null;
 	/**
 	 * This hashtable holds the map between COMMAND sub-class names and their implementations, which
-	 * are stored as the Hashtable data values as class objects of sub-classes of CommandImplementation.
-	 * When Sprat gets a COMMAND from a client it can query this Hashtable to find it's implementation class.
+	 * are stored as the Hashtable data values as pools of reusable instances of sub-classes of CommandImplementation.
+	 * When Sprat gets a COMMAND from a client it can query this Hashtable to find it's implementation pool.
+	 * @see SpratImplementationPool
 	 */
-	private Hashtable<String,Class> implementationList = null;
+	private Hashtable<String,SpratImplementationPool> implementationList = null;
 	/**
 	 * Command line argument. The level of logging to perform in Sprat.
 	 */
@@ -92,6 +109,39 @@ public class Sprat
 	 * The port number to listen for Telescope Image Transfer requests.
 	 */
 	private int titPortNumber = 0;
+	/**
+	 * A bounded pool of threads, used to run status queries (to the CCD C layer and the mechanism Arduino)
+	 * in parallel.
+	 * @see #initStatusExecutor
+	 * @see #getStatusExecutor
+	 */
+	private ExecutorService statusExecutor = null;
+	/**
+	 * A pool of threads, used to run all outbound I/O: ISS and DpRt client connections, and the reply readers
+	 * of CCD C layer and mechanism Arduino telnet commands.
+	 * @see #initIOExecutor
+	 * @see #getIOExecutor
+	 */
+	private ExecutorService ioExecutor = null;
+	/**
+	 * The cache of GET_STATUS data, or null if status caching is not enabled.
+	 * @see #initStatusCache
+	 * @see #getStatusCache
+	 */
+	private SpratStatusCache statusCache = null;
+	/**
+	 * The thread that periodically samples the status into the statusCache, or null if status caching
+	 * is not enabled.
+	 * @see #statusCache
+	 * @see #initStatusCache
+	 */
+	private SpratStatusSampler statusSampler = null;
+	/**
+	 * The cache of the last known mechanism positions, or null if position caching is not enabled.
+	 * @see #initMechanismPositionCache
+	 * @see #getMechanismPositionCache
+	 */
+	private SpratMechanismPositionCache mechanismPositionCache = null;
 	/**
 	 * The logging logger.
 	 */
@@ -100,6 +150,19 @@ public class Sprat
 	 * The error logger.
 	 */
 	protected Logger errorLogger = null;
+	/**
+	 * The current log level, kept here so isLoggable can check it without locking the status object.
+	 * @see #setLogLevel
+	 * @see #isLoggable
+	 */
+	private volatile int currentLogLevel = 0;
+	/**
+	 * The list of asynchronous log handlers created by initLogHandlers, so they can be closed 
+	 * (and their buffered records published) when Sprat is closed.
+	 * @see #initLogHandlers
+	 * @see #close
+	 */
+	private Vector<SpratAsyncLogHandler> asyncLogHandlerList = new Vector<SpratAsyncLogHandler>();
 
 	/**
 	 * init method.
@@ -111,6 +174,9 @@ public class Sprat
 	 * <li>Get ISS address from properties.
 	 * <li>We initialise the IP address of the DpRt (Data Pipeline (Real Time)) from the properties file.
 	 * <li>Configure acknowledge time from properties.
+	 * <li>Configure the CCD C layer connection pool from properties.
+	 * <li>Create the status query thread pool.
+	 * <li>Create the status cache (if enabled).
 	 * </ul>
 	 * @exception FileNotFoundException Thrown if an error occurs.
 	 * @exception IOException Thrown if an error occurs.
@@ -120,6 +186,10 @@ public class Sprat
 	 * @see #initLoggers
 	 * @see #setLogLevel
 	 * @see #initImplementationList
+	 * @see #initCCDConnectionPool
+	 * @see #initStatusExecutor
+	 * @see #initIOExecutor
+	 * @see #initStatusCache
 	 * @see #spratPortNumber
 	 * @see #issPortNumber
 	 * @see #dprtPortNumber
@@ -197,6 +267,230 @@ public class Sprat
 			error(this.getClass().getName()+":init:initialsing server connection thread times:",e);
 			// don't throw the error - failing to get this property is not 'vital' to Sprat.
 		}		
+	// initialise the CCD C layer connection pool
+		initCCDConnectionPool();
+	// create the status query thread pool
+		initStatusExecutor();
+	// create the outbound I/O thread pool
+		initIOExecutor();
+	// create the status cache
+		initStatusCache();
+	// create the mechanism position cache
+		initMechanismPositionCache();
+	}
+
+	/**
+	 * Configure the pool of persistent connections to the CCD C layer from the properties file.
+	 * <ul>
+	 * <li>If the <b>sprat.ccd.c.connection.pool.enable</b> property is true, CCD C layer commands
+	 *     are sent over persistent session connections from the CommandConnectionPool, otherwise a new
+	 *     telnet connection is opened per command.
+	 * <li>The <b>sprat.ccd.c.connection.pool.idle.max</b> property (if present) sets the maximum 
+	 *     number of idle connections kept open.
+	 * <li>The <b>sprat.ccd.c.connection.pool.timeout</b> property (if present) sets the socket read timeout
+	 *     of pooled connections, in milliseconds.
+	 * </ul>
+	 * Failing to configure the pool is not vital, the error is logged and the pool is left disabled.
+	 * @see #status
+	 * @see #init
+	 * @see #reInit
+	 * @see ngat.sprat.ccd.command.CommandConnectionPool#setEnabled
+	 * @see ngat.sprat.ccd.command.CommandConnectionPool#setMaximumIdleCount
+	 * @see ngat.sprat.ccd.command.CommandConnectionPool#setTimeout
+	 */
+	protected void initCCDConnectionPool()
+	{
+		boolean enable = false;
+
+		try
+		{
+			if(status.propertyContainsKey("sprat.ccd.c.connection.pool.idle.max"))
+			{
+				CommandConnectionPool.setMaximumIdleCount(status.getPropertyInteger(
+									"sprat.ccd.c.connection.pool.idle.max"));
+			}
+			if(status.propertyContainsKey("sprat.ccd.c.connection.pool.timeout"))
+			{
+				CommandConnectionPool.setTimeout(status.getPropertyInteger(
+									"sprat.ccd.c.connection.pool.timeout"));
+			}
+			if(status.propertyContainsKey("sprat.ccd.c.connection.pool.enable"))
+				enable = status.getPropertyBoolean("sprat.ccd.c.connection.pool.enable");
+			CommandConnectionPool.setEnabled(enable);
+			log(Logging.VERBOSITY_VERBOSE,this.getClass().getName()+
+			    ":initCCDConnectionPool:CCD C layer connection pool enabled = "+enable+".");
+		}
+		catch(Exception e)
+		{
+			error(this.getClass().getName()+":initCCDConnectionPool:Failed to configure connection pool:",e);
+			CommandConnectionPool.setEnabled(false);
+		}
+	}
+
+	/**
+	 * Create the pool of threads used to run status queries in parallel. The number of threads is
+	 * retrieved from the <b>sprat.get_status.thread.count</b> property, if this is not present or not valid
+	 * the DEFAULT_STATUS_THREAD_COUNT is used. The threads are daemon threads, so a status query that never 
+	 * returns does not stop Sprat exiting.
+	 * @see #DEFAULT_STATUS_THREAD_COUNT
+	 * @see #statusExecutor
+	 * @see #status
+	 */
+	protected void initStatusExecutor()
+	{
+		int threadCount = DEFAULT_STATUS_THREAD_COUNT;
+
+		try
+		{
+			if(status.propertyContainsKey("sprat.get_status.thread.count"))
+				threadCount = status.getPropertyInteger("sprat.get_status.thread.count");
+		}
+		catch(NumberFormatException e)
+		{
+			error(this.getClass().getName()+":initStatusExecutor:Failed to get thread count:",e);
+			threadCount = DEFAULT_STATUS_THREAD_COUNT;
+		}
+		if(threadCount < 1)
+			threadCount = 1;
+		log(Logging.VERBOSITY_VERBOSE,this.getClass().getName()+
+		    ":initStatusExecutor:Creating status query thread pool with "+threadCount+" threads.");
+		statusExecutor = Executors.newFixedThreadPool(threadCount,new ThreadFactory()
+			{
+				private int threadNumber = 0;
+
+				public synchronized Thread newThread(Runnable r)
+				{
+					Thread thread = null;
+
+					thread = new Thread(r,"Sprat status query "+(threadNumber++));
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+	}
+
+	/**
+	 * Create the pool of threads used to run all outbound I/O, and tell the CCD C layer and mechanism Arduino
+	 * command classes to use it for their reply readers.
+	 * The pool keeps <b>sprat.io.thread.count</b> threads alive (DEFAULT_IO_THREAD_COUNT if the property is not
+	 * present or not valid), and creates up to <b>sprat.io.thread.count.maximum</b> threads 
+	 * (DEFAULT_IO_THREAD_COUNT_MAXIMUM) when more I/O is in progress at once. Tasks are never queued, 
+	 * as an I/O task can take as long as the ISS/DpRt command it is waiting for. If the pool is full, 
+	 * the task is run in a new thread instead. The threads are daemon threads, so an I/O task that 
+	 * never returns does not stop Sprat exiting.
+	 * @see #DEFAULT_IO_THREAD_COUNT
+	 * @see #DEFAULT_IO_THREAD_COUNT_MAXIMUM
+	 * @see #ioExecutor
+	 * @see #status
+	 * @see ngat.sprat.ccd.command.Command#setReaderExecutor
+	 * @see ngat.sprat.mechanism.command.Command#setReaderExecutor
+	 */
+	protected void initIOExecutor()
+	{
+		int threadCount = DEFAULT_IO_THREAD_COUNT;
+		int maximumThreadCount = DEFAULT_IO_THREAD_COUNT_MAXIMUM;
+
+		try
+		{
+			if(status.propertyContainsKey("sprat.io.thread.count"))
+				threadCount = status.getPropertyInteger("sprat.io.thread.count");
+			if(status.propertyContainsKey("sprat.io.thread.count.maximum"))
+				maximumThreadCount = status.getPropertyInteger("sprat.io.thread.count.maximum");
+		}
+		catch(NumberFormatException e)
+		{
+			error(this.getClass().getName()+":initIOExecutor:Failed to get thread count:",e);
+			threadCount = DEFAULT_IO_THREAD_COUNT;
+			maximumThreadCount = DEFAULT_IO_THREAD_COUNT_MAXIMUM;
+		}
+		if(threadCount < 1)
+			threadCount = 1;
+		if(maximumThreadCount < threadCount)
+			maximumThreadCount = threadCount;
+		log(Logging.VERBOSITY_VERBOSE,this.getClass().getName()+
+		    ":initIOExecutor:Creating I/O thread pool with "+threadCount+" threads (maximum "+
+		    maximumThreadCount+").");
+		ioExecutor = new ThreadPoolExecutor(threadCount,maximumThreadCount,60L,TimeUnit.SECONDS,
+						    new SynchronousQueue<Runnable>(),new ThreadFactory()
+			{
+				private int threadNumber = 0;
+
+				public synchronized Thread newThread(Runnable r)
+				{
+					Thread thread = null;
+
+					thread = new Thread(r,"Sprat I/O "+(threadNumber++));
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+		ngat.sprat.ccd.command.Command.setReaderExecutor(ioExecutor);
+		ngat.sprat.mechanism.command.Command.setReaderExecutor(ioExecutor);
+	}
+
+	/**
+	 * Create the GET_STATUS cache, and the thread that samples the status into it, if the
+	 * <b>sprat.get_status.cache.enable</b> property is true. The sampler thread is started in run.
+	 * Failing to create the cache is not vital, the error is logged and GET_STATUS retrieves the
+	 * status live.
+	 * @see #statusCache
+	 * @see #statusSampler
+	 * @see #status
+	 * @see #run
+	 * @see SpratStatusCache
+	 * @see SpratStatusSampler
+	 */
+	protected void initStatusCache()
+	{
+		boolean enable = false;
+
+		try
+		{
+			if(status.propertyContainsKey("sprat.get_status.cache.enable"))
+				enable = status.getPropertyBoolean("sprat.get_status.cache.enable");
+		}
+		catch(Exception e)
+		{
+			error(this.getClass().getName()+":initStatusCache:Failed to get cache enable:",e);
+			enable = false;
+		}
+		log(Logging.VERBOSITY_VERBOSE,this.getClass().getName()+
+		    ":initStatusCache:GET_STATUS cache enabled = "+enable+".");
+		if(enable)
+		{
+			statusCache = new SpratStatusCache(status);
+			statusSampler = new SpratStatusSampler("Sprat status sampler");
+			statusSampler.setSprat(this);
+			statusSampler.setStatusCache(statusCache);
+		}
+	}
+
+	/**
+	 * Create the mechanism position cache, if the <b>sprat.mechanism.position_cache.enable</b> property
+	 * is true. Failing to create the cache is not vital, the error is logged and every mechanism move
+	 * is performed.
+	 * @see #mechanismPositionCache
+	 * @see #status
+	 * @see SpratMechanismPositionCache
+	 */
+	protected void initMechanismPositionCache()
+	{
+		boolean enable = false;
+
+		try
+		{
+			if(status.propertyContainsKey("sprat.mechanism.position_cache.enable"))
+				enable = status.getPropertyBoolean("sprat.mechanism.position_cache.enable");
+		}
+		catch(Exception e)
+		{
+			error(this.getClass().getName()+":initMechanismPositionCache:Failed to get cache enable:",e);
+			enable = false;
+		}
+		log(Logging.VERBOSITY_VERBOSE,this.getClass().getName()+
+		    ":initMechanismPositionCache:Mechanism position cache enabled = "+enable+".");
+		if(enable)
+			mechanismPositionCache = new SpratMechanismPositionCache(status);
 	}
 
 	/**
@@ -213,9 +507,12 @@ public class Sprat
 		String loggerNameStringArray[] = {"ngat.sprat.ccd.command.AbortCommand",
 						  "ngat.sprat.ccd.command.BiasCommand",
 						  "ngat.sprat.ccd.command.Command",
+						  "ngat.sprat.ccd.command.CommandConnection",
+						  "ngat.sprat.ccd.command.CommandConnectionPool",
 						  "ngat.sprat.ccd.command.ConfigCommand",
 						  "ngat.sprat.ccd.command.DarkCommand",
 						  "ngat.sprat.ccd.command.FitsHeaderAddCommand",
+						  "ngat.sprat.ccd.command.FitsHeaderBatchCommand",
 						  "ngat.sprat.ccd.command.FitsHeaderClearCommand",
 						  "ngat.sprat.ccd.command.FitsHeaderDeleteCommand",
 						  "ngat.sprat.ccd.command.IntegerReplyCommand",
@@ -243,12 +540,14 @@ public class Sprat
 						  "ngat.sprat.mechanism.command.GyroCommand",
 						  "ngat.sprat.mechanism.command.HumidityCommand",
 						  "ngat.sprat.mechanism.command.InOutReplyCommand",
+						  "ngat.sprat.mechanism.command.MechanismSession",
 						  "ngat.sprat.mechanism.command.MirrorCommand",
 						  "ngat.sprat.mechanism.command.OnOffReplyCommand",
 						  "ngat.sprat.mechanism.command.RotationCommand",
 						  "ngat.sprat.mechanism.command.SlitCommand",
 						  "ngat.sprat.mechanism.command.TemperatureCommand",
 						  "ngat.sprat.mechanism.command.WLampCommand",
+						  "ngat.sprat.mechanism.MechanismMovePlan",
 						  "ngat.sprat.mechanism.MoveInOutMechanism",
 						  "ngat.sprat.mechanism.MoveRotationMechanism"};
 
@@ -268,6 +567,7 @@ public class Sprat
 		logLogger.setChannelID(LOGGER_CHANNEL_ID);
 		initLogHandlers(logLogger);
 		logLogger.setLogLevel(status.getLogLevel());
+		currentLogLevel = status.getLogLevel();
 	// library logging loggers
 		copyLogHandlers(logLogger,LogManager.getLogger("ngat.net.TitServer"),null,Logging.ALL);
 	// Sprat command handlers
@@ -282,16 +582,38 @@ public class Sprat
 	 * These handlers are in the status properties:
 	 * "sprat.log."+l.getName()+".handler."+index+".name" retrieves the relevant class name
 	 * for each handler.
+	 * If "sprat.log.async.enable" is true, file, multicast and datagram handlers are wrapped in a 
+	 * SpratAsyncLogHandler, with a ring buffer of "sprat.log.async.buffer.size" records, so threads logging
+	 * messages are not blocked on disk or network I/O.
 	 * @param l The logger.
 	 * @see #initFileLogHandler
 	 * @see #initConsoleLogHandler
 	 * @see #initDatagramLogHandler
+	 * @see #asyncLogHandlerList
+	 * @see SpratAsyncLogHandler
+	 * @see SpratAsyncLogHandler#DEFAULT_BUFFER_SIZE
 	 */
 	protected void initLogHandlers(Logger l)
 	{
+		SpratAsyncLogHandler asyncHandler = null;
 		LogHandler handler = null;
 		String handlerName = null;
+		boolean asyncEnable = false;
 		int index = 0;
+		int asyncBufferSize = SpratAsyncLogHandler.DEFAULT_BUFFER_SIZE;
+
+		try
+		{
+			if(status.propertyContainsKey("sprat.log.async.enable"))
+				asyncEnable = status.getPropertyBoolean("sprat.log.async.enable");
+			if(status.propertyContainsKey("sprat.log.async.buffer.size"))
+				asyncBufferSize = status.getPropertyInteger("sprat.log.async.buffer.size");
+		}
+		catch(Exception e)
+		{
+			error("initLogHandlers:Retrieving async log handler properties failed:",e);
+			asyncEnable = false;
+		}
 
 		do
 		{
@@ -328,6 +650,15 @@ public class Sprat
 					if(handler != null)
 					{
 						handler.setLogLevel(Logging.ALL);
+						if(asyncEnable&&(handlerName.equals("ngat.util.logging.FileLogHandler")||
+						   handlerName.equals("ngat.util.logging.MulticastLogHandler")||
+						   handlerName.equals("ngat.util.logging.DatagramLogHandler")))
+						{
+							asyncHandler = new SpratAsyncLogHandler(handler,asyncBufferSize);
+							asyncLogHandlerList.add(asyncHandler);
+							handler = asyncHandler;
+							handler.setLogLevel(Logging.ALL);
+						}
 						l.addHandler(handler);
 					}
 				}
@@ -597,6 +928,7 @@ public class Sprat
 	 * @see #status
 	 * @see #init
 	 * @see #setLogLevel
+	 * @see #initCCDConnectionPool
 	 */
 	public void reInit() throws FileNotFoundException,IOException,NumberFormatException,Exception
 	{
@@ -634,23 +966,35 @@ public class Sprat
 			error(this.getClass().getName()+":reinit:initialsing server connection thread times:",e);
 			// don't throw the error - failing to get this property is not 'vital' to IO:I.
 		}
+	// re-initialise the CCD C layer connection pool
+		initCCDConnectionPool();
+	// re-read the status cache maximum ages
+		if(statusCache != null)
+			statusCache.clearMaxAges();
+	// the mechanisms may have been power cycled, forget their positions
+		if(mechanismPositionCache != null)
+			mechanismPositionCache.invalidateAll();
 	}
 
 	/**
-	 * This method creates the implementationList, and fills it with Class objects of sub-classes
+	 * This method creates the implementationList, and fills it with pools of instances of sub-classes
 	 * of CommandImplementation. The command implementation namess are retrieved from the Sprat property files,
 	 * using keys of the form <b>sprat.command.implmentation.&lt;<i>N</i>&gt;</b>, where <i>N</i> is
-	 * an integer is incremented. It puts the class object reference in the Hashtable with the 
-	 * results of it's getImplementString static method as the key. 
+	 * an integer is incremented. It puts a pool for the class in the Hashtable with the 
+	 * results of it's getImplementString static method as the key. One instance of each class is pre-built,
+	 * so the first command of each type does not have to create one.
 	 * If an implementation object class fails to be put in the hashtable for some reason it ignores it and 
 	 * continues for the next object in the list.
 	 * @see #implementationList
 	 * @see CommandImplementation#getImplementString
+	 * @see SpratImplementationPool
+	 * @see SpratImplementationPool#prebuild
 	 */
 	private void initImplementationList()
 	{
 		Class cl = null;
-		Class oldClass = null;
+		SpratImplementationPool pool = null;
+		SpratImplementationPool oldPool = null;
 		Method method = null;
 		Class methodClassParameterList[] = {};
 		Object methodParameterList[] = {};
@@ -659,7 +1003,7 @@ public class Sprat
 		int index;
 		boolean done;
 
-		implementationList = new Hashtable<String,Class>();
+		implementationList = new Hashtable<String,SpratImplementationPool>();
 		index = 0;
 		done = false;
 		while(done == false)
@@ -675,12 +1019,15 @@ public class Sprat
 					method = cl.getDeclaredMethod("getImplementString",methodClassParameterList);
 				// invoke getImplementString class method to get ngat.message class name it implements
 					implementString = (String)method.invoke(null,methodParameterList);
-				// put key and class into implementationList
-					oldClass = (Class)implementationList.put(implementString,cl);
-					if(oldClass != null)// the put returned another class with the same key.
+				// create a pool for the class, with one pre-built instance
+					pool = new SpratImplementationPool(cl);
+					pool.prebuild();
+				// put key and pool into implementationList
+					oldPool = implementationList.put(implementString,pool);
+					if(oldPool != null)// the put returned another class with the same key.
 					{
 						error(this.getClass().getName()+":initImplementationList:Classes "+
-							oldClass.getName()+" and "+cl.getName()+
+							oldPool.getImplementationClass().getName()+" and "+cl.getName()+
 							" both implement command:"+implementString);
 					}
 				}
@@ -726,6 +1073,12 @@ public class Sprat
 						cl.getName()+":InvocationTargetException:",e);
 					// keep trying for next implementation in the list
 				}
+				catch(InstantiationException e)// SpratImplementationPool.prebuild exception
+				{
+					error(this.getClass().getName()+":initImplementationList:Class "+
+						cl.getName()+":InstantiationException:",e);
+					// keep trying for next implementation in the list
+				}
 			// try next class name in list
 				index++;
 			}
@@ -778,6 +1131,8 @@ public class Sprat
 		error(this.getClass().getName()+":run:server started on port:"+spratPortNumber);
 		server.start();
 		titServer.start();
+		if(statusSampler != null)
+			statusSampler.start();
 		try
 		{
 			log(Logging.VERBOSITY_VERY_TERSE,
@@ -800,6 +1155,10 @@ public class Sprat
 	 * @see #server
 	 * @see TitServer#close
 	 * @see #titServer
+	 * @see ngat.sprat.ccd.command.CommandConnectionPool#closeAll
+	 * @see #statusExecutor
+	 * @see #ioExecutor
+	 * @see #statusSampler
 	 */
 	public void close()
 	{
@@ -813,6 +1172,20 @@ public class Sprat
 		}
 		server.close();
 		titServer.close();
+		CommandConnectionPool.closeAll();
+		if(statusSampler != null)
+			statusSampler.quit();
+		if(statusExecutor != null)
+			statusExecutor.shutdownNow();
+		if(ioExecutor != null)
+		{
+			ngat.sprat.ccd.command.Command.setReaderExecutor(null);
+			ngat.sprat.mechanism.command.Command.setReaderExecutor(null);
+			ioExecutor.shutdown();
+		}
+		// publish any buffered log records
+		for(int i = 0; i < asyncLogHandlerList.size(); i++)
+			asyncLogHandlerList.get(i).close();
 	}
 
 	/**
@@ -825,6 +1198,46 @@ public class Sprat
 		return server;
 	}
 
+	/**
+	 * Get the thread pool used to run status queries in parallel.
+	 * @return The status query thread pool.
+	 * @see #statusExecutor
+	 */
+	public ExecutorService getStatusExecutor()
+	{
+		return statusExecutor;
+	}
+
+	/**
+	 * Get the thread pool used to run outbound I/O.
+	 * @return The I/O thread pool.
+	 * @see #ioExecutor
+	 */
+	public ExecutorService getIOExecutor()
+	{
+		return ioExecutor;
+	}
+
+	/**
+	 * Get the GET_STATUS cache.
+	 * @return The status cache, or null if status caching is not enabled.
+	 * @see #statusCache
+	 */
+	public SpratStatusCache getStatusCache()
+	{
+		return statusCache;
+	}
+
+	/**
+	 * Get the mechanism position cache.
+	 * @return The mechanism position cache, or null if position caching is not enabled.
+	 * @see #mechanismPositionCache
+	 */
+	public SpratMechanismPositionCache getMechanismPositionCache()
+	{
+		return mechanismPositionCache;
+	}
+
 	/**
 	 * Get status instance.
 	 * @return The status instance.
@@ -839,57 +1252,86 @@ public class Sprat
 	 * This routine returns an instance of the sub-class of CommandImplementation that
 	 * implements the command with class name commandClassName. If an implementation is
 	 * not found or an instance cannot be created, an instance of UnknownCommandImplementation is returned instead.
-	 * The instance is constructed 
-	 * using a null argument constructor, from the Class object stored in the implementationList.
+	 * The instance is acquired from the implementation's pool in the implementationList, which returns an idle
+	 * instance if one is available, and only creates a new instance (using a null argument constructor) if not.
+	 * The instance should be returned to the pool using releaseImplementation once the command has completed.
 	 * @param commandClassName The class-name of a COMMAND sub-class.
-	 * @return A new instance of a sub-class of CommandImplementation that implements the 
+	 * @return An instance of a sub-class of CommandImplementation that implements the 
 	 * 	command, or an instance of UnknownCommandImplementation.
+	 * @see #implementationList
+	 * @see #releaseImplementation
+	 * @see SpratImplementationPool#acquire
 	 */
 	public JMSCommandImplementation getImplementation(String commandClassName)
 	{
-		JMSCommandImplementation unknownCommandImplementation = new UnknownCommandImplementation();
 		JMSCommandImplementation object = null;
-		Class cl = null;
+		SpratImplementationPool pool = null;
 
-		cl = (Class)implementationList.get(commandClassName);
-		if(cl != null)
+		pool = implementationList.get(commandClassName);
+		if(pool != null)
 		{
 			try
 			{
-				object = (JMSCommandImplementation)cl.newInstance();
+				object = pool.acquire();
 			}
 			catch(InstantiationException e)//Class.newInstance exception
 			{
 				error(this.getClass().getName()+":getImplementation:Class "+
-				      cl.getName()+":InstantiationException:",e);
+				      pool.getImplementationClass().getName()+":InstantiationException:",e);
 				object = null;
 			}
 			catch(IllegalAccessException e)//Class.newInstance exception
 			{
 				error(this.getClass().getName()+":getImplementation:Class "+
-				      cl.getName()+":IllegalAccessException:",e);
+				      pool.getImplementationClass().getName()+":IllegalAccessException:",e);
 				object = null;
 			}
 		}// end if found class
 		if(object != null)
 			return object;
 		else
-			return unknownCommandImplementation;
+			return new UnknownCommandImplementation();
+	}
+
+	/**
+	 * Return a command implementation instance, retrieved using getImplementation, to it's pool
+	 * so it can be reused by a later command. Instances of UnknownCommandImplementation (or any
+	 * other class without a pool) are discarded.
+	 * @param commandClassName The class-name of the COMMAND sub-class the instance was implementing.
+	 * @param implementation The command implementation instance, which must no longer be in use.
+	 * @see #implementationList
+	 * @see #getImplementation
+	 * @see SpratImplementationPool#release
+	 */
+	public void releaseImplementation(String commandClassName,JMSCommandImplementation implementation)
+	{
+		SpratImplementationPool pool = null;
+
+		pool = implementationList.get(commandClassName);
+		if(pool != null)
+			pool.release(implementation);
 	}
 
 	/**
 	 * Method to set the level of logging filtered. The status, log and error loggers have their filters set.
+	 * The CCD and mechanism command classes, which check the level before building log messages, are also set.
 	 * @param level An integer, used as an absolute value (0..5).
 	 * @see #status
 	 * @see #logLogger
 	 * @see #errorLogger
+	 * @see #currentLogLevel
 	 * @see ngat.sprat.SpratStatus#setLogLevel
+	 * @see ngat.sprat.ccd.command.Command#setLogLevel
+	 * @see ngat.sprat.mechanism.command.Command#setLogLevel
 	 */
 	public void setLogLevel(int level)
 	{
 		status.setLogLevel(level);
+		currentLogLevel = level;
 		logLogger.setLogLevel(level);
 		errorLogger.setLogLevel(level);
+		ngat.sprat.ccd.command.Command.setLogLevel(level);
+		ngat.sprat.mechanism.command.Command.setLogLevel(level);
 	}
 
 	/**
@@ -928,6 +1370,8 @@ public class Sprat
 	 *      or an error message created by this routine if the done was null.
 	 * @see #issAddress
 	 * @see #issPortNumber
+	 * @see #startClientConnection
+	 * @see #waitForClientConnection
 	 * @see SpratTCPClientConnectionThread
 	 * @see SpratTCPServerConnectionThread#getAbortProcessCommand
 	 */
@@ -935,37 +1379,17 @@ public class Sprat
 					       boolean checkAbort,boolean waitForDone)
 	{
 		SpratTCPClientConnectionThread thread = null;
+		Future<Object> connection = null;
 		INST_TO_ISS_DONE done = null;
-		boolean finished = false;
 
 		log(Logging.VERBOSITY_VERY_TERSE,
 			this.getClass().getName()+":sendISSCommand:"+command.getClass().getName());
 		thread = new SpratTCPClientConnectionThread(issAddress,issPortNumber,command,commandThread);
 		thread.setSprat(this);
-		thread.start();
+		connection = startClientConnection(thread);
 		if(waitForDone)
 		{
-			finished = false;
-			while(finished == false)
-			{
-				try
-				{
-					thread.join(100);// wait 100 millis for the thread to finish
-				}
-				catch(InterruptedException e)
-				{
-					error("run:join interrupted:",e);
-				}
-				// If the thread has finished so has this loop
-				finished = (thread.isAlive() == false);
-				// check if the thread has been aborted, if checkAbort has been set.
-				if(checkAbort)
-				{
-					// If the commandThread has been aborted, stop processing this thread
-					if(commandThread.getAbortProcessCommand())
-						finished = true;
-				}
-			}// end while
+			waitForClientConnection("sendISSCommand",connection,commandThread,checkAbort);
 			done = (INST_TO_ISS_DONE)thread.getDone();
 			if(done == null)
 			{
@@ -1018,37 +1442,23 @@ public class Sprat
 	 * 	if the done was null.
 	 * @see #dprtAddress
 	 * @see #dprtPortNumber
+	 * @see #startClientConnection
+	 * @see #waitForClientConnection
 	 * @see SpratTCPClientConnectionThread
 	 * @see SpratTCPServerConnectionThread#getAbortProcessCommand
 	 */
 	public INST_TO_DP_DONE sendDpRtCommand(INST_TO_DP command,SpratTCPServerConnectionThread commandThread)
 	{
 		SpratTCPClientConnectionThread thread = null;
+		Future<Object> connection = null;
 		INST_TO_DP_DONE done = null;
-		boolean finished = false;
 
 		log(Logging.VERBOSITY_VERY_TERSE,
 			this.getClass().getName()+":sendDpRtCommand:"+command.getClass().getName());
 		thread = new SpratTCPClientConnectionThread(dprtAddress,dprtPortNumber,command,commandThread);
 		thread.setSprat(this);
-		thread.start();
-		finished = false;
-		while(finished == false)
-		{
-			try
-			{
-				thread.join(100);// wait 100 millis for the thread to finish
-			}
-			catch(InterruptedException e)
-			{
-				error("run:join interrupted:",e);
-			}
-		// If the thread has finished so has this loop
-			finished = (thread.isAlive() == false);
-		// If the commandThread has been aborted, stop processing this thread
-			if(commandThread.getAbortProcessCommand())
-				finished = true;
-		}
+		connection = startClientConnection(thread);
+		waitForClientConnection("sendDpRtCommand",connection,commandThread,true);
 		done = (INST_TO_DP_DONE)thread.getDone();
 		if(done == null)
 		{
@@ -1081,6 +1491,99 @@ public class Sprat
 		return done;
 	}
 
+	/**
+	 * Start a client connection to the ISS/DpRt. The connection is run on the I/O thread pool, or if there
+	 * is no pool (or it rejects the connection), the connection thread is started itself.
+	 * @param thread The client connection thread to run.
+	 * @return A future, which completes when the client connection has finished (the done message has been
+	 *         received, or the connection failed).
+	 * @see #ioExecutor
+	 */
+	protected Future<Object> startClientConnection(SpratTCPClientConnectionThread thread)
+	{
+		FutureTask<Object> connection = null;
+
+		connection = new FutureTask<Object>(thread,null);
+		if(ioExecutor != null)
+		{
+			try
+			{
+				ioExecutor.execute(connection);
+				return connection;
+			}
+			catch(RejectedExecutionException e)
+			{
+				// fall through and start a new thread
+			}
+		}
+		new Thread(connection,thread.getName()).start();
+		return connection;
+	}
+
+	/**
+	 * Wait for a client connection to the ISS/DpRt to finish. This returns as soon as the connection finishes.
+	 * If checkAbort is true, a listener is added to the commandThread's abort token which cancels the wait,
+	 * so this also returns as soon as the commandThread is aborted.
+	 * @param methodName The name of the calling method, used when logging errors.
+	 * @param connection The future returned by startClientConnection.
+	 * @param commandThread The thread the command (and this method) is running on.
+	 * @param checkAbort Whether to stop waiting if the commandThread is aborted.
+	 * @see #startClientConnection
+	 * @see SpratTCPServerConnectionThread#getAbortToken
+	 * @see SpratAbortToken#addListener
+	 */
+	protected void waitForClientConnection(String methodName,final Future<Object> connection,
+					       SpratTCPServerConnectionThread commandThread,boolean checkAbort)
+	{
+		Runnable abortListener = null;
+		boolean finished;
+
+		if(checkAbort && (commandThread != null))
+		{
+			abortListener = new Runnable()
+			{
+				public void run()
+				{
+					connection.cancel(false);
+				}
+			};
+			commandThread.getAbortToken().addListener(abortListener);
+		}
+		try
+		{
+			finished = false;
+			while(finished == false)
+			{
+				try
+				{
+					connection.get();
+					finished = true;
+				}
+				catch(CancellationException e)
+				{
+					// the commandThread has been aborted, stop processing this thread
+					log(Logging.VERBOSITY_VERBOSE,this.getClass().getName()+":"+methodName+
+					    ":Wait aborted.");
+					finished = true;
+				}
+				catch(ExecutionException e)
+				{
+					error(this.getClass().getName()+":"+methodName+":Client connection failed:",e);
+					finished = true;
+				}
+				catch(InterruptedException e)
+				{
+					error(this.getClass().getName()+":"+methodName+":Wait interrupted:",e);
+				}
+			}
+		}
+		finally
+		{
+			if(abortListener != null)
+				commandThread.getAbortToken().removeListener(abortListener);
+		}
+	}
+
 	/**
 	 * Routine to write the string to the relevant logger. If the relevant logger has not been
 	 * created yet the error gets written to System.out.
@@ -1099,6 +1602,69 @@ public class Sprat
 		}
 	}
 
+	/**
+	 * Return whether a message at the specified level would be logged, at the current log level.
+	 * This should be used to guard building expensive log messages.
+	 * @param level The level of logging the message belongs to.
+	 * @return true if the message would be logged, false if it would be thrown away.
+	 * @see #currentLogLevel
+	 */
+	public boolean isLoggable(int level)
+	{
+		return (level <= currentLogLevel);
+	}
+
+	/**
+	 * Routine to write a parameterised message to the relevant logger. The message is only built 
+	 * (each "{}" in the template is replaced by the next argument) if the level is currently logged, 
+	 * so this costs almost nothing when the level is switched off.
+	 * @param level The level of logging this message belongs to.
+	 * @param template The message template, containing a "{}" for each argument.
+	 * @param args The arguments to put in the template. These are only converted to strings if the message
+	 *        is logged.
+	 * @see #isLoggable
+	 * @see #formatLogMessage
+	 * @see #log(int,String)
+	 */
+	public void log(int level,String template,Object... args)
+	{
+		if(isLoggable(level) == false)
+			return;
+		log(level,formatLogMessage(template,args));
+	}
+
+	/**
+	 * Build a log message from a template, by replacing each "{}" in the template with the next argument.
+	 * Extra arguments are appended to the end of the message.
+	 * @param template The message template.
+	 * @param args The arguments to put in the template.
+	 * @return The message.
+	 */
+	public static String formatLogMessage(String template,Object... args)
+	{
+		StringBuilder sb = null;
+		int start,index,argIndex;
+
+		sb = new StringBuilder(template.length()+(args.length*16));
+		start = 0;
+		argIndex = 0;
+		index = template.indexOf("{}");
+		while((index > -1)&&(argIndex < args.length))
+		{
+			sb.append(template,start,index);
+			sb.append(args[argIndex++]);
+			start = index+2;
+			index = template.indexOf("{}",start);
+		}
+		sb.append(template,start,template.length());
+		while(argIndex < args.length)
+		{
+			sb.append(' ');
+			sb.append(args[argIndex++]);
+		}
+		return sb.toString();
+	}
+
 	/**
 	 * Routine to write the string to the relevant logger. If the relevant logger has not been
 	 * created yet the error gets written to System.err.
@@ -0,0 +1,116 @@
+// SpratAbortToken.java
+// $HeadURL$
+package ngat.sprat;
+
+import java.lang.*;
+import java.util.*;
+
+/**
+ * This class is a cancellation token, held by each server connection thread, that is fired when the command the
+ * thread is implementing is aborted. Rather than the implementation having to poll for the abort between
+ * operations, whatever the implementation is currently blocked on (a mechanism move, a CCD command, a
+ * sub-command to the ISS/DpRt) registers a listener that stops it (closes it's socket, wakes it's move loop),
+ * which is run as soon as the ABORT command is received.
+ * @author Chris Mottram
+ * @version $Revision$
+ * @see SpratTCPServerConnectionThread#getAbortToken
+ */
+public class SpratAbortToken
+{
+	/**
+	 * Revision Control System id string, showing the version of the Class.
+	 */
+	public final static String RCSID = new String("$Id$");
+	/**
+	 * Whether the token has been fired.
+	 */
+	protected boolean aborted = false;
+	/**
+	 * The list of listeners (Runnables) to run when the token is fired.
+	 */
+	protected Vector<Runnable> listenerList = null;
+
+	/**
+	 * Constructor.
+	 * @see #listenerList
+	 */
+	public SpratAbortToken()
+	{
+		super();
+		listenerList = new Vector<Runnable>();
+	}
+
+	/**
+	 * Fire the token. The token is marked as aborted, and each registered listener is run, in the calling
+	 * thread. The listeners are run outside the token's lock, so a listener that blocks does not stop other
+	 * threads adding or removing listeners. A RuntimeException thrown by a listener is ignored,
+	 * so the remaining listeners are still run. Firing an already fired token does nothing.
+	 * @see #aborted
+	 * @see #listenerList
+	 */
+	public void abort()
+	{
+		Runnable listeners[] = null;
+
+		synchronized(this)
+		{
+			if(aborted)
+				return;
+			aborted = true;
+			listeners = listenerList.toArray(new Runnable[listenerList.size()]);
+		}
+		for(int i = 0; i < listeners.length; i++)
+		{
+			try
+			{
+				listeners[i].run();
+			}
+			catch(RuntimeException e)
+			{
+				// ignore - the remaining listeners should still be run
+			}
+		}
+	}
+
+	/**
+	 * Return whether the token has been fired.
+	 * @return true if abort has been called, false otherwise.
+	 * @see #aborted
+	 */
+	public synchronized boolean isAborted()
+	{
+		return aborted;
+	}
+
+	/**
+	 * Add a listener, to be run when the token is fired. If the token has already been fired, the listener is
+	 * run immediately (in the calling thread), so an abort received just before the listener was added is
+	 * not missed.
+	 * @param listener The listener to add.
+	 * @see #aborted
+	 * @see #listenerList
+	 */
+	public void addListener(Runnable listener)
+	{
+		synchronized(this)
+		{
+			if(aborted == false)
+			{
+				listenerList.add(listener);
+				return;
+			}
+		}
+		listener.run();
+	}
+
+	/**
+	 * Remove a previously added listener. This should be called once the operation the listener stops
+	 * has finished.
+	 * @param listener The listener to remove.
+	 * @see #listenerList
+	 */
+	public synchronized void removeListener(Runnable listener)
+	{
+		listenerList.remove(listener);
+	}
+}
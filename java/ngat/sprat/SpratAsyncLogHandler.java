@@ -0,0 +1,212 @@
+// SpratAsyncLogHandler.java
+// $HeadURL$
+package ngat.sprat;
+
+import java.lang.*;
+
+import ngat.util.logging.*;
+
+/**
+ * This class is a log handler that publishes log records to another (file, multicast or datagram) handler
+ * asynchronously. Publishing a record just stores it in a fixed size ring buffer, and a daemon thread
+ * publishes the buffered records to the wrapped handler. This means a thread logging a message is never blocked
+ * on disk or network I/O. If the buffer is full (the wrapped handler has fallen behind), the oldest record
+ * is overwritten, and the number of records lost is reported on System.err.
+ * @author Chris Mottram
+ * @version $Revision$
+ * @see Sprat#initLogHandlers
+ */
+public class SpratAsyncLogHandler extends LogHandler implements Runnable
+{
+	/**
+	 * Revision Control System id string, showing the version of the Class.
+	 */
+	public final static String RCSID = new String("$Id$");
+	/**
+	 * The default number of log records the ring buffer holds.
+	 */
+	public final static int DEFAULT_BUFFER_SIZE = 8192;
+	/**
+	 * How long to wait (in milliseconds) for the buffered records to be published when the handler is closed.
+	 */
+	public final static long CLOSE_TIMEOUT = 5000L;
+	/**
+	 * The handler the buffered records are published to.
+	 */
+	protected LogHandler handler = null;
+	/**
+	 * The ring buffer of records waiting to be published.
+	 */
+	protected LogRecord buffer[] = null;
+	/**
+	 * The index in buffer of the oldest record waiting to be published.
+	 */
+	protected int head = 0;
+	/**
+	 * The number of records in buffer waiting to be published.
+	 */
+	protected int count = 0;
+	/**
+	 * The number of records overwritten (lost) since it was last reported.
+	 */
+	protected int droppedCount = 0;
+	/**
+	 * Whether the handler has been closed.
+	 */
+	protected boolean closed = false;
+	/**
+	 * The thread publishing buffered records to the wrapped handler.
+	 */
+	protected Thread publishThread = null;
+
+	/**
+	 * Constructor. The publishing thread is started.
+	 * @param handler The handler to publish records to.
+	 * @param bufferSize The number of log records the ring buffer holds.
+	 * @see #handler
+	 * @see #buffer
+	 * @see #publishThread
+	 */
+	public SpratAsyncLogHandler(LogHandler handler,int bufferSize)
+	{
+		super(handler.getFormatter());
+		this.handler = handler;
+		buffer = new LogRecord[Math.max(bufferSize,1)];
+		publishThread = new Thread(this,"Sprat async log handler:"+handler.getClass().getName());
+		publishThread.setDaemon(true);
+		publishThread.start();
+	}
+
+	/**
+	 * Store the record in the ring buffer, to be published by the publishing thread. This never blocks
+	 * on I/O. If the buffer is full the oldest record is overwritten. If the handler has been closed,
+	 * the record is published to the wrapped handler in the calling thread.
+	 * @param record The record to publish.
+	 * @see #buffer
+	 * @see #head
+	 * @see #count
+	 * @see #droppedCount
+	 */
+	public void publish(LogRecord record)
+	{
+		synchronized(this)
+		{
+			if(closed == false)
+			{
+				if(count == buffer.length)
+				{
+					buffer[head] = null;
+					head = (head+1)%buffer.length;
+					count--;
+					droppedCount++;
+				}
+				buffer[(head+count)%buffer.length] = record;
+				count++;
+				notifyAll();
+				return;
+			}
+		}
+		handler.publish(record);
+	}
+
+	/**
+	 * Run method of the publishing thread. Buffered records are removed from the ring buffer in batches,
+	 * and published to the wrapped handler outside the lock, so logging threads can continue to fill the buffer
+	 * whilst the wrapped handler is doing I/O. The thread finishes when the handler is closed, and the buffer
+	 * is empty.
+	 * @see #buffer
+	 * @see #handler
+	 * @see #closed
+	 */
+	public void run()
+	{
+		LogRecord batch[] = null;
+		int batchCount,lostCount;
+
+		batch = new LogRecord[buffer.length];
+		while(true)
+		{
+			synchronized(this)
+			{
+				while((count == 0)&&(closed == false))
+				{
+					try
+					{
+						wait();
+					}
+					catch(InterruptedException e)
+					{
+						// re-check the buffer
+					}
+				}
+				if((count == 0)&&closed)
+					return;
+				batchCount = count;
+				for(int i = 0; i < batchCount; i++)
+				{
+					batch[i] = buffer[(head+i)%buffer.length];
+					buffer[(head+i)%buffer.length] = null;
+				}
+				head = (head+batchCount)%buffer.length;
+				count = 0;
+				lostCount = droppedCount;
+				droppedCount = 0;
+			}
+			if(lostCount > 0)
+			{
+				System.err.println(this.getClass().getName()+":run:"+lostCount+
+						   " log records lost, as the buffer for "+
+						   handler.getClass().getName()+" was full.");
+			}
+			for(int i = 0; i < batchCount; i++)
+			{
+				try
+				{
+					handler.publish(batch[i]);
+				}
+				catch(RuntimeException e)
+				{
+					System.err.println(this.getClass().getName()+":run:Publishing record failed:"+e);
+				}
+				batch[i] = null;
+			}
+		}
+	}
+
+	/**
+	 * Close the handler. The publishing thread is told to finish, and we wait up to CLOSE_TIMEOUT milliseconds
+	 * for it to publish the remaining buffered records, before closing the wrapped handler.
+	 * @see #closed
+	 * @see #publishThread
+	 * @see #CLOSE_TIMEOUT
+	 */
+	public void close()
+	{
+		synchronized(this)
+		{
+			if(closed)
+				return;
+			closed = true;
+			notifyAll();
+		}
+		try
+		{
+			publishThread.join(CLOSE_TIMEOUT);
+		}
+		catch(InterruptedException e)
+		{
+			// close the wrapped handler anyway
+		}
+		handler.close();
+	}
+
+	/**
+	 * Get the handler records are published to.
+	 * @return The wrapped handler.
+	 * @see #handler
+	 */
+	public LogHandler getHandler()
+	{
+		return handler;
+	}
+}
@@ -0,0 +1,438 @@
+// SpratCentroider.java
+// $HeadURL$
+package ngat.sprat;
+
+import java.lang.*;
+import java.nio.*;
+
+/**
+ * This class finds the brightest object in an image held in memory, and measures it's centroid. It is used by
+ * ACQUIRE in "brightest" mode, so the acquisition loop does not have to send each frame to the DpRt and wait
+ * for the reduction. The image is processed as follows:
+ * <ul>
+ * <li>The background and noise are estimated with a few streaming passes over the pixels, computing the mean and
+ *     standard deviation of the pixels, each pass ignoring pixels more than clipSigma standard deviations
+ *     from the previous pass's mean.
+ * <li>Pixels more than thresholdSigma standard deviations above the background are connected
+ *     (8-connected) into objects, using a flood fill with an explicit stack.
+ * <li>Objects with fewer than minimumPixelCount pixels (i.e. hot pixels and cosmic rays) are ignored.
+ * <li>The object with the largest integrated (background subtracted) counts is the brightest, and it's centroid
+ *     is the first moment of it's background subtracted pixel values.
+ * </ul>
+ * All the work is done on primitive arrays, which are kept and re-used by the next image of the same size.
+ * Instances are not thread safe.
+ * @author Chris Mottram
+ * @version $Revision$
+ * @see ACQUIREImplementation
+ */
+public class SpratCentroider
+{
+	/**
+	 * Revision Control System id string, showing the version of the Class.
+	 */
+	public final static String RCSID = new String("$Id$");
+	/**
+	 * The number of standard deviations wide a Gaussian is at half it's maximum, used to estimate an object's
+	 * FWHM from it's second moments.
+	 */
+	public final static double SIGMA_TO_FWHM = 2.3548;
+	/**
+	 * The number of clipped passes made over the image when estimating the background.
+	 */
+	public final static int BACKGROUND_PASS_COUNT = 3;
+	/**
+	 * The number of standard deviations above the background a pixel must be, to be part of an object.
+	 */
+	protected double thresholdSigma = 5.0;
+	/**
+	 * The number of standard deviations from the mean a pixel can be, to be included in the background estimate.
+	 */
+	protected double clipSigma = 3.0;
+	/**
+	 * The minimum number of pixels an object must have.
+	 */
+	protected int minimumPixelCount = 4;
+	/**
+	 * The pixel value at or above which a pixel is saturated.
+	 */
+	protected int saturationLevel = 65535;
+	/**
+	 * A copy of the image pixel values, as unsigned shorts.
+	 */
+	protected short pixelArray[] = null;
+	/**
+	 * For each pixel, whether it has been assigned to an object.
+	 */
+	protected boolean visitedArray[] = null;
+	/**
+	 * The flood fill stack of pixel indexes.
+	 */
+	protected int stackArray[] = null;
+	/**
+	 * The estimated background level, in counts.
+	 */
+	protected double background = 0.0;
+	/**
+	 * The estimated background noise (standard deviation), in counts.
+	 */
+	protected double noise = 0.0;
+	/**
+	 * The number of objects found in the last image.
+	 */
+	protected int objectCount = 0;
+	/**
+	 * The X centroid of the brightest object, in FITS pixel coordinates (the first pixel is 1.0).
+	 */
+	protected double xCentroid = 0.0;
+	/**
+	 * The Y centroid of the brightest object, in FITS pixel coordinates (the first pixel is 1.0).
+	 */
+	protected double yCentroid = 0.0;
+	/**
+	 * The integrated background subtracted counts of the brightest object.
+	 */
+	protected double counts = 0.0;
+	/**
+	 * The peak pixel value of the brightest object.
+	 */
+	protected int peak = 0;
+	/**
+	 * The number of pixels in the brightest object.
+	 */
+	protected int pixelCount = 0;
+	/**
+	 * An estimate of the FWHM of the brightest object, in pixels, from it's second moments.
+	 */
+	protected double fwhm = 0.0;
+
+	/**
+	 * Constructor.
+	 */
+	public SpratCentroider()
+	{
+		super();
+	}
+
+	/**
+	 * Set the detection threshold.
+	 * @param d The number of standard deviations above the background a pixel must be, to be part of an object.
+	 * @see #thresholdSigma
+	 */
+	public void setThresholdSigma(double d)
+	{
+		thresholdSigma = d;
+	}
+
+	/**
+	 * Set the minimum number of pixels an object must have.
+	 * @param i The number of pixels.
+	 * @see #minimumPixelCount
+	 */
+	public void setMinimumPixelCount(int i)
+	{
+		minimumPixelCount = i;
+	}
+
+	/**
+	 * Set the saturation level.
+	 * @param i The pixel value at or above which a pixel is saturated.
+	 * @see #saturationLevel
+	 */
+	public void setSaturationLevel(int i)
+	{
+		saturationLevel = i;
+	}
+
+	/**
+	 * Find the brightest object in an image.
+	 * @param pixelBuffer The image pixel values (unsigned shorts), row by row. The buffer's position is not changed.
+	 * @param ncols The number of columns in the image.
+	 * @param nrows The number of rows in the image.
+	 * @return true if an object was found, false if no object was found (in which case the object
+	 *         properties are not valid).
+	 * @exception Exception Thrown if the image dimensions are illegal, or do not match the buffer.
+	 * @see #initialiseArrays
+	 * @see #computeBackground
+	 * @see #findObjects
+	 */
+	public boolean findBrightest(ShortBuffer pixelBuffer,int ncols,int nrows) throws Exception
+	{
+		if((ncols < 1)||(nrows < 1))
+		{
+			throw new Exception(this.getClass().getName()+":findBrightest:Illegal dimensions:"+
+					    ncols+" x "+nrows+".");
+		}
+		if(pixelBuffer.remaining() != (ncols*nrows))
+		{
+			throw new Exception(this.getClass().getName()+":findBrightest:Buffer length "+
+					    pixelBuffer.remaining()+" does not match dimensions "+ncols+" x "+nrows+".");
+		}
+		initialiseArrays(ncols*nrows);
+		pixelBuffer.duplicate().get(pixelArray,0,ncols*nrows);
+		computeBackground(ncols*nrows);
+		return findObjects(ncols,nrows);
+	}
+
+	/**
+	 * Make sure the work arrays are the right size, re-using them if they are.
+	 * @param length The number of pixels in the image.
+	 * @see #pixelArray
+	 * @see #visitedArray
+	 * @see #stackArray
+	 */
+	protected void initialiseArrays(int length)
+	{
+		if((pixelArray == null)||(pixelArray.length != length))
+		{
+			pixelArray = new short[length];
+			visitedArray = new boolean[length];
+			stackArray = new int[length];
+		}
+		else
+		{
+			for(int i = 0; i < length; i++)
+				visitedArray[i] = false;
+		}
+	}
+
+	/**
+	 * Estimate the background and noise, using BACKGROUND_PASS_COUNT streaming passes over the image.
+	 * The first pass uses every pixel, subsequent passes ignore pixels more than clipSigma standard deviations
+	 * from the previous pass's mean (i.e. the objects).
+	 * @param length The number of pixels in the image.
+	 * @see #pixelArray
+	 * @see #background
+	 * @see #noise
+	 * @see #clipSigma
+	 * @see #BACKGROUND_PASS_COUNT
+	 */
+	protected void computeBackground(int length)
+	{
+		double lowLimit,highLimit,sum,sumSquared,mean,variance;
+		int value,count;
+
+		lowLimit = 0.0;
+		highLimit = 65536.0;
+		mean = 0.0;
+		variance = 0.0;
+		for(int pass = 0; pass < BACKGROUND_PASS_COUNT; pass++)
+		{
+			sum = 0.0;
+			sumSquared = 0.0;
+			count = 0;
+			for(int i = 0; i < length; i++)
+			{
+				value = pixelArray[i]&0xffff;
+				if((value >= lowLimit)&&(value <= highLimit))
+				{
+					sum += value;
+					sumSquared += ((double)value)*((double)value);
+					count++;
+				}
+			}
+			if(count < 2)
+				break;
+			mean = sum/count;
+			variance = Math.max((sumSquared/count)-(mean*mean),0.0);
+			lowLimit = mean-(clipSigma*Math.sqrt(variance));
+			highLimit = mean+(clipSigma*Math.sqrt(variance));
+		}
+		background = mean;
+		noise = Math.sqrt(variance);
+	}
+
+	/**
+	 * Find the objects in the image, and keep the properties of the brightest. Pixels above the threshold are
+	 * flood filled into 8-connected objects, accumulating each object's background subtracted moments.
+	 * @param ncols The number of columns in the image.
+	 * @param nrows The number of rows in the image.
+	 * @return true if an object with at least minimumPixelCount pixels was found, false otherwise.
+	 * @see #pixelArray
+	 * @see #visitedArray
+	 * @see #stackArray
+	 * @see #background
+	 * @see #noise
+	 * @see #thresholdSigma
+	 * @see #minimumPixelCount
+	 * @see #SIGMA_TO_FWHM
+	 */
+	protected boolean findObjects(int ncols,int nrows)
+	{
+		double threshold,weight,sumW,sumXW,sumYW,sumXXW,sumYYW,bestSumW,mx,my,varianceX,varianceY;
+		int length,stackSize,index,x,y,nx,ny,neighbourIndex,value,objectPeak,objectPixelCount;
+
+		length = ncols*nrows;
+		// a noise of less than 1 count is unphysical (i.e. a blank test image), don't let it make every pixel
+		// with a single count an object
+		threshold = background+(thresholdSigma*Math.max(noise,1.0));
+		objectCount = 0;
+		bestSumW = 0.0;
+		for(int startIndex = 0; startIndex < length; startIndex++)
+		{
+			if(visitedArray[startIndex]||((pixelArray[startIndex]&0xffff) <= threshold))
+				continue;
+			// flood fill a new object from this pixel
+			sumW = 0.0;
+			sumXW = 0.0;
+			sumYW = 0.0;
+			sumXXW = 0.0;
+			sumYYW = 0.0;
+			objectPeak = 0;
+			objectPixelCount = 0;
+			visitedArray[startIndex] = true;
+			stackArray[0] = startIndex;
+			stackSize = 1;
+			while(stackSize > 0)
+			{
+				stackSize--;
+				index = stackArray[stackSize];
+				x = index%ncols;
+				y = index/ncols;
+				value = pixelArray[index]&0xffff;
+				weight = value-background;
+				sumW += weight;
+				sumXW += x*weight;
+				sumYW += y*weight;
+				sumXXW += ((double)x)*x*weight;
+				sumYYW += ((double)y)*y*weight;
+				objectPeak = Math.max(objectPeak,value);
+				objectPixelCount++;
+				for(ny = Math.max(y-1,0); ny <= Math.min(y+1,nrows-1); ny++)
+				{
+					for(nx = Math.max(x-1,0); nx <= Math.min(x+1,ncols-1); nx++)
+					{
+						neighbourIndex = (ny*ncols)+nx;
+						if((visitedArray[neighbourIndex] == false)&&
+						   ((pixelArray[neighbourIndex]&0xffff) > threshold))
+						{
+							visitedArray[neighbourIndex] = true;
+							stackArray[stackSize] = neighbourIndex;
+							stackSize++;
+						}
+					}
+				}
+			}
+			if(objectPixelCount < minimumPixelCount)
+				continue;
+			objectCount++;
+			if(sumW > bestSumW)
+			{
+				bestSumW = sumW;
+				mx = sumXW/sumW;
+				my = sumYW/sumW;
+				varianceX = Math.max((sumXXW/sumW)-(mx*mx),0.0);
+				varianceY = Math.max((sumYYW/sumW)-(my*my),0.0);
+				// FITS pixel coordinates start at 1
+				xCentroid = mx+1.0;
+				yCentroid = my+1.0;
+				counts = sumW;
+				peak = objectPeak;
+				pixelCount = objectPixelCount;
+				fwhm = SIGMA_TO_FWHM*Math.sqrt((varianceX+varianceY)/2.0);
+			}
+		}
+		return (objectCount > 0);
+	}
+
+	/**
+	 * Get the estimated background level.
+	 * @return The background, in counts.
+	 * @see #background
+	 */
+	public double getBackground()
+	{
+		return background;
+	}
+
+	/**
+	 * Get the estimated background noise.
+	 * @return The noise (standard deviation), in counts.
+	 * @see #noise
+	 */
+	public double getNoise()
+	{
+		return noise;
+	}
+
+	/**
+	 * Get the number of objects found in the last image.
+	 * @return The number of objects.
+	 * @see #objectCount
+	 */
+	public int getObjectCount()
+	{
+		return objectCount;
+	}
+
+	/**
+	 * Get the X centroid of the brightest object.
+	 * @return The X position, in FITS pixel coordinates (the first pixel is 1.0).
+	 * @see #xCentroid
+	 */
+	public double getXCentroid()
+	{
+		return xCentroid;
+	}
+
+	/**
+	 * Get the Y centroid of the brightest object.
+	 * @return The Y position, in FITS pixel coordinates (the first pixel is 1.0).
+	 * @see #yCentroid
+	 */
+	public double getYCentroid()
+	{
+		return yCentroid;
+	}
+
+	/**
+	 * Get the integrated background subtracted counts of the brightest object.
+	 * @return The counts.
+	 * @see #counts
+	 */
+	public double getCounts()
+	{
+		return counts;
+	}
+
+	/**
+	 * Get the peak pixel value of the brightest object.
+	 * @return The peak value.
+	 * @see #peak
+	 */
+	public int getPeak()
+	{
+		return peak;
+	}
+
+	/**
+	 * Get whether the brightest object is saturated.
+	 * @return true if the peak pixel value is at or above the saturation level.
+	 * @see #peak
+	 * @see #saturationLevel
+	 */
+	public boolean getSaturated()
+	{
+		return (peak >= saturationLevel);
+	}
+
+	/**
+	 * Get the number of pixels in the brightest object.
+	 * @return The number of pixels.
+	 * @see #pixelCount
+	 */
+	public int getPixelCount()
+	{
+		return pixelCount;
+	}
+
+	/**
+	 * Get an estimate of the FWHM of the brightest object. This is derived from the second moments of the pixels
+	 * above the threshold, so under-estimates the FWHM of faint objects.
+	 * @return The FWHM, in pixels.
+	 * @see #fwhm
+	 */
+	public double getFWHM()
+	{
+		return fwhm;
+	}
+}
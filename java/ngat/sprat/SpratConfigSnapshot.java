@@ -0,0 +1,262 @@
+// SpratConfigSnapshot.java
+// $HeadURL$
+package ngat.sprat;
+
+import java.lang.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * This class holds an immutable snapshot of the Sprat configuration properties. A new snapshot is built
+ * each time the properties are (re)loaded by SpratStatus, and swapped in as a whole, so commands running
+ * during a reload see either the old or the new configuration, never a mixture.
+ * Numeric and boolean property values are converted the first time they are retrieved, and the converted value is
+ * kept, so subsequent retrievals do no string parsing. The FITS keyword configuration
+ * (<b>sprat.fits.keyword.&lt;n&gt;</b> and associated properties) is pre-compiled into a list of SpratFitsKeyword.
+ * @author Chris Mottram
+ * @version $Revision$
+ * @see SpratStatus#getConfigSnapshot
+ * @see SpratFitsKeyword
+ */
+public class SpratConfigSnapshot
+{
+	/**
+	 * Revision Control System id string, showing the version of the Class.
+	 */
+	public final static String RCSID = new String("$Id$");
+	/**
+	 * A private copy of the properties this snapshot was built from.
+	 */
+	protected Properties properties = null;
+	/**
+	 * The properties version this snapshot was built at.
+	 * @see SpratStatus#getPropertiesVersion
+	 */
+	protected int version = 0;
+	/**
+	 * Converted integer property values.
+	 */
+	protected Map<String,Integer> integerTable = null;
+	/**
+	 * Converted long property values.
+	 */
+	protected Map<String,Long> longTable = null;
+	/**
+	 * Converted double property values.
+	 */
+	protected Map<String,Double> doubleTable = null;
+	/**
+	 * Converted boolean property values.
+	 */
+	protected Map<String,Boolean> booleanTable = null;
+	/**
+	 * The pre-compiled FITS keywords, in the order of their <b>sprat.fits.keyword.&lt;n&gt;</b> index.
+	 */
+	protected List<SpratFitsKeyword> fitsKeywordList = null;
+
+	/**
+	 * Constructor.
+	 * @param p The properties to build the snapshot from. A copy is taken, so the properties can be
+	 *        modified afterwards without affecting the snapshot.
+	 * @param version The properties version.
+	 * @see #properties
+	 * @see #version
+	 * @see #initFitsKeywordList
+	 */
+	public SpratConfigSnapshot(Properties p,int version)
+	{
+		super();
+		properties = new Properties();
+		properties.putAll(p);
+		this.version = version;
+		integerTable = new ConcurrentHashMap<String,Integer>();
+		longTable = new ConcurrentHashMap<String,Long>();
+		doubleTable = new ConcurrentHashMap<String,Double>();
+		booleanTable = new ConcurrentHashMap<String,Boolean>();
+		initFitsKeywordList();
+	}
+
+	/**
+	 * Pre-compile the FITS keyword configuration. The <b>sprat.fits.keyword.&lt;n&gt;</b> properties are
+	 * read in ascending order of &lt;n&gt; until one is missing, and the property keys holding
+	 * each keyword's values (<b>sprat.fits.value.&lt;keyword&gt;</b> and
+	 * <b>sprat.fits.value.&lt;keyword&gt;.&lt;variant&gt;</b>) are found with one pass over the properties.
+	 * @see #fitsKeywordList
+	 * @see SpratFitsKeyword
+	 */
+	protected void initFitsKeywordList()
+	{
+		Hashtable<String,List<String>> valueKeyTable = null;
+		List<String> keywordList = null;
+		List<String> valueKeyList = null;
+		Enumeration e = null;
+		String keyword = null;
+		String propertyKey = null;
+		String remainder = null;
+		int index,dotIndex;
+
+		keywordList = new Vector<String>();
+		valueKeyTable = new Hashtable<String,List<String>>();
+		index = 0;
+		keyword = properties.getProperty("sprat.fits.keyword."+index);
+		while(keyword != null)
+		{
+			keywordList.add(keyword);
+			valueKeyTable.put(keyword,new Vector<String>());
+			index++;
+			keyword = properties.getProperty("sprat.fits.keyword."+index);
+		}
+		e = properties.propertyNames();
+		while(e.hasMoreElements())
+		{
+			propertyKey = (String)(e.nextElement());
+			if(propertyKey.startsWith(SpratFitsKeyword.VALUE_PROPERTY_KEY_ROOT) == false)
+				continue;
+			remainder = propertyKey.substring(SpratFitsKeyword.VALUE_PROPERTY_KEY_ROOT.length());
+			dotIndex = remainder.indexOf('.');
+			if(dotIndex > -1)
+				keyword = remainder.substring(0,dotIndex);
+			else
+				keyword = remainder;
+			valueKeyList = valueKeyTable.get(keyword);
+			if(valueKeyList != null)
+				valueKeyList.add(propertyKey);
+		}
+		fitsKeywordList = new Vector<SpratFitsKeyword>();
+		for(int i = 0; i < keywordList.size(); i++)
+		{
+			keyword = keywordList.get(i);
+			fitsKeywordList.add(new SpratFitsKeyword(keyword,properties,valueKeyTable.get(keyword)));
+		}
+		fitsKeywordList = Collections.unmodifiableList(fitsKeywordList);
+	}
+
+	/**
+	 * Get the properties version this snapshot was built at.
+	 * @return The version.
+	 * @see #version
+	 */
+	public int getVersion()
+	{
+		return version;
+	}
+
+	/**
+	 * Return whether the snapshot contains the specified property key.
+	 * @param p The property key.
+	 * @return true if the key exists, false otherwise.
+	 * @see #properties
+	 */
+	public boolean containsKey(String p)
+	{
+		return properties.containsKey(p);
+	}
+
+	/**
+	 * Get a property value.
+	 * @param p The property key.
+	 * @return The value, or null if the key does not exist.
+	 * @see #properties
+	 */
+	public String getProperty(String p)
+	{
+		return properties.getProperty(p);
+	}
+
+	/**
+	 * Get a property value as an integer.
+	 * @param p The property key.
+	 * @return The value.
+	 * @exception NumberFormatException Thrown if the value does not exist or is not a valid integer.
+	 * @see #integerTable
+	 */
+	public int getInteger(String p) throws NumberFormatException
+	{
+		Integer value = null;
+
+		value = integerTable.get(p);
+		if(value == null)
+		{
+			value = new Integer(Integer.parseInt(properties.getProperty(p)));
+			integerTable.put(p,value);
+		}
+		return value.intValue();
+	}
+
+	/**
+	 * Get a property value as a long.
+	 * @param p The property key.
+	 * @return The value.
+	 * @exception NumberFormatException Thrown if the value does not exist or is not a valid long.
+	 * @see #longTable
+	 */
+	public long getLong(String p) throws NumberFormatException
+	{
+		Long value = null;
+
+		value = longTable.get(p);
+		if(value == null)
+		{
+			value = new Long(Long.parseLong(properties.getProperty(p)));
+			longTable.put(p,value);
+		}
+		return value.longValue();
+	}
+
+	/**
+	 * Get a property value as a double.
+	 * @param p The property key.
+	 * @return The value.
+	 * @exception NumberFormatException Thrown if the value is not a valid double.
+	 * @exception NullPointerException Thrown if the value does not exist.
+	 * @see #doubleTable
+	 */
+	public double getDouble(String p) throws NumberFormatException, NullPointerException
+	{
+		Double value = null;
+
+		value = doubleTable.get(p);
+		if(value == null)
+		{
+			value = Double.valueOf(properties.getProperty(p));
+			doubleTable.put(p,value);
+		}
+		return value.doubleValue();
+	}
+
+	/**
+	 * Get a property value as a boolean. Boolean.valueOf is used to convert the value.
+	 * @param p The property key.
+	 * @return The value.
+	 * @exception NullPointerException Thrown if the value does not exist.
+	 * @see #booleanTable
+	 */
+	public boolean getBoolean(String p) throws NullPointerException
+	{
+		Boolean value = null;
+		String valueString = null;
+
+		value = booleanTable.get(p);
+		if(value == null)
+		{
+			valueString = properties.getProperty(p);
+			if(valueString == null)
+				throw new NullPointerException(this.getClass().getName()+":getBoolean:keyword:"+p+
+							       ":Value was null.");
+			value = Boolean.valueOf(valueString);
+			booleanTable.put(p,value);
+		}
+		return value.booleanValue();
+	}
+
+	/**
+	 * Get the pre-compiled FITS keywords.
+	 * @return An unmodifiable list of SpratFitsKeyword, in the order of their
+	 *         <b>sprat.fits.keyword.&lt;n&gt;</b> index.
+	 * @see #fitsKeywordList
+	 */
+	public List<SpratFitsKeyword> getFitsKeywordList()
+	{
+		return fitsKeywordList;
+	}
+}
@@ -0,0 +1,194 @@
+// SpratFitsKeyword.java
+// $HeadURL$
+package ngat.sprat;
+
+import java.lang.*;
+import java.util.*;
+
+/**
+ * This class holds the pre-compiled configuration of one FITS keyword, retrieved from the
+ * <b>sprat.fits.*</b> properties when the properties are (re)loaded. It holds the keyword's value type,
+ * whether it is only written for spectral data, what the value varies by, the comment and units, and all
+ * the possible values of the keyword, already converted to the keyword's value type.
+ * Instances are immutable, and are shared between all commands using the same SpratConfigSnapshot.
+ * @author Chris Mottram
+ * @version $Revision$
+ * @see SpratConfigSnapshot
+ * @see FITSImplementation#setFitsHeader
+ */
+public class SpratFitsKeyword
+{
+	/**
+	 * Revision Control System id string, showing the version of the Class.
+	 */
+	public final static String RCSID = new String("$Id$");
+	/**
+	 * The root of the property keys holding FITS keyword values.
+	 */
+	public final static String VALUE_PROPERTY_KEY_ROOT = new String("sprat.fits.value.");
+	/**
+	 * The FITS keyword.
+	 */
+	protected String keyword = null;
+	/**
+	 * The type of the keyword's value, one of: string | integer | float | double | boolean, or null if
+	 * the <b>sprat.fits.value.type.&lt;keyword&gt;</b> property does not exist.
+	 */
+	protected String typeString = null;
+	/**
+	 * Whether the keyword is only written for spectral data, or null if the
+	 * <b>sprat.fits.value.isspectral.&lt;keyword&gt;</b> property does not exist.
+	 */
+	protected Boolean isSpectral = null;
+	/**
+	 * What the keyword's value varies by, or null if it does not vary.
+	 */
+	protected String varyByString = null;
+	/**
+	 * The keyword's comment, or null if it has none.
+	 */
+	protected String commentString = null;
+	/**
+	 * The keyword's units, or null if it has none.
+	 */
+	protected String unitsString = null;
+	/**
+	 * A table of the keyword's possible values. The key is the property key the value was retrieved from
+	 * (i.e. <b>sprat.fits.value.&lt;keyword&gt;.in</b>), and the data is the value converted to the keyword's
+	 * value type (Integer, Float, Double, Boolean or String). If a value could not be converted, the data is
+	 * the original value String.
+	 */
+	protected Hashtable<String,Object> valueTable = null;
+
+	/**
+	 * Constructor. The keyword's configuration is retrieved from the properties, and it's values are
+	 * converted to the keyword's value type.
+	 * @param keyword The FITS keyword.
+	 * @param properties The properties to retrieve the configuration from.
+	 * @param valuePropertyKeyList A list of the property keys, starting with
+	 *        <b>sprat.fits.value.&lt;keyword&gt;</b>, that hold this keyword's values.
+	 * @see #convertValue
+	 */
+	public SpratFitsKeyword(String keyword,Properties properties,List<String> valuePropertyKeyList)
+	{
+		String isSpectralString = null;
+		String propertyKey = null;
+
+		this.keyword = keyword;
+		typeString = properties.getProperty("sprat.fits.value.type."+keyword);
+		isSpectralString = properties.getProperty("sprat.fits.value.isspectral."+keyword);
+		if(isSpectralString != null)
+			isSpectral = Boolean.valueOf(isSpectralString);
+		varyByString = properties.getProperty("sprat.fits.value.varyby."+keyword);
+		commentString = properties.getProperty("sprat.fits.comment."+keyword);
+		unitsString = properties.getProperty("sprat.fits.units."+keyword);
+		valueTable = new Hashtable<String,Object>();
+		for(int i = 0; i < valuePropertyKeyList.size(); i++)
+		{
+			propertyKey = valuePropertyKeyList.get(i);
+			valueTable.put(propertyKey,convertValue(properties.getProperty(propertyKey)));
+		}
+	}
+
+	/**
+	 * Convert a value string to the keyword's value type.
+	 * @param valueString The value string.
+	 * @return The value as an Integer, Float, Double, Boolean or String, depending on the typeString.
+	 *         If the value cannot be converted (or the type is unknown) the valueString is returned.
+	 * @see #typeString
+	 */
+	protected Object convertValue(String valueString)
+	{
+		if(typeString == null)
+			return valueString;
+		try
+		{
+			if(typeString.equals("integer"))
+				return new Integer(Integer.parseInt(valueString));
+			else if(typeString.equals("float"))
+				return new Float(Double.valueOf(valueString).doubleValue());
+			else if(typeString.equals("double"))
+				return Double.valueOf(valueString);
+			else if(typeString.equals("boolean"))
+				return Boolean.valueOf(valueString);
+		}
+		catch(NumberFormatException e)
+		{
+			// return the string, the error is reported when the value is used
+		}
+		return valueString;
+	}
+
+	/**
+	 * Get the FITS keyword.
+	 * @return The keyword.
+	 * @see #keyword
+	 */
+	public String getKeyword()
+	{
+		return keyword;
+	}
+
+	/**
+	 * Get the type of the keyword's value.
+	 * @return The type, one of: string | integer | float | double | boolean, or null if it is not configured.
+	 * @see #typeString
+	 */
+	public String getTypeString()
+	{
+		return typeString;
+	}
+
+	/**
+	 * Get whether the keyword is only written for spectral data.
+	 * @return A Boolean, or null if it is not configured.
+	 * @see #isSpectral
+	 */
+	public Boolean getIsSpectral()
+	{
+		return isSpectral;
+	}
+
+	/**
+	 * Get what the keyword's value varies by.
+	 * @return The vary by string, or null.
+	 * @see #varyByString
+	 */
+	public String getVaryByString()
+	{
+		return varyByString;
+	}
+
+	/**
+	 * Get the keyword's comment.
+	 * @return The comment, or null.
+	 * @see #commentString
+	 */
+	public String getCommentString()
+	{
+		return commentString;
+	}
+
+	/**
+	 * Get the keyword's units.
+	 * @return The units, or null.
+	 * @see #unitsString
+	 */
+	public String getUnitsString()
+	{
+		return unitsString;
+	}
+
+	/**
+	 * Get one of the keyword's values.
+	 * @param valuePropertyKey The property key the value was retrieved from, i.e.
+	 *        <b>sprat.fits.value.&lt;keyword&gt;.in</b>.
+	 * @return The value, as an Integer, Float, Double, Boolean or String (if it could not be converted
+	 *         to the keyword's value type). If no value exists for the property key, null is returned.
+	 * @see #valueTable
+	 */
+	public Object getValue(String valuePropertyKey)
+	{
+		return valueTable.get(valuePropertyKey);
+	}
+}
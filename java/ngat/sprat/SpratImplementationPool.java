@@ -0,0 +1,124 @@
+// SpratImplementationPool.java
+// $HeadURL$
+package ngat.sprat;
+
+import java.lang.*;
+import java.util.*;
+
+/**
+ * This class holds a pool of reusable instances of one command implementation class.
+ * Command implementations hold per-command state in their fields, so each instance is only used by one
+ * command (server connection thread) at a time: acquire removes an idle instance from the pool
+ * (only creating a new instance if none are idle), and release returns it to the pool once the command
+ * has completed. Each command implementation re-initialises it's per-command state in init/processCommand.
+ * This means (once the pool has warmed up) no reflective object creation is done per command, and any
+ * configuration an implementation caches in it's fields is kept between commands.
+ * @author Chris Mottram
+ * @version $Revision$
+ * @see Sprat#getImplementation
+ * @see Sprat#releaseImplementation
+ */
+public class SpratImplementationPool
+{
+	/**
+	 * Revision Control System id string, showing the version of the Class.
+	 */
+	public final static String RCSID = new String("$Id$");
+	/**
+	 * The command implementation class instances in this pool are created from.
+	 */
+	protected Class implementationClass = null;
+	/**
+	 * The idle instances in the pool.
+	 */
+	protected Stack<JMSCommandImplementation> idleList = null;
+
+	/**
+	 * Constructor.
+	 * @param cl The command implementation class instances in this pool are created from.
+	 * @see #implementationClass
+	 * @see #idleList
+	 */
+	public SpratImplementationPool(Class cl)
+	{
+		super();
+		implementationClass = cl;
+		idleList = new Stack<JMSCommandImplementation>();
+	}
+
+	/**
+	 * Get the command implementation class instances in this pool are created from.
+	 * @return The class.
+	 * @see #implementationClass
+	 */
+	public Class getImplementationClass()
+	{
+		return implementationClass;
+	}
+
+	/**
+	 * Create a new instance of the implementation class, and add it to the idle list. This is used
+	 * to pre-build an instance when the pool is created.
+	 * @exception InstantiationException Thrown if the class cannot be instantiated.
+	 * @exception IllegalAccessException Thrown if the class's null argument constructor is not accessible.
+	 * @see #create
+	 * @see #release
+	 */
+	public void prebuild() throws InstantiationException, IllegalAccessException
+	{
+		release(create());
+	}
+
+	/**
+	 * Acquire an instance from the pool. An idle instance is returned if there is one, otherwise a new
+	 * instance is created.
+	 * @return An instance of the implementation class, for the exclusive use of the caller until it is
+	 *         released.
+	 * @exception InstantiationException Thrown if the class cannot be instantiated.
+	 * @exception IllegalAccessException Thrown if the class's null argument constructor is not accessible.
+	 * @see #idleList
+	 * @see #create
+	 */
+	public JMSCommandImplementation acquire() throws InstantiationException, IllegalAccessException
+	{
+		synchronized(idleList)
+		{
+			if(idleList.empty() == false)
+				return idleList.pop();
+		}
+		return create();
+	}
+
+	/**
+	 * Return an instance to the pool, once the command it was implementing has completed.
+	 * The instance's reference to the server connection thread is cleared, so the thread can be garbage
+	 * collected.
+	 * @param implementation The instance to return. Instances of other classes are ignored.
+	 * @see #idleList
+	 * @see CommandImplementation#setServerConnectionThread
+	 */
+	public void release(JMSCommandImplementation implementation)
+	{
+		if((implementation == null)||(implementation.getClass() != implementationClass))
+			return;
+		if(implementation instanceof CommandImplementation)
+			((CommandImplementation)implementation).setServerConnectionThread(null);
+		synchronized(idleList)
+		{
+			if(idleList.contains(implementation) == false)
+				idleList.push(implementation);
+		}
+	}
+
+	/**
+	 * Create a new instance of the implementation class, using it's null argument constructor.
+	 * @return A new instance.
+	 * @exception InstantiationException Thrown if the class cannot be instantiated.
+	 * @exception IllegalAccessException Thrown if the class's null argument constructor is not accessible.
+	 * @see #implementationClass
+	 */
+	protected JMSCommandImplementation create() throws InstantiationException, IllegalAccessException
+	{
+		return (JMSCommandImplementation)implementationClass.newInstance();
+	}
+}
@@ -0,0 +1,158 @@
+// SpratMechanismPositionCache.java
+// $HeadURL$
+package ngat.sprat;
+
+import java.lang.*;
+import java.util.*;
+
+/**
+ * This class holds the last known position of each Sprat mechanism (mirror, slit, grism and grism rotation),
+ * timestamped with when the position was last known to be true. Positions are updated from successful
+ * mechanism moves, and from mechanism position queries (i.e. those made by GET_STATUS).
+ * The cache is used to skip moves to a position the mechanism is already in.
+ * A cached position is only valid for <b>sprat.mechanism.position_cache.max_age</b> milliseconds.
+ * @author Chris Mottram
+ * @version $Revision$
+ * @see HardwareImplementation#isMechanismInPosition
+ */
+public class SpratMechanismPositionCache
+{
+	/**
+	 * Revision Control System id string, showing the version of the Class.
+	 */
+	public final static String RCSID = new String("$Id$");
+	/**
+	 * The name of the calibration mirror mechanism.
+	 */
+	public final static String MECHANISM_MIRROR = new String("mirror");
+	/**
+	 * The name of the slit mechanism.
+	 */
+	public final static String MECHANISM_SLIT = new String("slit");
+	/**
+	 * The name of the grism (in/out) mechanism.
+	 */
+	public final static String MECHANISM_GRISM = new String("grism");
+	/**
+	 * The name of the grism rotation mechanism.
+	 */
+	public final static String MECHANISM_ROTATION = new String("rotation");
+	/**
+	 * The default length of time a cached position is valid for, in milliseconds. Used if no
+	 * <b>sprat.mechanism.position_cache.max_age</b> property is defined.
+	 */
+	public final static long DEFAULT_MAX_AGE = 60000;
+	/**
+	 * The status object, used to retrieve the maximum age configuration.
+	 */
+	protected SpratStatus status = null;
+	/**
+	 * A Hashtable of mechanism names, mapping to the last known position of each mechanism.
+	 */
+	protected Hashtable<String,Integer> positionTable = null;
+	/**
+	 * A Hashtable of mechanism names, mapping to the time (in milliseconds since the epoch) the position
+	 * in positionTable was last known to be true.
+	 * @see #positionTable
+	 */
+	protected Hashtable<String,Long> timestampTable = null;
+
+	/**
+	 * Constructor.
+	 * @param s The status object, used to retrieve the maximum age configuration.
+	 * @see #status
+	 * @see #positionTable
+	 * @see #timestampTable
+	 */
+	public SpratMechanismPositionCache(SpratStatus s)
+	{
+		super();
+		status = s;
+		positionTable = new Hashtable<String,Integer>();
+		timestampTable = new Hashtable<String,Long>();
+	}
+
+	/**
+	 * Update the position of a mechanism, timestamped with the current time.
+	 * @param mechanismName The name of the mechanism, one of MECHANISM_MIRROR, MECHANISM_SLIT,
+	 *        MECHANISM_GRISM, MECHANISM_ROTATION.
+	 * @param position The position the mechanism is now in.
+	 * @see #positionTable
+	 * @see #timestampTable
+	 */
+	public synchronized void update(String mechanismName,int position)
+	{
+		positionTable.put(mechanismName,new Integer(position));
+		timestampTable.put(mechanismName,new Long(System.currentTimeMillis()));
+	}
+
+	/**
+	 * Invalidate the position of a mechanism, i.e. because it is about to be moved, or a move failed.
+	 * @param mechanismName The name of the mechanism.
+	 * @see #positionTable
+	 * @see #timestampTable
+	 */
+	public synchronized void invalidate(String mechanismName)
+	{
+		positionTable.remove(mechanismName);
+		timestampTable.remove(mechanismName);
+	}
+
+	/**
+	 * Invalidate the positions of all the mechanisms, i.e. on a reboot.
+	 * @see #positionTable
+	 * @see #timestampTable
+	 */
+	public synchronized void invalidateAll()
+	{
+		positionTable.clear();
+		timestampTable.clear();
+	}
+
+	/**
+	 * Return whether a mechanism is known to be in the specified position, i.e. the cached position
+	 * is the specified position, and is younger than the maximum age.
+	 * @param mechanismName The name of the mechanism.
+	 * @param position The position to test for.
+	 * @return true if the mechanism is known to be in the position, false if it is in a different position,
+	 *         or it's position is unknown or stale.
+	 * @see #positionTable
+	 * @see #timestampTable
+	 * @see #getMaxAge
+	 */
+	public synchronized boolean isInPosition(String mechanismName,int position)
+	{
+		Integer cachedPosition = null;
+		Long timestamp = null;
+
+		cachedPosition = positionTable.get(mechanismName);
+		timestamp = timestampTable.get(mechanismName);
+		if((cachedPosition == null)||(timestamp == null))
+			return false;
+		if((System.currentTimeMillis()-timestamp.longValue()) > getMaxAge())
+			return false;
+		return (cachedPosition.intValue() == position);
+	}
+
+	/**
+	 * Get the length of time a cached position is valid for, from the
+	 * <b>sprat.mechanism.position_cache.max_age</b> property.
+	 * @return The maximum age in milliseconds. If the property does not exist or is not a valid
+	 *         number, DEFAULT_MAX_AGE is returned.
+	 * @see #DEFAULT_MAX_AGE
+	 * @see #status
+	 */
+	protected long getMaxAge()
+	{
+		try
+		{
+			if(status.propertyContainsKey("sprat.mechanism.position_cache.max_age"))
+				return status.getPropertyLong("sprat.mechanism.position_cache.max_age");
+		}
+		catch(NumberFormatException e)
+		{
+			// fall through to default
+		}
+		return DEFAULT_MAX_AGE;
+	}
+}
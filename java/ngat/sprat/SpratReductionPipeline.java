@@ -0,0 +1,230 @@
+// SpratReductionPipeline.java
+// $HeadURL$
+package ngat.sprat;
+
+import java.lang.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+import ngat.message.INST_DP.*;
+
+/**
+ * This class sends data pipeline (DpRt) reduction commands for the frames of one command (i.e. a MULTRUN)
+ * concurrently with the command's exposures. Reductions are submitted as each frame is saved, and are
+ * sent to the DpRt by a bounded pool of threads, so at most a configured number of reductions are in progress
+ * at once. The results are retrieved in the order the reductions were submitted (i.e. frame order),
+ * regardless of the order the DpRt finishes them in.
+ * @author Chris Mottram
+ * @version $Revision$
+ * @see MULTRUNImplementation
+ * @see Sprat#sendDpRtCommand
+ */
+public class SpratReductionPipeline
+{
+	/**
+	 * Revision Control System id string, showing the version of the Class.
+	 */
+	public final static String RCSID = new String("$Id$");
+	/**
+	 * The Sprat object, used to send the reduction commands to the DpRt.
+	 */
+	protected Sprat sprat = null;
+	/**
+	 * The server connection thread of the command the reductions are being done for. The DpRt's
+	 * acknowledgements are forwarded to it's client, and reductions stop if it is aborted.
+	 */
+	protected SpratTCPServerConnectionThread serverConnectionThread = null;
+	/**
+	 * The thread pool used to send the reduction commands to the DpRt.
+	 */
+	protected ExecutorService executorService = null;
+	/**
+	 * The filenames of the submitted reductions, in submission order.
+	 */
+	protected List<String> filenameList = null;
+	/**
+	 * The results of the submitted reductions, in submission order.
+	 */
+	protected List<Future<INST_TO_DP_DONE>> resultList = null;
+	/**
+	 * The index in resultList of the next result to be retrieved.
+	 * @see #resultList
+	 */
+	protected int nextResultIndex = 0;
+
+	/**
+	 * Constructor.
+	 * @param sprat The Sprat object.
+	 * @param serverConnectionThread The server connection thread of the command the reductions are being done for.
+	 * @param threadCount The maximum number of reductions to send to the DpRt at once.
+	 * @see #executorService
+	 */
+	public SpratReductionPipeline(Sprat sprat,SpratTCPServerConnectionThread serverConnectionThread,
+				      int threadCount)
+	{
+		super();
+		this.sprat = sprat;
+		this.serverConnectionThread = serverConnectionThread;
+		executorService = Executors.newFixedThreadPool(Math.max(threadCount,1),new ReductionThreadFactory());
+		filenameList = new Vector<String>();
+		resultList = new Vector<Future<INST_TO_DP_DONE>>();
+		nextResultIndex = 0;
+	}
+
+	/**
+	 * Submit a reduction. The reduction command is sent to the DpRt as soon as a pool thread is free.
+	 * @param filename The filename of the frame being reduced.
+	 * @param reduceCommand The reduction command to send to the DpRt (i.e. an EXPOSE_REDUCE).
+	 * @see #executorService
+	 * @see #filenameList
+	 * @see #resultList
+	 * @see ReductionCallable
+	 */
+	public void submit(String filename,INST_TO_DP reduceCommand)
+	{
+		filenameList.add(filename);
+		resultList.add(executorService.submit(new ReductionCallable(reduceCommand)));
+	}
+
+	/**
+	 * Get the number of reductions submitted so far.
+	 * @return The number of reductions.
+	 * @see #resultList
+	 */
+	public int getSubmittedCount()
+	{
+		return resultList.size();
+	}
+
+	/**
+	 * Return whether there are submitted reductions whose results have not been retrieved yet.
+	 * @return true if there is another result to retrieve, false otherwise.
+	 * @see #nextResultIndex
+	 */
+	public boolean hasNextResult()
+	{
+		return (nextResultIndex < resultList.size());
+	}
+
+	/**
+	 * Return whether the next result (in submission order) is available without waiting.
+	 * @return true if the next reduction has completed, false if it has not, or there is no next result.
+	 * @see #nextResultIndex
+	 */
+	public boolean isNextResultAvailable()
+	{
+		if(hasNextResult() == false)
+			return false;
+		return resultList.get(nextResultIndex).isDone();
+	}
+
+	/**
+	 * Get the filename of the frame the next result (in submission order) is for.
+	 * @return The filename, or null if there is no next result.
+	 * @see #filenameList
+	 * @see #nextResultIndex
+	 */
+	public String getNextFilename()
+	{
+		if(hasNextResult() == false)
+			return null;
+		return filenameList.get(nextResultIndex);
+	}
+
+	/**
+	 * Get the next result (in submission order), waiting for the reduction to complete if necessary.
+	 * @return The DpRt's done message. An unsuccessful done is returned if the reduction failed.
+	 * @exception Exception Thrown if there is no next result, or waiting for the result was interrupted,
+	 *            or the reduction threw an exception.
+	 * @see #resultList
+	 * @see #nextResultIndex
+	 */
+	public INST_TO_DP_DONE nextResult() throws Exception
+	{
+		Future<INST_TO_DP_DONE> result = null;
+
+		if(hasNextResult() == false)
+		{
+			throw new Exception(this.getClass().getName()+":nextResult:No more results:"+
+					    nextResultIndex+" of "+resultList.size()+".");
+		}
+		result = resultList.get(nextResultIndex);
+		nextResultIndex++;
+		try
+		{
+			return result.get();
+		}
+		catch(ExecutionException e)
+		{
+			throw new Exception(this.getClass().getName()+":nextResult:Reduction of "+
+					    filenameList.get(nextResultIndex-1)+" failed:"+e.getCause(),e);
+		}
+	}
+
+	/**
+	 * Shut the pipeline down. Reductions not yet sent to the DpRt are cancelled, and the pool threads exit
+	 * once any reductions in progress complete.
+	 * @see #executorService
+	 */
+	public void shutdown()
+	{
+		for(int i = nextResultIndex; i < resultList.size(); i++)
+			resultList.get(i).cancel(false);
+		executorService.shutdown();
+	}
+
+	/**
+	 * Callable used to send one reduction command to the DpRt, from a pool thread.
+	 * @see Sprat#sendDpRtCommand
+	 */
+	protected class ReductionCallable implements Callable<INST_TO_DP_DONE>
+	{
+		/**
+		 * The reduction command to send.
+		 */
+		protected INST_TO_DP reduceCommand = null;
+
+		/**
+		 * Constructor.
+		 * @param reduceCommand The reduction command to send.
+		 */
+		public ReductionCallable(INST_TO_DP reduceCommand)
+		{
+			super();
+			this.reduceCommand = reduceCommand;
+		}
+
+		/**
+		 * Send the reduction command to the DpRt, and wait for it to complete.
+		 * @return The DpRt's done message.
+		 * @see #sprat
+		 * @see #serverConnectionThread
+		 * @see Sprat#sendDpRtCommand
+		 */
+		public INST_TO_DP_DONE call()
+		{
+			return sprat.sendDpRtCommand(reduceCommand,serverConnectionThread);
+		}
+	}
+
+	/**
+	 * Thread factory used to create the pool threads. The threads are daemon threads, so an outstanding
+	 * reduction does not stop the Sprat exiting.
+	 */
+	protected static class ReductionThreadFactory implements ThreadFactory
+	{
+		/**
+		 * Create a new pool thread.
+		 * @param r The runnable the thread is to run.
+		 * @return The new thread.
+		 */
+		public Thread newThread(Runnable r)
+		{
+			Thread thread = null;
+
+			thread = new Thread(r,"SpratReductionPipeline");
+			thread.setDaemon(true);
+			return thread;
+		}
+	}
+}
@@ -63,6 +63,13 @@ public class SpratStatus
 	 * that needs to be changed irregularily.
 	 */
 	private Properties properties = null;
+	/**
+	 * An immutable, typed snapshot of the properties, rebuilt and swapped in each time the properties
+	 * are (re)loaded. All property retrievals go through the current snapshot.
+	 * @see #updateConfigSnapshot
+	 * @see #getConfigSnapshot
+	 */
+	private volatile SpratConfigSnapshot configSnapshot = null;
 	/**
 	 * The current unique config ID, held on disc over reboots.
 	 * Incremented each time a new configuration is attained,
@@ -79,19 +86,23 @@ public class SpratStatus
 	private String configName = "UNKNOWN";
 
 	/**
-	 * Default constructor. Initialises the properties.
+	 * Default constructor. Initialises the properties, and an empty config snapshot.
 	 * @see #properties
+	 * @see #configSnapshot
 	 */
 	public SpratStatus()
 	{
 		properties = new Properties();
+		configSnapshot = new SpratConfigSnapshot(properties,0);
 	}
 
 	/**
 	 * The load method for the class. This loads the property file from disc, using the specified
 	 * filename. Any old properties are first cleared.
+	 * A new config snapshot is built from the properties and swapped in.
 	 * The configId unique persistent integer is then initialised, using a filename stored in the properties.
 	 * @see #properties
+	 * @see #updateConfigSnapshot
 	 * @see #initialiseConfigId
 	 * @see #DEFAULT_NET_PROPERTY_FILE_NAME
 	 * @see #DEFAULT_PROPERTY_FILE_NAME
@@ -122,6 +133,8 @@ public class SpratStatus
 		fileInputStream = new FileInputStream(filename);
 		properties.load(fileInputStream);
 		fileInputStream.close();
+	// swap in a new snapshot of the loaded properties
+		updateConfigSnapshot();
 	// initialise configId
 		initialiseConfigId();
 	}
@@ -132,8 +145,10 @@ public class SpratStatus
 	 * involve resetting up the server connection thread which may be in use. If properties have been
 	 * deleted from the loaded files, reload does not clear these properties. Any new properties or
 	 * ones where the values have changed will change.
+	 * A new config snapshot is built from the properties and swapped in.
 	 * The configId unique persistent integer is then initialised, using a filename stored in the properties.
 	 * @see #properties
+	 * @see #updateConfigSnapshot
 	 * @see #initialiseConfigId
 	 * @see #DEFAULT_NET_PROPERTY_FILE_NAME
 	 * @see #DEFAULT_PROPERTY_FILE_NAME
@@ -157,10 +172,48 @@ public class SpratStatus
 		fileInputStream = new FileInputStream(filename);
 		properties.load(fileInputStream);
 		fileInputStream.close();
+	// swap in a new snapshot of the loaded properties
+		updateConfigSnapshot();
 	// initialise configId
 		initialiseConfigId();
 	}
 
+	/**
+	 * Build a new config snapshot from the loaded properties, with the next properties version, and
+	 * swap it in as the current snapshot.
+	 * @see #properties
+	 * @see #configSnapshot
+	 */
+	private synchronized void updateConfigSnapshot()
+	{
+		configSnapshot = new SpratConfigSnapshot(properties,configSnapshot.getVersion()+1);
+	}
+
+	/**
+	 * Get the current config snapshot. Callers that retrieve several related configuration values should
+	 * retrieve the snapshot once and use it for all of them, so the values are consistent even if the properties
+	 * are reloaded part way through.
+	 * @return The current config snapshot.
+	 * @see #configSnapshot
+	 */
+	public SpratConfigSnapshot getConfigSnapshot()
+	{
+		return configSnapshot;
+	}
+
+	/**
+	 * Get the number of times the properties have been (re)loaded. Command implementations that cache
+	 * configuration derived from the properties can compare this with the version they loaded their
+	 * configuration at, to see whether it needs re-loading.
+	 * @return The properties version.
+	 * @see #configSnapshot
+	 * @see SpratConfigSnapshot#getVersion
+	 */
+	public int getPropertiesVersion()
+	{
+		return configSnapshot.getVersion();
+	}
+
 	/**
 	 * Set the logging level for Sprat.
 	 * @param level The level of logging.
@@ -275,83 +328,81 @@ public class SpratStatus
 
 	/**
 	 * Method to return whether the loaded properties contain the specified keyword.
-	 * Calls the proprties object containsKey method. Note assumes the properties object has been initialised.
+	 * Calls the current config snapshot's containsKey method.
 	 * @param p The property key we wish to test exists.
 	 * @return The method returnd true if the specified key is a key in out list of properties,
 	 *         otherwise it returns false.
-	 * @see #properties
+	 * @see #configSnapshot
 	 */
 	public boolean propertyContainsKey(String p)
 	{
-		return properties.containsKey(p);
+		return configSnapshot.containsKey(p);
 	}
 
 	/**
-	 * Routine to get a properties value, given a key. Just calls the properties object getProperty routine.
+	 * Routine to get a properties value, given a key. Just calls the current config snapshot's getProperty routine.
 	 * @param p The property key we want the value for.
 	 * @return The properties value, as a string object. If the key is not found, Properties.getProperty
 	 *         will return null.
-	 * @see #properties
+	 * @see #configSnapshot
 	 */
 	public String getProperty(String p)
 	{
-		return properties.getProperty(p);
+		return configSnapshot.getProperty(p);
 	}
 
 	/**
 	 * Routine to get a properties value, given a key. The value must be a valid integer, else a 
-	 * NumberFormatException is thrown.
+	 * NumberFormatException is thrown. The value is only parsed the first time it is retrieved from each
+	 * config snapshot.
 	 * @param p The property key we want the value for.
 	 * @return The properties value, as an integer.
 	 * @exception NumberFormatException If the properties value string is not a valid integer, this
 	 * 	exception will be thrown when the Integer.parseInt routine is called.
-	 * @see #properties
+	 * @see #configSnapshot
 	 */
 	public int getPropertyInteger(String p) throws NumberFormatException
 	{
-		String valueString = null;
-		int returnValue = 0;
+		SpratConfigSnapshot snapshot = null;
 
-		valueString = properties.getProperty(p);
+		snapshot = configSnapshot;
 		try
 		{
-			returnValue = Integer.parseInt(valueString);
+			return snapshot.getInteger(p);
 		}
 		catch(NumberFormatException e)
 		{
 			// re-throw exception with more information e.g. keyword
 			throw new NumberFormatException(this.getClass().getName()+":getPropertyInteger:keyword:"+
-				p+":valueString:"+valueString);
+				p+":valueString:"+snapshot.getProperty(p));
 		}
-		return returnValue;
 	}
 
 	/**
 	 * Routine to get a properties value, given a key. The value must be a valid long, else a 
-	 * NumberFormatException is thrown.
+	 * NumberFormatException is thrown. The value is only parsed the first time it is retrieved from each
+	 * config snapshot.
 	 * @param p The property key we want the value for.
 	 * @return The properties value, as a long.
 	 * @exception NumberFormatException If the properties value string is not a valid long, this
 	 * 	exception will be thrown when the Long.parseLong routine is called.
-	 * @see #properties
+	 * @see #configSnapshot
 	 */
 	public long getPropertyLong(String p) throws NumberFormatException
 	{
-		String valueString = null;
-		long returnValue = 0;
+		SpratConfigSnapshot snapshot = null;
 
-		valueString = properties.getProperty(p);
+		snapshot = configSnapshot;
 		try
 		{
-			returnValue = Long.parseLong(valueString);
+			return snapshot.getLong(p);
 		}
 		catch(NumberFormatException e)
 		{
 			// re-throw exception with more information e.g. keyword
 			throw new NumberFormatException(this.getClass().getName()+":getPropertyLong:keyword:"+
-				p+":valueString:"+valueString);
+				p+":valueString:"+snapshot.getProperty(p));
 		}
-		return returnValue;
 	}
 
 	/**
@@ -361,14 +412,14 @@ public class SpratStatus
 	 * @return The properties value, as a short.
 	 * @exception NumberFormatException If the properties value string is not a valid short, this
 	 * 	exception will be thrown when the Short.parseShort routine is called.
-	 * @see #properties
+	 * @see #configSnapshot
 	 */
 	public short getPropertyShort(String p) throws NumberFormatException
 	{
 		String valueString = null;
 		short returnValue = 0;
 
-		valueString = properties.getProperty(p);
+		valueString = configSnapshot.getProperty(p);
 		try
 		{
 			returnValue = Short.parseShort(valueString);
@@ -384,30 +435,29 @@ public class SpratStatus
 
 	/**
 	 * Routine to get a properties value, given a key. The value must be a valid double, else a 
-	 * NumberFormatException is thrown.
+	 * NumberFormatException is thrown. The value is only parsed the first time it is retrieved from each
+	 * config snapshot.
 	 * @param p The property key we want the value for.
 	 * @return The properties value, as an double.
 	 * @exception NumberFormatException If the properties value string is not a valid double, this
 	 * 	exception will be thrown when the Double.valueOf routine is called.
-	 * @see #properties
+	 * @see #configSnapshot
 	 */
 	public double getPropertyDouble(String p) throws NumberFormatException
 	{
-		String valueString = null;
-		Double returnValue = null;
+		SpratConfigSnapshot snapshot = null;
 
-		valueString = properties.getProperty(p);
+		snapshot = configSnapshot;
 		try
 		{
-			returnValue = Double.valueOf(valueString);
+			return snapshot.getDouble(p);
 		}
 		catch(NumberFormatException e)
 		{
 			// re-throw exception with more information e.g. keyword
 			throw new NumberFormatException(this.getClass().getName()+":getPropertyDouble:keyword:"+
-				p+":valueString:"+valueString);
+				p+":valueString:"+snapshot.getProperty(p));
 		}
-		return returnValue.doubleValue();
 	}
 
 	/**
@@ -417,14 +467,14 @@ public class SpratStatus
 	 * @return The properties value, as a float.
 	 * @exception NumberFormatException If the properties value string is not a valid float, this
 	 * 	exception will be thrown.
-	 * @see #properties
+	 * @see #configSnapshot
 	 */
 	public float getPropertyFloat(String p) throws NumberFormatException
 	{
 		String valueString = null;
 		Float returnValue = null;
 
-		valueString = properties.getProperty(p);
+		valueString = configSnapshot.getProperty(p);
 		try
 		{
 			returnValue = Float.valueOf(valueString);
@@ -441,26 +491,25 @@ public class SpratStatus
 	/**
 	 * Routine to get a properties boolean value, given a key. The properties value should be either 
 	 * "true" or "false".
-	 * Boolean.valueOf is used to convert the string to a boolean value.
+	 * Boolean.valueOf is used to convert the string to a boolean value, the first time it is retrieved
+	 * from each config snapshot.
 	 * @param p The property key we want the boolean value for.
 	 * @return The properties value, as an boolean.
 	 * @exception NullPointerException If the properties value string is null, this
 	 * 	exception will be thrown.
-	 * @see #properties
+	 * @see #configSnapshot
 	 */
 	public boolean getPropertyBoolean(String p) throws NullPointerException
 	{
-		String valueString = null;
-		Boolean b = null;
+		SpratConfigSnapshot snapshot = null;
 
-		valueString = properties.getProperty(p);
-		if(valueString == null)
+		snapshot = configSnapshot;
+		if(snapshot.containsKey(p) == false)
 		{
 			throw new NullPointerException(this.getClass().getName()+":getPropertyBoolean:keyword:"+
 				p+":Value was null.");
 		}
-		b = Boolean.valueOf(valueString);
-		return b.booleanValue();
+		return snapshot.getBoolean(p);
 	}
 
 	/**
@@ -470,14 +519,14 @@ public class SpratStatus
 	 * @exception NullPointerException If the properties value string is null, this
 	 * 	exception will be thrown.
 	 * @exception Exception Thrown if the properties value string is not of length 1.
-	 * @see #properties
+	 * @see #configSnapshot
 	 */
 	public char getPropertyChar(String p) throws NullPointerException, Exception
 	{
 		String valueString = null;
 		char ch;
 
-		valueString = properties.getProperty(p);
+		valueString = configSnapshot.getProperty(p);
 		if(valueString == null)
 		{
 			throw new NullPointerException(this.getClass().getName()+":getPropertyChar:keyword:"+
@@ -508,7 +557,7 @@ public class SpratStatus
 		String valueString = null;
 		int timePeriod = 0;
  
-		valueString = properties.getProperty(p);
+		valueString = configSnapshot.getProperty(p);
 		if(valueString == null)
 		{
 			throw new NullPointerException(this.getClass().getName()+
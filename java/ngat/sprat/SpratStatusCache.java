@@ -0,0 +1,332 @@
+// SpratStatusCache.java
+// $HeadURL$
+package ngat.sprat;
+
+import java.lang.*;
+import java.util.*;
+
+import ngat.util.logging.*;
+
+/**
+ * This class holds a timestamped snapshot of the status data returned by GET_STATUS. The status
+ * keywords are held in groups (i.e. the basic exposure status retrieved from the CCD C layer, and the
+ * intermediate status retrieved from the CCD C layer and mechanism Arduino), each group is
+ * refreshed as a whole, either by the SpratStatusSampler thread or by a live GET_STATUS.
+ * Each keyword has a maximum age, configured using properties of the form:
+ * <pre>
+ * sprat.get_status.cache.max_age.&lt;keyword&gt;
+ * </pre>
+ * Spaces in the keyword are replaced by '.', and if no property exists for the keyword, successively
+ * shorter prefixes of the keyword (split at '.') are tried. i.e. for "Mechanism.Temperature.0",
+ * <b>sprat.get_status.cache.max_age.Mechanism.Temperature.0</b>,
+ * <b>sprat.get_status.cache.max_age.Mechanism.Temperature</b> and
+ * <b>sprat.get_status.cache.max_age.Mechanism</b> are tried, before falling back to
+ * <b>sprat.get_status.cache.max_age</b>.
+ * @author Chris Mottram
+ * @version $Revision$
+ * @see SpratStatusSampler
+ * @see GET_STATUSImplementation
+ */
+public class SpratStatusCache
+{
+	/**
+	 * Revision Control System id string, showing the version of the Class.
+	 */
+	public final static String RCSID = new String("$Id$");
+	/**
+	 * The default maximum age of a status keyword's value, in milliseconds. Used if no
+	 * <b>sprat.get_status.cache.max_age</b> property is defined.
+	 */
+	public final static long DEFAULT_MAX_AGE = 10000;
+	/**
+	 * The root of the property keywords used to configure the maximum age of status keywords.
+	 */
+	public final static String MAX_AGE_PROPERTY_KEY_ROOT = new String("sprat.get_status.cache.max_age");
+	/**
+	 * The status object, used to retrieve the maximum age configuration.
+	 */
+	protected SpratStatus status = null;
+	/**
+	 * A Hashtable of groups. Each key is a group name, the data is another Hashtable, mapping
+	 * status keywords to instances of SpratStatusCacheEntry.
+	 * @see SpratStatusCacheEntry
+	 */
+	protected Hashtable<String,Hashtable<String,SpratStatusCacheEntry>> groupTable = null;
+	/**
+	 * A Hashtable of the maximum age of each status keyword (in milliseconds), so the properties
+	 * are only searched once per keyword.
+	 * @see #getMaxAge
+	 */
+	protected Hashtable<String,Long> maxAgeTable = null;
+	/**
+	 * The number of mechanism moves currently in progress. Whilst this is non-zero the Arduino is busy
+	 * (it only serves one client at a time), so the status sampler does not query it.
+	 * @see #startMechanismActivity
+	 * @see #endMechanismActivity
+	 */
+	protected int mechanismActivityCount = 0;
+
+	/**
+	 * Constructor.
+	 * @param s The status object, used to retrieve the maximum age configuration.
+	 * @see #status
+	 * @see #groupTable
+	 * @see #maxAgeTable
+	 */
+	public SpratStatusCache(SpratStatus s)
+	{
+		super();
+		status = s;
+		groupTable = new Hashtable<String,Hashtable<String,SpratStatusCacheEntry>>();
+		maxAgeTable = new Hashtable<String,Long>();
+	}
+
+	/**
+	 * Update a group of status keywords. The previous contents of the group are replaced by
+	 * the contents of the specified table, timestamped with the current time.
+	 * @param groupName The name of the group to update.
+	 * @param table A table of status keywords and values.
+	 * @see #groupTable
+	 */
+	public synchronized void update(String groupName,Hashtable table)
+	{
+		Hashtable<String,SpratStatusCacheEntry> entryTable = null;
+		Enumeration e = null;
+		Object key = null;
+		long timestamp;
+
+		timestamp = System.currentTimeMillis();
+		entryTable = new Hashtable<String,SpratStatusCacheEntry>();
+		e = table.keys();
+		while(e.hasMoreElements())
+		{
+			key = e.nextElement();
+			entryTable.put(key.toString(),new SpratStatusCacheEntry(table.get(key),timestamp));
+		}
+		groupTable.put(groupName,entryTable);
+	}
+
+	/**
+	 * Invalidate a group of status keywords, so the next GET_STATUS will retrieve them live.
+	 * This should be called when something is done that changes the status, i.e. a mechanism is moved.
+	 * The values are kept (with a zero timestamp, so the group is never fresh), so copy can still return
+	 * the last values whilst live values cannot be retrieved.
+	 * @param groupName The name of the group to invalidate.
+	 * @see #groupTable
+	 * @see #isFresh
+	 * @see #copy
+	 */
+	public synchronized void invalidate(String groupName)
+	{
+		Hashtable<String,SpratStatusCacheEntry> entryTable = null;
+		String key = null;
+
+		entryTable = groupTable.get(groupName);
+		if(entryTable == null)
+			return;
+		for(Enumeration<String> e = entryTable.keys(); e.hasMoreElements();)
+		{
+			key = e.nextElement();
+			entryTable.put(key,new SpratStatusCacheEntry(entryTable.get(key).getValue(),0L));
+		}
+	}
+
+	/**
+	 * Note that a mechanism move (which holds a connection or session to the Arduino) has started.
+	 * Each call must be matched by a call to endMechanismActivity.
+	 * @see #mechanismActivityCount
+	 * @see #endMechanismActivity
+	 */
+	public synchronized void startMechanismActivity()
+	{
+		mechanismActivityCount++;
+	}
+
+	/**
+	 * Note that a mechanism move started with startMechanismActivity has finished.
+	 * @see #mechanismActivityCount
+	 * @see #startMechanismActivity
+	 */
+	public synchronized void endMechanismActivity()
+	{
+		if(mechanismActivityCount > 0)
+			mechanismActivityCount--;
+	}
+
+	/**
+	 * Return whether any mechanism moves are in progress.
+	 * @return true if a mechanism move is in progress, false otherwise.
+	 * @see #mechanismActivityCount
+	 */
+	public synchronized boolean isMechanismActive()
+	{
+		return (mechanismActivityCount > 0);
+	}
+
+	/**
+	 * Clear the cached maximum ages, so they are re-read from the properties. This should be called
+	 * when the properties are reloaded.
+	 * @see #maxAgeTable
+	 */
+	public synchronized void clearMaxAges()
+	{
+		maxAgeTable.clear();
+	}
+
+	/**
+	 * Return whether a group of status keywords is fresh, i.e. the group exists and every keyword in it
+	 * is younger than it's maximum age.
+	 * @param groupName The name of the group.
+	 * @return true if the group is fresh, false if it is missing or any keyword's value is stale.
+	 * @see #groupTable
+	 * @see #getMaxAge
+	 */
+	public synchronized boolean isFresh(String groupName)
+	{
+		Hashtable<String,SpratStatusCacheEntry> entryTable = null;
+		SpratStatusCacheEntry entry = null;
+		String key = null;
+		long now;
+
+		entryTable = groupTable.get(groupName);
+		if(entryTable == null)
+			return false;
+		now = System.currentTimeMillis();
+		for(Enumeration<String> e = entryTable.keys(); e.hasMoreElements();)
+		{
+			key = e.nextElement();
+			entry = entryTable.get(key);
+			if((now-entry.getTimestamp()) > getMaxAge(key))
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Copy the cached values of a group of status keywords into the specified table. The values are copied
+	 * even if they are stale, or the group has been invalidated.
+	 * @param groupName The name of the group.
+	 * @param table The table to copy the values into.
+	 * @return true if the group was copied, false if the group is not in the cache.
+	 * @see #groupTable
+	 */
+	public synchronized boolean copy(String groupName,Hashtable table)
+	{
+		Hashtable<String,SpratStatusCacheEntry> entryTable = null;
+		String key = null;
+
+		entryTable = groupTable.get(groupName);
+		if(entryTable == null)
+			return false;
+		for(Enumeration<String> e = entryTable.keys(); e.hasMoreElements();)
+		{
+			key = e.nextElement();
+			table.put(key,entryTable.get(key).getValue());
+		}
+		return true;
+	}
+
+	/**
+	 * Get the maximum age of the specified status keyword, in milliseconds. See the class description
+	 * for how the property keyword is derived from the status keyword.
+	 * @param keyword The status keyword.
+	 * @return The maximum age of the keyword's value, in milliseconds.
+	 * @see #MAX_AGE_PROPERTY_KEY_ROOT
+	 * @see #DEFAULT_MAX_AGE
+	 * @see #maxAgeTable
+	 * @see #status
+	 */
+	protected long getMaxAge(String keyword)
+	{
+		Long maxAge = null;
+		String propertyKeyword = null;
+		int index;
+
+		maxAge = maxAgeTable.get(keyword);
+		if(maxAge != null)
+			return maxAge.longValue();
+		propertyKeyword = keyword.replace(' ','.');
+		while((maxAge == null)&&(propertyKeyword.length() > 0))
+		{
+			if(status.propertyContainsKey(MAX_AGE_PROPERTY_KEY_ROOT+"."+propertyKeyword))
+			{
+				try
+				{
+					maxAge = new Long(status.getPropertyLong(MAX_AGE_PROPERTY_KEY_ROOT+"."+
+										 propertyKeyword));
+				}
+				catch(NumberFormatException e)
+				{
+					maxAge = null;
+				}
+			}
+			index = propertyKeyword.lastIndexOf('.');
+			if(index > -1)
+				propertyKeyword = propertyKeyword.substring(0,index);
+			else
+				propertyKeyword = "";
+		}
+		if(maxAge == null)
+		{
+			maxAge = new Long(DEFAULT_MAX_AGE);
+			try
+			{
+				if(status.propertyContainsKey(MAX_AGE_PROPERTY_KEY_ROOT))
+					maxAge = new Long(status.getPropertyLong(MAX_AGE_PROPERTY_KEY_ROOT));
+			}
+			catch(NumberFormatException e)
+			{
+				maxAge = new Long(DEFAULT_MAX_AGE);
+			}
+		}
+		maxAgeTable.put(keyword,maxAge);
+		return maxAge.longValue();
+	}
+
+	/**
+	 * A cached status value, and the time it was retrieved.
+	 */
+	protected class SpratStatusCacheEntry
+	{
+		/**
+		 * The status value.
+		 */
+		protected Object value = null;
+		/**
+		 * The time the value was retrieved, in milliseconds since the epoch.
+		 */
+		protected long timestamp = 0;
+
+		/**
+		 * Constructor.
+		 * @param value The status value.
+		 * @param timestamp The time the value was retrieved, in milliseconds since the epoch.
+		 */
+		public SpratStatusCacheEntry(Object value,long timestamp)
+		{
+			super();
+			this.value = value;
+			this.timestamp = timestamp;
+		}
+
+		/**
+		 * Get the status value.
+		 * @return The value.
+		 * @see #value
+		 */
+		public Object getValue()
+		{
+			return value;
+		}
+
+		/**
+		 * Get the time the value was retrieved.
+		 * @return The timestamp, in milliseconds since the epoch.
+		 * @see #timestamp
+		 */
+		public long getTimestamp()
+		{
+			return timestamp;
+		}
+	}
+}
@@ -0,0 +1,148 @@
+// SpratStatusSampler.java
+// $HeadURL$
+package ngat.sprat;
+
+import java.lang.*;
+import java.util.*;
+
+import ngat.util.logging.*;
+
+/**
+ * This class is a thread that periodically samples the basic and intermediate GET_STATUS data
+ * from the CCD C layer and mechanism Arduino, and stores it in the SpratStatusCache.
+ * GET_STATUS can then be answered from the cache, rather than querying the hardware every time the RCS
+ * polls the status. The sample period is retrieved from the <b>sprat.get_status.cache.refresh_time</b> property,
+ * which should be no faster than the RCS polls GET_STATUS. The mechanism Arduino is not sampled whilst a
+ * mechanism move is in progress.
+ * @author Chris Mottram
+ * @version $Revision$
+ * @see SpratStatusCache
+ * @see GET_STATUSImplementation#sampleStatus
+ */
+public class SpratStatusSampler extends Thread
+{
+	/**
+	 * Revision Control System id string, showing the version of the Class.
+	 */
+	public final static String RCSID = new String("$Id$");
+	/**
+	 * The default time between samples, in milliseconds. Used if the
+	 * <b>sprat.get_status.cache.refresh_time</b> property is not defined.
+	 */
+	public final static int DEFAULT_REFRESH_TIME = 10000;
+	/**
+	 * Field holding the instance of Sprat currently executing, used to access error handling routines etc.
+	 */
+	private Sprat sprat = null;
+	/**
+	 * The cache to store the sampled status in.
+	 */
+	private SpratStatusCache statusCache = null;
+	/**
+	 * Whether the thread should stop sampling and terminate.
+	 */
+	private volatile boolean quit = false;
+
+	/**
+	 * The constructor.
+	 * @param name The name of the thread.
+	 */
+	public SpratStatusSampler(String name)
+	{
+		super(name);
+		setDaemon(true);
+	}
+
+	/**
+	 * Routine to set this objects pointer to the Sprat object.
+	 * @param o The Sprat object.
+	 */
+	public void setSprat(Sprat o)
+	{
+		this.sprat = o;
+	}
+
+	/**
+	 * Set the cache the sampled status is stored in.
+	 * @param c The cache.
+	 * @see #statusCache
+	 */
+	public void setStatusCache(SpratStatusCache c)
+	{
+		this.statusCache = c;
+	}
+
+	/**
+	 * Stop the thread sampling, and terminate.
+	 * @see #quit
+	 */
+	public void quit()
+	{
+		quit = true;
+		interrupt();
+	}
+
+	/**
+	 * Run method, called when the thread is started. Until quit is called, a GET_STATUSImplementation is
+	 * created and it's sampleStatus method called to update the status cache, then the thread sleeps
+	 * for the refresh time.
+	 * @see #quit
+	 * @see #statusCache
+	 * @see #getRefreshTime
+	 * @see GET_STATUSImplementation#init
+	 * @see GET_STATUSImplementation#sampleStatus
+	 */
+	public void run()
+	{
+		GET_STATUSImplementation getStatusImplementation = null;
+
+		sprat.log(Logging.VERBOSITY_VERBOSE,this.getClass().getName()+":run:Started.");
+		while(quit == false)
+		{
+			try
+			{
+				getStatusImplementation = new GET_STATUSImplementation();
+				getStatusImplementation.setSprat(sprat);
+				getStatusImplementation.init(null);
+				getStatusImplementation.sampleStatus(statusCache);
+			}
+			catch(Exception e)
+			{
+				sprat.error(this.getClass().getName()+":run:Sampling status failed:",e);
+			}
+			try
+			{
+				Thread.sleep(getRefreshTime());
+			}
+			catch(InterruptedException e)
+			{
+				// quit is normally the reason we were interrupted
+			}
+		}
+		sprat.log(Logging.VERBOSITY_VERBOSE,this.getClass().getName()+":run:Finished.");
+	}
+
+	/**
+	 * Get the time between samples, from the <b>sprat.get_status.cache.refresh_time</b> property.
+	 * @return The time between samples, in milliseconds.
+	 * @see #DEFAULT_REFRESH_TIME
+	 */
+	protected int getRefreshTime()
+	{
+		SpratStatus status = null;
+		int refreshTime = DEFAULT_REFRESH_TIME;
+
+		status = sprat.getStatus();
+		try
+		{
+			if(status.propertyContainsKey("sprat.get_status.cache.refresh_time"))
+				refreshTime = status.getPropertyInteger("sprat.get_status.cache.refresh_time");
+		}
+		catch(NumberFormatException e)
+		{
+			sprat.error(this.getClass().getName()+":getRefreshTime:Failed to get refresh time:",e);
+			refreshTime = DEFAULT_REFRESH_TIME;
+		}
+		return refreshTime;
+	}
+}
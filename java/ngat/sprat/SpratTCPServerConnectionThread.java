@@ -54,6 +54,14 @@ public class SpratTCPServerConnectionThread extends TCPServerConnectionThread
 	 * @see #processCommand
 	 */
 	private boolean abortProcessCommand = false;
+	/**
+	 * The cancellation token fired when this thread is requested to stop processing it's command.
+	 * Whatever the command implementation is blocked on registers a listener with the token,
+	 * so it is stopped immediately rather than when the implementation next polls abortProcessCommand.
+	 * @see #setAbortProcessCommand
+	 * @see #getAbortToken
+	 */
+	private SpratAbortToken abortToken = new SpratAbortToken();
 	/**
 	 * Field holding the results of the JMSCommandImplementation.calculateAcknowledgeTime call in
 	 * the calculateAcknowledgeTime method over-ridden from the default. We need this when
@@ -62,6 +70,14 @@ public class SpratTCPServerConnectionThread extends TCPServerConnectionThread
 	 * @see #commandImplementation
 	 */
 	private int acknowledgeTime = 0;
+	/**
+	 * The earliest time (in milliseconds since the epoch) the command can complete, or zero if not known.
+	 * Used to stop acknowledgements sent during a long running operation (i.e. those forwarded from
+	 * the DpRt during a MULTRUN) bringing the client's timeout forward of the end of the operation.
+	 * @see #setMinimumCompletionTime
+	 * @see #sendAcknowledge(ACK)
+	 */
+	private long minimumCompletionTime = 0;
 
 	/**
 	 * Constructor of the thread. This just calls the superclass constructors.
@@ -72,6 +88,27 @@ public class SpratTCPServerConnectionThread extends TCPServerConnectionThread
 		super(connectionSocket);
 	}
 
+	/**
+	 * Run method. This calls the superclass's run method to receive, implement and reply to the command.
+	 * The command implementation is then returned to the Sprat object's pool of implementations, so it
+	 * can be reused by a later command.
+	 * @see #commandImplementation
+	 * @see Sprat#releaseImplementation
+	 */
+	public void run()
+	{
+		try
+		{
+			super.run();
+		}
+		finally
+		{
+			if((sprat != null)&&(command != null)&&(commandImplementation != null))
+				sprat.releaseImplementation(command.getClass().getName(),commandImplementation);
+			commandImplementation = null;
+		}
+	}
+
 	/**
 	 * Class method to set the value of <a href="#defaultAcknowledgeTime">defaultAcknowledgeTime</a>. 
 	 * @param m The default acknowledge time in milliseconds.
@@ -129,11 +166,19 @@ public class SpratTCPServerConnectionThread extends TCPServerConnectionThread
 	 * operation it has half completed - e.g. switch the autoguider off.
 	 * The rest of this thread's run method should then execute
 	 * to send the DONE message back to the client.
+	 * The abort token is then fired (outside this thread's lock), which stops whatever the processCommand
+	 * method is currently blocked on.
 	 * @see #abortProcessCommand
+	 * @see #abortToken
+	 * @see SpratAbortToken#abort
 	 */
-	public synchronized void setAbortProcessCommand()
+	public void setAbortProcessCommand()
 	{
-		abortProcessCommand = true;
+		synchronized(this)
+		{
+			abortProcessCommand = true;
+		}
+		abortToken.abort();
 	}
 
 	/**
@@ -146,6 +191,16 @@ public class SpratTCPServerConnectionThread extends TCPServerConnectionThread
 		return abortProcessCommand;
 	}
 
+	/**
+	 * Method to return the cancellation token fired when this thread is requested to stop what it is processing.
+	 * @return The token.
+	 * @see #abortToken
+	 */
+	public SpratAbortToken getAbortToken()
+	{
+		return abortToken;
+	}
+
 	/**
 	 * This method is called after the clients command is read over the socket. It allows us to
 	 * initialise this threads response to a command. This method changes the threads priority now 
@@ -285,15 +340,52 @@ public class SpratTCPServerConnectionThread extends TCPServerConnectionThread
 	 * @exception NullPointerException If the acknowledge object is null this exception is thrown.
 	 * @exception IOException If the acknowledge object fails to be sent an IOException results.
 	 * @see #acknowledgeTime
-	 * @see ngat.net.TCPServerConnectionThread#sendAcknowledge
+	 * @see #sendAcknowledge(ACK)
 	 */
 	public void sendAcknowledge(ACK acknowledge,boolean setThreadAckTime) throws IOException
 	{
 		if(setThreadAckTime)
 			acknowledgeTime = acknowledge.getTimeToComplete();
+		sendAcknowledge(acknowledge);
+	}
+
+	/**
+	 * This routine sends an acknowledge back to the client. Acknowledges can be sent by more than one
+	 * thread at once (i.e. the thread processing a MULTRUN, and the threads forwarding acknowledges from
+	 * the DpRt for the MULTRUN's reductions), so this method is synchronized to stop them being interleaved
+	 * on the socket. If a minimum completion time has been set, the acknowledge's time to complete is increased
+	 * if necessary so the client waits until at least then.
+	 * @param acknowledge The acknowledge object to send back to the client.
+	 * @exception NullPointerException If the acknowledge object is null this exception is thrown.
+	 * @exception IOException If the acknowledge object fails to be sent an IOException results.
+	 * @see #minimumCompletionTime
+	 * @see ngat.net.TCPServerConnectionThread#sendAcknowledge
+	 */
+	public synchronized void sendAcknowledge(ACK acknowledge) throws IOException
+	{
+		long remainingTime;
+
+		if(minimumCompletionTime > 0)
+		{
+			remainingTime = minimumCompletionTime-System.currentTimeMillis();
+			if(remainingTime > acknowledge.getTimeToComplete())
+				acknowledge.setTimeToComplete((int)remainingTime);
+		}
 		super.sendAcknowledge(acknowledge);
 	}
 
+	/**
+	 * Set the earliest time the command can complete. Acknowledges sent after this call will keep the client
+	 * waiting until at least this time.
+	 * @param t The time, in milliseconds since the epoch, or zero to clear the minimum completion time.
+	 * @see #minimumCompletionTime
+	 * @see #sendAcknowledge(ACK)
+	 */
+	public synchronized void setMinimumCompletionTime(long t)
+	{
+		minimumCompletionTime = t;
+	}
+
 	/**
 	 * Return the initial time the implementation thought it would take to complete this command.
 	 * @return The acknowledge time, zero if the calculateAcknowledgTime routine has not been called yet,
@@ -0,0 +1,190 @@
+// SpratWCSContext.java
+// $HeadURL$
+package ngat.sprat;
+
+import java.lang.*;
+
+import ngat.astrometry.*;
+
+/**
+ * This class holds the World Coordinate System of one reduced (WCS fitted) FITS image, so that any number of
+ * pixel to world (or world to pixel) coordinate transforms can be done against it without re-reading the
+ * FITS file. The WCSTools handle is created when an image is opened, and kept until a different image is
+ * opened or the context is closed. Transforms are done in batches, from/to arrays of coordinates
+ * supplied by the caller, so a caller transforming several positions (target, slit position,
+ * moving target track points) against a frame does not need to create any intermediate objects.
+ * @author Chris Mottram
+ * @version $Revision$
+ * @see ngat.astrometry.WCSTools
+ */
+public class SpratWCSContext
+{
+	/**
+	 * Revision Control System id string, showing the version of the Class.
+	 */
+	public final static String RCSID = new String("$Id$");
+	/**
+	 * The verbosity passed to WCSTools when reading the WCS from a FITS file.
+	 */
+	public final static int WCS_VERBOSITY = 3;
+	/**
+	 * The WCSTools handle of the currently open image, or null if no image is open.
+	 */
+	protected WCSToolsWorldCoorHandle handle = null;
+	/**
+	 * The filename of the currently open image, or null if no image is open.
+	 */
+	protected String filename = null;
+
+	/**
+	 * Constructor.
+	 */
+	public SpratWCSContext()
+	{
+		super();
+	}
+
+	/**
+	 * Open the specified reduced FITS image, reading it's World Coordinate System. If the image is already
+	 * open the existing handle is re-used and the file is not re-read. If a different image is open it's
+	 * handle is freed first.
+	 * @param filename The filename of a WCS fitted FITS image.
+	 * @exception Exception Thrown if the filename is null, or WCSTools fails to read the WCS, or fails to free
+	 *            the previous handle.
+	 * @see #handle
+	 * @see #filename
+	 * @see #close
+	 * @see #WCS_VERBOSITY
+	 * @see ngat.astrometry.WCSTools#getWCSFITS
+	 */
+	public void open(String filename) throws Exception
+	{
+		if(filename == null)
+			throw new Exception(this.getClass().getName()+":open:filename was null.");
+		if((handle != null)&&filename.equals(this.filename))
+			return;
+		close();
+		handle = WCSTools.getWCSFITS(filename,WCS_VERBOSITY);
+		this.filename = filename;
+	}
+
+	/**
+	 * Return whether an image is currently open.
+	 * @return true if an image is open, false otherwise.
+	 * @see #handle
+	 */
+	public boolean isOpen()
+	{
+		return (handle != null);
+	}
+
+	/**
+	 * Get the filename of the currently open image.
+	 * @return The filename, or null if no image is open.
+	 * @see #filename
+	 */
+	public String getFilename()
+	{
+		return filename;
+	}
+
+	/**
+	 * Transform a batch of pixel positions on the open image into world coordinates.
+	 * @param xPixel An array of X pixel positions, in the binned pixels of the image.
+	 * @param yPixel An array of Y pixel positions, in the binned pixels of the image.
+	 * @param raDegs An array, filled in with the RA of each position, in decimal degrees.
+	 * @param decDegs An array, filled in with the declination of each position, in decimal degrees.
+	 * @param count The number of positions to transform, from the start of the arrays.
+	 * @exception Exception Thrown if no image is open, an array is too short, or a transform fails.
+	 * @see #handle
+	 * @see #checkBatch
+	 * @see ngat.astrometry.WCSTools#pixelToWCS
+	 */
+	public void pixelToWorld(double xPixel[],double yPixel[],double raDegs[],double decDegs[],int count)
+		throws Exception
+	{
+		WCSToolsCoordinate coordinate = null;
+
+		checkBatch("pixelToWorld",xPixel,yPixel,raDegs,decDegs,count);
+		for(int i = 0; i < count; i++)
+		{
+			coordinate = WCSTools.pixelToWCS(handle,xPixel[i],yPixel[i]);
+			raDegs[i] = coordinate.getXCoordinate();
+			decDegs[i] = coordinate.getYCoordinate();
+		}
+	}
+
+	/**
+	 * Transform a batch of world coordinates into pixel positions on the open image.
+	 * @param raDegs An array of RAs, in decimal degrees.
+	 * @param decDegs An array of declinations, in decimal degrees.
+	 * @param xPixel An array, filled in with the X pixel position of each coordinate, in the binned pixels
+	 *        of the image.
+	 * @param yPixel An array, filled in with the Y pixel position of each coordinate, in the binned pixels
+	 *        of the image.
+	 * @param count The number of coordinates to transform, from the start of the arrays.
+	 * @exception Exception Thrown if no image is open, an array is too short, or a transform fails.
+	 * @see #handle
+	 * @see #checkBatch
+	 * @see ngat.astrometry.WCSTools#wcsToPixel
+	 */
+	public void worldToPixel(double raDegs[],double decDegs[],double xPixel[],double yPixel[],int count)
+		throws Exception
+	{
+		WCSToolsCoordinate coordinate = null;
+
+		checkBatch("worldToPixel",raDegs,decDegs,xPixel,yPixel,count);
+		for(int i = 0; i < count; i++)
+		{
+			coordinate = WCSTools.wcsToPixel(handle,raDegs[i],decDegs[i]);
+			xPixel[i] = coordinate.getXCoordinate();
+			yPixel[i] = coordinate.getYCoordinate();
+		}
+	}
+
+	/**
+	 * Free the WCSTools handle of the currently open image, if there is one.
+	 * @exception Exception Thrown if WCSTools fails to free the handle.
+	 * @see #handle
+	 * @see #filename
+	 * @see ngat.astrometry.WCSTools#wcsFree
+	 */
+	public void close() throws Exception
+	{
+		WCSToolsWorldCoorHandle oldHandle = null;
+
+		if(handle == null)
+			return;
+		// clear the fields first, so a failed free does not leave a freed handle in use
+		oldHandle = handle;
+		handle = null;
+		filename = null;
+		WCSTools.wcsFree(oldHandle);
+	}
+
+	/**
+	 * Check an image is open, and the arrays of a batch transform are long enough.
+	 * @param methodName The name of the calling method, used in the exception message.
+	 * @param inputX The first input coordinate array.
+	 * @param inputY The second input coordinate array.
+	 * @param outputX The first output coordinate array.
+	 * @param outputY The second output coordinate array.
+	 * @param count The number of coordinates to transform.
+	 * @exception Exception Thrown if no image is open, or an array is null or shorter than count.
+	 * @see #handle
+	 */
+	protected void checkBatch(String methodName,double inputX[],double inputY[],double outputX[],
+				  double outputY[],int count) throws Exception
+	{
+		if(handle == null)
+			throw new Exception(this.getClass().getName()+":"+methodName+":No image open.");
+		if((inputX == null)||(inputY == null)||(outputX == null)||(outputY == null))
+			throw new Exception(this.getClass().getName()+":"+methodName+":Coordinate array was null.");
+		if((inputX.length < count)||(inputY.length < count)||(outputX.length < count)||
+		   (outputY.length < count))
+		{
+			throw new Exception(this.getClass().getName()+":"+methodName+":Coordinate arrays too short for "+
+					    count+" coordinates.");
+		}
+	}
+}
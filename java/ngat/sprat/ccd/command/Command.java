@@ -6,6 +6,7 @@ import java.io.*;
 import java.lang.*;
 import java.net.*;
 import java.text.*;
+import java.util.concurrent.*;
 
 import ngat.net.TelnetConnection;
 import ngat.net.TelnetConnectionListener;
@@ -28,6 +29,16 @@ public class Command implements Runnable, TelnetConnectionListener
 	 * ngat.net.TelnetConnection instance.
 	 */
 	protected TelnetConnection telnetConnection = null;
+	/**
+	 * The address of the C layer, kept so that a pooled connection can be used.
+	 * @see CommandConnectionPool
+	 */
+	protected InetAddress address = null;
+	/**
+	 * The port number of the C layer, kept so that a pooled connection can be used.
+	 * @see CommandConnectionPool
+	 */
+	protected int portNumber = 0;
 	/**
 	 * The command to send to the Sprat.
 	 */
@@ -45,13 +56,40 @@ public class Command implements Runnable, TelnetConnectionListener
 	 */
 	protected boolean commandFinished = false;
 	/**
-	 * A string containing the reply from the C layer.
+	 * A string containing the reply from the C layer. This is only created (from replyBuffer) when getReply
+	 * is called, the reply is parsed from replyBuffer.
+	 * @see #replyBuffer
+	 * @see #getReply
 	 */
 	protected String replyString = null;
 	/**
 	 * The parsed reply string, this is the reply with the initial number and space stripped off.
+	 * This is only created (from replyBuffer) when getParsedReply is called.
+	 * @see #parsedReplyStart
+	 * @see #getParsedReply
 	 */
 	protected String parsedReplyString = null;
+	/**
+	 * The index in replyBuffer of the start of the parsed reply (after the return code and space),
+	 * or -1 if the reply has not been parsed.
+	 * @see #parseReplyString
+	 * @see #getParsedReply
+	 */
+	protected int parsedReplyStart = -1;
+	/**
+	 * A tokenizer, re-used for each reply. After parseReplyString has been called, it is positioned at the start
+	 * of the parsed reply (after the return code), so subclasses can parse the rest of the reply from it without
+	 * creating a String for each token.
+	 * @see #parseReplyString
+	 */
+	protected ReplyTokenizer replyTokenizer = new ReplyTokenizer();
+	/**
+	 * A buffer the line(s) of the reply from the C layer are appended to, re-used for each reply.
+	 * @see #lineRead
+	 * @see #clearReply
+	 * @see #parseReplyString
+	 */
+	protected StringBuilder replyBuffer = null;
 	/**
 	 * Whether the reply string started with a number, and that number was '0', indicating the
 	 * command suceeded in some sense.
@@ -65,6 +103,46 @@ public class Command implements Runnable, TelnetConnectionListener
 	 * The logger to log messages to.
 	 */
 	protected Logger logger = null;
+	/**
+	 * The executor used to run the reader of each telnet connection's reply. If this is null, or the executor
+	 * rejects the reader, a new thread is created for the reader instead.
+	 * @see #setReaderExecutor
+	 * @see #startReader
+	 */
+	protected static ExecutorService readerExecutor = null;
+	/**
+	 * The log level used to filter log messages before they are built. Messages with a level greater than this
+	 * are not logged, and the strings making up the message are never concatenated.
+	 * @see #setLogLevel
+	 * @see #isLoggable
+	 */
+	protected static volatile int logLevel = Logging.ALL;
+	/**
+	 * Whether the command has been cancelled. Once set, the command fails rather than being (re-)sent.
+	 * @see #cancel
+	 */
+	protected volatile boolean cancelled = false;
+	/**
+	 * The pooled connection the command is currently being sent over, or null if the command is not being
+	 * sent over a pooled connection. Used by cancel to close the connection.
+	 * @see #sendPooledCommand
+	 * @see #cancel
+	 */
+	protected volatile CommandConnection activeConnection = null;
+	/**
+	 * The length of each exposure the command takes, in milliseconds. Used to extend the pooled
+	 * connection read timeout. Zero for commands that do not take an exposure.
+	 * @see #setReplyExposure
+	 * @see #getReplyTimeout
+	 */
+	protected long replyExposureLength = 0L;
+	/**
+	 * The number of frames the command takes (and reads out). Used to extend the pooled
+	 * connection read timeout.
+	 * @see #setReplyExposure
+	 * @see #getReplyTimeout
+	 */
+	protected int replyFrameCount = 1;
 
 	/**
 	 * Default constructor. Construct the TelnetConnection and set this object to be the listener.
@@ -88,6 +166,8 @@ public class Command implements Runnable, TelnetConnectionListener
 	 * @param commandString The string to send to the C layer as a command.
 	 * @see #logger
 	 * @see #telnetConnection
+	 * @see #address
+	 * @see #portNumber
 	 * @see #commandString
 	 * @exception UnknownHostException Thrown if the address in unknown.
 	 */
@@ -95,11 +175,16 @@ public class Command implements Runnable, TelnetConnectionListener
 	{
 		super();
 		logger = LogManager.getLogger(this);
-		logger.log(Logging.VERBOSITY_VERY_VERBOSE,
-			   "ngat.sprat.ccd.command.Command:Constructor:Setting telnet connection to "+
-			   address+":"+portNumber+".");
+		if(isLoggable(Logging.VERBOSITY_VERY_VERBOSE))
+		{
+			logger.log(Logging.VERBOSITY_VERY_VERBOSE,
+				   "ngat.sprat.ccd.command.Command:Constructor:Setting telnet connection to "+
+				   address+":"+portNumber+".");
+		}
 		telnetConnection = new TelnetConnection(address,portNumber);
 		telnetConnection.setListener(this);
+		this.address = InetAddress.getByName(address);
+		this.portNumber = portNumber;
 		this.commandString = commandString;
 	}
 
@@ -109,42 +194,57 @@ public class Command implements Runnable, TelnetConnectionListener
 	 *     "localhost", "192.168.1.4"
 	 * @exception UnknownHostException Thrown if the address in unknown.
 	 * @see #telnetConnection
+	 * @see #address
 	 * @see ngat.net.TelnetConnection#setAddress
 	 */
 	public void setAddress(String address) throws UnknownHostException
 	{
 		telnetConnection.setAddress(address);
-		logger.log(Logging.VERBOSITY_VERY_VERBOSE,
-			   "ngat.sprat.ccd.command.Command:setAddress:Setting telnet connection address to "+
-			   address+".");
+		this.address = InetAddress.getByName(address);
+		if(isLoggable(Logging.VERBOSITY_VERY_VERBOSE))
+		{
+			logger.log(Logging.VERBOSITY_VERY_VERBOSE,
+				   "ngat.sprat.ccd.command.Command:setAddress:Setting telnet connection address to "+
+				   address+".");
+		}
 	}
 
 	/**
 	 * Set the address.
 	 * @param address A instance of InetAddress representing the address of the server.
 	 * @see #telnetConnection
+	 * @see #address
 	 * @see ngat.net.TelnetConnection#setAddress
 	 */
 	public void setAddress(InetAddress address)
 	{
 		telnetConnection.setAddress(address);
-		logger.log(Logging.VERBOSITY_VERY_VERBOSE,
-			   "ngat.sprat.ccd.command.Command:setAddress:Setting telnet connection address to "+
-			   address+".");
+		this.address = address;
+		if(isLoggable(Logging.VERBOSITY_VERY_VERBOSE))
+		{
+			logger.log(Logging.VERBOSITY_VERY_VERBOSE,
+				   "ngat.sprat.ccd.command.Command:setAddress:Setting telnet connection address to "+
+				   address+".");
+		}
 	}
 
 	/**
 	 * Set the port number.
 	 * @param portNumber An integer representing the port number the server is receiving command on.
 	 * @see #telnetConnection
+	 * @see #portNumber
 	 * @see ngat.net.TelnetConnection#setPortNumber
 	 */
 	public void setPortNumber(int portNumber)
 	{
 		telnetConnection.setPortNumber(portNumber);
-		logger.log(Logging.VERBOSITY_VERY_VERBOSE,
-			   "ngat.sprat.ccd.command.Command:setAddress:Setting telnet connection port to "+
-			   portNumber+".");
+		this.portNumber = portNumber;
+		if(isLoggable(Logging.VERBOSITY_VERY_VERBOSE))
+		{
+			logger.log(Logging.VERBOSITY_VERY_VERBOSE,
+				   "ngat.sprat.ccd.command.Command:setAddress:Setting telnet connection port to "+
+				   portNumber+".");
+		}
 	}
 
 	/**
@@ -161,10 +261,10 @@ public class Command implements Runnable, TelnetConnectionListener
 	 * Run thread. Uses sendCommand to send the specified command over a telnet connection to the specified
 	 * address and port number.
 	 * Catches any errors and puts them into runException. commandFinished indicates when the command
-	 * has finished processing, replyString, parsedReplyString, parsedReplyOk contain the server replies.
+	 * has finished processing, replyBuffer, parsedReplyString, parsedReplyOk contain the server replies.
 	 * @see #commandString
 	 * @see #sendCommand
-	 * @see #replyString
+	 * @see #replyBuffer
 	 * @see #parsedReplyString
 	 * @see #parsedReplyOk
 	 * @see #runException
@@ -184,119 +284,451 @@ public class Command implements Runnable, TelnetConnectionListener
 	}
 
 	/**
-	 * Routine to send the specified command over a telnet connection to the specified
+	 * Routine to send the specified command to the specified address and port number, wait for a reply 
+	 * from the server, and try to parse the reply. If the CommandConnectionPool is enabled, 
+	 * sendPooledCommand is used to send the command over a persistent connection. If that fails
+	 * with an IOException before the C layer could have received the command (e.g. the C layer was restarted),
+	 * or the pool is not enabled, sendTelnetCommand is used to send the command over a new telnet connection.
+	 * Any reply from a previous send is discarded first, so a command object can be re-sent.
+	 * @exception Exception Thrown if an error occurs.
+	 * @see #address
+	 * @see #commandFinished
+	 * @see #clearReply
+	 * @see #sendPooledCommand
+	 * @see #sendTelnetCommand
+	 * @see #cancelled
+	 * @see #checkCancelled
+	 * @see CommandConnectionPool#isEnabled
+	 */
+	public void sendCommand() throws Exception
+	{
+		logger.log(Logging.VERBOSITY_VERY_VERBOSE,"ngat.sprat.ccd.command.Command:sendCommand:Started.");
+		commandFinished = false;
+		clearReply();
+		checkCancelled("sendCommand");
+		if(CommandConnectionPool.isEnabled() && (address != null))
+		{
+			try
+			{
+				sendPooledCommand();
+				return;
+			}
+			catch(IOException e)
+			{
+				// don't re-send a command that failed because it was cancelled
+				checkCancelled("sendCommand");
+				if(isLoggable(Logging.VERBOSITY_VERBOSE))
+				{
+					logger.log(Logging.VERBOSITY_VERBOSE,"ngat.sprat.ccd.command.Command:sendCommand:"+
+						   "Pooled connection failed, retrying using a telnet connection:"+e);
+				}
+			}
+		}
+		sendTelnetCommand();
+	}
+
+	/**
+	 * Routine to send the specified command over a persistent connection retrieved from
+	 * the CommandConnectionPool, read a single line reply, and try to parse the reply.
+	 * The connection is returned to the pool on success, and discarded if an I/O error occurs.
+	 * @exception IOException Thrown if getting a connection fails, writing the command fails, or the
+	 *            C layer closed the connection before any reply was read (an idle connection from the pool 
+	 *            has probably been closed by the C layer). In these cases the command has not
+	 *            been executed, and it is safe to re-send it.
+	 * @exception Exception Thrown if the connection fails or times out whilst reading the reply 
+	 *            (the C layer may already have started the command), or parsing the reply fails.
+	 * @see #address
+	 * @see #portNumber
+	 * @see #commandString
+	 * @see #commandFinished
+	 * @see #lineRead
+	 * @see #parseReplyString
+	 * @see CommandConnectionPool#getConnection
+	 * @see CommandConnectionPool#returnConnection
+	 * @see CommandConnectionPool#discardConnection
+	 * @see #getIntermediateReplyPrefix
+	 * @see CommandConnection#sendLine
+	 * @see CommandConnection#isResendable
+	 * @see #getReplyTimeout
+	 * @see #activeConnection
+	 * @see #checkCancelled
+	 */
+	protected void sendPooledCommand() throws IOException, Exception
+	{
+		CommandConnection connection = null;
+		String line = null;
+
+		connection = CommandConnectionPool.getConnection(address,portNumber);
+		if(isLoggable(Logging.VERBOSITY_INTERMEDIATE))
+		{
+			logger.log(Logging.VERBOSITY_INTERMEDIATE,
+				   "ngat.sprat.ccd.command.Command:sendPooledCommand:Sending Command:"+commandString);
+		}
+		activeConnection = connection;
+		try
+		{
+			// cancel may have been called before activeConnection was set
+			if(cancelled)
+				connection.abort();
+			line = connection.sendLine(commandString,getIntermediateReplyPrefix(),this,getReplyTimeout());
+		}
+		catch(IOException e)
+		{
+			CommandConnectionPool.discardConnection(connection);
+			checkCancelled("sendPooledCommand");
+			if(connection.isResendable())
+				throw e;
+			throw new Exception(this.getClass().getName()+":sendPooledCommand:Command '"+commandString+
+					    "' failed:"+e);
+		}
+		finally
+		{
+			activeConnection = null;
+		}
+		CommandConnectionPool.returnConnection(connection);
+		lineRead(line);
+		parseReplyString();
+		commandFinished = true;
+		if(isLoggable(Logging.VERBOSITY_VERY_VERBOSE))
+		{
+			logger.log(Logging.VERBOSITY_VERY_VERBOSE,"ngat.sprat.ccd.command.Command:sendPooledCommand:"+
+				   "Finished with reply string '"+replyBuffer+"'.");
+		}
+	}
+
+	/**
+	 * Routine to send the specified command over a new telnet connection to the specified
 	 * address and port number, wait for a reply from the server, and try to parse the reply.
 	 * @exception Exception Thrown if an error occurs.
 	 * @see #telnetConnection
 	 * @see #commandString
 	 * @see #commandFinished
 	 * @see #parseReplyString
+	 * @see #startReader
+	 * @see #checkCancelled
 	 */
-	public void sendCommand() throws Exception
+	protected void sendTelnetCommand() throws Exception
 	{
-		Thread thread = null;
+		Future<Object> reader = null;
 
-		logger.log(Logging.VERBOSITY_VERY_VERBOSE,"ngat.sprat.ccd.command.Command:sendCommand:Started.");
-		commandFinished = false;
 		logger.log(Logging.VERBOSITY_VERY_VERBOSE,
-			   "ngat.sprat.ccd.command.Command:sendCommand:Opening the Telnet Connection.");
+			   "ngat.sprat.ccd.command.Command:sendTelnetCommand:Opening the Telnet Connection.");
 		telnetConnection.open();
-		logger.log(Logging.VERBOSITY_VERY_VERBOSE,"ngat.sprat.ccd.command.Command:sendCommand:"+
-			   "Starting a reader thread to deal with the reply.");
-		thread = new Thread(telnetConnection,"Reader thread");
-		thread.start();
-		logger.log(Logging.VERBOSITY_INTERMEDIATE,
-			   "ngat.sprat.ccd.command.Command:sendCommand:Sending Command:"+commandString);
+		// cancel may have been called whilst the connection was being opened
+		if(cancelled)
+		{
+			telnetConnection.close();
+			checkCancelled("sendTelnetCommand");
+		}
+		logger.log(Logging.VERBOSITY_VERY_VERBOSE,"ngat.sprat.ccd.command.Command:sendTelnetCommand:"+
+			   "Starting a reader to deal with the reply.");
+		reader = startReader();
+		if(isLoggable(Logging.VERBOSITY_INTERMEDIATE))
+		{
+			logger.log(Logging.VERBOSITY_INTERMEDIATE,
+				   "ngat.sprat.ccd.command.Command:sendTelnetCommand:Sending Command:"+commandString);
+		}
 		telnetConnection.sendLine(commandString);
-		logger.log(Logging.VERBOSITY_VERY_VERBOSE,"ngat.sprat.ccd.command.Command:sendCommand:"+
-			   "Waiting for reader thread to finish (join).");
-		thread.join();
+		logger.log(Logging.VERBOSITY_VERY_VERBOSE,"ngat.sprat.ccd.command.Command:sendTelnetCommand:"+
+			   "Waiting for reader to finish.");
+		reader.get();
 		telnetConnection.close();
+		checkCancelled("sendTelnetCommand");
 		parseReplyString();
 		commandFinished = true;
-		logger.log(Logging.VERBOSITY_VERY_VERBOSE,
-			   "ngat.sprat.ccd.command.Command:sendCommand:Finished with reply string '"+replyString+"'.");
+		if(isLoggable(Logging.VERBOSITY_VERY_VERBOSE))
+		{
+			logger.log(Logging.VERBOSITY_VERY_VERBOSE,
+				   "ngat.sprat.ccd.command.Command:sendTelnetCommand:Finished with reply string '"+replyBuffer+"'.");
+		}
+	}
+
+	/**
+	 * Cancel the command (i.e. because the command that caused it to be sent has been aborted). 
+	 * This can be called from another thread whilst the command is waiting for a reply. 
+	 * The connection the command is being sent over is closed, so the wait ends immediately and the
+	 * command fails. Note this does not stop the C layer executing the command, an "abort" command
+	 * should be sent to do that. A cancelled command cannot be re-sent.
+	 * @see #cancelled
+	 * @see #activeConnection
+	 * @see #telnetConnection
+	 * @see CommandConnection#abort
+	 */
+	public void cancel()
+	{
+		CommandConnection connection = null;
+
+		cancelled = true;
+		connection = activeConnection;
+		if(connection != null)
+		{
+			connection.abort();
+			return;
+		}
+		try
+		{
+			telnetConnection.close();
+		}
+		catch(Exception e)
+		{
+			if(isLoggable(Logging.VERBOSITY_VERBOSE))
+			{
+				logger.log(Logging.VERBOSITY_VERBOSE,"ngat.sprat.ccd.command.Command:cancel:"+
+					   "Closing telnet connection failed:"+e);
+			}
+		}
+	}
+
+	/**
+	 * Return whether the command has been cancelled.
+	 * @return true if cancel has been called, false otherwise.
+	 * @see #cancelled
+	 */
+	public boolean isCancelled()
+	{
+		return cancelled;
+	}
+
+	/**
+	 * Throw an exception if the command has been cancelled.
+	 * @param methodName The name of the calling method, used in the exception message.
+	 * @exception Exception Thrown if the command has been cancelled.
+	 * @see #cancelled
+	 */
+	protected void checkCancelled(String methodName) throws Exception
+	{
+		if(cancelled)
+		{
+			throw new Exception(this.getClass().getName()+":"+methodName+":Command '"+commandString+
+					    "' cancelled.");
+		}
+	}
+
+	/**
+	 * Set the executor used to run the reader of each telnet connection's reply, so reader threads are
+	 * re-used rather than a new thread being created for every command.
+	 * @param executor The executor, or null to create a new thread per reader.
+	 * @see #readerExecutor
+	 */
+	public static void setReaderExecutor(ExecutorService executor)
+	{
+		readerExecutor = executor;
+	}
+
+	/**
+	 * Set the log level used to filter log messages before they are built. This is normally set to the
+	 * same level as the Sprat loggers.
+	 * @param level The log level.
+	 * @see #logLevel
+	 */
+	public static void setLogLevel(int level)
+	{
+		logLevel = level;
+	}
+
+	/**
+	 * Return whether a message of the specified level would be logged. Used to guard log calls
+	 * that build their message string, so the string is not built when it would be discarded.
+	 * @param level The level of the message.
+	 * @return true if the message should be logged, false otherwise.
+	 * @see #logLevel
+	 */
+	public static boolean isLoggable(int level)
+	{
+		return (level <= logLevel);
+	}
+
+	/**
+	 * Start reading the telnet connection's reply. The reader is run on readerExecutor if there is one, 
+	 * otherwise (or if the executor rejects it) in a new thread.
+	 * @return A future, which completes when the reader has read the reply and finished.
+	 * @see #telnetConnection
+	 * @see #readerExecutor
+	 */
+	protected Future<Object> startReader()
+	{
+		FutureTask<Object> reader = null;
+		Thread thread = null;
+
+		reader = new FutureTask<Object>(telnetConnection,null);
+		if(readerExecutor != null)
+		{
+			try
+			{
+				readerExecutor.execute(reader);
+				return reader;
+			}
+			catch(RejectedExecutionException e)
+			{
+				// fall through and start a new thread
+			}
+		}
+		thread = new Thread(reader,"Reader thread");
+		thread.start();
+		return reader;
+	}
+
+	/**
+	 * Set the exposure length and number of frames the command takes, so the read timeout of a pooled
+	 * connection allows for them. Called by the setCommand methods of commands that take exposures.
+	 * @param exposureLength The length of each exposure, in milliseconds.
+	 * @param frameCount The number of frames taken.
+	 * @see #replyExposureLength
+	 * @see #replyFrameCount
+	 */
+	protected void setReplyExposure(long exposureLength,int frameCount)
+	{
+		replyExposureLength = exposureLength;
+		replyFrameCount = frameCount;
+	}
+
+	/**
+	 * Get how long to wait for each line of the reply over a pooled connection. This is the pool timeout,
+	 * plus the exposure length, for each frame the command takes.
+	 * @return The timeout, in milliseconds. Zero (the pool timeout is zero) means wait forever.
+	 * @see #replyExposureLength
+	 * @see #replyFrameCount
+	 * @see CommandConnectionPool#getTimeout
+	 */
+	protected int getReplyTimeout()
+	{
+		long timeout;
+
+		if(CommandConnectionPool.getTimeout() == 0)
+			return 0;
+		timeout = ((long)Math.max(replyFrameCount,1))*(replyExposureLength+
+							      ((long)CommandConnectionPool.getTimeout()));
+		return (int)Math.min(timeout,(long)Integer.MAX_VALUE);
+	}
+
+	/**
+	 * Get the prefix of intermediate lines the C layer writes back before the reply to this command.
+	 * Over a pooled connection, these lines are passed to lineRead as they are read, and the command's reply
+	 * is the first line without the prefix. This implementation returns null, as most commands
+	 * only write back a single line reply. Streaming commands override this method.
+	 * @return The prefix, or null if the command does not write intermediate lines.
+	 * @see #sendPooledCommand
+	 * @see #lineRead
+	 */
+	protected String getIntermediateReplyPrefix()
+	{
+		return null;
+	}
+
+	/**
+	 * Discard any reply from a previous send, so the command object can be re-sent.
+	 * @see #replyString
+	 * @see #parsedReplyString
+	 * @see #parsedReplyStart
+	 * @see #replyBuffer
+	 */
+	protected void clearReply()
+	{
+		replyString = null;
+		parsedReplyString = null;
+		parsedReplyStart = -1;
+		if(replyBuffer != null)
+			replyBuffer.setLength(0);
 	}
 
 	/**
 	 * TelnetConnectionListener interface implementation.
 	 * Called for each line of text read by the TelnetConnection instance.
-	 * The string is copied/appended to the replyString.
+	 * The line is appended to the re-used replyBuffer, a String of the whole reply is only created if
+	 * getReply is called.
 	 * @param line The string read from the TelnetConnection.
 	 * @see #replyString
+	 * @see #replyBuffer
 	 */
 	public void lineRead(String line)
 	{
-		if(replyString == null)
-			replyString = line;
-		else
-			replyString = new String(replyString+line);
+		if(replyBuffer == null)
+			replyBuffer = new StringBuilder(line.length());
+		replyBuffer.append(line);
+		replyString = null;
 	}
 
 	/**
 	 * Parse a string returned from the server over the telnet connection.
+	 * The reply is parsed from replyBuffer, which the replyTokenizer is reset to.
 	 * @exception Exception Thrown if a parse error occurs.
-	 * @see #replyString
+	 * @see #replyBuffer
 	 * @see #parsedReplyString
 	 * @see #parsedReplyOk
 	 * @see #returnCode
+	 * @see #replyTokenizer
+	 * @see ReplyTokenizer#parseInt
 	 */
 	public void parseReplyString() throws Exception
 	{
 		int sindex;
-		String okString = null;
 
 		logger.log(Logging.VERBOSITY_VERY_VERBOSE,
 			   "ngat.sprat.ccd.command.Command:parseReplyString:Started.");
-		if(replyString == null)
+		if((replyBuffer == null)||(replyBuffer.length() == 0))
 		{
 			throw new Exception(this.getClass().getName()+
 					    ":parseReplyString:Reply string to command '"+commandString+"'was null.");
 		}
 		logger.log(Logging.VERBOSITY_VERY_VERBOSE,
 			   "ngat.sprat.ccd.command.Command:parseReplyString:Looking for space.");
-		sindex = replyString.indexOf(' ');
+		sindex = replyBuffer.indexOf(" ");
 		if(sindex < 0)
 		{
 			logger.log(Logging.VERBOSITY_VERY_VERBOSE,"ngat.sprat.ccd.command.Command:parseReplyString:"+
 				   "Failed to find space between return code and rest of reply. "+
 				   "About to throw an exception.");
 			parsedReplyString = null;
+			parsedReplyStart = -1;
 			parsedReplyOk = false;
 			throw new Exception(this.getClass().getName()+
 					    ":parseReplyString:Failed to detect space between error code and data in:"+
-					    replyString);
+					    replyBuffer);
+		}
+		returnCode = ReplyTokenizer.parseInt(replyBuffer,0,sindex);
+		// the parsed reply string is only created if getParsedReply is called
+		parsedReplyString = null;
+		parsedReplyStart = sindex+1;
+		replyTokenizer.reset(replyBuffer,parsedReplyStart,replyBuffer.length());
+		if(isLoggable(Logging.VERBOSITY_INTERMEDIATE))
+		{
+			logger.log(Logging.VERBOSITY_INTERMEDIATE,"ngat.sprat.ccd.command.Command:parseReplyString:"+
+				   "Command '"+commandString+"' returned return code '"+returnCode+
+				   "' and string '"+getParsedReply()+"'.");
 		}
-		okString = replyString.substring(0,sindex);
-		returnCode = Integer.parseInt(okString);
-		parsedReplyString = replyString.substring(sindex+1);
-		logger.log(Logging.VERBOSITY_INTERMEDIATE,"ngat.sprat.ccd.command.Command:parseReplyString:"+
-			   "Command '"+commandString+"' returned return code '"+returnCode+
-			   "' and string '"+parsedReplyString+"'.");
-		if(okString.equals("0"))
+		if(ReplyTokenizer.regionEquals(replyBuffer,0,sindex,"0"))
 			parsedReplyOk = true;
 		else
 			parsedReplyOk = false;
 	}
 
 	/**
-	 * Return the reply string
-	 * @return The FULL string returned from the server.
+	 * Return the reply string. The string is created from the replyBuffer the first time this is called
+	 * for each reply.
+	 * @return The FULL string returned from the server, or null if no reply has been read.
 	 * @see #replyString
+	 * @see #replyBuffer
 	 */
 	public String getReply()
 	{
+		if((replyString == null)&&(replyBuffer != null)&&(replyBuffer.length() > 0))
+			replyString = replyBuffer.toString();
 		return replyString;
 	}
 
 	/**
 	 * Return the reply string.
 	 * @return The PARSED string returned from the server. i.e. the reply with the initial return code 
-	 *          stripped off.
+	 *          stripped off, or null if the reply has not been parsed. The String is created from
+	 *          replyBuffer the first time this is called for each reply.
 	 * @see #parsedReplyString
+	 * @see #parsedReplyStart
+	 * @see #replyBuffer
 	 */
 	public String getParsedReply()
 	{
+		if((parsedReplyString == null)&&(parsedReplyStart >= 0)&&(replyBuffer != null))
+			parsedReplyString = replyBuffer.substring(parsedReplyStart);
 		return parsedReplyString;
 	}
 
@@ -398,9 +830,13 @@ public class Command implements Runnable, TelnetConnectionListener
 		String loggerNameStringArray[] = {"ngat.sprat.ccd.command.AbortCommand",
 						  "ngat.sprat.ccd.command.BiasCommand",
 						  "ngat.sprat.ccd.command.Command",
+						  "ngat.sprat.ccd.command.CommandConnection",
+						  "ngat.sprat.ccd.command.CommandConnectionPool",
 						  "ngat.sprat.ccd.command.ConfigCommand",
 						  "ngat.sprat.ccd.command.DarkCommand",
+						  "ngat.sprat.ccd.command.FetchLastFrameCommand",
 						  "ngat.sprat.ccd.command.FitsHeaderAddCommand",
+						  "ngat.sprat.ccd.command.FitsHeaderBatchCommand",
 						  "ngat.sprat.ccd.command.FitsHeaderClearCommand",
 						  "ngat.sprat.ccd.command.FitsHeaderDeleteCommand",
 						  "ngat.sprat.ccd.command.IntegerReplyCommand",
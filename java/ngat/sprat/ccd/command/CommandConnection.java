@@ -0,0 +1,341 @@
+// CommandConnection.java
+// $HeadURL$
+package ngat.sprat.ccd.command;
+
+import java.io.*;
+import java.lang.*;
+import java.net.*;
+
+import ngat.net.TelnetConnectionListener;
+import ngat.util.logging.*;
+
+/**
+ * The CommandConnection class holds a persistent socket connection to the Sprat control system C layer.
+ * On opening the connection a "session start" command is sent, which puts the C layer connection thread
+ * into session mode. In session mode the C layer reads a command, writes back a single line reply,
+ * and then waits for the next command on the same socket (rather than closing the connection as it does
+ * for normal commands). This allows one connection (and one reader) to be re-used for many commands,
+ * saving the TCP setup and thread creation time per command. Streaming commands (i.e. "multrun ... stream")
+ * write back intermediate lines before their single line reply, these are passed to a listener.
+ * Instances are normally obtained from the
+ * CommandConnectionPool, rather than created directly.
+ * @author Chris Mottram
+ * @version $Revision$
+ * @see CommandConnectionPool
+ */
+public class CommandConnection
+{
+	/**
+	 * Revision Control System id string, showing the version of the Class.
+	 */
+	public final static String RCSID = new String("$Id$");
+	/**
+	 * The command sent to the C layer to put the connection into session mode.
+	 */
+	public final static String SESSION_START_COMMAND = new String("session start");
+	/**
+	 * The command sent to the C layer to take the connection out of session mode. The C layer
+	 * closes the connection after replying to this command.
+	 */
+	public final static String SESSION_END_COMMAND = new String("session end");
+	/**
+	 * The address of the C layer.
+	 */
+	protected InetAddress address = null;
+	/**
+	 * The port number of the C layer.
+	 */
+	protected int portNumber = 0;
+	/**
+	 * The socket connected to the C layer. This is volatile as abort reads it without holding the lock.
+	 * @see #abort
+	 */
+	protected volatile Socket socket = null;
+	/**
+	 * The reader used to read replies from the C layer.
+	 */
+	protected BufferedReader reader = null;
+	/**
+	 * The writer used to send commands to the C layer.
+	 */
+	protected PrintWriter writer = null;
+	/**
+	 * The number of commands (other than the session start command) that have been replied to
+	 * over this connection.
+	 */
+	protected int commandCount = 0;
+	/**
+	 * Whether the last command sent with sendLine can safely be re-sent after sendLine failed. This is only
+	 * true if writing the command failed, or the C layer closed the connection before any reply was read.
+	 * If the read timed out or failed part way through the reply, the C layer may be running the command.
+	 * @see #sendLine(java.lang.String,java.lang.String,ngat.net.TelnetConnectionListener,int)
+	 */
+	protected boolean resendable = false;
+	/**
+	 * The logger to log messages to.
+	 */
+	protected Logger logger = null;
+
+	/**
+	 * Constructor.
+	 * @param address The address of the C layer.
+	 * @param portNumber The port number of the C layer.
+	 * @see #address
+	 * @see #portNumber
+	 * @see #logger
+	 */
+	public CommandConnection(InetAddress address,int portNumber)
+	{
+		super();
+		this.address = address;
+		this.portNumber = portNumber;
+		logger = LogManager.getLogger(this);
+	}
+
+	/**
+	 * Open the connection to the C layer, and put it into session mode by sending the
+	 * SESSION_START_COMMAND.
+	 * @exception IOException Thrown if the socket cannot be opened, or the C layer does not
+	 *            acknowledge the session start command.
+	 * The socket read timeout is set to the pool timeout.
+	 * @see #SESSION_START_COMMAND
+	 * @see #sendLine
+	 * @see #socket
+	 * @see #reader
+	 * @see #writer
+	 * @see CommandConnectionPool#getTimeout
+	 */
+	public void open() throws IOException
+	{
+		String reply = null;
+
+		if(Command.isLoggable(Logging.VERBOSITY_VERY_VERBOSE))
+		{
+			logger.log(Logging.VERBOSITY_VERY_VERBOSE,"ngat.sprat.ccd.command.CommandConnection:open:"+
+				   "Opening connection to "+address+":"+portNumber+".");
+		}
+		socket = new Socket(address,portNumber);
+		socket.setTcpNoDelay(true);
+		socket.setSoTimeout(CommandConnectionPool.getTimeout());
+		reader = new BufferedReader(new InputStreamReader(socket.getInputStream()));
+		writer = new PrintWriter(new OutputStreamWriter(socket.getOutputStream()));
+		reply = sendLine(SESSION_START_COMMAND);
+		commandCount = 0;
+		if(reply.startsWith("0 ") == false)
+		{
+			close();
+			throw new IOException(this.getClass().getName()+":open:Session start to "+address+":"+
+					      portNumber+" failed with reply:"+reply);
+		}
+		if(Command.isLoggable(Logging.VERBOSITY_VERY_VERBOSE))
+		{
+			logger.log(Logging.VERBOSITY_VERY_VERBOSE,"ngat.sprat.ccd.command.CommandConnection:open:"+
+				   "Session started to "+address+":"+portNumber+".");
+		}
+	}
+
+	/**
+	 * Send a command line to the C layer, and wait (up to the pool timeout) for a single line reply.
+	 * @param commandString The command to send.
+	 * @return The reply line read from the C layer.
+	 * @exception IOException Thrown if the connection is not open, writing fails, the read times out, or the
+	 *            C layer closes the connection before a reply is read.
+	 * @see #sendLine(java.lang.String,java.lang.String,ngat.net.TelnetConnectionListener,int)
+	 * @see CommandConnectionPool#getTimeout
+	 */
+	public String sendLine(String commandString) throws IOException
+	{
+		return sendLine(commandString,null,null,CommandConnectionPool.getTimeout());
+	}
+
+	/**
+	 * Send a command line to the C layer, and wait for the reply. Any intermediate lines (lines starting with
+	 * intermediateReplyPrefix) read before the reply are passed to the listener as they are read.
+	 * @param commandString The command to send.
+	 * @param intermediateReplyPrefix The prefix of intermediate lines written by the C layer before the reply,
+	 *        or null if the command does not write intermediate lines.
+	 * @param listener The listener to pass intermediate lines to, or null to discard them.
+	 * @param timeout The socket read timeout, in milliseconds, i.e. how long to wait for each line. 
+	 *        Zero means wait forever.
+	 * @return The reply line read from the C layer.
+	 * @exception IOException Thrown if the connection is not open, writing fails, a read times out, or the
+	 *            C layer closes the connection before a reply is read. Whether the command can safely be
+	 *            re-sent is returned by isResendable.
+	 * @see #writer
+	 * @see #reader
+	 * @see #resendable
+	 * @see #isResendable
+	 */
+	public synchronized String sendLine(String commandString,String intermediateReplyPrefix,
+					    TelnetConnectionListener listener,int timeout) throws IOException
+	{
+		String reply = null;
+
+		resendable = true;
+		if(isOpen() == false)
+		{
+			throw new IOException(this.getClass().getName()+":sendLine:Connection to "+address+":"+
+					      portNumber+" is not open.");
+		}
+		socket.setSoTimeout(timeout);
+		writer.print(commandString+"\n");
+		writer.flush();
+		if(writer.checkError())
+		{
+			throw new IOException(this.getClass().getName()+":sendLine:Failed to send '"+
+					      commandString+"' to "+address+":"+portNumber+".");
+		}
+		// the command has been sent, from now on it is only safe to re-send it if the C layer
+		// closes the connection before replying
+		resendable = false;
+		reply = reader.readLine();
+		if(reply == null)
+		{
+			resendable = true;
+			throw new IOException(this.getClass().getName()+":sendLine:Connection to "+address+":"+
+					      portNumber+" closed before replying to '"+commandString+"'.");
+		}
+		while((reply != null)&&(intermediateReplyPrefix != null)&&reply.startsWith(intermediateReplyPrefix))
+		{
+			if(listener != null)
+				listener.lineRead(reply);
+			reply = reader.readLine();
+		}
+		if(reply == null)
+		{
+			throw new IOException(this.getClass().getName()+":sendLine:Connection to "+address+":"+
+					      portNumber+" closed whilst waiting for reply to '"+commandString+"'.");
+		}
+		commandCount++;
+		return reply;
+	}
+
+	/**
+	 * Close the connection. A SESSION_END_COMMAND is sent first if the connection is still open,
+	 * any error whilst doing so is ignored.
+	 * @see #SESSION_END_COMMAND
+	 * @see #socket
+	 */
+	public synchronized void close()
+	{
+		if(socket == null)
+			return;
+		if(Command.isLoggable(Logging.VERBOSITY_VERY_VERBOSE))
+		{
+			logger.log(Logging.VERBOSITY_VERY_VERBOSE,"ngat.sprat.ccd.command.CommandConnection:close:"+
+				   "Closing connection to "+address+":"+portNumber+".");
+		}
+		try
+		{
+			if(socket.isClosed() == false)
+			{
+				writer.print(SESSION_END_COMMAND+"\n");
+				writer.flush();
+			}
+		}
+		catch(Exception e)
+		{
+			// ignore - we are closing the connection anyway
+		}
+		try
+		{
+			socket.close();
+		}
+		catch(IOException e)
+		{
+			if(Command.isLoggable(Logging.VERBOSITY_VERBOSE))
+			{
+				logger.log(Logging.VERBOSITY_VERBOSE,"ngat.sprat.ccd.command.CommandConnection:close:"+
+					   "Closing socket failed:"+e);
+			}
+		}
+		socket = null;
+		reader = null;
+		writer = null;
+	}
+
+	/**
+	 * Abort the connection, by closing the socket. Unlike close, this is not synchronized, so it can be called
+	 * from another thread whilst sendLine is blocked waiting for a reply (which then fails with an IOException).
+	 * No SESSION_END_COMMAND is sent, and the connection cannot be re-used afterwards.
+	 * @see #socket
+	 * @see #sendLine
+	 */
+	public void abort()
+	{
+		Socket abortSocket = null;
+
+		abortSocket = socket;
+		if(abortSocket == null)
+			return;
+		if(Command.isLoggable(Logging.VERBOSITY_VERBOSE))
+		{
+			logger.log(Logging.VERBOSITY_VERBOSE,"ngat.sprat.ccd.command.CommandConnection:abort:"+
+				   "Aborting connection to "+address+":"+portNumber+".");
+		}
+		try
+		{
+			abortSocket.close();
+		}
+		catch(IOException e)
+		{
+			if(Command.isLoggable(Logging.VERBOSITY_VERBOSE))
+			{
+				logger.log(Logging.VERBOSITY_VERBOSE,"ngat.sprat.ccd.command.CommandConnection:abort:"+
+					   "Closing socket failed:"+e);
+			}
+		}
+	}
+
+	/**
+	 * Return whether the connection is currently open.
+	 * @return true if the socket is connected and has not been closed, false otherwise.
+	 * @see #socket
+	 */
+	public synchronized boolean isOpen()
+	{
+		return (socket != null)&&socket.isConnected()&&(socket.isClosed() == false);
+	}
+
+	/**
+	 * Return the number of commands that have been replied to over this connection since it was opened.
+	 * A connection with a non-zero count has been re-used from the pool.
+	 * @return The number of commands.
+	 * @see #commandCount
+	 */
+	public synchronized int getCommandCount()
+	{
+		return commandCount;
+	}
+
+	/**
+	 * Return whether the last command sent with sendLine can safely be re-sent, after sendLine failed.
+	 * @return true if the command was not sent, or the C layer closed the connection before any reply
+	 *         was read, false otherwise.
+	 * @see #resendable
+	 */
+	public synchronized boolean isResendable()
+	{
+		return resendable;
+	}
+
+	/**
+	 * Return the address this connection is to.
+	 * @return The address.
+	 * @see #address
+	 */
+	public InetAddress getAddress()
+	{
+		return address;
+	}
+
+	/**
+	 * Return the port number this connection is to.
+	 * @return The port number.
+	 * @see #portNumber
+	 */
+	public int getPortNumber()
+	{
+		return portNumber;
+	}
+}
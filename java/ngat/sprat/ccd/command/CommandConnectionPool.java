@@ -0,0 +1,251 @@
+// CommandConnectionPool.java
+// $HeadURL$
+package ngat.sprat.ccd.command;
+
+import java.io.*;
+import java.lang.*;
+import java.net.*;
+import java.util.*;
+
+import ngat.util.logging.*;
+
+/**
+ * The CommandConnectionPool class keeps a pool of idle, persistent CommandConnection instances to the
+ * Sprat control system C layer, keyed by address and port number. Command.sendCommand uses a pooled
+ * connection (if the pool is enabled) rather than opening a new TelnetConnection per command.
+ * Concurrent commands (e.g. a status request whilst a multrun is in progress) each get their own connection,
+ * as the C layer handles each connection in it's own thread.
+ * @author Chris Mottram
+ * @version $Revision$
+ * @see CommandConnection
+ * @see Command#sendCommand
+ */
+public class CommandConnectionPool
+{
+	/**
+	 * Revision Control System id string, showing the version of the Class.
+	 */
+	public final static String RCSID = new String("$Id$");
+	/**
+	 * The default maximum number of idle connections kept per address/port number.
+	 */
+	public final static int DEFAULT_MAXIMUM_IDLE_COUNT = 4;
+	/**
+	 * The default socket read timeout of pooled connections, in milliseconds.
+	 */
+	public final static int DEFAULT_TIMEOUT = 60000;
+	/**
+	 * Whether the pool is enabled. If false, Command.sendCommand uses a new TelnetConnection per command.
+	 */
+	protected static boolean enabled = false;
+	/**
+	 * The maximum number of idle connections kept per address/port number.
+	 * Connections returned to a full pool are closed.
+	 */
+	protected static int maximumIdleCount = DEFAULT_MAXIMUM_IDLE_COUNT;
+	/**
+	 * The socket read timeout of pooled connections, in milliseconds. Commands that take longer than this
+	 * to reply (e.g. exposures) extend it, see Command.getReplyTimeout.
+	 * @see Command#getReplyTimeout
+	 */
+	protected static int timeout = DEFAULT_TIMEOUT;
+	/**
+	 * Hashtable of idle connections. The key is a String of the form "address:port", the data is a
+	 * Vector of idle CommandConnection instances.
+	 */
+	protected static Hashtable<String,Vector<CommandConnection>> idleConnectionTable =
+		new Hashtable<String,Vector<CommandConnection>>();
+	/**
+	 * The logger to log messages to.
+	 */
+	protected static Logger logger = LogManager.getLogger("ngat.sprat.ccd.command.CommandConnectionPool");
+
+	/**
+	 * Set whether the pool is enabled. If the pool is disabled, any idle connections are closed.
+	 * @param b true to enable the pool, false to disable it.
+	 * @see #enabled
+	 * @see #closeAll
+	 */
+	public static void setEnabled(boolean b)
+	{
+		enabled = b;
+		if(enabled == false)
+			closeAll();
+	}
+
+	/**
+	 * Return whether the pool is enabled.
+	 * @return true if the pool is enabled.
+	 * @see #enabled
+	 */
+	public static boolean isEnabled()
+	{
+		return enabled;
+	}
+
+	/**
+	 * Set the maximum number of idle connections kept per address/port number.
+	 * @param count The count.
+	 * @see #maximumIdleCount
+	 */
+	public static void setMaximumIdleCount(int count)
+	{
+		maximumIdleCount = count;
+	}
+
+	/**
+	 * Set the socket read timeout of pooled connections.
+	 * @param t The timeout, in milliseconds. Zero means wait forever.
+	 * @see #timeout
+	 */
+	public static void setTimeout(int t)
+	{
+		timeout = t;
+	}
+
+	/**
+	 * Get the socket read timeout of pooled connections.
+	 * @return The timeout, in milliseconds. Zero means wait forever.
+	 * @see #timeout
+	 */
+	public static int getTimeout()
+	{
+		return timeout;
+	}
+
+	/**
+	 * Get an open connection to the specified address and port number. An idle connection is
+	 * taken from the pool if one is available, otherwise a new connection is opened.
+	 * The caller must return the connection with returnConnection, or close it with
+	 * discardConnection if an error occured whilst using it.
+	 * @param address The address of the C layer.
+	 * @param portNumber The port number of the C layer.
+	 * @return An open connection.
+	 * @exception IOException Thrown if a new connection cannot be opened.
+	 * @see #idleConnectionTable
+	 * @see CommandConnection#open
+	 */
+	public static CommandConnection getConnection(InetAddress address,int portNumber) throws IOException
+	{
+		CommandConnection connection = null;
+		Vector<CommandConnection> idleList = null;
+
+		idleList = getIdleList(address,portNumber);
+		synchronized(idleList)
+		{
+			while((connection == null)&&(idleList.size() > 0))
+			{
+				connection = idleList.remove(idleList.size()-1);
+				if(connection.isOpen() == false)
+					connection = null;
+			}
+		}
+		if(connection == null)
+		{
+			if(Command.isLoggable(Logging.VERBOSITY_VERY_VERBOSE))
+			{
+				logger.log(Logging.VERBOSITY_VERY_VERBOSE,
+					   "ngat.sprat.ccd.command.CommandConnectionPool:getConnection:"+
+					   "Opening new connection to "+address+":"+portNumber+".");
+			}
+			connection = new CommandConnection(address,portNumber);
+			connection.open();
+		}
+		return connection;
+	}
+
+	/**
+	 * Return a connection to the pool, after a command has been successfully completed on it.
+	 * If the pool is full or disabled the connection is closed.
+	 * @param connection The connection to return.
+	 * @see #idleConnectionTable
+	 * @see #maximumIdleCount
+	 */
+	public static void returnConnection(CommandConnection connection)
+	{
+		Vector<CommandConnection> idleList = null;
+
+		if((enabled == false)||(connection.isOpen() == false))
+		{
+			connection.close();
+			return;
+		}
+		idleList = getIdleList(connection.getAddress(),connection.getPortNumber());
+		synchronized(idleList)
+		{
+			if(idleList.size() < maximumIdleCount)
+			{
+				idleList.add(connection);
+				return;
+			}
+		}
+		connection.close();
+	}
+
+	/**
+	 * Close a connection that has failed in some way, rather than returning it to the pool.
+	 * @param connection The connection to close.
+	 * @see CommandConnection#close
+	 */
+	public static void discardConnection(CommandConnection connection)
+	{
+		if(Command.isLoggable(Logging.VERBOSITY_VERBOSE))
+		{
+			logger.log(Logging.VERBOSITY_VERBOSE,"ngat.sprat.ccd.command.CommandConnectionPool:discardConnection:"+
+				   "Discarding connection to "+connection.getAddress()+":"+connection.getPortNumber()+".");
+		}
+		connection.close();
+	}
+
+	/**
+	 * Close all idle connections in the pool.
+	 * @see #idleConnectionTable
+	 */
+	public static void closeAll()
+	{
+		Vector<CommandConnection> idleList = null;
+
+		synchronized(idleConnectionTable)
+		{
+			for(Enumeration<Vector<CommandConnection>> e = idleConnectionTable.elements();
+			    e.hasMoreElements();)
+			{
+				idleList = e.nextElement();
+				synchronized(idleList)
+				{
+					for(int i = 0; i < idleList.size(); i++)
+					{
+						idleList.get(i).close();
+					}
+					idleList.clear();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Get the list of idle connections for the specified address and port number, creating an empty one
+	 * if necessary.
+	 * @param address The address of the C layer.
+	 * @param portNumber The port number of the C layer.
+	 * @return The Vector of idle connections.
+	 * @see #idleConnectionTable
+	 */
+	protected static Vector<CommandConnection> getIdleList(InetAddress address,int portNumber)
+	{
+		Vector<CommandConnection> idleList = null;
+		String key = null;
+
+		key = new String(address.getHostAddress()+":"+portNumber);
+		synchronized(idleConnectionTable)
+		{
+			idleList = idleConnectionTable.get(key);
+			if(idleList == null)
+			{
+				idleList = new Vector<CommandConnection>();
+				idleConnectionTable.put(key,idleList);
+			}
+		}
+		return idleList;
+	}
+}
@@ -52,10 +52,12 @@ public class DarkCommand extends MultrunFilenameReplyCommand implements Runnable
 	 * Setup the Dark command. 
 	 * @param exposureLength Set the length of the exposure in milliseconds.
 	 * @see #commandString
+	 * @see #setReplyExposure
 	 */
 	public void setCommand(int exposureLength)
 	{
 		commandString = new String("dark "+exposureLength);
+		setReplyExposure(exposureLength,1);
 	}
 
 	/**
@@ -0,0 +1,395 @@
+// FetchLastFrameCommand.java
+// $HeadURL$
+package ngat.sprat.ccd.command;
+
+import java.io.*;
+import java.lang.*;
+import java.net.*;
+import java.nio.*;
+import java.util.*;
+
+import ngat.util.logging.*;
+
+/**
+ * The "fetch last frame [&lt;bin&gt;]" command is an extension of the Command, and retrieves the image data of
+ * the most recently saved frame from the C layer, optionally binned down, for quick-look. The C layer replies
+ * with a line of the form "0 &lt;ncols&gt; &lt;nrows&gt; &lt;multrun number&gt; &lt;run number&gt; &lt;length&gt;",
+ * followed by &lt;length&gt; bytes of image data (unsigned shorts in network byte order), which are read straight
+ * into a ByteBuffer. As the reply is binary, the command is always sent over it's own socket, rather than
+ * a TelnetConnection or pooled CommandConnection (which read text lines).
+ * @author Chris Mottram
+ * @version $Revision$
+ * @see ngat.sprat.ccd.command.Command
+ */
+public class FetchLastFrameCommand extends Command implements Runnable
+{
+	/**
+	 * Revision Control System id string, showing the version of the Class.
+	 */
+	public final static String RCSID = new String("$Id$");
+	/**
+	 * The number of columns in the returned image.
+	 */
+	protected int ncols = 0;
+	/**
+	 * The number of rows in the returned image.
+	 */
+	protected int nrows = 0;
+	/**
+	 * The multrun number of the returned image.
+	 */
+	protected int multrunNumber = 0;
+	/**
+	 * The run number of the returned image.
+	 */
+	protected int runNumber = 0;
+	/**
+	 * The buffer the image data is read into. This is re-used by subsequent fetches if it is large enough,
+	 * so repeated quick-look fetches do not allocate a new buffer each time.
+	 */
+	protected ByteBuffer imageBuffer = null;
+
+	/**
+	 * Default constructor.
+	 * @see Command
+	 * @see #commandString
+	 */
+	public FetchLastFrameCommand()
+	{
+		super();
+		commandString = null;
+	}
+
+	/**
+	 * Constructor.
+	 * @param address A string representing the address of the server, i.e. "sprat",
+	 *     "localhost", "192.168.1.62"
+	 * @param portNumber An integer representing the port number the server is receiving command on.
+	 * @see Command
+	 * @see #address
+	 * @see #portNumber
+	 * @exception UnknownHostException Thrown if the address in unknown.
+	 */
+	public FetchLastFrameCommand(String address,int portNumber) throws UnknownHostException
+	{
+		super(address,portNumber,null);
+	}
+
+	/**
+	 * Setup the command to fetch the last frame unbinned.
+	 * @see #commandString
+	 */
+	public void setCommand()
+	{
+		commandString = new String("fetch last frame");
+	}
+
+	/**
+	 * Setup the command.
+	 * @param bin The binning factor to apply to the frame, 1 returns the frame as saved. Each returned pixel is the
+	 *        mean of a bin x bin block of frame pixels.
+	 * @see #commandString
+	 */
+	public void setCommand(int bin)
+	{
+		commandString = new String("fetch last frame "+bin);
+	}
+
+	/**
+	 * Send the command over a new socket to the C layer, read the reply line, and if it succeeded read the image
+	 * data into imageBuffer. The C layer replies straight away, so reads from the socket use the same timeout
+	 * as the pooled C layer connections, rather than blocking forever if the C layer stops responding.
+	 * @exception Exception Thrown if the address has not been set, an I/O error occurs, the reply cannot be parsed,
+	 *            the connection is closed before all the image data has been read, or a read times out.
+	 * @see #address
+	 * @see #portNumber
+	 * @see #commandString
+	 * @see #clearReply
+	 * @see #commandFinished
+	 * @see #readLine
+	 * @see #parseReplyString
+	 * @see #imageBuffer
+	 * @see CommandConnectionPool#getTimeout
+	 */
+	public void sendCommand() throws Exception
+	{
+		Socket socket = null;
+		DataInputStream inputStream = null;
+		PrintWriter writer = null;
+		int length;
+
+		if(isLoggable(Logging.VERBOSITY_VERY_VERBOSE))
+			logger.log(Logging.VERBOSITY_VERY_VERBOSE,this.getClass().getName()+":sendCommand:Started.");
+		if(address == null)
+			throw new Exception(this.getClass().getName()+":sendCommand:Address not set.");
+		commandFinished = false;
+		clearReply();
+		socket = new Socket(address,portNumber);
+		try
+		{
+			socket.setSoTimeout(CommandConnectionPool.getTimeout());
+			inputStream = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+			writer = new PrintWriter(socket.getOutputStream(),true);
+			if(isLoggable(Logging.VERBOSITY_INTERMEDIATE))
+			{
+				logger.log(Logging.VERBOSITY_INTERMEDIATE,this.getClass().getName()+
+					   ":sendCommand:Sending Command:"+commandString);
+			}
+			writer.println(commandString);
+			lineRead(readLine(inputStream));
+			parseReplyString();
+			if(parsedReplyOk)
+			{
+				length = parseImageHeader();
+				if((imageBuffer == null)||(imageBuffer.capacity() < length))
+					imageBuffer = ByteBuffer.allocate(length);
+				imageBuffer.clear();
+				imageBuffer.limit(length);
+				inputStream.readFully(imageBuffer.array(),imageBuffer.arrayOffset(),length);
+				imageBuffer.order(ByteOrder.BIG_ENDIAN);
+			}
+		}
+		finally
+		{
+			socket.close();
+		}
+		commandFinished = true;
+		if(isLoggable(Logging.VERBOSITY_VERY_VERBOSE))
+		{
+			logger.log(Logging.VERBOSITY_VERY_VERBOSE,this.getClass().getName()+
+				   ":sendCommand:Finished with reply string '"+replyBuffer+"'.");
+		}
+	}
+
+	/**
+	 * Read a line of text from the input stream. The line is terminated by a newline, which (along with any
+	 * carriage return) is not returned. The stream is read a byte at a time, so none of the binary data following
+	 * the line is consumed.
+	 * @param inputStream The stream to read from.
+	 * @return The line.
+	 * @exception IOException Thrown if the stream ends before a newline is read.
+	 */
+	protected String readLine(DataInputStream inputStream) throws IOException
+	{
+		StringBuffer sb = null;
+		int ch;
+
+		sb = new StringBuffer();
+		ch = inputStream.read();
+		while(ch != '\n')
+		{
+			if(ch < 0)
+			{
+				throw new EOFException(this.getClass().getName()+":readLine:Connection closed after '"+
+						       sb.toString()+"'.");
+			}
+			if(ch != '\r')
+				sb.append((char)ch);
+			ch = inputStream.read();
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * Parse the image dimensions, multrun and run numbers, and image data length from a successful reply.
+	 * @return The length of the image data following the reply, in bytes.
+	 * @exception Exception Thrown if the reply cannot be parsed, or the length does not match the dimensions.
+	 * @see #parsedReplyString
+	 * @see #ncols
+	 * @see #nrows
+	 * @see #multrunNumber
+	 * @see #runNumber
+	 * @see #replyTokenizer
+	 */
+	protected int parseImageHeader() throws Exception
+	{
+		int length,fieldCount;
+
+		replyTokenizer.reset(getParsedReply());
+		fieldCount = 0;
+		while(replyTokenizer.nextToken())
+			fieldCount++;
+		if(fieldCount != 5)
+		{
+			throw new Exception(this.getClass().getName()+":parseImageHeader:Reply '"+getParsedReply()+
+					    "' has the wrong number of fields ("+fieldCount+").");
+		}
+		replyTokenizer.reset(getParsedReply());
+		ncols = replyTokenizer.nextInt();
+		nrows = replyTokenizer.nextInt();
+		multrunNumber = replyTokenizer.nextInt();
+		runNumber = replyTokenizer.nextInt();
+		length = replyTokenizer.nextInt();
+		if(length != (ncols*nrows*2))
+		{
+			throw new Exception(this.getClass().getName()+":parseImageHeader:Length "+length+
+					    " does not match dimensions "+ncols+" x "+nrows+".");
+		}
+		return length;
+	}
+
+	/**
+	 * Get the number of columns in the returned image.
+	 * @return The number of columns.
+	 * @exception Exception Thrown if the command failed.
+	 * @see #ncols
+	 * @see #checkReply
+	 */
+	public int getNCols() throws Exception
+	{
+		checkReply("getNCols");
+		return ncols;
+	}
+
+	/**
+	 * Get the number of rows in the returned image.
+	 * @return The number of rows.
+	 * @exception Exception Thrown if the command failed.
+	 * @see #nrows
+	 * @see #checkReply
+	 */
+	public int getNRows() throws Exception
+	{
+		checkReply("getNRows");
+		return nrows;
+	}
+
+	/**
+	 * Get the multrun number of the returned image.
+	 * @return The multrun number.
+	 * @exception Exception Thrown if the command failed.
+	 * @see #multrunNumber
+	 * @see #checkReply
+	 */
+	public int getMultrunNumber() throws Exception
+	{
+		checkReply("getMultrunNumber");
+		return multrunNumber;
+	}
+
+	/**
+	 * Get the run number of the returned image.
+	 * @return The run number.
+	 * @exception Exception Thrown if the command failed.
+	 * @see #runNumber
+	 * @see #checkReply
+	 */
+	public int getRunNumber() throws Exception
+	{
+		checkReply("getRunNumber");
+		return runNumber;
+	}
+
+	/**
+	 * Get the returned image data, as bytes.
+	 * @return A big endian ByteBuffer, positioned at the start of the image data, with it's limit at the end.
+	 * @exception Exception Thrown if the command failed.
+	 * @see #imageBuffer
+	 * @see #checkReply
+	 */
+	public ByteBuffer getByteBuffer() throws Exception
+	{
+		checkReply("getByteBuffer");
+		return imageBuffer;
+	}
+
+	/**
+	 * Get the returned image data, as pixels. The pixel values are unsigned, so should be masked with 0xffff
+	 * when converted to an int. Pixel (x,y) is at index (y*ncols)+x.
+	 * @return A ShortBuffer view of the image data.
+	 * @exception Exception Thrown if the command failed.
+	 * @see #imageBuffer
+	 * @see #checkReply
+	 */
+	public ShortBuffer getShortBuffer() throws Exception
+	{
+		checkReply("getShortBuffer");
+		return imageBuffer.asShortBuffer();
+	}
+
+	/**
+	 * Check the command completed successfully.
+	 * @param methodName The name of the calling method, used in the exception message.
+	 * @exception Exception Thrown if the run method failed to communicate with the server in some way,
+	 *            the server returned an error, or the method was called before the command had completed.
+	 * @see #parsedReplyOk
+	 * @see #runException
+	 */
+	protected void checkReply(String methodName) throws Exception
+	{
+		if(parsedReplyOk)
+			return;
+		if(runException != null)
+			throw runException;
+		throw new Exception(this.getClass().getName()+":"+methodName+":Failed with return code "+
+				    returnCode+":"+getParsedReply());
+	}
+
+	/**
+	 * Main test program.
+	 * @param args The argument list.
+	 */
+	public static void main(String args[])
+	{
+		FetchLastFrameCommand command = null;
+		ShortBuffer pixelBuffer = null;
+		String hostname = null;
+		int portNumber = 8367;
+		int bin = 1;
+		int value,min,max;
+		double sum;
+
+		if((args.length < 2)||(args.length > 3))
+		{
+			System.out.println("java ngat.sprat.ccd.command.FetchLastFrameCommand <hostname> <port number> [<bin>]");
+			System.exit(1);
+		}
+		try
+		{
+			// setup some console logging
+			initialiseLogging();
+			// parse arguments
+			hostname = args[0];
+			portNumber = Integer.parseInt(args[1]);
+			if(args.length == 3)
+				bin = Integer.parseInt(args[2]);
+			command = new FetchLastFrameCommand(hostname,portNumber);
+			command.setCommand(bin);
+			command.run();
+			if(command.getRunException() != null)
+			{
+				System.err.println("FetchLastFrameCommand: Command failed.");
+				command.getRunException().printStackTrace(System.err);
+				System.exit(1);
+			}
+			System.out.println("Finished:"+command.getCommandFinished());
+			System.out.println("Reply Parsed OK:"+command.getParsedReplyOK());
+			System.out.println("Return Code:"+command.getReturnCode());
+			if(command.getParsedReplyOK() == false)
+			{
+				System.out.println("Reply:"+command.getParsedReply());
+				System.exit(1);
+			}
+			System.out.println("Dimensions:"+command.getNCols()+" x "+command.getNRows());
+			System.out.println("Multrun:"+command.getMultrunNumber()+" Run:"+command.getRunNumber());
+			pixelBuffer = command.getShortBuffer();
+			min = 65535;
+			max = 0;
+			sum = 0.0;
+			while(pixelBuffer.hasRemaining())
+			{
+				value = pixelBuffer.get()&0xffff;
+				min = Math.min(min,value);
+				max = Math.max(max,value);
+				sum += value;
+			}
+			System.out.println("Min:"+min+" Max:"+max+" Mean:"+(sum/(command.getNCols()*command.getNRows())));
+		}
+		catch(Exception e)
+		{
+			e.printStackTrace(System.err);
+			System.exit(1);
+		}
+		System.exit(0);
+	}
+}
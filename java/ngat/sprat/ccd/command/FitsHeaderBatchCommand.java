@@ -0,0 +1,309 @@
+// FitsHeaderBatchCommand.java
+// $HeadURL$
+package ngat.sprat.ccd.command;
+
+import java.io.*;
+import java.lang.*;
+import java.net.*;
+import java.util.*;
+
+import ngat.util.logging.*;
+
+/**
+ * The "fitsheader add_batch &lt;keyword&gt; &lt;type&gt; &lt;length&gt; &lt;value&gt; [...]" command is an
+ * extension of the Command, and adds a whole set of keyword value combinations (and their comments/units)
+ * to the list of keywords to be included in the header of saved images, in one command.
+ * Each value is prefixed by it's length, so string and comment values can contain spaces.
+ * The C layer reads the length as a number of bytes, so values must be printable ASCII (as FITS header cards
+ * must be anyway), where one character is one byte. Values containing any other character are rejected
+ * when they are added.
+ * The C layer applies the batch atomically, either all the cards are added or none are.
+ * @author Chris Mottram
+ * @version $Revision$
+ * @see FitsHeaderAddCommand
+ */
+public class FitsHeaderBatchCommand extends Command implements Runnable
+{
+	/**
+	 * Revision Control System id string, showing the version of the Class.
+	 */
+	public final static String RCSID = new String("$Id$");
+	/**
+	 * The maximum length of a value string the C layer will accept.
+	 */
+	public final static int MAXIMUM_VALUE_LENGTH = 79;
+	/**
+	 * Buffer containing the cards added so far, in the form sent to the C layer.
+	 */
+	protected StringBuffer cardBuffer = null;
+	/**
+	 * The number of cards (including comment and units cards) added so far.
+	 */
+	protected int cardCount = 0;
+
+	/**
+	 * Default constructor.
+	 * @see Command
+	 * @see #clear
+	 */
+	public FitsHeaderBatchCommand()
+	{
+		super();
+		clear();
+	}
+
+	/**
+	 * Constructor.
+	 * @param address A string representing the address of the server, i.e. "sprat1",
+	 *     "localhost", "192.168.1.62"
+	 * @param portNumber An integer representing the port number the server is receiving command on.
+	 * @see Command
+	 * @see Command#setAddress
+	 * @see Command#setPortNumber
+	 * @see #clear
+	 * @exception UnknownHostException Thrown if the address in unknown.
+	 */
+	public FitsHeaderBatchCommand(String address,int portNumber) throws UnknownHostException
+	{
+		super();
+		super.setAddress(address);
+		super.setPortNumber(portNumber);
+		clear();
+	}
+
+	/**
+	 * Remove all the cards from the batch.
+	 * @see #cardBuffer
+	 * @see #cardCount
+	 * @see #commandString
+	 */
+	public void clear()
+	{
+		cardBuffer = new StringBuffer(4096);
+		cardCount = 0;
+		commandString = null;
+	}
+
+	/**
+	 * Add a keyword with an integer value to the batch.
+	 * @param keyword The FITS header keyword.
+	 * @param value The integer value to give the keyword.
+	 * @see #addCard
+	 */
+	public void add(String keyword,int value)
+	{
+		addCard(keyword,"integer",Integer.toString(value));
+	}
+
+	/**
+	 * Add a keyword with a string value to the batch.
+	 * @param keyword The FITS header keyword.
+	 * @param value The string value to give the keyword.
+	 * @exception IllegalArgumentException Thrown if the value contains a character that is not printable ASCII.
+	 * @see #addCard
+	 */
+	public void add(String keyword,String value) throws IllegalArgumentException
+	{
+		addCard(keyword,"string",value);
+	}
+
+	/**
+	 * Add a keyword with a float/double value to the batch.
+	 * @param keyword The FITS header keyword.
+	 * @param value The double value to give the keyword.
+	 * @see #addCard
+	 */
+	public void add(String keyword,double value)
+	{
+		addCard(keyword,"float",Double.toString(value));
+	}
+
+	/**
+	 * Add a keyword with a logical/boolean value to the batch.
+	 * @param keyword The FITS header keyword.
+	 * @param value The boolean value to give the keyword.
+	 * @see #addCard
+	 */
+	public void add(String keyword,boolean value)
+	{
+		addCard(keyword,"boolean",Boolean.toString(value));
+	}
+
+	/**
+	 * Add a comment string for a keyword to the batch. The keyword value should have previously been
+	 * added to this batch.
+	 * @param keyword The FITS header keyword.
+	 * @param comment A comment string to append to the FITS header card for the specified keyword.
+	 * @exception IllegalArgumentException Thrown if the comment contains a character that is not printable ASCII.
+	 * @see #addCard
+	 */
+	public void addComment(String keyword,String comment) throws IllegalArgumentException
+	{
+		addCard(keyword,"comment",comment);
+	}
+
+	/**
+	 * Add a units string for a keyword to the batch. The keyword value should have previously been
+	 * added to this batch.
+	 * @param keyword The FITS header keyword.
+	 * @param units A units string to append to the FITS header card for the specified keyword.
+	 * @exception IllegalArgumentException Thrown if the units contains a character that is not printable ASCII.
+	 * @see #addCard
+	 */
+	public void addUnits(String keyword,String units) throws IllegalArgumentException
+	{
+		addCard(keyword,"units",units);
+	}
+
+	/**
+	 * Add a card to the batch, of the form " &lt;keyword&gt; &lt;type&gt; &lt;length&gt; &lt;value&gt;".
+	 * Values longer than MAXIMUM_VALUE_LENGTH are truncated, newlines and tabs are replaced by spaces.
+	 * The length prefix is the number of characters in the value, which the C layer reads as a number of bytes,
+	 * so any value that is not printable ASCII (which would be sent as more than one byte per character) is
+	 * rejected, rather than putting the rest of the batch out of step.
+	 * @param keyword The FITS header keyword.
+	 * @param type The type of card, one of: boolean|comment|float|integer|string|units.
+	 * @param value The value string.
+	 * @exception IllegalArgumentException Thrown if the value contains a character that is not printable ASCII.
+	 * @see #MAXIMUM_VALUE_LENGTH
+	 * @see #cardBuffer
+	 * @see #cardCount
+	 */
+	protected void addCard(String keyword,String type,String value) throws IllegalArgumentException
+	{
+		char ch;
+
+		if(value == null)
+			value = "";
+		value = value.replace('\n',' ').replace('\r',' ').replace('\t',' ');
+		for(int i = 0; i < value.length(); i++)
+		{
+			ch = value.charAt(i);
+			if((ch < ' ')||(ch > '~'))
+			{
+				throw new IllegalArgumentException(this.getClass().getName()+":addCard:"+type+" card "+
+								   keyword+" value '"+value+"' contains character "+
+								   (int)ch+" at index "+i+", which is not printable ASCII.");
+			}
+		}
+		if(value.length() > MAXIMUM_VALUE_LENGTH)
+			value = value.substring(0,MAXIMUM_VALUE_LENGTH);
+		cardBuffer.append(' ');
+		cardBuffer.append(keyword);
+		cardBuffer.append(' ');
+		cardBuffer.append(type);
+		cardBuffer.append(' ');
+		cardBuffer.append(value.length());
+		cardBuffer.append(' ');
+		cardBuffer.append(value);
+		cardCount++;
+	}
+
+	/**
+	 * Return the number of cards (including comment and units cards) in the batch.
+	 * @return The number of cards.
+	 * @see #cardCount
+	 */
+	public int getCardCount()
+	{
+		return cardCount;
+	}
+
+	/**
+	 * Build the command string from the cards added to the batch, and then send it to the C layer.
+	 * @exception Exception Thrown if an error occurs.
+	 * @see #cardBuffer
+	 * @see #commandString
+	 * @see Command#sendCommand
+	 */
+	public void sendCommand() throws Exception
+	{
+		commandString = new String("fitsheader add_batch"+cardBuffer.toString());
+		if(isLoggable(Logging.VERBOSITY_VERY_VERBOSE))
+		{
+			logger.log(Logging.VERBOSITY_VERY_VERBOSE,"ngat.sprat.ccd.command.FitsHeaderBatchCommand:sendCommand:"+
+				   "Sending batch of "+cardCount+" cards.");
+		}
+		super.sendCommand();
+	}
+
+	/**
+	 * Main test program.
+	 * @param args The argument list.
+	 */
+	public static void main(String args[])
+	{
+		FitsHeaderBatchCommand command = null;
+		String hostname = null;
+		String keyword = null;
+		String type = null;
+		String value = null;
+		int portNumber = 8367;
+
+		if((args.length < 5)||(((args.length-2) % 3) != 0))
+		{
+			System.out.println("java ngat.sprat.ccd.command.FitsHeaderBatchCommand <hostname> <port number> "+
+					   "<keyword> <boolean|comment|float|integer|string|units> <value> "+
+					   "[<keyword> <type> <value> ...]");
+			System.exit(1);
+		}
+		try
+		{
+			// setup some console logging
+			initialiseLogging();
+			// parse arguments
+			hostname = args[0];
+			portNumber = Integer.parseInt(args[1]);
+			command = new FitsHeaderBatchCommand(hostname,portNumber);
+			for(int i = 2; i < args.length; i += 3)
+			{
+				keyword = args[i];
+				type = args[i+1];
+				value = args[i+2];
+				if(type.equals("boolean"))
+				{
+					if(value.equals("true"))
+						command.add(keyword,true);
+					else if(value.equals("false"))
+						command.add(keyword,false);
+					else
+						throw new IllegalArgumentException("FitsHeaderBatchCommand:"+
+										   "boolean value must be true or false,"+
+										   " actual value found:"+value);
+				}
+				else if(type.equals("comment"))
+					command.addComment(keyword,value);
+				else if(type.equals("float"))
+					command.add(keyword,Double.parseDouble(value));
+				else if(type.equals("integer"))
+					command.add(keyword,Integer.parseInt(value));
+				else if(type.equals("string"))
+					command.add(keyword,value);
+				else if(type.equals("units"))
+					command.addUnits(keyword,value);
+				else
+				{
+					throw new IllegalArgumentException("FitsHeaderBatchCommand:"+
+									   "Unknown FITS header value type:"+type);
+				}
+			}
+			command.run();
+			if(command.getRunException() != null)
+			{
+				System.err.println("FitsHeaderBatchCommand: Command failed.");
+				command.getRunException().printStackTrace(System.err);
+				System.exit(1);
+			}
+			System.out.println("Finished:"+command.getCommandFinished());
+			System.out.println("Reply Parsed OK:"+command.getParsedReplyOK());
+			System.out.println("Return Code:"+command.getReturnCode());
+			System.out.println("Reply String:"+command.getParsedReply());
+		}
+		catch(Exception e)
+		{
+			e.printStackTrace(System.err);
+			System.exit(1);
+		}
+		System.exit(0);
+	}
+}
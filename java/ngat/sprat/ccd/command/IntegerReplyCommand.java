@@ -62,7 +62,7 @@ public class IntegerReplyCommand extends Command implements Runnable, TelnetConn
 	/**
 	 * Parse a string returned from the server over the telnet connection.
 	 * @exception Exception Thrown if a parse error occurs.
-	 * @see #replyString
+	 * @see #replyBuffer
 	 * @see #parsedReplyString
 	 * @see #parsedReplyOk
 	 */
@@ -78,22 +78,31 @@ public class IntegerReplyCommand extends Command implements Runnable, TelnetConn
 		}
 		try
 		{
-			logger.log(Logging.VERBOSITY_VERY_VERBOSE,"ngat.sprat.ccd.command.IntegerReplyCommand:"+
-				   "parseReplyString:Parsing '"+parsedReplyString+"' as an integer.");
-			parsedReplyInteger = Integer.parseInt(parsedReplyString);
-			logger.log(Logging.VERBOSITY_VERY_VERBOSE,"ngat.sprat.ccd.command.IntegerReplyCommand:"+
-				   "parseReplyString:Parsed '"+parsedReplyString+"' as integer '"+
-				   parsedReplyInteger+"'.");
+			if(isLoggable(Logging.VERBOSITY_VERY_VERBOSE))
+			{
+				logger.log(Logging.VERBOSITY_VERY_VERBOSE,"ngat.sprat.ccd.command.IntegerReplyCommand:"+
+					   "parseReplyString:Parsing '"+getParsedReply()+"' as an integer.");
+			}
+			parsedReplyInteger = ReplyTokenizer.parseInt(replyBuffer,parsedReplyStart,replyBuffer.length());
+			if(isLoggable(Logging.VERBOSITY_VERY_VERBOSE))
+			{
+				logger.log(Logging.VERBOSITY_VERY_VERBOSE,"ngat.sprat.ccd.command.IntegerReplyCommand:"+
+					   "parseReplyString:Parsed '"+getParsedReply()+"' as integer '"+
+					   parsedReplyInteger+"'.");
+			}
 		}
 		catch(Exception e)
 		{
-			logger.log(Logging.VERBOSITY_VERY_VERBOSE,"ngat.sprat.ccd.command.IntegerReplyCommand:"+
-				   "parseReplyString:Failed to parse '"+parsedReplyString+
-				   "' as an integer: About to throw an exception.");
+			if(isLoggable(Logging.VERBOSITY_VERY_VERBOSE))
+			{
+				logger.log(Logging.VERBOSITY_VERY_VERBOSE,"ngat.sprat.ccd.command.IntegerReplyCommand:"+
+					   "parseReplyString:Failed to parse '"+getParsedReply()+
+					   "' as an integer: About to throw an exception.");
+			}
 			parsedReplyOk = false;
 			parsedReplyInteger = 0;
 			throw new Exception(this.getClass().getName()+
-					    ":parseReplyString:Failed to parse integer data:"+parsedReplyString);
+					    ":parseReplyString:Failed to parse integer data:"+getParsedReply());
 		}
 		logger.log(Logging.VERBOSITY_VERY_VERBOSE,
 			   "ngat.sprat.ccd.command.IntegerReplyCommand:parseReplyString:Finished.");
@@ -53,10 +53,12 @@ public class MultBiasCommand extends MultrunFilenameReplyCommand implements Runn
 	 * Setup the Multrun command. 
 	 * @param exposureCount Set the number of bias frames to take. 
 	 * @see #commandString
+	 * @see #setReplyExposure
 	 */
 	public void setCommand(int exposureCount)
 	{
 		commandString = new String("multbias "+exposureCount);
+		setReplyExposure(0L,exposureCount);
 	}
 
 	/**
@@ -53,10 +53,12 @@ public class MultDarkCommand extends MultrunFilenameReplyCommand implements Runn
 	 * @param exposureLength Set the length of the exposure (or exposures) in milliseconds.
 	 * @param exposureCount Set the number of frames to take in the MultDark. 
 	 * @see #commandString
+	 * @see #setReplyExposure
 	 */
 	public void setCommand(int exposureLength,int exposureCount)
 	{
 		commandString = new String("multdark "+exposureLength+" "+exposureCount);
+		setReplyExposure(exposureLength,exposureCount);
 	}
 
 	/**
@@ -7,11 +7,16 @@ import java.lang.*;
 import java.net.*;
 import java.util.*;
 
+import ngat.util.logging.*;
+
 /**
  * The "multrun" command is an extension of the MultrunFilenameReplyCommand, and takes a series of exposures.
+ * If the command is setup as a streaming multrun, the C layer writes back a "frame &lt;index&gt; &lt;filename&gt;"
+ * line as each frame is saved, which is passed to the frame listener, before the normal multrun reply.
  * @author Chris Mottram
  * @version $Revision$
  * @see ngat.sprat.ccd.command.MultrunFilenameReplyCommand
+ * @see ngat.sprat.ccd.command.MultrunFrameListener
  */
 public class MultrunCommand extends MultrunFilenameReplyCommand implements Runnable
 {
@@ -59,6 +64,23 @@ public class MultrunCommand extends MultrunFilenameReplyCommand implements Runna
 	 * the FITS image filename that the acquired data is saved into.
 	 */
 	public final static String EXPOSURE_TYPE_DARK = new String("dark");
+	/**
+	 * The optional parameter added to the command to make the C layer stream back a line per saved frame.
+	 */
+	public final static String STREAM_PARAMETER = new String("stream");
+	/**
+	 * The prefix of the lines streamed back by the C layer as each frame is saved.
+	 */
+	public final static String FRAME_REPLY_PREFIX = new String("frame ");
+	/**
+	 * Whether the command is a streaming multrun.
+	 * @see #setCommand(int,int,java.lang.String,boolean)
+	 */
+	protected boolean stream = false;
+	/**
+	 * The listener to tell about each frame saved by a streaming multrun, or null.
+	 */
+	protected MultrunFrameListener frameListener = null;
 
 	/**
 	 * Default constructor.
@@ -94,11 +116,126 @@ public class MultrunCommand extends MultrunFilenameReplyCommand implements Runna
 	 * @param exposureCount Set the number of frames to take in the Multrun. 
 	 * @param exposureType A string, describing the exposure type. One of:
 	 *       arc|exposure|skyflat|standard|lampflat|bias|dark
-	 * @see #commandString
+	 * @see #setCommand(int,int,java.lang.String,boolean)
 	 */
 	public void setCommand(int exposureLength,int exposureCount,String exposureType)
 	{
-		commandString = new String("multrun "+exposureLength+" "+exposureCount+" "+exposureType);
+		setCommand(exposureLength,exposureCount,exposureType,false);
+	}
+
+	/**
+	 * Setup the Multrun command. 
+	 * @param exposureLength Set the length of the exposure (or exposures) in milliseconds
+	 * @param exposureCount Set the number of frames to take in the Multrun. 
+	 * @param exposureType A string, describing the exposure type. One of:
+	 *       arc|exposure|skyflat|standard|lampflat|bias|dark
+	 * @param stream If true, the C layer streams back a line as each frame is saved, which is passed
+	 *       to the frame listener.
+	 * @see #commandString
+	 * @see #setReplyExposure
+	 * @see #stream
+	 * @see #STREAM_PARAMETER
+	 */
+	public void setCommand(int exposureLength,int exposureCount,String exposureType,boolean stream)
+	{
+		this.stream = stream;
+		setReplyExposure(exposureLength,exposureCount);
+		if(stream)
+		{
+			commandString = new String("multrun "+exposureLength+" "+exposureCount+" "+exposureType+" "+
+						   STREAM_PARAMETER);
+		}
+		else
+			commandString = new String("multrun "+exposureLength+" "+exposureCount+" "+exposureType);
+	}
+
+	/**
+	 * Set the listener to tell about each frame saved by a streaming multrun.
+	 * @param l The listener, or null.
+	 * @see #frameListener
+	 */
+	public void setFrameListener(MultrunFrameListener l)
+	{
+		frameListener = l;
+	}
+
+	/**
+	 * Get the prefix of the intermediate lines written back by a streaming multrun.
+	 * @return FRAME_REPLY_PREFIX if this is a streaming multrun, otherwise null.
+	 * @see #stream
+	 * @see #FRAME_REPLY_PREFIX
+	 */
+	protected String getIntermediateReplyPrefix()
+	{
+		if(stream)
+			return FRAME_REPLY_PREFIX;
+		return null;
+	}
+
+	/**
+	 * TelnetConnectionListener interface implementation.
+	 * Called for each line of text read from the C layer. If this is a streaming multrun and the line
+	 * is a frame line, it is parsed and passed to the frame listener. Otherwise the line is part of the reply,
+	 * and is passed to the superclass.
+	 * @param line The string read from the C layer.
+	 * @see #stream
+	 * @see #FRAME_REPLY_PREFIX
+	 * @see #parseFrameLine
+	 */
+	public void lineRead(String line)
+	{
+		if(stream && line.startsWith(FRAME_REPLY_PREFIX))
+			parseFrameLine(line);
+		else
+			super.lineRead(line);
+	}
+
+	/**
+	 * Parse a "frame &lt;index&gt; &lt;filename&gt;" line streamed back by the C layer, and pass the frame
+	 * to the frame listener. Lines that cannot be parsed are logged and ignored, the frame is still
+	 * in the multrun reply's filename list.
+	 * @param line The frame line.
+	 * @see #frameListener
+	 * @see MultrunFrameListener#frameSaved
+	 */
+	protected void parseFrameLine(String line)
+	{
+		String frameString = null;
+		String filename = null;
+		int sindex,index;
+
+		frameString = line.substring(FRAME_REPLY_PREFIX.length()).trim();
+		sindex = frameString.indexOf(' ');
+		if(sindex < 0)
+		{
+			if(isLoggable(Logging.VERBOSITY_TERSE))
+			{
+				logger.log(Logging.VERBOSITY_TERSE,this.getClass().getName()+
+					   ":parseFrameLine:Failed to parse frame line:"+line);
+			}
+			return;
+		}
+		try
+		{
+			index = Integer.parseInt(frameString.substring(0,sindex));
+		}
+		catch(NumberFormatException e)
+		{
+			if(isLoggable(Logging.VERBOSITY_TERSE))
+			{
+				logger.log(Logging.VERBOSITY_TERSE,this.getClass().getName()+
+					   ":parseFrameLine:Failed to parse frame index:"+line);
+			}
+			return;
+		}
+		filename = frameString.substring(sindex+1).trim();
+		if(isLoggable(Logging.VERBOSITY_VERBOSE))
+		{
+			logger.log(Logging.VERBOSITY_VERBOSE,this.getClass().getName()+
+				   ":parseFrameLine:Frame "+index+" saved to "+filename+".");
+		}
+		if(frameListener != null)
+			frameListener.frameSaved(index,filename);
 	}
 
 	/**
@@ -112,11 +249,11 @@ public class MultrunCommand extends MultrunFilenameReplyCommand implements Runna
 		String exposureTypeString = null;
 		int portNumber = 8367;
 		int exposureLength,exposureCount;
-		boolean standard;
+		boolean standard,stream;
 
-		if(args.length != 5)
+		if((args.length != 5)&&(args.length != 6))
 		{
-			System.out.println("java ngat.sprat.ccd.command.MultrunCommand <hostname> <port number> <exposure length> <exposure count> <exposure type>");
+			System.out.println("java ngat.sprat.ccd.command.MultrunCommand <hostname> <port number> <exposure length> <exposure count> <exposure type> [stream]");
 			System.exit(1);
 		}
 		try
@@ -130,7 +267,9 @@ public class MultrunCommand extends MultrunFilenameReplyCommand implements Runna
 			exposureCount = Integer.parseInt(args[3]);
 			exposureTypeString = args[4];
 			command = new MultrunCommand(hostname,portNumber);
-			command.setCommand(exposureLength,exposureCount,exposureTypeString);
+			stream = (args.length == 6)&&args[5].equals(STREAM_PARAMETER);
+			command.setCommand(exposureLength,exposureCount,exposureTypeString,stream);
+			command.setFrameListener(new MainFrameListener());
 			command.run();
 			if(command.getRunException() != null)
 			{
@@ -153,4 +292,20 @@ public class MultrunCommand extends MultrunFilenameReplyCommand implements Runna
 		}
 		System.exit(0);
 	}
+
+	/**
+	 * Frame listener used by the main test program, that prints each frame as it is saved.
+	 */
+	protected static class MainFrameListener implements MultrunFrameListener
+	{
+		/**
+		 * Print the saved frame.
+		 * @param index The index of the frame in the multrun.
+		 * @param filename The FITS filename the frame was saved to.
+		 */
+		public void frameSaved(int index,String filename)
+		{
+			System.out.println("Frame "+index+":"+filename);
+		}
+	}
 }
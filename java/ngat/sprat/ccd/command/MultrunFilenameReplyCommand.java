@@ -70,17 +70,16 @@ public class MultrunFilenameReplyCommand extends Command implements Runnable, Te
 	/**
 	 * Parse a string returned from the server over the telnet connection.
 	 * @exception Exception Thrown if a parse error occurs.
-	 * @see #replyString
+	 * @see #replyBuffer
 	 * @see #parsedReplyString
 	 * @see #parsedReplyOk
 	 * @see #multrunNumber
 	 * @see #filenameList
 	 * @see #logger
+	 * @see #replyTokenizer
 	 */
 	public void parseReplyString() throws Exception
 	{
-		String token = null;
-		StringTokenizer st = null;
 		int tokenIndex;
 
 		logger.log(Logging.VERBOSITY_VERBOSE,
@@ -89,7 +88,6 @@ public class MultrunFilenameReplyCommand extends Command implements Runnable, Te
 		filenameList = new Vector<String>();
 		multrunNumber = 0;
 		super.parseReplyString();
-		st = new StringTokenizer(parsedReplyString," ");
 		if(parsedReplyOk == false)
 		{
 			return;
@@ -97,23 +95,27 @@ public class MultrunFilenameReplyCommand extends Command implements Runnable, Te
 		try
 		{
 			tokenIndex = 0;
-			while(st.hasMoreTokens())
+			while(replyTokenizer.nextToken())
 			{
-				// get next token 
-				token = st.nextToken();
-				logger.log(Logging.VERBOSITY_VERY_VERBOSE,
-					   "ngat.sprat.ccd.MultrunFilenameReplyCommand:parseReplyString:token "+
-					   tokenIndex+" = "+token+".");
-				if(tokenIndex == 0)
+				if(isLoggable(Logging.VERBOSITY_VERY_VERBOSE))
 				{
 					logger.log(Logging.VERBOSITY_VERY_VERBOSE,
-						   "ngat.sprat.ccd.MultrunFilenameReplyCommand:parseReplyString:"+
-						   "Parsing token "+token+" as multrun number.");
-					multrunNumber = Integer.parseInt(token);
+						   "ngat.sprat.ccd.MultrunFilenameReplyCommand:parseReplyString:token "+
+						   tokenIndex+" = "+replyTokenizer.tokenToString()+".");
+				}
+				if(tokenIndex == 0)
+				{
+					if(isLoggable(Logging.VERBOSITY_VERY_VERBOSE))
+					{
+						logger.log(Logging.VERBOSITY_VERY_VERBOSE,
+							   "ngat.sprat.ccd.MultrunFilenameReplyCommand:parseReplyString:"+
+							   "Parsing token "+replyTokenizer.tokenToString()+" as multrun number.");
+					}
+					multrunNumber = replyTokenizer.tokenToInt();
 				}
 				else if(tokenIndex > 0)
 				{
-					filenameList.add(new String(token));
+					filenameList.add(replyTokenizer.tokenToString());
 				}
 				// increment index
 				tokenIndex++;
@@ -124,11 +126,14 @@ public class MultrunFilenameReplyCommand extends Command implements Runnable, Te
 		catch(Exception e)
 		{
 			parsedReplyOk = false;
-			logger.log(Logging.VERBOSITY_TERSE,"ngat.sprat.ccd.MultrunFilenameReplyCommand:"+
-				   "parseReplyString:Failed to parse multrun filename data with exception:",e);
+			if(isLoggable(Logging.VERBOSITY_TERSE))
+			{
+				logger.log(Logging.VERBOSITY_TERSE,"ngat.sprat.ccd.MultrunFilenameReplyCommand:"+
+					   "parseReplyString:Failed to parse multrun filename data with exception:",e);
+			}
 			throw new Exception(this.getClass().getName()+
 					    ":parseReplyString:Failed to parse multrun filename data:"+
-					    parsedReplyString+":"+e);
+					    getParsedReply()+":"+e);
 		}
 	}
 
@@ -0,0 +1,23 @@
+// MultrunFrameListener.java
+// $HeadURL$
+package ngat.sprat.ccd.command;
+
+import java.lang.*;
+
+/**
+ * Interface implemented by objects that want to be told about each frame saved by a streaming
+ * "multrun" command, as it is saved, rather than waiting for the multrun to finish.
+ * @author Chris Mottram
+ * @version $Revision$
+ * @see MultrunCommand#setFrameListener
+ */
+public interface MultrunFrameListener
+{
+	/**
+	 * Called when the C layer reports a frame has been saved. This is called from the thread running
+	 * the multrun command, so implementations should return quickly.
+	 * @param index The index of the frame in the multrun, starting from zero.
+	 * @param filename The FITS filename the frame was saved to.
+	 */
+	public void frameSaved(int index,String filename);
+}
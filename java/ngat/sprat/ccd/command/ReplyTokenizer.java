@@ -0,0 +1,456 @@
+// ReplyTokenizer.java
+// $HeadURL$
+package ngat.sprat.ccd.command;
+
+import java.lang.*;
+
+/**
+ * This class splits a reply (or part of a reply) received from the C layer or the mechanism Arduino into
+ * tokens, and parses integer and double tokens, without creating a String for each token.
+ * Unlike java.util.StringTokenizer, a token is just a start and end index into the reply, so
+ * a reply can be completely parsed into numbers without creating any objects. The tokenizer is meant to be
+ * re-used: call reset for each new reply.
+ * @author Chris Mottram
+ * @version $Revision$
+ * @see Command#parseReplyString
+ */
+public class ReplyTokenizer
+{
+	/**
+	 * Revision Control System id string, showing the version of the Class.
+	 */
+	public final static String RCSID = new String("$Id$");
+	/**
+	 * The default delimiters between tokens, a space.
+	 */
+	public final static String DEFAULT_DELIMITERS = " ";
+	/**
+	 * The delimiters between the fields of a C layer timestamp, of the form: %Y-%m-%dT%H:%M:%S.sss .
+	 */
+	public final static String TIMESTAMP_DELIMITERS = "-T:";
+	/**
+	 * The maximum number of significant digits a double can have, to be parsed without using
+	 * Double.parseDouble. The mantissa is exactly representable as a double up to this many digits.
+	 */
+	protected final static int MAX_FAST_DOUBLE_DIGITS = 15;
+	/**
+	 * Powers of ten that are exactly representable as a double, used to scale a parsed mantissa.
+	 */
+	protected final static double POWERS_OF_TEN[] = {1.0e0,1.0e1,1.0e2,1.0e3,1.0e4,1.0e5,1.0e6,1.0e7,
+							     1.0e8,1.0e9,1.0e10,1.0e11,1.0e12,1.0e13,1.0e14,
+							     1.0e15,1.0e16,1.0e17,1.0e18,1.0e19,1.0e20,1.0e21,
+							     1.0e22};
+	/**
+	 * The characters tokens are separated by.
+	 */
+	protected String delimiters = DEFAULT_DELIMITERS;
+	/**
+	 * The reply being tokenized.
+	 */
+	protected CharSequence reply = null;
+	/**
+	 * The index in reply to start looking for the next token from.
+	 */
+	protected int position = 0;
+	/**
+	 * The index in reply after the end of the part being tokenized.
+	 */
+	protected int end = 0;
+	/**
+	 * The index in reply of the start of the current token.
+	 */
+	protected int tokenStart = 0;
+	/**
+	 * The index in reply after the end of the current token.
+	 */
+	protected int tokenEnd = 0;
+
+	/**
+	 * Default constructor. Tokens are separated by spaces.
+	 * @see #DEFAULT_DELIMITERS
+	 */
+	public ReplyTokenizer()
+	{
+		super();
+	}
+
+	/**
+	 * Constructor.
+	 * @param delimiters A string containing the characters that separate tokens.
+	 * @see #setDelimiters
+	 */
+	public ReplyTokenizer(String delimiters)
+	{
+		super();
+		setDelimiters(delimiters);
+	}
+
+	/**
+	 * Set the characters that separate tokens.
+	 * @param delimiters A string containing the characters that separate tokens.
+	 * @exception NullPointerException Thrown if delimiters is null.
+	 * @see #delimiters
+	 */
+	public void setDelimiters(String delimiters)
+	{
+		if(delimiters == null)
+			throw new NullPointerException(this.getClass().getName()+":setDelimiters:delimiters was null.");
+		this.delimiters = delimiters;
+	}
+
+	/**
+	 * Start tokenizing a new reply.
+	 * @param reply The reply to tokenize.
+	 * @see #reset(java.lang.CharSequence,int,int)
+	 */
+	public void reset(CharSequence reply)
+	{
+		reset(reply,0,reply.length());
+	}
+
+	/**
+	 * Start tokenizing part of a new reply.
+	 * @param reply The reply to tokenize.
+	 * @param start The index in reply to start tokenizing from.
+	 * @param end The index in reply after the end of the part to tokenize.
+	 * @exception IndexOutOfBoundsException Thrown if start and end are not a valid range in the reply.
+	 * @see #reply
+	 * @see #position
+	 * @see #end
+	 */
+	public void reset(CharSequence reply,int start,int end)
+	{
+		if((start < 0)||(end > reply.length())||(start > end))
+		{
+			throw new IndexOutOfBoundsException(this.getClass().getName()+":reset:Illegal range "+start+
+							    ","+end+" for reply of length "+reply.length()+".");
+		}
+		this.reply = reply;
+		this.position = start;
+		this.end = end;
+		this.tokenStart = start;
+		this.tokenEnd = start;
+	}
+
+	/**
+	 * Return whether the character is one of the delimiters.
+	 * @param ch The character.
+	 * @return true if ch separates tokens, false otherwise.
+	 * @see #delimiters
+	 */
+	protected boolean isDelimiter(char ch)
+	{
+		return (delimiters.indexOf(ch) > -1);
+	}
+
+	/**
+	 * Return whether there are any more tokens in the reply.
+	 * @return true if nextToken would find another token, false otherwise.
+	 */
+	public boolean hasMoreTokens()
+	{
+		int index;
+
+		index = position;
+		while((index < end)&&isDelimiter(reply.charAt(index)))
+			index++;
+		return (index < end);
+	}
+
+	/**
+	 * Move to the next token in the reply. The token can then be retrieved using getTokenStart/getTokenEnd,
+	 * compared using tokenEquals, or parsed using tokenToInt/tokenToDouble.
+	 * @return true if there was another token, false if the end of the reply has been reached.
+	 * @see #position
+	 * @see #tokenStart
+	 * @see #tokenEnd
+	 */
+	public boolean nextToken()
+	{
+		while((position < end)&&isDelimiter(reply.charAt(position)))
+			position++;
+		if(position >= end)
+		{
+			tokenStart = end;
+			tokenEnd = end;
+			return false;
+		}
+		tokenStart = position;
+		while((position < end)&&(isDelimiter(reply.charAt(position)) == false))
+			position++;
+		tokenEnd = position;
+		return true;
+	}
+
+	/**
+	 * Get the index in the reply of the start of the current token.
+	 * @return The index.
+	 * @see #tokenStart
+	 */
+	public int getTokenStart()
+	{
+		return tokenStart;
+	}
+
+	/**
+	 * Get the index in the reply after the end of the current token.
+	 * @return The index.
+	 * @see #tokenEnd
+	 */
+	public int getTokenEnd()
+	{
+		return tokenEnd;
+	}
+
+	/**
+	 * Return whether the current token is the same as the specified string.
+	 * @param s The string to compare the token to.
+	 * @return true if the token and the string contain the same characters, false otherwise.
+	 * @see #regionEquals
+	 */
+	public boolean tokenEquals(String s)
+	{
+		return regionEquals(reply,tokenStart,tokenEnd,s);
+	}
+
+	/**
+	 * Parse the current token as an integer.
+	 * @return The integer.
+	 * @exception NumberFormatException Thrown if the token is not a valid integer.
+	 * @see #parseInt
+	 */
+	public int tokenToInt() throws NumberFormatException
+	{
+		return parseInt(reply,tokenStart,tokenEnd);
+	}
+
+	/**
+	 * Parse the current token as a double.
+	 * @return The double.
+	 * @exception NumberFormatException Thrown if the token is not a valid double.
+	 * @see #parseDouble
+	 */
+	public double tokenToDouble() throws NumberFormatException
+	{
+		return parseDouble(reply,tokenStart,tokenEnd);
+	}
+
+	/**
+	 * Create a string containing the current token. Only call this when the token must be kept
+	 * (e.g. a filename), as it creates a new String.
+	 * @return The token as a string.
+	 */
+	public String tokenToString()
+	{
+		return reply.subSequence(tokenStart,tokenEnd).toString();
+	}
+
+	/**
+	 * Move to the next token, and parse it as an integer.
+	 * @return The integer.
+	 * @exception NumberFormatException Thrown if there are no more tokens, or the token is not a valid integer.
+	 * @see #nextToken
+	 * @see #tokenToInt
+	 */
+	public int nextInt() throws NumberFormatException
+	{
+		if(nextToken() == false)
+			throw new NumberFormatException(this.getClass().getName()+":nextInt:No more tokens.");
+		return tokenToInt();
+	}
+
+	/**
+	 * Move to the next token, and parse it as a double.
+	 * @return The double.
+	 * @exception NumberFormatException Thrown if there are no more tokens, or the token is not a valid double.
+	 * @see #nextToken
+	 * @see #tokenToDouble
+	 */
+	public double nextDouble() throws NumberFormatException
+	{
+		if(nextToken() == false)
+			throw new NumberFormatException(this.getClass().getName()+":nextDouble:No more tokens.");
+		return tokenToDouble();
+	}
+
+	/**
+	 * Return whether a region of a character sequence is the same as the specified string.
+	 * @param cs The character sequence.
+	 * @param start The index in cs of the start of the region.
+	 * @param end The index in cs after the end of the region.
+	 * @param s The string to compare the region to.
+	 * @return true if the region and the string contain the same characters, false otherwise.
+	 */
+	public static boolean regionEquals(CharSequence cs,int start,int end,String s)
+	{
+		if((end-start) != s.length())
+			return false;
+		for(int i = start; i < end; i++)
+		{
+			if(cs.charAt(i) != s.charAt(i-start))
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Parse a region of a character sequence as a decimal integer, in the same way as Integer.parseInt,
+	 * but without creating a String.
+	 * @param cs The character sequence.
+	 * @param start The index in cs of the start of the integer.
+	 * @param end The index in cs after the end of the integer.
+	 * @return The integer.
+	 * @exception NumberFormatException Thrown if the region is empty, contains a non-digit (apart from a
+	 *            leading sign), or the number is too large to fit in an int.
+	 */
+	public static int parseInt(CharSequence cs,int start,int end) throws NumberFormatException
+	{
+		long value = 0;
+		boolean negative = false;
+		int index,digit;
+
+		index = start;
+		if((index < end)&&((cs.charAt(index) == '-')||(cs.charAt(index) == '+')))
+		{
+			negative = (cs.charAt(index) == '-');
+			index++;
+		}
+		if(index >= end)
+		{
+			throw new NumberFormatException("ngat.sprat.ccd.command.ReplyTokenizer:parseInt:"+
+							"No digits in '"+cs.subSequence(start,end)+"'.");
+		}
+		while(index < end)
+		{
+			digit = cs.charAt(index)-'0';
+			if((digit < 0)||(digit > 9))
+			{
+				throw new NumberFormatException("ngat.sprat.ccd.command.ReplyTokenizer:parseInt:"+
+								"Illegal character in '"+cs.subSequence(start,end)+"'.");
+			}
+			value = (value*10)+digit;
+			if(value > (((long)Integer.MAX_VALUE)+1))
+			{
+				throw new NumberFormatException("ngat.sprat.ccd.command.ReplyTokenizer:parseInt:"+
+								"'"+cs.subSequence(start,end)+"' out of range.");
+			}
+			index++;
+		}
+		if(negative)
+			value = -value;
+		if(value > Integer.MAX_VALUE)
+		{
+			throw new NumberFormatException("ngat.sprat.ccd.command.ReplyTokenizer:parseInt:"+
+							"'"+cs.subSequence(start,end)+"' out of range.");
+		}
+		return (int)value;
+	}
+
+	/**
+	 * Parse a region of a character sequence as a double. Leading and trailing whitespace is ignored,
+	 * as in Double.parseDouble. Plain decimal numbers (an optional sign, digits, an optional decimal point and
+	 * fraction, and an optional exponent) with up to MAX_FAST_DOUBLE_DIGITS significant digits are parsed
+	 * without creating any objects: the result is correctly rounded, as the mantissa and the power of ten
+	 * are both exactly representable. Anything else (more digits, large exponents, "NaN", hex) is
+	 * passed to Double.parseDouble.
+	 * @param cs The character sequence.
+	 * @param start The index in cs of the start of the double.
+	 * @param end The index in cs after the end of the double.
+	 * @return The double.
+	 * @exception NumberFormatException Thrown if the region is not a valid double.
+	 * @see #MAX_FAST_DOUBLE_DIGITS
+	 * @see #POWERS_OF_TEN
+	 */
+	public static double parseDouble(CharSequence cs,int start,int end) throws NumberFormatException
+	{
+		long mantissa = 0;
+		boolean negative = false;
+		boolean seenDigit = false;
+		boolean exponentNegative = false;
+		int index,digit,digitCount,exponent,decimalExponent;
+		double value;
+
+		while((start < end)&&(cs.charAt(start) <= ' '))
+			start++;
+		while((end > start)&&(cs.charAt(end-1) <= ' '))
+			end--;
+		index = start;
+		digitCount = 0;
+		decimalExponent = 0;
+		if((index < end)&&((cs.charAt(index) == '-')||(cs.charAt(index) == '+')))
+		{
+			negative = (cs.charAt(index) == '-');
+			index++;
+		}
+		// integer part
+		while((index < end)&&((digit = cs.charAt(index)-'0') >= 0)&&(digit <= 9))
+		{
+			seenDigit = true;
+			if((mantissa != 0)||(digit != 0))
+			{
+				if(digitCount >= MAX_FAST_DOUBLE_DIGITS)
+					return Double.parseDouble(cs.subSequence(start,end).toString());
+				mantissa = (mantissa*10)+digit;
+				digitCount++;
+			}
+			index++;
+		}
+		// fraction
+		if((index < end)&&(cs.charAt(index) == '.'))
+		{
+			index++;
+			while((index < end)&&((digit = cs.charAt(index)-'0') >= 0)&&(digit <= 9))
+			{
+				seenDigit = true;
+				if((mantissa != 0)||(digit != 0))
+				{
+					if(digitCount >= MAX_FAST_DOUBLE_DIGITS)
+						return Double.parseDouble(cs.subSequence(start,end).toString());
+					mantissa = (mantissa*10)+digit;
+					digitCount++;
+				}
+				decimalExponent--;
+				index++;
+			}
+		}
+		if(seenDigit == false)
+			return Double.parseDouble(cs.subSequence(start,end).toString());
+		// exponent
+		if((index < end)&&((cs.charAt(index) == 'e')||(cs.charAt(index) == 'E')))
+		{
+			index++;
+			if((index < end)&&((cs.charAt(index) == '-')||(cs.charAt(index) == '+')))
+			{
+				exponentNegative = (cs.charAt(index) == '-');
+				index++;
+			}
+			if(index >= end)
+				return Double.parseDouble(cs.subSequence(start,end).toString());
+			exponent = 0;
+			while(index < end)
+			{
+				digit = cs.charAt(index)-'0';
+				if((digit < 0)||(digit > 9)||(exponent > 1000))
+					return Double.parseDouble(cs.subSequence(start,end).toString());
+				exponent = (exponent*10)+digit;
+				index++;
+			}
+			if(exponentNegative)
+				decimalExponent -= exponent;
+			else
+				decimalExponent += exponent;
+		}
+		// trailing characters (e.g. a 'd' or 'f' suffix)
+		if(index != end)
+			return Double.parseDouble(cs.subSequence(start,end).toString());
+		if(mantissa == 0)
+			return (negative ? -0.0 : 0.0);
+		if((decimalExponent < -(POWERS_OF_TEN.length-1))||(decimalExponent > (POWERS_OF_TEN.length-1)))
+			return Double.parseDouble(cs.subSequence(start,end).toString());
+		if(decimalExponent < 0)
+			value = ((double)mantissa)/POWERS_OF_TEN[-decimalExponent];
+		else
+			value = ((double)mantissa)*POWERS_OF_TEN[decimalExponent];
+		return (negative ? -value : value);
+	}
+}
@@ -0,0 +1,511 @@
+// StatusAllCommand.java
+// $HeadURL$
+package ngat.sprat.ccd.command;
+
+import java.io.*;
+import java.lang.*;
+import java.net.*;
+import java.util.*;
+
+import ngat.util.logging.*;
+
+/**
+ * The "status all" command is an extension of the Command, and returns all the exposure, multrun and temperature
+ * status of the C layer in one reply, rather than one status command (and connection) per value.
+ * The reply is of the form:
+ * '0 exposure.status=&lt;status&gt; exposure.length=&lt;ms&gt; exposure.start_time=&lt;time&gt;
+ * exposure.multrun=&lt;n&gt; exposure.run=&lt;n&gt; multrun.index=&lt;n&gt; multrun.count=&lt;n&gt;
+ * multrun.binx=&lt;n&gt; multrun.biny=&lt;n&gt; temperature.time=&lt;time&gt; temperature=&lt;C&gt;
+ * temperature.status=&lt;status&gt;'. The temperature.time and temperature keywords are missing if the C layer
+ * failed to retrieve the temperature.
+ * @author Chris Mottram
+ * @version $Revision$
+ * @see StatusExposureStatusCommand
+ * @see StatusTemperatureStatusCommand
+ */
+public class StatusAllCommand extends Command implements Runnable
+{
+	/**
+	 * Revision Control System id string, showing the version of the Class.
+	 */
+	public final static String RCSID = new String("$Id$");
+	/**
+	 * The command to send to the server.
+	 */
+	public final static String COMMAND_STRING = new String("status all");
+	/**
+	 * Reply keyword, the exposure status.
+	 */
+	public final static String KEYWORD_EXPOSURE_STATUS = new String("exposure.status");
+	/**
+	 * Reply keyword, the exposure length in milliseconds.
+	 */
+	public final static String KEYWORD_EXPOSURE_LENGTH = new String("exposure.length");
+	/**
+	 * Reply keyword, the exposure start time.
+	 */
+	public final static String KEYWORD_EXPOSURE_START_TIME = new String("exposure.start_time");
+	/**
+	 * Reply keyword, the multrun number of the current/last exposure.
+	 */
+	public final static String KEYWORD_EXPOSURE_MULTRUN = new String("exposure.multrun");
+	/**
+	 * Reply keyword, the run number of the current/last exposure.
+	 */
+	public final static String KEYWORD_EXPOSURE_RUN = new String("exposure.run");
+	/**
+	 * Reply keyword, the index of the current exposure in the multrun.
+	 */
+	public final static String KEYWORD_MULTRUN_INDEX = new String("multrun.index");
+	/**
+	 * Reply keyword, the number of exposures in the multrun.
+	 */
+	public final static String KEYWORD_MULTRUN_COUNT = new String("multrun.count");
+	/**
+	 * Reply keyword, the X binning of the multrun.
+	 */
+	public final static String KEYWORD_MULTRUN_BIN_X = new String("multrun.binx");
+	/**
+	 * Reply keyword, the Y binning of the multrun.
+	 */
+	public final static String KEYWORD_MULTRUN_BIN_Y = new String("multrun.biny");
+	/**
+	 * Reply keyword, the time the temperature was measured.
+	 */
+	public final static String KEYWORD_TEMPERATURE_TIME = new String("temperature.time");
+	/**
+	 * Reply keyword, the CCD temperature in degrees centigrade.
+	 */
+	public final static String KEYWORD_TEMPERATURE = new String("temperature");
+	/**
+	 * Reply keyword, the temperature status.
+	 */
+	public final static String KEYWORD_TEMPERATURE_STATUS = new String("temperature.status");
+	/**
+	 * The keyword/value pairs parsed from the reply.
+	 */
+	protected Hashtable<String,String> parsedReplyTable = new Hashtable<String,String>();
+	/**
+	 * A tokenizer used to split the reply's timestamp into it's fields, re-used for each reply.
+	 * @see ReplyTokenizer#TIMESTAMP_DELIMITERS
+	 */
+	protected ReplyTokenizer timeStampTokenizer = new ReplyTokenizer(ReplyTokenizer.TIMESTAMP_DELIMITERS);
+
+	/**
+	 * Default constructor.
+	 * @see Command
+	 * @see #commandString
+	 * @see #COMMAND_STRING
+	 */
+	public StatusAllCommand()
+	{
+		super();
+		commandString = COMMAND_STRING;
+	}
+
+	/**
+	 * Constructor.
+	 * @param address A string representing the address of the server, i.e. "sprat1",
+	 *     "localhost", "192.168.1.62"
+	 * @param portNumber An integer representing the port number the server is receiving command on.
+	 * @see Command
+	 * @see #COMMAND_STRING
+	 * @exception UnknownHostException Thrown if the address in unknown.
+	 */
+	public StatusAllCommand(String address,int portNumber) throws UnknownHostException
+	{
+		super(address,portNumber,COMMAND_STRING);
+	}
+
+	/**
+	 * Parse a string returned from the server over the telnet connection.
+	 * In this case it is of the form: '&lt;n&gt; &lt;keyword&gt;=&lt;value&gt; ...'.
+	 * The first number is a success failure code, if it is zero a list of keyword/value pairs follows,
+	 * which are stored in parsedReplyTable.
+	 * @exception Exception Thrown if a parse error occurs.
+	 * @see #replyBuffer
+	 * @see #parsedReplyString
+	 * @see #parsedReplyOk
+	 * @see #parsedReplyTable
+	 */
+	public void parseReplyString() throws Exception
+	{
+		int sindex,tokenStart,tokenEnd;
+
+		super.parseReplyString();
+		parsedReplyTable.clear();
+		if(parsedReplyOk == false)
+			return;
+		while(replyTokenizer.nextToken())
+		{
+			tokenStart = replyTokenizer.getTokenStart();
+			tokenEnd = replyTokenizer.getTokenEnd();
+			sindex = replyBuffer.indexOf("=",tokenStart);
+			if((sindex <= tokenStart)||(sindex >= tokenEnd))
+			{
+				throw new Exception(this.getClass().getName()+":parseReplyString:Failed to parse '"+
+						    replyTokenizer.tokenToString()+"' in reply '"+getParsedReply()+"'.");
+			}
+			parsedReplyTable.put(replyBuffer.substring(tokenStart,sindex),
+					     replyBuffer.substring(sindex+1,tokenEnd));
+		}
+		if(isLoggable(Logging.VERBOSITY_VERY_VERBOSE))
+		{
+			logger.log(Logging.VERBOSITY_VERY_VERBOSE,"ngat.sprat.ccd.command.StatusAllCommand:parseReplyString:"+
+				   "Parsed "+parsedReplyTable.size()+" keywords.");
+		}
+	}
+
+	/**
+	 * Return whether the reply contained the specified keyword.
+	 * @param keyword The keyword.
+	 * @return true if the command succeeded and the reply contained the keyword, false otherwise.
+	 * @see #parsedReplyOk
+	 * @see #parsedReplyTable
+	 */
+	public boolean containsKeyword(String keyword)
+	{
+		return parsedReplyOk && parsedReplyTable.containsKey(keyword);
+	}
+
+	/**
+	 * Get the value of the specified keyword from the reply.
+	 * @param keyword The keyword.
+	 * @return The value, as a string.
+	 * @exception Exception Thrown if getting the data fails, either the run method failed to communicate
+	 *         with the server in some way, the method was called before the command had completed,
+	 *         or the reply did not contain the keyword.
+	 * @see #parsedReplyOk
+	 * @see #runException
+	 * @see #parsedReplyTable
+	 */
+	public String getValue(String keyword) throws Exception
+	{
+		String value = null;
+
+		if(parsedReplyOk == false)
+		{
+			if(runException != null)
+				throw runException;
+			else
+				throw new Exception(this.getClass().getName()+":getValue:Parsed Reply OK was false.");
+		}
+		value = parsedReplyTable.get(keyword);
+		if(value == null)
+		{
+			throw new Exception(this.getClass().getName()+":getValue:Keyword "+keyword+
+					    " not found in reply '"+getParsedReply()+"'.");
+		}
+		return value;
+	}
+
+	/**
+	 * Get the value of the specified keyword from the reply, as an integer.
+	 * @param keyword The keyword.
+	 * @return The value.
+	 * @exception Exception Thrown if getValue fails, or the value is not an integer.
+	 * @see #getValue
+	 */
+	public int getIntegerValue(String keyword) throws Exception
+	{
+		return Integer.parseInt(getValue(keyword));
+	}
+
+	/**
+	 * Get the current exposure status, as returned by the C layer.
+	 * @return An exposure status, as a string.
+	 * @exception Exception Thrown if getting the data fails.
+	 * @see #KEYWORD_EXPOSURE_STATUS
+	 */
+	public String getExposureStatusString() throws Exception
+	{
+		return getValue(KEYWORD_EXPOSURE_STATUS);
+	}
+
+	/**
+	 * Get the current exposure status.
+	 * This convertion should match the one in ccd_exposure.c : CCD_Exposure_Status_To_String function.
+	 * @return An exposure status, as an integer.
+	 * @exception Exception Thrown if getting the data fails, or the status is not recognised.
+	 * @see #getExposureStatusString
+	 * @see StatusExposureStatusCommand#CCD_EXPOSURE_STATUS_NONE
+	 * @see StatusExposureStatusCommand#CCD_EXPOSURE_STATUS_WAIT_START
+	 * @see StatusExposureStatusCommand#CCD_EXPOSURE_STATUS_CLEAR
+	 * @see StatusExposureStatusCommand#CCD_EXPOSURE_STATUS_EXPOSE
+	 * @see StatusExposureStatusCommand#CCD_EXPOSURE_STATUS_PRE_READOUT
+	 * @see StatusExposureStatusCommand#CCD_EXPOSURE_STATUS_READOUT
+	 * @see StatusExposureStatusCommand#CCD_EXPOSURE_STATUS_POST_READOUT
+	 */
+	public int getExposureStatus() throws Exception
+	{
+		String statusString = null;
+
+		statusString = getExposureStatusString();
+		if(statusString.equals("NONE"))
+			return StatusExposureStatusCommand.CCD_EXPOSURE_STATUS_NONE;
+		else if(statusString.equals("WAIT_START"))
+			return StatusExposureStatusCommand.CCD_EXPOSURE_STATUS_WAIT_START;
+		else if(statusString.equals("CLEAR"))
+			return StatusExposureStatusCommand.CCD_EXPOSURE_STATUS_CLEAR;
+		else if(statusString.equals("EXPOSE"))
+			return StatusExposureStatusCommand.CCD_EXPOSURE_STATUS_EXPOSE;
+		else if(statusString.equals("PRE_READOUT"))
+			return StatusExposureStatusCommand.CCD_EXPOSURE_STATUS_PRE_READOUT;
+		else if(statusString.equals("READOUT"))
+			return StatusExposureStatusCommand.CCD_EXPOSURE_STATUS_READOUT;
+		else if(statusString.equals("POST_READOUT"))
+			return StatusExposureStatusCommand.CCD_EXPOSURE_STATUS_POST_READOUT;
+		else
+		{
+			throw new Exception(this.getClass().getName()+
+					    ":getExposureStatus:Failed to parse status:"+statusString);
+		}
+	}
+
+	/**
+	 * Get the current exposure length.
+	 * @return The exposure length, in milliseconds.
+	 * @exception Exception Thrown if getting the data fails.
+	 * @see #KEYWORD_EXPOSURE_LENGTH
+	 */
+	public int getExposureLength() throws Exception
+	{
+		return getIntegerValue(KEYWORD_EXPOSURE_LENGTH);
+	}
+
+	/**
+	 * Get the start time of the current exposure.
+	 * @return The start time.
+	 * @exception Exception Thrown if getting the data fails.
+	 * @see #KEYWORD_EXPOSURE_START_TIME
+	 * @see #parseTimestamp
+	 */
+	public Date getExposureStartTime() throws Exception
+	{
+		return parseTimestamp(getValue(KEYWORD_EXPOSURE_START_TIME));
+	}
+
+	/**
+	 * Get the multrun number of the current exposure.
+	 * @return The multrun number.
+	 * @exception Exception Thrown if getting the data fails.
+	 * @see #KEYWORD_EXPOSURE_MULTRUN
+	 */
+	public int getExposureMultrun() throws Exception
+	{
+		return getIntegerValue(KEYWORD_EXPOSURE_MULTRUN);
+	}
+
+	/**
+	 * Get the run number of the current exposure.
+	 * @return The run number.
+	 * @exception Exception Thrown if getting the data fails.
+	 * @see #KEYWORD_EXPOSURE_RUN
+	 */
+	public int getExposureRun() throws Exception
+	{
+		return getIntegerValue(KEYWORD_EXPOSURE_RUN);
+	}
+
+	/**
+	 * Get the index of the current exposure in the multrun.
+	 * @return The exposure index.
+	 * @exception Exception Thrown if getting the data fails.
+	 * @see #KEYWORD_MULTRUN_INDEX
+	 */
+	public int getExposureIndex() throws Exception
+	{
+		return getIntegerValue(KEYWORD_MULTRUN_INDEX);
+	}
+
+	/**
+	 * Get the number of exposures in the multrun.
+	 * @return The exposure count.
+	 * @exception Exception Thrown if getting the data fails.
+	 * @see #KEYWORD_MULTRUN_COUNT
+	 */
+	public int getExposureCount() throws Exception
+	{
+		return getIntegerValue(KEYWORD_MULTRUN_COUNT);
+	}
+
+	/**
+	 * Get the X binning of the multrun.
+	 * @return The X binning.
+	 * @exception Exception Thrown if getting the data fails.
+	 * @see #KEYWORD_MULTRUN_BIN_X
+	 */
+	public int getBinX() throws Exception
+	{
+		return getIntegerValue(KEYWORD_MULTRUN_BIN_X);
+	}
+
+	/**
+	 * Get the Y binning of the multrun.
+	 * @return The Y binning.
+	 * @exception Exception Thrown if getting the data fails.
+	 * @see #KEYWORD_MULTRUN_BIN_Y
+	 */
+	public int getBinY() throws Exception
+	{
+		return getIntegerValue(KEYWORD_MULTRUN_BIN_Y);
+	}
+
+	/**
+	 * Return whether the reply contained the CCD temperature (it does not if the C layer failed to
+	 * retrieve it).
+	 * @return true if the reply contained the temperature, false otherwise.
+	 * @see #KEYWORD_TEMPERATURE
+	 * @see #containsKeyword
+	 */
+	public boolean hasTemperature()
+	{
+		return containsKeyword(KEYWORD_TEMPERATURE);
+	}
+
+	/**
+	 * Get the temperature of the CCD.
+	 * @return A double, the temperature (in degrees centigrade).
+	 * @exception Exception Thrown if getting the data fails, or the reply did not contain the temperature.
+	 * @see #KEYWORD_TEMPERATURE
+	 */
+	public double getTemperature() throws Exception
+	{
+		return Double.parseDouble(getValue(KEYWORD_TEMPERATURE));
+	}
+
+	/**
+	 * Get the time the temperature of the CCD was measured.
+	 * @return The timestamp.
+	 * @exception Exception Thrown if getting the data fails, or the reply did not contain the temperature.
+	 * @see #KEYWORD_TEMPERATURE_TIME
+	 * @see #parseTimestamp
+	 */
+	public Date getTemperatureTimestamp() throws Exception
+	{
+		return parseTimestamp(getValue(KEYWORD_TEMPERATURE_TIME));
+	}
+
+	/**
+	 * Get the temperature status.
+	 * @return The temperature status, as an integer.
+	 * @exception Exception Thrown if getting the data fails.
+	 * @see #KEYWORD_TEMPERATURE_STATUS
+	 * @see StatusTemperatureStatusCommand#CCD_TEMPERATURE_STATUS_OFF
+	 * @see StatusTemperatureStatusCommand#CCD_TEMPERATURE_STATUS_AMBIENT
+	 * @see StatusTemperatureStatusCommand#CCD_TEMPERATURE_STATUS_OK
+	 * @see StatusTemperatureStatusCommand#CCD_TEMPERATURE_STATUS_RAMPING
+	 * @see StatusTemperatureStatusCommand#CCD_TEMPERATURE_STATUS_UNKNOWN
+	 */
+	public int getTemperatureStatus() throws Exception
+	{
+		String statusString = null;
+
+		statusString = getValue(KEYWORD_TEMPERATURE_STATUS);
+		if(statusString.equals("OFF"))
+			return StatusTemperatureStatusCommand.CCD_TEMPERATURE_STATUS_OFF;
+		else if(statusString.equals("AMBIENT"))
+			return StatusTemperatureStatusCommand.CCD_TEMPERATURE_STATUS_AMBIENT;
+		else if(statusString.equals("OK"))
+			return StatusTemperatureStatusCommand.CCD_TEMPERATURE_STATUS_OK;
+		else if(statusString.equals("RAMPING"))
+			return StatusTemperatureStatusCommand.CCD_TEMPERATURE_STATUS_RAMPING;
+		else
+			return StatusTemperatureStatusCommand.CCD_TEMPERATURE_STATUS_UNKNOWN;
+	}
+
+	/**
+	 * Parse a timestamp of the form %Y-%m-%dT%H:%M:%S.sss, as returned by the C layer.
+	 * @param timeStampString The timestamp string.
+	 * @return The timestamp as a date.
+	 * @exception Exception Thrown if the string is not of the correct form.
+	 * @see #timeStampTokenizer
+	 */
+	protected Date parseTimestamp(String timeStampString) throws Exception
+	{
+		Calendar calendar = null;
+		double second=0.0;
+		int tokenIndex,day=0,month=0,year=0,hour=0,minute=0;
+
+		timeStampTokenizer.reset(timeStampString);
+		tokenIndex = 0;
+		while(timeStampTokenizer.nextToken())
+		{
+			if(tokenIndex == 0)
+				year = timeStampTokenizer.tokenToInt();// year including century
+			else if(tokenIndex == 1)
+				month = timeStampTokenizer.tokenToInt();// 01..12
+			else if(tokenIndex == 2)
+				day = timeStampTokenizer.tokenToInt();// 0..31
+			else if(tokenIndex == 3)
+				hour = timeStampTokenizer.tokenToInt();// 0..23
+			else if(tokenIndex == 4)
+				minute = timeStampTokenizer.tokenToInt();// 00..59
+			else if(tokenIndex == 5)
+				second = timeStampTokenizer.tokenToDouble();// 00..61 + milliseconds as decimal
+			tokenIndex++;
+		}// end while
+		if(tokenIndex != 6)
+		{
+			throw new Exception(this.getClass().getName()+":parseTimestamp:Failed to parse timestamp '"+
+					    timeStampString+"'.");
+		}
+		// create calendar
+		calendar = Calendar.getInstance();
+		// set calendar
+		calendar.set(year,month-1,day,hour,minute,(int)second);// month is zero-based.
+		calendar.set(Calendar.MILLISECOND,((int)(second*1000.0))%1000);
+		return calendar.getTime();
+	}
+
+	/**
+	 * Main test program.
+	 * @param args The argument list.
+	 */
+	public static void main(String args[])
+	{
+		StatusAllCommand command = null;
+		int portNumber = 8367;
+
+		if(args.length != 2)
+		{
+			System.out.println("java ngat.sprat.ccd.command.StatusAllCommand <hostname> <port number>");
+			System.exit(1);
+		}
+		try
+		{
+			// setup some console logging
+			initialiseLogging();
+			// parse arguments
+			portNumber = Integer.parseInt(args[1]);
+			command = new StatusAllCommand(args[0],portNumber);
+			command.run();
+			if(command.getRunException() != null)
+			{
+				System.err.println("StatusAllCommand: Command failed.");
+				command.getRunException().printStackTrace(System.err);
+				System.exit(1);
+			}
+			System.out.println("Finished:"+command.getCommandFinished());
+			System.out.println("Reply Parsed OK:"+command.getParsedReplyOK());
+			System.out.println("Exposure Status:"+command.getExposureStatusString());
+			System.out.println("Exposure Length:"+command.getExposureLength());
+			System.out.println("Exposure Start Time:"+command.getExposureStartTime());
+			System.out.println("Multrun:"+command.getExposureMultrun()+" Run:"+command.getExposureRun());
+			System.out.println("Index:"+command.getExposureIndex()+" Count:"+command.getExposureCount());
+			System.out.println("Binning:"+command.getBinX()+" x "+command.getBinY());
+			if(command.hasTemperature())
+			{
+				System.out.println("Temperature:"+command.getTemperature()+" at "+
+						   command.getTemperatureTimestamp());
+			}
+			System.out.println("Temperature Status:"+command.getTemperatureStatus());
+		}
+		catch(Exception e)
+		{
+			e.printStackTrace(System.err);
+			System.exit(1);
+		}
+		System.exit(0);
+	}
+}
@@ -33,6 +33,11 @@ public class StatusExposureStartTimeCommand extends Command implements Runnable
 	 * The parsed reply timestamp.
 	 */
 	protected Date parsedReplyTimestamp = null;
+	/**
+	 * A tokenizer used to split the reply's timestamp into it's fields, re-used for each reply.
+	 * @see ReplyTokenizer#TIMESTAMP_DELIMITERS
+	 */
+	protected ReplyTokenizer timeStampTokenizer = new ReplyTokenizer(ReplyTokenizer.TIMESTAMP_DELIMITERS);
 
 	/**
 	 * Default constructor.
@@ -69,7 +74,7 @@ public class StatusExposureStartTimeCommand extends Command implements Runnable
 	 * In this case it is of the form: '&lt;n&gt; %Y-%m-%dT%H:%M:%S.sss'
 	 * The first number is a success failure code, if it is zero a timestamp follows.
 	 * @exception Exception Thrown if a parse error occurs.
-	 * @see #replyString
+	 * @see #replyBuffer
 	 * @see #parsedReplyString
 	 * @see #parsedReplyOk
 	 * @see #parsedReplyTimestamp
@@ -78,11 +83,8 @@ public class StatusExposureStartTimeCommand extends Command implements Runnable
 	{
 		TimeZone timeZone = null;
 		Calendar calendar = null;
-		StringTokenizer st = null;
-		String timeStampString = null;
-		String temperatureString = null;
 		double second=0.0;
-		int sindex,tokenIndex,day=0,month=0,year=0,hour=0,minute=0;
+		int timeStampStart,timeStampEnd,tokenIndex,day=0,month=0,year=0,hour=0,minute=0;
 		
 		logger.log(Logging.VERBOSITY_VERY_VERBOSE,
 			   "ngat.sprat.ccd.command.StatusExposureStartTimeCommand:Started.");
@@ -95,39 +97,40 @@ public class StatusExposureStartTimeCommand extends Command implements Runnable
 			parsedReplyTimestamp = null;
 			return;
 		}
-		logger.log(Logging.VERBOSITY_VERY_VERBOSE,
-			   "ngat.sprat.ccd.command.StatusExposureStartTimeCommand:Parsing:'"+parsedReplyString+"'.");
-		st = new StringTokenizer(parsedReplyString," ");
-		tokenIndex = 0;
-		while(st.hasMoreTokens())
+		if(isLoggable(Logging.VERBOSITY_VERY_VERBOSE))
 		{
-			if(tokenIndex == 0)
-				timeStampString = st.nextToken();
-			else
-				st.nextToken();
-			tokenIndex++;
-		}// end while
-		logger.log(Logging.VERBOSITY_VERY_VERBOSE,"ngat.sprat.ccd.command.StatusExposureStartTimeCommand:"+
-			   "Time stamp string:'"+timeStampString+"'.");
-		// timeStampString should be of the form: %Y-%m-%dT%H:%M:%S.sss
-		st = new StringTokenizer(timeStampString,"-T:");
+			logger.log(Logging.VERBOSITY_VERY_VERBOSE,
+				   "ngat.sprat.ccd.command.StatusExposureStartTimeCommand:Parsing:'"+getParsedReply()+"'.");
+		}
+		if(replyTokenizer.nextToken() == false)
+		{
+			throw new Exception(this.getClass().getName()+":parseReplyString:No timestamp in reply:"+
+					    getParsedReply());
+		}
+		timeStampStart = replyTokenizer.getTokenStart();
+		timeStampEnd = replyTokenizer.getTokenEnd();
+		if(isLoggable(Logging.VERBOSITY_VERY_VERBOSE))
+		{
+			logger.log(Logging.VERBOSITY_VERY_VERBOSE,"ngat.sprat.ccd.command.StatusExposureStartTimeCommand:"+
+				   "Time stamp string:'"+replyBuffer.substring(timeStampStart,timeStampEnd)+"'.");
+		}
+		// the timestamp should be of the form: %Y-%m-%dT%H:%M:%S.sss
+		timeStampTokenizer.reset(replyBuffer,timeStampStart,timeStampEnd);
 		tokenIndex = 0;
-		while(st.hasMoreTokens())
+		while(timeStampTokenizer.nextToken())
 		{
 			if(tokenIndex == 0)
-				year = Integer.parseInt(st.nextToken());// year including century
+				year = timeStampTokenizer.tokenToInt();// year including century
 			else if(tokenIndex == 1)
-				month = Integer.parseInt(st.nextToken());// 01..12
+				month = timeStampTokenizer.tokenToInt();// 01..12
 			else if(tokenIndex == 2)
-				day = Integer.parseInt(st.nextToken());// 0..31
+				day = timeStampTokenizer.tokenToInt();// 0..31
 			else if(tokenIndex == 3)
-				hour = Integer.parseInt(st.nextToken());// 0..23
+				hour = timeStampTokenizer.tokenToInt();// 0..23
 			else if(tokenIndex == 4)
-				minute = Integer.parseInt(st.nextToken());// 00..59
+				minute = timeStampTokenizer.tokenToInt();// 00..59
 			else if(tokenIndex == 5)
-				second = Double.parseDouble(st.nextToken());// 00..61 + milliseconds as decimal
-			else
-				st.nextToken();
+				second = timeStampTokenizer.tokenToDouble();// 00..61 + milliseconds as decimal
 			tokenIndex++;
 		}// end while
 		// create calendar - ensure we get a UTC/GMT one
@@ -137,8 +140,11 @@ public class StatusExposureStartTimeCommand extends Command implements Runnable
 		calendar.set(year,month-1,day,hour,minute,(int)second);// month is zero-based.
 		// get timestamp from calendar 
 		parsedReplyTimestamp = calendar.getTime();
-		logger.log(Logging.VERBOSITY_VERY_VERBOSE,"ngat.sprat.ccd.command.StatusExposureStartTimeCommand:"+
-			   "Finished:Parsed time stamp:'"+parsedReplyTimestamp+"'.");
+		if(isLoggable(Logging.VERBOSITY_VERY_VERBOSE))
+		{
+			logger.log(Logging.VERBOSITY_VERY_VERBOSE,"ngat.sprat.ccd.command.StatusExposureStartTimeCommand:"+
+				   "Finished:Parsed time stamp:'"+parsedReplyTimestamp+"'.");
+		}
 	}
 
 	/**
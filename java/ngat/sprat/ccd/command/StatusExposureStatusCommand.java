@@ -97,7 +97,7 @@ public class StatusExposureStatusCommand extends Command implements Runnable
 				throw new Exception(this.getClass().getName()+
 						    ":getExposureStatusString:Parsed Reply OK was false.");
 		}
-		return parsedReplyString;
+		return getParsedReply();
 	}
 
 	/**
@@ -119,7 +119,7 @@ public class StatusExposureStatusCommand extends Command implements Runnable
 	 */
 	public int getExposureStatus() throws Exception
 	{
-		int exposureStatus;
+		int exposureStatus,end;
 
 		if(parsedReplyOk == false)
 		{
@@ -129,24 +129,25 @@ public class StatusExposureStatusCommand extends Command implements Runnable
 				throw new Exception(this.getClass().getName()+
 						    ":getExposureStatus:Parsed Reply OK was false.");
 		}
-		if(parsedReplyString.equals("NONE"))
+		end = replyBuffer.length();
+		if(ReplyTokenizer.regionEquals(replyBuffer,parsedReplyStart,end,"NONE"))
 			return CCD_EXPOSURE_STATUS_NONE;
-		else if(parsedReplyString.equals("WAIT_START"))
+		else if(ReplyTokenizer.regionEquals(replyBuffer,parsedReplyStart,end,"WAIT_START"))
 			return CCD_EXPOSURE_STATUS_WAIT_START;
-		else if(parsedReplyString.equals("CLEAR"))
+		else if(ReplyTokenizer.regionEquals(replyBuffer,parsedReplyStart,end,"CLEAR"))
 			return CCD_EXPOSURE_STATUS_CLEAR;
-		else if(parsedReplyString.equals("EXPOSE"))
+		else if(ReplyTokenizer.regionEquals(replyBuffer,parsedReplyStart,end,"EXPOSE"))
 			return CCD_EXPOSURE_STATUS_EXPOSE;
-		else if(parsedReplyString.equals("PRE_READOUT"))
+		else if(ReplyTokenizer.regionEquals(replyBuffer,parsedReplyStart,end,"PRE_READOUT"))
 			return CCD_EXPOSURE_STATUS_PRE_READOUT;
-		else if(parsedReplyString.equals("READOUT"))
+		else if(ReplyTokenizer.regionEquals(replyBuffer,parsedReplyStart,end,"READOUT"))
 			return CCD_EXPOSURE_STATUS_READOUT;
-		else if(parsedReplyString.equals("POST_READOUT"))
+		else if(ReplyTokenizer.regionEquals(replyBuffer,parsedReplyStart,end,"POST_READOUT"))
 			return CCD_EXPOSURE_STATUS_POST_READOUT;
 		else
 		{
 			throw new Exception(this.getClass().getName()+
-					    ":getExposureStatus:Failed to parse status:"+parsedReplyString);
+					    ":getExposureStatus:Failed to parse status:"+getParsedReply());
 		}
 	}
 
@@ -0,0 +1,131 @@
+// StatusMultrunFilenameCommand.java
+// $HeadURL$
+package ngat.sprat.ccd.command;
+
+import java.io.*;
+import java.lang.*;
+import java.net.*;
+import java.util.*;
+
+import ngat.util.logging.*;
+
+/**
+ * The "status multrun filename &lt;index&gt;" command is an extension of the Command, and returns the
+ * filename of a FITS image already saved by the current (or last) multrun. If the image has not been saved yet,
+ * the command fails with a non-zero return code.
+ * @author Chris Mottram
+ * @version $Revision$
+ */
+public class StatusMultrunFilenameCommand extends Command implements Runnable
+{
+	/**
+	 * Revision Control System id string, showing the version of the Class.
+	 */
+	public final static String RCSID = new String("$Id$");
+
+	/**
+	 * Default constructor.
+	 * @see Command
+	 * @see #commandString
+	 */
+	public StatusMultrunFilenameCommand()
+	{
+		super();
+		commandString = null;
+	}
+
+	/**
+	 * Constructor.
+	 * @param address A string representing the address of the server, i.e. "sprat",
+	 *     "localhost", "192.168.1.62"
+	 * @param portNumber An integer representing the port number the server is receiving command on.
+	 * @see Command
+	 * @see Command#setAddress
+	 * @see Command#setPortNumber
+	 * @exception UnknownHostException Thrown if the address in unknown.
+	 */
+	public StatusMultrunFilenameCommand(String address,int portNumber) throws UnknownHostException
+	{
+		super();
+		super.setAddress(address);
+		super.setPortNumber(portNumber);
+	}
+
+	/**
+	 * Setup the "status multrun filename" command.
+	 * @param index Which image in the multrun to retrieve the filename of, from 0 to the number of
+	 *        images saved so far minus one.
+	 * @see #commandString
+	 */
+	public void setCommand(int index)
+	{
+		commandString = new String("status multrun filename "+index);
+	}
+
+	/**
+	 * Get the filename of the requested multrun image.
+	 * @return A string, the filename of the image.
+	 * @exception Exception Thrown if getting the data fails, either the run method failed to communicate
+	 *         with the server in some way, the image has not been saved yet,
+	 *         or the method was called before the command had completed.
+	 */
+	public String getFilename() throws Exception
+	{
+		if(parsedReplyOk)
+			return getParsedReply();
+		else
+		{
+			if(runException != null)
+				throw runException;
+			else
+				throw new Exception(this.getClass().getName()+":getFilename:Failed with return code "+
+						    returnCode+":"+getParsedReply());
+		}
+	}
+
+	/**
+	 * Main test program.
+	 * @param args The argument list.
+	 */
+	public static void main(String args[])
+	{
+		StatusMultrunFilenameCommand command = null;
+		String hostname = null;
+		int portNumber = 8367;
+		int index;
+
+		if(args.length != 3)
+		{
+			System.out.println("java ngat.sprat.ccd.command.StatusMultrunFilenameCommand <hostname> <port number> <index>");
+			System.exit(1);
+		}
+		try
+		{
+			// setup some console logging
+			initialiseLogging();
+			// parse arguments
+			hostname = args[0];
+			portNumber = Integer.parseInt(args[1]);
+			index = Integer.parseInt(args[2]);
+			command = new StatusMultrunFilenameCommand(hostname,portNumber);
+			command.setCommand(index);
+			command.run();
+			if(command.getRunException() != null)
+			{
+				System.err.println("StatusMultrunFilenameCommand: Command failed.");
+				command.getRunException().printStackTrace(System.err);
+				System.exit(1);
+			}
+			System.out.println("Finished:"+command.getCommandFinished());
+			System.out.println("Reply Parsed OK:"+command.getParsedReplyOK());
+			System.out.println("Return Code:"+command.getReturnCode());
+			System.out.println("Filename:"+command.getParsedReply());
+		}
+		catch(Exception e)
+		{
+			e.printStackTrace(System.err);
+			System.exit(1);
+		}
+		System.exit(0);
+	}
+}
@@ -33,6 +33,11 @@ public class StatusTemperatureGetCommand extends Command implements Runnable
 	 * The parsed reply timestamp.
 	 */
 	protected Date parsedReplyTimestamp = null;
+	/**
+	 * A tokenizer used to split the reply's timestamp into it's fields, re-used for each reply.
+	 * @see ReplyTokenizer#TIMESTAMP_DELIMITERS
+	 */
+	protected ReplyTokenizer timeStampTokenizer = new ReplyTokenizer(ReplyTokenizer.TIMESTAMP_DELIMITERS);
 	/**
 	 * The parsed reply temperature (in degrees C?).
 	 */
@@ -74,7 +79,7 @@ public class StatusTemperatureGetCommand extends Command implements Runnable
 	 * The first number is a success failure code, if it is zero a timestamp and temperature follows.
 	 * @exception Exception Thrown if a parse error occurs.
 	 * @see #logger
-	 * @see #replyString
+	 * @see #replyBuffer
 	 * @see #parsedReplyString
 	 * @see #parsedReplyOk
 	 * @see #parsedReplyTimestamp
@@ -83,11 +88,8 @@ public class StatusTemperatureGetCommand extends Command implements Runnable
 	public void parseReplyString() throws Exception
 	{
 		Calendar calendar = null;
-		StringTokenizer st = null;
-		String timeStampString = null;
-		String temperatureString = null;
 		double second=0.0;
-		int sindex,tokenIndex,day=0,month=0,year=0,hour=0,minute=0;
+		int timeStampStart,timeStampEnd,tokenIndex,day=0,month=0,year=0,hour=0,minute=0;
 		
 		logger.log(Logging.VERBOSITY_VERY_VERBOSE,
 			   "ngat.sprat.ccd.command.StatusTemperatureGetCommand:parseReplyString:Started.");
@@ -101,42 +103,42 @@ public class StatusTemperatureGetCommand extends Command implements Runnable
 			parsedReplyTemperature = 0.0;
 			return;
 		}
-		logger.log(Logging.VERBOSITY_VERY_VERBOSE,
-			   "ngat.sprat.ccd.command.StatusTemperatureGetCommand:parseReplyString:Parsing '"+
-			   parsedReplyString+"'.");
-		st = new StringTokenizer(parsedReplyString," ");
-		tokenIndex = 0;
-		while(st.hasMoreTokens())
+		if(isLoggable(Logging.VERBOSITY_VERY_VERBOSE))
 		{
-			if(tokenIndex == 0)
-				timeStampString = st.nextToken();
-			else if(tokenIndex == 1)
-				temperatureString = st.nextToken();
-			else
-				st.nextToken();
-			tokenIndex++;
-		}// end while
-		// timeStampString should be of the form: %Y-%m-%dT%H:%M:%S.sss
-		logger.log(Logging.VERBOSITY_VERY_VERBOSE,"ngat.sprat.ccd.command.StatusTemperatureGetCommand:"+
-			   "parseReplyString:Parsing timestamp string '"+timeStampString+"'.");
-		st = new StringTokenizer(timeStampString,"-T:");
+			logger.log(Logging.VERBOSITY_VERY_VERBOSE,
+				   "ngat.sprat.ccd.command.StatusTemperatureGetCommand:parseReplyString:Parsing '"+
+				   getParsedReply()+"'.");
+		}
+		if(replyTokenizer.nextToken() == false)
+		{
+			throw new Exception(this.getClass().getName()+":parseReplyString:No timestamp in reply:"+
+					    getParsedReply());
+		}
+		timeStampStart = replyTokenizer.getTokenStart();
+		timeStampEnd = replyTokenizer.getTokenEnd();
+		// the timestamp should be of the form: %Y-%m-%dT%H:%M:%S.sss
+		if(isLoggable(Logging.VERBOSITY_VERY_VERBOSE))
+		{
+			logger.log(Logging.VERBOSITY_VERY_VERBOSE,"ngat.sprat.ccd.command.StatusTemperatureGetCommand:"+
+				   "parseReplyString:Parsing timestamp string '"+
+				   replyBuffer.substring(timeStampStart,timeStampEnd)+"'.");
+		}
+		timeStampTokenizer.reset(replyBuffer,timeStampStart,timeStampEnd);
 		tokenIndex = 0;
-		while(st.hasMoreTokens())
+		while(timeStampTokenizer.nextToken())
 		{
 			if(tokenIndex == 0)
-				year = Integer.parseInt(st.nextToken());// year including century
+				year = timeStampTokenizer.tokenToInt();// year including century
 			else if(tokenIndex == 1)
-				month = Integer.parseInt(st.nextToken());// 01..12
+				month = timeStampTokenizer.tokenToInt();// 01..12
 			else if(tokenIndex == 2)
-				day = Integer.parseInt(st.nextToken());// 0..31
+				day = timeStampTokenizer.tokenToInt();// 0..31
 			else if(tokenIndex == 3)
-				hour = Integer.parseInt(st.nextToken());// 0..23
+				hour = timeStampTokenizer.tokenToInt();// 0..23
 			else if(tokenIndex == 4)
-				minute = Integer.parseInt(st.nextToken());// 00..59
+				minute = timeStampTokenizer.tokenToInt();// 00..59
 			else if(tokenIndex == 5)
-				second = Double.parseDouble(st.nextToken());// 00..61 + milliseconds as decimal
-			else
-				st.nextToken();
+				second = timeStampTokenizer.tokenToDouble();// 00..61 + milliseconds as decimal
 			tokenIndex++;
 		}// end while
 		// create calendar
@@ -145,14 +147,24 @@ public class StatusTemperatureGetCommand extends Command implements Runnable
 		calendar.set(year,month-1,day,hour,minute,(int)second);// month is zero-based.
 		// get timestamp from calendar 
 		parsedReplyTimestamp = calendar.getTime();
-		logger.log(Logging.VERBOSITY_VERY_VERBOSE,"ngat.sprat.ccd.command.StatusTemperatureGetCommand:"+
-			   "parseReplyString:Parsed timestamp: '"+parsedReplyTimestamp+"'.");
-		// parse temperature
-		logger.log(Logging.VERBOSITY_VERY_VERBOSE,"ngat.sprat.ccd.command.StatusTemperatureGetCommand:"+
-			   "parseReplyString:Parsing temperature string: '"+temperatureString+"'.");
-		parsedReplyTemperature = Double.parseDouble(temperatureString);
-		logger.log(Logging.VERBOSITY_VERY_VERBOSE,"ngat.sprat.ccd.command.StatusTemperatureGetCommand:"+
-			   "parseReplyString:Parsed Temperature: '"+parsedReplyTemperature+"'.");
+		if(isLoggable(Logging.VERBOSITY_VERY_VERBOSE))
+		{
+			logger.log(Logging.VERBOSITY_VERY_VERBOSE,"ngat.sprat.ccd.command.StatusTemperatureGetCommand:"+
+				   "parseReplyString:Parsed timestamp: '"+parsedReplyTimestamp+"'.");
+		}
+		// parse temperature, the token after the timestamp
+		replyTokenizer.nextToken();
+		if(isLoggable(Logging.VERBOSITY_VERY_VERBOSE))
+		{
+			logger.log(Logging.VERBOSITY_VERY_VERBOSE,"ngat.sprat.ccd.command.StatusTemperatureGetCommand:"+
+				   "parseReplyString:Parsing temperature string: '"+replyTokenizer.tokenToString()+"'.");
+		}
+		parsedReplyTemperature = replyTokenizer.tokenToDouble();
+		if(isLoggable(Logging.VERBOSITY_VERY_VERBOSE))
+		{
+			logger.log(Logging.VERBOSITY_VERY_VERBOSE,"ngat.sprat.ccd.command.StatusTemperatureGetCommand:"+
+				   "parseReplyString:Parsed Temperature: '"+parsedReplyTemperature+"'.");
+		}
 		logger.log(Logging.VERBOSITY_VERY_VERBOSE,
 			   "ngat.sprat.ccd.command.StatusTemperatureGetCommand:parseReplyString:Finished.");
 	}
@@ -53,6 +53,11 @@ public class StatusTemperatureStatusCommand extends Command implements Runnable
 	 * The parsed reply timestamp.
 	 */
 	protected Date parsedReplyTimestamp = null;
+	/**
+	 * A tokenizer used to split the reply's timestamp into it's fields, re-used for each reply.
+	 * @see ReplyTokenizer#TIMESTAMP_DELIMITERS
+	 */
+	protected ReplyTokenizer timeStampTokenizer = new ReplyTokenizer(ReplyTokenizer.TIMESTAMP_DELIMITERS);
 	/**
 	 * The parsed reply temperature status string.
 	 */
@@ -99,7 +104,7 @@ public class StatusTemperatureStatusCommand extends Command implements Runnable
 	 * The first number is a success failure code, if it is zero a timestamp and temperature status follows.
 	 * @exception Exception Thrown if a parse error occurs.
 	 * @see #logger
-	 * @see #replyString
+	 * @see #replyBuffer
 	 * @see #parsedReplyString
 	 * @see #parsedReplyOk
 	 * @see #parsedReplyTimestamp
@@ -114,10 +119,8 @@ public class StatusTemperatureStatusCommand extends Command implements Runnable
 	public void parseReplyString() throws Exception
 	{
 		Calendar calendar = null;
-		StringTokenizer st = null;
-		String timeStampString = null;
 		double second=0.0;
-		int sindex,tokenIndex,day=0,month=0,year=0,hour=0,minute=0;
+		int timeStampStart,timeStampEnd,tokenIndex,day=0,month=0,year=0,hour=0,minute=0;
 		
 		logger.log(Logging.VERBOSITY_VERY_VERBOSE,
 			   "ngat.sprat.ccd.command.StatusTemperatureStatusCommand:parseReplyString:Started.");
@@ -132,38 +135,44 @@ public class StatusTemperatureStatusCommand extends Command implements Runnable
 			parsedReplyTemperatureStatusString = null;
 			return;
 		}
-		logger.log(Logging.VERBOSITY_VERY_VERBOSE,
-			   "ngat.sprat.ccd.command.StatusTemperatureStatusCommand:parseReplyString:Parsing '"+
-			   parsedReplyString+"'.");
-		st = new StringTokenizer(parsedReplyString," ");
-		tokenIndex = 0;
-		while(st.hasMoreTokens())
+		if(isLoggable(Logging.VERBOSITY_VERY_VERBOSE))
 		{
-			if(tokenIndex == 0)
-				timeStampString = st.nextToken();
-			else if(tokenIndex == 1)
-				parsedReplyTemperatureStatusString = st.nextToken();
-			tokenIndex++;
-		}// end while
-		// timeStampString should be of the form: %Y-%m-%dT%H:%M:%S.sss
-		logger.log(Logging.VERBOSITY_VERY_VERBOSE,"ngat.sprat.ccd.command.StatusTemperatureStatusCommand:"+
-			   "parseReplyString:Parsing timestamp string '"+timeStampString+"'.");
-		st = new StringTokenizer(timeStampString,"-T:");
+			logger.log(Logging.VERBOSITY_VERY_VERBOSE,
+				   "ngat.sprat.ccd.command.StatusTemperatureStatusCommand:parseReplyString:Parsing '"+
+				   getParsedReply()+"'.");
+		}
+		if(replyTokenizer.nextToken() == false)
+		{
+			throw new Exception(this.getClass().getName()+":parseReplyString:No timestamp in reply:"+
+					    getParsedReply());
+		}
+		timeStampStart = replyTokenizer.getTokenStart();
+		timeStampEnd = replyTokenizer.getTokenEnd();
+		if(replyTokenizer.nextToken())
+			parsedReplyTemperatureStatusString = replyTokenizer.tokenToString();
+		// the timestamp should be of the form: %Y-%m-%dT%H:%M:%S.sss
+		if(isLoggable(Logging.VERBOSITY_VERY_VERBOSE))
+		{
+			logger.log(Logging.VERBOSITY_VERY_VERBOSE,"ngat.sprat.ccd.command.StatusTemperatureStatusCommand:"+
+				   "parseReplyString:Parsing timestamp string '"+
+				   replyBuffer.substring(timeStampStart,timeStampEnd)+"'.");
+		}
+		timeStampTokenizer.reset(replyBuffer,timeStampStart,timeStampEnd);
 		tokenIndex = 0;
-		while(st.hasMoreTokens())
+		while(timeStampTokenizer.nextToken())
 		{
 			if(tokenIndex == 0)
-				year = Integer.parseInt(st.nextToken());// year including century
+				year = timeStampTokenizer.tokenToInt();// year including century
 			else if(tokenIndex == 1)
-				month = Integer.parseInt(st.nextToken());// 01..12
+				month = timeStampTokenizer.tokenToInt();// 01..12
 			else if(tokenIndex == 2)
-				day = Integer.parseInt(st.nextToken());// 0..31
+				day = timeStampTokenizer.tokenToInt();// 0..31
 			else if(tokenIndex == 3)
-				hour = Integer.parseInt(st.nextToken());// 0..23
+				hour = timeStampTokenizer.tokenToInt();// 0..23
 			else if(tokenIndex == 4)
-				minute = Integer.parseInt(st.nextToken());// 00..59
+				minute = timeStampTokenizer.tokenToInt();// 00..59
 			else if(tokenIndex == 5)
-				second = Double.parseDouble(st.nextToken());// 00..61 + milliseconds as decimal
+				second = timeStampTokenizer.tokenToDouble();// 00..61 + milliseconds as decimal
 			tokenIndex++;
 		}// end while
 		// create calendar
@@ -172,12 +181,18 @@ public class StatusTemperatureStatusCommand extends Command implements Runnable
 		calendar.set(year,month-1,day,hour,minute,(int)second);// month is zero-based.
 		// get timestamp from calendar 
 		parsedReplyTimestamp = calendar.getTime();
-		logger.log(Logging.VERBOSITY_VERY_VERBOSE,"ngat.sprat.ccd.command.StatusTemperatureStatusCommand:"+
-			   "parseReplyString:Parsed timestamp: '"+parsedReplyTimestamp+"'.");
+		if(isLoggable(Logging.VERBOSITY_VERY_VERBOSE))
+		{
+			logger.log(Logging.VERBOSITY_VERY_VERBOSE,"ngat.sprat.ccd.command.StatusTemperatureStatusCommand:"+
+				   "parseReplyString:Parsed timestamp: '"+parsedReplyTimestamp+"'.");
+		}
 		// parse temperature status string into temperature status
-		logger.log(Logging.VERBOSITY_VERY_VERBOSE,"ngat.sprat.ccd.command.StatusTemperatureGetCommand:"+
-			   "parseReplyString:Parsing temperature status string: '"+
-			   parsedReplyTemperatureStatusString+"'.");
+		if(isLoggable(Logging.VERBOSITY_VERY_VERBOSE))
+		{
+			logger.log(Logging.VERBOSITY_VERY_VERBOSE,"ngat.sprat.ccd.command.StatusTemperatureGetCommand:"+
+				   "parseReplyString:Parsing temperature status string: '"+
+				   parsedReplyTemperatureStatusString+"'.");
+		}
 		if(parsedReplyTemperatureStatusString.equals("OFF"))
 			parsedReplyTemperatureStatus = CCD_TEMPERATURE_STATUS_OFF;
 		else if(parsedReplyTemperatureStatusString.equals("AMBIENT"))
@@ -190,9 +205,12 @@ public class StatusTemperatureStatusCommand extends Command implements Runnable
 			parsedReplyTemperatureStatus = CCD_TEMPERATURE_STATUS_UNKNOWN;
 		else
 			parsedReplyTemperatureStatus = CCD_TEMPERATURE_STATUS_UNKNOWN;
-		logger.log(Logging.VERBOSITY_VERY_VERBOSE,"ngat.sprat.ccd.command.StatusTemperatureGetCommand:"+
-			   "parseReplyString:Parsed temperature status string: '"+
-			   parsedReplyTemperatureStatusString+"' with status value "+parsedReplyTemperatureStatus+".");
+		if(isLoggable(Logging.VERBOSITY_VERY_VERBOSE))
+		{
+			logger.log(Logging.VERBOSITY_VERY_VERBOSE,"ngat.sprat.ccd.command.StatusTemperatureGetCommand:"+
+				   "parseReplyString:Parsed temperature status string: '"+
+				   parsedReplyTemperatureStatusString+"' with status value "+parsedReplyTemperatureStatus+".");
+		}
 		logger.log(Logging.VERBOSITY_VERY_VERBOSE,
 			   "ngat.sprat.ccd.command.StatusTemperatureStatusCommand:parseReplyString:Finished.");
 	}
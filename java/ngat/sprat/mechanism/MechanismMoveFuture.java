@@ -0,0 +1,142 @@
+// MechanismMoveFuture.java
+// $HeadURL$
+package ngat.sprat.mechanism;
+
+import java.lang.*;
+import java.util.concurrent.*;
+
+/**
+ * MechanismMoveFuture runs a mechanism move asynchronously. The move is started using start (or submitted
+ * to an ExecutorService), and the caller can do other work before calling get to wait for the move to complete.
+ * get throws an ExecutionException (wrapping the mover's run exception) if the move failed.
+ * @author Chris Mottram
+ * @version $Revision$
+ * @see MechanismMover
+ */
+public class MechanismMoveFuture extends FutureTask<MechanismMover>
+{
+	/**
+	 * Revision Control System id string, showing the version of the Class.
+	 */
+	public final static String RCSID = new String("$Id$");
+	/**
+	 * The mover performing the move.
+	 */
+	protected MechanismMover mover = null;
+
+	/**
+	 * Constructor.
+	 * @param mover The mover to run. The mover should have it's command, target position
+	 *        and timing configuration already setup.
+	 * @see #mover
+	 * @see MoveCallable
+	 */
+	public MechanismMoveFuture(MechanismMover mover)
+	{
+		super(new MoveCallable(mover));
+		this.mover = mover;
+	}
+
+	/**
+	 * Start the move in a new thread.
+	 * @return This future, so the caller can wait for the move to complete.
+	 */
+	public MechanismMoveFuture start()
+	{
+		Thread thread = null;
+
+		thread = new Thread(this,"Mechanism move:"+mover.getClass().getName());
+		thread.start();
+		return this;
+	}
+
+	/**
+	 * Start the move using the specified executor. If the executor is null, or it rejects the move,
+	 * the move is started in a new thread instead.
+	 * @param executor The executor to run the move on.
+	 * @return This future, so the caller can wait for the move to complete.
+	 * @see #start
+	 */
+	public MechanismMoveFuture start(ExecutorService executor)
+	{
+		if(executor != null)
+		{
+			try
+			{
+				executor.execute(this);
+				return this;
+			}
+			catch(RejectedExecutionException e)
+			{
+				// fall through and start a new thread
+			}
+		}
+		return start();
+	}
+
+	/**
+	 * Get the mover performing the move.
+	 * @return The mover.
+	 * @see #mover
+	 */
+	public MechanismMover getMover()
+	{
+		return mover;
+	}
+
+	/**
+	 * Notify the mover that the mechanism has reached it's target position, so it re-queries the
+	 * position immediately rather than waiting for the end of it's current pause.
+	 * @see MechanismMover#positionReached
+	 */
+	public void positionReached()
+	{
+		mover.positionReached();
+	}
+
+	/**
+	 * Cancel the move. The mover stops waiting for the mechanism as soon as possible, and get then
+	 * throws an ExecutionException.
+	 * @see MechanismMover#cancel
+	 */
+	public void cancelMove()
+	{
+		mover.cancel();
+	}
+
+	/**
+	 * Callable that runs the mover, and throws the mover's run exception if the move failed.
+	 */
+	protected static class MoveCallable implements Callable<MechanismMover>
+	{
+		/**
+		 * The mover to run.
+		 */
+		protected MechanismMover mover = null;
+
+		/**
+		 * Constructor.
+		 * @param m The mover to run.
+		 */
+		public MoveCallable(MechanismMover m)
+		{
+			super();
+			mover = m;
+		}
+
+		/**
+		 * Run the mover.
+		 * @return The mover.
+		 * @exception Exception Thrown if the move failed.
+		 * @see MechanismMover#run
+		 * @see MechanismMover#getRunException
+		 */
+		public MechanismMover call() throws Exception
+		{
+			mover.run();
+			if(mover.getRunException() != null)
+				throw mover.getRunException();
+			return mover;
+		}
+	}
+}
@@ -0,0 +1,306 @@
+// MechanismMovePlan.java
+// $HeadURL$
+package ngat.sprat.mechanism;
+
+import java.lang.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+import ngat.sprat.mechanism.command.*;
+import ngat.util.logging.*;
+
+/**
+ * MechanismMovePlan runs a set of mechanism moves, as concurrently as the interlocks between the
+ * mechanisms allow. Each move is added as a step, with a list of the steps that must have
+ * successfully completed before it can start (i.e. the grism can only be moved in or out once the grism
+ * rotation has been stowed). Steps with no dependencies between them run in parallel.
+ * If a step fails, any steps that depend on it are not started, and fail as well.
+ * Each mover keeps it's own sleep and timeout times.
+ * @author Chris Mottram
+ * @version $Revision$
+ * @see MechanismMover
+ */
+public class MechanismMovePlan
+{
+	/**
+	 * Revision Control System id string, showing the version of the Class.
+	 */
+	public final static String RCSID = new String("$Id$");
+	/**
+	 * The logger to log messages to.
+	 */
+	protected Logger logger = null;
+	/**
+	 * The list of steps in the plan, in the order they were added.
+	 * @see Step
+	 */
+	protected Vector<Step> stepList = null;
+	/**
+	 * An optional session, shared by all the movers in the plan. The Arduino only serves one client at a time,
+	 * so concurrent moves must share one session, otherwise they would be serialised waiting for
+	 * each other's sessions to end.
+	 * @see #setSession
+	 */
+	protected MechanismSession session = null;
+
+	/**
+	 * Default constructor.
+	 * @see #logger
+	 * @see #stepList
+	 */
+	public MechanismMovePlan()
+	{
+		super();
+		logger = LogManager.getLogger(this);
+		stepList = new Vector<Step>();
+	}
+
+	/**
+	 * Set a session to be shared by all the movers in the plan.
+	 * @param s An open session, or null to let each mover use it's own connection(s).
+	 * @see #session
+	 */
+	public void setSession(MechanismSession s)
+	{
+		session = s;
+	}
+
+	/**
+	 * Add a move to the plan.
+	 * @param name The name of the step, used in log and error messages, i.e. "slit".
+	 * @param mover The configured mover to run.
+	 * @param dependencyList The steps that must have successfully completed before this move can be started.
+	 *        Null entries are ignored, so a step that turned out not to be needed (i.e. the mechanism was
+	 *        already in position) can still be passed as a dependency.
+	 * @return The new step, which can be used as a dependency of later steps.
+	 * @see #stepList
+	 * @see Step
+	 */
+	public Step addMove(String name,MechanismMover mover,Step... dependencyList)
+	{
+		Step step = null;
+
+		step = new Step(name,mover,dependencyList);
+		stepList.add(step);
+		return step;
+	}
+
+	/**
+	 * Run all the steps in the plan, and wait for them all to complete (successfully or not).
+	 * Each step is started in it's own thread, and waits for it's dependencies to complete before moving
+	 * it's mechanism. If a session has been set, it is used by all the movers.
+	 * @exception InterruptedException Thrown if this thread is interrupted whilst waiting for the moves
+	 *            to complete.
+	 * @see #stepList
+	 * @see #session
+	 * @see Step#start
+	 * @see Step#waitForCompletion
+	 */
+	public void execute() throws InterruptedException
+	{
+		Step step = null;
+
+		if(Command.isLoggable(Logging.VERBOSITY_VERBOSE))
+		{
+			logger.log(Logging.VERBOSITY_VERBOSE,"ngat.sprat.mechanism.MechanismMovePlan:execute:Started "+
+				   stepList.size()+" moves.");
+		}
+		for(int i = 0; i < stepList.size(); i++)
+		{
+			step = stepList.get(i);
+			if(session != null)
+				step.getMover().setSession(session);
+			step.start();
+		}
+		for(int i = 0; i < stepList.size(); i++)
+		{
+			step = stepList.get(i);
+			step.waitForCompletion();
+		}
+		logger.log(Logging.VERBOSITY_VERBOSE,"ngat.sprat.mechanism.MechanismMovePlan:execute:Finished.");
+	}
+
+	/**
+	 * Cancel all the moves in the plan. Moves in progress stop waiting for their mechanisms as soon as possible,
+	 * and moves not yet started fail when they are started. This can be called from another thread
+	 * whilst execute is waiting for the moves.
+	 * @see #stepList
+	 * @see MechanismMover#cancel
+	 */
+	public void cancel()
+	{
+		for(int i = 0; i < stepList.size(); i++)
+			stepList.get(i).getMover().cancel();
+	}
+
+	/**
+	 * Return whether every step in the plan completed successfully.
+	 * @return true if all the moves succeeded, false if any failed (or were not attempted).
+	 * @see #stepList
+	 * @see Step#getException
+	 */
+	public boolean isSuccessful()
+	{
+		for(int i = 0; i < stepList.size(); i++)
+		{
+			if(stepList.get(i).getException() != null)
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * A step in the move plan, which runs one mover once all the steps it depends on have completed
+	 * successfully.
+	 */
+	public class Step implements Callable<MechanismMover>
+	{
+		/**
+		 * The name of the step.
+		 */
+		protected String name = null;
+		/**
+		 * The mover to run.
+		 */
+		protected MechanismMover mover = null;
+		/**
+		 * The steps that must successfully complete before this step starts it's move.
+		 */
+		protected Step dependencyList[] = null;
+		/**
+		 * The future used to run this step, and wait for it's completion.
+		 */
+		protected FutureTask<MechanismMover> future = null;
+		/**
+		 * The exception that caused this step to fail, or null if it succeeded.
+		 */
+		protected Exception exception = null;
+
+		/**
+		 * Constructor.
+		 * @param name The name of the step.
+		 * @param mover The mover to run.
+		 * @param dependencyList The steps that must successfully complete before this step starts it's move.
+		 * @see #future
+		 */
+		public Step(String name,MechanismMover mover,Step dependencyList[])
+		{
+			super();
+			this.name = name;
+			this.mover = mover;
+			this.dependencyList = dependencyList;
+			future = new FutureTask<MechanismMover>(this);
+		}
+
+		/**
+		 * Start the step running in it's own thread.
+		 * @see #future
+		 */
+		public void start()
+		{
+			Thread thread = null;
+
+			thread = new Thread(future,"Mechanism move plan:"+name);
+			thread.start();
+		}
+
+		/**
+		 * Callable implementation. Waits for all the (non-null) dependencies to complete, then runs the mover.
+		 * @return The mover.
+		 * @exception Exception Thrown if a dependency failed, or the move failed.
+		 * @see #dependencyList
+		 * @see #mover
+		 */
+		public MechanismMover call() throws Exception
+		{
+			for(int i = 0; i < dependencyList.length; i++)
+			{
+				if(dependencyList[i] == null)
+					continue;
+				try
+				{
+					dependencyList[i].future.get();
+				}
+				catch(ExecutionException e)
+				{
+					throw new Exception(this.getClass().getName()+":call:Move "+name+
+							    " not started as "+dependencyList[i].name+" failed.",e.getCause());
+				}
+			}
+			if(Command.isLoggable(Logging.VERBOSITY_VERBOSE))
+			{
+				logger.log(Logging.VERBOSITY_VERBOSE,"ngat.sprat.mechanism.MechanismMovePlan:Step:call:"+
+					   "Starting move "+name+".");
+			}
+			mover.run();
+			if(mover.getRunException() != null)
+				throw mover.getRunException();
+			if(Command.isLoggable(Logging.VERBOSITY_VERBOSE))
+			{
+				logger.log(Logging.VERBOSITY_VERBOSE,"ngat.sprat.mechanism.MechanismMovePlan:Step:call:"+
+					   "Finished move "+name+".");
+			}
+			return mover;
+		}
+
+		/**
+		 * Wait for the step to complete, and record any exception that caused it to fail.
+		 * @exception InterruptedException Thrown if the thread is interrupted whilst waiting.
+		 * @see #future
+		 * @see #exception
+		 */
+		public void waitForCompletion() throws InterruptedException
+		{
+			Throwable cause = null;
+
+			try
+			{
+				future.get();
+				exception = null;
+			}
+			catch(ExecutionException e)
+			{
+				cause = e.getCause();
+				if(cause instanceof Exception)
+					exception = (Exception)cause;
+				else
+					exception = e;
+				if(Command.isLoggable(Logging.VERBOSITY_VERBOSE))
+				{
+					logger.log(Logging.VERBOSITY_VERBOSE,"ngat.sprat.mechanism.MechanismMovePlan:Step:"+
+						   "waitForCompletion:Move "+name+" failed:"+exception);
+				}
+			}
+		}
+
+		/**
+		 * Get the name of the step.
+		 * @return The name.
+		 * @see #name
+		 */
+		public String getName()
+		{
+			return name;
+		}
+
+		/**
+		 * Get the mover this step runs.
+		 * @return The mover.
+		 * @see #mover
+		 */
+		public MechanismMover getMover()
+		{
+			return mover;
+		}
+
+		/**
+		 * Get the exception that caused this step to fail.
+		 * @return The exception, or null if the step succeeded (or has not been waited for).
+		 * @see #exception
+		 */
+		public Exception getException()
+		{
+			return exception;
+		}
+	}
+}
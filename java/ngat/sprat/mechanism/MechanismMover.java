@@ -0,0 +1,64 @@
+// MechanismMover.java
+// $HeadURL$
+package ngat.sprat.mechanism;
+
+import java.lang.*;
+
+import ngat.sprat.mechanism.command.*;
+
+/**
+ * This interface is implemented by the mechanism move classes, so they can be moved asynchronously using
+ * MechanismMoveFuture.
+ * @author Chris Mottram
+ * @version $Revision$
+ * @see MechanismMoveFuture
+ */
+public interface MechanismMover extends Runnable
+{
+	/**
+	 * Set the length of time to pause, between position queries, at the start of the move. The pause
+	 * increases up to the sleep time as the move continues.
+	 * @param ms The length of time in milliseconds.
+	 */
+	public void setInitialSleepTime(long ms);
+	/**
+	 * Set the maximum length of time to pause, between position queries.
+	 * @param ms The length of time in milliseconds.
+	 */
+	public void setSleepTime(long ms);
+	/**
+	 * Set the length of time to wait for the mechanism to attain it's new position.
+	 * @param ms The length of time in milliseconds.
+	 */
+	public void setTimeoutTime(long ms);
+	/**
+	 * Set whether to send all the commands for the move over one persistent Arduino session.
+	 * @param b true to use a session, false to open a new telnet connection for each command.
+	 */
+	public void setUseSession(boolean b);
+	/**
+	 * Set an existing session to send all the commands for the move over.
+	 * @param s An open session, or null for the mover to open it's own (if setUseSession is true).
+	 */
+	public void setSession(MechanismSession s);
+	/**
+	 * Notify the mover that the mechanism has (probably) reached it's target position, so the position
+	 * is re-queried immediately.
+	 */
+	public void positionReached();
+	/**
+	 * Cancel the move (i.e. because the command moving the mechanism has been aborted). The mover stops
+	 * waiting for the mechanism to attain it's position as soon as possible, and the move fails.
+	 */
+	public void cancel();
+	/**
+	 * Return whether the run method captured an error (exception).
+	 * @return true if the move failed, false otherwise.
+	 */
+	public boolean getIsError();
+	/**
+	 * Get any exception thrown during the execution of the run method.
+	 * @return An exception if the move failed in some way, or null if no error occured.
+	 */
+	public Exception getRunException();
+}
@@ -0,0 +1,164 @@
+// MoveBackOff.java
+// $HeadURL$
+package ngat.sprat.mechanism;
+
+import java.lang.*;
+
+/**
+ * MoveBackOff is used by the mechanism move classes to pause between position queries, whilst waiting for
+ * a mechanism to attain it's new position. Rather than always sleeping for the same length of time, the
+ * first pause is short (the initial sleep time), and each subsequent pause is longer (multiplied by the
+ * back off factor), up to the maximum sleep time. This means moves that complete quickly are detected
+ * quickly, without continuously querying the Arduino during long moves.
+ * A pause can also be ended early by calling positionReached (i.e. when the Arduino notifies us the mechanism
+ * has arrived), in which case the position is re-queried immediately, or by calling cancel (i.e. when the
+ * command moving the mechanism is aborted), in which case the mover should stop the move.
+ * @author Chris Mottram
+ * @version $Revision$
+ */
+public class MoveBackOff
+{
+	/**
+	 * Revision Control System id string, showing the version of the Class.
+	 */
+	public final static String RCSID = new String("$Id$");
+	/**
+	 * The default factor the pause length is multiplied by after each pause.
+	 */
+	public final static double DEFAULT_BACK_OFF_FACTOR = 2.0;
+	/**
+	 * The length of the first pause, in milliseconds.
+	 */
+	protected long initialSleepTime = 100;
+	/**
+	 * The maximum length of a pause, in milliseconds.
+	 */
+	protected long maximumSleepTime = 100;
+	/**
+	 * The factor the pause length is multiplied by after each pause.
+	 */
+	protected double backOffFactor = DEFAULT_BACK_OFF_FACTOR;
+	/**
+	 * The length of the next pause, in milliseconds.
+	 */
+	protected long currentSleepTime = 100;
+	/**
+	 * Whether positionReached has been called since the last pause.
+	 * @see #positionReached
+	 */
+	protected boolean positionReached = false;
+	/**
+	 * Whether the move has been cancelled. This is not cleared by reset, so a move cancelled before it
+	 * started stays cancelled.
+	 * @see #cancel
+	 */
+	protected boolean cancelled = false;
+
+	/**
+	 * Default constructor.
+	 */
+	public MoveBackOff()
+	{
+		super();
+	}
+
+	/**
+	 * Set the length of the first pause.
+	 * @param ms The length of time in milliseconds.
+	 * @see #initialSleepTime
+	 */
+	public synchronized void setInitialSleepTime(long ms)
+	{
+		initialSleepTime = ms;
+	}
+
+	/**
+	 * Set the maximum length of a pause.
+	 * @param ms The length of time in milliseconds.
+	 * @see #maximumSleepTime
+	 */
+	public synchronized void setMaximumSleepTime(long ms)
+	{
+		maximumSleepTime = ms;
+	}
+
+	/**
+	 * Set the factor the pause length is multiplied by after each pause.
+	 * @param f The factor, which should be at least 1.0.
+	 * @see #backOffFactor
+	 */
+	public synchronized void setBackOffFactor(double f)
+	{
+		backOffFactor = f;
+	}
+
+	/**
+	 * Reset the pause length to the initial sleep time, ready for a new move.
+	 * @see #initialSleepTime
+	 * @see #maximumSleepTime
+	 * @see #currentSleepTime
+	 * @see #positionReached
+	 */
+	public synchronized void reset()
+	{
+		currentSleepTime = Math.min(initialSleepTime,maximumSleepTime);
+		positionReached = false;
+	}
+
+	/**
+	 * Pause before the next position query. We wait for currentSleepTime milliseconds, or until
+	 * positionReached or cancel is called. We do not wait at all if the move has been cancelled. 
+	 * The next pause length is then increased by the back off factor, up to the maximum sleep time.
+	 * @param timeRemaining The time remaining before the move times out, in milliseconds. We never
+	 *        pause for longer than this.
+	 * @return The length of time we actually paused for, in milliseconds.
+	 * @exception InterruptedException Thrown if the thread is interrupted whilst waiting.
+	 * @see #currentSleepTime
+	 * @see #positionReached
+	 * @see #cancelled
+	 */
+	public synchronized long pause(long timeRemaining) throws InterruptedException
+	{
+		long startTime,sleepTime;
+
+		startTime = System.currentTimeMillis();
+		sleepTime = Math.max(1,Math.min(currentSleepTime,timeRemaining));
+		if((positionReached == false)&&(cancelled == false))
+			wait(sleepTime);
+		positionReached = false;
+		currentSleepTime = Math.min((long)(currentSleepTime*backOffFactor),maximumSleepTime);
+		return System.currentTimeMillis()-startTime;
+	}
+
+	/**
+	 * Notify that the mechanism has (probably) reached it's target position. This ends the current
+	 * (or next) pause early, so the position is re-queried immediately.
+	 * @see #positionReached
+	 */
+	public synchronized void positionReached()
+	{
+		positionReached = true;
+		notifyAll();
+	}
+
+	/**
+	 * Cancel the move. This ends the current (or next) pause immediately, and the mover should then stop
+	 * the move (see isCancelled).
+	 * @see #cancelled
+	 */
+	public synchronized void cancel()
+	{
+		cancelled = true;
+		notifyAll();
+	}
+
+	/**
+	 * Return whether the move has been cancelled.
+	 * @return true if cancel has been called, false otherwise.
+	 * @see #cancelled
+	 */
+	public synchronized boolean isCancelled()
+	{
+		return cancelled;
+	}
+}
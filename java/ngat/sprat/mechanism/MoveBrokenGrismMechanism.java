@@ -23,7 +23,7 @@ import ngat.util.logging.*;
  * @author Chris Mottram
  * @version $Revision: 18 $
  */
-public class MoveBrokenGrismMechanism implements Runnable
+public class MoveBrokenGrismMechanism implements MechanismMover
 {
 	/**
 	 * Revision Control System id string, showing the version of the Class.
@@ -62,15 +62,41 @@ public class MoveBrokenGrismMechanism implements Runnable
 	 * timing out and throwing an error.
 	 */
 	protected long timeoutTime = 10000;
+	/**
+	 * The back off used to pause between calls to the Arduino, whilst checking whether the mechanism has 
+	 * finished moving. The pause starts at the initial sleep time, and increases up to sleepTime.
+	 * @see #sleepTime
+	 */
+	protected MoveBackOff backOff = null;
+	/**
+	 * Whether to send the move command and all the position queries over one persistent Arduino session.
+	 */
+	protected boolean useSession = false;
+	/**
+	 * An existing session to send the commands over. If this is null and useSession is true, a session
+	 * is opened for the duration of the move.
+	 * @see #useSession
+	 */
+	protected MechanismSession session = null;
+	/**
+	 * A session opened by this mover for the duration of the move, which is closed when the move finishes.
+	 * @see #openSession
+	 * @see #closeSession
+	 */
+	protected MechanismSession ownSession = null;
 
 	/**
 	 * Default constructor.
 	 * @see #logger
+	 * @see #backOff
 	 */
 	public MoveBrokenGrismMechanism()
 	{
 		super();
 		logger = LogManager.getLogger(this);
+		backOff = new MoveBackOff();
+		backOff.setInitialSleepTime(sleepTime);
+		backOff.setMaximumSleepTime(sleepTime);
 	}
 
 	/**
@@ -93,10 +119,25 @@ public class MoveBrokenGrismMechanism implements Runnable
 	 * it's new position. This pause stops us continuously querying the Arduino.
 	 * @param ms The length of time to pause, in milliseconds.
 	 * @see #sleepTime
+	 * @see #backOff
+	 * @see MoveBackOff#setMaximumSleepTime
 	 */
 	public void setSleepTime(long ms)
 	{
 		sleepTime = ms;
+		backOff.setMaximumSleepTime(ms);
+	}
+
+	/**
+	 * Set the amount of time to pause, the first time round the loop which is waiting for the mechanism
+	 * to attain it's new position. Subsequent pauses get longer, up to the sleep time.
+	 * @param ms The length of time to pause, in milliseconds.
+	 * @see #backOff
+	 * @see MoveBackOff#setInitialSleepTime
+	 */
+	public void setInitialSleepTime(long ms)
+	{
+		backOff.setInitialSleepTime(ms);
 	}
 
 	/**
@@ -111,6 +152,50 @@ public class MoveBrokenGrismMechanism implements Runnable
 		timeoutTime = ms;
 	}
 
+	/**
+	 * Set whether to send the move command and all the position queries over one persistent Arduino session,
+	 * rather than a new telnet connection per command.
+	 * @param b true to use a session, false otherwise.
+	 * @see #useSession
+	 */
+	public void setUseSession(boolean b)
+	{
+		useSession = b;
+	}
+
+	/**
+	 * Set an existing session to send the commands over. This allows several movers (running concurrently)
+	 * to share one session.
+	 * @param s An open session, or null to open a session for the duration of the move (if useSession is true).
+	 * @see #session
+	 */
+	public void setSession(MechanismSession s)
+	{
+		session = s;
+	}
+
+	/**
+	 * Notify the mover that the mechanism has (probably) reached it's target position. 
+	 * The current pause is ended early, so the position is re-queried immediately.
+	 * @see #backOff
+	 * @see MoveBackOff#positionReached
+	 */
+	public void positionReached()
+	{
+		backOff.positionReached();
+	}
+
+	/**
+	 * Cancel the move. The current pause is ended early, and moveBrokenGrismMechanism throws an exception rather than
+	 * re-querying the position.
+	 * @see #backOff
+	 * @see MoveBackOff#cancel
+	 */
+	public void cancel()
+	{
+		backOff.cancel();
+	}
+
 	/**
 	 * Run method. Calls moveBrokenGrismMechanism and catches exceptions. isError is used to tell
 	 * client's that the mechanism move failed, and runException stores the exception generated.
@@ -162,6 +247,9 @@ public class MoveBrokenGrismMechanism implements Runnable
 	 * @see #sleepTime
 	 * @see #timeoutTime
 	 * @see InOutReplyCommand#POSITION_OUT
+	 * @see #backOff
+	 * @see #openSession
+	 * @see #closeSession
 	 */
 	public void moveBrokenGrismMechanism() throws Exception
 	{
@@ -170,102 +258,182 @@ public class MoveBrokenGrismMechanism implements Runnable
 
 		logger.log(Logging.VERBOSITY_VERBOSE,
 			   "ngat.sprat.mechanism.MoveBrokenGrismMechanism:moveBrokenGrismMechanism:Started.");
-		// send command with parameter to command mechanism to move.
-		command.setCommandArguments(command.positionToLowerCaseString(targetPosition));
-		logger.log(Logging.VERBOSITY_VERBOSE,
-			   "ngat.sprat.mechanism.MoveBrokenGrismMechanism:moveBrokenGrismMechanism:Sending command:"+
-			   command.getCommand());
-		command.run();
-		if(command.getRunException() != null)
-		{
-			throw new Exception(this.getClass().getName()+
-					    ":moveBrokenGrismMechanism:Command threw an exception:",
-					    command.getRunException());
-		}
-		if(command.getIsError())
-		{
-			throw new Exception(this.getClass().getName()+":moveBrokenGrismMechanism:Command failed:"+
-					    command.getErrorString());
-		}
-		logger.log(Logging.VERBOSITY_VERBOSE,
-			   "ngat.sprat.mechanism.MoveBrokenGrismMechanism:moveBrokenGrismMechanism:Returned position:"+
-			   command.positionToString(command.getCurrentPosition()));
-		// enter loop, awaiting mechanism to move into target position.
-		finishedMove = false;
-		startTime = System.currentTimeMillis();
-		while(finishedMove == false)
+		if(backOff.isCancelled())
+			throw new Exception(this.getClass().getName()+":moveBrokenGrismMechanism:Move cancelled.");
+		openSession();
+		try
 		{
-			// query mechanism position
-			command.setCommandArguments(null);
-			logger.log(Logging.VERBOSITY_VERBOSE,"ngat.sprat.mechanism.MoveBrokenGrismMechanism:"+
-				   "moveBrokenGrismMechanism:Querying current position by sending command:"+
-				   command.getCommand());
+			// send command with parameter to command mechanism to move.
+			command.setCommandArguments(command.positionToLowerCaseString(targetPosition));
+			if(Command.isLoggable(Logging.VERBOSITY_VERBOSE))
+			{
+				logger.log(Logging.VERBOSITY_VERBOSE,
+					   "ngat.sprat.mechanism.MoveBrokenGrismMechanism:moveBrokenGrismMechanism:Sending command:"+
+					   command.getCommand());
+			}
 			command.run();
 			if(command.getRunException() != null)
 			{
-				throw new Exception(this.getClass().getName()+":moveBrokenGrismMechanism:"+
-						    "Command threw an exception:",command.getRunException());
+				throw new Exception(this.getClass().getName()+
+						    ":moveBrokenGrismMechanism:Command threw an exception:",
+						    command.getRunException());
 			}
 			if(command.getIsError())
 			{
 				throw new Exception(this.getClass().getName()+":moveBrokenGrismMechanism:Command failed:"+
 						    command.getErrorString());
 			}
-			logger.log(Logging.VERBOSITY_VERBOSE,
-			      "ngat.sprat.mechanism.MoveBrokenGrismMechanism:moveBrokenGrismMechanism:Returned position:"+
-				   command.positionToString(command.getCurrentPosition()));
-			// if we have finished moving, exit the loop
-			if(command.getCurrentPosition() == targetPosition)
-			{
-				logger.log(Logging.VERBOSITY_VERBOSE,"ngat.sprat.mechanism.MoveBrokenGrismMechanism:"+
-				       "moveBrokenGrismMechanism:Moved to target position:Finished move successfully.");
-				finishedMove = true;
-			}
-			// new bit of code
-			// if we are moving in, but have got as far as unknown, sleep a bit and assume done
-			// This because the slit in sensor is not working
-			else if((targetPosition == InOutReplyCommand.POSITION_IN)&&
-				(command.getCurrentPosition() == InOutReplyCommand.POSITION_UNKNOWN))
+			if(Command.isLoggable(Logging.VERBOSITY_VERBOSE))
 			{
-				logger.log(Logging.VERBOSITY_VERBOSE,"ngat.sprat.mechanism.MoveBrokenGrismMechanism:"+
-					   "moveBrokenGrismMechanism:We are tring to move the grism in and it's now "+
-					   "in an unknown position, lets sleep for 5 seconds.");
-				Thread.sleep(5000);
-				logger.log(Logging.VERBOSITY_VERBOSE,"ngat.sprat.mechanism.MoveBrokenGrismMechanism:"+
-					   "moveBrokenGrismMechanism:We are tring to move the grism in and it's "+
-					 "now in an unknown position, now lets assume it's got to the right position.");
-				finishedMove = true;
+				logger.log(Logging.VERBOSITY_VERBOSE,
+					   "ngat.sprat.mechanism.MoveBrokenGrismMechanism:moveBrokenGrismMechanism:Returned position:"+
+					   command.positionToString(command.getCurrentPosition()));
 			}
-			else
+			// enter loop, awaiting mechanism to move into target position.
+			finishedMove = false;
+			backOff.reset();
+			startTime = System.currentTimeMillis();
+			while(finishedMove == false)
 			{
-				// check for timeout
-				nowTime = System.currentTimeMillis();
-				if((nowTime-startTime) > timeoutTime)
+				// query mechanism position
+				command.setCommandArguments(null);
+				if(Command.isLoggable(Logging.VERBOSITY_VERBOSE))
+				{
+					logger.log(Logging.VERBOSITY_VERBOSE,"ngat.sprat.mechanism.MoveBrokenGrismMechanism:"+
+						   "moveBrokenGrismMechanism:Querying current position by sending command:"+
+						   command.getCommand());
+				}
+				command.run();
+				if(command.getRunException() != null)
+				{
+					throw new Exception(this.getClass().getName()+":moveBrokenGrismMechanism:"+
+							    "Command threw an exception:",command.getRunException());
+				}
+				if(command.getIsError())
+				{
+					throw new Exception(this.getClass().getName()+":moveBrokenGrismMechanism:Command failed:"+
+							    command.getErrorString());
+				}
+				if(Command.isLoggable(Logging.VERBOSITY_VERBOSE))
 				{
 					logger.log(Logging.VERBOSITY_VERBOSE,
-					       "ngat.sprat.mechanism.MoveBrokenGrismMechanism:moveBrokenGrismMechanism:"+
-						   "Timed out waiting for mechanism to move to "+
-						   command.positionToString(targetPosition)+" after "+
-						   (nowTime-startTime)+" milliseconds: "+"Current position is: "+
-						   command.positionToString(command.getCurrentPosition())+".");
-					throw new Exception("ngat.sprat.mechanism.MoveBrokenGrismMechanism:"+
-						  "moveBrokenGrismMechanism:Timed out waiting for mechanism to move to "+
-							    command.positionToString(targetPosition)+
-							    " after "+(nowTime-startTime)+" milliseconds: "+
-							    "Current position is: "+
-							    command.positionToString(command.getCurrentPosition()));
+					      "ngat.sprat.mechanism.MoveBrokenGrismMechanism:moveBrokenGrismMechanism:Returned position:"+
+						   command.positionToString(command.getCurrentPosition()));
+				}
+				// if we have finished moving, exit the loop
+				if(command.getCurrentPosition() == targetPosition)
+				{
+					logger.log(Logging.VERBOSITY_VERBOSE,"ngat.sprat.mechanism.MoveBrokenGrismMechanism:"+
+					       "moveBrokenGrismMechanism:Moved to target position:Finished move successfully.");
+					finishedMove = true;
+				}
+				// new bit of code
+				// if we are moving in, but have got as far as unknown, sleep a bit and assume done
+				// This because the slit in sensor is not working
+				else if((targetPosition == InOutReplyCommand.POSITION_IN)&&
+					(command.getCurrentPosition() == InOutReplyCommand.POSITION_UNKNOWN))
+				{
+					logger.log(Logging.VERBOSITY_VERBOSE,"ngat.sprat.mechanism.MoveBrokenGrismMechanism:"+
+						   "moveBrokenGrismMechanism:We are tring to move the grism in and it's now "+
+						   "in an unknown position, lets sleep for 5 seconds.");
+					Thread.sleep(5000);
+					logger.log(Logging.VERBOSITY_VERBOSE,"ngat.sprat.mechanism.MoveBrokenGrismMechanism:"+
+						   "moveBrokenGrismMechanism:We are tring to move the grism in and it's "+
+						 "now in an unknown position, now lets assume it's got to the right position.");
+					finishedMove = true;
+				}
+				else
+				{
+					// check for timeout
+					nowTime = System.currentTimeMillis();
+					if((nowTime-startTime) > timeoutTime)
+					{
+						if(Command.isLoggable(Logging.VERBOSITY_VERBOSE))
+						{
+							logger.log(Logging.VERBOSITY_VERBOSE,
+							       "ngat.sprat.mechanism.MoveBrokenGrismMechanism:moveBrokenGrismMechanism:"+
+								   "Timed out waiting for mechanism to move to "+
+								   command.positionToString(targetPosition)+" after "+
+								   (nowTime-startTime)+" milliseconds: "+"Current position is: "+
+								   command.positionToString(command.getCurrentPosition())+".");
+						}
+						throw new Exception("ngat.sprat.mechanism.MoveBrokenGrismMechanism:"+
+							  "moveBrokenGrismMechanism:Timed out waiting for mechanism to move to "+
+								    command.positionToString(targetPosition)+
+								    " after "+(nowTime-startTime)+" milliseconds: "+
+								    "Current position is: "+
+								    command.positionToString(command.getCurrentPosition()));
+					}
+					// pause a bit, increasing the pause each time round the loop
+					logger.log(Logging.VERBOSITY_VERBOSE,"ngat.sprat.mechanism.MoveBrokenGrismMechanism:"+
+						   "moveBrokenGrismMechanism:Pausing before rechecking position.");
+					backOff.pause(timeoutTime-(nowTime-startTime));
+					if(backOff.isCancelled())
+					{
+						throw new Exception(this.getClass().getName()+":moveBrokenGrismMechanism:"+
+								    "Move cancelled.");
+					}
 				}
-				// sleep a bit
-				logger.log(Logging.VERBOSITY_VERBOSE,
-				   "ngat.sprat.mechanism.MoveBrokenGrismMechanism:moveBrokenGrismMechanism:Sleeping for "+
-					   sleepTime+" milliseconds before rechecking position.");
-				Thread.sleep(sleepTime);
 			}
 		}
+		finally
+		{
+			closeSession();
+		}
 		logger.log(Logging.VERBOSITY_VERBOSE,
 			   "ngat.sprat.mechanism.MoveBrokenGrismMechanism:moveBrokenGrismMechanism:Finished.");
 	}
 
+	/**
+	 * Setup the command to send it's commands over a session. If a session has been set, that is used.
+	 * Otherwise, if useSession is true, a new session is opened. If opening the session fails 
+	 * (i.e. the Arduino is running a sketch that does not support sessions), the error is logged and the 
+	 * command opens a new telnet connection per command as before.
+	 * @see #command
+	 * @see #session
+	 * @see #useSession
+	 * @see #ownSession
+	 */
+	protected void openSession()
+	{
+		ownSession = null;
+		if(session != null)
+		{
+			command.setSession(session);
+			return;
+		}
+		if(useSession == false)
+			return;
+		try
+		{
+			ownSession = new MechanismSession(command.getAddress(),command.getPortNumber());
+			ownSession.open();
+			command.setSession(ownSession);
+		}
+		catch(Exception e)
+		{
+			if(Command.isLoggable(Logging.VERBOSITY_VERBOSE))
+			{
+				logger.log(Logging.VERBOSITY_VERBOSE,"ngat.sprat.mechanism.MoveBrokenGrismMechanism:openSession:"+
+					   "Failed to open session, using a telnet connection per command:"+e);
+			}
+			ownSession = null;
+		}
+	}
+
+	/**
+	 * Close any session opened by openSession, and detach the command from the session.
+	 * @see #command
+	 * @see #ownSession
+	 */
+	protected void closeSession()
+	{
+		command.setSession(null);
+		if(ownSession != null)
+			ownSession.close();
+		ownSession = null;
+	}
+
 	/**
 	 * Return whether the run method captured an error (exception)
 	 * @return A boolean, true if an error string was detected, false otherwise.
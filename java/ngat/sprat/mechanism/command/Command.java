@@ -6,9 +6,11 @@ import java.io.*;
 import java.lang.*;
 import java.net.*;
 import java.text.*;
+import java.util.concurrent.*;
 
 import ngat.net.TelnetConnection;
 import ngat.net.TelnetConnectionListener;
+import ngat.sprat.ccd.command.ReplyTokenizer;
 import ngat.util.logging.*;
 
 /**
@@ -32,6 +34,22 @@ public class Command implements Runnable, TelnetConnectionListener
 	 * ngat.net.TelnetConnection instance.
 	 */
 	protected TelnetConnection telnetConnection = null;
+	/**
+	 * An optional persistent session to the Arduino. If this is set and open, the command is sent
+	 * over the session rather than a new telnet connection.
+	 * @see #setSession
+	 */
+	protected MechanismSession session = null;
+	/**
+	 * The address of the Arduino, kept so that a session can be opened to it.
+	 * @see MechanismSession
+	 */
+	protected InetAddress address = null;
+	/**
+	 * The port number of the Arduino, kept so that a session can be opened to it.
+	 * @see MechanismSession
+	 */
+	protected int portNumber = 0;
 	/**
 	 * The command to send to the Sprat mechanism Arduino.
 	 */
@@ -49,9 +67,25 @@ public class Command implements Runnable, TelnetConnectionListener
 	 */
 	protected boolean commandFinished = false;
 	/**
-	 * A string containing the reply from the Arduino.
+	 * A string containing the reply from the Arduino. If the reply has more than one line, the lines are
+	 * joined in replyBuffer, and this is only created from it when getReply is called
+	 * (parseReplyString does so before parsing).
+	 * @see #replyBuffer
+	 * @see #getReply
 	 */
 	protected String replyString = null;
+	/**
+	 * A tokenizer, re-used for each reply, that subclasses can use to parse the reply without
+	 * creating a String for each token. parseReplyString resets it to the start of the reply.
+	 * @see #parseReplyString
+	 */
+	protected ReplyTokenizer replyTokenizer = new ReplyTokenizer();
+	/**
+	 * A buffer used to join the lines of a multi-line reply, re-used for each reply.
+	 * @see #lineRead
+	 * @see #clearReply
+	 */
+	protected StringBuilder replyBuffer = null;
 	/**
 	 * Boolean set to true, when a command has been sent to the Arduino and
 	 * an error reply string has been received back.
@@ -68,6 +102,20 @@ public class Command implements Runnable, TelnetConnectionListener
 	 * The logger to log messages to.
 	 */
 	protected Logger logger = null;
+	/**
+	 * The executor used to run the reader of each telnet connection's reply. If this is null, or the executor
+	 * rejects the reader, a new thread is created for the reader instead.
+	 * @see #setReaderExecutor
+	 * @see #startReader
+	 */
+	protected static ExecutorService readerExecutor = null;
+	/**
+	 * The log level used to filter log messages before they are built. Messages with a level greater than this
+	 * are not logged, and the strings making up the message are never concatenated.
+	 * @see #setLogLevel
+	 * @see #isLoggable
+	 */
+	protected static volatile int logLevel = Logging.ALL;
 
 	/**
 	 * Default constructor. Construct the TelnetConnection and set this object to be the listener.
@@ -94,11 +142,16 @@ public class Command implements Runnable, TelnetConnectionListener
 	{
 		super();
 		logger = LogManager.getLogger(this);
-		logger.log(Logging.VERBOSITY_VERY_VERBOSE,
-			   "ngat.sprat.mechanism.command.Command:Constructor:Setting telnet connection to "+
-			   address+":"+portNumber+".");
+		if(isLoggable(Logging.VERBOSITY_VERY_VERBOSE))
+		{
+			logger.log(Logging.VERBOSITY_VERY_VERBOSE,
+				   "ngat.sprat.mechanism.command.Command:Constructor:Setting telnet connection to "+
+				   address+":"+portNumber+".");
+		}
 		telnetConnection = new TelnetConnection(address,portNumber);
 		telnetConnection.setListener(this);
+		this.address = InetAddress.getByName(address);
+		this.portNumber = portNumber;
 	}
 
 	/**
@@ -116,11 +169,16 @@ public class Command implements Runnable, TelnetConnectionListener
 	{
 		super();
 		logger = LogManager.getLogger(this);
-		logger.log(Logging.VERBOSITY_VERY_VERBOSE,
-			   "ngat.sprat.mechanism.command.Command:Constructor:Setting telnet connection to "+
-			   address+":"+portNumber+".");
+		if(isLoggable(Logging.VERBOSITY_VERY_VERBOSE))
+		{
+			logger.log(Logging.VERBOSITY_VERY_VERBOSE,
+				   "ngat.sprat.mechanism.command.Command:Constructor:Setting telnet connection to "+
+				   address+":"+portNumber+".");
+		}
 		telnetConnection = new TelnetConnection(address,portNumber);
 		telnetConnection.setListener(this);
+		this.address = InetAddress.getByName(address);
+		this.portNumber = portNumber;
 		this.commandString = commandString;
 	}
 
@@ -129,42 +187,87 @@ public class Command implements Runnable, TelnetConnectionListener
 	 * @param address A string representing the IP address of the Arduino, i.e. "spratmechanism", "192.168.1.77".
 	 * @exception UnknownHostException Thrown if the address in unknown.
 	 * @see #telnetConnection
+	 * @see #address
 	 * @see ngat.net.TelnetConnection#setAddress
 	 */
 	public void setAddress(String address) throws UnknownHostException
 	{
 		telnetConnection.setAddress(address);
-		logger.log(Logging.VERBOSITY_VERY_VERBOSE,
-			   "ngat.sprat.mechanism.command.Command:setAddress:Setting telnet connection address to "+
-			   address+".");
+		this.address = InetAddress.getByName(address);
+		if(isLoggable(Logging.VERBOSITY_VERY_VERBOSE))
+		{
+			logger.log(Logging.VERBOSITY_VERY_VERBOSE,
+				   "ngat.sprat.mechanism.command.Command:setAddress:Setting telnet connection address to "+
+				   address+".");
+		}
 	}
 
 	/**
 	 * Set the address.
 	 * @param address A instance of InetAddress representing the address of the Arduino.
 	 * @see #telnetConnection
+	 * @see #address
 	 * @see ngat.net.TelnetConnection#setAddress
 	 */
 	public void setAddress(InetAddress address)
 	{
 		telnetConnection.setAddress(address);
-		logger.log(Logging.VERBOSITY_VERY_VERBOSE,
-			   "ngat.sprat.mechanism.command.Command:setAddress:Setting telnet connection address to "+
-			   address+".");
+		this.address = address;
+		if(isLoggable(Logging.VERBOSITY_VERY_VERBOSE))
+		{
+			logger.log(Logging.VERBOSITY_VERY_VERBOSE,
+				   "ngat.sprat.mechanism.command.Command:setAddress:Setting telnet connection address to "+
+				   address+".");
+		}
 	}
 
 	/**
 	 * Set the port number.
 	 * @param portNumber An integer representing the port number the Arduino is receiving command on.
 	 * @see #telnetConnection
+	 * @see #portNumber
 	 * @see ngat.net.TelnetConnection#setPortNumber
 	 */
 	public void setPortNumber(int portNumber)
 	{
 		telnetConnection.setPortNumber(portNumber);
-		logger.log(Logging.VERBOSITY_VERY_VERBOSE,
-			   "ngat.sprat.mechanism.command.Command:setAddress:Setting telnet connection port to "+
-			   portNumber+".");
+		this.portNumber = portNumber;
+		if(isLoggable(Logging.VERBOSITY_VERY_VERBOSE))
+		{
+			logger.log(Logging.VERBOSITY_VERY_VERBOSE,
+				   "ngat.sprat.mechanism.command.Command:setAddress:Setting telnet connection port to "+
+				   portNumber+".");
+		}
+	}
+
+	/**
+	 * Get the address of the Arduino.
+	 * @return The address.
+	 * @see #address
+	 */
+	public InetAddress getAddress()
+	{
+		return address;
+	}
+
+	/**
+	 * Get the port number of the Arduino.
+	 * @return The port number.
+	 * @see #portNumber
+	 */
+	public int getPortNumber()
+	{
+		return portNumber;
+	}
+
+	/**
+	 * Set the session to send the command over. 
+	 * @param s An open MechanismSession, or null to send the command over a new telnet connection.
+	 * @see #session
+	 */
+	public void setSession(MechanismSession s)
+	{
+		session = s;
 	}
 
 	/**
@@ -229,6 +332,59 @@ public class Command implements Runnable, TelnetConnectionListener
 		}
 	}
 
+	/**
+	 * Routine to send the specified command to the Arduino, and wait for a reply.
+	 * If a session has been set, and is open, the command is sent over the session. If this fails with an
+	 * IOException the session is closed, and the command re-sent over a new telnet connection (all the
+	 * mechanism commands can safely be re-sent). Otherwise sendTelnetCommand is called to send the command
+	 * over a new telnet connection.
+	 * @exception Exception Thrown if an error occurs.
+	 * @see #session
+	 * @see #commandString
+	 * @see #commandFinished
+	 * @see #replyString
+	 * @see #sendTelnetCommand
+	 * @see MechanismSession#sendLine
+	 */
+	public void sendCommand() throws Exception
+	{
+		logger.log(Logging.VERBOSITY_VERY_VERBOSE,"ngat.sprat.mechanism.command.Command:sendCommand:Started.");
+		commandFinished = false;
+		clearReply();
+		if((session != null)&&session.isOpen())
+		{
+			try
+			{
+				if(isLoggable(Logging.VERBOSITY_INTERMEDIATE))
+				{
+					logger.log(Logging.VERBOSITY_INTERMEDIATE,
+						   "ngat.sprat.mechanism.command.Command:sendCommand:"+
+						   "Sending Command over session:"+commandString);
+				}
+				lineRead(session.sendLine(commandString));
+				commandFinished = true;
+				if(isLoggable(Logging.VERBOSITY_VERY_VERBOSE))
+				{
+					logger.log(Logging.VERBOSITY_VERY_VERBOSE,
+						   "ngat.sprat.mechanism.command.Command:sendCommand:Finished with reply string '"+
+						   getReply()+"'.");
+				}
+				return;
+			}
+			catch(IOException e)
+			{
+				if(isLoggable(Logging.VERBOSITY_VERBOSE))
+				{
+					logger.log(Logging.VERBOSITY_VERBOSE,"ngat.sprat.mechanism.command.Command:sendCommand:"+
+						   "Session failed, retrying using a telnet connection:"+e);
+				}
+				session.close();
+				clearReply();
+			}
+		}
+		sendTelnetCommand();
+	}
+
 	/**
 	 * Routine to send the specified command over a telnet connection to the specified
 	 * address and port number, and wait for a reply from the Arduino.
@@ -237,38 +393,106 @@ public class Command implements Runnable, TelnetConnectionListener
 	 * @see #commandString
 	 * @see #commandFinished
 	 * @see #replyString
+	 * @see #startReader
 	 */
-	public void sendCommand() throws Exception
+	protected void sendTelnetCommand() throws Exception
 	{
-		Thread thread = null;
+		Future<Object> reader = null;
 
-		logger.log(Logging.VERBOSITY_VERY_VERBOSE,"ngat.sprat.mechanism.command.Command:sendCommand:Started.");
-		commandFinished = false;
-		replyString = null;
 		logger.log(Logging.VERBOSITY_VERY_VERBOSE,
-			   "ngat.sprat.mechanism.command.Command:sendCommand:Opening the Telnet Connection.");
+			   "ngat.sprat.mechanism.command.Command:sendTelnetCommand:Opening the Telnet Connection.");
 		telnetConnection.open();
-		logger.log(Logging.VERBOSITY_VERY_VERBOSE,"ngat.sprat.mechanism.command.Command:sendCommand:"+
-			   "Starting a reader thread to deal with the reply.");
-		thread = new Thread(telnetConnection,"Reader thread");
-		thread.start();
-		logger.log(Logging.VERBOSITY_INTERMEDIATE,
-			   "ngat.sprat.mechanism.command.Command:sendCommand:Sending Command:"+commandString);
+		logger.log(Logging.VERBOSITY_VERY_VERBOSE,"ngat.sprat.mechanism.command.Command:sendTelnetCommand:"+
+			   "Starting a reader to deal with the reply.");
+		reader = startReader();
+		if(isLoggable(Logging.VERBOSITY_INTERMEDIATE))
+		{
+			logger.log(Logging.VERBOSITY_INTERMEDIATE,
+				   "ngat.sprat.mechanism.command.Command:sendTelnetCommand:Sending Command:"+commandString);
+		}
 		telnetConnection.sendLine(commandString);
-		logger.log(Logging.VERBOSITY_INTERMEDIATE,"ngat.sprat.mechanism.command.Command:sendCommand:"+
-			   "Waiting for reader thread to finish (join).");
-		thread.join();
+		logger.log(Logging.VERBOSITY_INTERMEDIATE,"ngat.sprat.mechanism.command.Command:sendTelnetCommand:"+
+			   "Waiting for reader to finish.");
+		reader.get();
 		telnetConnection.close();
 		commandFinished = true;
-		logger.log(Logging.VERBOSITY_VERY_VERBOSE,
-			   "ngat.sprat.mechanism.command.Command:sendCommand:Finished with reply string '"+
-			   replyString+"'.");
+		if(isLoggable(Logging.VERBOSITY_VERY_VERBOSE))
+		{
+			logger.log(Logging.VERBOSITY_VERY_VERBOSE,
+				   "ngat.sprat.mechanism.command.Command:sendTelnetCommand:Finished with reply string '"+
+				   getReply()+"'.");
+		}
+	}
+
+	/**
+	 * Set the executor used to run the reader of each telnet connection's reply, so reader threads are
+	 * re-used rather than a new thread being created for every command.
+	 * @param executor The executor, or null to create a new thread per reader.
+	 * @see #readerExecutor
+	 */
+	public static void setReaderExecutor(ExecutorService executor)
+	{
+		readerExecutor = executor;
+	}
+
+	/**
+	 * Set the log level used to filter log messages before they are built. This is normally set to the
+	 * same level as the Sprat loggers.
+	 * @param level The log level.
+	 * @see #logLevel
+	 */
+	public static void setLogLevel(int level)
+	{
+		logLevel = level;
+	}
+
+	/**
+	 * Return whether a message of the specified level would be logged. Used to guard log calls
+	 * that build their message string, so the string is not built when it would be discarded.
+	 * @param level The level of the message.
+	 * @return true if the message should be logged, false otherwise.
+	 * @see #logLevel
+	 */
+	public static boolean isLoggable(int level)
+	{
+		return (level <= logLevel);
+	}
+
+	/**
+	 * Start reading the telnet connection's reply. The reader is run on readerExecutor if there is one, 
+	 * otherwise (or if the executor rejects it) in a new thread.
+	 * @return A future, which completes when the reader has read the reply and finished.
+	 * @see #telnetConnection
+	 * @see #readerExecutor
+	 */
+	protected Future<Object> startReader()
+	{
+		FutureTask<Object> reader = null;
+		Thread thread = null;
+
+		reader = new FutureTask<Object>(telnetConnection,null);
+		if(readerExecutor != null)
+		{
+			try
+			{
+				readerExecutor.execute(reader);
+				return reader;
+			}
+			catch(RejectedExecutionException e)
+			{
+				// fall through and start a new thread
+			}
+		}
+		thread = new Thread(reader,"Reader thread");
+		thread.start();
+		return reader;
 	}
 
 	/**
 	 * Parse the string returned from the Arduino over the telnet connection (stored in the variable replyString).
 	 * This method 
 	 * <ul>
+	 * <li>We call getReply, so replyString holds the whole reply if it was more than one line.
 	 * <li>We check whether the string starts with 'error', and if so:
 	 *     <ul>
 	 *     <li>We strip off the 'error' and saves the remainder of the reply in the 'errorString' variable.
@@ -280,6 +504,7 @@ public class Command implements Runnable, TelnetConnectionListener
 	 * Subclasses may override this method to provide custom reply parsing for the command they are implementing.
 	 * @exception Exception Thrown if an error occurs.
 	 * @see #replyString
+	 * @see #getReply
 	 * @see #isError
 	 * @see #errorString
 	 * @see #commandString
@@ -288,6 +513,8 @@ public class Command implements Runnable, TelnetConnectionListener
 	{
 		logger.log(Logging.VERBOSITY_VERY_VERBOSE,
 			   "ngat.sprat.mechanism.command.Command:parseReplyString:Started.");
+		getReply();
+		replyTokenizer.reset(replyString);
 		// check whether the reply is an error string
 		if(replyString.startsWith("error"))
 		{
@@ -295,12 +522,18 @@ public class Command implements Runnable, TelnetConnectionListener
 				   "ngat.sprat.mechanism.command.Command:parseReplyString:error reply detected.");
 			isError = true;
 			errorString = replyString.substring(6);// 6 = strlen("error ")
-			logger.log(Logging.VERBOSITY_VERBOSE,
-				   "ngat.sprat.mechanism.command.Command:parseReplyString:error reply:"+
-				   errorString+".");
-			logger.log(Logging.VERBOSITY_VERBOSE,
-				   "ngat.sprat.mechanism.command.Command:parseReplyString:Command '"+commandString+
-				   "' returned error reply string:"+errorString+":About to throw exception.");
+			if(isLoggable(Logging.VERBOSITY_VERBOSE))
+			{
+				logger.log(Logging.VERBOSITY_VERBOSE,
+					   "ngat.sprat.mechanism.command.Command:parseReplyString:error reply:"+
+					   errorString+".");
+			}
+			if(isLoggable(Logging.VERBOSITY_VERBOSE))
+			{
+				logger.log(Logging.VERBOSITY_VERBOSE,
+					   "ngat.sprat.mechanism.command.Command:parseReplyString:Command '"+commandString+
+					   "' returned error reply string:"+errorString+":About to throw exception.");
+			}
 			// throwing an exception here so all errors throw an exception.
 			throw new Exception(this.getClass().getName()+
 					    ":parseReplyString:Command '"+commandString+
@@ -321,25 +554,52 @@ public class Command implements Runnable, TelnetConnectionListener
 	/**
 	 * TelnetConnectionListener interface implementation.
 	 * Called for each line of text read by the TelnetConnection instance.
-	 * The string is copied/appended to the replyString.
+	 * The first (usually only) line is used as the replyString as is. Any further lines are appended to the
+	 * re-used replyBuffer, and a String of the whole reply is only created when getReply is called.
 	 * @param line The string read from the TelnetConnection.
 	 * @see #replyString
+	 * @see #replyBuffer
+	 * @see #getReply
 	 */
 	public void lineRead(String line)
 	{
-		if(replyString == null)
+		if((replyString == null)&&((replyBuffer == null)||(replyBuffer.length() == 0)))
 			replyString = line;
 		else
-			replyString = new String(replyString+line);
+		{
+			if(replyBuffer == null)
+				replyBuffer = new StringBuilder(replyString.length()+line.length());
+			// start the buffer with the first line
+			if(replyBuffer.length() == 0)
+				replyBuffer.append(replyString);
+			replyBuffer.append(line);
+			replyString = null;
+		}
+	}
+
+	/**
+	 * Discard any reply from a previous send, so the command object can be re-sent.
+	 * @see #replyString
+	 * @see #replyBuffer
+	 */
+	protected void clearReply()
+	{
+		replyString = null;
+		if(replyBuffer != null)
+			replyBuffer.setLength(0);
 	}
 
 	/**
-	 * Return the reply string
-	 * @return The reply string returned from the server.
+	 * Return the reply string. If the reply had more than one line, the String is created from replyBuffer
+	 * the first time this is called for each reply.
+	 * @return The reply string returned from the server, or null if no reply has been read.
 	 * @see #replyString
+	 * @see #replyBuffer
 	 */
 	public String getReply()
 	{
+		if((replyString == null)&&(replyBuffer != null)&&(replyBuffer.length() > 0))
+			replyString = replyBuffer.toString();
 		return replyString;
 	}
 
@@ -447,6 +707,7 @@ public class Command implements Runnable, TelnetConnectionListener
 						  "ngat.sprat.mechanism.command.GyroCommand",
 						  "ngat.sprat.mechanism.command.HumidityCommand",
 						  "ngat.sprat.mechanism.command.InOutReplyCommand",
+						  "ngat.sprat.mechanism.command.MechanismSession",
 						  "ngat.sprat.mechanism.command.MirrorCommand",
 						  "ngat.sprat.mechanism.command.OnOffReplyCommand",
 						  "ngat.sprat.mechanism.command.RotationCommand",
@@ -8,6 +8,7 @@ import java.net.*;
 
 import ngat.net.TelnetConnection;
 import ngat.net.TelnetConnectionListener;
+import ngat.sprat.ccd.command.ReplyTokenizer;
 import ngat.util.logging.*;
 
 /**
@@ -84,8 +85,6 @@ public class DoubleReplyCommand extends Command implements Runnable, TelnetConne
 	 */
 	public void parseReplyString() throws Exception
 	{
-		String doubleString = null;
-
 		logger.log(Logging.VERBOSITY_VERY_VERBOSE,
 			   "ngat.sprat.mechanism.command.DoubleReplyCommand:parseReplyString:Started.");
 		parsedReply = 0.0;
@@ -97,19 +96,22 @@ public class DoubleReplyCommand extends Command implements Runnable, TelnetConne
 				logger.log(Logging.VERBOSITY_VERY_VERBOSE,
 					   "ngat.sprat.mechanism.command.DoubleReplyCommand:parseReplyString:"+
 					   "Reply starts with ok, trying to parse double parameter.");
-				// strip 'ok ' off the reply string and parse the result as a double.
+				// skip 'ok ' at the start of the reply string and parse the rest as a double.
 				try
 				{
-					doubleString =  replyString.substring(3);// 3 = strlen("ok ")
-					logger.log(Logging.VERBOSITY_VERY_VERBOSE,
-						   "ngat.sprat.mechanism.command.DoubleReplyCommand:parseReplyString:"+
-						   "Trying to parse '"+doubleString+"' as a double.");
-					parsedReply = Double.parseDouble(doubleString);
+					if(isLoggable(Logging.VERBOSITY_VERY_VERBOSE))
+					{
+						logger.log(Logging.VERBOSITY_VERY_VERBOSE,
+							   "ngat.sprat.mechanism.command.DoubleReplyCommand:parseReplyString:"+
+							   "Trying to parse '"+replyString.substring(3)+"' as a double.");
+					}
+					// 3 = strlen("ok ")
+					parsedReply = ReplyTokenizer.parseDouble(replyString,3,replyString.length());
 				}
 				catch(Exception e)
 				{
 					isError = true;
-					errorString = new String("Failed to parse reply string '"+doubleString+
+					errorString = new String("Failed to parse reply string '"+replyString+
 								 "' from command '"+commandString+"' as a double.");
 					throw new Exception(this.getClass().getName()+":parseReplyString:"+
 							    errorString);
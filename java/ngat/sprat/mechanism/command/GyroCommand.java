@@ -82,9 +82,6 @@ public class GyroCommand extends Command  implements Runnable, TelnetConnectionL
 	 */
 	public void parseReplyString() throws Exception
 	{
-		StringTokenizer st = null;
-		String okString = null;
-		String extraString = null;
 		int tokenIndex;
 
 		logger.log(Logging.VERBOSITY_VERY_VERBOSE,"ngat.sprat.mechanism.command.GyroCommand:"+
@@ -92,68 +89,89 @@ public class GyroCommand extends Command  implements Runnable, TelnetConnectionL
 		super.parseReplyString();
 		if(isError == false)
 		{
-			logger.log(Logging.VERBOSITY_VERY_VERBOSE,"ngat.sprat.mechanism.command.GyroCommand:"+
-				   "parseReplyString:Parsing reply string '"+replyString+"'.");
+			if(isLoggable(Logging.VERBOSITY_VERY_VERBOSE))
+			{
+				logger.log(Logging.VERBOSITY_VERY_VERBOSE,"ngat.sprat.mechanism.command.GyroCommand:"+
+					   "parseReplyString:Parsing reply string '"+replyString+"'.");
+			}
 			if(replyString.startsWith("ok"))
 			{
-				st = new StringTokenizer(replyString," ");
 				tokenIndex = 0;
-				while(st.hasMoreTokens())
+				while(replyTokenizer.nextToken())
 				{
 					if(tokenIndex == 0)
 					{
-						okString = st.nextToken();
-						logger.log(Logging.VERBOSITY_VERY_VERBOSE,
-							   "ngat.sprat.mechanism.command.GyroCommand:"+
-							   "parseReplyString:ok string '"+okString+"'.");
+						if(isLoggable(Logging.VERBOSITY_VERY_VERBOSE))
+						{
+							logger.log(Logging.VERBOSITY_VERY_VERBOSE,
+								   "ngat.sprat.mechanism.command.GyroCommand:"+
+								   "parseReplyString:ok string '"+replyTokenizer.tokenToString()+"'.");
+						}
 					}
 					else if(tokenIndex == 1)
 					{
-						positionX = Double.parseDouble(st.nextToken());
-						logger.log(Logging.VERBOSITY_VERY_VERBOSE,
-							   "ngat.sprat.mechanism.command.GyroCommand:"+
-							   "parseReplyString:positionX = '"+positionX+"'.");
+						positionX = replyTokenizer.tokenToDouble();
+						if(isLoggable(Logging.VERBOSITY_VERY_VERBOSE))
+						{
+							logger.log(Logging.VERBOSITY_VERY_VERBOSE,
+								   "ngat.sprat.mechanism.command.GyroCommand:"+
+								   "parseReplyString:positionX = '"+positionX+"'.");
+						}
 					}
 					else if(tokenIndex == 2)
 					{
-						positionY = Double.parseDouble(st.nextToken());
-						logger.log(Logging.VERBOSITY_VERY_VERBOSE,
-							   "ngat.sprat.mechanism.command.GyroCommand:"+
-							   "parseReplyString:positionY = '"+positionY+"'.");
+						positionY = replyTokenizer.tokenToDouble();
+						if(isLoggable(Logging.VERBOSITY_VERY_VERBOSE))
+						{
+							logger.log(Logging.VERBOSITY_VERY_VERBOSE,
+								   "ngat.sprat.mechanism.command.GyroCommand:"+
+								   "parseReplyString:positionY = '"+positionY+"'.");
+						}
 					}
 					else if(tokenIndex == 3)
 					{
-						positionZ = Double.parseDouble(st.nextToken());
-						logger.log(Logging.VERBOSITY_VERY_VERBOSE,
-							   "ngat.sprat.mechanism.command.GyroCommand:"+
-							   "parseReplyString:positionZ = '"+positionZ+"'.");
+						positionZ = replyTokenizer.tokenToDouble();
+						if(isLoggable(Logging.VERBOSITY_VERY_VERBOSE))
+						{
+							logger.log(Logging.VERBOSITY_VERY_VERBOSE,
+								   "ngat.sprat.mechanism.command.GyroCommand:"+
+								   "parseReplyString:positionZ = '"+positionZ+"'.");
+						}
 					}
 					else
 					{
-						extraString = st.nextToken();
-						logger.log(Logging.VERBOSITY_VERY_VERBOSE,
-							   "ngat.sprat.mechanism.command.GyroCommand:"+
-							   "parseReplyString:Unknown extra string = '"+extraString+
-							   "'.");
+						if(isLoggable(Logging.VERBOSITY_VERY_VERBOSE))
+						{
+							logger.log(Logging.VERBOSITY_VERY_VERBOSE,
+								   "ngat.sprat.mechanism.command.GyroCommand:"+
+								   "parseReplyString:Unknown extra string = '"+
+								   replyTokenizer.tokenToString()+"'.");
+						}
 					}
 					tokenIndex++;
 				}// end while
 			}
 			else
 			{
-				logger.log(Logging.VERBOSITY_VERY_VERBOSE,
-					   "ngat.sprat.mechanism.command.GyroCommand:parseReplyString:"+
-					   "Command '"+commandString+"' produced a reply '"+replyString+
-					   "' that does not start with 'ok', about to throw an exception.");
+				if(isLoggable(Logging.VERBOSITY_VERY_VERBOSE))
+				{
+					logger.log(Logging.VERBOSITY_VERY_VERBOSE,
+						   "ngat.sprat.mechanism.command.GyroCommand:parseReplyString:"+
+						   "Command '"+commandString+"' produced a reply '"+replyString+
+						   "' that does not start with 'ok', about to throw an exception.");
+				}
 				isError = true;
 				errorString = new String("Reply string from command '"+commandString+
 							 "' did not start with ok:"+replyString);
 				throw new Exception(this.getClass().getName()+":parseReplyString:"+errorString);
 			}
 		}
-		logger.log(Logging.VERBOSITY_VERY_VERBOSE,"ngat.sprat.mechanism.command.GyroCommand:"+
-			   "parseReplyString:Finished with position (x = "+positionX+",y = "+positionY+
-			   ",z = "+positionZ+").");
+		if(isLoggable(Logging.VERBOSITY_VERY_VERBOSE))
+		{
+			logger.log(Logging.VERBOSITY_VERY_VERBOSE,"ngat.sprat.mechanism.command.GyroCommand:"+
+				   "parseReplyString:Finished with position (x = "+positionX+",y = "+positionY+
+				   ",z = "+positionZ+").");
+		}
 	}
 
 	/**
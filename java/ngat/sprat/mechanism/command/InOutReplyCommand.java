@@ -111,8 +111,11 @@ public class InOutReplyCommand extends Command implements Runnable, TelnetConnec
 		super.parseReplyString();
 		if(isError == false)
 		{
-			logger.log(Logging.VERBOSITY_VERY_VERBOSE,"ngat.sprat.mechanism.command.InOutReplyCommand:"+
-				   "parseReplyString:Parsing reply string '"+replyString+"'.");
+			if(isLoggable(Logging.VERBOSITY_VERY_VERBOSE))
+			{
+				logger.log(Logging.VERBOSITY_VERY_VERBOSE,"ngat.sprat.mechanism.command.InOutReplyCommand:"+
+					   "parseReplyString:Parsing reply string '"+replyString+"'.");
+			}
 			if(replyString.equals("in"))
 			{
 				currentPosition = POSITION_IN;
@@ -135,10 +138,13 @@ public class InOutReplyCommand extends Command implements Runnable, TelnetConnec
 			// isError is true.
 			currentPosition = POSITION_ERROR;
 		}
-		logger.log(Logging.VERBOSITY_VERY_VERBOSE,"ngat.sprat.mechanism.command.InOutReplyCommand:"+
-			   "parseReplyString:Finished parsing reply string '"+replyString+
-			   "' and got current position '"+currentPosition+"' / "+
-			   positionToString(currentPosition)+".");
+		if(isLoggable(Logging.VERBOSITY_VERY_VERBOSE))
+		{
+			logger.log(Logging.VERBOSITY_VERY_VERBOSE,"ngat.sprat.mechanism.command.InOutReplyCommand:"+
+				   "parseReplyString:Finished parsing reply string '"+replyString+
+				   "' and got current position '"+currentPosition+"' / "+
+				   positionToString(currentPosition)+".");
+		}
 	}
 
 	/**
@@ -0,0 +1,233 @@
+// MechanismSession.java
+// $HeadURL$
+package ngat.sprat.mechanism.command;
+
+import java.io.*;
+import java.lang.*;
+import java.net.*;
+
+import ngat.util.logging.*;
+
+/**
+ * The MechanismSession class holds a persistent socket connection to the Sprat mechanism Arduino.
+ * On opening the connection a "session start" command is sent, which stops the Arduino closing
+ * the connection after it has replied to each command. This allows a mechanism move and all
+ * the subsequent position queries to be sent over one connection, rather than opening a new
+ * telnet connection (and starting a new reader thread) for each query.
+ * Commands are attached to the session using Command's setSession method.
+ * The Arduino only serves one client at a time, so sessions should be closed as soon as possible, the Arduino
+ * closes sessions that have been idle for more than 10 seconds.
+ * @author Chris Mottram
+ * @version $Revision$
+ * @see Command#setSession
+ */
+public class MechanismSession
+{
+	/**
+	 * Revision Control System id string, showing the version of the Class.
+	 */
+	public final static String RCSID = new String("$Id$");
+	/**
+	 * The command sent to the Arduino to put the connection into session mode.
+	 */
+	public final static String SESSION_START_COMMAND = new String("session start");
+	/**
+	 * The command sent to the Arduino to take the connection out of session mode. The Arduino
+	 * closes the connection after replying to this command.
+	 */
+	public final static String SESSION_END_COMMAND = new String("session end");
+	/**
+	 * The address of the Arduino.
+	 */
+	protected InetAddress address = null;
+	/**
+	 * The port number of the Arduino.
+	 */
+	protected int portNumber = 0;
+	/**
+	 * The socket connected to the Arduino.
+	 */
+	protected Socket socket = null;
+	/**
+	 * The reader used to read replies from the Arduino.
+	 */
+	protected BufferedReader reader = null;
+	/**
+	 * The writer used to send commands to the Arduino.
+	 */
+	protected PrintWriter writer = null;
+	/**
+	 * The logger to log messages to.
+	 */
+	protected Logger logger = null;
+
+	/**
+	 * Constructor.
+	 * @param address A string representing the address of the Arduino, i.e. "spratmechanism", "192.168.1.77".
+	 * @param portNumber An integer representing the port number the Arduino is receiving command on.
+	 * @exception UnknownHostException Thrown if the address in unknown.
+	 * @see #address
+	 * @see #portNumber
+	 * @see #logger
+	 */
+	public MechanismSession(String address,int portNumber) throws UnknownHostException
+	{
+		super();
+		this.address = InetAddress.getByName(address);
+		this.portNumber = portNumber;
+		logger = LogManager.getLogger(this);
+	}
+
+	/**
+	 * Constructor.
+	 * @param address The address of the Arduino.
+	 * @param portNumber An integer representing the port number the Arduino is receiving command on.
+	 * @see #address
+	 * @see #portNumber
+	 * @see #logger
+	 */
+	public MechanismSession(InetAddress address,int portNumber)
+	{
+		super();
+		this.address = address;
+		this.portNumber = portNumber;
+		logger = LogManager.getLogger(this);
+	}
+
+	/**
+	 * Open the connection to the Arduino, and put it into session mode by sending the
+	 * SESSION_START_COMMAND.
+	 * @exception IOException Thrown if the socket cannot be opened, or the Arduino does not
+	 *            acknowledge the session start command (i.e. it is running an older sketch).
+	 * @see #SESSION_START_COMMAND
+	 * @see #sendLine
+	 * @see #socket
+	 * @see #reader
+	 * @see #writer
+	 */
+	public synchronized void open() throws IOException
+	{
+		String reply = null;
+
+		if(Command.isLoggable(Logging.VERBOSITY_VERY_VERBOSE))
+		{
+			logger.log(Logging.VERBOSITY_VERY_VERBOSE,"ngat.sprat.mechanism.command.MechanismSession:open:"+
+				   "Opening session to "+address+":"+portNumber+".");
+		}
+		socket = new Socket(address,portNumber);
+		socket.setTcpNoDelay(true);
+		reader = new BufferedReader(new InputStreamReader(socket.getInputStream()));
+		writer = new PrintWriter(new OutputStreamWriter(socket.getOutputStream()));
+		reply = sendLine(SESSION_START_COMMAND);
+		if(reply.trim().equals("ok") == false)
+		{
+			close();
+			throw new IOException(this.getClass().getName()+":open:Session start to "+address+":"+
+					      portNumber+" failed with reply:"+reply);
+		}
+		if(Command.isLoggable(Logging.VERBOSITY_VERY_VERBOSE))
+		{
+			logger.log(Logging.VERBOSITY_VERY_VERBOSE,"ngat.sprat.mechanism.command.MechanismSession:open:"+
+				   "Session started to "+address+":"+portNumber+".");
+		}
+	}
+
+	/**
+	 * Send a command line to the Arduino, and wait for a single line reply.
+	 * Commands from several threads can share a session, as the send/reply is synchronized.
+	 * @param commandString The command to send.
+	 * @return The reply line read from the Arduino.
+	 * @exception IOException Thrown if the session is not open, writing fails, or the
+	 *            Arduino closes the connection before a reply is read.
+	 * @see #writer
+	 * @see #reader
+	 */
+	public synchronized String sendLine(String commandString) throws IOException
+	{
+		String reply = null;
+
+		if(isOpen() == false)
+		{
+			throw new IOException(this.getClass().getName()+":sendLine:Session to "+address+":"+
+					      portNumber+" is not open.");
+		}
+		if(Command.isLoggable(Logging.VERBOSITY_VERY_VERBOSE))
+		{
+			logger.log(Logging.VERBOSITY_VERY_VERBOSE,"ngat.sprat.mechanism.command.MechanismSession:sendLine:"+
+				   "Sending:"+commandString);
+		}
+		writer.print(commandString+"\r\n");
+		writer.flush();
+		if(writer.checkError())
+		{
+			throw new IOException(this.getClass().getName()+":sendLine:Failed to send '"+
+					      commandString+"' to "+address+":"+portNumber+".");
+		}
+		reply = reader.readLine();
+		if(reply == null)
+		{
+			throw new IOException(this.getClass().getName()+":sendLine:Session to "+address+":"+
+					      portNumber+" closed whilst waiting for reply to '"+commandString+"'.");
+		}
+		if(Command.isLoggable(Logging.VERBOSITY_VERY_VERBOSE))
+		{
+			logger.log(Logging.VERBOSITY_VERY_VERBOSE,"ngat.sprat.mechanism.command.MechanismSession:sendLine:"+
+				   "Reply:"+reply);
+		}
+		return reply;
+	}
+
+	/**
+	 * Close the session. A SESSION_END_COMMAND is sent first if the connection is still open,
+	 * any error whilst doing so is ignored.
+	 * @see #SESSION_END_COMMAND
+	 * @see #socket
+	 */
+	public synchronized void close()
+	{
+		if(socket == null)
+			return;
+		if(Command.isLoggable(Logging.VERBOSITY_VERY_VERBOSE))
+		{
+			logger.log(Logging.VERBOSITY_VERY_VERBOSE,"ngat.sprat.mechanism.command.MechanismSession:close:"+
+				   "Closing session to "+address+":"+portNumber+".");
+		}
+		try
+		{
+			if(socket.isClosed() == false)
+			{
+				writer.print(SESSION_END_COMMAND+"\r\n");
+				writer.flush();
+			}
+		}
+		catch(Exception e)
+		{
+			// ignore - we are closing the connection anyway
+		}
+		try
+		{
+			socket.close();
+		}
+		catch(IOException e)
+		{
+			if(Command.isLoggable(Logging.VERBOSITY_VERBOSE))
+			{
+				logger.log(Logging.VERBOSITY_VERBOSE,"ngat.sprat.mechanism.command.MechanismSession:close:"+
+					   "Closing socket failed:"+e);
+			}
+		}
+		socket = null;
+		reader = null;
+		writer = null;
+	}
+
+	/**
+	 * Return whether the session is currently open.
+	 * @return true if the socket is connected and has not been closed, false otherwise.
+	 * @see #socket
+	 */
+	public synchronized boolean isOpen()
+	{
+		return (socket != null)&&socket.isConnected()&&(socket.isClosed() == false);
+	}
+}
@@ -107,8 +107,11 @@ public class OnOffReplyCommand extends Command implements Runnable, TelnetConnec
 		super.parseReplyString();
 		if(isError == false)
 		{
-			logger.log(Logging.VERBOSITY_VERY_VERBOSE,"ngat.sprat.mechanism.command.OnOffReplyCommand:"+
-				   "parseReplyString:Parsing reply string '"+replyString+"'.");
+			if(isLoggable(Logging.VERBOSITY_VERY_VERBOSE))
+			{
+				logger.log(Logging.VERBOSITY_VERY_VERBOSE,"ngat.sprat.mechanism.command.OnOffReplyCommand:"+
+					   "parseReplyString:Parsing reply string '"+replyString+"'.");
+			}
 			if(replyString.equals("on"))
 			{
 				currentState = STATE_ON;
@@ -131,9 +134,12 @@ public class OnOffReplyCommand extends Command implements Runnable, TelnetConnec
 			// isError is true.
 			currentState = STATE_ERROR;
 		}
-		logger.log(Logging.VERBOSITY_VERY_VERBOSE,"ngat.sprat.mechanism.command.OnOffReplyCommand:"+
-			   "parseReplyString:Finished parsing reply string '"+replyString+
-			   "' and got current state '"+currentState+"' / "+stateToString(currentState)+".");
+		if(isLoggable(Logging.VERBOSITY_VERY_VERBOSE))
+		{
+			logger.log(Logging.VERBOSITY_VERY_VERBOSE,"ngat.sprat.mechanism.command.OnOffReplyCommand:"+
+				   "parseReplyString:Finished parsing reply string '"+replyString+
+				   "' and got current state '"+currentState+"' / "+stateToString(currentState)+".");
+		}
 	}
 
 	/**
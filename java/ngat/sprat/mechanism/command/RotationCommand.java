@@ -124,8 +124,11 @@ public class RotationCommand extends Command implements Runnable, TelnetConnecti
 		super.parseReplyString();
 		if(isError == false)
 		{
-			logger.log(Logging.VERBOSITY_VERY_VERBOSE,"ngat.sprat.mechanism.command.RotationCommand:"+
-				   "parseReplyString:Parsing reply string '"+replyString+"'.");
+			if(isLoggable(Logging.VERBOSITY_VERY_VERBOSE))
+			{
+				logger.log(Logging.VERBOSITY_VERY_VERBOSE,"ngat.sprat.mechanism.command.RotationCommand:"+
+					   "parseReplyString:Parsing reply string '"+replyString+"'.");
+			}
 			if(replyString.equals("unknown"))
 			{
 				currentPosition = POSITION_UNKNOWN;
@@ -0,0 +1,782 @@
+// MechanismSimulator.java
+// $HeadURL$
+package ngat.sprat.test;
+
+import java.lang.*;
+import java.io.*;
+import java.util.*;
+
+/**
+ * This class simulates the Sprat mechanism Arduino (arduino/sketchbook/SpratMechanism), so CONFIG and GET_STATUS
+ * can be soak tested and benchmarked without the hardware. It speaks the same text protocol as the sketch:
+ * <ul>
+ * <li>mirror|slit|grism [in|out]: Start a move (if an argument is given), and reply with the current position:
+ *     in, out or unknown (whilst moving).
+ * <li>rotation [0|1]: Start a grism rotation move (if an argument is given), and reply with the current
+ *     position: 0, 1 or unknown (whilst moving).
+ * <li>arclamp|wlamp [on|off]: Turn the lamp on or off (if an argument is given), and reply with on or off.
+ * <li>temperature &lt;n&gt;, humidity &lt;n&gt;: Reply ok &lt;value&gt;.
+ * <li>gyro: Reply ok &lt;x&gt; &lt;y&gt; &lt;z&gt;.
+ * <li>input &lt;mirrorout|mirrorin|slitout|slitin|grismout|grismin|rotpos0|rotpos1&gt;: Reply with the state
+ *     of the position sensor input: 0 (LOW) when the mechanism is in that position, 1 otherwise.
+ * <li>relay &lt;n&gt; &lt;on|off&gt;: Set a relay directly, and reply on or off.
+ * <li>session start|end: Keep the connection open for further commands / close it.
+ * <li>help: List the commands.
+ * </ul>
+ * As with the sketch, a move command returns immediately, with the mechanism's current position, and the client
+ * polls until the mechanism reaches the target position. Each move takes the configured move time for
+ * the mechanism, plus or minus a random jitter. The grism interlocks are enforced: the grism can only be moved
+ * when the grism rotation is in position 0, and the grism rotation can only be moved to position 1 when
+ * the grism is in. Errors are replied as "error &lt;code&gt; &lt;description&gt;", using the sketch's error codes.
+ * <p>
+ * Faults can be injected with a configurable probability per command: an error reply, the connection
+ * being dropped without a reply, and a move that never completes (the mechanism is stuck, and reports
+ * unknown until it is commanded again).
+ * <p>
+ * The simulator can be run stand-alone (see main), and Sprat configured to use it by setting
+ * sprat.mechanism.hostname and sprat.mechanism.port_number in the Sprat properties file.
+ * @author Chris Mottram
+ * @version $Revision$
+ * @see StandInServer
+ */
+public class MechanismSimulator extends StandInServer
+{
+	/**
+	 * Revision Control System id string, showing the version of the Class.
+	 */
+	public final static String RCSID = new String("$Id$");
+	/**
+	 * The default port number to listen on, when run stand-alone.
+	 */
+	public final static int DEFAULT_PORT_NUMBER = 2323;
+	/**
+	 * Index of the mirror mechanism.
+	 */
+	public final static int MECHANISM_MIRROR = 0;
+	/**
+	 * Index of the slit mechanism.
+	 */
+	public final static int MECHANISM_SLIT = 1;
+	/**
+	 * Index of the grism mechanism.
+	 */
+	public final static int MECHANISM_GRISM = 2;
+	/**
+	 * Index of the grism rotation mechanism.
+	 */
+	public final static int MECHANISM_ROTATION = 3;
+	/**
+	 * The names of the mechanisms, as used in the protocol, indexed by the MECHANISM_* constants.
+	 */
+	public final static String MECHANISM_NAME_LIST[] = {"mirror","slit","grism","rotation"};
+	/**
+	 * The position of an in/out mechanism that is out of the beam, and the stowed grism rotation position.
+	 */
+	public final static int POSITION_OUT = 0;
+	/**
+	 * The position of an in/out mechanism that is in the beam, and the deployed grism rotation position.
+	 */
+	public final static int POSITION_IN = 1;
+	/**
+	 * The default time a mechanism takes to move, in milliseconds.
+	 */
+	public final static int DEFAULT_MOVE_TIME = 1000;
+	/**
+	 * Error code: the grism rotation is not in position 0, so the grism cannot be moved.
+	 */
+	public final static int ERROR_CODE_ROT_POS_NOT_ZERO = 1;
+	/**
+	 * Error code: the grism is not in, so the grism rotation cannot be moved to position 1.
+	 */
+	public final static int ERROR_CODE_GRISM_NOT_IN = 6;
+	/**
+	 * Error code: the relay number was out of range.
+	 */
+	public final static int ERROR_CODE_NUMBER_OUT_OF_RANGE = 8;
+	/**
+	 * Error code used for injected faults. This is not used by the sketch.
+	 */
+	public final static int ERROR_CODE_SIMULATED_FAULT = 99;
+	/**
+	 * The current (or last attained) position of each mechanism.
+	 */
+	protected int positionList[] = {POSITION_OUT,POSITION_OUT,POSITION_OUT,POSITION_OUT};
+	/**
+	 * The time (System.currentTimeMillis) each mechanism finishes it's current move, Long.MAX_VALUE
+	 * if the mechanism is stuck.
+	 */
+	protected long moveEndTimeList[] = {0L,0L,0L,0L};
+	/**
+	 * The time each mechanism takes to move, in milliseconds.
+	 */
+	protected int moveTimeList[] = {DEFAULT_MOVE_TIME,DEFAULT_MOVE_TIME,DEFAULT_MOVE_TIME,DEFAULT_MOVE_TIME};
+	/**
+	 * The maximum random variation of each move time, in milliseconds.
+	 */
+	protected int moveJitter = 0;
+	/**
+	 * The maximum random variation of each reply delay, in milliseconds.
+	 */
+	protected int replyJitter = 0;
+	/**
+	 * Whether the arc lamp is on.
+	 */
+	protected boolean arcLampOn = false;
+	/**
+	 * The state of each relay (1..8), index 0 is unused. Relays 1..5 are the mirror, slit, grism, grism
+	 * rotation and W lamp, and are derived from the mechanism state, relays 6..8 are unused by the instrument.
+	 */
+	protected boolean relayList[] = new boolean[9];
+	/**
+	 * The nominal temperature of each sensor, in degrees centigrade.
+	 */
+	protected double temperatureList[] = {12.5,13.0};
+	/**
+	 * The nominal relative humidity of each sensor, in percent.
+	 */
+	protected double humidityList[] = {35.0,38.0};
+	/**
+	 * The nominal gyro position (x, y, z).
+	 */
+	protected double gyroList[] = {0.5,-1.25,98.0};
+	/**
+	 * The maximum random variation of each sensor reading.
+	 */
+	protected double sensorNoise = 0.05;
+	/**
+	 * The probability (0..1) of a command being replied to with an error.
+	 */
+	protected double errorProbability = 0.0;
+	/**
+	 * The probability (0..1) of the connection being dropped without a reply to a command.
+	 */
+	protected double dropProbability = 0.0;
+	/**
+	 * The probability (0..1) of a move never completing.
+	 */
+	protected double stuckProbability = 0.0;
+	/**
+	 * The number of moves started.
+	 */
+	protected int moveCount = 0;
+	/**
+	 * The number of faults injected.
+	 */
+	protected int faultCount = 0;
+	/**
+	 * The random number generator used for jitter, sensor noise and fault injection.
+	 */
+	protected Random random = null;
+
+	/**
+	 * Constructor.
+	 * @see #random
+	 */
+	public MechanismSimulator()
+	{
+		super("Mechanism simulator","ok",null);
+		setSessionEndReply("ok");
+		setLineTerminator("\r\n");
+		random = new Random();
+	}
+
+	/**
+	 * Set the seed of the random number generator, so a run can be repeated.
+	 * @param seed The seed.
+	 * @see #random
+	 */
+	public synchronized void setSeed(long seed)
+	{
+		random.setSeed(seed);
+	}
+
+	/**
+	 * Set the time a mechanism takes to move.
+	 * @param mechanism Which mechanism, one of the MECHANISM_* constants.
+	 * @param ms The move time in milliseconds.
+	 * @see #moveTimeList
+	 */
+	public synchronized void setMoveTime(int mechanism,int ms)
+	{
+		moveTimeList[mechanism] = ms;
+	}
+
+	/**
+	 * Set the time all the mechanisms take to move.
+	 * @param ms The move time in milliseconds.
+	 * @see #moveTimeList
+	 */
+	public synchronized void setMoveTime(int ms)
+	{
+		for(int i = 0; i < moveTimeList.length; i++)
+			moveTimeList[i] = ms;
+	}
+
+	/**
+	 * Set the maximum random variation of each move time.
+	 * @param ms The jitter in milliseconds, each move time is varied by up to plus or minus this amount.
+	 * @see #moveJitter
+	 */
+	public synchronized void setMoveJitter(int ms)
+	{
+		moveJitter = ms;
+	}
+
+	/**
+	 * Set the maximum random variation of each reply delay.
+	 * @param ms The jitter in milliseconds, a random delay up to this amount is added to each reply delay.
+	 * @see #replyJitter
+	 * @see #setReplyDelay
+	 */
+	public synchronized void setReplyJitter(int ms)
+	{
+		replyJitter = ms;
+	}
+
+	/**
+	 * Set the probability of a command being replied to with an error.
+	 * @param p The probability (0..1).
+	 * @see #errorProbability
+	 */
+	public synchronized void setErrorProbability(double p)
+	{
+		errorProbability = p;
+	}
+
+	/**
+	 * Set the probability of the connection being dropped without a reply to a command.
+	 * @param p The probability (0..1).
+	 * @see #dropProbability
+	 */
+	public synchronized void setDropProbability(double p)
+	{
+		dropProbability = p;
+	}
+
+	/**
+	 * Set the probability of a move never completing.
+	 * @param p The probability (0..1).
+	 * @see #stuckProbability
+	 */
+	public synchronized void setStuckProbability(double p)
+	{
+		stuckProbability = p;
+	}
+
+	/**
+	 * Set the position of a mechanism immediately (i.e. the position at start up).
+	 * @param mechanism Which mechanism, one of the MECHANISM_* constants.
+	 * @param position The position, POSITION_IN or POSITION_OUT (grism rotation 1 or 0).
+	 * @see #positionList
+	 * @see #moveEndTimeList
+	 */
+	public synchronized void setPosition(int mechanism,int position)
+	{
+		positionList[mechanism] = position;
+		moveEndTimeList[mechanism] = 0L;
+	}
+
+	/**
+	 * Get the number of moves started.
+	 * @return The number of moves.
+	 * @see #moveCount
+	 */
+	public synchronized int getMoveCount()
+	{
+		return moveCount;
+	}
+
+	/**
+	 * Get the number of faults injected.
+	 * @return The number of faults.
+	 * @see #faultCount
+	 */
+	public synchronized int getFaultCount()
+	{
+		return faultCount;
+	}
+
+	/**
+	 * Get the reply delay, plus a random jitter.
+	 * @return The delay, in milliseconds.
+	 * @see #replyDelay
+	 * @see #replyJitter
+	 */
+	protected synchronized int getReplyDelay()
+	{
+		if(replyJitter > 0)
+			return replyDelay+random.nextInt(replyJitter+1);
+		return replyDelay;
+	}
+
+	/**
+	 * Execute a command, and return the reply, as the sketch's messageReady function does. Faults are
+	 * injected first, if enabled.
+	 * @param commandString The command received.
+	 * @return The reply, or null if the connection is to be dropped.
+	 * @see #dropProbability
+	 * @see #errorProbability
+	 * @see #moveMechanism
+	 * @see #getMechanismReply
+	 * @see #getLampReply
+	 * @see #getSensorReply
+	 * @see #getGyroReply
+	 * @see #getInputReply
+	 * @see #getRelayReply
+	 */
+	protected synchronized String getReply(String commandString)
+	{
+		StringTokenizer st = null;
+		String command = null;
+		String argument = null;
+
+		if(random.nextDouble() < dropProbability)
+		{
+			faultCount++;
+			return null;
+		}
+		if(random.nextDouble() < errorProbability)
+		{
+			faultCount++;
+			return "error "+ERROR_CODE_SIMULATED_FAULT+" Simulated fault.";
+		}
+		st = new StringTokenizer(commandString," ");
+		if(st.hasMoreTokens() == false)
+			return "error Unknown command:";
+		command = st.nextToken();
+		if(st.hasMoreTokens())
+			argument = st.nextToken();
+		for(int i = 0; i < MECHANISM_NAME_LIST.length; i++)
+		{
+			if(command.equals(MECHANISM_NAME_LIST[i]))
+				return getMechanismReply(i,argument);
+		}
+		if(command.equals("arclamp"))
+		{
+			if("on".equals(argument))
+				arcLampOn = true;
+			else if("off".equals(argument))
+				arcLampOn = false;
+			return getLampReply(arcLampOn);
+		}
+		else if(command.equals("wlamp"))
+		{
+			if("on".equals(argument))
+				relayList[5] = true;
+			else if("off".equals(argument))
+				relayList[5] = false;
+			return getLampReply(relayList[5]);
+		}
+		else if(command.equals("temperature"))
+			return getSensorReply(temperatureList,argument,"%.4f");
+		else if(command.equals("humidity"))
+			return getSensorReply(humidityList,argument,"%.2f");
+		else if(command.equals("gyro"))
+			return getGyroReply();
+		else if(command.equals("input"))
+			return getInputReply(argument);
+		else if(command.equals("relay"))
+		{
+			return getRelayReply(argument,st.hasMoreTokens() ? st.nextToken() : null);
+		}
+		else if(command.equals("session"))
+			return "error Illegal session argument.";
+		else if(command.equals("help"))
+		{
+			return "Sprat Mechanism help:"+lineTerminator+"help"+lineTerminator+"arclamp [on|off]"+lineTerminator+
+				"grism [in|out]"+lineTerminator+"gyro"+lineTerminator+"humidity <n>"+lineTerminator+
+				"input <mirrorout|mirrorin|slitout|slitin|grismout|grismin|rotpos0|rotpos1>"+lineTerminator+
+				"mirror [in|out]"+lineTerminator+"rotation [0|1]"+lineTerminator+"session <start|end>"+
+				lineTerminator+"slit [in|out]"+lineTerminator+"temperature <n>"+lineTerminator+
+				"wlamp [on|off]"+lineTerminator+"Engineering commands:"+lineTerminator+"relay <n> <on|off>";
+		}
+		return "error Unknown command:"+command;
+	}
+
+	/**
+	 * Move a mechanism (if a target position is specified), and return it's current position.
+	 * @param mechanism Which mechanism, one of the MECHANISM_* constants.
+	 * @param argument The command argument: in|out for the mirror, slit and grism, 0|1 for the grism rotation,
+	 *        or null (or anything else) to just return the current position.
+	 * @return The reply: in, out, 0, 1, unknown or an error reply if the move would break an interlock.
+	 * @see #moveMechanism
+	 * @see #getPositionString
+	 */
+	protected String getMechanismReply(int mechanism,String argument)
+	{
+		int targetPosition = -1;
+
+		if(mechanism == MECHANISM_ROTATION)
+		{
+			if("0".equals(argument))
+				targetPosition = POSITION_OUT;
+			else if("1".equals(argument))
+				targetPosition = POSITION_IN;
+		}
+		else
+		{
+			if("in".equals(argument))
+				targetPosition = POSITION_IN;
+			else if("out".equals(argument))
+				targetPosition = POSITION_OUT;
+		}
+		if(targetPosition != -1)
+		{
+			if((mechanism == MECHANISM_GRISM)&&(isInPosition(MECHANISM_ROTATION,POSITION_OUT) == false))
+			{
+				return "error "+ERROR_CODE_ROT_POS_NOT_ZERO+
+					" Grism Rotation not in position 0: Failing to start move.";
+			}
+			if((mechanism == MECHANISM_ROTATION)&&(targetPosition == POSITION_IN)&&
+			   (isInPosition(MECHANISM_GRISM,POSITION_IN) == false))
+			{
+				return "error "+ERROR_CODE_GRISM_NOT_IN+
+					" Grism was not IN: cannot move grism rotation mechanism to position 1.";
+			}
+			moveMechanism(mechanism,targetPosition);
+		}
+		return getPositionString(mechanism);
+	}
+
+	/**
+	 * Start a mechanism moving to a new position. If the mechanism is already in (or moving to) the
+	 * position, nothing happens. Otherwise the move end time is set to now plus the mechanism's move time
+	 * (plus or minus the jitter), or never if a stuck fault is injected.
+	 * @param mechanism Which mechanism, one of the MECHANISM_* constants.
+	 * @param targetPosition The position to move to.
+	 * @see #positionList
+	 * @see #moveEndTimeList
+	 * @see #moveTimeList
+	 * @see #moveJitter
+	 * @see #stuckProbability
+	 */
+	protected void moveMechanism(int mechanism,int targetPosition)
+	{
+		long moveTime;
+
+		if((positionList[mechanism] == targetPosition)&&(moveEndTimeList[mechanism] != Long.MAX_VALUE))
+			return;
+		moveCount++;
+		positionList[mechanism] = targetPosition;
+		if(random.nextDouble() < stuckProbability)
+		{
+			faultCount++;
+			moveEndTimeList[mechanism] = Long.MAX_VALUE;
+			return;
+		}
+		moveTime = moveTimeList[mechanism];
+		if(moveJitter > 0)
+			moveTime += random.nextInt((2*moveJitter)+1)-moveJitter;
+		moveEndTimeList[mechanism] = System.currentTimeMillis()+Math.max(moveTime,0L);
+	}
+
+	/**
+	 * Return whether a mechanism has finished moving, and is in the specified position.
+	 * @param mechanism Which mechanism, one of the MECHANISM_* constants.
+	 * @param position The position.
+	 * @return true if the mechanism is in the position, false if it is elsewhere or moving.
+	 * @see #positionList
+	 * @see #moveEndTimeList
+	 */
+	protected boolean isInPosition(int mechanism,int position)
+	{
+		return (positionList[mechanism] == position)&&(System.currentTimeMillis() >= moveEndTimeList[mechanism]);
+	}
+
+	/**
+	 * Return the current position of a mechanism, as replied by the sketch.
+	 * @param mechanism Which mechanism, one of the MECHANISM_* constants.
+	 * @return unknown if the mechanism is moving, otherwise 0 or 1 for the grism rotation, in or out for the
+	 *         other mechanisms.
+	 * @see #isInPosition
+	 */
+	protected String getPositionString(int mechanism)
+	{
+		if(System.currentTimeMillis() < moveEndTimeList[mechanism])
+			return "unknown";
+		if(mechanism == MECHANISM_ROTATION)
+			return Integer.toString(positionList[mechanism]);
+		if(positionList[mechanism] == POSITION_IN)
+			return "in";
+		return "out";
+	}
+
+	/**
+	 * Return the reply to a lamp command.
+	 * @param on Whether the lamp is on.
+	 * @return on or off.
+	 */
+	protected String getLampReply(boolean on)
+	{
+		if(on)
+			return "on";
+		return "off";
+	}
+
+	/**
+	 * Return the reply to a temperature or humidity command. As with the sketch, an unknown sensor number
+	 * returns a value of zero.
+	 * @param valueList The nominal value of each sensor.
+	 * @param argument The sensor number argument.
+	 * @param format The format of the value.
+	 * @return A reply of the form "ok &lt;value&gt;".
+	 * @see #getNoisyValue
+	 */
+	protected String getSensorReply(double valueList[],String argument,String format)
+	{
+		double value = 0.0;
+		int sensorNumber;
+
+		try
+		{
+			sensorNumber = Integer.parseInt(argument);
+		}
+		catch(NumberFormatException e)
+		{
+			sensorNumber = -1;
+		}
+		if((sensorNumber >= 0)&&(sensorNumber < valueList.length))
+			value = getNoisyValue(valueList[sensorNumber]);
+		return "ok "+String.format(Locale.UK,format,value);
+	}
+
+	/**
+	 * Return the reply to a gyro command.
+	 * @return A reply of the form "ok &lt;x&gt; &lt;y&gt; &lt;z&gt;".
+	 * @see #gyroList
+	 * @see #getNoisyValue
+	 */
+	protected String getGyroReply()
+	{
+		return "ok "+String.format(Locale.UK,"%.2f %.2f %.2f",getNoisyValue(gyroList[0]),
+					   getNoisyValue(gyroList[1]),getNoisyValue(gyroList[2]));
+	}
+
+	/**
+	 * Return a sensor value with random noise added.
+	 * @param value The nominal value.
+	 * @return The value, plus or minus up to sensorNoise.
+	 * @see #sensorNoise
+	 */
+	protected double getNoisyValue(double value)
+	{
+		return value+(((2.0*random.nextDouble())-1.0)*sensorNoise);
+	}
+
+	/**
+	 * Return the reply to an input command, the state of a mechanism position sensor.
+	 * @param argument The input name.
+	 * @return 0 (LOW) if the mechanism is in the sensor's position, 1 (HIGH) if it is not, or an error reply
+	 *         if the input name is unknown.
+	 * @see #isInPosition
+	 */
+	protected String getInputReply(String argument)
+	{
+		String inputList[] = {"mirrorout","mirrorin","slitout","slitin","grismout","grismin","rotpos0","rotpos1"};
+
+		for(int i = 0; i < inputList.length; i++)
+		{
+			if(inputList[i].equals(argument))
+			{
+				// the list is ordered mechanism by mechanism, out (0) then in (1)
+				if(isInPosition(i/2,i%2))
+					return "0";
+				return "1";
+			}
+		}
+		return "error Unknown input";
+	}
+
+	/**
+	 * Return the reply to a relay command. Relays 1..4 move the mirror, slit, grism and grism rotation
+	 * (with the same interlocks as the move commands), relay 5 is the W lamp.
+	 * @param relayString The relay number argument.
+	 * @param onOffString The on|off argument.
+	 * @return on, off or an error reply.
+	 * @see #relayList
+	 * @see #getMechanismReply
+	 */
+	protected String getRelayReply(String relayString,String onOffString)
+	{
+		String reply = null;
+		int relayNumber;
+		boolean on;
+
+		try
+		{
+			relayNumber = Integer.parseInt(relayString);
+		}
+		catch(NumberFormatException e)
+		{
+			relayNumber = -1;
+		}
+		if("on".equals(onOffString))
+			on = true;
+		else if("off".equals(onOffString))
+			on = false;
+		else
+			return "error Illegal onoff argument for relay command:"+onOffString;
+		if((relayNumber < 1)||(relayNumber >= relayList.length))
+		{
+			return "error "+ERROR_CODE_NUMBER_OUT_OF_RANGE+" Input parameter was out of range.";
+		}
+		if(relayNumber <= MECHANISM_NAME_LIST.length)
+		{
+			if(relayNumber-1 == MECHANISM_ROTATION)
+				reply = getMechanismReply(relayNumber-1,on ? "1" : "0");
+			else
+				reply = getMechanismReply(relayNumber-1,on ? "in" : "out");
+			if(reply.startsWith("error"))
+				return reply;
+		}
+		else
+			relayList[relayNumber] = on;
+		return getLampReply(on);
+	}
+
+	/**
+	 * This routine parses arguments passed into MechanismSimulator, when run stand-alone.
+	 * @param args Command line arguments.
+	 * @exception NumberFormatException Thrown if a numeric argument cannot be parsed.
+	 * @see #help
+	 */
+	private void parseArgs(String[] args) throws NumberFormatException
+	{
+		for(int i = 0; i < args.length;i++)
+		{
+			if(args[i].equals("-h")||args[i].equals("-help"))
+			{
+				help();
+				System.exit(0);
+			}
+			else if(((i+1) < args.length) && args[i].equals("-address"))
+			{
+				setAddress(args[i+1]);
+				i++;
+			}
+			else if(((i+1) < args.length) && (args[i].equals("-p")||args[i].equals("-port")))
+			{
+				setPortNumber(Integer.parseInt(args[i+1]));
+				i++;
+			}
+			else if(((i+1) < args.length) && args[i].equals("-move_time"))
+			{
+				setMoveTime(Integer.parseInt(args[i+1]));
+				i++;
+			}
+			else if(((i+2) < args.length) && args[i].equals("-mechanism_move_time"))
+			{
+				setMoveTime(parseMechanism(args[i+1]),Integer.parseInt(args[i+2]));
+				i += 2;
+			}
+			else if(((i+1) < args.length) && args[i].equals("-move_jitter"))
+			{
+				setMoveJitter(Integer.parseInt(args[i+1]));
+				i++;
+			}
+			else if(((i+1) < args.length) && args[i].equals("-reply_delay"))
+			{
+				setReplyDelay(Integer.parseInt(args[i+1]));
+				i++;
+			}
+			else if(((i+1) < args.length) && args[i].equals("-reply_jitter"))
+			{
+				setReplyJitter(Integer.parseInt(args[i+1]));
+				i++;
+			}
+			else if(((i+1) < args.length) && args[i].equals("-error_probability"))
+			{
+				setErrorProbability(Double.parseDouble(args[i+1]));
+				i++;
+			}
+			else if(((i+1) < args.length) && args[i].equals("-drop_probability"))
+			{
+				setDropProbability(Double.parseDouble(args[i+1]));
+				i++;
+			}
+			else if(((i+1) < args.length) && args[i].equals("-stuck_probability"))
+			{
+				setStuckProbability(Double.parseDouble(args[i+1]));
+				i++;
+			}
+			else if(((i+1) < args.length) && args[i].equals("-seed"))
+			{
+				setSeed(Long.parseLong(args[i+1]));
+				i++;
+			}
+			else
+				System.out.println(this.getClass().getName()+":Option not supported or missing argument:"+
+						   args[i]);
+		}
+	}
+
+	/**
+	 * Parse a mechanism name.
+	 * @param name The mechanism name, one of MECHANISM_NAME_LIST.
+	 * @return The mechanism index.
+	 * @exception NumberFormatException Thrown if the name is not a mechanism name.
+	 * @see #MECHANISM_NAME_LIST
+	 */
+	private int parseMechanism(String name) throws NumberFormatException
+	{
+		for(int i = 0; i < MECHANISM_NAME_LIST.length; i++)
+		{
+			if(MECHANISM_NAME_LIST[i].equals(name))
+				return i;
+		}
+		throw new NumberFormatException(this.getClass().getName()+":parseMechanism:Illegal mechanism:"+name);
+	}
+
+	/**
+	 * Help message routine.
+	 */
+	private void help()
+	{
+		System.out.println(this.getClass().getName()+" Help:");
+		System.out.println("Options are:");
+		System.out.println("\t-address <address> - Address to listen on (default localhost).");
+		System.out.println("\t-p[ort] <port number> - Port to listen on (default "+DEFAULT_PORT_NUMBER+").");
+		System.out.println("\t-move_time <ms> - Time all the mechanisms take to move (default "+
+				   DEFAULT_MOVE_TIME+").");
+		System.out.println("\t-mechanism_move_time <mirror|slit|grism|rotation> <ms> - Time one mechanism "+
+				   "takes to move.");
+		System.out.println("\t-move_jitter <ms> - Random variation of each move time.");
+		System.out.println("\t-reply_delay <ms> - Delay before each reply.");
+		System.out.println("\t-reply_jitter <ms> - Random extra delay before each reply.");
+		System.out.println("\t-error_probability <0..1> - Probability of an error reply to a command.");
+		System.out.println("\t-drop_probability <0..1> - Probability of dropping the connection instead "+
+				   "of replying.");
+		System.out.println("\t-stuck_probability <0..1> - Probability of a move never completing.");
+		System.out.println("\t-seed <number> - Random number generator seed.");
+	}
+
+	/**
+	 * The main routine, called when MechanismSimulator is run stand-alone. This parses it's arguments, and
+	 * starts the simulator, which runs until the process is killed.
+	 * @param args Command line arguments.
+	 * @see #parseArgs
+	 * @see #start
+	 * @see #join
+	 */
+	public static void main(String[] args)
+	{
+		MechanismSimulator simulator = new MechanismSimulator();
+
+		simulator.setPortNumber(DEFAULT_PORT_NUMBER);
+		try
+		{
+			simulator.parseArgs(args);
+			simulator.start();
+			System.out.println("MechanismSimulator listening on "+simulator.getAddress()+":"+
+					   simulator.getPortNumber()+".");
+			simulator.join();
+		}
+		catch(Exception e)
+		{
+			System.err.println("MechanismSimulator failed:"+e);
+			e.printStackTrace(System.err);
+			System.exit(1);
+		}
+		System.exit(0);
+	}
+}
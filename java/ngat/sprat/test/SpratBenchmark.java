@@ -0,0 +1,858 @@
+// SpratBenchmark.java
+// $HeadURL$
+package ngat.sprat.test;
+
+import java.lang.*;
+import java.io.*;
+import java.lang.reflect.*;
+import java.net.*;
+import java.util.*;
+
+import ngat.message.ISS_INST.*;
+import ngat.sprat.ccd.command.*;
+import ngat.sprat.mechanism.command.*;
+import ngat.util.logging.*;
+
+/**
+ * This class is a micro-benchmark harness for the Sprat command/reply and status paths. It times:
+ * <ul>
+ * <li>CCD (C layer) status commands round trips, over new telnet connections and pooled connections.
+ * <li>Sending FITS headers to the C layer, one "fitsheader add" command per keyword vs one batch command.
+ * <li>Mechanism (Arduino) command round trips, over new telnet connections and a mechanism session.
+ * <li>Parsing the reply strings of the CCD and mechanism commands (no I/O).
+ * <li>GET_STATUS at each level, sent to a running Sprat (only if -sprat_address is specified).
+ * </ul>
+ * The C layer and Arduino are replaced by in-process StandInServer (MechanismSimulator) instances on loopback
+ * ports, so the timings measure the Java side (and loopback TCP) only. Each benchmark is run a number of
+ * warmup iterations (to let the JIT compile the code paths), and then a number of timed iterations, and the
+ * mean, minimum, percentiles and maximum times are printed in microseconds.
+ * @author Chris Mottram
+ * @version $Revision$
+ * @see StandInServer
+ * @see MechanismSimulator
+ */
+public class SpratBenchmark
+{
+	/**
+	 * Revision Control System id string, showing the version of the Class.
+	 */
+	public final static String RCSID = new String("$Id$");
+	/**
+	 * The default number of untimed iterations to run before timing a benchmark.
+	 */
+	static final int DEFAULT_WARMUP_COUNT = 1000;
+	/**
+	 * The default number of timed iterations of each benchmark.
+	 */
+	static final int DEFAULT_ITERATION_COUNT = 5000;
+	/**
+	 * The default number of FITS keywords sent per iteration of the FITS header benchmarks.
+	 */
+	static final int DEFAULT_FITS_KEYWORD_COUNT = 60;
+	/**
+	 * The default port number to send ISS commands (GET_STATUS) to.
+	 */
+	static final int DEFAULT_SPRAT_PORT_NUMBER = 8374;
+	/**
+	 * The timestamp used in the stand-in C layer replies.
+	 */
+	static final String TIMESTAMP = new String("2026-10-18T12:34:56.789");
+	/**
+	 * The number of untimed iterations to run before timing a benchmark.
+	 */
+	private int warmupCount = DEFAULT_WARMUP_COUNT;
+	/**
+	 * The number of timed iterations of each benchmark.
+	 */
+	private int iterationCount = DEFAULT_ITERATION_COUNT;
+	/**
+	 * The number of FITS keywords sent per iteration of the FITS header benchmarks.
+	 */
+	private int fitsKeywordCount = DEFAULT_FITS_KEYWORD_COUNT;
+	/**
+	 * If non-null, only benchmarks whose name contains this string are run.
+	 */
+	private String filter = null;
+	/**
+	 * The address of a running Sprat to send GET_STATUS commands to, or null to not run the GET_STATUS
+	 * benchmarks.
+	 */
+	private InetAddress spratAddress = null;
+	/**
+	 * The port number to send GET_STATUS commands to Sprat on.
+	 */
+	private int spratPortNumber = DEFAULT_SPRAT_PORT_NUMBER;
+	/**
+	 * The stand-in for the CCD C layer.
+	 */
+	private StandInServer ccdServer = null;
+	/**
+	 * The stand-in for the mechanism Arduino, a MechanismSimulator with instant moves.
+	 */
+	private StandInServer mechanismServer = null;
+	/**
+	 * The list of benchmarks to run.
+	 */
+	private Vector<Benchmark> benchmarkList = new Vector<Benchmark>();
+	/**
+	 * The stream to write error messages to - defaults to System.err.
+	 */
+	private PrintStream errorStream = System.err;
+
+	/**
+	 * Initialisation routine. The command logging is turned down (so we time the commands, not the logging),
+	 * the stand-in servers are started, and the list of benchmarks is created.
+	 * @exception Exception Thrown if the servers cannot be started, or a benchmark cannot be created.
+	 * @see #ccdServer
+	 * @see #mechanismServer
+	 * @see MechanismSimulator
+	 * @see #addCCDBenchmarks
+	 * @see #addFitsHeaderBenchmarks
+	 * @see #addMechanismBenchmarks
+	 * @see #addParseBenchmarks
+	 * @see #addGetStatusBenchmarks
+	 */
+	private void init() throws Exception
+	{
+		MechanismSimulator mechanismSimulator = null;
+
+		ngat.sprat.ccd.command.Command.setLogLevel(Logging.VERBOSITY_TERSE);
+		ngat.sprat.mechanism.command.Command.setLogLevel(Logging.VERBOSITY_TERSE);
+		ccdServer = new StandInServer("CCD stand-in","0 Session started.","1 Unknown command.");
+		ccdServer.setSessionEndReply("0 Session ended.");
+		ccdServer.setReply(StatusTemperatureGetCommand.COMMAND_STRING,"0 "+TIMESTAMP+" -100.00");
+		ccdServer.setReply(StatusTemperatureStatusCommand.COMMAND_STRING,"0 "+TIMESTAMP+" OK");
+		ccdServer.setReply(StatusAllCommand.COMMAND_STRING,getStatusAllReply());
+		ccdServer.setReply("status exposure length","0 1000");
+		ccdServer.setReply("fitsheader","0 FITS header added.");
+		ccdServer.start();
+		mechanismSimulator = new MechanismSimulator();
+		mechanismSimulator.setMoveTime(0);
+		mechanismSimulator.setPosition(MechanismSimulator.MECHANISM_SLIT,MechanismSimulator.POSITION_IN);
+		mechanismSimulator.start();
+		mechanismServer = mechanismSimulator;
+		addCCDBenchmarks();
+		addFitsHeaderBenchmarks();
+		addMechanismBenchmarks();
+		addParseBenchmarks();
+		addGetStatusBenchmarks();
+	}
+
+	/**
+	 * Return the reply the C layer stand-in sends to a "status all" command.
+	 * @return The reply string.
+	 * @see #TIMESTAMP
+	 */
+	private String getStatusAllReply()
+	{
+		return new String("0 exposure.status=NONE exposure.length=1000 exposure.start_time="+TIMESTAMP+
+				  " exposure.multrun=12 exposure.run=3 multrun.index=2 multrun.count=5"+
+				  " multrun.binx=1 multrun.biny=1 temperature.time="+TIMESTAMP+
+				  " temperature=-100.00 temperature.status=OK");
+	}
+
+	/**
+	 * Add the CCD status command round trip benchmarks, each over a new telnet connection per command and
+	 * over pooled connections.
+	 * @exception Exception Thrown if a command cannot be created.
+	 * @see #benchmarkList
+	 * @see CCDBenchmark
+	 */
+	private void addCCDBenchmarks() throws Exception
+	{
+		boolean pooledList[] = {false,true};
+
+		for(int i = 0; i < pooledList.length; i++)
+		{
+			final StatusTemperatureGetCommand temperatureCommand = new StatusTemperatureGetCommand(
+				                                    ccdServer.getAddress(),ccdServer.getPortNumber());
+			final StatusAllCommand statusAllCommand = new StatusAllCommand(ccdServer.getAddress(),
+										    ccdServer.getPortNumber());
+
+			benchmarkList.add(new CCDBenchmark("ccd.status_temperature_get",pooledList[i])
+			{
+				public void run() throws Exception
+				{
+					temperatureCommand.sendCommand();
+					checkReply(temperatureCommand);
+				}
+			});
+			benchmarkList.add(new CCDBenchmark("ccd.status_all",pooledList[i])
+			{
+				public void run() throws Exception
+				{
+					statusAllCommand.sendCommand();
+					checkReply(statusAllCommand);
+				}
+			});
+		}
+	}
+
+	/**
+	 * Add the FITS header benchmarks. Each iteration sends fitsKeywordCount keywords to the C layer, either
+	 * as one "fitsheader add" command per keyword (as FITSImplementation used to), or as one
+	 * FitsHeaderBatchCommand. Both are run over new telnet connections and over pooled connections.
+	 * @exception Exception Thrown if a command cannot be created.
+	 * @see #fitsKeywordCount
+	 * @see #benchmarkList
+	 * @see CCDBenchmark
+	 */
+	private void addFitsHeaderBenchmarks() throws Exception
+	{
+		boolean pooledList[] = {false,true};
+
+		for(int i = 0; i < pooledList.length; i++)
+		{
+			final FitsHeaderAddCommand addCommand = new FitsHeaderAddCommand(ccdServer.getAddress(),
+											 ccdServer.getPortNumber());
+			final FitsHeaderBatchCommand batchCommand = new FitsHeaderBatchCommand(ccdServer.getAddress(),
+											       ccdServer.getPortNumber());
+
+			benchmarkList.add(new CCDBenchmark("ccd.fits_headers."+fitsKeywordCount+"_keywords.per_keyword",
+							   pooledList[i])
+			{
+				public void run() throws Exception
+				{
+					for(int k = 0; k < fitsKeywordCount; k++)
+					{
+						addCommand.setCommand("KEY"+k,k*1.5);
+						addCommand.sendCommand();
+						checkReply(addCommand);
+					}
+				}
+			});
+			benchmarkList.add(new CCDBenchmark("ccd.fits_headers."+fitsKeywordCount+"_keywords.batch",
+							   pooledList[i])
+			{
+				public void run() throws Exception
+				{
+					batchCommand.clear();
+					for(int k = 0; k < fitsKeywordCount; k++)
+						batchCommand.add("KEY"+k,k*1.5);
+					batchCommand.sendCommand();
+					checkReply(batchCommand);
+				}
+			});
+		}
+	}
+
+	/**
+	 * Add the mechanism command round trip benchmarks, each over a new telnet connection per command
+	 * and over a mechanism session.
+	 * @exception Exception Thrown if a command cannot be created.
+	 * @see #benchmarkList
+	 * @see MechanismBenchmark
+	 */
+	private void addMechanismBenchmarks() throws Exception
+	{
+		boolean sessionList[] = {false,true};
+
+		for(int i = 0; i < sessionList.length; i++)
+		{
+			benchmarkList.add(new MechanismBenchmark("mechanism.slit",sessionList[i],
+				      new SlitCommand(mechanismServer.getAddress(),mechanismServer.getPortNumber())));
+			benchmarkList.add(new MechanismBenchmark("mechanism.temperature",sessionList[i],
+				      new TemperatureCommand(mechanismServer.getAddress(),mechanismServer.getPortNumber(),0)));
+			benchmarkList.add(new MechanismBenchmark("mechanism.gyro",sessionList[i],
+				      new GyroCommand(mechanismServer.getAddress(),mechanismServer.getPortNumber())));
+		}
+	}
+
+	/**
+	 * Add the reply parsing benchmarks. These time lineRead and parseReplyString only, on a canned reply
+	 * string, with no I/O.
+	 * @exception Exception Thrown if the reply fields/methods cannot be found.
+	 * @see #benchmarkList
+	 * @see #getStatusAllReply
+	 */
+	private void addParseBenchmarks() throws Exception
+	{
+		final Method ccdClearReplyMethod = ngat.sprat.ccd.command.Command.class.getDeclaredMethod("clearReply");
+		final Method mechanismClearReplyMethod = ngat.sprat.mechanism.command.Command.class.
+			getDeclaredMethod("clearReply");
+		final StatusTemperatureGetCommand temperatureGetCommand = new StatusTemperatureGetCommand();
+		final StatusTemperatureStatusCommand temperatureStatusCommand = new StatusTemperatureStatusCommand();
+		final StatusAllCommand statusAllCommand = new StatusAllCommand();
+		final StatusExposureLengthCommand exposureLengthCommand = new StatusExposureLengthCommand();
+		final SlitCommand slitCommand = new SlitCommand();
+		final TemperatureCommand temperatureCommand = new TemperatureCommand();
+		final GyroCommand gyroCommand = new GyroCommand();
+		final RotationCommand rotationCommand = new RotationCommand();
+
+		ccdClearReplyMethod.setAccessible(true);
+		mechanismClearReplyMethod.setAccessible(true);
+		benchmarkList.add(new Benchmark("parse.ccd.status_temperature_get")
+		{
+			public void run() throws Exception
+			{
+				ccdClearReplyMethod.invoke(temperatureGetCommand);
+				temperatureGetCommand.lineRead("0 "+TIMESTAMP+" -100.00");
+				temperatureGetCommand.parseReplyString();
+				checkReply(temperatureGetCommand);
+			}
+		});
+		benchmarkList.add(new Benchmark("parse.ccd.status_temperature_status")
+		{
+			public void run() throws Exception
+			{
+				ccdClearReplyMethod.invoke(temperatureStatusCommand);
+				temperatureStatusCommand.lineRead("0 "+TIMESTAMP+" OK");
+				temperatureStatusCommand.parseReplyString();
+				checkReply(temperatureStatusCommand);
+			}
+		});
+		benchmarkList.add(new Benchmark("parse.ccd.status_all")
+		{
+			public void run() throws Exception
+			{
+				ccdClearReplyMethod.invoke(statusAllCommand);
+				statusAllCommand.lineRead(getStatusAllReply());
+				statusAllCommand.parseReplyString();
+				checkReply(statusAllCommand);
+			}
+		});
+		benchmarkList.add(new Benchmark("parse.ccd.status_exposure_length")
+		{
+			public void run() throws Exception
+			{
+				ccdClearReplyMethod.invoke(exposureLengthCommand);
+				exposureLengthCommand.lineRead("0 1000");
+				exposureLengthCommand.parseReplyString();
+				checkReply(exposureLengthCommand);
+			}
+		});
+		benchmarkList.add(new Benchmark("parse.mechanism.slit")
+		{
+			public void run() throws Exception
+			{
+				mechanismClearReplyMethod.invoke(slitCommand);
+				slitCommand.lineRead("in");
+				slitCommand.parseReplyString();
+			}
+		});
+		benchmarkList.add(new Benchmark("parse.mechanism.temperature")
+		{
+			public void run() throws Exception
+			{
+				mechanismClearReplyMethod.invoke(temperatureCommand);
+				temperatureCommand.lineRead("ok 12.34");
+				temperatureCommand.parseReplyString();
+			}
+		});
+		benchmarkList.add(new Benchmark("parse.mechanism.gyro")
+		{
+			public void run() throws Exception
+			{
+				mechanismClearReplyMethod.invoke(gyroCommand);
+				gyroCommand.lineRead("ok 1.0 2.0 3.0");
+				gyroCommand.parseReplyString();
+			}
+		});
+		benchmarkList.add(new Benchmark("parse.mechanism.rotation")
+		{
+			public void run() throws Exception
+			{
+				mechanismClearReplyMethod.invoke(rotationCommand);
+				rotationCommand.lineRead("1");
+				rotationCommand.parseReplyString();
+			}
+		});
+	}
+
+	/**
+	 * Add the GET_STATUS benchmarks, one per status level. These are only added if the address of a
+	 * running Sprat has been specified, as GET_STATUS is implemented by the Sprat server itself.
+	 * @see #spratAddress
+	 * @see #spratPortNumber
+	 * @see #benchmarkList
+	 * @see SicfTCPClientConnectionThread
+	 */
+	private void addGetStatusBenchmarks()
+	{
+		int levelList[] = {GET_STATUS.LEVEL_MINIMUM,GET_STATUS.LEVEL_INTERMEDIATE,GET_STATUS.LEVEL_FULL};
+
+		if(spratAddress == null)
+			return;
+		for(int i = 0; i < levelList.length; i++)
+		{
+			final int level = levelList[i];
+
+			benchmarkList.add(new Benchmark("sprat.get_status.level_"+level)
+			{
+				public void run() throws Exception
+				{
+					GET_STATUS getStatusCommand = null;
+					SicfTCPClientConnectionThread thread = null;
+
+					getStatusCommand = new GET_STATUS("SpratBenchmark");
+					getStatusCommand.setLevel(level);
+					thread = new SicfTCPClientConnectionThread(spratAddress,spratPortNumber,
+										   getStatusCommand);
+					thread.start();
+					thread.join();
+					if((thread.getDone() == null)||(thread.getDone().getSuccessful() == false))
+					{
+						throw new Exception(this.getClass().getName()+":run:GET_STATUS level "+level+
+								    " failed.");
+					}
+				}
+			});
+		}
+	}
+
+	/**
+	 * Run each benchmark in the list (that matches the filter).
+	 * @see #benchmarkList
+	 * @see #filter
+	 * @see #runBenchmark
+	 */
+	private void run()
+	{
+		Benchmark benchmark = null;
+
+		System.out.println("Warmup iterations:"+warmupCount+" timed iterations:"+iterationCount+
+				   " times in microseconds.");
+		for(int i = 0; i < benchmarkList.size(); i++)
+		{
+			benchmark = benchmarkList.get(i);
+			if((filter == null)||(benchmark.getName().indexOf(filter) > -1))
+			{
+				try
+				{
+					runBenchmark(benchmark);
+				}
+				catch(Exception e)
+				{
+					errorStream.println(benchmark.getName()+" failed:"+e);
+					e.printStackTrace(errorStream);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Run a benchmark. setUp is called, the benchmark is run warmupCount times untimed, and then
+	 * iterationCount times timed, and finally tearDown is called. The results are then printed.
+	 * @param benchmark The benchmark to run.
+	 * @exception Exception Thrown if the benchmark fails.
+	 * @see #warmupCount
+	 * @see #iterationCount
+	 * @see #printResult
+	 */
+	private void runBenchmark(Benchmark benchmark) throws Exception
+	{
+		long timeList[] = null;
+		long startTime;
+
+		timeList = new long[iterationCount];
+		benchmark.setUp();
+		try
+		{
+			for(int i = 0; i < warmupCount; i++)
+				benchmark.run();
+			for(int i = 0; i < iterationCount; i++)
+			{
+				startTime = System.nanoTime();
+				benchmark.run();
+				timeList[i] = System.nanoTime()-startTime;
+			}
+		}
+		finally
+		{
+			benchmark.tearDown();
+		}
+		printResult(benchmark.getName(),timeList);
+	}
+
+	/**
+	 * Print the result of a benchmark to System.out: the mean, minimum, 50th, 90th and 99th percentile,
+	 * and maximum times, in microseconds.
+	 * @param name The name of the benchmark.
+	 * @param timeList The list of times of each iteration, in nanoseconds. This list is sorted.
+	 */
+	private void printResult(String name,long timeList[])
+	{
+		double total = 0.0;
+
+		if(timeList.length == 0)
+			return;
+		Arrays.sort(timeList);
+		for(int i = 0; i < timeList.length; i++)
+			total += timeList[i];
+		System.out.println(name+": mean="+formatMicroseconds(total/timeList.length)+
+				   " min="+formatMicroseconds(timeList[0])+
+				   " p50="+formatMicroseconds(getPercentile(timeList,50))+
+				   " p90="+formatMicroseconds(getPercentile(timeList,90))+
+				   " p99="+formatMicroseconds(getPercentile(timeList,99))+
+				   " max="+formatMicroseconds(timeList[timeList.length-1]));
+	}
+
+	/**
+	 * Get a percentile from a sorted list of times.
+	 * @param sortedTimeList The sorted list of times.
+	 * @param percentile The percentile (0..100).
+	 * @return The time at the specified percentile.
+	 */
+	private long getPercentile(long sortedTimeList[],int percentile)
+	{
+		int index;
+
+		index = (int)Math.ceil((percentile/100.0)*sortedTimeList.length)-1;
+		index = Math.max(0,Math.min(index,sortedTimeList.length-1));
+		return sortedTimeList[index];
+	}
+
+	/**
+	 * Format a time in nanoseconds as a string in microseconds, to 1 decimal place.
+	 * @param nanoseconds The time in nanoseconds.
+	 * @return The formatted string.
+	 */
+	private String formatMicroseconds(double nanoseconds)
+	{
+		return String.format("%.1f",nanoseconds/1000.0);
+	}
+
+	/**
+	 * Check a CCD command's reply was parsed successfully.
+	 * @param command The command to check.
+	 * @exception Exception Thrown if the command's reply was not parsed successfully.
+	 */
+	private static void checkReply(ngat.sprat.ccd.command.Command command) throws Exception
+	{
+		if(command.getParsedReplyOK() == false)
+		{
+			throw new Exception("ngat.sprat.test.SpratBenchmark:checkReply:Command "+
+					    command.getClass().getName()+" failed with reply:"+command.getReply());
+		}
+	}
+
+	/**
+	 * Stop the stand-in servers, and close any pooled connections.
+	 * @see #ccdServer
+	 * @see #mechanismServer
+	 * @see CommandConnectionPool#closeAll
+	 */
+	private void close()
+	{
+		CommandConnectionPool.closeAll();
+		if(ccdServer != null)
+			ccdServer.close();
+		if(mechanismServer != null)
+			mechanismServer.close();
+	}
+
+	/**
+	 * This routine parses arguments passed into SpratBenchmark.
+	 * @param args Command line arguments.
+	 * @see #warmupCount
+	 * @see #iterationCount
+	 * @see #fitsKeywordCount
+	 * @see #filter
+	 * @see #spratAddress
+	 * @see #spratPortNumber
+	 * @see #help
+	 */
+	private void parseArgs(String[] args)
+	{
+		for(int i = 0; i < args.length;i++)
+		{
+			if(args[i].equals("-h")||args[i].equals("-help"))
+			{
+				help();
+				System.exit(0);
+			}
+			else if(args[i].equals("-f")||args[i].equals("-filter"))
+			{
+				if((i+1)< args.length)
+				{
+					filter = args[i+1];
+					i++;
+				}
+				else
+					errorStream.println("-filter requires a benchmark name substring.");
+			}
+			else if(args[i].equals("-fits_keywords"))
+			{
+				if((i+1)< args.length)
+				{
+					fitsKeywordCount = Integer.parseInt(args[i+1]);
+					i++;
+				}
+				else
+					errorStream.println("-fits_keywords requires a number.");
+			}
+			else if(args[i].equals("-i")||args[i].equals("-iterations"))
+			{
+				if((i+1)< args.length)
+				{
+					iterationCount = Integer.parseInt(args[i+1]);
+					i++;
+				}
+				else
+					errorStream.println("-iterations requires a number.");
+			}
+			else if(args[i].equals("-sprat_address"))
+			{
+				if((i+1)< args.length)
+				{
+					try
+					{
+						spratAddress = InetAddress.getByName(args[i+1]);
+					}
+					catch(UnknownHostException e)
+					{
+						System.err.println(this.getClass().getName()+":illegal address:"+
+							args[i+1]+":"+e);
+					}
+					i++;
+				}
+				else
+					errorStream.println("-sprat_address requires an address");
+			}
+			else if(args[i].equals("-sprat_port"))
+			{
+				if((i+1)< args.length)
+				{
+					spratPortNumber = Integer.parseInt(args[i+1]);
+					i++;
+				}
+				else
+					errorStream.println("-sprat_port requires a port number");
+			}
+			else if(args[i].equals("-w")||args[i].equals("-warmup"))
+			{
+				if((i+1)< args.length)
+				{
+					warmupCount = Integer.parseInt(args[i+1]);
+					i++;
+				}
+				else
+					errorStream.println("-warmup requires a number.");
+			}
+			else
+				System.out.println(this.getClass().getName()+":Option not supported:"+args[i]);
+		}
+	}
+
+	/**
+	 * Help message routine.
+	 */
+	private void help()
+	{
+		System.out.println(this.getClass().getName()+" Help:");
+		System.out.println("Options are:");
+		System.out.println("\t-f[ilter] <string> - Only run benchmarks whose name contains the string.");
+		System.out.println("\t-fits_keywords <number> - The number of keywords per FITS header iteration.");
+		System.out.println("\t-i[terations] <number> - The number of timed iterations per benchmark.");
+		System.out.println("\t-sprat_address <address> - Address of a running Sprat, to time GET_STATUS.");
+		System.out.println("\t-sprat_port <port number> - Port to send GET_STATUS commands to.");
+		System.out.println("\t-w[armup] <number> - The number of untimed iterations per benchmark.");
+		System.out.println("The default iterations is "+DEFAULT_ITERATION_COUNT+
+				   ", the default warmup is "+DEFAULT_WARMUP_COUNT+".");
+		System.out.println("The default Sprat port is "+DEFAULT_SPRAT_PORT_NUMBER+".");
+	}
+
+	/**
+	 * The main routine, called when SpratBenchmark is executed. This parses it's arguments, initialises
+	 * the object (starting the stand-in servers), runs the benchmarks and then stops the servers.
+	 * @param args Command line arguments.
+	 * @see #parseArgs
+	 * @see #init
+	 * @see #run
+	 * @see #close
+	 */
+	public static void main(String[] args)
+	{
+		SpratBenchmark sb = new SpratBenchmark();
+
+		sb.parseArgs(args);
+		try
+		{
+			sb.init();
+		}
+		catch(Exception e)
+		{
+			System.err.println("init failed:"+e);
+			e.printStackTrace(System.err);
+			sb.close();
+			System.exit(1);
+		}
+		sb.run();
+		sb.close();
+		System.exit(0);
+	}
+
+	/**
+	 * A benchmark: a named operation to time, with optional setUp and tearDown routines run before and after
+	 * all the iterations.
+	 */
+	abstract static class Benchmark
+	{
+		/**
+		 * The name of the benchmark.
+		 */
+		protected String name = null;
+
+		/**
+		 * Constructor.
+		 * @param name The name of the benchmark.
+		 */
+		public Benchmark(String name)
+		{
+			super();
+			this.name = name;
+		}
+
+		/**
+		 * Get the name of the benchmark.
+		 * @return The name.
+		 */
+		public String getName()
+		{
+			return name;
+		}
+
+		/**
+		 * Called once before the benchmark iterations are run. This implementation does nothing.
+		 * @exception Exception Thrown if the set up fails.
+		 */
+		public void setUp() throws Exception
+		{
+		}
+
+		/**
+		 * One iteration of the benchmark.
+		 * @exception Exception Thrown if the iteration fails.
+		 */
+		public abstract void run() throws Exception;
+
+		/**
+		 * Called once after the benchmark iterations have been run. This implementation does nothing.
+		 * @exception Exception Thrown if the tear down fails.
+		 */
+		public void tearDown() throws Exception
+		{
+		}
+	}
+
+	/**
+	 * A benchmark sending commands to the C layer. If the benchmark is pooled, the CommandConnectionPool
+	 * is enabled whilst it is run, otherwise each command is sent over a new telnet connection.
+	 * The name of the benchmark has ".pooled" or ".telnet" appended.
+	 * @see CommandConnectionPool
+	 */
+	abstract static class CCDBenchmark extends Benchmark
+	{
+		/**
+		 * Whether the commands are sent over pooled connections.
+		 */
+		protected boolean pooled = false;
+
+		/**
+		 * Constructor.
+		 * @param name The name of the benchmark.
+		 * @param pooled Whether the commands are sent over pooled connections.
+		 */
+		public CCDBenchmark(String name,boolean pooled)
+		{
+			super(name+(pooled ? ".pooled" : ".telnet"));
+			this.pooled = pooled;
+		}
+
+		/**
+		 * Enable or disable the connection pool.
+		 * @see CommandConnectionPool#setEnabled
+		 */
+		public void setUp() throws Exception
+		{
+			CommandConnectionPool.setEnabled(pooled);
+		}
+
+		/**
+		 * Close the pooled connections, and disable the connection pool.
+		 * @see CommandConnectionPool#closeAll
+		 * @see CommandConnectionPool#setEnabled
+		 */
+		public void tearDown() throws Exception
+		{
+			CommandConnectionPool.closeAll();
+			CommandConnectionPool.setEnabled(false);
+		}
+	}
+
+	/**
+	 * A benchmark sending a command to the mechanism Arduino, and parsing the reply. If the benchmark
+	 * uses a session, a MechanismSession is opened whilst it is run, otherwise each command is sent over a
+	 * new telnet connection. The name of the benchmark has ".session" or ".telnet" appended.
+	 * @see MechanismSession
+	 */
+	static class MechanismBenchmark extends Benchmark
+	{
+		/**
+		 * Whether the command is sent over a session.
+		 */
+		protected boolean useSession = false;
+		/**
+		 * The command to send.
+		 */
+		protected ngat.sprat.mechanism.command.Command command = null;
+		/**
+		 * The session the command is sent over, if useSession is true.
+		 */
+		protected MechanismSession session = null;
+
+		/**
+		 * Constructor.
+		 * @param name The name of the benchmark.
+		 * @param useSession Whether the command is sent over a session.
+		 * @param command The command to send.
+		 */
+		public MechanismBenchmark(String name,boolean useSession,ngat.sprat.mechanism.command.Command command)
+		{
+			super(name+(useSession ? ".session" : ".telnet"));
+			this.useSession = useSession;
+			this.command = command;
+		}
+
+		/**
+		 * If useSession is true, open a session to the Arduino and set the command to use it.
+		 * @see #session
+		 */
+		public void setUp() throws Exception
+		{
+			if(useSession)
+			{
+				session = new MechanismSession(command.getAddress(),command.getPortNumber());
+				session.open();
+			}
+			command.setSession(session);
+		}
+
+		/**
+		 * Send the command, and parse the reply.
+		 * @exception Exception Thrown if the command fails, or the Arduino replies with an error.
+		 */
+		public void run() throws Exception
+		{
+			command.sendCommand();
+			command.parseReplyString();
+			if(command.getIsError())
+			{
+				throw new Exception(this.getClass().getName()+":run:"+name+" failed:"+
+						    command.getErrorString());
+			}
+		}
+
+		/**
+		 * Close the session, if one was opened.
+		 * @see #session
+		 */
+		public void tearDown() throws Exception
+		{
+			command.setSession(null);
+			if(session != null)
+				session.close();
+			session = null;
+		}
+	}
+}
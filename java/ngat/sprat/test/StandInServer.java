@@ -0,0 +1,409 @@
+// StandInServer.java
+// $HeadURL$
+package ngat.sprat.test;
+
+import java.lang.*;
+import java.io.*;
+import java.net.*;
+import java.util.*;
+import java.util.concurrent.atomic.*;
+
+/**
+ * This class is an in-process stand-in for one of the line based servers Sprat talks to (the CCD C layer, or the
+ * mechanism Arduino). It listens on a loopback port, and replies to each command line with a canned reply,
+ * chosen by the longest command prefix set with setReply. Like the real servers, a connection is closed after
+ * the reply, unless a session was started with a "session start" command, in which case the connection stays
+ * open until "session end" is received or the client closes it. This allows the command classes (and
+ * their connection pooling/sessions) to be exercised and timed without any hardware.
+ * Subclasses can override getReply to simulate a server with state (see MechanismSimulator).
+ * @author Chris Mottram
+ * @version $Revision$
+ * @see SpratBenchmark
+ * @see MechanismSimulator
+ */
+public class StandInServer implements Runnable
+{
+	/**
+	 * Revision Control System id string, showing the version of the Class.
+	 */
+	public final static String RCSID = new String("$Id$");
+	/**
+	 * The command a client sends to start a session (keep the connection open).
+	 */
+	public final static String SESSION_START_COMMAND = new String("session start");
+	/**
+	 * The command a client sends to end a session.
+	 */
+	public final static String SESSION_END_COMMAND = new String("session end");
+	/**
+	 * The name of the server, used in thread names and error messages.
+	 */
+	protected String name = null;
+	/**
+	 * The reply sent to SESSION_START_COMMAND.
+	 */
+	protected String sessionStartReply = null;
+	/**
+	 * The reply sent to SESSION_END_COMMAND, or null to close the connection without a reply.
+	 */
+	protected String sessionEndReply = null;
+	/**
+	 * The reply sent to commands that do not match any prefix in replyTable.
+	 */
+	protected String defaultReply = null;
+	/**
+	 * The table of command prefixes, to the reply sent to commands starting with that prefix.
+	 */
+	protected Hashtable<String,String> replyTable = null;
+	/**
+	 * The address the server listens on.
+	 */
+	protected String address = "localhost";
+	/**
+	 * The port number the server listens on, 0 to use any free port.
+	 */
+	protected int portNumber = 0;
+	/**
+	 * The string written after each reply.
+	 */
+	protected String lineTerminator = "\n";
+	/**
+	 * The time to wait before sending each reply, in milliseconds, to simulate the server doing some work.
+	 */
+	protected int replyDelay = 0;
+	/**
+	 * The socket the server listens on.
+	 */
+	protected ServerSocket serverSocket = null;
+	/**
+	 * The thread accepting connections.
+	 */
+	protected Thread acceptThread = null;
+	/**
+	 * Whether the server has been closed.
+	 */
+	protected volatile boolean closed = false;
+	/**
+	 * The number of commands (excluding session start/end) the server has replied to.
+	 */
+	protected AtomicInteger commandCount = new AtomicInteger(0);
+	/**
+	 * The number of connections the server has accepted.
+	 */
+	protected AtomicInteger connectionCount = new AtomicInteger(0);
+
+	/**
+	 * Constructor.
+	 * @param name The name of the server.
+	 * @param sessionStartReply The reply to send to a "session start" command, e.g. "0 Session started." for the
+	 *        C layer, "ok" for the Arduino.
+	 * @param defaultReply The reply to send to commands that do not match any prefix set with setReply.
+	 * @see #replyTable
+	 */
+	public StandInServer(String name,String sessionStartReply,String defaultReply)
+	{
+		super();
+		this.name = name;
+		this.sessionStartReply = sessionStartReply;
+		this.defaultReply = defaultReply;
+		replyTable = new Hashtable<String,String>();
+	}
+
+	/**
+	 * Set the reply sent to commands starting with the specified prefix.
+	 * @param commandPrefix The command prefix, e.g. "status temperature get".
+	 * @param reply The reply line to send.
+	 * @see #replyTable
+	 */
+	public void setReply(String commandPrefix,String reply)
+	{
+		replyTable.put(commandPrefix,reply);
+	}
+
+	/**
+	 * Set the reply sent to a "session end" command, e.g. "0 Session ended." for the C layer, "ok" for the Arduino.
+	 * If this is not called the connection is closed without a reply.
+	 * @param s The reply, or null to close the connection without a reply.
+	 * @see #sessionEndReply
+	 */
+	public void setSessionEndReply(String s)
+	{
+		sessionEndReply = s;
+	}
+
+	/**
+	 * Set the address the server listens on. This must be called before start.
+	 * @param s The address, e.g. "localhost" (the default), or "0.0.0.0" for all interfaces.
+	 * @see #address
+	 */
+	public void setAddress(String s)
+	{
+		address = s;
+	}
+
+	/**
+	 * Set the port number the server listens on. This must be called before start.
+	 * @param n The port number, or 0 (the default) to listen on any free port.
+	 * @see #portNumber
+	 */
+	public void setPortNumber(int n)
+	{
+		portNumber = n;
+	}
+
+	/**
+	 * Set the string written after each reply line.
+	 * @param s The line terminator, e.g. "\n" or "\r\n".
+	 * @see #lineTerminator
+	 */
+	public void setLineTerminator(String s)
+	{
+		lineTerminator = s;
+	}
+
+	/**
+	 * Set the time to wait before sending each reply.
+	 * @param ms The delay, in milliseconds.
+	 * @see #replyDelay
+	 */
+	public void setReplyDelay(int ms)
+	{
+		replyDelay = ms;
+	}
+
+	/**
+	 * Start the server, listening on the port number and address set (by default a free loopback port).
+	 * @exception IOException Thrown if the server socket cannot be created.
+	 * @see #serverSocket
+	 * @see #acceptThread
+	 * @see #address
+	 * @see #portNumber
+	 * @see #getPortNumber
+	 */
+	public void start() throws IOException
+	{
+		serverSocket = new ServerSocket(portNumber,50,InetAddress.getByName(address));
+		acceptThread = new Thread(this,name+" accept");
+		acceptThread.setDaemon(true);
+		acceptThread.start();
+	}
+
+	/**
+	 * Get the address clients should connect to.
+	 * @return The address the server listens on.
+	 * @see #address
+	 */
+	public String getAddress()
+	{
+		return address;
+	}
+
+	/**
+	 * Get the port number the server is listening on.
+	 * @return The port number.
+	 * @see #serverSocket
+	 */
+	public int getPortNumber()
+	{
+		return serverSocket.getLocalPort();
+	}
+
+	/**
+	 * Get the number of commands the server has replied to, excluding session start/end commands.
+	 * @return The number of commands.
+	 * @see #commandCount
+	 */
+	public int getCommandCount()
+	{
+		return commandCount.get();
+	}
+
+	/**
+	 * Get the number of connections the server has accepted.
+	 * @return The number of connections.
+	 * @see #connectionCount
+	 */
+	public int getConnectionCount()
+	{
+		return connectionCount.get();
+	}
+
+	/**
+	 * Wait for the server to be closed. This is used by stand-alone servers (run from a main method), to stop
+	 * the JVM exiting, as the accept thread is a daemon thread.
+	 * @exception InterruptedException Thrown if the wait is interrupted.
+	 * @see #acceptThread
+	 */
+	public void join() throws InterruptedException
+	{
+		acceptThread.join();
+	}
+
+	/**
+	 * Stop the server. Connections that are already open are closed by their clients.
+	 * @see #closed
+	 * @see #serverSocket
+	 */
+	public void close()
+	{
+		closed = true;
+		try
+		{
+			if(serverSocket != null)
+				serverSocket.close();
+		}
+		catch(IOException e)
+		{
+			// we are closing anyway
+		}
+	}
+
+	/**
+	 * Run method of the accept thread. A new (daemon) thread is started to handle each connection.
+	 * @see #serverSocket
+	 * @see #handleConnection
+	 */
+	public void run()
+	{
+		Socket socket = null;
+		Thread thread = null;
+
+		while(closed == false)
+		{
+			try
+			{
+				socket = serverSocket.accept();
+			}
+			catch(IOException e)
+			{
+				if(closed == false)
+					System.err.println(this.getClass().getName()+":run:"+name+":accept failed:"+e);
+				return;
+			}
+			connectionCount.incrementAndGet();
+			final Socket connectionSocket = socket;
+			thread = new Thread(new Runnable()
+			{
+				public void run()
+				{
+					handleConnection(connectionSocket);
+				}
+			},name+" connection");
+			thread.setDaemon(true);
+			thread.start();
+		}
+	}
+
+	/**
+	 * Read command lines from the connection, and send a reply to each. The connection is closed after the first
+	 * reply, unless a session is started. If getReply returns null, the connection is closed without a reply
+	 * (to simulate a server that has failed).
+	 * @param socket The connection's socket.
+	 * @see #SESSION_START_COMMAND
+	 * @see #SESSION_END_COMMAND
+	 * @see #sessionStartReply
+	 * @see #sessionEndReply
+	 * @see #getReply
+	 * @see #getReplyDelay
+	 */
+	protected void handleConnection(Socket socket)
+	{
+		BufferedReader reader = null;
+		PrintWriter writer = null;
+		String line = null;
+		String reply = null;
+		boolean session = false;
+		int delay;
+
+		try
+		{
+			socket.setTcpNoDelay(true);
+			reader = new BufferedReader(new InputStreamReader(socket.getInputStream()));
+			writer = new PrintWriter(new OutputStreamWriter(socket.getOutputStream()));
+			while((line = reader.readLine()) != null)
+			{
+				line = line.trim();
+				if(line.equals(SESSION_START_COMMAND))
+				{
+					session = true;
+					reply = sessionStartReply;
+				}
+				else if(line.equals(SESSION_END_COMMAND))
+				{
+					session = false;
+					reply = sessionEndReply;
+				}
+				else
+				{
+					commandCount.incrementAndGet();
+					reply = getReply(line);
+				}
+				delay = getReplyDelay();
+				if(delay > 0)
+					Thread.sleep(delay);
+				if(reply == null)
+					break;
+				writer.print(reply+lineTerminator);
+				writer.flush();
+				if(session == false)
+					break;
+			}
+		}
+		catch(Exception e)
+		{
+			if(closed == false)
+				System.err.println(this.getClass().getName()+":handleConnection:"+name+":"+e);
+		}
+		finally
+		{
+			try
+			{
+				socket.close();
+			}
+			catch(IOException e)
+			{
+				// nothing more we can do
+			}
+		}
+	}
+
+	/**
+	 * Get the time to wait before sending the next reply. Subclasses can override this to add jitter.
+	 * @return The delay, in milliseconds.
+	 * @see #replyDelay
+	 */
+	protected int getReplyDelay()
+	{
+		return replyDelay;
+	}
+
+	/**
+	 * Get the reply to send to a command. The reply for the longest matching prefix in replyTable is returned,
+	 * or defaultReply if no prefix matches. Subclasses can override this to simulate a server with state.
+	 * @param commandString The command received (trimmed).
+	 * @return The reply line to send, or null to close the connection without replying.
+	 * @see #replyTable
+	 * @see #defaultReply
+	 */
+	protected String getReply(String commandString)
+	{
+		Enumeration<String> e = null;
+		String prefix = null;
+		String reply = null;
+		int replyPrefixLength = -1;
+
+		e = replyTable.keys();
+		while(e.hasMoreElements())
+		{
+			prefix = e.nextElement();
+			if(commandString.startsWith(prefix)&&(prefix.length() > replyPrefixLength))
+			{
+				reply = replyTable.get(prefix);
+				replyPrefixLength = prefix.length();
+			}
+		}
+		if(reply == null)
+			return defaultReply;
+		return reply;
+	}
+}